@@ -27,6 +27,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 import syncleus.dann.evolve.GeneticError;
 import syncleus.dann.evolve.genome.Genome;
 import syncleus.dann.evolve.population.Population;
@@ -70,6 +71,13 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
      */
     private int maxNumberOfSpecies = 40;
 
+    /**
+     * The number of threads used to compare genomes against the species
+     * leaders. Zero means use one thread per processor, one means speciate
+     * serially.
+     */
+    private int threadCount = 0;
+
     /**
      * The method used to sort the genomes in the species. More desirable
      * genomes should come first for later selection.
@@ -234,6 +242,13 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
         return this.numGensAllowedNoImprovement;
     }
 
+    /**
+     * @return the threadCount
+     */
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
     /**
      * @return the owner
      */
@@ -371,6 +386,14 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
         this.numGensAllowedNoImprovement = numGensAllowedNoImprovement;
     }
 
+    /**
+     * @param threadCount the threadCount to set, zero for one thread per
+     *                    processor
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = threadCount;
+    }
+
     /**
      * @param sortGenomes the sortGenomes to set
      */
@@ -399,33 +422,65 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
         // calculate compatibility between genomes and species
         adjustCompatibilityThreshold();
 
-        // assign genomes to species (if any exist)
-        for (final Genome g : genomes) {
-            Species currentSpecies = null;
-            final Genome genome = g;
+        // compare every genome with the leaders of the existing species, this
+        // is the expensive part and is done in parallel
+        final int existingCount = speciesCollection.size();
+        final List<Object> leaderFeatures = new ArrayList<>(existingCount);
+        for (final Species species : speciesCollection) {
+            leaderFeatures.add(extractCompatibilityFeatures(species
+                    .getLeader()));
+        }
+        final Object[] genomeFeatures = new Object[genomes.size()];
+        final int[] assignments = findExistingSpecies(genomes, genomeFeatures,
+                leaderFeatures);
+
+        // assign genomes to species, in order. A species whose leader changes
+        // during the pass is compared again with its new leader, so the
+        // result is the same as comparing each genome in turn.
+        final boolean[] leaderChanged = new boolean[existingCount];
+        for (int i = 0; i < genomes.size(); i++) {
+            final Genome genome = genomes.get(i);
+            final Object features = genomeFeatures[i];
 
             if (!Double.isNaN(genome.getAdjustedScore())
                     && !Double.isInfinite(genome.getAdjustedScore())) {
                 maxScore = Math.max(genome.getAdjustedScore(), maxScore);
             }
 
-            for (final Species s : speciesCollection) {
-                final double compatibility = getCompatibilityScore(genome,
-                        s.getLeader());
-
-                if (compatibility <= this.compatibilityThreshold) {
-                    currentSpecies = s;
-                    addSpeciesMember(s, genome);
-                    genome.setSpecies(s);
+            final int found = assignments[i];
+            Species currentSpecies = null;
+            int index = 0;
+            for (; index < speciesCollection.size(); index++) {
+                final boolean compatible;
+                if (index < existingCount && !leaderChanged[index]
+                        && (found < 0 || index <= found)) {
+                    // the leader is the one compared in parallel
+                    compatible = index == found;
+                } else {
+                    compatible = compareCompatibilityFeatures(features,
+                            leaderFeatures.get(index)) <= this.compatibilityThreshold;
+                }
+                if (compatible) {
+                    currentSpecies = speciesCollection.get(index);
                     break;
                 }
             }
 
-            // if this genome did not fall into any existing species, create a
-            // new species
-            if (currentSpecies == null) {
+            if (currentSpecies != null) {
+                addSpeciesMember(currentSpecies, genome);
+                genome.setSpecies(currentSpecies);
+                if (currentSpecies.getLeader() == genome) {
+                    leaderFeatures.set(index, features);
+                    if (index < existingCount) {
+                        leaderChanged[index] = true;
+                    }
+                }
+            } else {
+                // if this genome did not fall into any existing species,
+                // create a new species
                 currentSpecies = new BasicSpecies(this.population, genome);
                 this.population.getSpecies().add(currentSpecies);
+                leaderFeatures.add(features);
             }
         }
 
@@ -455,6 +510,83 @@ public abstract class ThresholdSpeciation implements Speciation, Serializable {
 
     }
 
+    /**
+     * Find, for each genome, the first existing species whose leader is
+     * compatible with it. The leaders are taken as they were at the start of
+     * the pass. The genomes are split into one contiguous block per thread,
+     * and each block writes only its own range of the results.
+     *
+     * @param genomes        The genomes to speciate.
+     * @param genomeFeatures The comparison features of each genome are
+     *                       stored here.
+     * @param leaderFeatures The comparison features of the leader of each
+     *                       existing species.
+     * @return The index of the compatible species for each genome, or -1 if
+     * there is none.
+     */
+    private int[] findExistingSpecies(final List<Genome> genomes,
+                                      final Object[] genomeFeatures,
+                                      final List<Object> leaderFeatures) {
+        final int genomeCount = genomes.size();
+        final int[] result = new int[genomeCount];
+        final Object[] leaders = leaderFeatures.toArray();
+
+        int threads = this.threadCount == 0 ? Runtime.getRuntime()
+                .availableProcessors() : this.threadCount;
+        threads = Math.max(1, Math.min(threads, genomeCount));
+        final int blockSize = (genomeCount + threads - 1) / threads;
+
+        IntStream blocks = IntStream.range(0, threads);
+        if (threads > 1) {
+            blocks = blocks.parallel();
+        }
+        blocks.forEach((block) -> {
+            final int end = Math.min(genomeCount, (block + 1) * blockSize);
+            for (int i = block * blockSize; i < end; i++) {
+                final Object features = extractCompatibilityFeatures(genomes
+                        .get(i));
+                genomeFeatures[i] = features;
+                result[i] = -1;
+                for (int j = 0; j < leaders.length; j++) {
+                    if (compareCompatibilityFeatures(features, leaders[j]) <= this.compatibilityThreshold) {
+                        result[i] = j;
+                        break;
+                    }
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Extract whatever a subclass needs to compare a genome quickly, such as
+     * sorted innovation numbers. This is called at most once per genome per
+     * speciation pass, and may be called from several threads at once. By
+     * default the genome itself is used.
+     *
+     * @param genome The genome.
+     * @return The features to compare.
+     */
+    protected Object extractCompatibilityFeatures(final Genome genome) {
+        return genome;
+    }
+
+    /**
+     * Determine how compatible two genomes are, given the features returned
+     * by {@link #extractCompatibilityFeatures(Genome)}. This must be thread
+     * safe. By default this compares the genomes with
+     * {@link #getCompatibilityScore(Genome, Genome)}.
+     *
+     * @param features1 The features of the first genome.
+     * @param features2 The features of the second genome.
+     * @return The compatability level.
+     */
+    protected double compareCompatibilityFeatures(final Object features1,
+                                                  final Object features2) {
+        return getCompatibilityScore((Genome) features1, (Genome) features2);
+    }
+
     /**
      * Determine how compatible two genomes are. More compatible genomes will be
      * placed into the same species. The lower the number, the more compatible.
@@ -0,0 +1,700 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import syncleus.dann.util.UnexpectedDannError;
+
+/**
+ * An immutable graph stored in compressed sparse row form. Nodes are interned
+ * to dense int ids in [0, getNodeCount()), edges are numbered
+ * [0, getEdgeCount()), and the arcs that can be traversed out of and into each
+ * node are kept in flat int arrays with edge weights in a primitive double
+ * array, so a graph costs a few words per edge instead of several objects.
+ * <p>
+ * The Graph methods work as on the adjacency graphs, but algorithms that need
+ * speed should use the int based methods: the arcs out of node u are
+ * [getOutOffsets()[u], getOutOffsets()[u + 1]) into getOutTargets(),
+ * getOutWeights() and getOutEdgeIds(), and the arcs into a node are indexed the
+ * same way by getInOffsets(). The arrays are shared, not copied, and must not
+ * be modified.
+ * <p>
+ * Edge weights follow the path finders: the weight of a {@link Weighted} edge,
+ * otherwise 0. Node weights are the weight of a Weighted node, otherwise 1.
+ * Node and edge context is not honoured.
+ *
+ * @param <N> The node type
+ * @param <E> The type of edge for the given node type
+ */
+public class CompressedBidirectedGraph<N, E extends BidirectedEdge<N>>
+        implements BidirectedGraph<N, E> {
+    private static final long serialVersionUID = -6410258735923384315L;
+
+    /**
+     * Creates the edge objects of a graph built from arrays, when the Graph
+     * methods need them.
+     *
+     * @param <N> The node type
+     * @param <E> The edge type
+     */
+    public interface EdgeFactory<N, E> extends Serializable {
+        /**
+         * @param left the left, or source, node
+         * @param right the right, or destination, node
+         * @param weight the edge weight
+         * @return the edge
+         */
+        E createEdge(N left, N right, double weight);
+    }
+
+    private final Object[] nodes;
+    private final Map<N, Integer> ids;
+    private final double[] nodeWeights;
+    private final int[] edgeLefts;
+    private final int[] edgeRights;
+    private final double[] edgeWeights;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outEdgeIds;
+    private final double[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inEdgeIds;
+    private final EdgeFactory<N, E> edgeFactory;
+    private Object[] edges;
+
+    /**
+     * Creates a compressed copy of a graph. The traversable arcs are taken
+     * from each edge's getTraversableNodes, so directed, undirected and half
+     * edges are all preserved.
+     *
+     * @param copyGraph the graph to copy, such as a MutableAdjacencyGraph
+     */
+    public CompressedBidirectedGraph(final Graph<N, E> copyGraph) {
+        this(new ArrayList<>(copyGraph.getNodes()), new ArrayList<>(copyGraph
+                .getEdges()));
+    }
+
+    /**
+     * Creates a graph from its nodes and edges.
+     *
+     * @param nodeList the nodes, whose order gives their ids
+     * @param edgeList the edges, whose order gives their ids
+     */
+    protected CompressedBidirectedGraph(final List<N> nodeList,
+                                        final List<E> edgeList) {
+        if (nodeList == null)
+            throw new IllegalArgumentException("nodeList can not be null");
+        if (edgeList == null)
+            throw new IllegalArgumentException("edgeList can not be null");
+
+        this.nodes = nodeList.toArray();
+        this.ids = internNodes(nodeList);
+        this.nodeWeights = weighNodes(this.nodes);
+        final int edgeCount = edgeList.size();
+        this.edges = edgeList.toArray();
+        this.edgeFactory = null;
+        this.edgeLefts = new int[edgeCount];
+        this.edgeRights = new int[edgeCount];
+        this.edgeWeights = new double[edgeCount];
+
+        int[] arcFrom = new int[edgeCount * 2];
+        int[] arcTo = new int[edgeCount * 2];
+        int[] arcEdge = new int[edgeCount * 2];
+        int arcCount = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            final E edge = edgeList.get(e);
+            this.edgeLefts[e] = this.requireId(edge.getLeftNode());
+            this.edgeRights[e] = this.requireId(edge.getRightNode());
+            this.edgeWeights[e] = (edge instanceof Weighted ? ((Weighted) edge)
+                    .getWeight() : 0.0);
+            final int ends = (edgeLefts[e] == edgeRights[e] ? 1 : 2);
+            for (int end = 0; end < ends; end++) {
+                final N from = (end == 0 ? edge.getLeftNode() : edge
+                        .getRightNode());
+                if (!edge.isTraversable(from))
+                    continue;
+                for (final N to : edge.getTraversableNodes(from)) {
+                    if (arcCount == arcFrom.length) {
+                        final int capacity = Math.max(4, arcCount * 2);
+                        arcFrom = Arrays.copyOf(arcFrom, capacity);
+                        arcTo = Arrays.copyOf(arcTo, capacity);
+                        arcEdge = Arrays.copyOf(arcEdge, capacity);
+                    }
+                    arcFrom[arcCount] = (end == 0 ? edgeLefts[e]
+                            : edgeRights[e]);
+                    arcTo[arcCount] = this.requireId(to);
+                    arcEdge[arcCount] = e;
+                    arcCount++;
+                }
+            }
+        }
+
+        this.outOffsets = new int[this.nodes.length + 1];
+        this.outTargets = new int[arcCount];
+        this.outEdgeIds = new int[arcCount];
+        this.outWeights = new double[arcCount];
+        this.inOffsets = new int[this.nodes.length + 1];
+        this.inSources = new int[arcCount];
+        this.inEdgeIds = new int[arcCount];
+        this.compress(arcFrom, arcTo, arcEdge, arcCount);
+    }
+
+    /**
+     * Creates a graph from flat arrays without building any edge objects.
+     * Edge objects are created by the factory, once each, only when a Graph
+     * method has to return them.
+     *
+     * @param nodeList the nodes, whose order gives their ids
+     * @param lefts the left, or source, node id of each edge
+     * @param rights the right, or destination, node id of each edge
+     * @param weights the weight of each edge
+     * @param directed true if edges can only be traversed from left to right,
+     *            false if they can be traversed both ways
+     * @param edgeFactory creates the edge objects
+     */
+    public CompressedBidirectedGraph(final List<N> nodeList, final int[] lefts,
+                                     final int[] rights, final double[] weights, final boolean directed,
+                                     final EdgeFactory<N, E> edgeFactory) {
+        if (nodeList == null)
+            throw new IllegalArgumentException("nodeList can not be null");
+        if ((lefts.length != rights.length) || (lefts.length != weights.length))
+            throw new IllegalArgumentException(
+                    "lefts, rights and weights differ in length");
+        if (edgeFactory == null)
+            throw new IllegalArgumentException("edgeFactory can not be null");
+
+        this.nodes = nodeList.toArray();
+        this.ids = internNodes(nodeList);
+        this.nodeWeights = weighNodes(this.nodes);
+        this.edgeFactory = edgeFactory;
+        this.edgeLefts = lefts.clone();
+        this.edgeRights = rights.clone();
+        this.edgeWeights = weights.clone();
+
+        final int edgeCount = lefts.length;
+        int arcCount = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if ((lefts[e] < 0) || (lefts[e] >= this.nodes.length)
+                    || (rights[e] < 0) || (rights[e] >= this.nodes.length))
+                throw new IllegalArgumentException("Edge " + e
+                        + " has an end point that is not a node id");
+            arcCount += ((directed || (lefts[e] == rights[e])) ? 1 : 2);
+        }
+        final int[] arcFrom = new int[arcCount];
+        final int[] arcTo = new int[arcCount];
+        final int[] arcEdge = new int[arcCount];
+        int arc = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            arcFrom[arc] = lefts[e];
+            arcTo[arc] = rights[e];
+            arcEdge[arc++] = e;
+            if (!directed && (lefts[e] != rights[e])) {
+                arcFrom[arc] = rights[e];
+                arcTo[arc] = lefts[e];
+                arcEdge[arc++] = e;
+            }
+        }
+
+        this.outOffsets = new int[this.nodes.length + 1];
+        this.outTargets = new int[arcCount];
+        this.outEdgeIds = new int[arcCount];
+        this.outWeights = new double[arcCount];
+        this.inOffsets = new int[this.nodes.length + 1];
+        this.inSources = new int[arcCount];
+        this.inEdgeIds = new int[arcCount];
+        this.compress(arcFrom, arcTo, arcEdge, arcCount);
+    }
+
+    private static <N> Map<N, Integer> internNodes(final List<N> nodeList) {
+        final Map<N, Integer> ids = new HashMap<>(nodeList.size() * 2);
+        for (int i = 0; i < nodeList.size(); i++) {
+            if (nodeList.get(i) == null)
+                throw new IllegalArgumentException("nodes can not be null");
+            if (ids.put(nodeList.get(i), i) != null)
+                throw new IllegalArgumentException("duplicate node "
+                        + nodeList.get(i));
+        }
+        return ids;
+    }
+
+    private static double[] weighNodes(final Object[] nodes) {
+        final double[] weights = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++)
+            weights[i] = (nodes[i] instanceof Weighted ? ((Weighted) nodes[i])
+                    .getWeight() : 1.0);
+        return weights;
+    }
+
+    /**
+     * Counting sorts the arcs by source node into the out arrays and by target
+     * node into the in arrays. Arcs of the same node keep their order.
+     */
+    private void compress(final int[] arcFrom, final int[] arcTo,
+                          final int[] arcEdge, final int arcCount) {
+        for (int arc = 0; arc < arcCount; arc++) {
+            this.outOffsets[arcFrom[arc] + 1]++;
+            this.inOffsets[arcTo[arc] + 1]++;
+        }
+        for (int node = 0; node < this.nodes.length; node++) {
+            this.outOffsets[node + 1] += this.outOffsets[node];
+            this.inOffsets[node + 1] += this.inOffsets[node];
+        }
+        final int[] outFill = Arrays.copyOf(this.outOffsets, this.nodes.length);
+        final int[] inFill = Arrays.copyOf(this.inOffsets, this.nodes.length);
+        for (int arc = 0; arc < arcCount; arc++) {
+            final int out = outFill[arcFrom[arc]]++;
+            this.outTargets[out] = arcTo[arc];
+            this.outEdgeIds[out] = arcEdge[arc];
+            this.outWeights[out] = this.edgeWeights[arcEdge[arc]];
+            final int in = inFill[arcTo[arc]]++;
+            this.inSources[in] = arcFrom[arc];
+            this.inEdgeIds[in] = arcEdge[arc];
+        }
+    }
+
+    private int requireId(final N node) {
+        final Integer id = this.ids.get(node);
+        if (id == null)
+            throw new IllegalArgumentException(
+                    "A node that is an end point in one of the edges was not in the nodes list");
+        return id;
+    }
+
+    /**
+     * Creates a graph of the same kind from the given nodes and edges; used by
+     * the clone methods.
+     *
+     * @param nodeList the nodes
+     * @param edgeList the edges
+     * @return the new graph
+     */
+    protected CompressedBidirectedGraph<N, E> newGraph(final List<N> nodeList,
+                                                       final List<E> edgeList) {
+        return new CompressedBidirectedGraph<>(nodeList, edgeList);
+    }
+
+    // int based access
+
+    /**
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return this.nodes.length;
+    }
+
+    /**
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return this.edgeLefts.length;
+    }
+
+    /**
+     * @return the number of traversable arcs; an edge traversable both ways
+     * counts twice
+     */
+    public int getArcCount() {
+        return this.outTargets.length;
+    }
+
+    /**
+     * @param node a node
+     * @return the id of the node, or -1 if it is not in the graph
+     */
+    public int getId(final N node) {
+        final Integer id = this.ids.get(node);
+        return (id == null ? -1 : id);
+    }
+
+    /**
+     * @param id a node id
+     * @return the node with that id
+     */
+    @SuppressWarnings("unchecked")
+    public N getNode(final int id) {
+        return (N) this.nodes[id];
+    }
+
+    /**
+     * @param id a node id
+     * @return the weight of the node
+     */
+    public double getNodeWeight(final int id) {
+        return this.nodeWeights[id];
+    }
+
+    /**
+     * @param id a node id
+     * @return the number of arcs out of the node
+     */
+    public int getOutDegree(final int id) {
+        return this.outOffsets[id + 1] - this.outOffsets[id];
+    }
+
+    /**
+     * @param id a node id
+     * @return the number of arcs into the node
+     */
+    public int getInDegree(final int id) {
+        return this.inOffsets[id + 1] - this.inOffsets[id];
+    }
+
+    /**
+     * @return the index of the first arc out of each node, plus the arc count
+     * at the end
+     */
+    public int[] getOutOffsets() {
+        return this.outOffsets;
+    }
+
+    /**
+     * @return the target node of each out arc
+     */
+    public int[] getOutTargets() {
+        return this.outTargets;
+    }
+
+    /**
+     * @return the edge of each out arc
+     */
+    public int[] getOutEdgeIds() {
+        return this.outEdgeIds;
+    }
+
+    /**
+     * @return the weight of the edge of each out arc
+     */
+    public double[] getOutWeights() {
+        return this.outWeights;
+    }
+
+    /**
+     * @return the index of the first arc into each node, plus the arc count at
+     * the end
+     */
+    public int[] getInOffsets() {
+        return this.inOffsets;
+    }
+
+    /**
+     * @return the source node of each in arc
+     */
+    public int[] getInSources() {
+        return this.inSources;
+    }
+
+    /**
+     * @return the edge of each in arc
+     */
+    public int[] getInEdgeIds() {
+        return this.inEdgeIds;
+    }
+
+    /**
+     * @param edge an edge id
+     * @return the id of the left, or source, node of the edge
+     */
+    public int getEdgeLeft(final int edge) {
+        return this.edgeLefts[edge];
+    }
+
+    /**
+     * @param edge an edge id
+     * @return the id of the right, or destination, node of the edge
+     */
+    public int getEdgeRight(final int edge) {
+        return this.edgeRights[edge];
+    }
+
+    /**
+     * @param edge an edge id
+     * @return the weight of the edge
+     */
+    public double getEdgeWeight(final int edge) {
+        return this.edgeWeights[edge];
+    }
+
+    /**
+     * @param edge an edge id
+     * @return the edge object, created by the edge factory on first use if the
+     * graph was built from arrays
+     */
+    @SuppressWarnings("unchecked")
+    public E getEdge(final int edge) {
+        if (this.edgeFactory == null)
+            return (E) this.edges[edge];
+        synchronized (this) {
+            if (this.edges == null)
+                this.edges = new Object[this.edgeLefts.length];
+            if (this.edges[edge] == null)
+                this.edges[edge] = this.edgeFactory.createEdge(
+                        this.getNode(this.edgeLefts[edge]),
+                        this.getNode(this.edgeRights[edge]),
+                        this.edgeWeights[edge]);
+            return (E) this.edges[edge];
+        }
+    }
+
+    /**
+     * @param edge an edge object
+     * @return the id of the edge, or -1 if it is not in the graph
+     */
+    public int getEdgeId(final Object edge) {
+        if (!(edge instanceof BidirectedEdge))
+            return -1;
+        final int left = this.getIdOf(((BidirectedEdge<?>) edge).getLeftNode());
+        if (left < 0)
+            return -1;
+        for (int arc = this.outOffsets[left]; arc < this.outOffsets[left + 1]; arc++)
+            if (this.getEdge(this.outEdgeIds[arc]).equals(edge))
+                return this.outEdgeIds[arc];
+        for (int arc = this.inOffsets[left]; arc < this.inOffsets[left + 1]; arc++)
+            if (this.getEdge(this.inEdgeIds[arc]).equals(edge))
+                return this.inEdgeIds[arc];
+        return -1;
+    }
+
+    private int getIdOf(final Object node) {
+        final Integer id = this.ids.get(node);
+        return (id == null ? -1 : id);
+    }
+
+    private List<N> arcNodes(final int[] offsets, final int[] arcNodes,
+                             final int id) {
+        if (id < 0)
+            return Collections.emptyList();
+        final List<N> result = new ArrayList<>(offsets[id + 1] - offsets[id]);
+        for (int arc = offsets[id]; arc < offsets[id + 1]; arc++)
+            result.add(this.getNode(arcNodes[arc]));
+        return Collections.unmodifiableList(result);
+    }
+
+    private Set<E> arcEdges(final int[] offsets, final int[] arcEdgeIds,
+                            final int id) {
+        if (id < 0)
+            return Collections.emptySet();
+        final Set<E> result = new LinkedHashSet<>();
+        for (int arc = offsets[id]; arc < offsets[id + 1]; arc++)
+            result.add(this.getEdge(arcEdgeIds[arc]));
+        return Collections.unmodifiableSet(result);
+    }
+
+    // Graph
+
+    @Override
+    public boolean isContextEnabled() {
+        return false;
+    }
+
+    @Override
+    public Stream<N> streamNodes() {
+        return IntStream.range(0, this.nodes.length).mapToObj(this::getNode);
+    }
+
+    @Override
+    public Stream<E> streamEdges() {
+        return IntStream.range(0, this.edgeLefts.length).mapToObj(
+                this::getEdge);
+    }
+
+    /**
+     * @return an unmodifiable view of the nodes, in id order
+     */
+    @Override
+    public Set<N> getNodes() {
+        return new AbstractSet<N>() {
+            @Override
+            public Iterator<N> iterator() {
+                return streamNodes().iterator();
+            }
+
+            @Override
+            public int size() {
+                return nodes.length;
+            }
+
+            @Override
+            public boolean contains(final Object node) {
+                return ids.containsKey(node);
+            }
+        };
+    }
+
+    /**
+     * @return an unmodifiable view of the edges, in id order
+     */
+    @Override
+    public Set<E> getEdges() {
+        return new AbstractSet<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                return streamEdges().iterator();
+            }
+
+            @Override
+            public int size() {
+                return edgeLefts.length;
+            }
+
+            @Override
+            public boolean contains(final Object edge) {
+                return getEdgeId(edge) >= 0;
+            }
+        };
+    }
+
+    @Override
+    public Set<E> getAdjacentEdges(final N node) {
+        final int id = this.getId(node);
+        if (id < 0)
+            return Collections.emptySet();
+        final Set<E> adjacent = new LinkedHashSet<>(this.arcEdges(
+                this.outOffsets, this.outEdgeIds, id));
+        adjacent.addAll(this.arcEdges(this.inOffsets, this.inEdgeIds, id));
+        return Collections.unmodifiableSet(adjacent);
+    }
+
+    @Override
+    public Stream<E> streamAdjacentEdges(final N node) {
+        return this.getAdjacentEdges(node).stream();
+    }
+
+    @Override
+    public List<N> getAdjacentNodes(final N node) {
+        final List<N> adjacent = new ArrayList<>();
+        for (final E edge : this.getAdjacentEdges(node))
+            adjacent.add(edge.getLeftNode().equals(node) ? edge.getRightNode()
+                    : edge.getLeftNode());
+        return Collections.unmodifiableList(adjacent);
+    }
+
+    @Override
+    public Stream<N> streamAdjacentNodes(final N node) {
+        return this.getAdjacentNodes(node).stream();
+    }
+
+    @Override
+    public List<N> getTraversableNodes(final N node) {
+        return this.arcNodes(this.outOffsets, this.outTargets, this.getId(node));
+    }
+
+    @Override
+    public Set<E> getTraversableEdges(final N node) {
+        return this.arcEdges(this.outOffsets, this.outEdgeIds, this.getId(node));
+    }
+
+    @Override
+    public Set<E> getInEdges(final N node) {
+        return this.arcEdges(this.inOffsets, this.inEdgeIds, this.getId(node));
+    }
+
+    private CompressedBidirectedGraph<N, E> rebuild(final Set<N> addNodes,
+                                                    final Set<E> addEdges, final Set<N> deleteNodes,
+                                                    final Set<E> deleteEdges) {
+        final List<N> nodeList = this.streamNodes()
+                .filter(node -> !deleteNodes.contains(node))
+                .collect(Collectors.toList());
+        addNodes.stream().filter(node -> !this.ids.containsKey(node))
+                .forEach(nodeList::add);
+        final List<E> edgeList = this.streamEdges()
+                .filter(edge -> !deleteEdges.contains(edge)
+                        && !deleteNodes.contains(edge.getLeftNode())
+                        && !deleteNodes.contains(edge.getRightNode()))
+                .collect(Collectors.toList());
+        addEdges.stream().filter(edge -> this.getEdgeId(edge) < 0)
+                .forEach(edgeList::add);
+        return this.newGraph(nodeList, edgeList);
+    }
+
+    @Override
+    public CompressedBidirectedGraph<N, E> cloneAdd(final E newEdge) {
+        if (newEdge == null)
+            throw new IllegalArgumentException("newEdge can not be null");
+        return this.rebuild(Collections.<N>emptySet(), Collections
+                .singleton(newEdge), Collections.<N>emptySet(), Collections
+                .<E>emptySet());
+    }
+
+    @Override
+    public CompressedBidirectedGraph<N, E> cloneAdd(final N newNode) {
+        if (newNode == null)
+            throw new IllegalArgumentException("newNode can not be null");
+        return this.rebuild(Collections.singleton(newNode), Collections
+                .<E>emptySet(), Collections.<N>emptySet(), Collections
+                .<E>emptySet());
+    }
+
+    @Override
+    public CompressedBidirectedGraph<N, E> cloneAdd(final Set<N> newNodes,
+                                                    final Set<E> newEdges) {
+        return this.rebuild(newNodes, newEdges, Collections.<N>emptySet(),
+                Collections.<E>emptySet());
+    }
+
+    @Override
+    public CompressedBidirectedGraph<N, E> cloneRemove(final E edgeToRemove) {
+        return this.rebuild(Collections.<N>emptySet(),
+                Collections.<E>emptySet(), Collections.<N>emptySet(),
+                Collections.singleton(edgeToRemove));
+    }
+
+    @Override
+    public CompressedBidirectedGraph<N, E> cloneRemove(final N nodeToRemove) {
+        return this.rebuild(Collections.<N>emptySet(),
+                Collections.<E>emptySet(), Collections.singleton(nodeToRemove),
+                Collections.<E>emptySet());
+    }
+
+    @Override
+    public CompressedBidirectedGraph<N, E> cloneRemove(
+            final Set<N> deleteNodes, final Set<E> deleteEdges) {
+        return this.rebuild(Collections.<N>emptySet(),
+                Collections.<E>emptySet(), deleteNodes, deleteEdges);
+    }
+
+    /**
+     * The graph is immutable, so the clone shares its arrays.
+     *
+     * @return a shallow copy of this graph
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompressedBidirectedGraph<N, E> clone() {
+        try {
+            return (CompressedBidirectedGraph<N, E>) super.clone();
+        } catch (final CloneNotSupportedException caught) {
+            throw new UnexpectedDannError("Unexpectedly could not clone graph",
+                    caught);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link CompressedBidirectedGraph} of directed edges. Every edge is one arc
+ * from its source to its destination, so the out arrays hold the successors
+ * and the in arrays the predecessors of each node.
+ *
+ * @param <N> The node type
+ * @param <E> The type of edge for the given node type
+ */
+public class CompressedDirectedGraph<N, E extends DirectedEdge<N>> extends
+        CompressedBidirectedGraph<N, E> implements DirectedGraph<N, E> {
+    private static final long serialVersionUID = 2871146089123734562L;
+
+    /**
+     * Creates a compressed copy of a directed graph.
+     *
+     * @param copyGraph the graph to copy, such as a
+     *            MutableDirectedAdjacencyGraph
+     */
+    public CompressedDirectedGraph(final Graph<N, E> copyGraph) {
+        this(new ArrayList<>(copyGraph.getNodes()), new ArrayList<>(copyGraph
+                .getEdges()));
+    }
+
+    /**
+     * Creates a graph from its nodes and edges.
+     *
+     * @param nodeList the nodes, whose order gives their ids
+     * @param edgeList the edges, whose order gives their ids
+     */
+    protected CompressedDirectedGraph(final List<N> nodeList,
+                                      final List<E> edgeList) {
+        super(nodeList, edgeList);
+    }
+
+    /**
+     * Creates a graph from flat arrays without building any edge objects.
+     *
+     * @param nodeList the nodes, whose order gives their ids
+     * @param sources the source node id of each edge
+     * @param destinations the destination node id of each edge
+     * @param weights the weight of each edge
+     * @param edgeFactory creates the edge objects when a Graph method needs
+     *            them
+     */
+    public CompressedDirectedGraph(final List<N> nodeList, final int[] sources,
+                                   final int[] destinations, final double[] weights,
+                                   final EdgeFactory<N, E> edgeFactory) {
+        super(nodeList, sources, destinations, weights, true, edgeFactory);
+    }
+
+    @Override
+    protected CompressedDirectedGraph<N, E> newGraph(final List<N> nodeList,
+                                                     final List<E> edgeList) {
+        return new CompressedDirectedGraph<>(nodeList, edgeList);
+    }
+
+    @Override
+    public CompressedDirectedGraph<N, E> cloneAdd(final E newEdge) {
+        return (CompressedDirectedGraph<N, E>) super.cloneAdd(newEdge);
+    }
+
+    @Override
+    public CompressedDirectedGraph<N, E> cloneAdd(final N newNode) {
+        return (CompressedDirectedGraph<N, E>) super.cloneAdd(newNode);
+    }
+
+    @Override
+    public CompressedDirectedGraph<N, E> cloneAdd(final Set<N> newNodes,
+                                                  final Set<E> newEdges) {
+        return (CompressedDirectedGraph<N, E>) super.cloneAdd(newNodes,
+                newEdges);
+    }
+
+    @Override
+    public CompressedDirectedGraph<N, E> cloneRemove(final E edgeToRemove) {
+        return (CompressedDirectedGraph<N, E>) super.cloneRemove(edgeToRemove);
+    }
+
+    @Override
+    public CompressedDirectedGraph<N, E> cloneRemove(final N nodeToRemove) {
+        return (CompressedDirectedGraph<N, E>) super.cloneRemove(nodeToRemove);
+    }
+
+    @Override
+    public CompressedDirectedGraph<N, E> cloneRemove(final Set<N> deleteNodes,
+                                                     final Set<E> deleteEdges) {
+        return (CompressedDirectedGraph<N, E>) super.cloneRemove(deleteNodes,
+                deleteEdges);
+    }
+
+    @Override
+    public CompressedDirectedGraph<N, E> clone() {
+        return (CompressedDirectedGraph<N, E>) super.clone();
+    }
+}
@@ -18,9 +18,13 @@
  ******************************************************************************/
 package syncleus.dann.graph.cycle;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,42 +38,63 @@ public class ColoredDepthFirstSearchDetector implements CycleDetector {
         // white, false for grey, true for black.
         final Map<N, Boolean> colorMap = new HashMap<>();
 
-        final Set<E> traversedEdges = new HashSet<>();
+        // edges are compared by identity, as distinct parallel edges may be
+        // equal to each other
+        final Set<E> traversedEdges = Collections
+                .newSetFromMap(new IdentityHashMap<>());
 
         return graph.getNodes().stream().anyMatch((node) -> (!colorMap.containsKey(node)
                 && visit(graph, colorMap, traversedEdges, node)));
 
     }
 
+    /**
+     * A depth first search from the given node, keeping its path on an
+     * explicit stack so deep graphs can not overflow the Java stack.
+     */
     private static <N, E extends Edge<N>> boolean visit(
             final Graph<N, E> graph, final Map<N, Boolean> colorMap,
-            final Set<E> traversedEdges, final N node) {
-        colorMap.put(node, Boolean.FALSE);
-
-        final Set<E> traversableEdges = graph.getTraversableEdges(node);
-        for (final E neighborEdge : traversableEdges) {
-            if (!ColoredDepthFirstSearchDetector.traversed(traversedEdges,
-                    neighborEdge)) {
-                traversedEdges.add(neighborEdge);
-                final List<N> neighborNodes = new ArrayList<>(
-                        neighborEdge.getNodes());
-                neighborNodes.remove(node);
-                for (final N neighborNode : neighborNodes) {
-                    if (colorMap.get(neighborNode) == Boolean.FALSE)
-                        return true;
-                    else if (!colorMap.containsKey(neighborNode)
-                            && visit(graph, colorMap, traversedEdges,
-                            neighborNode))
-                        return true;
+            final Set<E> traversedEdges, final N startNode) {
+        final Deque<Frame<N, E>> path = new ArrayDeque<>();
+        colorMap.put(startNode, Boolean.FALSE);
+        path.push(new Frame<>(startNode, graph.getTraversableEdges(startNode)
+                .iterator()));
+        while (!path.isEmpty()) {
+            final Frame<N, E> frame = path.peek();
+            if ((frame.neighborNodes != null) && frame.neighborNodes.hasNext()) {
+                final N neighborNode = frame.neighborNodes.next();
+                if (colorMap.get(neighborNode) == Boolean.FALSE)
+                    return true;
+                else if (!colorMap.containsKey(neighborNode)) {
+                    colorMap.put(neighborNode, Boolean.FALSE);
+                    path.push(new Frame<>(neighborNode, graph
+                            .getTraversableEdges(neighborNode).iterator()));
+                }
+            } else if (frame.edges.hasNext()) {
+                final E neighborEdge = frame.edges.next();
+                frame.neighborNodes = null;
+                if (traversedEdges.add(neighborEdge)) {
+                    final List<N> neighborNodes = new ArrayList<>(
+                            neighborEdge.getNodes());
+                    neighborNodes.remove(frame.node);
+                    frame.neighborNodes = neighborNodes.iterator();
                 }
+            } else {
+                colorMap.put(frame.node, Boolean.TRUE);
+                path.pop();
             }
         }
-        colorMap.put(node, Boolean.TRUE);
         return false;
     }
 
-    private static <E extends Edge> boolean traversed(
-            final Set<E> traversedEdges, final E edge) {
-        return traversedEdges.stream().anyMatch((traversedEdge) -> (traversedEdge == edge));
+    private static final class Frame<N, E> {
+        private final N node;
+        private final Iterator<E> edges;
+        private Iterator<N> neighborNodes;
+
+        private Frame(final N node, final Iterator<E> edges) {
+            this.node = node;
+            this.edges = edges;
+        }
     }
 }
@@ -0,0 +1,36 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph.cycle;
+
+import syncleus.dann.graph.Cycle;
+import syncleus.dann.graph.Edge;
+
+/**
+ * Receives cycles one at a time as a {@link JohnsonCycleFinder} finds them.
+ *
+ * @param <N> The node type
+ * @param <E> The type of edge for the given node type
+ */
+public interface CycleConsumer<N, E extends Edge<N>> {
+    /**
+     * @param cycle a cycle that was found
+     * @return true to keep searching, false to stop
+     */
+    boolean accept(Cycle<N, E> cycle);
+}
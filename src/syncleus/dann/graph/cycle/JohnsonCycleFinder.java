@@ -0,0 +1,623 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph.cycle;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import syncleus.dann.graph.Cycle;
+import syncleus.dann.graph.Edge;
+import syncleus.dann.graph.Graph;
+import syncleus.dann.graph.SimpleCycle;
+import syncleus.dann.graph.topological.Topography;
+import syncleus.dann.graph.topological.TopologyIndex;
+
+/**
+ * Finds the elementary cycles of a graph with <a
+ * href="http://epubs.siam.org/doi/abs/10.1137/0204007">Johnson's
+ * algorithm</a>. Cycles are streamed to a {@link CycleConsumer} as they are
+ * found instead of being collected, can be limited to a range of lengths, and
+ * the search stops as soon as the consumer asks it to.
+ * <p>
+ * The search runs over the traversable arcs of a {@link TopologyIndex}. Each
+ * strongly connected component is a task: its cycles through its lowest node
+ * are found by a search confined to the component, after which that node is
+ * removed and what is left splits into smaller components, each a new task.
+ * Every cycle is so found exactly once, and as the components never share a
+ * node they are searched in parallel. The depth first searches keep their
+ * frames in arrays rather than on the Java stack, so long cycles in large
+ * graphs can not overflow it.
+ * <p>
+ * Cycles follow the same rules as {@link ExhaustiveDepthFirstSearchCycleFinder}:
+ * a cycle never uses an edge twice, so going back along an undirected edge is
+ * not a cycle, and a cycle made only of edges that can be traversed both ways
+ * is reported in one direction only.
+ *
+ * @param <N> The node type
+ * @param <E> The type of edge for the given node type
+ */
+public class JohnsonCycleFinder<N, E extends Edge<N>> implements
+        CycleFinder<N, E> {
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final int threads;
+
+    /**
+     * Creates a finder using one thread per processor.
+     */
+    public JohnsonCycleFinder() {
+        this(0);
+    }
+
+    /**
+     * @param threadCount the number of threads, 0 for one per processor
+     */
+    public JohnsonCycleFinder(final int threadCount) {
+        this.threads = Math.max(1, threadCount > 0 ? threadCount : Runtime
+                .getRuntime().availableProcessors());
+    }
+
+    /**
+     * Passes every cycle of the graph to the consumer. Calls to the consumer
+     * never overlap, but when more than one thread is used the order in which
+     * cycles arrive is not defined.
+     *
+     * @param graph the graph to search
+     * @param consumer receives the cycles, and may stop the search
+     * @return the number of cycles passed to the consumer
+     */
+    public long findCycles(final Graph<N, E> graph,
+                           final CycleConsumer<N, E> consumer) {
+        return this.findCycles(graph, 1, UNBOUNDED, consumer);
+    }
+
+    /**
+     * Passes every cycle of the graph whose length lies within the bounds to
+     * the consumer. The upper bound also limits how deep the search goes.
+     * Calls to the consumer never overlap, but when more than one thread is
+     * used the order in which cycles arrive is not defined.
+     *
+     * @param graph the graph to search
+     * @param minimumLength the fewest edges a reported cycle may have
+     * @param maximumLength the most edges a reported cycle may have
+     * @param consumer receives the cycles, and may stop the search
+     * @return the number of cycles passed to the consumer
+     */
+    public long findCycles(final Graph<N, E> graph, final int minimumLength,
+                           final int maximumLength, final CycleConsumer<N, E> consumer) {
+        if (consumer == null)
+            throw new IllegalArgumentException("consumer can not be null");
+        if ((maximumLength < 1) || (minimumLength > maximumLength))
+            throw new IllegalArgumentException("invalid length bounds");
+        final Run run = new Run(TopologyIndex.of(graph), minimumLength,
+                maximumLength, consumer);
+        run.execute(this.threads);
+        return run.reported.get();
+    }
+
+    @Override
+    public <N2, E2 extends Edge<N2>> boolean hasCycle(final Graph<N2, E2> graph) {
+        return new JohnsonCycleFinder<N2, E2>(this.threads).findCycles(graph,
+                cycle -> false) > 0;
+    }
+
+    @Override
+    public int cycleCount(final Graph<N, E> graph) {
+        return (int) Math.min(Integer.MAX_VALUE, this.findCycles(graph,
+                cycle -> true));
+    }
+
+    @Override
+    public Set<Cycle<N, E>> findCycles(final Graph<N, E> graph) {
+        final Set<Cycle<N, E>> cycles = new HashSet<>();
+        this.findCycles(graph, cycles::add);
+        return cycles;
+    }
+
+    @Override
+    public boolean isPancyclic(final Graph<N, E> graph) {
+        final int order = Topography.getOrder(graph);
+        if ((order < 3) || !Topography.isSimple(graph))
+            return false;
+        final boolean[] lengths = new boolean[order + 1];
+        final AtomicInteger missing = new AtomicInteger(order - 2);
+        this.findCycles(graph, 3, order, cycle -> {
+            if (!lengths[cycle.getLength()]) {
+                lengths[cycle.getLength()] = true;
+                missing.decrementAndGet();
+            }
+            return missing.get() > 0;
+        });
+        return missing.get() == 0;
+    }
+
+    @Override
+    public boolean isUnicyclic(final Graph<N, E> graph) {
+        final AtomicInteger count = new AtomicInteger();
+        this.findCycles(graph, cycle -> count.incrementAndGet() < 2);
+        return (count.get() == 1) && Topography.isSimple(graph);
+    }
+
+    /**
+     * @return the length of the shortest cycle, or 0 if there are none
+     */
+    @Override
+    public int girth(final Graph<N, E> graph) {
+        final AtomicInteger shortest = new AtomicInteger();
+        final Run run = new Run(TopologyIndex.of(graph), 1, UNBOUNDED,
+                cycle -> {
+                    shortest.set(cycle.getLength());
+                    return cycle.getLength() > 1;
+                });
+        // only cycles shorter than the best so far are worth looking for
+        run.shrinkOnReport = true;
+        run.execute(this.threads);
+        return shortest.get();
+    }
+
+    /**
+     * @return the length of the longest cycle, or 0 if there are none
+     */
+    @Override
+    public int circumference(final Graph<N, E> graph) {
+        final int order = Topography.getOrder(graph);
+        final AtomicInteger longest = new AtomicInteger();
+        this.findCycles(graph, cycle -> {
+            if (cycle.getLength() > longest.get())
+                longest.set(cycle.getLength());
+            return longest.get() < order;
+        });
+        return longest.get();
+    }
+
+    /**
+     * The shared state of one search: the graph view, the component each
+     * node currently belongs to and the consumer, whose calls are serialized
+     * on this object.
+     */
+    private final class Run {
+        private final TopologyIndex index;
+        private final int minimumLength;
+        private final AtomicInteger maximumLength;
+        private final CycleConsumer<N, E> consumer;
+        private final boolean[] symmetric;
+        // the label of the component a node is searched in, -1 once it can
+        // no longer be part of a cycle; only the task owning a component
+        // writes its labels and labels are never reused
+        private final int[] labels;
+        private final AtomicInteger nextLabel = new AtomicInteger();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private final AtomicLong reported = new AtomicLong();
+        private final ThreadLocal<Search> searches = ThreadLocal
+                .withInitial(() -> new Search(this));
+        private boolean shrinkOnReport;
+
+        private Run(final TopologyIndex index, final int minimumLength,
+                    final int maximumLength, final CycleConsumer<N, E> consumer) {
+            this.index = index;
+            this.minimumLength = minimumLength;
+            this.maximumLength = new AtomicInteger(maximumLength);
+            this.consumer = consumer;
+            this.labels = new int[index.getNodeCount()];
+
+            // an edge is symmetric when every arc along it can be reversed
+            final int nodeCount = index.getNodeCount();
+            final int edgeCount = index.getEdgeCount();
+            final int[] arcCounts = new int[edgeCount];
+            for (int node = 0; node < nodeCount; node++)
+                for (int arc = index.getArcStart(node); arc < index
+                        .getArcEnd(node); arc++)
+                    if (index.getArcTarget(arc) != node)
+                        arcCounts[index.getArcEdge(arc)]++;
+            this.symmetric = new boolean[edgeCount];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                @SuppressWarnings("unchecked")
+                final Edge<Object> edgeObject = (Edge<Object>) index
+                        .getEdge(edge);
+                final int ends = new HashSet<>(edgeObject.getNodes()).size();
+                this.symmetric[edge] = (ends > 1)
+                        && (arcCounts[edge] == ends * (ends - 1));
+            }
+        }
+
+        private void execute(final int threads) {
+            final List<int[]> components = this.initialComponents();
+            if (threads == 1) {
+                final Deque<int[]> pending = new ArrayDeque<>(components);
+                while (!pending.isEmpty() && !this.stopped.get())
+                    for (final int[] part : this.process(pending.pop()))
+                        pending.push(part);
+                return;
+            }
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new ComponentTask(components));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        /**
+         * The strongly connected components of the whole graph that can hold
+         * a cycle, labelled.
+         */
+        private List<int[]> initialComponents() {
+            final int nodeCount = this.index.getNodeCount();
+            final int componentCount = this.index.getStrongComponentCount();
+            final int[] offsets = new int[componentCount + 1];
+            for (int node = 0; node < nodeCount; node++)
+                offsets[this.index.getStrongComponent(node) + 1]++;
+            for (int component = 0; component < componentCount; component++)
+                offsets[component + 1] += offsets[component];
+            final int[] members = new int[nodeCount];
+            final int[] fill = Arrays.copyOf(offsets, componentCount);
+            for (int node = 0; node < nodeCount; node++)
+                members[fill[this.index.getStrongComponent(node)]++] = node;
+            final List<int[]> components = new ArrayList<>();
+            for (int component = 0; component < componentCount; component++)
+                this.addComponent(components, Arrays.copyOfRange(members,
+                        offsets[component], offsets[component + 1]));
+            return components;
+        }
+
+        /**
+         * Labels the component and adds it to the list if it can hold a
+         * cycle, otherwise marks its nodes as done.
+         */
+        private void addComponent(final List<int[]> components,
+                                  final int[] members) {
+            if ((members.length > 1) || hasLoop(this.index, members[0])) {
+                final int label = this.nextLabel.getAndIncrement();
+                for (final int member : members)
+                    this.labels[member] = label;
+                components.add(members);
+            } else
+                this.labels[members[0]] = -1;
+        }
+
+        /**
+         * Reports the cycles through the lowest node of a component, then
+         * removes that node and returns the components left behind.
+         */
+        private List<int[]> process(final int[] members) {
+            final Search search = this.searches.get();
+            int start = members[0];
+            for (final int member : members)
+                start = Math.min(start, member);
+            search.circuits(start, this.labels[start]);
+            if (this.stopped.get())
+                return new ArrayList<>();
+            this.labels[start] = -1;
+            final List<int[]> parts = new ArrayList<>();
+            for (final int[] part : search.split(members, start))
+                this.addComponent(parts, part);
+            return parts;
+        }
+
+        private synchronized void report(final List<E> steps,
+                                         final List<N> nodeSteps) {
+            if (this.stopped.get() || (steps.size() > this.maximumLength.get()))
+                return;
+            this.reported.incrementAndGet();
+            if (this.shrinkOnReport)
+                this.maximumLength.set(steps.size() - 1);
+            if (!this.consumer.accept(new SimpleCycle<>(steps, nodeSteps)))
+                this.stopped.set(true);
+        }
+
+        /**
+         * Processes components in parallel: a task holding several
+         * components forks one task for each, and a task holding one
+         * component processes it and then forks one task for each part it
+         * leaves behind.
+         */
+        private final class ComponentTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final transient List<int[]> components;
+
+            private ComponentTask(final List<int[]> components) {
+                this.components = components;
+            }
+
+            @Override
+            protected void compute() {
+                if (Run.this.stopped.get())
+                    return;
+                final List<int[]> parts = (this.components.size() == 1 ? Run.this
+                        .process(this.components.get(0)) : this.components);
+                final List<ComponentTask> tasks = new ArrayList<>(parts.size());
+                for (final int[] part : parts)
+                    tasks.add(new ComponentTask(Collections.singletonList(part)));
+                invokeAll(tasks);
+            }
+        }
+    }
+
+    private static boolean hasLoop(final TopologyIndex index, final int node) {
+        for (int arc = index.getArcStart(node); arc < index.getArcEnd(node); arc++)
+            if (index.getArcTarget(arc) == node)
+                return true;
+        return false;
+    }
+
+    /**
+     * The working arrays of one worker thread, reused for every component it
+     * searches. Only the nodes touched by a search are reset afterwards.
+     */
+    private final class Search {
+        private final Run run;
+        private final TopologyIndex index;
+        private final int[] labels;
+        private int label;
+        private final boolean[] blocked;
+        // the nodes to unblock along with each node, as linked lists
+        private final int[] blockHeads;
+        private int[] blockNext = new int[64];
+        private int[] blockValues = new int[64];
+        private int blockSize;
+        private final int[] touched;
+        private final int[] touchStamps;
+        private int touchedCount;
+        private int stamp;
+        // the explicit stack of the depth first searches
+        private final int[] frameNodes;
+        private final int[] frameCursors;
+        private final int[] frameArcs;
+        private final boolean[] frameFound;
+        private final int[] edgeStamps;
+        private int edgeStamp;
+        private final int[] unblockStack;
+        // Tarjan's search splitting a component once its start is removed
+        private final int[] orders;
+        private final int[] lows;
+        private final int[] parts;
+        private final int[] tarjanStack;
+
+        private Search(final Run run) {
+            this.run = run;
+            this.index = run.index;
+            this.labels = run.labels;
+            final int nodeCount = this.index.getNodeCount();
+            this.blocked = new boolean[nodeCount];
+            this.blockHeads = new int[nodeCount];
+            Arrays.fill(this.blockHeads, -1);
+            this.touched = new int[nodeCount];
+            this.touchStamps = new int[nodeCount];
+            this.frameNodes = new int[nodeCount];
+            this.frameCursors = new int[nodeCount];
+            this.frameArcs = new int[nodeCount];
+            this.frameFound = new boolean[nodeCount];
+            this.edgeStamps = new int[this.index.getEdgeCount()];
+            this.unblockStack = new int[nodeCount];
+            this.orders = new int[nodeCount];
+            Arrays.fill(this.orders, -1);
+            this.lows = new int[nodeCount];
+            this.parts = new int[nodeCount];
+            this.tarjanStack = new int[nodeCount];
+        }
+
+        private boolean inScope(final int node) {
+            return this.labels[node] == this.label;
+        }
+
+        private void touch(final int node) {
+            if (this.touchStamps[node] != this.stamp) {
+                this.touchStamps[node] = this.stamp;
+                this.touched[this.touchedCount++] = node;
+            }
+        }
+
+        private void push(final int depth, final int node) {
+            this.touch(node);
+            this.blocked[node] = true;
+            this.frameNodes[depth] = node;
+            this.frameCursors[depth] = this.index.getArcStart(node);
+            this.frameFound[depth] = false;
+        }
+
+        /**
+         * Finds every cycle through the start node within its component.
+         */
+        private void circuits(final int start, final int componentLabel) {
+            this.label = componentLabel;
+            this.stamp++;
+            this.touchedCount = 0;
+            this.blockSize = 0;
+            int depth = 0;
+            this.push(0, start);
+            while ((depth >= 0) && !this.run.stopped.get()) {
+                final int node = this.frameNodes[depth];
+                if (this.frameCursors[depth] < this.index.getArcEnd(node)) {
+                    final int arc = this.frameCursors[depth]++;
+                    final int target = this.index.getArcTarget(arc);
+                    if (!this.inScope(target))
+                        continue;
+                    if (target == start) {
+                        this.frameArcs[depth] = arc;
+                        this.frameFound[depth] = true;
+                        this.closeCycle(depth + 1);
+                    } else if (!this.blocked[target]) {
+                        if (depth + 2 > this.run.maximumLength.get()) {
+                            // too deep to close a cycle; treat it as found so
+                            // the node is not left blocked by the cut off
+                            this.frameFound[depth] = true;
+                            continue;
+                        }
+                        this.frameArcs[depth] = arc;
+                        this.push(++depth, target);
+                    }
+                    continue;
+                }
+                // every arc of the node has been tried
+                if (this.frameFound[depth])
+                    this.unblock(node);
+                else
+                    for (int arc = this.index.getArcStart(node); arc < this.index
+                            .getArcEnd(node); arc++) {
+                        final int target = this.index.getArcTarget(arc);
+                        if (this.inScope(target))
+                            this.addBlock(target, node);
+                    }
+                depth--;
+                if ((depth >= 0) && this.frameFound[depth + 1])
+                    this.frameFound[depth] = true;
+            }
+            for (int position = 0; position < this.touchedCount; position++) {
+                final int node = this.touched[position];
+                this.blocked[node] = false;
+                this.blockHeads[node] = -1;
+            }
+        }
+
+        private void addBlock(final int node, final int blockedNode) {
+            if (this.blockSize == this.blockNext.length) {
+                this.blockNext = Arrays.copyOf(this.blockNext,
+                        this.blockSize * 2);
+                this.blockValues = Arrays.copyOf(this.blockValues,
+                        this.blockSize * 2);
+            }
+            this.touch(node);
+            this.blockValues[this.blockSize] = blockedNode;
+            this.blockNext[this.blockSize] = this.blockHeads[node];
+            this.blockHeads[node] = this.blockSize++;
+        }
+
+        private void unblock(final int node) {
+            int size = 0;
+            this.unblockStack[size++] = node;
+            while (size > 0) {
+                final int current = this.unblockStack[--size];
+                this.blocked[current] = false;
+                for (int entry = this.blockHeads[current]; entry >= 0; entry = this.blockNext[entry]) {
+                    final int other = this.blockValues[entry];
+                    if (this.blocked[other]) {
+                        // unblocked before it is pushed, so pushed only once
+                        this.blocked[other] = false;
+                        this.unblockStack[size++] = other;
+                    }
+                }
+                this.blockHeads[current] = -1;
+            }
+        }
+
+        /**
+         * Reports the cycle made by the arcs of the first length frames,
+         * unless it uses an edge twice, is the reverse of a cycle reported
+         * the other way round or falls outside the length bounds.
+         */
+        @SuppressWarnings("unchecked")
+        private void closeCycle(final int length) {
+            if (length < this.run.minimumLength)
+                return;
+            this.edgeStamp++;
+            boolean reversible = (length > 1);
+            for (int depth = 0; depth < length; depth++) {
+                final int edge = this.index.getArcEdge(this.frameArcs[depth]);
+                if (this.edgeStamps[edge] == this.edgeStamp)
+                    return;
+                this.edgeStamps[edge] = this.edgeStamp;
+                reversible &= this.run.symmetric[edge];
+            }
+            if (reversible
+                    && (this.index.getArcEdge(this.frameArcs[0]) > this.index
+                    .getArcEdge(this.frameArcs[length - 1])))
+                return;
+            final List<E> steps = new ArrayList<>(length);
+            final List<N> nodeSteps = new ArrayList<>(length + 1);
+            for (int depth = 0; depth < length; depth++) {
+                nodeSteps.add((N) this.index.getNode(this.frameNodes[depth]));
+                steps.add((E) this.index.getEdge(this.index
+                        .getArcEdge(this.frameArcs[depth])));
+            }
+            nodeSteps.add(nodeSteps.get(0));
+            this.run.report(steps, nodeSteps);
+        }
+
+        /**
+         * Splits what is left of a component once its start node is removed
+         * into strongly connected components, with an iterative Tarjan
+         * search over the nodes still carrying the component's label.
+         */
+        private List<int[]> split(final int[] members, final int removed) {
+            final List<int[]> components = new ArrayList<>();
+            int visited = 0;
+            int stackSize = 0;
+            for (final int root : members) {
+                if ((root == removed) || (this.orders[root] >= 0))
+                    continue;
+                int depth = 0;
+                this.frameNodes[0] = root;
+                this.frameCursors[0] = this.index.getArcStart(root);
+                this.orders[root] = this.lows[root] = visited++;
+                this.tarjanStack[stackSize++] = root;
+                while (depth >= 0) {
+                    final int node = this.frameNodes[depth];
+                    if (this.frameCursors[depth] < this.index.getArcEnd(node)) {
+                        final int target = this.index
+                                .getArcTarget(this.frameCursors[depth]++);
+                        if (!this.inScope(target))
+                            continue;
+                        if (this.orders[target] < 0) {
+                            this.orders[target] = this.lows[target] = visited++;
+                            this.tarjanStack[stackSize++] = target;
+                            depth++;
+                            this.frameNodes[depth] = target;
+                            this.frameCursors[depth] = this.index
+                                    .getArcStart(target);
+                        } else if ((this.parts[target] >= 0)
+                                && (this.orders[target] < this.lows[node]))
+                            this.lows[node] = this.orders[target];
+                        continue;
+                    }
+                    if (this.lows[node] == this.orders[node]) {
+                        int size = 0;
+                        int member;
+                        do {
+                            member = this.tarjanStack[--stackSize];
+                            // -1 marks nodes whose component is complete
+                            this.parts[member] = -1;
+                            size++;
+                        } while (member != node);
+                        components.add(Arrays.copyOfRange(this.tarjanStack,
+                                stackSize, stackSize + size));
+                    }
+                    depth--;
+                    if ((depth >= 0)
+                            && (this.lows[node] < this.lows[this.frameNodes[depth]]))
+                        this.lows[this.frameNodes[depth]] = this.lows[node];
+                }
+            }
+            for (final int member : members) {
+                this.orders[member] = -1;
+                this.parts[member] = 0;
+            }
+            return components;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph.drawing.hyperassociativemap;
+
+/**
+ * An n-dimensional Barnes-Hut tree over points packed in a double array, used
+ * to approximate the repulsion between all pairs of nodes of a
+ * {@link HyperassociativeMap}. Like the NTree of the projection package it is
+ * a binary tree splitting on one dimension at a time, so its fan out does not
+ * grow with the number of dimensions; each cell splits its widest dimension at
+ * the median and keeps the number of points, their centroid and the extent of
+ * its widest side. Everything is held in flat arrays and the tree is only
+ * read once built, so any number of threads can query it at once.
+ */
+final class BarnesHutTree {
+    private static final int LEAF_SIZE = 8;
+
+    private final int dimensions;
+    private final double repulsiveWeakness;
+    private final double[] points;
+    private final int[] order;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] lefts;
+    private final int[] rights;
+    private final double[] centroids;
+    private final double[] extents;
+    private int cellCount;
+
+    /**
+     * @param points the coordinates of every point, point i taking the
+     *            entries from i * dimensions
+     * @param pointCount the number of points
+     * @param dimensions the number of dimensions
+     * @param repulsiveWeakness the power of the distance the repulsion of a
+     *            point decreases with
+     */
+    BarnesHutTree(final double[] points, final int pointCount,
+                  final int dimensions, final double repulsiveWeakness) {
+        this.dimensions = dimensions;
+        this.repulsiveWeakness = repulsiveWeakness;
+        this.points = points;
+        this.order = new int[pointCount];
+        for (int point = 0; point < pointCount; point++)
+            this.order[point] = point;
+        final int maximumCells = Math.max(1, 2 * pointCount);
+        this.starts = new int[maximumCells];
+        this.ends = new int[maximumCells];
+        this.lefts = new int[maximumCells];
+        this.rights = new int[maximumCells];
+        this.centroids = new double[maximumCells * dimensions];
+        this.extents = new double[maximumCells];
+        this.build(0, pointCount);
+    }
+
+    /**
+     * @return the number of cells, which is also the largest stack a query
+     * can need
+     */
+    int getCellCount() {
+        return this.cellCount;
+    }
+
+    private int build(final int start, final int end) {
+        final int cell = this.cellCount++;
+        this.starts[cell] = start;
+        this.ends[cell] = end;
+        this.lefts[cell] = -1;
+        this.rights[cell] = -1;
+
+        final int centroid = cell * this.dimensions;
+        int widest = 0;
+        double widestExtent = 0.0;
+        for (int dimension = 0; dimension < this.dimensions; dimension++) {
+            double minimum = Double.POSITIVE_INFINITY;
+            double maximum = Double.NEGATIVE_INFINITY;
+            double sum = 0.0;
+            for (int index = start; index < end; index++) {
+                final double value = this.points[this.order[index]
+                        * this.dimensions + dimension];
+                sum += value;
+                if (value < minimum)
+                    minimum = value;
+                if (value > maximum)
+                    maximum = value;
+            }
+            this.centroids[centroid + dimension] = (end > start ? sum
+                    / (end - start) : 0.0);
+            if (maximum - minimum > widestExtent) {
+                widestExtent = maximum - minimum;
+                widest = dimension;
+            }
+        }
+        this.extents[cell] = widestExtent;
+
+        if ((end - start > LEAF_SIZE) && (widestExtent > 0.0)) {
+            final int middle = (start + end) >>> 1;
+            this.select(start, end, middle, widest);
+            this.lefts[cell] = this.build(start, middle);
+            this.rights[cell] = this.build(middle, end);
+        }
+        return cell;
+    }
+
+    /**
+     * Partially sorts order[start, end) so that the entry at nth is the one a
+     * full sort along the dimension would put there.
+     */
+    private void select(final int start, final int end, final int nth,
+                        final int dimension) {
+        int low = start;
+        int high = end - 1;
+        while (high > low) {
+            final double pivot = this.coordinate((low + high) >>> 1, dimension);
+            int left = low;
+            int right = high;
+            while (left <= right) {
+                while (this.coordinate(left, dimension) < pivot)
+                    left++;
+                while (this.coordinate(right, dimension) > pivot)
+                    right--;
+                if (left <= right) {
+                    final int swap = this.order[left];
+                    this.order[left] = this.order[right];
+                    this.order[right] = swap;
+                    left++;
+                    right--;
+                }
+            }
+            if (nth <= right)
+                high = right;
+            else if (nth >= left)
+                low = left;
+            else
+                return;
+        }
+    }
+
+    private double coordinate(final int index, final int dimension) {
+        return this.points[this.order[index] * this.dimensions + dimension];
+    }
+
+    /**
+     * Adds the repulsion every other point exerts on a point to a force. A
+     * point at distance d repels with strength min(1 / d^w, cap) times the
+     * learning rate, w being the repulsive weakness; a cell whose widest side is less than theta times its
+     * distance is treated as all of its points sitting at its centroid.
+     *
+     * @param point the point being repelled
+     * @param theta the accuracy, 0 for the exact sum
+     * @param cap the largest repulsion of a single point
+     * @param learningRate the scale of the repulsion
+     * @param force the force to add to, one entry per dimension
+     * @param stack scratch space of at least getCellCount() entries
+     */
+    void addRepulsion(final int point, final double theta, final double cap,
+                      final double learningRate, final double[] force, final int[] stack) {
+        if (this.cellCount == 0)
+            return;
+        final int offset = point * this.dimensions;
+        int depth = 0;
+        stack[depth++] = 0;
+        while (depth > 0) {
+            final int cell = stack[--depth];
+            if (this.lefts[cell] < 0) {
+                for (int index = this.starts[cell]; index < this.ends[cell]; index++) {
+                    final int other = this.order[index];
+                    if (other != point)
+                        this.addPointRepulsion(offset, this.points, other
+                                * this.dimensions, 1, cap, learningRate, force);
+                }
+                continue;
+            }
+            final double distance = this.distance(offset, this.centroids, cell
+                    * this.dimensions);
+            if ((distance > 0.0) && (this.extents[cell] < theta * distance))
+                this.addPointRepulsion(offset, this.centroids, cell
+                                * this.dimensions, this.ends[cell] - this.starts[cell],
+                        cap, learningRate, force);
+            else {
+                stack[depth++] = this.lefts[cell];
+                stack[depth++] = this.rights[cell];
+            }
+        }
+    }
+
+    /**
+     * Adds the exact repulsion of a single point to a force; the
+     * HyperassociativeMap uses it to take neighbours back out of the sum.
+     *
+     * @param point the point being repelled
+     * @param other the repelling point
+     * @param sign 1 to add the repulsion, -1 to remove it
+     * @param cap the largest repulsion of a single point
+     * @param learningRate the scale of the repulsion
+     * @param force the force to add to
+     */
+    void addRepulsion(final int point, final int other, final int sign,
+                      final double cap, final double learningRate, final double[] force) {
+        this.addPointRepulsion(point * this.dimensions, this.points, other
+                * this.dimensions, sign, cap, learningRate, force);
+    }
+
+    private double distance(final int offset, final double[] others,
+                            final int otherOffset) {
+        double squared = 0.0;
+        for (int dimension = 0; dimension < this.dimensions; dimension++) {
+            final double delta = others[otherOffset + dimension]
+                    - this.points[offset + dimension];
+            squared += delta * delta;
+        }
+        return Math.sqrt(squared);
+    }
+
+    private void addPointRepulsion(final int offset, final double[] others,
+                                   final int otherOffset, final double weight, final double cap,
+                                   final double learningRate, final double[] force) {
+        final double distance = this.distance(offset, others, otherOffset);
+        if (distance == 0.0)
+            return;
+        final double repulsion = (this.repulsiveWeakness == 2.0 ? 1.0
+                / (distance * distance) : 1.0 / Math.pow(distance,
+                this.repulsiveWeakness));
+        final double strength = -Math.min(repulsion, cap) * learningRate
+                * weight / distance;
+        for (int dimension = 0; dimension < this.dimensions; dimension++)
+            force[dimension] += strength
+                    * (others[otherOffset + dimension] - this.points[offset
+                    + dimension]);
+    }
+}
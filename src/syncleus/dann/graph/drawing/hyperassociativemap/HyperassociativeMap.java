@@ -18,21 +18,29 @@
  ******************************************************************************/
 package syncleus.dann.graph.drawing.hyperassociativemap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
-import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import syncleus.dann.graph.Graph;
 import syncleus.dann.graph.Weighted;
 import syncleus.dann.graph.drawing.GraphDrawer;
-import syncleus.dann.graph.topological.Topography;
 import syncleus.dann.math.MutableVector;
 import syncleus.dann.data.vector.Vector;
+import syncleus.dann.util.UnexpectedDannError;
+import syncleus.dann.util.UnexpectedInterruptedException;
 
 /**
  * A Hyperassociative Map is a new type of algorithm that organizes an arbitrary
@@ -42,6 +50,14 @@ import syncleus.dann.data.vector.Vector;
  * please see the <a href
  * ="http://wiki.syncleus.com/index.php/dANN:Hyperassociative_Map">
  * Hyperassociative-Map dANN Wiki page</a>.
+ * <p>
+ * Coordinates are packed into a single array, node i owning the entries from
+ * i * dimensions. Every node of an alignment moves from the coordinates of
+ * the previous alignment, so nodes can be aligned in parallel: on the given
+ * ExecutorService when there is one, otherwise on the common fork join pool.
+ * The repulsion between unassociated nodes is approximated with a Barnes-Hut
+ * tree, which brings an alignment down from O(n^2) to O(n log n); setting
+ * theta to 0 computes it exactly.
  *
  * @param <G> The graph type
  * @param <N> The node type
@@ -59,14 +75,18 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
     private static final double EQUILIBRIUM_ALIGNMENT_FACTOR = 0.005;
     private static final double LEARNING_RATE_INCREASE_FACTOR = 0.9;
     private static final double LEARNING_RATE_PROCESSING_ADJUSTMENT = 1.01;
+    private static final double DEFAULT_THETA = 0.5;
+    private static final int NODES_PER_TASK = 256;
 
     private final G graph;
     private final int dimensions;
     private final ExecutorService threadExecutor;
     private static final Logger LOGGER = LogManager
             .getLogger(HyperassociativeMap.class);
-    private Map<N, MutableVector> coordinates = Collections
-            .synchronizedMap(new HashMap<>());
+    private List<N> nodes = new ArrayList<>();
+    private Map<N, Integer> nodeIndexes = new HashMap<>();
+    private double[] coordinates = new double[0];
+    private volatile Map<N, Vector> coordinateMap;
     private static final Random RANDOM = new Random();
     private final boolean useWeights;
     private double equilibriumDistance;
@@ -74,6 +94,7 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
     private double maxMovement = DEFAULT_MAX_MOVEMENT;
     private double totalMovement = DEFAULT_TOTAL_MOVEMENT;
     private double acceptableDistanceFactor = DEFAULT_ACCEPTABLE_DISTANCE_FACTOR;
+    private double theta = DEFAULT_THETA;
 
     public void setMaxSpeed(double d) {
         if (learningRate > d)
@@ -83,18 +104,47 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
     public void setLearningRate(double learningRate) {
         this.learningRate = learningRate;
     }
-    
 
-    private class Align implements Callable<Vector> {
-        private final N node;
+    /**
+     * The associations of every node for one alignment, as lists of node
+     * indexes and equilibrium distances.
+     */
+    private static final class Associations {
+        private final int[] offsets;
+        private int[] neighbors;
+        private double[] distances;
+
+        private Associations(final int nodeCount) {
+            this.offsets = new int[nodeCount + 1];
+            this.neighbors = new int[nodeCount];
+            this.distances = new double[nodeCount];
+        }
 
-        public Align(final N node) {
-            this.node = node;
+        private void add(final int neighbor, final double distance,
+                         final int size) {
+            if (size == this.neighbors.length) {
+                final int capacity = Math.max(4, size * 2);
+                this.neighbors = Arrays.copyOf(this.neighbors, capacity);
+                this.distances = Arrays.copyOf(this.distances, capacity);
+            }
+            this.neighbors[size] = neighbor;
+            this.distances[size] = distance;
         }
+    }
 
-        @Override
-        public Vector call() {
-            return align(node);
+    /**
+     * What one alignment step computed: new coordinates, how far each node
+     * moved, and the learning rate each rejected move asked for.
+     */
+    private static final class Step {
+        private final double[] newCoordinates;
+        private final double[] movements;
+        private final double[] rejections;
+
+        private Step(final int nodeCount, final int dimensions) {
+            this.newCoordinates = new double[nodeCount * dimensions];
+            this.movements = new double[nodeCount];
+            this.rejections = new double[nodeCount];
         }
     }
 
@@ -113,7 +163,7 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
         this.useWeights = useWeights;
 
         // refresh all nodes
-        graph.streamNodes().forEach(node -> this.coordinates.put(node, randomCoordinates(this.dimensions)));
+        this.refreshNodes();
     }
 
     public HyperassociativeMap(final G graph, final int dimensions,
@@ -143,6 +193,26 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
         this.equilibriumDistance = equilibriumDistance;
     }
 
+    /**
+     * @return the Barnes-Hut accuracy parameter
+     */
+    public double getTheta() {
+        return theta;
+    }
+
+    /**
+     * Sets how coarsely repulsion is approximated. A group of nodes is
+     * treated as a single node at its centroid when its extent is less than
+     * theta times its distance; 0 computes the repulsion exactly.
+     *
+     * @param theta the Barnes-Hut accuracy parameter, 0 or more
+     */
+    public void setTheta(final double theta) {
+        if (theta < 0.0)
+            throw new IllegalArgumentException("theta can not be negative");
+        this.theta = theta;
+    }
+
     public void resetLearning() {
         learningRate = DEFAULT_LEARNING_RATE;
         maxMovement = DEFAULT_TOTAL_MOVEMENT;
@@ -153,7 +223,10 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
     @Override
     public void reset() {
         resetLearning();
-        coordinates.keySet().stream().forEach((node) -> coordinates.put(node, randomCoordinates(dimensions)));
+        for (int index = 0; index < nodes.size(); index++)
+            System.arraycopy(randomCoordinates(dimensions).getData(), 0,
+                    coordinates, index * dimensions, dimensions);
+        coordinateMap = null;
     }
 
     @Override
@@ -169,48 +242,64 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
     }
 
     private double getAverageMovement() {
-        return totalMovement / Topography.getOrder((Graph<N, ?>) graph);
+        return totalMovement / nodes.size();
+    }
+
+    /**
+     * Brings the node list in line with the graph, keeping the coordinates
+     * of nodes already placed and placing new ones at random.
+     */
+    private void refreshNodes() {
+        if (nodeIndexes.keySet().equals(graph.getNodes()))
+            return;
+        final List<N> newNodes = new ArrayList<>(graph.getNodes());
+        final Map<N, Integer> newIndexes = new HashMap<>(newNodes.size() * 2);
+        final double[] newCoordinates = new double[newNodes.size()
+                * dimensions];
+        for (int index = 0; index < newNodes.size(); index++) {
+            final N node = newNodes.get(index);
+            newIndexes.put(node, index);
+            final Integer oldIndex = nodeIndexes.get(node);
+            if (oldIndex == null)
+                System.arraycopy(randomCoordinates(dimensions).getData(), 0,
+                        newCoordinates, index * dimensions, dimensions);
+            else
+                System.arraycopy(coordinates, oldIndex * dimensions,
+                        newCoordinates, index * dimensions, dimensions);
+        }
+        nodes = newNodes;
+        nodeIndexes = newIndexes;
+        coordinates = newCoordinates;
+        coordinateMap = null;
     }
 
     @Override
     public void align() {
         // refresh all nodes
-        if (!coordinates.keySet().equals(graph.getNodes())) {
-            final Map<N, MutableVector> newCoordinates = new HashMap<>(
-                    coordinates.size() /* ESTIMATE */);
-            graph.streamNodes().forEach(node -> {
-                if (coordinates.containsKey(node)) {
-                    newCoordinates.put(node, coordinates.get(node));
-                } else {
-                    newCoordinates.put(node, randomCoordinates(dimensions));
-                }
-            });
-            coordinates = Collections.synchronizedMap(newCoordinates);
-        }
+        refreshNodes();
+        final int nodeCount = nodes.size();
+        if (nodeCount == 0)
+            return;
 
         totalMovement = DEFAULT_TOTAL_MOVEMENT;
         maxMovement = DEFAULT_MAX_MOVEMENT;
-        MutableVector center;
-        //if (threadExecutor == null) {
-        center = processLocally();
-        //} /*else {
-                        /*
-            // align all nodes in parallel
-			final List<Future<Vector>> futures = submitFutureAligns();
-
-			// wait for all nodes to finish aligning and calculate new sum of
-			// all the points
-			try {
-				center = waitAndProcessFutures(futures);
-			} catch (final InterruptedException caught) {
-				LOGGER.warn(
-						"waitAndProcessFutures was unexpectedly interrupted",
-						caught);
-				throw new UnexpectedInterruptedException(
-						"Unexpected interruption. Get should block indefinitely",
-						caught);
-			}*/
-        //}
+
+        // getNeighbors may be overridden by something that is not thread
+        // safe, so associations are gathered before going parallel
+        final Associations associations = gatherAssociations();
+        final BarnesHutTree tree = new BarnesHutTree(coordinates, nodeCount,
+                dimensions, REPULSIVE_WEAKNESS);
+        final Step step = new Step(nodeCount, dimensions);
+        final double stepLearningRate = learningRate;
+        final int tasks = (nodeCount + NODES_PER_TASK - 1) / NODES_PER_TASK;
+        if (threadExecutor == null)
+            IntStream.range(0, tasks).parallel().forEach(task -> alignNodes(
+                    task, associations, tree, stepLearningRate, step));
+        else
+            waitForFutures(submitFutureAligns(tasks, associations, tree,
+                    stepLearningRate, step));
+
+        final double[] center = processStep(step);
 
         if (LOGGER.isDebugEnabled())
             LOGGER.debug("maxMove: " + maxMovement + ", Average Move: "
@@ -218,13 +307,13 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
 
         // divide each coordinate of the sum of all the points by the number of
         // nodes in order to calculate the average point, or center of all the
-        // points
-        for (int dimensionIndex = 1; dimensionIndex <= dimensions; dimensionIndex++) {
-            center.set(center.get(dimensionIndex) / graph.getNodes().size(),
-                    dimensionIndex);
-        }
-
-        recenterNodes(center);
+        // points, and move every node relative to it
+        for (int dimension = 0; dimension < dimensions; dimension++)
+            center[dimension] /= nodeCount;
+        for (int index = 0; index < step.newCoordinates.length; index++)
+            step.newCoordinates[index] -= center[index % dimensions];
+        coordinates = step.newCoordinates;
+        coordinateMap = null;
     }
 
     @Override
@@ -232,13 +321,47 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
         return dimensions;
     }
 
+    /**
+     * @return a snapshot of the coordinates of every node, taken after the
+     * last alignment
+     */
     @Override
     public Map<N, Vector> getCoordinates() {
-        return Collections.unmodifiableMap(coordinates);
+        Map<N, Vector> snapshot = coordinateMap;
+        if (snapshot == null) {
+            final double[] packed = coordinates;
+            final Map<N, Vector> map = new HashMap<>(nodes.size() * 2);
+            for (int index = 0; index < nodes.size(); index++) {
+                final double[] point = new double[dimensions];
+                System.arraycopy(packed, index * dimensions, point, 0,
+                        dimensions);
+                map.put(nodes.get(index), new Vector(point));
+            }
+            snapshot = Collections.unmodifiableMap(map);
+            coordinateMap = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * The packed coordinates, node i owning the entries from i *
+     * getDimensions(). Each alignment replaces the array rather than
+     * changing it, so a renderer may keep reading the one it got.
+     *
+     * @return the packed coordinates; they must not be modified
+     */
+    public double[] getPackedCoordinates() {
+        return coordinates;
     }
 
-    private void recenterNodes(final Vector center) {
-        graph.streamNodes().forEach(node -> coordinates.get(node).moveRelativeTo(center));
+    /**
+     * @param node a node of the graph
+     * @return the index of the node in the packed coordinates, or -1 if it
+     * has not been placed yet
+     */
+    public int getNodeIndex(final N node) {
+        final Integer index = nodeIndexes.get(node);
+        return (index == null ? -1 : index);
     }
 
     public boolean isUsingWeights() {
@@ -274,105 +397,198 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
         return neighbors;
     }
 
-    private Vector align(final N nodeToAlign) {
-        return align(nodeToAlign, null);
+    private Associations gatherAssociations() {
+        // the nodes having each node among their adjacent nodes: on a
+        // directed graph these are the sources of its incoming edges
+        final List<List<Integer>> adjacentTo = new ArrayList<>(nodes.size());
+        for (int index = 0; index < nodes.size(); index++)
+            adjacentTo.add(new ArrayList<>());
+        for (int index = 0; index < nodes.size(); index++) {
+            for (final N adjacentNode : graph.getAdjacentNodes(nodes.get(index))) {
+                final Integer adjacent = nodeIndexes.get(adjacentNode);
+                if (adjacent != null)
+                    adjacentTo.get(adjacent).add(index);
+            }
+        }
+
+        final Associations associations = new Associations(nodes.size());
+        int size = 0;
+        for (int index = 0; index < nodes.size(); index++) {
+            final N node = nodes.get(index);
+            final Map<N, Double> neighbors = getNeighbors(node);
+            final Set<Integer> seen = new HashSet<>();
+            for (final Entry<N, Double> neighborEntry : neighbors.entrySet()) {
+                final Integer neighbor = nodeIndexes.get(neighborEntry.getKey());
+                if ((neighbor != null) && (neighbor != index) && seen.add(neighbor))
+                    associations.add(neighbor, neighborEntry.getValue(), size++);
+            }
+            // nodes associating with this one do not repel it either
+            for (final Integer neighbor : adjacentTo.get(index)) {
+                if ((neighbor != index) && seen.add(neighbor))
+                    associations.add(~neighbor, 0.0, size++);
+            }
+            associations.offsets[index + 1] = size;
+        }
+        return associations;
+    }
+
+    private List<Future<?>> submitFutureAligns(final int tasks,
+                                               final Associations associations, final BarnesHutTree tree,
+                                               final double stepLearningRate, final Step step) {
+        final List<Future<?>> futures = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            final int alignTask = task;
+            futures.add(threadExecutor.submit(() -> alignNodes(alignTask,
+                    associations, tree, stepLearningRate, step)));
+        }
+        return futures;
+    }
+
+    private static void waitForFutures(final List<Future<?>> futures) {
+        try {
+            for (final Future<?> future : futures)
+                future.get();
+        } catch (final InterruptedException caught) {
+            LOGGER.warn("waitForFutures was unexpectedly interrupted", caught);
+            throw new UnexpectedInterruptedException(
+                    "Unexpected interruption. Get should block indefinitely",
+                    caught);
+        } catch (final ExecutionException caught) {
+            LOGGER.error("Align had an unexpected problem executing.", caught);
+            throw new UnexpectedDannError(
+                    "Unexpected execution exception. Get should block indefinitely",
+                    caught);
+        }
     }
 
     /**
-     * optimized version that re-uses the neighbors Map structure (but clears it
-     * each iteration)
+     * Moves one block of nodes, reading only the coordinates of the previous
+     * alignment and writing only the block's own entries of the step.
      */
-    private Vector align(final N nodeToAlign, final Map<N, Double> neighborStore) {
-        // calculate equilibrium with neighbors
-        final Vector location = coordinates.get(nodeToAlign);
-        final Map<N, Double> neighbors = getNeighbors(nodeToAlign, neighborStore);
-
-        final MutableVector compositeVector = new MutableVector(location.getDimension());
-        // align with neighbours
-        for (final Entry<N, Double> neighborEntry : neighbors.entrySet()) {
-            final N neighbor = neighborEntry.getKey();
-            final double associationEquilibriumDistance = neighborEntry
-                    .getValue();
-
-            final Vector _neighborVector = coordinates.get(neighbor)
-                    .calculateRelativeTo(location);
-            final MutableVector neighborVector = new MutableVector(_neighborVector);
-
-            if (Math.abs(neighborVector.getDistance()) > associationEquilibriumDistance) {
-                double newDistance = Math.pow(
-                        Math.abs(neighborVector.getDistance())
-                                - associationEquilibriumDistance,
-                        ATTRACTION_STRENGTH);
-                if (Math.abs(newDistance) > Math.abs(Math.abs(neighborVector
-                        .getDistance()) - associationEquilibriumDistance)) {
-                    newDistance = Math.copySign(
-                            Math.abs(Math.abs(neighborVector.getDistance())
-                                    - associationEquilibriumDistance),
-                            newDistance);
-                }
-                newDistance *= learningRate;
-                neighborVector.modifyDistance(Math.signum(neighborVector
-                        .getDistance()) * newDistance);
+    private void alignNodes(final int task, final Associations associations,
+                            final BarnesHutTree tree, final double stepLearningRate,
+                            final Step step) {
+        final double[] force = new double[dimensions];
+        final int[] stack = new int[tree.getCellCount()];
+        final double cap = Math.abs(equilibriumDistance);
+        final double acceptableDistance = equilibriumDistance
+                * acceptableDistanceFactor;
+        final int end = Math.min(nodes.size(), (task + 1) * NODES_PER_TASK);
+        for (int node = task * NODES_PER_TASK; node < end; node++) {
+            Arrays.fill(force, 0.0);
+            for (int association = associations.offsets[node]; association < associations.offsets[node + 1]; association++) {
+                final int neighbor = associations.neighbors[association];
+                if (neighbor >= 0)
+                    addAttraction(node, neighbor,
+                            associations.distances[association],
+                            stepLearningRate, force);
+                // calculate repulsion with all non-neighbors
+                tree.addRepulsion(node, neighbor >= 0 ? neighbor : ~neighbor,
+                        -1, cap, stepLearningRate, force);
+            }
+            tree.addRepulsion(node, theta, cap, stepLearningRate, force, stack);
+
+            final int offset = node * dimensions;
+            double squaredMove = 0.0;
+            for (int dimension = 0; dimension < dimensions; dimension++)
+                squaredMove += force[dimension] * force[dimension];
+            final double moveDistance = Math.sqrt(squaredMove);
+            if (moveDistance > acceptableDistance) {
+                step.rejections[node] = acceptableDistance / moveDistance;
+                step.movements[node] = DEFAULT_TOTAL_MOVEMENT;
+                System.arraycopy(coordinates, offset, step.newCoordinates,
+                        offset, dimensions);
             } else {
-                double newDistance = -EQUILIBRIUM_DISTANCE
-                        * atanh((associationEquilibriumDistance - Math
-                        .abs(neighborVector.getDistance()))
-                        / associationEquilibriumDistance);
-                if (Math.abs(newDistance) > (Math
-                        .abs(associationEquilibriumDistance
-                                - Math.abs(neighborVector.getDistance())))) {
-                    newDistance = -EQUILIBRIUM_DISTANCE
-                            * (associationEquilibriumDistance - Math
-                            .abs(neighborVector.getDistance()));
-                }
-                newDistance *= learningRate;
-                neighborVector.modifyDistance(Math.signum(neighborVector
-                        .getDistance()) * newDistance);
+                step.rejections[node] = Double.NaN;
+                step.movements[node] = moveDistance;
+                for (int dimension = 0; dimension < dimensions; dimension++)
+                    step.newCoordinates[offset + dimension] = coordinates[offset
+                            + dimension] + force[dimension];
             }
-            compositeVector.plus(neighborVector);
         }
-        // calculate repulsion with all non-neighbors
-        for (final N node : graph.getNodes()) {
-            if ((!neighbors.containsKey(node)) && (node != nodeToAlign)
-                    && (!graph.getAdjacentNodes(node).contains(nodeToAlign))) {
-                Vector nodeVector = coordinates.get(node).calculateRelativeTo(
-                        location);
-                double newDistance = -EQUILIBRIUM_DISTANCE
-                        / Math.pow(nodeVector.getDistance(), REPULSIVE_WEAKNESS);
-                if (Math.abs(newDistance) > Math.abs(equilibriumDistance)) {
-                    newDistance = Math.copySign(equilibriumDistance,
-                            newDistance);
-                }
-                newDistance *= learningRate;
-                nodeVector = nodeVector.setDistance(newDistance);
-                compositeVector.plus(nodeVector);
+    }
+
+    /**
+     * Adds the pull, or push, that brings a node towards its equilibrium
+     * distance from a neighbor.
+     */
+    private void addAttraction(final int node, final int neighbor,
+                               final double associationEquilibriumDistance,
+                               final double stepLearningRate, final double[] force) {
+        final int offset = node * dimensions;
+        final int neighborOffset = neighbor * dimensions;
+        double squared = 0.0;
+        for (int dimension = 0; dimension < dimensions; dimension++) {
+            final double delta = coordinates[neighborOffset + dimension]
+                    - coordinates[offset + dimension];
+            squared += delta * delta;
+        }
+        final double distance = Math.sqrt(squared);
+        if (distance == 0.0)
+            return;
+
+        double newDistance;
+        if (distance > associationEquilibriumDistance) {
+            newDistance = Math.pow(distance - associationEquilibriumDistance,
+                    ATTRACTION_STRENGTH);
+            if (Math.abs(newDistance) > Math.abs(distance
+                    - associationEquilibriumDistance)) {
+                newDistance = Math.copySign(Math.abs(distance
+                        - associationEquilibriumDistance), newDistance);
+            }
+        } else {
+            newDistance = -EQUILIBRIUM_DISTANCE
+                    * atanh((associationEquilibriumDistance - distance)
+                    / associationEquilibriumDistance);
+            if (Math.abs(newDistance) > Math
+                    .abs(associationEquilibriumDistance - distance)) {
+                newDistance = -EQUILIBRIUM_DISTANCE
+                        * (associationEquilibriumDistance - distance);
             }
         }
-        Vector newLocation = location.add(compositeVector);
-        final Vector oldLocation = coordinates.get(nodeToAlign);
-        double moveDistance = Math.abs(newLocation.calculateRelativeTo(
-                oldLocation).getDistance());
-        if (moveDistance > equilibriumDistance * acceptableDistanceFactor) {
-            final double newLearningRate = ((equilibriumDistance * acceptableDistanceFactor) / moveDistance);
-            if (newLearningRate < learningRate) {
-                learningRate = newLearningRate;
-                LOGGER.debug("learning rate: " + learningRate);
-            } else {
-                learningRate *= LEARNING_RATE_INCREASE_FACTOR;
+        final double scale = newDistance * stepLearningRate / distance;
+        for (int dimension = 0; dimension < dimensions; dimension++)
+            force[dimension] += scale
+                    * (coordinates[neighborOffset + dimension] - coordinates[offset
+                    + dimension]);
+    }
+
+    /**
+     * Folds the per node results of a step into the movement statistics and
+     * learning rate, in node order so the outcome does not depend on how the
+     * nodes were scheduled.
+     *
+     * @return the sum of the new coordinates
+     */
+    private double[] processStep(final Step step) {
+        final double[] pointSum = new double[dimensions];
+        for (int node = 0; node < nodes.size(); node++) {
+            final double rejection = step.rejections[node];
+            if (!Double.isNaN(rejection)) {
+                if (rejection < learningRate)
+                    learningRate = rejection;
+                else
+                    learningRate *= LEARNING_RATE_INCREASE_FACTOR;
                 LOGGER.debug("learning rate: " + learningRate);
             }
-
-            newLocation = oldLocation;
-            moveDistance = DEFAULT_TOTAL_MOVEMENT;
+            final double moveDistance = step.movements[node];
+            if (moveDistance > maxMovement)
+                maxMovement = moveDistance;
+            totalMovement += moveDistance;
+            for (int dimension = 0; dimension < dimensions; dimension++)
+                pointSum[dimension] += step.newCoordinates[node * dimensions
+                        + dimension];
         }
 
-        if (moveDistance > maxMovement) {
-            maxMovement = moveDistance;
+        if ((learningRate * LEARNING_RATE_PROCESSING_ADJUSTMENT) < DEFAULT_LEARNING_RATE) {
+            final double acceptableDistanceAdjustment = 0.1;
+            if (getAverageMovement() < (equilibriumDistance
+                    * acceptableDistanceFactor * acceptableDistanceAdjustment)) {
+                acceptableDistanceFactor *= LEARNING_RATE_INCREASE_FACTOR;
+            }
+            learningRate *= LEARNING_RATE_PROCESSING_ADJUSTMENT;
         }
-        totalMovement += moveDistance;
-
-        coordinates.put(nodeToAlign, new MutableVector(newLocation));
-        return newLocation;
+        return pointSum;
     }
 
     /**
@@ -403,69 +619,4 @@ public class HyperassociativeMap<G extends Graph<N, ?>, N> implements
     private static double atanh(final double value) {
         return Math.log(Math.abs((value + 1.0) / (1.0 - value))) / 2;
     }
-
-
-    private MutableVector processLocally() {
-        final MutableVector pointSum = new MutableVector(dimensions);
-        graph.streamNodes().parallel().forEach(node -> {
-            align(node);
-            pointSum.plus(align(node));
-        });
-
-        if ((learningRate * LEARNING_RATE_PROCESSING_ADJUSTMENT) < DEFAULT_LEARNING_RATE) {
-            final double acceptableDistanceAdjustment = 0.1;
-            if (getAverageMovement() < (equilibriumDistance
-                    * acceptableDistanceFactor * acceptableDistanceAdjustment)) {
-                acceptableDistanceFactor *= LEARNING_RATE_INCREASE_FACTOR;
-            }
-            learningRate *= LEARNING_RATE_PROCESSING_ADJUSTMENT;
-            /*LOGGER.debug("learning rate: " + learningRate
-                    + ", acceptableDistanceFactor: " + acceptableDistanceFactor);*/
-        }
-        return pointSum;
-    }
-
-
-//	@Deprecated
-//	private List<Future<Vector>> submitFutureAligns() {
-//		final ArrayList<Future<Vector>> futures = new ArrayList<Future<Vector>>();
-//                graph.getNodes().stream().forEach((node) -> {
-//                futures.add(threadExecutor.submit(new Align(node)));
-//            });
-//		return futures;
-//	}
-
-//	private MutableVector waitAndProcessFutures(final List<Future<Vector>> futures)
-//			throws InterruptedException {
-//		// wait for all nodes to finish aligning and calculate the new center
-//		// point
-//		MutableVector pointSum = new MutableVector(dimensions);
-//		try {
-//			for (final Future<Vector> future : futures) {
-//				final Vector newPoint = future.get();
-//				for (int dimensionIndex = 1; dimensionIndex <= dimensions; dimensionIndex++) {
-//					pointSum = pointSum.clone(pointSum.get(dimensionIndex)
-//							+ newPoint.get(dimensionIndex), dimensionIndex);
-//				}
-//			}
-//		} catch (final ExecutionException caught) {
-//			LOGGER.error("Align had an unexpected problem executing.", caught);
-//			throw new UnexpectedDannError(
-//					"Unexpected execution exception. Get should block indefinitely",
-//					caught);
-//		}
-//		if (learningRate * LEARNING_RATE_PROCESSING_ADJUSTMENT < DEFAULT_LEARNING_RATE) {
-//			final double acceptableDistanceAdjustment = 0.1;
-//			if (getAverageMovement() < (equilibriumDistance
-//					* acceptableDistanceFactor * acceptableDistanceAdjustment)) {
-//				acceptableDistanceFactor = maxMovement * 2.0;
-//			}
-//			learningRate *= LEARNING_RATE_PROCESSING_ADJUSTMENT;
-//			LOGGER.debug("learning rate: " + learningRate
-//					+ ", acceptableDistanceFactor: " + acceptableDistanceFactor);
-//		}
-//		return pointSum;
-//	}
-
-
 }
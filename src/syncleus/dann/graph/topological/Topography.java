@@ -18,16 +18,11 @@
  ******************************************************************************/
 package syncleus.dann.graph.topological;
 
-import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import syncleus.dann.graph.BidirectedEdge;
 import syncleus.dann.graph.BidirectedGraph;
 import syncleus.dann.graph.Edge;
@@ -35,8 +30,6 @@ import syncleus.dann.graph.Graph;
 import syncleus.dann.graph.HyperEdge;
 import syncleus.dann.graph.HyperGraph;
 import syncleus.dann.graph.ImmutableAdjacencyGraph;
-import syncleus.dann.graph.ImmutableHyperEdge;
-import syncleus.dann.math.counting.Counters;
 
 public final class Topography {
     // this is an utility class so we cant instantiate it, make default
@@ -110,14 +103,7 @@ public final class Topography {
             }
         }
 
-        final Set<N> nodes = graph.getNodes();
-        for (final N fromNode : nodes)
-            for (final N toNode : nodes)
-                if ((toNode != fromNode)
-                        && (!Topography.isStronglyConnected(graph, toNode,
-                        fromNode)))
-                    return false;
-        return true;
+        return TopologyIndex.of(graph).getStrongComponentCount() <= 1;
     }
 
     /**
@@ -140,17 +126,7 @@ public final class Topography {
             }
         }
 
-        final List<N> remainingNodes = new ArrayList<>(graph.getNodes());
-        while (remainingNodes.size() >= 2) {
-            final N fromNode = remainingNodes.get(0);
-            remainingNodes.remove(0);
-            for (final N toNode : remainingNodes)
-                if ((toNode != fromNode)
-                        && (!Topography.isWeaklyConnected(graph, toNode,
-                        fromNode)))
-                    return false;
-        }
-        return true;
+        return TopologyIndex.of(graph).getWeakComponentCount() <= 1;
     }
 
     /**
@@ -184,25 +160,10 @@ public final class Topography {
             }
         }
 
-        final Set<N> visited = new HashSet<>();
-        visited.add(leftNode);
-
-        final Set<N> toVisit = new HashSet<>();
-        toVisit.addAll(graph.getAdjacentNodes(leftNode));
-
-        while (!toVisit.isEmpty()) {
-            final N node = toVisit.iterator().next();
-            if (node.equals(rightNode))
-                return true;
-
-            visited.add(node);
-            toVisit.remove(node);
-
-            toVisit.addAll(graph.getAdjacentNodes(node));
-            toVisit.removeAll(visited);
-        }
-
-        return false;
+        final TopologyIndex index = TopologyIndex.of(graph);
+        final int left = Topography.requireNode(index, leftNode);
+        final int right = Topography.requireNode(index, rightNode);
+        return index.getWeakComponent(left) == index.getWeakComponent(right);
     }
 
     /**
@@ -231,28 +192,17 @@ public final class Topography {
             }
         }
 
-        final Set<N> visited = new HashSet<>();
-        visited.add(leftNode);
-        final Set<N> toVisit = new HashSet<>();
-        toVisit.addAll(graph.getTraversableNodes(leftNode));
-        while (!toVisit.isEmpty()) {
-            final N node = toVisit.iterator().next();
-            if (node.equals(rightNode))
-                return true;
-            visited.add(node);
-            toVisit.remove(node);
-            toVisit.addAll(graph.getTraversableNodes(node));
-            toVisit.removeAll(visited);
-        }
-        return false;
+        final TopologyIndex index = TopologyIndex.of(graph);
+        return index.isReachable(Topography.requireNode(index, leftNode),
+                Topography.requireNode(index, rightNode));
     }
 
     /**
-     * Gets the set of maximally-connected components from a graph. The
-     * maximally-connected components are those with the most connections to
-     * other nodes. NOTE: This method currently returns null.
+     * Gets the set of maximally-connected components from a graph. Each
+     * component is a weakly connected subgraph that is maximal, no edge
+     * outside of it touches any of its nodes.
      *
-     * @return <code>null</code>
+     * @return the weakly connected components of the graph
      * @see com.syncleus.dann.graph.topological.Topography#getMaximallyConnectedComponents(Graph)
      */
     public static <N, E extends Edge<N>> Set<Graph<N, E>> getMaximallyConnectedComponents(
@@ -267,8 +217,103 @@ public final class Topography {
             }
         }
 
-        // TODO implement this
-        throw new UnsupportedOperationException();
+        final TopologyIndex index = TopologyIndex.of(graph);
+        final int componentCount = index.getWeakComponentCount();
+        final List<Set<N>> componentNodes = new ArrayList<>(componentCount);
+        final List<Set<E>> componentEdges = new ArrayList<>(componentCount);
+        for (int component = 0; component < componentCount; component++) {
+            componentNodes.add(new HashSet<>());
+            componentEdges.add(new HashSet<>());
+        }
+        for (final N node : graph.getNodes())
+            componentNodes.get(
+                    index.getWeakComponent(index.getNodeId(node))).add(node);
+        for (final E edge : graph.getEdges())
+            if (!edge.getNodes().isEmpty())
+                componentEdges.get(
+                        index.getWeakComponent(index.getNodeId(edge
+                                .getNodes().get(0)))).add(edge);
+        final Set<Graph<N, E>> components = new HashSet<>(componentCount * 2);
+        for (int component = 0; component < componentCount; component++)
+            components.add(new ImmutableAdjacencyGraph<>(componentNodes
+                    .get(component), componentEdges.get(component)));
+        return components;
+    }
+
+    /**
+     * Gets the strongly connected components of a graph, the maximal sets of
+     * nodes that can all be reached from one another along traversable
+     * edges. Components are listed so that no edge can be traversed from a
+     * component to one listed after it.
+     *
+     * @return the node sets of the strongly connected components
+     */
+    public static <N, E extends Edge<N>> List<Set<N>> getStronglyConnectedComponents(
+            final Graph<N, E> graph) {
+        final TopologyIndex index = TopologyIndex.of(graph);
+        final int componentCount = index.getStrongComponentCount();
+        final List<Set<N>> components = new ArrayList<>(componentCount);
+        for (int component = 0; component < componentCount; component++)
+            components.add(new HashSet<>());
+        for (final N node : graph.getNodes())
+            components.get(index.getStrongComponent(index.getNodeId(node)))
+                    .add(node);
+        Collections.reverse(components);
+        return components;
+    }
+
+    /**
+     * Gets the articulation points of a graph, the nodes whose removal
+     * increases the number of weakly connected components.
+     *
+     * @return the articulation points
+     */
+    public static <N, E extends Edge<N>> Set<N> getArticulationPoints(
+            final Graph<N, E> graph) {
+        final TopologyIndex index = TopologyIndex.of(graph);
+        final Set<N> points = new HashSet<>();
+        for (final N node : graph.getNodes())
+            if (index.isArticulationPoint(index.getNodeId(node)))
+                points.add(node);
+        return points;
+    }
+
+    /**
+     * Gets the bridges of a graph, the edges whose removal increases the
+     * number of weakly connected components.
+     *
+     * @return the bridges
+     */
+    public static <N, E extends Edge<N>> Set<E> getBridges(
+            final Graph<N, E> graph) {
+        final TopologyIndex index = TopologyIndex.of(graph);
+        final Set<E> bridges = new HashSet<>();
+        for (final E edge : graph.getEdges())
+            if (index.isCutEdge(index.getEdgeId(edge)))
+                bridges.add(edge);
+        return bridges;
+    }
+
+    /**
+     * Gets the biconnected components of a graph as sets of edges. Two edges
+     * share a component when they lie on a common cycle; a bridge forms a
+     * component of its own. Hyperedges may belong to more than one component,
+     * and edges with a single distinct node belong to none.
+     *
+     * @return the edge sets of the biconnected components
+     */
+    @SuppressWarnings("unchecked")
+    public static <N, E extends Edge<N>> List<Set<E>> getBiconnectedComponents(
+            final Graph<N, E> graph) {
+        final TopologyIndex index = TopologyIndex.of(graph);
+        final List<Set<E>> components = new ArrayList<>();
+        for (final int[] edgeIds : index.getBiconnectedComponents()) {
+            final Set<E> component = new HashSet<>(edgeIds.length * 2);
+            for (final int edgeId : edgeIds)
+                component.add((E) index.getEdge(edgeId));
+            components.add(component);
+        }
+        return components;
     }
 
     /**
@@ -322,8 +367,9 @@ public final class Topography {
             }
         }
 
-        return Topography.isStronglyConnected(Topography.deleteFromGraph(graph,
-                cutNodes, cutEdges));
+        final TopologyIndex index = TopologyIndex.of(graph);
+        return index.isCut(Topography.nodeMask(index, cutNodes),
+                Topography.edgeMask(index, cutEdges));
     }
 
     public static <N, E extends Edge<N>> boolean isCut(final Graph<N, E> graph,
@@ -339,9 +385,11 @@ public final class Topography {
             }
         }
 
-        return Topography.isStronglyConnected(
-                Topography.deleteFromGraph(graph, cutNodes, cutEdges), begin,
-                end);
+        final TopologyIndex index = TopologyIndex.of(graph);
+        return index.isCut(Topography.nodeMask(index, cutNodes),
+                Topography.edgeMask(index, cutEdges),
+                Topography.requireNode(index, begin),
+                Topography.requireNode(index, end));
     }
 
     public static <N, E extends Edge<N>> boolean isCut(final Graph<N, E> graph,
@@ -369,8 +417,8 @@ public final class Topography {
             }
         }
 
-        return Topography.isCut(graph, Collections.singleton(node),
-                Collections.<E>emptySet());
+        final TopologyIndex index = TopologyIndex.of(graph);
+        return index.isArticulationPoint(Topography.requireNode(index, node));
     }
 
     public static <N, E extends Edge<N>> boolean isCut(final Graph<N, E> graph,
@@ -384,8 +432,8 @@ public final class Topography {
             }
         }
 
-        return Topography.isCut(graph, Collections.<N>emptySet(),
-                Collections.singleton(edge));
+        final TopologyIndex index = TopologyIndex.of(graph);
+        return index.isCutEdge(Topography.requireEdge(index, edge));
     }
 
     public static <N, E extends Edge<N>> boolean isCut(final Graph<N, E> graph,
@@ -448,15 +496,7 @@ public final class Topography {
             }
         }
 
-        final Set<Set<N>> combinations = Counters.everyCombination(graph
-                .getNodes());
-        final SortedSet<Set<N>> sortedCombinations = new TreeSet<>(
-                new SizeComparator());
-        sortedCombinations.addAll(combinations);
-        for (final Set<N> cutNodes : sortedCombinations)
-            if (Topography.isCut(graph, cutNodes, Collections.<E>emptySet()))
-                return cutNodes.size();
-        return graph.getNodes().size();
+        return TopologyIndex.of(graph).getNodeConnectivity();
     }
 
     public static <N, E extends Edge<N>> int getEdgeConnectivity(
@@ -471,15 +511,7 @@ public final class Topography {
             }
         }
 
-        final Set<Set<E>> combinations = Counters.everyCombination(graph
-                .getEdges());
-        final SortedSet<Set<E>> sortedCombinations = new TreeSet<>(
-                new SizeComparator());
-        sortedCombinations.addAll(combinations);
-        for (final Set<E> cutEdges : sortedCombinations)
-            if (Topography.isCut(graph, cutEdges))
-                return cutEdges.size();
-        return graph.getEdges().size();
+        return TopologyIndex.of(graph).getEdgeConnectivity();
     }
 
     public static <N, E extends Edge<N>> int getNodeConnectivity(
@@ -494,16 +526,9 @@ public final class Topography {
             }
         }
 
-        final Set<Set<N>> combinations = Counters.everyCombination(graph
-                .getNodes());
-        final SortedSet<Set<N>> sortedCombinations = new TreeSet<>(
-                new SizeComparator());
-        sortedCombinations.addAll(combinations);
-        for (final Set<N> cutNodes : sortedCombinations)
-            if (Topography.isCut(graph, cutNodes, Collections.<E>emptySet(),
-                    begin, end))
-                return cutNodes.size();
-        return graph.getNodes().size();
+        final TopologyIndex index = TopologyIndex.of(graph);
+        return index.getNodeConnectivity(Topography.requireNode(index, begin),
+                Topography.requireNode(index, end));
     }
 
     public static <N, E extends Edge<N>> int getEdgeConnectivity(
@@ -518,15 +543,9 @@ public final class Topography {
             }
         }
 
-        final Set<Set<E>> combinations = Counters.everyCombination(graph
-                .getEdges());
-        final SortedSet<Set<E>> sortedCombinations = new TreeSet<>(
-                new SizeComparator());
-        sortedCombinations.addAll(combinations);
-        for (final Set<E> cutEdges : sortedCombinations)
-            if (Topography.isCut(graph, cutEdges, begin, end))
-                return cutEdges.size();
-        return graph.getEdges().size();
+        final TopologyIndex index = TopologyIndex.of(graph);
+        return index.getEdgeConnectivity(Topography.requireNode(index, begin),
+                Topography.requireNode(index, end));
     }
 
     public static <N, E extends Edge<N>> boolean isComplete(
@@ -1042,90 +1061,33 @@ public final class Topography {
         throw new UnsupportedOperationException();
     }
 
-    /**
-     * Removes a set of nodes and a set of edges from the given graph. First, it
-     * removes all nodes from the graph. Then, it removes all edges in the edges
-     * to remove that are not connected to the given node.
-     *
-     * @param deleteNodes The nodes to remove
-     * @param deleteEdges The edges to remove in addition to the nodes
-     * @return an ImmutableAdjacencyGraph with the given nodes and edges removed
-     */
-    private static <N, E extends Edge<N>> ImmutableAdjacencyGraph<N, Edge<N>> deleteFromGraph(
-            final Graph<N, E> graph, final Set<N> deleteNodes,
-            final Set<E> deleteEdges) {
-        // remove the deleteNodes
-        final Set<N> cutNodes = graph.getNodes();
-        cutNodes.removeAll(deleteNodes);
-        // remove the deleteEdges
-        final Set<Edge<N>> cutEdges = new HashSet<>(deleteEdges);
-        deleteEdges.forEach(cutEdges::remove);
-        // remove any remaining deleteEdges which connect to removed deleteNodes
-        // also replace deleteEdges that have one removed node but still have
-        // 2 or more remaining deleteNodes with a new edge.
-        final Set<Edge<N>> removeEdges = new HashSet<>();
-        final Set<Edge<N>> addEdges = new HashSet<>();
-        for (final Edge<N> cutEdge : cutEdges) {
-            final List<N> cutEdgeNeighbors = cutEdge.getNodes();
-            cutEdgeNeighbors.removeAll(cutNodes);
-            if (cutEdgeNeighbors.size() != cutEdge.getNodes().size())
-                removeEdges.add(cutEdge);
-            if (cutEdgeNeighbors.size() > 1)
-                // TODO instead of ImmutableHyperEdge implement clone or
-                // something
-                addEdges.add(new ImmutableHyperEdge<>(cutEdgeNeighbors));
-        }
-        removeEdges.forEach(cutEdges::remove);
-        cutEdges.addAll(addEdges);
-        // check if a graph from the new set of deleteEdges and deleteNodes is
-        // still connected
-        return new ImmutableAdjacencyGraph<>(cutNodes, cutEdges);
+    private static int requireNode(final TopologyIndex index, final Object node) {
+        final int id = index.getNodeId(node);
+        if (id < 0)
+            throw new IllegalArgumentException("node is not in the graph");
+        return id;
     }
 
-    /**
-     * A SizeComparator compares two collections solely based on size.
-     */
-    private static class SizeComparator implements Comparator<Collection<?>>,
-            Serializable {
-        private static final long serialVersionUID = -4454396728238585057L;
-
-        /**
-         * Compares the two collections based on their size.
-         *
-         * @param first  The first collection
-         * @param second The second collection
-         * @return Which collection is larger
-         * @see java.util.Comparator#compare(Object, Object)
-         */
-        @Override
-        public int compare(final Collection<?> first, final Collection<?> second) {
-            if (first.size() < second.size())
-                return -1;
-            else if (first.size() > second.size())
-                return 1;
-            return 0;
-        }
-
-        /**
-         * Returns true if the given object is a non-null SizeComparator. As
-         * this class has no state, all SizeComparators are equal.
-         *
-         * @param compareWith The object to compare with
-         * @return If the object is a non-null SizeComparator
-         */
-        @Override
-        public boolean equals(final Object compareWith) {
-            if (compareWith == null)
-                return false;
+    private static int requireEdge(final TopologyIndex index, final Object edge) {
+        final int id = index.getEdgeId(edge);
+        if (id < 0)
+            throw new IllegalArgumentException("edge is not in the graph");
+        return id;
+    }
 
-            return (compareWith instanceof SizeComparator);
-        }
+    private static boolean[] nodeMask(final TopologyIndex index,
+                                      final Set<?> nodes) {
+        final boolean[] mask = new boolean[index.getNodeCount()];
+        for (final Object node : nodes)
+            mask[Topography.requireNode(index, node)] = true;
+        return mask;
+    }
 
-        @Override
-        public int hashCode() {
-            // Method only implemented for checkstyle reasons.
-            return super.hashCode(); // Default implementation; may need to
-            // bring in line to equals
-        }
+    private static boolean[] edgeMask(final TopologyIndex index,
+                                      final Set<?> edges) {
+        final boolean[] mask = new boolean[index.getEdgeCount()];
+        for (final Object edge : edges)
+            mask[Topography.requireEdge(index, edge)] = true;
+        return mask;
     }
 }
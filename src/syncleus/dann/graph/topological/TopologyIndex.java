@@ -0,0 +1,1009 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph.topological;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+import syncleus.dann.graph.Edge;
+import syncleus.dann.graph.Graph;
+import syncleus.dann.graph.ImmutableAdjacencyGraph;
+import syncleus.dann.graph.ImmutableDirectedAdjacencyGraph;
+import syncleus.dann.graph.ImmutableHyperAdjacencyGraph;
+import syncleus.dann.graph.ImmutableRootedTreeAdjacencyGraph;
+import syncleus.dann.graph.ImmutableTreeAdjacencyGraph;
+
+/**
+ * An int indexed view of a graph that answers the connectivity questions of
+ * {@link Topography} in linear time. Nodes and edges are numbered in the
+ * order the graph returns them; each edge knows its distinct end points, each
+ * node its incident edges, and the traversable arcs are kept in compressed
+ * rows.
+ * <p>
+ * Strongly connected components come from an iterative Tarjan search over
+ * the arcs, weakly connected components from a search over the incidences.
+ * Articulation points, cut edges and biconnected components come from an
+ * iterative Hopcroft-Tarjan search over the incidence graph, the bipartite
+ * graph joining every node to its edges, which handles multi and hyper edges
+ * without special cases: a node is an articulation point, and an edge a cut
+ * edge, exactly when it is one in the incidence graph. Connectivities are
+ * maximum flows, by Dinic's algorithm, through a network in which every edge,
+ * and for node connectivity every node, can carry a single path.
+ * <p>
+ * Each analysis runs once, on first use. Views of immutable graphs are cached
+ * by {@link #of(Graph)}, so repeated questions about the same graph cost
+ * nothing after the first.
+ */
+public final class TopologyIndex {
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final Map<Graph<?, ?>, TopologyIndex> CACHE = Collections
+            .synchronizedMap(new WeakHashMap<>());
+
+    private final Object[] nodes;
+    private final Map<Object, Integer> nodeIds;
+    private final Object[] edges;
+    private final Map<Object, Integer> edgeIds;
+    private final int[] edgeNodeOffsets;
+    private final int[] edgeNodes;
+    private final int[] nodeEdgeOffsets;
+    private final int[] nodeEdges;
+    private final int[] arcOffsets;
+    private final int[] arcTargets;
+    private final int[] arcEdges;
+
+    private int[] weakComponents;
+    private int weakCount;
+    private int[] strongComponents;
+    private int strongCount;
+    private boolean[] articulationPoints;
+    private boolean[] cutEdges;
+    private List<int[]> biconnectedComponents;
+
+    /**
+     * Builds the view of a graph. Use {@link #of(Graph)} to share views of
+     * immutable graphs.
+     *
+     * @param graph the graph
+     */
+    public TopologyIndex(final Graph<?, ?> graph) {
+        if (graph == null)
+            throw new IllegalArgumentException("graph can not be null");
+        this.nodes = graph.getNodes().toArray();
+        this.nodeIds = new HashMap<>(this.nodes.length * 2);
+        for (int node = 0; node < this.nodes.length; node++)
+            this.nodeIds.put(this.nodes[node], node);
+        this.edges = graph.getEdges().toArray();
+        this.edgeIds = new HashMap<>(this.edges.length * 2);
+        for (int edge = 0; edge < this.edges.length; edge++)
+            this.edgeIds.put(this.edges[edge], edge);
+
+        // the distinct end points of each edge
+        final int[] mark = new int[this.nodes.length];
+        Arrays.fill(mark, -1);
+        this.edgeNodeOffsets = new int[this.edges.length + 1];
+        int[] endPoints = new int[this.edges.length * 2];
+        int endPointCount = 0;
+        int[] arcFrom = new int[this.edges.length * 2];
+        int[] arcTo = new int[arcFrom.length];
+        int[] arcEdge = new int[arcFrom.length];
+        int arcCount = 0;
+        for (int edge = 0; edge < this.edges.length; edge++) {
+            @SuppressWarnings("unchecked")
+            final Edge<Object> edgeObject = (Edge<Object>) this.edges[edge];
+            for (final Object endNode : edgeObject.getNodes()) {
+                final int node = this.requireNode(endNode);
+                if (mark[node] == edge)
+                    continue;
+                mark[node] = edge;
+                if (endPointCount == endPoints.length)
+                    endPoints = Arrays.copyOf(endPoints, Math.max(4,
+                            endPointCount * 2));
+                endPoints[endPointCount++] = node;
+                if (!edgeObject.isTraversable(endNode))
+                    continue;
+                for (final Object toNode : edgeObject
+                        .getTraversableNodes(endNode)) {
+                    if (arcCount == arcFrom.length) {
+                        final int capacity = Math.max(4, arcCount * 2);
+                        arcFrom = Arrays.copyOf(arcFrom, capacity);
+                        arcTo = Arrays.copyOf(arcTo, capacity);
+                        arcEdge = Arrays.copyOf(arcEdge, capacity);
+                    }
+                    arcFrom[arcCount] = node;
+                    arcTo[arcCount] = this.requireNode(toNode);
+                    arcEdge[arcCount] = edge;
+                    arcCount++;
+                }
+            }
+            this.edgeNodeOffsets[edge + 1] = endPointCount;
+        }
+        this.edgeNodes = Arrays.copyOf(endPoints, endPointCount);
+
+        // the incident edges of each node
+        this.nodeEdgeOffsets = new int[this.nodes.length + 1];
+        for (int index = 0; index < endPointCount; index++)
+            this.nodeEdgeOffsets[this.edgeNodes[index] + 1]++;
+        for (int node = 0; node < this.nodes.length; node++)
+            this.nodeEdgeOffsets[node + 1] += this.nodeEdgeOffsets[node];
+        this.nodeEdges = new int[endPointCount];
+        final int[] fill = Arrays.copyOf(this.nodeEdgeOffsets,
+                this.nodes.length);
+        for (int edge = 0; edge < this.edges.length; edge++)
+            for (int index = this.edgeNodeOffsets[edge]; index < this.edgeNodeOffsets[edge + 1]; index++)
+                this.nodeEdges[fill[this.edgeNodes[index]]++] = edge;
+
+        // the traversable arcs, by source node
+        this.arcOffsets = new int[this.nodes.length + 1];
+        for (int arc = 0; arc < arcCount; arc++)
+            this.arcOffsets[arcFrom[arc] + 1]++;
+        for (int node = 0; node < this.nodes.length; node++)
+            this.arcOffsets[node + 1] += this.arcOffsets[node];
+        this.arcTargets = new int[arcCount];
+        this.arcEdges = new int[arcCount];
+        final int[] arcFill = Arrays.copyOf(this.arcOffsets, this.nodes.length);
+        for (int arc = 0; arc < arcCount; arc++) {
+            final int slot = arcFill[arcFrom[arc]]++;
+            this.arcTargets[slot] = arcTo[arc];
+            this.arcEdges[slot] = arcEdge[arc];
+        }
+    }
+
+    /**
+     * Gets the view of a graph, sharing one view between all callers when
+     * the graph is immutable. Views of mutable graphs are built afresh.
+     *
+     * @param graph the graph
+     * @return the view of the graph
+     */
+    public static TopologyIndex of(final Graph<?, ?> graph) {
+        if (!isImmutable(graph))
+            return new TopologyIndex(graph);
+        TopologyIndex index = CACHE.get(graph);
+        if (index == null) {
+            index = new TopologyIndex(graph);
+            CACHE.put(graph, index);
+        }
+        return index;
+    }
+
+    private static boolean isImmutable(final Graph<?, ?> graph) {
+        return (graph instanceof ImmutableAdjacencyGraph)
+                || (graph instanceof ImmutableDirectedAdjacencyGraph)
+                || (graph instanceof ImmutableHyperAdjacencyGraph)
+                || (graph instanceof ImmutableTreeAdjacencyGraph)
+                || (graph instanceof ImmutableRootedTreeAdjacencyGraph)
+                || (graph instanceof CompressedBidirectedGraph);
+    }
+
+    private int requireNode(final Object node) {
+        final Integer id = this.nodeIds.get(node);
+        if (id == null)
+            throw new IllegalArgumentException(
+                    "edge connects a node that is not in the graph");
+        return id;
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return this.nodes.length;
+    }
+
+    /**
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return this.edges.length;
+    }
+
+    /**
+     * @param node a node
+     * @return the id of the node, or -1 if it is not in the graph
+     */
+    public int getNodeId(final Object node) {
+        final Integer id = this.nodeIds.get(node);
+        return (id == null ? -1 : id);
+    }
+
+    /**
+     * @param edge an edge
+     * @return the id of the edge, or -1 if it is not in the graph
+     */
+    public int getEdgeId(final Object edge) {
+        final Integer id = this.edgeIds.get(edge);
+        return (id == null ? -1 : id);
+    }
+
+    /**
+     * @param id a node id
+     * @return the node with that id
+     */
+    public Object getNode(final int id) {
+        return this.nodes[id];
+    }
+
+    /**
+     * @param id an edge id
+     * @return the edge with that id
+     */
+    public Object getEdge(final int id) {
+        return this.edges[id];
+    }
+
+    /**
+     * The traversable arcs leaving a node are numbered from this index up to
+     * {@link #getArcEnd(int)}.
+     *
+     * @param node a node id
+     * @return the first arc leaving the node
+     */
+    public int getArcStart(final int node) {
+        return this.arcOffsets[node];
+    }
+
+    /**
+     * @param node a node id
+     * @return one past the last arc leaving the node
+     */
+    public int getArcEnd(final int node) {
+        return this.arcOffsets[node + 1];
+    }
+
+    /**
+     * @param arc an arc id
+     * @return the node the arc leads to
+     */
+    public int getArcTarget(final int arc) {
+        return this.arcTargets[arc];
+    }
+
+    /**
+     * @param arc an arc id
+     * @return the edge the arc traverses
+     */
+    public int getArcEdge(final int arc) {
+        return this.arcEdges[arc];
+    }
+
+    // weakly connected components
+
+    private synchronized void computeWeakComponents() {
+        if (this.weakComponents != null)
+            return;
+        final int[] components = new int[this.nodes.length];
+        Arrays.fill(components, -1);
+        final boolean[] edgeSeen = new boolean[this.edges.length];
+        final int[] queue = new int[this.nodes.length];
+        int count = 0;
+        for (int start = 0; start < this.nodes.length; start++) {
+            if (components[start] >= 0)
+                continue;
+            components[start] = count;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                final int node = queue[head++];
+                for (int index = this.nodeEdgeOffsets[node]; index < this.nodeEdgeOffsets[node + 1]; index++) {
+                    final int edge = this.nodeEdges[index];
+                    if (edgeSeen[edge])
+                        continue;
+                    edgeSeen[edge] = true;
+                    for (int end = this.edgeNodeOffsets[edge]; end < this.edgeNodeOffsets[edge + 1]; end++) {
+                        final int other = this.edgeNodes[end];
+                        if (components[other] < 0) {
+                            components[other] = count;
+                            queue[tail++] = other;
+                        }
+                    }
+                }
+            }
+            count++;
+        }
+        this.weakCount = count;
+        this.weakComponents = components;
+    }
+
+    /**
+     * @return the number of weakly connected components
+     */
+    public int getWeakComponentCount() {
+        this.computeWeakComponents();
+        return this.weakCount;
+    }
+
+    /**
+     * @param node a node id
+     * @return the weakly connected component of the node, from 0 to the
+     * component count
+     */
+    public int getWeakComponent(final int node) {
+        this.computeWeakComponents();
+        return this.weakComponents[node];
+    }
+
+    // strongly connected components
+
+    private synchronized void computeStrongComponents() {
+        if (this.strongComponents != null)
+            return;
+        final int nodeCount = this.nodes.length;
+        final int[] components = new int[nodeCount];
+        Arrays.fill(components, -1);
+        final int[] order = new int[nodeCount];
+        final int[] low = new int[nodeCount];
+        Arrays.fill(order, -1);
+        final int[] stack = new int[nodeCount];
+        final int[] callNodes = new int[nodeCount];
+        final int[] callArcs = new int[nodeCount];
+        int stackSize = 0;
+        int visited = 0;
+        int count = 0;
+        for (int start = 0; start < nodeCount; start++) {
+            if (order[start] >= 0)
+                continue;
+            int depth = 0;
+            callNodes[0] = start;
+            callArcs[0] = this.arcOffsets[start];
+            order[start] = low[start] = visited++;
+            stack[stackSize++] = start;
+            while (depth >= 0) {
+                final int node = callNodes[depth];
+                if (callArcs[depth] < this.arcOffsets[node + 1]) {
+                    final int target = this.arcTargets[callArcs[depth]++];
+                    if (order[target] < 0) {
+                        order[target] = low[target] = visited++;
+                        stack[stackSize++] = target;
+                        depth++;
+                        callNodes[depth] = target;
+                        callArcs[depth] = this.arcOffsets[target];
+                    } else if ((components[target] < 0)
+                            && (order[target] < low[node]))
+                        low[node] = order[target];
+                    continue;
+                }
+                if (low[node] == order[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        components[member] = count;
+                    } while (member != node);
+                    count++;
+                }
+                depth--;
+                if ((depth >= 0) && (low[node] < low[callNodes[depth]]))
+                    low[callNodes[depth]] = low[node];
+            }
+        }
+        this.strongCount = count;
+        this.strongComponents = components;
+    }
+
+    /**
+     * @return the number of strongly connected components
+     */
+    public int getStrongComponentCount() {
+        this.computeStrongComponents();
+        return this.strongCount;
+    }
+
+    /**
+     * Components are numbered in reverse topological order: no arc leads
+     * from a component to one with a higher number.
+     *
+     * @param node a node id
+     * @return the strongly connected component of the node
+     */
+    public int getStrongComponent(final int node) {
+        this.computeStrongComponents();
+        return this.strongComponents[node];
+    }
+
+    /**
+     * @param begin a node id
+     * @param end a node id
+     * @return true if end can be reached from begin along traversable edges
+     */
+    public boolean isReachable(final int begin, final int end) {
+        if (this.getStrongComponent(begin) == this.getStrongComponent(end))
+            return true;
+        // arcs never lead to a higher component, so there is no path
+        if (this.getStrongComponent(begin) < this.getStrongComponent(end))
+            return false;
+        return this.reaches(begin, end, null, null);
+    }
+
+    // articulation points, cut edges and biconnected components
+
+    /**
+     * Hopcroft-Tarjan over the incidence graph, whose vertices are the nodes
+     * followed by the edges. Edges with fewer than two distinct end points
+     * never affect connectivity and are left out.
+     */
+    private synchronized void computeBiconnectivity() {
+        if (this.biconnectedComponents != null)
+            return;
+        final int nodeCount = this.nodes.length;
+        final int vertexCount = nodeCount + this.edges.length;
+        final int[] order = new int[vertexCount];
+        final int[] low = new int[vertexCount];
+        Arrays.fill(order, -1);
+        final int[] parents = new int[vertexCount];
+        final int[] callVertices = new int[vertexCount];
+        final int[] callPositions = new int[vertexCount];
+        final boolean[] articulation = new boolean[vertexCount];
+        // the incidences of the current block, as node and edge pairs
+        final int[] blockNodes = new int[this.edgeNodes.length];
+        final int[] blockEdges = new int[this.edgeNodes.length];
+        int blockSize = 0;
+        final int[] edgeMark = new int[this.edges.length];
+        Arrays.fill(edgeMark, -1);
+        final boolean[] singletonSeen = new boolean[this.edges.length];
+        final List<int[]> components = new ArrayList<>();
+        int visited = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (order[root] >= 0)
+                continue;
+            int rootChildren = 0;
+            int depth = 0;
+            callVertices[0] = root;
+            callPositions[0] = this.firstNeighbor(root);
+            parents[root] = -1;
+            order[root] = low[root] = visited++;
+            while (depth >= 0) {
+                final int vertex = callVertices[depth];
+                final int position = callPositions[depth];
+                if (position < this.neighborEnd(vertex)) {
+                    callPositions[depth] = this.nextNeighbor(vertex, position);
+                    final int neighbor = this.neighborAt(vertex, position);
+                    if (neighbor == parents[vertex])
+                        continue;
+                    if (order[neighbor] < 0) {
+                        blockNodes[blockSize] = Math.min(vertex, neighbor);
+                        blockEdges[blockSize++] = Math.max(vertex, neighbor)
+                                - nodeCount;
+                        parents[neighbor] = vertex;
+                        order[neighbor] = low[neighbor] = visited++;
+                        if (vertex == root)
+                            rootChildren++;
+                        depth++;
+                        callVertices[depth] = neighbor;
+                        callPositions[depth] = this.firstNeighbor(neighbor);
+                    } else if (order[neighbor] < order[vertex]) {
+                        blockNodes[blockSize] = Math.min(vertex, neighbor);
+                        blockEdges[blockSize++] = Math.max(vertex, neighbor)
+                                - nodeCount;
+                        if (order[neighbor] < low[vertex])
+                            low[vertex] = order[neighbor];
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth < 0)
+                    break;
+                final int parent = callVertices[depth];
+                if (low[vertex] < low[parent])
+                    low[parent] = low[vertex];
+                if (low[vertex] >= order[parent]) {
+                    if (parent != root)
+                        articulation[parent] = true;
+                    // pop the block closed by the tree incidence parent-vertex
+                    final int closingNode = Math.min(parent, vertex);
+                    final int closingEdge = Math.max(parent, vertex)
+                            - nodeCount;
+                    int[] component = new int[4];
+                    int componentSize = 0;
+                    final int mark = components.size();
+                    int node;
+                    int edge;
+                    do {
+                        blockSize--;
+                        node = blockNodes[blockSize];
+                        edge = blockEdges[blockSize];
+                        if (edgeMark[edge] != mark) {
+                            edgeMark[edge] = mark;
+                            if (componentSize == component.length)
+                                component = Arrays.copyOf(component,
+                                        componentSize * 2);
+                            component[componentSize++] = edge;
+                        }
+                    } while ((node != closingNode) || (edge != closingEdge));
+                    if (componentSize == 1) {
+                        // a cut edge closes one block on each of its sides
+                        if (singletonSeen[component[0]])
+                            continue;
+                        singletonSeen[component[0]] = true;
+                    }
+                    final int[] edgeSet = Arrays.copyOf(component, componentSize);
+                    Arrays.sort(edgeSet);
+                    components.add(edgeSet);
+                }
+            }
+            if (rootChildren > 1)
+                articulation[root] = true;
+        }
+
+        this.articulationPoints = Arrays.copyOf(articulation, nodeCount);
+        this.cutEdges = Arrays.copyOfRange(articulation, nodeCount,
+                vertexCount);
+        this.biconnectedComponents = components;
+    }
+
+    private int firstNeighbor(final int vertex) {
+        return this.nextNeighbor(vertex, this.neighborStart(vertex) - 1);
+    }
+
+    private int neighborStart(final int vertex) {
+        final int nodeCount = this.nodes.length;
+        return (vertex < nodeCount ? this.nodeEdgeOffsets[vertex]
+                : this.edgeNodeOffsets[vertex - nodeCount]);
+    }
+
+    private int neighborEnd(final int vertex) {
+        final int nodeCount = this.nodes.length;
+        return (vertex < nodeCount ? this.nodeEdgeOffsets[vertex + 1]
+                : this.edgeNodeOffsets[vertex - nodeCount + 1]);
+    }
+
+    /**
+     * The next position after the given one whose neighbor takes part in the
+     * incidence graph, skipping edges with a single end point.
+     */
+    private int nextNeighbor(final int vertex, final int position) {
+        final int end = this.neighborEnd(vertex);
+        int next = position + 1;
+        if (vertex < this.nodes.length)
+            while ((next < end) && (this.getEndPointCount(this.nodeEdges[next]) < 2))
+                next++;
+        return next;
+    }
+
+    private int neighborAt(final int vertex, final int position) {
+        final int nodeCount = this.nodes.length;
+        return (vertex < nodeCount ? nodeCount + this.nodeEdges[position]
+                : this.edgeNodes[position]);
+    }
+
+    private int getEndPointCount(final int edge) {
+        return this.edgeNodeOffsets[edge + 1] - this.edgeNodeOffsets[edge];
+    }
+
+    /**
+     * @param node a node id
+     * @return true if removing the node increases the number of weakly
+     * connected components
+     */
+    public boolean isArticulationPoint(final int node) {
+        this.computeBiconnectivity();
+        return this.articulationPoints[node];
+    }
+
+    /**
+     * @param edge an edge id
+     * @return true if removing the edge increases the number of weakly
+     * connected components
+     */
+    public boolean isCutEdge(final int edge) {
+        this.computeBiconnectivity();
+        return this.cutEdges[edge];
+    }
+
+    /**
+     * @return the edge ids of each biconnected component, sorted
+     */
+    public List<int[]> getBiconnectedComponents() {
+        this.computeBiconnectivity();
+        return Collections.unmodifiableList(this.biconnectedComponents);
+    }
+
+    // cuts
+
+    /**
+     * @param removedNodes removed node ids, or null
+     * @param removedEdges removed edge ids, or null
+     * @return true if removing the nodes and edges increases the number of
+     * weakly connected components
+     */
+    public boolean isCut(final boolean[] removedNodes,
+                         final boolean[] removedEdges) {
+        final int before = this.getWeakComponentCount();
+        final int[] components = new int[this.nodes.length];
+        final boolean[] edgeSeen = new boolean[this.edges.length];
+        final int[] queue = new int[this.nodes.length];
+        int count = 0;
+        for (int start = 0; start < this.nodes.length; start++) {
+            if ((components[start] != 0) || isSet(removedNodes, start))
+                continue;
+            count++;
+            if (count > before)
+                return true;
+            components[start] = count;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                final int node = queue[head++];
+                for (int index = this.nodeEdgeOffsets[node]; index < this.nodeEdgeOffsets[node + 1]; index++) {
+                    final int edge = this.nodeEdges[index];
+                    if (edgeSeen[edge] || isSet(removedEdges, edge))
+                        continue;
+                    edgeSeen[edge] = true;
+                    for (int end = this.edgeNodeOffsets[edge]; end < this.edgeNodeOffsets[edge + 1]; end++) {
+                        final int other = this.edgeNodes[end];
+                        if ((components[other] == 0)
+                                && !isSet(removedNodes, other)) {
+                            components[other] = count;
+                            queue[tail++] = other;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param removedNodes removed node ids, or null
+     * @param removedEdges removed edge ids, or null
+     * @param begin a node id
+     * @param end a node id
+     * @return true if end can not be reached from begin once the nodes and
+     * edges are removed
+     */
+    public boolean isCut(final boolean[] removedNodes,
+                         final boolean[] removedEdges, final int begin, final int end) {
+        if (isSet(removedNodes, begin) || isSet(removedNodes, end))
+            return true;
+        return !this.reaches(begin, end, removedNodes, removedEdges);
+    }
+
+    private static boolean isSet(final boolean[] flags, final int index) {
+        return (flags != null) && flags[index];
+    }
+
+    private boolean reaches(final int begin, final int end,
+                            final boolean[] removedNodes, final boolean[] removedEdges) {
+        if (begin == end)
+            return true;
+        final boolean[] seen = new boolean[this.nodes.length];
+        final int[] queue = new int[this.nodes.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = begin;
+        seen[begin] = true;
+        while (head < tail) {
+            final int node = queue[head++];
+            for (int arc = this.arcOffsets[node]; arc < this.arcOffsets[node + 1]; arc++) {
+                final int target = this.arcTargets[arc];
+                if (seen[target] || isSet(removedNodes, target)
+                        || isSet(removedEdges, this.arcEdges[arc]))
+                    continue;
+                if (target == end)
+                    return true;
+                seen[target] = true;
+                queue[tail++] = target;
+            }
+        }
+        return false;
+    }
+
+    // connectivity
+
+    /**
+     * The number of edges that must be removed so no path leads from begin
+     * to end, which is also the number of edge disjoint paths between them.
+     *
+     * @param begin a node id
+     * @param end a different node id
+     * @return the local edge connectivity
+     */
+    public int getEdgeConnectivity(final int begin, final int end) {
+        checkPair(begin, end);
+        return new FlowNetwork(this, false, true).maximumFlow(begin, end,
+                UNLIMITED);
+    }
+
+    /**
+     * The number of paths from begin to end that share no node other than
+     * begin and end. Removing that many nodes separates end from begin,
+     * unless some of the paths are edges joining them directly, which no
+     * removal of nodes can cut.
+     *
+     * @param begin a node id
+     * @param end a different node id
+     * @return the local node connectivity
+     */
+    public int getNodeConnectivity(final int begin, final int end) {
+        checkPair(begin, end);
+        return new FlowNetwork(this, true, true).maximumFlow(begin, end,
+                UNLIMITED);
+    }
+
+    private void checkPair(final int begin, final int end) {
+        if (begin == end)
+            throw new IllegalArgumentException("begin and end must differ");
+        if ((begin < 0) || (end < 0) || (begin >= this.nodes.length)
+                || (end >= this.nodes.length))
+            throw new IllegalArgumentException("node is not in the graph");
+    }
+
+    /**
+     * @return the least number of edges whose removal increases the number
+     * of weakly connected components, or 0 if the graph is not weakly
+     * connected or has fewer than two nodes
+     */
+    public int getEdgeConnectivity() {
+        final int nodeCount = this.nodes.length;
+        if ((nodeCount < 2) || (this.getWeakComponentCount() > 1))
+            return 0;
+        int best = UNLIMITED;
+        for (int node = 0; node < nodeCount; node++) {
+            int degree = 0;
+            for (int index = this.nodeEdgeOffsets[node]; index < this.nodeEdgeOffsets[node + 1]; index++)
+                if (this.getEndPointCount(this.nodeEdges[index]) > 1)
+                    degree++;
+            best = Math.min(best, degree);
+        }
+        // every minimum cut separates node 0 from some other node
+        final FlowNetwork network = new FlowNetwork(this, false, false);
+        for (int end = 1; (end < nodeCount) && (best > 0); end++)
+            best = Math.min(best, network.maximumFlow(0, end, best));
+        return best;
+    }
+
+    /**
+     * @return the least number of nodes whose removal increases the number
+     * of weakly connected components; 0 if the graph is not weakly connected
+     * and one less than the number of nodes if every pair of nodes is
+     * adjacent
+     */
+    public int getNodeConnectivity() {
+        final int nodeCount = this.nodes.length;
+        if ((nodeCount < 2) || (this.getWeakComponentCount() > 1))
+            return 0;
+        int best = nodeCount - 1;
+        final boolean[] adjacent = new boolean[nodeCount];
+        final FlowNetwork network = new FlowNetwork(this, true, false);
+        // Even's algorithm: one of the first best + 1 nodes lies outside a
+        // minimum separator, and so is separated by it from some other node
+        for (int begin = 0; begin <= best; begin++) {
+            Arrays.fill(adjacent, false);
+            for (int index = this.nodeEdgeOffsets[begin]; index < this.nodeEdgeOffsets[begin + 1]; index++) {
+                final int edge = this.nodeEdges[index];
+                for (int end = this.edgeNodeOffsets[edge]; end < this.edgeNodeOffsets[edge + 1]; end++)
+                    adjacent[this.edgeNodes[end]] = true;
+            }
+            for (int end = begin + 1; end < nodeCount; end++)
+                if (!adjacent[end])
+                    best = Math.min(best, network.maximumFlow(begin, end,
+                            best));
+        }
+        return best;
+    }
+
+    /**
+     * A flow network built from the graph. Every edge becomes an entry and an
+     * exit vertex joined by a single arc, so a hyperedge carries one path
+     * when counting edge disjoint paths. When counting node disjoint paths
+     * every node is split the same way with capacity 1, and edges are left
+     * unbounded except those joining begin directly to end, which count as a
+     * single path each. Arcs are stored with their reverse at the next index.
+     */
+    private static final class FlowNetwork {
+        private final TopologyIndex index;
+        private final boolean splitNodes;
+        private final int vertexCount;
+        private final int edgeBase;
+        private int[] tails = new int[16];
+        private int[] heads = new int[16];
+        private int[] capacities = new int[16];
+        private int arcCount;
+        private final int[] offsets;
+        private final int[] arcs;
+        private final int[] flows;
+        private final int[] levels;
+        private final int[] cursors;
+        private final int[] queue;
+
+        private FlowNetwork(final TopologyIndex index, final boolean splitNodes,
+                            final boolean directed) {
+            this.index = index;
+            this.splitNodes = splitNodes;
+            final int nodeCount = index.nodes.length;
+            // a node enters at its id and, when split, leaves at nodeCount + id
+            this.edgeBase = (splitNodes ? 2 * nodeCount : nodeCount);
+            this.vertexCount = this.edgeBase + 2 * index.edges.length;
+            if (splitNodes)
+                for (int node = 0; node < nodeCount; node++)
+                    this.addArc(node, nodeCount + node, 1);
+            // the arc of edge e is the first added after the node arcs
+            for (int edge = 0; edge < index.edges.length; edge++) {
+                final int entry = this.edgeBase + 2 * edge;
+                this.addArc(entry, entry + 1, (splitNodes ? UNLIMITED : 1));
+            }
+            for (int edge = 0; edge < index.edges.length; edge++) {
+                if (directed || (index.getEndPointCount(edge) < 2))
+                    continue;
+                final int entry = this.edgeBase + 2 * edge;
+                for (int position = index.edgeNodeOffsets[edge]; position < index.edgeNodeOffsets[edge + 1]; position++) {
+                    final int node = index.edgeNodes[position];
+                    this.addArc(this.exitOf(node), entry, UNLIMITED);
+                    this.addArc(entry + 1, node, UNLIMITED);
+                }
+            }
+            if (directed)
+                for (int node = 0; node < nodeCount; node++)
+                    for (int arc = index.arcOffsets[node]; arc < index.arcOffsets[node + 1]; arc++) {
+                        final int target = index.arcTargets[arc];
+                        if (target == node)
+                            continue;
+                        final int entry = this.edgeBase + 2
+                                * index.arcEdges[arc];
+                        this.addArc(this.exitOf(node), entry, UNLIMITED);
+                        this.addArc(entry + 1, target, UNLIMITED);
+                    }
+
+            this.offsets = new int[this.vertexCount + 1];
+            for (int arc = 0; arc < this.arcCount; arc++)
+                this.offsets[this.tails[arc] + 1]++;
+            for (int vertex = 0; vertex < this.vertexCount; vertex++)
+                this.offsets[vertex + 1] += this.offsets[vertex];
+            this.arcs = new int[this.arcCount];
+            final int[] fill = Arrays.copyOf(this.offsets, this.vertexCount);
+            for (int arc = 0; arc < this.arcCount; arc++)
+                this.arcs[fill[this.tails[arc]]++] = arc;
+            this.tails = null;
+            this.flows = new int[this.arcCount];
+            this.levels = new int[this.vertexCount];
+            this.cursors = new int[this.vertexCount];
+            this.queue = new int[this.vertexCount];
+        }
+
+        private int exitOf(final int node) {
+            return (this.splitNodes ? this.index.nodes.length + node : node);
+        }
+
+        private int edgeArc(final int edge) {
+            final int nodeArcs = (this.splitNodes ? this.index.nodes.length : 0);
+            return 2 * (nodeArcs + edge);
+        }
+
+        private void addArc(final int tail, final int head, final int capacity) {
+            if (this.arcCount + 2 > this.heads.length) {
+                final int length = this.heads.length * 2;
+                this.tails = Arrays.copyOf(this.tails, length);
+                this.heads = Arrays.copyOf(this.heads, length);
+                this.capacities = Arrays.copyOf(this.capacities, length);
+            }
+            this.tails[this.arcCount] = tail;
+            this.heads[this.arcCount] = head;
+            this.capacities[this.arcCount++] = capacity;
+            this.tails[this.arcCount] = head;
+            this.heads[this.arcCount] = tail;
+            this.capacities[this.arcCount++] = 0;
+        }
+
+        /**
+         * Dinic's algorithm from begin to end, stopping once the flow reaches
+         * the limit.
+         */
+        private int maximumFlow(final int begin, final int end, final int limit) {
+            if (this.splitNodes)
+                this.setTerminals(begin, end, UNLIMITED, 1);
+            Arrays.fill(this.flows, 0);
+            int total = 0;
+            while ((total < limit) && this.buildLevels(begin, end)) {
+                System.arraycopy(this.offsets, 0, this.cursors, 0,
+                        this.vertexCount);
+                while ((total < limit) && this.augment(begin, end))
+                    total++;
+            }
+            if (this.splitNodes)
+                this.setTerminals(begin, end, 1, UNLIMITED);
+            return total;
+        }
+
+        private void setTerminals(final int begin, final int end,
+                                  final int nodeCapacity, final int directCapacity) {
+            this.capacities[2 * begin] = nodeCapacity;
+            this.capacities[2 * end] = nodeCapacity;
+            final TopologyIndex graph = this.index;
+            for (int position = graph.nodeEdgeOffsets[begin]; position < graph.nodeEdgeOffsets[begin + 1]; position++) {
+                final int edge = graph.nodeEdges[position];
+                for (int other = graph.edgeNodeOffsets[edge]; other < graph.edgeNodeOffsets[edge + 1]; other++)
+                    if (graph.edgeNodes[other] == end)
+                        this.capacities[this.edgeArc(edge)] = directCapacity;
+            }
+        }
+
+        private int residual(final int arc) {
+            final int capacity = this.capacities[arc];
+            return (capacity == UNLIMITED ? UNLIMITED : capacity
+                    - this.flows[arc]);
+        }
+
+        private boolean buildLevels(final int source, final int sink) {
+            Arrays.fill(this.levels, -1);
+            int head = 0;
+            int tail = 0;
+            this.queue[tail++] = source;
+            this.levels[source] = 0;
+            while (head < tail) {
+                final int vertex = this.queue[head++];
+                for (int position = this.offsets[vertex]; position < this.offsets[vertex + 1]; position++) {
+                    final int arc = this.arcs[position];
+                    final int next = this.heads[arc];
+                    if ((this.levels[next] < 0) && (this.residual(arc) > 0)) {
+                        this.levels[next] = this.levels[vertex] + 1;
+                        this.queue[tail++] = next;
+                    }
+                }
+            }
+            return this.levels[sink] >= 0;
+        }
+
+        /**
+         * Finds one path through the level graph with an explicit stack and
+         * pushes a single unit along it.
+         */
+        private boolean augment(final int source, final int sink) {
+            final int[] path = this.queue;
+            int depth = 0;
+            int vertex = source;
+            while (true) {
+                if (vertex == sink) {
+                    for (int step = 0; step < depth; step++) {
+                        this.flows[path[step]]++;
+                        this.flows[path[step] ^ 1]--;
+                    }
+                    return true;
+                }
+                boolean advanced = false;
+                while (this.cursors[vertex] < this.offsets[vertex + 1]) {
+                    final int arc = this.arcs[this.cursors[vertex]];
+                    final int next = this.heads[arc];
+                    if ((this.levels[next] == this.levels[vertex] + 1)
+                            && (this.residual(arc) > 0)) {
+                        path[depth++] = arc;
+                        vertex = next;
+                        advanced = true;
+                        break;
+                    }
+                    this.cursors[vertex]++;
+                }
+                if (advanced)
+                    continue;
+                // a dead end is never tried again in this phase
+                this.levels[vertex] = -1;
+                if (depth == 0)
+                    return false;
+                final int arc = path[--depth];
+                vertex = this.heads[arc ^ 1];
+                this.cursors[vertex]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph.tree.mst;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+import syncleus.dann.graph.Edge;
+import syncleus.dann.graph.Graph;
+import syncleus.dann.graph.Weighted;
+
+/**
+ * A parallel implementation of <a
+ * href="http://en.wikipedia.org/wiki/Bor%C5%AFvka's_algorithm"> Boruvka's
+ * minimum spanning tree algorithm</a> working on int indexed edge arrays. In
+ * each round every component picks its lightest outgoing edge, the scan over
+ * the edges running in parallel, and all picked edges are added at once; the
+ * edges left inside a single component are then filtered out, so later
+ * rounds only look at edges that can still be used. There are at most log V
+ * rounds. Ties are broken by edge index, which keeps the result a forest and
+ * makes it independent of the thread count.
+ * <p>
+ * If the given graph is connected it computes the minimum spanning tree,
+ * otherwise it computes the minimum spanning forest. Unweighted edges weigh
+ * 0, as in {@link KruskalMinimumSpanningTreeFinder}, and a hyperedge is
+ * treated as a star of edges from its first node to each of the others.
+ *
+ * @param <N> The node type
+ * @param <E> The type of edge for the given node type
+ */
+public class BoruvkaMinimumSpanningTreeFinder<N, E extends Edge<N>> implements
+        MinimumSpanningTreeFinder<N, E> {
+    private final int threads;
+
+    /**
+     * Creates a finder using one thread per processor.
+     */
+    public BoruvkaMinimumSpanningTreeFinder() {
+        this(0);
+    }
+
+    /**
+     * @param threadCount the number of threads, 0 for one per processor
+     */
+    public BoruvkaMinimumSpanningTreeFinder(final int threadCount) {
+        this.threads = Math.max(1, threadCount > 0 ? threadCount : Runtime
+                .getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Set<E> findMinimumSpanningTree(final Graph<N, E> graph) {
+        if (graph instanceof CompressedBidirectedGraph) {
+            final CompressedBidirectedGraph<N, ?> compressed = (CompressedBidirectedGraph<N, ?>) graph;
+            final Set<E> mstEdges = new HashSet<>();
+            for (final int edge : this.findMinimumSpanningForest(compressed))
+                mstEdges.add((E) compressed.getEdge(edge));
+            return mstEdges;
+        }
+
+        final Map<N, Integer> ids = new HashMap<>(graph.getNodes().size() * 2);
+        graph.getNodes().stream().forEach((node) -> ids.put(node, ids.size()));
+        final List<E> pairEdges = new ArrayList<>(graph.getEdges().size());
+        int[] lefts = new int[graph.getEdges().size()];
+        int[] rights = new int[lefts.length];
+        double[] weights = new double[lefts.length];
+        for (final E edge : graph.getEdges()) {
+            final List<N> endNodes = edge.getNodes();
+            final int first = ids.get(endNodes.get(0));
+            for (int end = 1; end < endNodes.size(); end++) {
+                final int pair = pairEdges.size();
+                if (pair == lefts.length) {
+                    final int capacity = Math.max(4, pair * 2);
+                    lefts = Arrays.copyOf(lefts, capacity);
+                    rights = Arrays.copyOf(rights, capacity);
+                    weights = Arrays.copyOf(weights, capacity);
+                }
+                lefts[pair] = first;
+                rights[pair] = ids.get(endNodes.get(end));
+                weights[pair] = (edge instanceof Weighted ? ((Weighted) edge)
+                        .getWeight() : 0.0);
+                pairEdges.add(edge);
+            }
+        }
+
+        final Set<E> mstEdges = new HashSet<>();
+        for (final int pair : this.findMinimumSpanningForest(ids.size(),
+                lefts, rights, weights, pairEdges.size()))
+            mstEdges.add(pairEdges.get(pair));
+        return mstEdges;
+    }
+
+    /**
+     * @param graph a compressed graph, whose edges are taken as undirected
+     * @return the ids of the edges of a minimum spanning forest, in
+     * increasing order
+     */
+    public int[] findMinimumSpanningForest(
+            final CompressedBidirectedGraph<?, ?> graph) {
+        final int edgeCount = graph.getEdgeCount();
+        final int[] lefts = new int[edgeCount];
+        final int[] rights = new int[edgeCount];
+        final double[] weights = new double[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            lefts[edge] = graph.getEdgeLeft(edge);
+            rights[edge] = graph.getEdgeRight(edge);
+            weights[edge] = graph.getEdgeWeight(edge);
+        }
+        return this.findMinimumSpanningForest(graph.getNodeCount(), lefts,
+                rights, weights, edgeCount);
+    }
+
+    /**
+     * Computes a minimum spanning forest of an undirected graph given as
+     * arrays.
+     *
+     * @param nodeCount the number of nodes
+     * @param lefts one end node of each edge
+     * @param rights the other end node of each edge
+     * @param weights the weight of each edge
+     * @param edgeCount the number of edges, which may be less than the
+     *            length of the arrays
+     * @return the indexes of the edges of a minimum spanning forest, in
+     * increasing order
+     */
+    public int[] findMinimumSpanningForest(final int nodeCount,
+                                           final int[] lefts, final int[] rights, final double[] weights,
+                                           final int edgeCount) {
+        if ((lefts.length < edgeCount) || (rights.length < edgeCount)
+                || (weights.length < edgeCount))
+            throw new IllegalArgumentException(
+                    "lefts, rights and weights must hold edgeCount edges");
+
+        final DisjointSets components = new DisjointSets(nodeCount);
+        final int[] labels = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++)
+            labels[node] = node;
+        final AtomicIntegerArray lightest = new AtomicIntegerArray(nodeCount);
+        final int[] active = new int[edgeCount];
+        int activeCount = 0;
+        for (int edge = 0; edge < edgeCount; edge++)
+            if (lefts[edge] != rights[edge])
+                active[activeCount++] = edge;
+        final int[] forest = new int[Math.max(0, nodeCount - 1)];
+        int forestSize = 0;
+
+        while (activeCount > 0) {
+            for (int node = 0; node < nodeCount; node++)
+                lightest.set(node, -1);
+            this.forEachRange(activeCount, (start, end) -> {
+                for (int index = start; index < end; index++) {
+                    final int edge = active[index];
+                    offer(lightest, labels[lefts[edge]], edge, weights);
+                    offer(lightest, labels[rights[edge]], edge, weights);
+                }
+            });
+
+            for (int component = 0; component < nodeCount; component++) {
+                final int edge = lightest.get(component);
+                if ((edge >= 0) && components.union(lefts[edge], rights[edge]))
+                    forest[forestSize++] = edge;
+            }
+            for (int node = 0; node < nodeCount; node++)
+                labels[node] = components.find(node);
+
+            activeCount = this.filter(active, activeCount, lefts, rights,
+                    labels);
+        }
+
+        final int[] result = Arrays.copyOf(forest, forestSize);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Makes edge the lightest edge of a component if it is lighter than the
+     * current one.
+     */
+    private static void offer(final AtomicIntegerArray lightest,
+                              final int component, final int edge, final double[] weights) {
+        while (true) {
+            final int current = lightest.get(component);
+            if ((current >= 0) && !isLighter(edge, current, weights))
+                return;
+            if (lightest.compareAndSet(component, current, edge))
+                return;
+        }
+    }
+
+    private static boolean isLighter(final int edge, final int other,
+                                     final double[] weights) {
+        final int compared = Double.compare(weights[edge], weights[other]);
+        return (compared < 0) || ((compared == 0) && (edge < other));
+    }
+
+    /**
+     * Removes the edges inside a single component, keeping the others in
+     * order. Each thread compacts a range of its own, then the ranges are
+     * moved together.
+     */
+    private int filter(final int[] active, final int activeCount,
+                       final int[] lefts, final int[] rights, final int[] labels) {
+        final int blocks = Math.max(1, Math.min(this.threads, activeCount));
+        final int[] kept = new int[blocks];
+        final IntStream stream = IntStream.range(0, blocks);
+        (blocks > 1 ? stream.parallel() : stream).forEach(block -> {
+            final int start = (int) ((long) activeCount * block / blocks);
+            final int end = (int) ((long) activeCount * (block + 1) / blocks);
+            int count = 0;
+            for (int index = start; index < end; index++) {
+                final int edge = active[index];
+                if (labels[lefts[edge]] != labels[rights[edge]])
+                    active[start + count++] = edge;
+            }
+            kept[block] = count;
+        });
+        int size = 0;
+        for (int block = 0; block < blocks; block++) {
+            final int start = (int) ((long) activeCount * block / blocks);
+            System.arraycopy(active, start, active, size, kept[block]);
+            size += kept[block];
+        }
+        return size;
+    }
+
+    /**
+     * Work on a contiguous range of indexes.
+     */
+    private interface RangeTask {
+        void run(int start, int end);
+    }
+
+    private void forEachRange(final int count, final RangeTask task) {
+        final int blocks = Math.max(1, Math.min(this.threads, count));
+        final IntStream stream = IntStream.range(0, blocks);
+        (blocks > 1 ? stream.parallel() : stream).forEach(block -> task.run(
+                (int) ((long) count * block / blocks),
+                (int) ((long) count * (block + 1) / blocks)));
+    }
+}
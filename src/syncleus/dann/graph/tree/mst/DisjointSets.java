@@ -0,0 +1,107 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.graph.tree.mst;
+
+/**
+ * A union-find forest over the ints 0 to size - 1, with union by rank and
+ * path compression, so a sequence of operations runs in nearly linear time.
+ * Not thread safe.
+ */
+public class DisjointSets {
+    private final int[] parents;
+    private final byte[] ranks;
+    private int count;
+
+    /**
+     * @param size the number of elements, each starting in a set of its own
+     */
+    public DisjointSets(final int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("size can not be negative");
+        this.parents = new int[size];
+        this.ranks = new byte[size];
+        for (int element = 0; element < size; element++)
+            this.parents[element] = element;
+        this.count = size;
+    }
+
+    /**
+     * @return the number of elements
+     */
+    public int size() {
+        return this.parents.length;
+    }
+
+    /**
+     * @return the number of disjoint sets
+     */
+    public int getSetCount() {
+        return this.count;
+    }
+
+    /**
+     * @param element an element
+     * @return the representative of the set holding the element
+     */
+    public int find(final int element) {
+        int root = element;
+        while (this.parents[root] != root)
+            root = this.parents[root];
+        int current = element;
+        while (this.parents[current] != root) {
+            final int next = this.parents[current];
+            this.parents[current] = root;
+            current = next;
+        }
+        return root;
+    }
+
+    /**
+     * @param first an element
+     * @param second an element
+     * @return true if both elements are in the same set
+     */
+    public boolean isJoined(final int first, final int second) {
+        return this.find(first) == this.find(second);
+    }
+
+    /**
+     * Merges the sets holding two elements.
+     *
+     * @param first an element
+     * @param second an element
+     * @return true if the sets were merged, false if they were already one
+     */
+    public boolean union(final int first, final int second) {
+        int firstRoot = this.find(first);
+        int secondRoot = this.find(second);
+        if (firstRoot == secondRoot)
+            return false;
+        if (this.ranks[firstRoot] < this.ranks[secondRoot]) {
+            final int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        this.parents[secondRoot] = firstRoot;
+        if (this.ranks[firstRoot] == this.ranks[secondRoot])
+            this.ranks[firstRoot]++;
+        this.count--;
+        return true;
+    }
+}
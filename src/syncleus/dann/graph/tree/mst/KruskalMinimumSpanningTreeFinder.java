@@ -19,11 +19,12 @@
 package syncleus.dann.graph.tree.mst;
 
 import java.io.Serializable;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import syncleus.dann.graph.Edge;
 import syncleus.dann.graph.Graph;
@@ -34,8 +35,9 @@ import syncleus.dann.graph.Weighted;
  * href="http://en.wikipedia.org/wiki/Kruskal's_algorithm"> Kruskal's minimum
  * spanning tree algorithm</a>. If the given graph is connected it computes the
  * minimum spanning tree, otherwise it computes the minimum spanning forest. The
- * algorithm runs in time O(E log E). This implementation uses the hashCode and
- * equals method of the vertices.
+ * algorithm runs in time O(E log E), with the components kept in
+ * {@link DisjointSets}. This implementation uses the hashCode and equals
+ * method of the vertices.
  *
  * @param <N> The node type
  * @param <E> The type of edge for the given node type
@@ -45,31 +47,28 @@ public class KruskalMinimumSpanningTreeFinder<N, E extends Edge<N>> implements
         MinimumSpanningTreeFinder<N, E> {
     @Override
     public Set<E> findMinimumSpanningTree(final Graph<N, E> graph) {
-        final Set<Set<N>> componentNodeSets = new HashSet<>();
-        graph.getNodes().stream().forEach((node) -> componentNodeSets.add(Collections.singleton(node)));
-        final Queue<E> edgeQueue = new PriorityQueue<>(
-                graph.getEdges().size(), new WeightComparator<>());
-        edgeQueue.addAll(graph.getEdges());
+        final Map<N, Integer> ids = new HashMap<>(graph.getNodes().size() * 2);
+        graph.getNodes().stream().forEach((node) -> ids.put(node, ids.size()));
+        final DisjointSets components = new DisjointSets(ids.size());
+        // a stable sort, so equal weights keep the order of the edge set
+        final List<E> sortedEdges = new ArrayList<>(graph.getEdges());
+        sortedEdges.sort(new WeightComparator<>());
         final Set<E> mstEdges = new HashSet<>();
-        while (componentNodeSets.size() > 1) {
-            // find all the componentNodeSets which contains one of the end
-            // points
-            // of the next edge
-            final E queuedEdge = edgeQueue.poll();
-            if (queuedEdge == null)
-                return null;
-            final Set<Set<N>> setContainingEndNodes = new HashSet<>();
-            componentNodeSets.stream().forEach((component) -> queuedEdge.getNodes().stream().filter((endNode) -> (component.contains(endNode))).forEach((_item) -> setContainingEndNodes.add(component)));
-            // if more than one set was found then merge them
-            if (setContainingEndNodes.size() > 1) {
-                final Set<N> mergedSet = new HashSet<>();
-                setContainingEndNodes.stream().map((toMerge) -> {
-                    mergedSet.addAll(toMerge);
-                    return toMerge;
-                }).forEach(componentNodeSets::remove);
-                componentNodeSets.add(mergedSet);
-                mstEdges.add(queuedEdge);
+        for (final E edge : sortedEdges) {
+            if (components.getSetCount() <= 1)
+                break;
+            // an edge joins every component holding one of its end points
+            int first = -1;
+            boolean joined = false;
+            for (final N endNode : edge.getNodes()) {
+                final int id = ids.get(endNode);
+                if (first < 0)
+                    first = id;
+                else if (components.union(first, id))
+                    joined = true;
             }
+            if (joined)
+                mstEdges.add(edge);
         }
         return mstEdges;
     }
@@ -28,7 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import syncleus.dann.learn.pattern.algorithms.ArraysAlgos;
+import syncleus.dann.learn.pattern.input.binary_database.BinaryDatabase;
 import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset;
 import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemsets;
 import syncleus.dann.learn.pattern.tools.MemoryLogger;
@@ -83,42 +83,46 @@ public class AlgoApriori {
 	// object to write the output file (if the user wants to write to a file)
 	BufferedWriter writer = null; 
 	
+	// the number of threads counting the support
+	private final int threadCount;
+	
 	/**
-	 * Default constructor
+	 * Default constructor, counting the support with a single thread
 	 */
 	public AlgoApriori() {
-		
+		this(1);
+	}
+
+	/**
+	 * Constructor
+	 * @param threadCount the number of threads counting the support, or 0 for one thread per processor
+	 */
+	public AlgoApriori(int threadCount) {
+		this.threadCount = threadCount;
 	}
 
 	/**
 	 * Method to run the algorithm
 	 * @param minsup  a minimum support value as a percentage
-	 * @param input  the path of an input file
+	 * @param input  the path of an input file, in SPMF format or in the binary format
+	 *               of BinaryDatabase
 	 * @param output the path of an input if the result should be saved to a file. If null,
 	 *               the result will be kept into memory and this
 	 *               method will return the result.
 	 * @throws IOException exception if error while writting or reading the input/output file
 	 */
 	public Itemsets runAlgorithm(double minsup, String input, String output) throws IOException {
-		
-		// if the user want to keep the result into memory
-		if(output == null){
-			writer = null;
-			patterns =  new Itemsets("FREQUENT ITEMSETS");
-	    }else{ // if the user want to save the result to a file
-			patterns = null;
-			writer = new BufferedWriter(new FileWriter(output)); 
+		// a binary database is read from the mapped file instead of being parsed
+		if(BinaryDatabase.isBinaryDatabase(input)){
+			BinaryDatabase binaryDatabase = new BinaryDatabase(input);
+			try {
+				return runAlgorithm(minsup, binaryDatabase, output);
+			} finally {
+				binaryDatabase.close();
+			}
 		}
 		
-		// record the start time
-		startTimestamp = System.currentTimeMillis();
-		
-		// set the number of itemset found to zero
-		itemsetCount = 0;
-		// set the number of candidate found to zero
-		totalCandidateCount = 0;
-		// reset the utility for checking the memory usage
-		MemoryLogger.getInstance().reset();
+		startAlgorithm(output);
 
 		// READ THE INPUT FILE
 		// variable to count the number of transactions
@@ -169,6 +173,79 @@ public class AlgoApriori {
 		// close the input file
 		reader.close();
 		
+		return mineDatabase(minsup, mapItemCount);
+	}
+
+	/**
+	 * Method to run the algorithm on a database in binary format. The transactions
+	 * are decoded from the mapped file and the support of the items is read from the
+	 * file rather than counted.
+	 * @param minsup  a minimum support value as a percentage
+	 * @param input  the database
+	 * @param output the path of an input if the result should be saved to a file. If null,
+	 *               the result will be kept into memory and this
+	 *               method will return the result.
+	 * @throws IOException exception if error while writting the output file
+	 */
+	public Itemsets runAlgorithm(double minsup, BinaryDatabase input, String output) throws IOException {
+		if(input.isSequenceDatabase()){
+			throw new IllegalArgumentException("Apriori needs a transaction database");
+		}
+		startAlgorithm(output);
+
+		// load the transactions into memory
+		databaseSize = input.size();
+		database = new ArrayList<int[]>(databaseSize);
+		for(int i = 0; i < databaseSize; i++){
+			database.add(input.get(i));
+		}
+		// Map to store the support of each item
+		// Key: item  Value : support
+		Map<Integer, Integer> mapItemCount = new HashMap<Integer, Integer>();
+		int[] supports = input.getItemSupports();
+		for(int item = 0; item < supports.length; item++){
+			if(supports[item] > 0){
+				mapItemCount.put(item, supports[item]);
+			}
+		}
+		
+		return mineDatabase(minsup, mapItemCount);
+	}
+
+	/**
+	 * Prepare the output and the statistics before the database is read.
+	 * @param output the path of the output file, or null to keep the result into memory
+	 * @throws IOException exception if error while creating the output file
+	 */
+	private void startAlgorithm(String output) throws IOException {
+		// if the user want to keep the result into memory
+		if(output == null){
+			writer = null;
+			patterns =  new Itemsets("FREQUENT ITEMSETS");
+	    }else{ // if the user want to save the result to a file
+			patterns = null;
+			writer = new BufferedWriter(new FileWriter(output)); 
+		}
+		
+		// record the start time
+		startTimestamp = System.currentTimeMillis();
+		
+		// set the number of itemset found to zero
+		itemsetCount = 0;
+		// set the number of candidate found to zero
+		totalCandidateCount = 0;
+		// reset the utility for checking the memory usage
+		MemoryLogger.getInstance().reset();
+	}
+
+	/**
+	 * Mine the database once it has been loaded into memory.
+	 * @param minsup  a minimum support value as a percentage
+	 * @param mapItemCount the support of each item (key: item, value: support)
+	 * @return the result if no output file path was provided
+	 * @throws IOException exception if error while writting the output file
+	 */
+	private Itemsets mineDatabase(double minsup, Map<Integer, Integer> mapItemCount) throws IOException {
 		// conver the minimum support as a percentage to a 
 		// relative minimum support as an integer
 		this.minsupRelative = (int) Math.ceil(minsup * databaseSize);
@@ -211,6 +288,10 @@ public class AlgoApriori {
 		// starting from size k = 2.
 		// The loop will stop when no candidates can be generated.
 		List<Itemset> level = null;
+		// the transactions are kept in memory in the form used to count the support
+		AprioriSupportCounter counter = new AprioriSupportCounter(database, frequent1, threadCount);
+		database = null;
+		
 		k = 2;
 		do{
 			// we check the memory usage
@@ -232,42 +313,7 @@ public class AlgoApriori {
 
 			// We scan the database one time to calculate the support
 			// of each candidates and keep those with higher suport.
-			// For each transaction:
-			for(int[] transaction: database){
-				// NEW OPTIMIZATION 2013: Skip transactions shorter than k!
-				if(transaction.length < k) {
-//					System.out.println("test");
-					continue;
-				}
-				// END OF NEW OPTIMIZATION
-				
-				// for each candidate:
-	 loopCand:	for(Itemset candidate : candidatesK){
-		 			// a variable that will be use to check if 
-		 			// all items of candidate are in this transaction
-					int pos = 0;
-					// for each item in this transaction
-					for(int item: transaction){
-						// if the item correspond to the current item of candidate
-						if(item == candidate.itemset[pos]){
-							// we will try to find the next item of candidate next
-							pos++;
-							// if we found all items of candidate in this transaction
-							if(pos == candidate.itemset.length){
-								// we increase the support of this candidate
-								candidate.support++;
-								continue loopCand;
-							}
-					    // Because of lexical order, we don't need to 
-						// continue scanning the transaction if the current item
-						// is larger than the one that we search  in candidate.
-						}else if(item > candidate.itemset[pos]){
-							continue loopCand;
-						}
-						
-					}
-				}
-			}
+			counter.countSupport(candidatesK);
 
 			// We build the level k+1 with all the candidates that have
 			// a support higher than the minsup threshold.
@@ -284,6 +330,7 @@ public class AlgoApriori {
 			// we will generate larger itemsets next.
 			k++;
 		}while(level.isEmpty() == false);
+		counter.close();
 
 		// record end time
 		endTimestamp = System.currentTimeMillis();
@@ -334,95 +381,7 @@ public class AlgoApriori {
 	 * @return itemsets of size k
 	 */
 	protected List<Itemset> generateCandidateSizeK(List<Itemset> levelK_1) {
-		// create a variable to store candidates
-		List<Itemset> candidates = new ArrayList<Itemset>();
-
-		// For each itemset I1 and I2 of level k-1
-		loop1: for (int i = 0; i < levelK_1.size(); i++) {
-			int[] itemset1 = levelK_1.get(i).itemset;
-			loop2: for (int j = i + 1; j < levelK_1.size(); j++) {
-				int[] itemset2 = levelK_1.get(j).itemset;
-
-				// we compare items of itemset1 and itemset2.
-				// If they have all the same k-1 items and the last item of
-				// itemset1 is smaller than
-				// the last item of itemset2, we will combine them to generate a
-				// candidate
-				for (int k = 0; k < itemset1.length; k++) {
-					// if they are the last items
-					if (k == itemset1.length - 1) {
-						// the one from itemset1 should be smaller (lexical
-						// order)
-						// and different from the one of itemset2
-						if (itemset1[k] >= itemset2[k]) {
-							continue loop1;
-						}
-					}
-					// if they are not the last items, and
-					else if (itemset1[k] < itemset2[k]) {
-						continue loop2; // we continue searching
-					} else if (itemset1[k] > itemset2[k]) {
-						continue loop1; // we stop searching: because of lexical
-										// order
-					}
-				}
-
-				// Create a new candidate by combining itemset1 and itemset2
-				int newItemset[] = new int[itemset1.length+1];
-				System.arraycopy(itemset1, 0, newItemset, 0, itemset1.length);
-				newItemset[itemset1.length] = itemset2[itemset2.length -1];
-
-				// The candidate is tested to see if its subsets of size k-1 are
-				// included in
-				// level k-1 (they are frequent).
-				if (allSubsetsOfSizeK_1AreFrequent(newItemset, levelK_1)) {
-					candidates.add(new Itemset(newItemset));
-				}
-			}
-		}
-		return candidates; // return the set of candidates
-	}
-
-	/**
-	 * Method to check if all the subsets of size k-1 of a candidate of size k are freuqnet
-	 * @param candidate a candidate itemset of size k
-	 * @param levelK_1  the frequent itemsets of size k-1
-	 * @return true if all the subsets are frequet
-	 */
-	protected boolean allSubsetsOfSizeK_1AreFrequent(int[] candidate, List<Itemset> levelK_1) {
-		// generate all subsets by always each item from the candidate, one by one
-		for(int posRemoved=0; posRemoved< candidate.length; posRemoved++){
-
-			// perform a binary search to check if  the subset appears in  level k-1.
-	        int first = 0;
-	        int last = levelK_1.size() - 1;
-	       
-	        // variable to remember if we found the subset
-	        boolean found = false;
-	        // the binary search
-	        while( first <= last )
-	        {
-	        	int middle = ( first + last ) >>1 ; // >>1 means to divide by 2
-
-	        	int comparison = ArraysAlgos.sameAs(levelK_1.get(middle).getItems(), candidate, posRemoved);
-	            if(comparison < 0 ){
-	            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-	            }
-	            else if(comparison  > 0 ){
-	            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-	            }
-	            else{
-	            	found = true; //  we have found it so we stop
-	                break;
-	            }
-	        }
-
-			if(found == false){  // if we did not find it, that means that candidate is not a frequent itemset because
-				// at least one of its subsets does not appear in level k-1.
-				return false;
-			}
-		}
-		return true;
+		return AprioriSupportCounter.generateCandidateSizeK(levelK_1);
 	}
 
 	 void saveItemset(Itemset itemset) throws IOException {
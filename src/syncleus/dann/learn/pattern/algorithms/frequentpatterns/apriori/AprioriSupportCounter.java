@@ -0,0 +1,390 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.apriori;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import syncleus.dann.learn.pattern.algorithms.ArraysAlgos;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset;
+import syncleus.dann.learn.pattern.tools.WorkerThreads;
+
+/**
+ * This class generates the candidates of the Apriori algorithm and counts their
+ * support. It is shared by AlgoApriori and by the AprioriClose, AprioriRare
+ * and AprioriInverse algorithms.
+ * <br/><br/>
+ * 
+ * The database is kept in memory as arrays of int. Each transaction is sorted
+ * in lexical order, without duplicates and without the items that are not
+ * frequent, because they cannot appear in a candidate.
+ * <br/><br/>
+ * 
+ * The candidates of a level are stored in a prefix tree (trie) where the
+ * children of each node are contiguous and sorted. The support of the candidates
+ * is counted by walking each transaction and the trie together, like a merge of
+ * two sorted lists. So a transaction is only compared with the candidates
+ * sharing a prefix with it, not with every candidate.
+ * <br/><br/>
+ * 
+ * The transactions can be divided between several threads. Each thread takes
+ * blocks of transactions and counts into its own array. The arrays are added
+ * together at the end of each level, so the supports do not depend on the
+ * number of threads.
+ *
+ * @see AlgoApriori
+ */
+public class AprioriSupportCounter {
+
+	/** the number of transactions taken at once by a thread */
+	private static final int BLOCK_SIZE = 256;
+
+	// the transactions, sorted and without the items that are not frequent
+	private final int[][] transactions;
+	// the number of threads
+	private final int threads;
+	// the threads counting the support, or null if there is only one
+	private final ExecutorService executor;
+
+	// the trie of the candidates of the current level.
+	// Node 0 is the root. The children of a node are contiguous, in lexical order.
+	// the item of each node
+	private int[] nodeItems = new int[64];
+	// the first child of each node
+	private int[] firstChilds = new int[64];
+	// the number of children of each node
+	private int[] childCounts = new int[64];
+	// the number of nodes
+	private int nodeCount;
+	// the index of the candidate of each leaf is firstChilds[leaf]
+	// the size of the candidates
+	private int k;
+
+	/**
+	 * Constructor
+	 * @param database the transactions, with their items in lexical order
+	 * @param frequentItems the frequent items, in lexical order
+	 * @param threadCount the number of threads, or 0 for one thread per processor
+	 */
+	public AprioriSupportCounter(List<int[]> database, List<Integer> frequentItems, int threadCount) {
+		threads = Math.max(1, threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+		
+		int[] frequent = new int[frequentItems.size()];
+		for(int i = 0; i < frequent.length; i++){
+			frequent[i] = frequentItems.get(i);
+		}
+		// keep the transactions containing at least two frequent items
+		List<int[]> kept = new ArrayList<int[]>(database.size());
+		int[] buffer = new int[16];
+		for(int[] transaction : database){
+			if(transaction.length > buffer.length){
+				buffer = new int[transaction.length];
+			}
+			int length = 0;
+			for(int item : transaction){
+				if(Arrays.binarySearch(frequent, item) >= 0){
+					buffer[length++] = item;
+				}
+			}
+			Arrays.sort(buffer, 0, length);
+			int distinct = 0;
+			for(int i = 0; i < length; i++){
+				if(distinct == 0 || buffer[distinct - 1] != buffer[i]){
+					buffer[distinct++] = buffer[i];
+				}
+			}
+			if(distinct >= 2){
+				kept.add(Arrays.copyOf(buffer, distinct));
+			}
+		}
+		transactions = kept.toArray(new int[kept.size()][]);
+		
+		if(threads > 1){
+			executor = Executors.newFixedThreadPool(threads, WorkerThreads.factory("apriori-support-counter"));
+		}else{
+			executor = null;
+		}
+	}
+
+	/**
+	 * Count the support of candidates of the same size and store it in the candidates.
+	 * @param candidates the candidates, in lexical order
+	 */
+	public void countSupport(List<Itemset> candidates) {
+		if(candidates.isEmpty()){
+			return;
+		}
+		buildTrie(candidates);
+		final int candidateCount = candidates.size();
+		int[] supports;
+		if(executor == null){
+			supports = new int[candidateCount];
+			for(int[] transaction : transactions){
+				count(transaction, supports);
+			}
+		}else{
+			// each thread takes blocks of transactions until there is no more
+			final AtomicInteger nextBlock = new AtomicInteger();
+			List<Callable<int[]>> workers = new ArrayList<Callable<int[]>>(threads);
+			for(int i = 0; i < threads; i++){
+				workers.add(new Callable<int[]>() {
+					public int[] call() {
+						int[] counts = new int[candidateCount];
+						int start;
+						while((start = nextBlock.getAndAdd(BLOCK_SIZE)) < transactions.length){
+							int end = Math.min(start + BLOCK_SIZE, transactions.length);
+							for(int t = start; t < end; t++){
+								count(transactions[t], counts);
+							}
+						}
+						return counts;
+					}
+				});
+			}
+			supports = null;
+			try {
+				for(Future<int[]> future : executor.invokeAll(workers)){
+					int[] counts = future.get();
+					if(supports == null){
+						supports = counts;
+					}else{
+						for(int i = 0; i < candidateCount; i++){
+							supports[i] += counts[i];
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("interrupted while counting the support", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("error while counting the support", e.getCause());
+			}
+		}
+		for(int i = 0; i < candidateCount; i++){
+			candidates.get(i).support = supports[i];
+		}
+	}
+
+	/**
+	 * Build the trie of candidates of the same size.
+	 * @param candidates the candidates, in lexical order
+	 */
+	private void buildTrie(List<Itemset> candidates) {
+		k = candidates.get(0).size();
+		// the first and last candidate (exclusive) having the prefix of each node
+		int[] firsts = new int[64];
+		int[] lasts = new int[64];
+		nodeCount = 1;
+		firsts[0] = 0;
+		lasts[0] = candidates.size();
+		// the nodes are created level by level, so that the children
+		// of each node are contiguous
+		int levelStart = 0;
+		int levelEnd = 1;
+		for(int depth = 0; depth < k; depth++){
+			for(int node = levelStart; node < levelEnd; node++){
+				firstChilds[node] = nodeCount;
+				childCounts[node] = 0;
+				int i = firsts[node];
+				while(i < lasts[node]){
+					int item = candidates.get(i).itemset[depth];
+					int j = i + 1;
+					while(j < lasts[node] && candidates.get(j).itemset[depth] == item){
+						j++;
+					}
+					if(nodeCount == nodeItems.length){
+						int length = nodeCount * 2;
+						nodeItems = Arrays.copyOf(nodeItems, length);
+						firstChilds = Arrays.copyOf(firstChilds, length);
+						childCounts = Arrays.copyOf(childCounts, length);
+					}
+					if(nodeCount == firsts.length){
+						firsts = Arrays.copyOf(firsts, nodeCount * 2);
+						lasts = Arrays.copyOf(lasts, nodeCount * 2);
+					}
+					nodeItems[nodeCount] = item;
+					firsts[nodeCount] = i;
+					lasts[nodeCount] = j;
+					nodeCount++;
+					childCounts[node]++;
+					i = j;
+				}
+			}
+			levelStart = levelEnd;
+			levelEnd = nodeCount;
+		}
+		// a leaf has a single candidate, since the candidates are distinct
+		for(int leaf = levelStart; leaf < levelEnd; leaf++){
+			firstChilds[leaf] = firsts[leaf];
+			childCounts[leaf] = 0;
+		}
+	}
+
+	/**
+	 * Increase the support of the candidates contained in a transaction.
+	 * @param transaction the transaction
+	 * @param supports the support of each candidate
+	 */
+	private void count(int[] transaction, int[] supports) {
+		if(transaction.length >= k){
+			count(transaction, 0, 0, 0, supports);
+		}
+	}
+
+	/**
+	 * Increase the support of the candidates below a node of the trie that are
+	 * contained in a transaction.
+	 * @param transaction the transaction
+	 * @param position the first position of the transaction to consider
+	 * @param node the node, whose prefix has been found before this position
+	 * @param depth the depth of the node
+	 * @param supports the support of each candidate
+	 */
+	private void count(int[] transaction, int position, int node, int depth, int[] supports) {
+		int child = firstChilds[node];
+		int lastChild = child + childCounts[node];
+		// the item of a child must leave enough items for the rest of the candidate
+		int lastPosition = transaction.length - (k - depth - 1);
+		// merge the sorted children with the sorted transaction
+		while(child < lastChild && position < lastPosition){
+			int item = transaction[position];
+			int childItem = nodeItems[child];
+			if(item < childItem){
+				position++;
+			}else if(item > childItem){
+				child++;
+			}else{
+				position++;
+				if(depth == k - 1){
+					supports[firstChilds[child]]++;
+				}else{
+					count(transaction, position, child, depth + 1, supports);
+				}
+				child++;
+			}
+		}
+	}
+
+	/**
+	 * Method to generate itemsets of size k from frequent itemsets of size K-1.
+	 * Two itemsets are combined if they have the same k-2 first items. Since the
+	 * itemsets are in lexical order, such itemsets are next to each other.
+	 * @param levelK_1  frequent itemsets of size k-1, in lexical order
+	 * @return itemsets of size k, in lexical order
+	 */
+	public static List<Itemset> generateCandidateSizeK(List<Itemset> levelK_1) {
+		// create a variable to store candidates
+		List<Itemset> candidates = new ArrayList<Itemset>();
+
+		// For each itemset I1 and I2 of level k-1
+		for (int i = 0; i < levelK_1.size(); i++) {
+			int[] itemset1 = levelK_1.get(i).itemset;
+			loop2: for (int j = i + 1; j < levelK_1.size(); j++) {
+				int[] itemset2 = levelK_1.get(j).itemset;
+
+				// if the itemsets do not have the same k-2 first items,
+				// the following itemsets do not have them either
+				for (int k = 0; k < itemset1.length - 1; k++) {
+					if (itemset1[k] != itemset2[k]) {
+						break loop2;
+					}
+				}
+
+				// Create a new candidate by combining itemset1 and itemset2
+				int newItemset[] = new int[itemset1.length+1];
+				System.arraycopy(itemset1, 0, newItemset, 0, itemset1.length);
+				newItemset[itemset1.length] = itemset2[itemset2.length -1];
+
+				// The candidate is tested to see if its subsets of size k-1 are
+				// included in level k-1 (they are frequent).
+				if (allSubsetsOfSizeK_1AreFrequent(newItemset, levelK_1)) {
+					candidates.add(new Itemset(newItemset));
+				}
+			}
+		}
+		return candidates; // return the set of candidates
+	}
+
+	/**
+	 * Method to check if all the subsets of size k-1 of a candidate of size k are frequent.
+	 * The two subsets obtained by removing one of the two last items are the itemsets
+	 * that were combined, so they are not checked.
+	 * @param candidate a candidate itemset of size k
+	 * @param levelK_1  the frequent itemsets of size k-1, in lexical order
+	 * @return true if all the subsets are frequent
+	 */
+	static boolean allSubsetsOfSizeK_1AreFrequent(int[] candidate, List<Itemset> levelK_1) {
+		// generate all subsets by always each item from the candidate, one by one
+		for(int posRemoved=0; posRemoved< candidate.length - 2; posRemoved++){
+
+			// perform a binary search to check if  the subset appears in  level k-1.
+	        int first = 0;
+	        int last = levelK_1.size() - 1;
+	       
+	        // variable to remember if we found the subset
+	        boolean found = false;
+	        // the binary search
+	        while( first <= last )
+	        {
+	        	int middle = ( first + last ) >>1 ; // >>1 means to divide by 2
+
+	        	int comparison = ArraysAlgos.sameAs(levelK_1.get(middle).getItems(), candidate, posRemoved);
+	            if(comparison < 0 ){
+	            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
+	            }
+	            else if(comparison  > 0 ){
+	            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
+	            }
+	            else{
+	            	found = true; //  we have found it so we stop
+	                break;
+	            }
+	        }
+
+			if(found == false){  // if we did not find it, that means that candidate is not a frequent itemset because
+				// at least one of its subsets does not appear in level k-1.
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the number of transactions kept in memory, that is having at least
+	 * two frequent items.
+	 * @return the number of transactions
+	 */
+	public int getTransactionCount() {
+		return transactions.length;
+	}
+
+	/**
+	 * Stop the threads counting the support.
+	 */
+	public void close() {
+		if(executor != null){
+			executor.shutdown();
+		}
+	}
+}
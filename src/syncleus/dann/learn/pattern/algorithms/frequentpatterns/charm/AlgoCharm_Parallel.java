@@ -0,0 +1,728 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.charm;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import syncleus.dann.learn.pattern.algorithms.ArraysAlgos;
+import syncleus.dann.learn.pattern.datastructures.compressedbitmap.CompressedBitmap;
+import syncleus.dann.learn.pattern.datastructures.triangularmatrix.TriangularMatrix;
+import syncleus.dann.learn.pattern.input.transaction_database_list_integers.TransactionDatabase;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_tids_bitset.Itemset;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_tids_bitset.Itemsets;
+import syncleus.dann.learn.pattern.tools.MemoryLogger;
+import syncleus.dann.learn.pattern.tools.WorkerThreads;
+ 
+/**
+ * This is a parallel implementation of the CHARM algorithm that uses compressed bitmaps
+ * to represent tidsets, finding the same closed itemsets as AlgoCharm_Bitset.
+ * <br/><br/>
+ * 
+ * Tidsets are stored as CompressedBitmap, which takes 2 bytes per transaction in sparse
+ * parts of the database instead of a bit for every transaction.
+ * <br/><br/>
+ * 
+ * The equivalence classes of single items, and the large equivalence classes found
+ * below them, are mined by separate tasks of a fork/join pool. Idle threads steal
+ * tasks from the others. Because the items are sorted by increasing support, the only
+ * Charm property removing an item from the classes of the next items is the first one
+ * (same tidset). The items removed this way are found before the tasks start, so each
+ * task builds the same equivalence class as the sequential algorithm.
+ * <br/><br/>
+ * 
+ * In the sequential algorithm, an itemset is closed if no itemset saved before it is
+ * a superset with the same support. This depends on the order of the tasks, so each task
+ * only removes the itemsets that are not closed according to the itemsets that it
+ * found itself. The itemsets of all tasks are then checked again from the largest to
+ * the smallest, in a hash table as in AlgoCharm_Bitset.
+ * 
+ * @see CompressedBitmap
+ * @see AlgoCharm_Bitset
+ * @see HashTable
+ */
+public class AlgoCharm_Parallel {
+
+	/** an equivalence class with at least this number of itemsets is mined by a new task */
+	private static final int FORK_SIZE = 8;
+	/** the maximum size of the hash table of a task */
+	private static final int TASK_HASH_TABLE_SIZE = 1024;
+
+	/** relative minimum support **/
+	private int minsupRelative;  
+	/** the transaction database **/
+	protected TransactionDatabase database; 
+
+	/**  start time of the last execution */
+	protected long startTimestamp;
+	/** end  time of the last execution */
+	protected long endTime; 
+	
+	/** 
+	 The  patterns that are found 
+	 (if the user want to keep them into memory) */
+	protected Itemsets closedItemsets;
+	/** object to write the output file */
+	BufferedWriter writer = null; 
+	/** the number of patterns found */
+	protected int itemsetCount; 
+	/** the number of itemsets found by the tasks, before the final check */
+	protected int candidateCount;
+	
+	/** For optimization with a triangular matrix for counting 
+	/ itemsets of size 2.  */
+	private TriangularMatrix matrix; // the triangular matrix
+
+	/** the size of the hash table for the final closeness checking */
+	private int hashTableSize;
+	/** the itemsets found by the tasks */
+	private Queue<List<Candidate>> candidates;
+	/** the number of threads */
+	private final int threads;
+
+	/**
+	 * Default constructor, using one thread per processor.
+	 */
+	public AlgoCharm_Parallel() {
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 * @param threadCount the number of threads, or 0 for one thread per processor
+	 */
+	public AlgoCharm_Parallel(int threadCount) {
+		threads = Math.max(1, threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Run the algorithm and save the output to a file or keep it into memory.
+	 * @param database a transaction database
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsup the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @param hashTableSize the size of the hashtable (e.g. 10,000).
+	 * @return the set of closed itemsets found if the result is kept into memory or null otherwise.
+	 * @throws IOException exception if error while writing the file.
+	 */
+	public Itemsets runAlgorithm(String output, TransactionDatabase database, double minsup,
+			boolean useTriangularMatrixOptimization, int hashTableSize) throws IOException {
+
+		// Reset the tool to assess the maximum memory usage (for statistics)
+		MemoryLogger.getInstance().reset();
+		
+		// if the user want to keep the result into memory
+		if(output == null){
+			writer = null;
+			closedItemsets =  new Itemsets("FREQUENT CLOSED ITEMSETS");
+	    }else{ // if the user want to save the result to a file
+	    	closedItemsets = null;
+			writer = new BufferedWriter(new FileWriter(output)); 
+		}
+		
+		this.hashTableSize = hashTableSize;
+		this.candidates = new ConcurrentLinkedQueue<List<Candidate>>();
+
+		// reset the number of itemset found to 0
+		itemsetCount = 0;
+		candidateCount = 0;
+
+		this.database = database;
+		
+		// record the start time
+		startTimestamp = System.currentTimeMillis();
+		
+		// convert from an absolute minsup to a relative minsup by multiplying
+		// by the database size
+		this.minsupRelative = (int) Math.ceil(minsup * database.size());
+
+		// (1) First database pass : calculate tidsets of each item.
+		// This map will contain the tidset of each item
+		// Key: item   Value :  tidset
+		final Map<Integer, CompressedBitmap> mapItemTIDS = new HashMap<Integer, CompressedBitmap>();
+		int maxItemId = calculateSupportSingleItems(database, mapItemTIDS);
+
+		// If the user chose to use the triangular matrix optimization
+		// for counting the support of itemsets of size 2.
+		matrix = null;
+		if (useTriangularMatrixOptimization) {
+			// We create the triangular matrix.
+			matrix = new TriangularMatrix(maxItemId + 1);
+			// for each transaction, take each itemset of size 2,
+			// and update the triangular matrix.
+			for (List<Integer> itemset : database.getTransactions()) {
+				Object[] array = itemset.toArray();
+				// for each item i in the transaction
+				for (int i = 0; i < itemset.size(); i++) {
+					Integer itemI = (Integer) array[i];
+					// compare with each other item j in the same transaction
+					for (int j = i + 1; j < itemset.size(); j++) {
+						Integer itemJ = (Integer) array[j];
+						// update the matrix count by 1 for the pair i, j
+						matrix.incrementCount(itemI, itemJ);
+					}
+				}
+			}
+		}
+
+		// (2) create the list of single items
+		List<Integer> frequentItems = new ArrayList<Integer>();
+		
+		// for each item
+		for(Entry<Integer, CompressedBitmap> entry : mapItemTIDS.entrySet()) {
+			// if the item is frequent
+			if(entry.getValue().getCardinality() >= minsupRelative) {
+				// add the item to the list of frequent items
+				frequentItems.add(entry.getKey());
+			}
+		}
+		
+		// Sort the list of items by the total order of increasing support.
+		// This total order is suggested in the article by Zaki.
+		Collections.sort(frequentItems, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer arg0, Integer arg1) {
+				int compare = mapItemTIDS.get(arg0).getCardinality() - mapItemTIDS.get(arg1).getCardinality();
+				return compare != 0 ? compare : arg0 - arg1; 
+			}}); 
+		
+		final int[] items = new int[frequentItems.size()];
+		final CompressedBitmap[] tidsets = new CompressedBitmap[items.length];
+		for(int i = 0; i < items.length; i++){
+			items[i] = frequentItems.get(i);
+			tidsets[i] = mapItemTIDS.get(items[i]);
+		}
+		mapItemTIDS.clear();
+		
+		// (3) Find the items removed by the property 1 of Charm when the items before them
+		// are processed. An item X can only remove an item J having the same support,
+		// since J has a support greater or equal to X.
+		final int[] removedBy = new int[items.length];
+		Arrays.fill(removedBy, Integer.MAX_VALUE);
+		for(int i = 0; i < items.length; i++) {
+			if(removedBy[i] != Integer.MAX_VALUE) {
+				continue;
+			}
+			int supportI = tidsets[i].getCardinality();
+			for(int j = i + 1; j < items.length && tidsets[j].getCardinality() == supportI; j++) {
+				if(removedBy[j] != Integer.MAX_VALUE) {
+					continue;
+				}
+				int supportIJ = matrix != null ? matrix.getSupportForItems(items[i], items[j]) 
+						: CompressedBitmap.andCardinality(tidsets[i], tidsets[j]);
+				if(supportIJ >= minsupRelative && supportIJ == supportI) {
+					removedBy[j] = i;
+				}
+			}
+		}
+		
+		// (4) the equivalence class of each single item is mined by a task
+		ForkJoinPool pool = WorkerThreads.newForkJoinPool(threads);
+		try {
+			pool.invoke(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					List<ItemTask> tasks = new ArrayList<ItemTask>(items.length);
+					for(int i = 0; i < items.length; i++){
+						if(removedBy[i] == Integer.MAX_VALUE){
+							tasks.add(new ItemTask(items, tidsets, removedBy, i));
+						}
+					}
+					invokeAll(tasks);
+				}
+			});
+		} finally {
+			pool.shutdown();
+		}
+		matrix = null;
+		
+		// (5) Save the closed itemsets
+		try {
+			saveClosedItemsets();
+		} finally {
+			candidates = null;
+			// close the output file if the result was saved to a file
+			if(writer != null){
+				writer.close();
+			}
+		}
+		
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+		
+		// record the end time for statistics
+		endTime = System.currentTimeMillis();
+		
+		// Return all frequent itemsets found!
+		return closedItemsets; 
+	}
+
+	/**
+	 * This method scans the database to calculate the tidset of each single item
+	 * @param database the transaction database
+	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
+	 * @return the maximum item id appearing in this database
+	 */
+	private int calculateSupportSingleItems(TransactionDatabase database,
+			final Map<Integer, CompressedBitmap> mapItemTIDS) {
+		int maxItemId = 0;
+		for (int i = 0; i < database.size(); i++) {
+			// For each item
+			for (Integer item : database.getTransactions().get(i)) {
+				// Get the current tidset of that item
+				CompressedBitmap tids = mapItemTIDS.get(item);
+				// If no tidset, then we create one
+				if(tids == null){
+					tids = new CompressedBitmap();
+					mapItemTIDS.put(item, tids);
+					// we remember the largest item seen until now
+					if (item > maxItemId) {
+						maxItemId = item;
+					}
+				}
+				// we add the current transaction id to the tidset of the item
+				// (the transactions are read in increasing order of id)
+				tids.add(i);
+			}
+		}
+		for(CompressedBitmap tids : mapItemTIDS.values()){
+			tids.trim();
+		}
+		return maxItemId;
+	}
+
+	/**
+	 * The task creating and mining the equivalence class of a single item.
+	 */
+	private final class ItemTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// the frequent items in the total order
+		private final int[] items;
+		// their tidsets
+		private final CompressedBitmap[] tidsets;
+		// the position of the item removing each item, or Integer.MAX_VALUE
+		private final int[] removedBy;
+		// the position of the item of this task
+		private final int i;
+
+		/**
+		 * Constructor
+		 * @param items the frequent items in the total order
+		 * @param tidsets their tidsets
+		 * @param removedBy the position of the item removing each item, or Integer.MAX_VALUE
+		 * @param i the position of the item of this task
+		 */
+		ItemTask(int[] items, CompressedBitmap[] tidsets, int[] removedBy, int i) {
+			this.items = items;
+			this.tidsets = tidsets;
+			this.removedBy = removedBy;
+			this.i = i;
+		}
+
+		@Override
+		protected void compute() {
+			Candidates found = new Candidates();
+			int itemX = items[i];
+			// We obtain the tidset of that item X
+			CompressedBitmap tidsetX = tidsets[i];
+			// We create an itemset with the item X.
+			int[] itemsetX = new int[] {itemX};
+			
+			// We create an empty equivalence class for storing all itemsets obtained by joining
+			// X with other itemsets.
+			List<int[]> equivalenceClassIitemsets = new ArrayList<int[]>();
+			List<CompressedBitmap> equivalenceClassItidsets = new ArrayList<CompressedBitmap>();
+			
+			// For each item itemJ that is larger than i according to the total order of
+			// increasing support and which was not removed by an item before X.
+			for(int j = i + 1; j < items.length; j++) {
+				if(removedBy[j] < i) {
+					continue;
+				}
+				int itemJ = items[j];
+				CompressedBitmap tidsetJ = tidsets[j];
+				
+				// Calculate the tidset of itemset "X" + "J", unless the triangular matrix
+				// shows that it is infrequent
+				if(matrix != null && matrix.getSupportForItems(itemX, itemJ) < minsupRelative) {
+					continue;
+				}
+				CompressedBitmap tidsetUnion = CompressedBitmap.and(tidsetX, tidsetJ);
+				int supportUnion = tidsetUnion.getCardinality();
+				// if the union is infrequent, we don't need to consider it further
+				if(supportUnion < minsupRelative) {
+					continue;
+				}
+				
+				// We next check which of the Charm properties hold. The property 3 cannot
+				// hold since J has a support greater or equal to X.
+				if(supportUnion == tidsetX.getCardinality()) {
+					// If property 1 or 2 holds, we replace X by the union.
+					// (with the property 1, J was also removed for the next items)
+					itemsetX = ArraysAlgos.concatenate(itemsetX, new int[] {itemJ});
+				}else {  
+					// If property 4 holds, we add J to the equivalence class
+					equivalenceClassIitemsets.add(new int[] {itemJ});
+					equivalenceClassItidsets.add(tidsetUnion);
+				}
+			}
+			
+			// Process all itemsets from the equivalence class that we are building, which 
+			// has X as prefix, to find larger itemsets.
+			List<ClassTask> tasks = null;
+			if(equivalenceClassIitemsets.size() > 0) {
+				tasks = processEquivalenceClass(itemsetX, equivalenceClassIitemsets, equivalenceClassItidsets, found);
+			}
+			
+			// Save the itemset X  with its support (can be obtained from its tidset.
+			found.save(null, itemsetX, tidsetX);
+			found.close();
+			joinAll(tasks);
+			// we check the memory usage
+			MemoryLogger.getInstance().checkMemory();
+		}
+	}
+
+	/**
+	 * The task mining a large equivalence class found by another task.
+	 */
+	private final class ClassTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// the prefix of the itemsets of the class
+		private final int[] prefix;
+		// the last items of itemsets of the class
+		private final List<int[]> equivalenceClassItemsets;
+		// the tidsets of itemsets of the class
+		private final List<CompressedBitmap> equivalenceClassTidsets;
+
+		/**
+		 * Constructor
+		 * @param prefix the prefix of the itemsets of the class
+		 * @param equivalenceClassItemsets the last items of itemsets of the class
+		 * @param equivalenceClassTidsets the tidsets of itemsets of the class
+		 */
+		ClassTask(int[] prefix, List<int[]> equivalenceClassItemsets,
+				List<CompressedBitmap> equivalenceClassTidsets) {
+			this.prefix = prefix;
+			this.equivalenceClassItemsets = equivalenceClassItemsets;
+			this.equivalenceClassTidsets = equivalenceClassTidsets;
+		}
+
+		@Override
+		protected void compute() {
+			Candidates found = new Candidates();
+			List<ClassTask> tasks = processEquivalenceClass(prefix, equivalenceClassItemsets, 
+					equivalenceClassTidsets, found);
+			found.close();
+			joinAll(tasks);
+		}
+	}
+
+	/**
+	 * Wait for tasks to finish.
+	 * @param tasks the tasks, or null
+	 */
+	private static void joinAll(List<ClassTask> tasks) {
+		if(tasks != null){
+			for(int t = tasks.size() - 1; t >= 0; t--){
+				tasks.get(t).join();
+			}
+		}
+	}
+	
+	/**
+	 * This method process all itemsets from an equivalence class to generate larger itemsets.
+	 * Large equivalence classes that are generated are mined by new tasks.
+	 * @param prefix  the prefix of all itemsets of the current equivalence class
+	 * @param equivalenceClassItemsets  the list of last items of itemsets of the current equivalence class
+	 * @param equivalenceClassTidsets the list of tidsets of itemsets of the current equivalence class
+	 * @param found the itemsets found by the current task
+	 * @return the tasks created, which have to be joined, or null
+	 */
+	private List<ClassTask> processEquivalenceClass(int[] prefix, List<int[]> equivalenceClassItemsets,
+			List<CompressedBitmap> equivalenceClassTidsets, Candidates found) {
+		List<ClassTask> tasks = null;
+		
+		// For each itemset "prefix" + an itemset X
+		for(int i=0; i < equivalenceClassItemsets.size(); i++) {
+			int[] itemsetX = equivalenceClassItemsets.get(i);
+			// If the itemset X is null, which means that it had been removed
+			if(itemsetX == null) {
+				continue;
+			}
+			// We obtain the tidset of X
+			CompressedBitmap tidsetX = equivalenceClassTidsets.get(i);
+			int supportX = tidsetX.getCardinality();
+			
+			// create the empty equivalence class for storing the equivalence class of 
+			// all itemsets obtained by a join with X.
+			List<int[]> equivalenceClassIitemsets = new ArrayList<int[]>();
+			List<CompressedBitmap> equivalenceClassItidsets = new ArrayList<CompressedBitmap>();
+			
+			// For each itemset "prefix" + an itemset J
+			for(int j=i+1; j < equivalenceClassItemsets.size(); j++) {
+				int[] itemsetJ = equivalenceClassItemsets.get(j);
+				// If J is null, that means that it has been removed by a Charm property,
+				// so we just continue to the next itemset
+				if(itemsetJ == null) {
+					continue;
+				}
+
+				// Get the tidset of J.
+				CompressedBitmap tidsetJ = equivalenceClassTidsets.get(j);
+				int supportJ = tidsetJ.getCardinality();
+				
+				// Calculate the support of prefix + X + J, and if it is infrequent, 
+				// we don't need to consider it anymore
+				int supportUnion = CompressedBitmap.andCardinality(tidsetX, tidsetJ);
+				if(supportUnion < minsupRelative) {
+					continue;
+				}
+				
+				// We next check which of the four Charm properties hold
+				if(supportX == supportJ && supportUnion == supportX) {
+					// If Property 1 holds:
+					// Remove prefix + j
+					equivalenceClassItemsets.set(j, null);
+					equivalenceClassTidsets.set(j, null);
+					// Replace X by X + J
+					itemsetX = ArraysAlgos.concatenate(itemsetX, itemsetJ);
+				}else if(supportX < supportJ && supportUnion == supportX) {
+					// If property 2 holds
+					// Replace X by X + J
+					itemsetX = ArraysAlgos.concatenate(itemsetX, itemsetJ);
+				}else if(supportX > supportJ && supportUnion == supportJ) {
+					// If property 3 holds
+					// Remove prefix + j
+					equivalenceClassItemsets.set(j, null);
+					equivalenceClassTidsets.set(j, null);
+					// Then, we add the itemset prefix + X + J to the equivalence class,
+					// which has the tidset of J
+					equivalenceClassIitemsets.add(itemsetJ);
+					equivalenceClassItidsets.add(tidsetJ);
+				}else {  
+					// If property 4 holds
+					// Then, we add the itemset prefix + X + J to the equivalence class
+					equivalenceClassIitemsets.add(itemsetJ);
+					equivalenceClassItidsets.add(CompressedBitmap.and(tidsetX, tidsetJ));
+				}
+			}
+			
+			// Process all itemsets from the equivalence class that we are building, which 
+			// has prefix+X as prefix, to find larger itemsets.
+			// Note that we only do that if the equivalence class contains at least an itemset
+			if(equivalenceClassIitemsets.size() >= FORK_SIZE) {
+				// a large class is mined by a new task, that another thread can steal
+				int[] newPrefix = ArraysAlgos.concatenate(prefix, itemsetX);
+				ClassTask task = new ClassTask(newPrefix, equivalenceClassIitemsets, equivalenceClassItidsets);
+				task.fork();
+				if(tasks == null){
+					tasks = new ArrayList<ClassTask>();
+				}
+				tasks.add(task);
+			}else if(equivalenceClassIitemsets.size() > 0) {
+				int[] newPrefix = ArraysAlgos.concatenate(prefix, itemsetX);
+				List<ClassTask> newTasks = processEquivalenceClass(newPrefix, equivalenceClassIitemsets, 
+						equivalenceClassItidsets, found);
+				if(newTasks != null){
+					if(tasks == null){
+						tasks = new ArrayList<ClassTask>();
+					}
+					tasks.addAll(newTasks);
+				}
+			}
+			// Finally, we attempt to save the itemset prefix+X since it may be a closed itemset.
+			found.save(prefix, itemsetX, tidsetX);
+		}
+		return tasks;
+	}
+
+	/**
+	 * An itemset found by a task, which may be closed.
+	 */
+	private static final class Candidate {
+		// the itemset with its support
+		final syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset itemset;
+		// the sum of the tids of its tidset
+		final int tidSum;
+		// its tidset, if the result is kept into memory
+		final CompressedBitmap tidset;
+
+		/**
+		 * Constructor
+		 * @param itemset the itemset with its support
+		 * @param tidSum the sum of the tids of its tidset
+		 * @param tidset its tidset, if the result is kept into memory
+		 */
+		Candidate(syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset itemset,
+				int tidSum, CompressedBitmap tidset) {
+			this.itemset = itemset;
+			this.tidSum = tidSum;
+			this.tidset = tidset;
+		}
+	}
+
+	/**
+	 * The itemsets found by a task. An itemset having a superset with the same support
+	 * among the itemsets found before by the same task is not closed, so it is not kept.
+	 */
+	private final class Candidates {
+		// the itemsets
+		final List<Candidate> list = new ArrayList<Candidate>();
+		// the hash table of the itemsets
+		final HashTable hash = new HashTable(Math.min(hashTableSize, TASK_HASH_TABLE_SIZE));
+
+		/**
+		 * Save an itemset(as described in the paper).
+		 * @param prefix the prefix part of this itemset
+		 * @param suffix the suffix part of this itemset
+		 * @param tidset the tidset of this itemset
+		 */
+		void save(int[] prefix, int[] suffix, CompressedBitmap tidset) {
+			// First we concatenate the suffix and prefix of that itemset.
+			int[] prefixSuffix;
+			if(prefix == null) {
+				prefixSuffix = suffix;
+			}else {
+				prefixSuffix = ArraysAlgos.concatenate(prefix, suffix);
+			}
+			// Sort the resulting itemset
+			Arrays.sort(prefixSuffix);
+			
+			syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset itemset = new syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset(prefixSuffix);
+			itemset.setAbsoluteSupport(tidset.getCardinality());
+
+			// Calculate the hash code of that itemset from the sum of its tids
+			int tidSum = 0;
+			for (int tid = tidset.nextSetBit(0); tid >= 0; tid = tidset.nextSetBit(tid+1)) {
+				tidSum += tid;
+			}
+			int hashcode = hash.hashCodeOfSum(tidSum);
+			if (!hash.containsSupersetOf(itemset, hashcode)) {
+				list.add(new Candidate(itemset, tidSum, writer == null ? tidset : null));
+				hash.put(itemset, hashcode);
+			}
+		}
+
+		/**
+		 * Give the itemsets to the algorithm, for the final check.
+		 */
+		void close() {
+			if(!list.isEmpty()){
+				candidates.add(list);
+			}
+		}
+	}
+
+	/**
+	 * Save the itemsets found by the tasks that do not have a superset with the same support.
+	 * The largest itemsets are checked first.
+	 * @throws IOException if an error occurs when writing to file
+	 */
+	private void saveClosedItemsets() throws IOException {
+		List<Candidate> all = new ArrayList<Candidate>();
+		for(List<Candidate> list : candidates){
+			all.addAll(list);
+		}
+		candidates.clear();
+		candidateCount = all.size();
+		// sort by decreasing size, then by lexical order
+		Collections.sort(all, new Comparator<Candidate>() {
+			@Override
+			public int compare(Candidate candidate1, Candidate candidate2) {
+				int[] itemset1 = candidate1.itemset.getItems();
+				int[] itemset2 = candidate2.itemset.getItems();
+				if(itemset1.length != itemset2.length){
+					return itemset2.length - itemset1.length;
+				}
+				for(int i = 0; i < itemset1.length; i++){
+					if(itemset1[i] != itemset2[i]){
+						return itemset1[i] < itemset2[i] ? -1 : 1;
+					}
+				}
+				return 0;
+			}});
+		
+		HashTable hash = new HashTable(hashTableSize);
+		for(Candidate candidate : all){
+			syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset itemset = candidate.itemset;
+			int hashcode = hash.hashCodeOfSum(candidate.tidSum);
+			// If there is no superset with the same support, the itemset is closed
+			if (!hash.containsSupersetOf(itemset, hashcode)) {
+				// increase the itemset count
+				itemsetCount++;
+				// if the result should be saved to memory
+				if (writer == null) {
+					// save it to memory with its tidset
+					Itemset itemsetWithTidset = new Itemset(itemset.getItems(), candidate.tidset, itemset.support);
+					closedItemsets.addItemset(itemsetWithTidset, itemset.size());
+				} else {
+					// otherwise if the result should be saved to a file,
+					// then write it to the output file
+					writer.write(itemset.toString() + " #SUP: " + itemset.support);
+					writer.newLine();
+				}
+				// add the itemset to the hashtable
+				hash.put(itemset, hashcode);
+			}
+		}
+	}
+
+	/**
+	 * Print statistics about the algorithm execution to System.out.
+	 */
+	public void printStats() {
+		System.out.println("=============  CHARM PARALLEL - STATS =============");
+		long temps = endTime - startTimestamp;
+		System.out.println(" Transactions count from database : "
+				+ database.size());
+		System.out.println(" Frequent closed itemsets count : "
+				+ itemsetCount + " (from " + candidateCount + " candidates)");
+		System.out.println(" Threads : " + threads);
+		System.out.println(" Total time ~ " + temps + " ms");
+		System.out.println(" Maximum memory usage : "
+				+ MemoryLogger.getInstance().getMaxMemory() + " mb");
+		System.out
+				.println("===================================================");
+	}
+
+	/**
+	 * Get the set of frequent itemsets.
+	 * @return the frequent itemsets (Itemsets).
+	 */
+	public Itemsets getClosedItemsets() {
+		return closedItemsets;
+	}
+}
@@ -117,6 +117,22 @@ class HashTable {
 		return (hashcode % table.length);
 	}
 	
+	/**
+	 * Calculate the hashcode of an itemset from the sum of the tids of its tidset,
+	 * modulo the internal array length. This gives the same hashcode as the other
+	 * methods when the tidset is no longer available.
+	 * @param tidSum the sum of the tids of the tidset
+	 * @return the hashcode (an integer)
+	 */
+	public int hashCodeOfSum(int tidSum) {
+		// If an integer overflow occurs and the sum is negative,
+		// then we make it positive.
+		if(tidSum < 0){
+			tidSum = 0 - tidSum;
+		}
+		return (tidSum % table.length);
+	}
+	
 	/**
 	 * Calculate the hashcode of an itemset as the sum of the tids of its tidset,
 	 * modulo the internal array length.
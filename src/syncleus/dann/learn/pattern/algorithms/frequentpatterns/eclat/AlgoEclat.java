@@ -231,6 +231,12 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				// the tidsets of I and the tidset of J.
 				Set<Integer> tidsetIJ = performAND(tidsetI, supportI, tidsetJ, supportJ);
 				
+				// if "ij" is infrequent, we don't need to consider it anymore. The
+				// triangular matrix has already checked it if it is used.
+				if(tidsetIJ.size() < minsupRelative) {
+					continue loopJ;
+				}
+				
 				// After that, we add the itemJ to the equivalence class of 2-itemsets
 				// starting with the prefix "i". Note that although we only add "j" to the
 				// equivalence class, the item "j" 
@@ -0,0 +1,642 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.eclat;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import syncleus.dann.learn.pattern.datastructures.compressedbitmap.CompressedBitmap;
+import syncleus.dann.learn.pattern.datastructures.triangularmatrix.TriangularMatrix;
+import syncleus.dann.learn.pattern.input.transaction_database_list_integers.TransactionDatabase;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_tids_bitset.Itemset;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_tids_bitset.Itemsets;
+import syncleus.dann.learn.pattern.tools.MemoryLogger;
+import syncleus.dann.learn.pattern.tools.WorkerThreads;
+ 
+/**
+ * This is a parallel implementation of the ECLAT algorithm that uses compressed bitmaps
+ * to represent tidsets and diffsets, finding the same itemsets as AlgoEclat_Bitset.
+ * <br/><br/>
+ * 
+ * Tidsets and diffsets are stored as CompressedBitmap, which takes 2 bytes per
+ * transaction in sparse parts of the database instead of a bit for every transaction.
+ * <br/><br/>
+ * 
+ * Each equivalence class starts with tidsets. When the equivalence class of an itemset
+ * "prefix + i" is created, the support of its itemsets is calculated first, without
+ * creating their tidsets. If their diffsets (the transactions of "prefix + i" that do not
+ * contain them) are smaller than their tidsets in total, the class and all the classes
+ * below it use diffsets, as in dECLAT (Zaki and Gouda, 2003). This is usually the case
+ * on dense databases, where tidsets are large.
+ * <br/><br/>
+ * 
+ * The equivalence classes of single items, and the large equivalence classes found
+ * below them, are mined by separate tasks of a fork/join pool. Idle threads steal
+ * tasks from the others.
+ * <br/><br/>
+ * 
+ * The itemsets are the same as those of AlgoEclat_Bitset but they are not found in
+ * the same order. If the result is kept into memory, the itemsets are annotated with
+ * their tidsets (not their diffsets) as compressed bitmaps.
+ * 
+ * @see CompressedBitmap
+ * @see AlgoEclat_Bitset
+ * @see AlgoDEclat_Bitset
+ */
+public class AlgoEclat_Parallel {
+
+	/** an equivalence class with at least this number of itemsets is mined by a new task */
+	private static final int FORK_SIZE = 8;
+	/** the number of characters written by a task before it writes them to the file */
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	/** relative minimum support **/
+	private int minsupRelative;  
+	/** the transaction database **/
+	protected TransactionDatabase database; 
+
+	/**  start time of the last execution */
+	protected long startTimestamp;
+	/** end  time of the last execution */
+	protected long endTime; 
+	
+	/** 
+	 The  patterns that are found 
+	 (if the user want to keep them into memory) */
+	protected Itemsets frequentItemsets;
+	/** object to write the output file */
+	BufferedWriter writer = null; 
+	/** the number of patterns found */
+	protected int itemsetCount; 
+	
+	/** For optimization with a triangular matrix for counting 
+	/ itemsets of size 2.  */
+	private TriangularMatrix matrix; // the triangular matrix
+
+	/** the number of threads */
+	private final int threads;
+	/** the number of equivalence classes that used diffsets */
+	private final AtomicInteger diffsetClassCount = new AtomicInteger();
+	/** the number of equivalence classes */
+	private final AtomicInteger classCount = new AtomicInteger();
+
+	/**
+	 * Default constructor, using one thread per processor.
+	 */
+	public AlgoEclat_Parallel() {
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 * @param threadCount the number of threads, or 0 for one thread per processor
+	 */
+	public AlgoEclat_Parallel(int threadCount) {
+		threads = Math.max(1, threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Run the algorithm.
+	 * @param database a transaction database
+	 * @param output an output file path for writing the result or if null the result is saved into memory and returned
+	 * @param minsupp the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization will be applied.
+	 * @return the result
+	 * @throws IOException exception if error while writing the file.
+	 */
+	public Itemsets runAlgorithm(String output, TransactionDatabase database, double minsupp,
+			boolean useTriangularMatrixOptimization) throws IOException {
+
+		// Reset the tool to assess the maximum memory usage (for statistics)
+		MemoryLogger.getInstance().reset();
+		
+		// if the user want to keep the result into memory
+		if(output == null){
+			writer = null;
+			frequentItemsets =  new Itemsets("FREQUENT ITEMSETS");
+	    }else{ // if the user want to save the result to a file
+	    	frequentItemsets = null;
+			writer = new BufferedWriter(new FileWriter(output)); 
+		}
+
+		// reset the statistics
+		itemsetCount = 0;
+		diffsetClassCount.set(0);
+		classCount.set(0);
+
+		this.database = database;
+		
+		// record the start time
+		startTimestamp = System.currentTimeMillis();
+		
+		// convert from an absolute minsup to a relative minsup by multiplying
+		// by the database size
+		this.minsupRelative = (int) Math.ceil(minsupp * database.size());
+
+		// (1) First database pass : calculate tidsets of each item.
+		// This map will contain the tidset of each item
+		// Key: item   Value :  tidset
+		final Map<Integer, CompressedBitmap> mapItemTIDS = new HashMap<Integer, CompressedBitmap>();
+		int maxItemId = calculateSupportSingleItems(database, mapItemTIDS);
+
+		// If the user chose to use the triangular matrix optimization
+		// for counting the support of itemsets of size 2.
+		matrix = null;
+		if (useTriangularMatrixOptimization) {
+			// We create the triangular matrix.
+			matrix = new TriangularMatrix(maxItemId + 1);
+			// for each transaction, take each itemset of size 2,
+			// and update the triangular matrix.
+			for (List<Integer> itemset : database.getTransactions()) {
+				Object[] array = itemset.toArray();
+				// for each item i in the transaction
+				for (int i = 0; i < itemset.size(); i++) {
+					Integer itemI = (Integer) array[i];
+					// compare with each other item j in the same transaction
+					for (int j = i + 1; j < itemset.size(); j++) {
+						Integer itemJ = (Integer) array[j];
+						// update the matrix count by 1 for the pair i, j
+						matrix.incrementCount(itemI, itemJ);
+					}
+				}
+			}
+		}
+
+		// (2) create the list of single items
+		List<Integer> frequentItems = new ArrayList<Integer>();
+		
+		// for each item
+		for(Entry<Integer, CompressedBitmap> entry : mapItemTIDS.entrySet()) {
+			// get the support and tidset of that item
+			CompressedBitmap tidset = entry.getValue();
+			int support = tidset.getCardinality();
+			int item = entry.getKey();
+			// if the item is frequent
+			if(support >= minsupRelative) {
+				// add the item to the list of frequent items
+				frequentItems.add(item);
+				// output the item
+				itemsetCount++;
+				if(writer == null){
+					frequentItemsets.addItemset(new Itemset(new int[] {item}, tidset, support), 1);
+				}else{
+					writer.write(item + " #SUP: " + support);
+					writer.newLine();
+				}
+			}
+		}
+		
+		// Sort the list of items by the total order of increasing support.
+		// This total order is suggested in the article by Zaki.
+		Collections.sort(frequentItems, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer arg0, Integer arg1) {
+				int compare = mapItemTIDS.get(arg0).getCardinality() - mapItemTIDS.get(arg1).getCardinality();
+				return compare != 0 ? compare : arg0 - arg1; 
+			}}); 
+		
+		// (3) the equivalence class of each single item is mined by a task
+		final int[] items = new int[frequentItems.size()];
+		final CompressedBitmap[] tidsets = new CompressedBitmap[items.length];
+		for(int i = 0; i < items.length; i++){
+			items[i] = frequentItems.get(i);
+			tidsets[i] = mapItemTIDS.get(items[i]);
+		}
+		mapItemTIDS.clear();
+		
+		ForkJoinPool pool = WorkerThreads.newForkJoinPool(threads);
+		try {
+			pool.invoke(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					List<ItemTask> tasks = new ArrayList<ItemTask>(items.length);
+					for(int i = 0; i < items.length; i++){
+						tasks.add(new ItemTask(items, tidsets, i));
+					}
+					invokeAll(tasks);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			// close the output file if the result was saved to a file
+			if(writer != null){
+				writer.close();
+			}
+		}
+		matrix = null;
+		
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+		
+		// record the end time for statistics
+		endTime = System.currentTimeMillis();
+
+		// Return all frequent itemsets found!
+		return frequentItemsets; 
+	}
+
+	/**
+	 * This method scans the database to calculate the tidset of each single item
+	 * @param database the transaction database
+	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
+	 * @return the maximum item id appearing in this database
+	 */
+	private int calculateSupportSingleItems(TransactionDatabase database,
+			final Map<Integer, CompressedBitmap> mapItemTIDS) {
+		int maxItemId = 0;
+		// for each transaction
+		for (int i = 0; i < database.size(); i++) {
+			// For each item
+			for (Integer item : database.getTransactions().get(i)) {
+				// Get the current tidset of that item
+				CompressedBitmap tids = mapItemTIDS.get(item);
+				// If none, then we create one
+				if(tids == null){
+					tids = new CompressedBitmap();
+					mapItemTIDS.put(item, tids);
+					// we remember the largest item seen until now
+					if (item > maxItemId) {
+						maxItemId = item;
+					}
+				}
+				// we add the current transaction id to the tidset of the item
+				// (the transactions are read in increasing order of id)
+				tids.add(i);
+			}
+		}
+		for(CompressedBitmap tids : mapItemTIDS.values()){
+			tids.trim();
+		}
+		return maxItemId;
+	}
+
+	/**
+	 * An equivalence class: itemsets sharing a prefix, each represented by its last
+	 * item, its support and its tidset or diffset.
+	 */
+	private static final class EquivalenceClass {
+		// the last item of each itemset
+		final int[] items;
+		// the tidset or the diffset of each itemset
+		final CompressedBitmap[] sets;
+		// the support of each itemset
+		final int[] supports;
+		// the number of itemsets
+		int size;
+		// true if the sets are diffsets with respect to the prefix
+		final boolean diffsets;
+
+		/**
+		 * Constructor
+		 * @param capacity the maximum number of itemsets
+		 * @param diffsets true if the sets are diffsets
+		 */
+		EquivalenceClass(int capacity, boolean diffsets) {
+			items = new int[capacity];
+			sets = new CompressedBitmap[capacity];
+			supports = new int[capacity];
+			this.diffsets = diffsets;
+		}
+
+		/**
+		 * Add an itemset.
+		 * @param item its last item
+		 * @param set its tidset or diffset
+		 * @param support its support
+		 */
+		void add(int item, CompressedBitmap set, int support) {
+			items[size] = item;
+			sets[size] = set;
+			supports[size] = support;
+			size++;
+		}
+	}
+
+	/**
+	 * The itemsets found by a task and not written yet.
+	 */
+	private final class Output {
+		// the itemsets to write to the file
+		final StringBuilder text = new StringBuilder();
+		// the itemsets to keep into memory
+		final List<Itemset> itemsets = new ArrayList<Itemset>();
+		// the number of itemsets
+		int count;
+
+		/**
+		 * Save an itemset.
+		 * @param prefix the prefix of the itemset
+		 * @param suffixItem the last item of the itemset
+		 * @param support its support
+		 * @param tidset its tidset, if the result is kept into memory
+		 */
+		void save(int[] prefix, int suffixItem, int support, CompressedBitmap tidset) {
+			count++;
+			if(writer == null){
+				// append the prefix with the suffix
+				int[] itemsetArray = new int[prefix.length+1];
+				System.arraycopy(prefix, 0, itemsetArray, 0, prefix.length);
+				itemsetArray[prefix.length] = suffixItem;
+				itemsets.add(new Itemset(itemsetArray, tidset, support));
+				if(itemsets.size() * 64 >= FLUSH_SIZE){
+					flush();
+				}
+			}else{
+				for(int item: prefix) {
+					text.append(item);
+					text.append(' ');
+				}
+				text.append(suffixItem);
+				// as well as its support
+				text.append(" #SUP: ");
+				text.append(support);
+				text.append(System.lineSeparator());
+				if(text.length() >= FLUSH_SIZE){
+					flush();
+				}
+			}
+		}
+
+		/**
+		 * Write the itemsets to the file or add them to the itemsets kept into memory.
+		 */
+		void flush() {
+			synchronized (AlgoEclat_Parallel.this) {
+				if(writer == null){
+					for(Itemset itemset : itemsets){
+						frequentItemsets.addItemset(itemset, itemset.size());
+					}
+				}else{
+					try {
+						writer.write(text.toString());
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				itemsetCount += count;
+			}
+			itemsets.clear();
+			text.setLength(0);
+			count = 0;
+		}
+	}
+
+	/**
+	 * The task creating and mining the equivalence class of a single item.
+	 */
+	private final class ItemTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// the frequent items in the total order
+		private final int[] items;
+		// their tidsets
+		private final CompressedBitmap[] tidsets;
+		// the position of the item of this task
+		private final int i;
+
+		/**
+		 * Constructor
+		 * @param items the frequent items in the total order
+		 * @param tidsets their tidsets
+		 * @param i the position of the item of this task
+		 */
+		ItemTask(int[] items, CompressedBitmap[] tidsets, int i) {
+			this.items = items;
+			this.tidsets = tidsets;
+			this.i = i;
+		}
+
+		@Override
+		protected void compute() {
+			if(i == items.length - 1){
+				return;
+			}
+			int itemI = items[i];
+			CompressedBitmap tidsetI = tidsets[i];
+			int supportI = tidsetI.getCardinality();
+			
+			// calculate the support of the 2-itemsets starting with the prefix "i"
+			int[] supports = new int[items.length];
+			int frequentCount = 0;
+			long tidsetSize = 0;
+			long diffsetSize = 0;
+			for(int j = i + 1; j < items.length; j++){
+				int supportIJ = matrix != null ? matrix.getSupportForItems(itemI, items[j]) 
+						: CompressedBitmap.andCardinality(tidsetI, tidsets[j]);
+				supports[j] = supportIJ;
+				if(supportIJ >= minsupRelative){
+					frequentCount++;
+					tidsetSize += supportIJ;
+					diffsetSize += supportI - supportIJ;
+				}
+			}
+			if(frequentCount == 0){
+				return;
+			}
+			
+			// create the equivalence class with tidsets or diffsets, whichever is smaller
+			EquivalenceClass equivalenceClass = new EquivalenceClass(frequentCount, diffsetSize < tidsetSize);
+			for(int j = i + 1; j < items.length; j++){
+				if(supports[j] >= minsupRelative){
+					CompressedBitmap set = equivalenceClass.diffsets ? CompressedBitmap.andNot(tidsetI, tidsets[j])
+							: CompressedBitmap.and(tidsetI, tidsets[j]);
+					equivalenceClass.add(items[j], set, supports[j]);
+				}
+			}
+			
+			Output output = new Output();
+			processEquivalenceClass(new int[] {itemI}, tidsetI, equivalenceClass, output);
+			output.flush();
+			// we check the memory usage
+			MemoryLogger.getInstance().checkMemory();
+		}
+	}
+
+	/**
+	 * The task mining a large equivalence class found by another task.
+	 */
+	private final class ClassTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// the prefix of the itemsets of the class
+		private final int[] prefix;
+		// the tidset of the prefix, if needed
+		private final CompressedBitmap prefixTidset;
+		// the equivalence class
+		private final EquivalenceClass equivalenceClass;
+
+		/**
+		 * Constructor
+		 * @param prefix the prefix of the itemsets of the class
+		 * @param prefixTidset the tidset of the prefix, if needed
+		 * @param equivalenceClass the equivalence class
+		 */
+		ClassTask(int[] prefix, CompressedBitmap prefixTidset, EquivalenceClass equivalenceClass) {
+			this.prefix = prefix;
+			this.prefixTidset = prefixTidset;
+			this.equivalenceClass = equivalenceClass;
+		}
+
+		@Override
+		protected void compute() {
+			Output output = new Output();
+			processEquivalenceClass(prefix, prefixTidset, equivalenceClass, output);
+			output.flush();
+		}
+	}
+
+	/**
+	 * This method process all itemsets from an equivalence class to generate larger itemsets.
+	 * Large equivalence classes that are generated are mined by new tasks.
+	 * @param prefix  a common prefix to all itemsets of the equivalence class
+	 * @param prefixTidset the tidset of the prefix. It is only needed if the result is kept into
+	 *                     memory and the class uses diffsets, to calculate the tidsets of the itemsets.
+	 * @param equivalenceClass the itemsets of the equivalence class
+	 * @param output the itemsets found by the current task
+	 */
+	private void processEquivalenceClass(int[] prefix, CompressedBitmap prefixTidset, 
+			EquivalenceClass equivalenceClass, Output output) {
+		classCount.incrementAndGet();
+		if(equivalenceClass.diffsets){
+			diffsetClassCount.incrementAndGet();
+		}
+		int[] items = equivalenceClass.items;
+		CompressedBitmap[] sets = equivalenceClass.sets;
+		int[] supports = equivalenceClass.supports;
+		int size = equivalenceClass.size;
+		List<ClassTask> tasks = null;
+		
+		// For each itemset "prefix" + "i"
+		for(int i = 0; i < size; i++) {
+			// the tidset of prefix + i, if the result is kept into memory
+			CompressedBitmap tidsetI = null;
+			if(writer == null){
+				tidsetI = equivalenceClass.diffsets ? CompressedBitmap.andNot(prefixTidset, sets[i]) : sets[i];
+			}
+			// save the itemset "prefix + "i" since it is frequent
+			output.save(prefix, items[i], supports[i], tidsetI);
+			
+			// calculate the support of each itemset prefix + i + j
+			int[] supportsIJ = new int[size];
+			int frequentCount = 0;
+			long tidsetSize = 0;
+			long diffsetSize = 0;
+			for(int j = i + 1; j < size; j++) {
+				int supportIJ;
+				if(equivalenceClass.diffsets){
+					// the support of prefix+i minus the size of the diffset d(j) - d(i) 
+					supportIJ = supports[i] - CompressedBitmap.andNotCardinality(sets[j], sets[i]);
+				}else{
+					supportIJ = CompressedBitmap.andCardinality(sets[i], sets[j]);
+				}
+				supportsIJ[j] = supportIJ;
+				if(supportIJ >= minsupRelative) {
+					frequentCount++;
+					tidsetSize += supportIJ;
+					diffsetSize += supports[i] - supportIJ;
+				}
+			}
+			if(frequentCount == 0){
+				continue;
+			}
+			
+			// create the equivalence class of prefix + i with the frequent itemsets.
+			// A class using diffsets keeps using them, otherwise we use the smallest sets.
+			boolean diffsets = equivalenceClass.diffsets || diffsetSize < tidsetSize;
+			EquivalenceClass equivalenceClassI = new EquivalenceClass(frequentCount, diffsets);
+			for(int j = i + 1; j < size; j++) {
+				if(supportsIJ[j] >= minsupRelative) {
+					CompressedBitmap set;
+					if(equivalenceClass.diffsets){
+						set = CompressedBitmap.andNot(sets[j], sets[i]);
+					}else if(diffsets){
+						set = CompressedBitmap.andNot(sets[i], sets[j]);
+					}else{
+						set = CompressedBitmap.and(sets[i], sets[j]);
+					}
+					equivalenceClassI.add(items[j], set, supportsIJ[j]);
+				}
+			}
+			
+			// We create the itemset prefix + i
+			int newPrefix[] = new int[prefix.length +1];
+			System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
+			newPrefix[prefix.length] = items[i];
+			CompressedBitmap newPrefixTidset = diffsets ? tidsetI : null;
+			if(frequentCount >= FORK_SIZE) {
+				// a large class is mined by a new task, that another thread can steal
+				ClassTask task = new ClassTask(newPrefix, newPrefixTidset, equivalenceClassI);
+				task.fork();
+				if(tasks == null){
+					tasks = new ArrayList<ClassTask>();
+				}
+				tasks.add(task);
+			}else{
+				processEquivalenceClass(newPrefix, newPrefixTidset, equivalenceClassI, output);
+			}
+		}
+		
+		// wait for the tasks created by this method
+		if(tasks != null){
+			for(int t = tasks.size() - 1; t >= 0; t--){
+				tasks.get(t).join();
+			}
+		}
+	}
+
+	/**
+	 * Print statistics about the algorithm execution to System.out.
+	 */
+	public void printStats() {
+		System.out.println("=============  ECLAT PARALLEL - STATS =============");
+		long temps = endTime - startTimestamp;
+		System.out.println(" Transactions count from database : " + database.size());
+		System.out.println(" Frequent itemsets count : " + itemsetCount);
+		System.out.println(" Equivalence classes : " + classCount.get() 
+				+ " (" + diffsetClassCount.get() + " with diffsets)");
+		System.out.println(" Threads : " + threads);
+		System.out.println(" Total time ~ " + temps + " ms");
+		System.out.println(" Maximum memory usage : "
+				+ MemoryLogger.getInstance().getMaxMemory() + " mb");
+		System.out.println("===================================================");
+	}
+
+	/**
+	 * Get the set of frequent itemsets.
+	 * @return the frequent itemsets (Itemsets).
+	 */
+	public Itemsets getItemsets() {
+		return frequentItemsets;
+	}
+}
@@ -0,0 +1,497 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.estDec;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is a streaming version of the estDec algorithm, running as a service.
+ * <br/><br/>
+ * 
+ * Transactions are taken from an in-process queue by an ingestion thread, which
+ * updates an estTree. The counts of the tree decay as in estDec, so that the
+ * recent transactions form a decaying window whose length is set by the decay-base
+ * life (see setDecayRate()).
+ * <br/><br/>
+ * 
+ * The tree has a hard memory budget, as a maximum number of nodes. When the tree
+ * becomes larger, the significance threshold minsig is raised and the tree is pruned,
+ * until the tree is within its budget again.
+ * <br/><br/>
+ * 
+ * Every few transactions, and whenever the queue becomes empty, the ingestion
+ * thread mines the tree and publishes an immutable Summary of the recent frequent
+ * itemsets (or of the closed ones) sorted by decreasing support. Readers get the
+ * last summary with getSummary() without any lock, while ingestion continues.
+ * 
+ * @see Algo_estDec
+ * @see estTree
+ */
+public class Algo_estDec_Stream {
+	/** the default number of transactions between two summaries */
+	public static final int DEFAULT_PUBLISH_INTERVAL = 1000;
+
+	// the "monitoring lattice" tree, only used by the ingestion thread
+	private final estTree tree;
+	// the queue of transactions
+	private final BlockingQueue<int[]> queue;
+	// the maximum number of nodes of the tree
+	private final int maxNodes;
+	
+	// the number of transactions between two summaries
+	private int publishInterval = DEFAULT_PUBLISH_INTERVAL;
+	// if true, only the closed itemsets are published
+	private boolean closedItemsetsOnly = false;
+
+	// the ingestion thread
+	private volatile Thread thread;
+	// set to stop the ingestion thread once the queue is empty
+	private volatile boolean closing = false;
+	// the error that stopped the ingestion thread, if any
+	private volatile Throwable failure;
+	// the last published summary
+	private volatile Summary summary = new Summary(new int[0][], new double[0], 0, 0, 0);
+
+	// for stats
+	private long sumTransactionInsertionTime = 0; // sum of time for inserting transactions
+	private long sumMiningTime = 0; // sum of time for mining the summaries
+	private int summaryCount = 0; // number of summaries published
+
+	/**
+	 * Constructor, creating a queue of a given capacity.
+	 * @param mins minimum support as a percentage
+	 * @param maxNodes the maximum number of nodes of the tree
+	 * @param queueCapacity the maximum number of transactions waiting in the queue
+	 */
+	public Algo_estDec_Stream(double mins, int maxNodes, int queueCapacity) {
+		this(mins, maxNodes, new ArrayBlockingQueue<int[]>(queueCapacity));
+	}
+
+	/**
+	 * Constructor, using a queue filled by the caller.
+	 * @param mins minimum support as a percentage
+	 * @param maxNodes the maximum number of nodes of the tree
+	 * @param queue the queue of transactions
+	 */
+	public Algo_estDec_Stream(double mins, int maxNodes, BlockingQueue<int[]> queue) {
+		// the budget is kept by raising minsig, which must be positive
+		if (!(mins > 0)) {
+			throw new IllegalArgumentException("The minimum support must be positive.");
+		}
+		if (maxNodes < 1) {
+			throw new IllegalArgumentException("The memory budget must be at least one node.");
+		}
+		// create the "Monitoring Lattice" tree
+		this.tree = new estTree(mins);
+		this.maxNodes = maxNodes;
+		this.queue = queue;
+	}
+
+	/**
+	 * Set the decay rate. This must be done before the service is started.
+	 * @param b  decay base 
+	 * @param h decay-base life
+	 */
+	public void setDecayRate(double b, double h) {
+		checkNotStarted();
+		tree.setDecayRate(b, h);
+	}
+
+	/**
+	 * Set the number of transactions between two summaries. This must be done
+	 * before the service is started.
+	 * @param publishInterval a number of transactions
+	 */
+	public void setPublishInterval(int publishInterval) {
+		checkNotStarted();
+		this.publishInterval = Math.max(1, publishInterval);
+	}
+
+	/**
+	 * Choose to publish only the closed itemsets, that have no superset with
+	 * the same decayed support. This must be done before the service is started.
+	 * @param closedItemsetsOnly true to publish only the closed itemsets
+	 */
+	public void setClosedItemsetsOnly(boolean closedItemsetsOnly) {
+		checkNotStarted();
+		this.closedItemsetsOnly = closedItemsetsOnly;
+	}
+
+	/**
+	 * Check that the service was not started.
+	 */
+	private void checkNotStarted() {
+		if (thread != null) {
+			throw new IllegalStateException("The service is already started.");
+		}
+	}
+
+	/**
+	 * Start the ingestion thread.
+	 */
+	public synchronized void start() {
+		checkNotStarted();
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				ingest();
+			}
+		}, "estDec stream");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Add a transaction to the queue, waiting if the queue is full. The items
+	 * of the transaction are copied by the ingestion thread, so the array should
+	 * not be modified until it is processed.
+	 * @param transaction an array of distinct items
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws IllegalStateException if the service is not started, is closed
+	 *         or stopped, even while waiting
+	 */
+	public void addTransaction(int[] transaction) throws InterruptedException {
+		checkRunning();
+		// wait by steps, so that a producer does not wait forever on the queue
+		// of a thread that stopped
+		while (!queue.offer(transaction, 50, TimeUnit.MILLISECONDS)) {
+			checkRunning();
+		}
+		checkQueued(transaction);
+	}
+
+	/**
+	 * Add a transaction to the queue if the queue is not full. The items
+	 * of the transaction are copied by the ingestion thread, so the array should
+	 * not be modified until it is processed.
+	 * @param transaction an array of distinct items
+	 * @return true if the transaction was added, false if the queue is full
+	 */
+	public boolean offerTransaction(int[] transaction) {
+		checkRunning();
+		if (!queue.offer(transaction)) {
+			return false;
+		}
+		checkQueued(transaction);
+		return true;
+	}
+
+	/**
+	 * Check that the service is started, is not closing and that its
+	 * ingestion thread is still running.
+	 */
+	private void checkRunning() {
+		if (failure != null) {
+			throw new IllegalStateException("The ingestion thread failed.", failure);
+		}
+		if (closing) {
+			throw new IllegalStateException("The service is closed.");
+		}
+		Thread ingestion = thread;
+		if (ingestion == null) {
+			throw new IllegalStateException("The service is not started.");
+		}
+		if (!ingestion.isAlive()) {
+			throw new IllegalStateException("The ingestion thread stopped.");
+		}
+	}
+
+	/**
+	 * Check that a transaction just added to the queue will be processed. If the
+	 * service was closed or stopped meanwhile, the transaction is taken back
+	 * from the queue and rejected, unless it was already taken to be processed.
+	 * @param transaction the transaction added to the queue
+	 */
+	private void checkQueued(int[] transaction) {
+		if ((closing || failure != null || !thread.isAlive()) && queue.remove(transaction)) {
+			checkRunning();
+			throw new IllegalStateException("The ingestion thread stopped.");
+		}
+	}
+
+	/**
+	 * Get the last published summary. This never blocks.
+	 * @return the summary
+	 */
+	public Summary getSummary() {
+		return summary;
+	}
+
+	/**
+	 * Stop the service once the queued transactions are processed, and publish
+	 * a last summary. A transaction added while the service is closing is
+	 * either processed or rejected by the call that added it.
+	 * @return the last summary
+	 * @throws InterruptedException if interrupted while waiting for the ingestion thread
+	 */
+	public Summary close() throws InterruptedException {
+		closing = true;
+		Thread ingestion;
+		synchronized (this) {
+			ingestion = thread;
+		}
+		if (ingestion != null) {
+			ingestion.join();
+		}
+		if (failure != null) {
+			throw new IllegalStateException("The ingestion thread failed.", failure);
+		}
+		if (ingestion != null) {
+			// the transactions added after the thread saw an empty queue
+			synchronized (this) {
+				int pending = 0;
+				for (int[] transaction = queue.poll(); transaction != null; transaction = queue.poll()) {
+					processTransaction(transaction);
+					pending++;
+				}
+				if (pending > 0) {
+					publish();
+				}
+			}
+		}
+		return summary;
+	}
+
+	/**
+	 * The loop of the ingestion thread.
+	 */
+	private void ingest() {
+		try {
+			int pending = 0; // transactions since the last summary
+			while (true) {
+				int[] transaction = queue.poll(50, TimeUnit.MILLISECONDS);
+				if (transaction == null) {
+					// the queue is empty: publish what was processed
+					if (pending > 0) {
+						publish();
+						pending = 0;
+					}
+					if (closing && queue.isEmpty()) {
+						return;
+					}
+					continue;
+				}
+				processTransaction(transaction);
+				if (++pending >= publishInterval) {
+					publish();
+					pending = 0;
+				}
+			}
+		} catch (Throwable e) {
+			// whatever stopped the thread, it is reported to the producers
+			// and to close() instead of leaving them waiting
+			failure = e;
+			queue.clear();
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Process a transaction (add it to the tree and update itemsets)
+	 * @param items an array of integers, which is not modified
+	 */
+	private void processTransaction(int[] items) {
+		long startCTimestamp = System.currentTimeMillis();
+		// the paths of the tree follow the order of the items, the array of
+		// the caller is left as it is
+		int[] transaction = items.clone();
+		Arrays.sort(transaction);
+		// process the transaction
+		tree.updateParams(transaction);
+		tree.insertItemset(transaction);
+		
+		// force pruning every 1000 transactions
+		if (tree.getK() % 1000 == 0)
+			tree.forcePruning(tree.root);
+		// keep the tree within its memory budget
+		tree.pruneToSize(maxNodes);
+		
+		sumTransactionInsertionTime += (System.currentTimeMillis() - startCTimestamp);
+	}
+
+	/**
+	 * Mine the tree and publish a new summary.
+	 */
+	private void publish() {
+		long startMiningTimeStamp = System.currentTimeMillis();
+		Hashtable<List<Integer>, Double> patterns;
+		try {
+			patterns = tree.patternMining_saveToMemory();
+		} catch (IOException e) {
+			// not thrown when saving to memory
+			throw new IllegalStateException(e);
+		}
+		
+		// if only closed itemsets are wanted, remove each itemset having
+		// a superset with one more item and the same support
+		Set<List<Integer>> notClosed = new HashSet<List<Integer>>();
+		if (closedItemsetsOnly) {
+			for (Map.Entry<List<Integer>, Double> entry : patterns.entrySet()) {
+				List<Integer> itemset = entry.getKey();
+				if (itemset.size() < 2) {
+					continue;
+				}
+				double support = entry.getValue();
+				for (int i = 0; i < itemset.size(); i++) {
+					List<Integer> subset = new ArrayList<Integer>(itemset);
+					subset.remove(i);
+					Double subsetSupport = patterns.get(subset);
+					if (subsetSupport != null && subsetSupport - support <= 1e-9 * subsetSupport) {
+						notClosed.add(subset);
+					}
+				}
+			}
+		}
+		
+		// sort the itemsets by decreasing support
+		final List<Map.Entry<List<Integer>, Double>> entries = new ArrayList<Map.Entry<List<Integer>, Double>>();
+		for (Map.Entry<List<Integer>, Double> entry : patterns.entrySet()) {
+			if (!notClosed.contains(entry.getKey())) {
+				entries.add(entry);
+			}
+		}
+		Collections.sort(entries, new Comparator<Map.Entry<List<Integer>, Double>>() {
+			@Override
+			public int compare(Map.Entry<List<Integer>, Double> e1, Map.Entry<List<Integer>, Double> e2) {
+				int compare = Double.compare(e2.getValue(), e1.getValue());
+				return compare != 0 ? compare : e2.getKey().size() - e1.getKey().size();
+			}
+		});
+		int[][] itemsets = new int[entries.size()][];
+		double[] supports = new double[entries.size()];
+		for (int i = 0; i < itemsets.length; i++) {
+			List<Integer> itemset = entries.get(i).getKey();
+			itemsets[i] = new int[itemset.size()];
+			for (int j = 0; j < itemsets[i].length; j++) {
+				itemsets[i][j] = itemset.get(j);
+			}
+			supports[i] = entries.get(i).getValue();
+		}
+		
+		summary = new Summary(itemsets, supports, tree.getK(), tree.getNodeCount(), tree.minsig);
+		sumMiningTime += System.currentTimeMillis() - startMiningTimeStamp;
+		summaryCount++;
+	}
+
+	/**
+	 * Print statistics about the algorithm execution to the console.
+	 */
+	public void printStats() {
+		Summary last = summary;
+		System.out.println("=============  ESTDEC STREAM - STATS =============");
+		System.out.println(" Transactions processed : " + last.getTransactionCount());
+		System.out.println(" Itemsets in last summary : " + last.size());
+		System.out.println(" Tree nodes : " + last.getNodeCount() + " (budget " + maxNodes + ")");
+		System.out.println(" minsig : " + last.getMinsig());
+		System.out.println(" construct time ~ " + (double) sumTransactionInsertionTime / Math.max(1, last.getTransactionCount()) + " ms");
+		System.out.println(" mining time ~ " + (double) sumMiningTime / Math.max(1, summaryCount) + " ms per summary");
+		System.out.println("===================================================");
+	}
+
+	/**
+	 * An immutable summary of the recent frequent itemsets, sorted by decreasing support.
+	 */
+	public static final class Summary {
+		// the itemsets
+		private final int[][] itemsets;
+		// their supports, in [0, 1]
+		private final double[] supports;
+		// the number of transactions processed
+		private final int transactionCount;
+		// the number of nodes of the tree
+		private final int nodeCount;
+		// the significance threshold of the tree
+		private final double minsig;
+
+		/**
+		 * Constructor
+		 * @param itemsets the itemsets
+		 * @param supports their supports
+		 * @param transactionCount the number of transactions processed
+		 * @param nodeCount the number of nodes of the tree
+		 * @param minsig the significance threshold of the tree
+		 */
+		Summary(int[][] itemsets, double[] supports, int transactionCount, int nodeCount, double minsig) {
+			this.itemsets = itemsets;
+			this.supports = supports;
+			this.transactionCount = transactionCount;
+			this.nodeCount = nodeCount;
+			this.minsig = minsig;
+		}
+
+		/**
+		 * Get the number of itemsets.
+		 * @return the number of itemsets
+		 */
+		public int size() {
+			return itemsets.length;
+		}
+
+		/**
+		 * Get an itemset.
+		 * @param i the rank of the itemset, 0 for the most frequent one
+		 * @return a copy of the items of the itemset
+		 */
+		public int[] getItemset(int i) {
+			return itemsets[i].clone();
+		}
+
+		/**
+		 * Get the decayed support of an itemset.
+		 * @param i the rank of the itemset, 0 for the most frequent one
+		 * @return the support in [0, 1]
+		 */
+		public double getSupport(int i) {
+			return supports[i];
+		}
+
+		/**
+		 * Get the most frequent itemsets.
+		 * @param n the maximum number of itemsets
+		 * @return copies of the itemsets, by decreasing support
+		 */
+		public List<int[]> getTopItemsets(int n) {
+			List<int[]> top = new ArrayList<int[]>();
+			for (int i = 0; i < Math.min(n, itemsets.length); i++) {
+				top.add(itemsets[i].clone());
+			}
+			return top;
+		}
+
+		/**
+		 * Get the number of transactions processed when the summary was made.
+		 * @return the number of transactions
+		 */
+		public int getTransactionCount() {
+			return transactionCount;
+		}
+
+		/**
+		 * Get the number of nodes of the tree when the summary was made.
+		 * @return the number of nodes
+		 */
+		public int getNodeCount() {
+			return nodeCount;
+		}
+
+		/**
+		 * Get the significance threshold used when the summary was made. It is
+		 * greater than the initial one if the tree had to be pruned to fit its budget.
+		 * @return minsig
+		 */
+		public double getMinsig() {
+			return minsig;
+		}
+	}
+}
@@ -98,6 +98,20 @@ public class estNode {
 		return -1;
 	}
 
+	/**
+	 * Return the number of nodes of the subtree having this node as root,
+	 * including this node.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int size() {
+		int size = 1;
+		for (estNode child : children) {
+			size += child.size();
+		}
+		return size;
+	}
+
 	/**
 	 * Update the count of a node
 	 * 
@@ -44,6 +44,12 @@ public class estTree {
 	// itemset count
 	int patternCount =0;
 	
+	// number of nodes in the tree, without the root
+	int nodeCount = 0;
+	// true if nodes were removed without being subtracted from nodeCount,
+	// which is then only an upper bound until the tree is counted again
+	boolean nodeCountStale = false;
+	
 	// Hashtable for storing frequent patterns into memory
 	Hashtable<List<Integer>, Double> patterns;
 	
@@ -52,6 +58,9 @@ public class estTree {
 	
 	double minsup;
 	double minsig;
+	// the significance threshold chosen by the user, that minsig returns to
+	// when the tree is smaller than its memory budget
+	double minsigBase;
 	
 	estNode root; // tree root
 
@@ -66,6 +75,7 @@ public class estTree {
 		k = 0;
 		minsup = mins / 100;
 		minsig = 0.1 * minsup;
+		minsigBase = minsig;
 		
 		root = new estNode(); // null node
 	}
@@ -133,6 +143,7 @@ public class estTree {
 		// create the node with a count of 0
 		double c = 0;// (getN(k-1)*minsig)*d+1;
 		root.children.add(new estNode(it, c, k));
+		nodeCount++;
 	}
 
 	/********************************************************************
@@ -241,14 +252,17 @@ public class estTree {
 			if (c / N >= minsig) {
 				child = new estNode(item, c, k);
 				currentNode.children.add(child);
+				nodeCount++;
 			}
 		}// if child
 		else {
 			if (child.counter / N < minsig) {
 				// if its support is less than minsig delete the node
-				if (currentNode.itemID != -1)
+				if (currentNode.itemID != -1) {
 					currentNode.children.remove(currentNode
 							.getChildIndexWithID(item));
+					nodeCountStale = true;
+				}
 			} else {
 				// if its support is greater than minsig continue the recursion
 				// with this subtree
@@ -265,14 +279,67 @@ public class estTree {
 	 * @param root  t
 	 ********************************************************************/
 	void forcePruning(estNode root) {
+		int count = forcePruning(root, false);
+		if (root == this.root) {
+			nodeCount = count;
+			nodeCountStale = false;
+		}
+	}
+
+	/********************************************************************
+	 * Method for force pruning, which may also remove the single items
+	 * 
+	 * @param root  the root of the current subtree
+	 * @param pruneItems if true, the children of the tree root are also removed
+	 * @return the number of nodes left in the subtree, without its root
+	 ********************************************************************/
+	int forcePruning(estNode root, boolean pruneItems) {
+		int count = 0;
 		for (int i = 0; i < root.children.size(); ++i) {
 			estNode node = root.children.get(i);
 			node.update(k, 0, d);
-			if (node.computeSupport(N) < minsig && root.itemID != -1)
+			if (node.computeSupport(N) < minsig && (pruneItems || root.itemID != -1))
 				root.children.remove(i--);
 			else
-				forcePruning(node);
+				count += 1 + forcePruning(node, pruneItems);
+		}
+		return count;
+	}
+
+	/********************************************************************
+	 * Method for keeping the tree within a memory budget. While the tree
+	 * has more nodes than the budget, minsig is doubled and the tree is pruned,
+	 * single items included. When the tree uses less than half of its budget,
+	 * minsig is halved again, down to the value chosen by the user.
+	 * The nodes are counted while pruning.
+	 * 
+	 * @param maxNodes  the maximum number of nodes
+	 ********************************************************************/
+	void pruneToSize(int maxNodes) {
+		if (nodeCount > maxNodes) {
+			// the count may include removed nodes, prune once to recount
+			nodeCount = forcePruning(root, true);
+			nodeCountStale = false;
+			while (nodeCount > maxNodes) {
+				minsig *= 2;
+				nodeCount = forcePruning(root, true);
+			}
+		} else if (minsig > minsigBase && nodeCount < maxNodes / 2) {
+			minsig = Math.max(minsigBase, minsig / 2);
+		}
+	}
+
+	/********************************************************************
+	 * Method for obtaining the exact number of nodes of the tree
+	 * 
+	 * @return the number of nodes, without the root
+	 ********************************************************************/
+	int getNodeCount() {
+		if (nodeCountStale) {
+			nodeCount = root.size() - 1;
+			nodeCountStale = false;
 		}
+		return nodeCount;
 	}
 
 	/********************************************************************
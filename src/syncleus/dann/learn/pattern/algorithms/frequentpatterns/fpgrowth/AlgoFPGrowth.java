@@ -32,6 +32,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import syncleus.dann.learn.pattern.input.binary_database.BinaryDatabase;
 import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset;
 import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemsets;
 import syncleus.dann.learn.pattern.tools.MemoryLogger;
@@ -83,7 +84,8 @@ public class AlgoFPGrowth {
 
 	/**
 	 * Method to run the FPGRowth algorithm.
-	 * @param input the path to an input file containing a transaction database.
+	 * @param input the path to an input file containing a transaction database,
+	 *        in SPMF format or in the binary format of BinaryDatabase.
 	 * @param output the output file path for saving the result (if null, the result 
 	 *        will be returned by the method instead of being saved).
 	 * @param minsupp the minimum support threshold.
@@ -91,23 +93,16 @@ public class AlgoFPGrowth {
 	 * @throws IOException exception if error reading or writing files
 	 */
 	public Itemsets runAlgorithm(String input, String output, double minsupp) throws FileNotFoundException, IOException {
-		// record start time
-		startTimestamp = System.currentTimeMillis();
-		// number of itemsets found
-		itemsetCount =0;
-		
-		//initialize tool to record memory usage
-		memoryLogger = new MemoryLogger();
-		memoryLogger.checkMemory();
-		
-		// if the user want to keep the result into memory
-		if(output == null){
-			writer = null;
-			patterns =  new Itemsets("FREQUENT ITEMSETS");
-	    }else{ // if the user want to save the result to a file
-			patterns = null;
-			writer = new BufferedWriter(new FileWriter(output)); 
+		// a binary database is read from the mapped file instead of being parsed
+		if(BinaryDatabase.isBinaryDatabase(input)){
+			BinaryDatabase binaryDatabase = new BinaryDatabase(input);
+			try {
+				return runAlgorithm(binaryDatabase, output, minsupp);
+			} finally {
+				binaryDatabase.close();
+			}
 		}
+		startAlgorithm(output);
 		
 		// (1) PREPROCESSING: Initial database scan to determine the frequency of each item
 		// The frequency is stored in a map:
@@ -171,7 +166,112 @@ public class AlgoFPGrowth {
 		// close the input file
 		reader.close();
 		
+		return mineTree(tree, mapSupport);
+	}
+
+	/**
+	 * Method to run the FPGRowth algorithm on a database in binary format. The support
+	 * of the items is read from the file, so the database is scanned only once, to build
+	 * the FP-Tree.
+	 * @param input the database.
+	 * @param output the output file path for saving the result (if null, the result 
+	 *        will be returned by the method instead of being saved).
+	 * @param minsupp the minimum support threshold.
+	 * @return the result if no output file path is provided.
+	 * @throws IOException exception if error writing the output file
+	 */
+	public Itemsets runAlgorithm(BinaryDatabase input, String output, double minsupp) throws IOException {
+		if(input.isSequenceDatabase()){
+			throw new IllegalArgumentException("FPGrowth needs a transaction database");
+		}
+		startAlgorithm(output);
+		
+		// (1) PREPROCESSING: read the frequency of each item
+		// The frequency is stored in a map:
+		//    key: item   value: support
+		final Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>();
+		int[] supports = input.getItemSupports();
+		for(int item = 0; item < supports.length; item++){
+			if(supports[item] > 0){
+				mapSupport.put(item, supports[item]);
+			}
+		}
+		transactionCount = input.size();
 		
+		// convert the minimum support as percentage to a
+		// relative minimum support
+		this.relativeMinsupp = (int) Math.ceil(minsupp * transactionCount);
+		
+		// (2) Scan the database to build the initial FP-Tree
+		// Before inserting a transaction in the FPTree, we sort the items
+		// by descending order of support.  We ignore items that
+		// do not have the minimum support.
+		FPTree tree = new FPTree();
+		int[] items = new int[input.getMaxLength()];
+		Comparator<Integer> bySupport = new Comparator<Integer>(){
+			public int compare(Integer item1, Integer item2){
+				// compare the frequency
+				int compare = mapSupport.get(item2) - mapSupport.get(item1);
+				// if the same frequency, we check the lexical ordering!
+				if(compare == 0){ 
+					return (item1 - item2);
+				}
+				// otherwise, just use the frequency
+				return compare;
+			}
+		};
+		// for each transaction
+		for(int i = 0; i < transactionCount; i++){
+			int length = input.read(i, items);
+			List<Integer> transaction = new ArrayList<Integer>(length);
+			for(int j = 0; j < length; j++){
+				// only add items that have the minimum support
+				if(supports[items[j]] >= relativeMinsupp){
+					transaction.add(items[j]);
+				}
+			}
+			// sort item in the transaction by descending order of support
+			Collections.sort(transaction, bySupport);
+			// add the sorted transaction to the fptree.
+			tree.addTransaction(transaction);
+		}
+		
+		return mineTree(tree, mapSupport);
+	}
+
+	/**
+	 * Prepare the output and the statistics before the database is read.
+	 * @param output the output file path, or null to keep the result into memory
+	 * @throws IOException exception if error creating the output file
+	 */
+	private void startAlgorithm(String output) throws IOException {
+		// record start time
+		startTimestamp = System.currentTimeMillis();
+		// number of itemsets found
+		itemsetCount =0;
+		
+		//initialize tool to record memory usage
+		memoryLogger = new MemoryLogger();
+		memoryLogger.checkMemory();
+		
+		// if the user want to keep the result into memory
+		if(output == null){
+			writer = null;
+			patterns =  new Itemsets("FREQUENT ITEMSETS");
+	    }else{ // if the user want to save the result to a file
+			patterns = null;
+			writer = new BufferedWriter(new FileWriter(output)); 
+		}
+	}
+
+	/**
+	 * Mine the initial FP-Tree once it has been built.
+	 * @param tree the FP-Tree of the database
+	 * @param mapSupport the support of each item (key: item, value: support)
+	 * @return the result if no output file path was provided.
+	 * @throws IOException exception if error writing the output file
+	 */
+	private Itemsets mineTree(FPTree tree, Map<Integer, Integer> mapSupport) throws IOException {
 		// We create the header table for the tree
 		tree.createHeaderList(mapSupport);
 		
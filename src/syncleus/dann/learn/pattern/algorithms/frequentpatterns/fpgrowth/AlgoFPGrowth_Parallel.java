@@ -0,0 +1,714 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.fpgrowth;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import syncleus.dann.learn.pattern.input.binary_database.BinaryDatabase;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemset;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemsets;
+import syncleus.dann.learn.pattern.tools.MemoryLogger;
+import syncleus.dann.learn.pattern.tools.WorkerThreads;
+
+/** 
+ * This is a parallel implementation of the FPGROWTH algorithm (Han et al., 2004),
+ * finding the same itemsets as {@link AlgoFPGrowth}.
+ * <br/><br/>
+ * 
+ * The FP-Trees are stored in arrays of int (see {@link ArrayFPTree}) instead of
+ * FPNode objects and maps. The initial FP-Tree is built on one thread. Then, the
+ * conditional tree of each item of its header table is mined by a separate task of a
+ * fork/join pool. A task whose conditional tree is large splits again, into one task
+ * per item of the conditional tree, all reading the same tree.
+ * <br/><br/>
+ * 
+ * Each task borrows a workspace from a pool kept by its thread. The workspace holds
+ * the conditional trees of each level of the recursion, which are reset rather than
+ * reallocated, and a buffer of the itemsets found. Full buffers are written to the
+ * output file, or added to the itemsets kept in memory, one buffer at a time. The
+ * itemsets are thus the same as those of AlgoFPGrowth but not in the same order.
+ *
+ * @see ArrayFPTree
+ * @see AlgoFPGrowth
+ */
+public class AlgoFPGrowth_Parallel {
+
+	/** a conditional tree with at least this many nodes is mined by several tasks */
+	private static final int SPLIT_SIZE = 1 << 12;
+	/** a workspace writes its itemsets once its buffer holds this many ints */
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	// for statistics
+	private long startTimestamp; // start time of the latest execution
+	private long endTime; // end time of the latest execution
+	private int transactionCount = 0; // transaction count in the database
+	private long itemsetCount; // number of freq. itemsets found
+	
+	// parameter
+	public int relativeMinsupp;// the relative minimum support
+
+	// the number of threads
+	private final int threads;
+	
+	BufferedWriter writer = null; // object to write the output file
+	
+	// The  patterns that are found 
+	// (if the user want to keep them into memory)
+	protected Itemsets patterns = null;
+
+	private MemoryLogger memoryLogger = null;
+
+	// the number of frequent items
+	private int frequentItemCount;
+	// the workspaces which are not in use, for each thread
+	private ThreadLocal<ArrayDeque<Workspace>> freeWorkspaces;
+	// all the workspaces created during the current execution
+	private Queue<Workspace> workspaces;
+
+	/**
+	 * Constructor, using one thread per processor.
+	 */
+	public AlgoFPGrowth_Parallel() {
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 * @param threadCount the number of threads, or 0 for one thread per processor
+	 */
+	public AlgoFPGrowth_Parallel(int threadCount) {
+		threads = Math.max(1, threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Method to run the algorithm.
+	 * @param input the path to an input file containing a transaction database,
+	 *        in SPMF format or in the binary format of BinaryDatabase.
+	 * @param output the output file path for saving the result (if null, the result 
+	 *        will be returned by the method instead of being saved).
+	 * @param minsupp the minimum support threshold.
+	 * @return the result if no output file path is provided.
+	 * @throws IOException exception if error reading or writing files
+	 */
+	public Itemsets runAlgorithm(String input, String output, double minsupp) throws IOException {
+		// a binary database is read from the mapped file instead of being parsed
+		if(BinaryDatabase.isBinaryDatabase(input)){
+			BinaryDatabase binaryDatabase = new BinaryDatabase(input);
+			try {
+				return runAlgorithm(binaryDatabase, output, minsupp);
+			} finally {
+				binaryDatabase.close();
+			}
+		}
+		startAlgorithm(output);
+
+		// (1) PREPROCESSING: Initial database scan to determine the frequency of each item
+		int[] supports = new int[256];
+		transactionCount = 0;
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		try {
+			String line;
+			// for each line (transaction) until the end of file
+			while( ((line = reader.readLine())!= null)){ 
+				// if the line is  a comment, is  empty or is a
+				// kind of metadata
+				if (isSkipped(line)) {
+					continue;
+				}
+				for(String itemString : line.split(" ")){
+					int item = Integer.parseInt(itemString);
+					if(item >= supports.length){
+						supports = Arrays.copyOf(supports, Math.max(item + 1, supports.length * 2));
+					}
+					supports[item]++;
+				}
+				transactionCount++;
+			}
+		} finally {
+			reader.close();
+		}
+
+		// convert the minimum support as percentage to a
+		// relative minimum support
+		this.relativeMinsupp = (int) Math.ceil(minsupp * transactionCount);
+		
+		// (2) Scan the database again to build the initial FP-Tree
+		int[] itemRanks = new int[supports.length];
+		ArrayFPTree tree = createTree(supports, itemRanks);
+		int[] items = new int[64];
+		reader = new BufferedReader(new FileReader(input));
+		try {
+			String line;
+			while( ((line = reader.readLine())!= null)){ 
+				if (isSkipped(line)) {
+					continue;
+				}
+				String[] lineSplited = line.split(" ");
+				if(lineSplited.length > items.length){
+					items = new int[lineSplited.length];
+				}
+				for(int i = 0; i < lineSplited.length; i++){
+					items[i] = Integer.parseInt(lineSplited[i]);
+				}
+				addTransaction(tree, itemRanks, items, lineSplited.length);
+			}
+		} finally {
+			reader.close();
+		}
+		
+		return mineTree(tree);
+	}
+
+	/**
+	 * Method to run the algorithm on a database in binary format. The support of the
+	 * items is read from the file, so the database is scanned only once.
+	 * @param input the database.
+	 * @param output the output file path for saving the result (if null, the result 
+	 *        will be returned by the method instead of being saved).
+	 * @param minsupp the minimum support threshold.
+	 * @return the result if no output file path is provided.
+	 * @throws IOException exception if error writing the output file
+	 */
+	public Itemsets runAlgorithm(BinaryDatabase input, String output, double minsupp) throws IOException {
+		if(input.isSequenceDatabase()){
+			throw new IllegalArgumentException("FPGrowth needs a transaction database");
+		}
+		startAlgorithm(output);
+
+		// (1) PREPROCESSING: read the frequency of each item
+		int[] supports = input.getItemSupports();
+		transactionCount = input.size();
+		this.relativeMinsupp = (int) Math.ceil(minsupp * transactionCount);
+
+		// (2) Scan the database to build the initial FP-Tree
+		int[] itemRanks = new int[supports.length];
+		ArrayFPTree tree = createTree(supports, itemRanks);
+		int[] items = new int[input.getMaxLength()];
+		for(int i = 0; i < transactionCount; i++){
+			int length = input.read(i, items);
+			addTransaction(tree, itemRanks, items, length);
+		}
+
+		return mineTree(tree);
+	}
+
+	/**
+	 * Check if a line of the input file is a comment, is empty or is a kind of metadata.
+	 * @param line the line
+	 * @return true if the line is not a transaction
+	 */
+	private static boolean isSkipped(String line) {
+		return line.isEmpty() == true || line.charAt(0) == '#'
+				|| line.charAt(0) == '%' || line.charAt(0) == '@';
+	}
+
+	/**
+	 * Prepare the output and the statistics before the database is read.
+	 * @param output the output file path, or null to keep the result into memory
+	 * @throws IOException exception if error creating the output file
+	 */
+	private void startAlgorithm(String output) throws IOException {
+		// record start time
+		startTimestamp = System.currentTimeMillis();
+		// number of itemsets found
+		itemsetCount = 0;
+		
+		//initialize tool to record memory usage
+		memoryLogger = new MemoryLogger();
+		memoryLogger.checkMemory();
+		
+		// if the user want to keep the result into memory
+		if(output == null){
+			writer = null;
+			patterns =  new Itemsets("FREQUENT ITEMSETS");
+	    }else{ // if the user want to save the result to a file
+			patterns = null;
+			writer = new BufferedWriter(new FileWriter(output)); 
+		}
+	}
+
+	/**
+	 * Create the initial FP-Tree, with ranks for the frequent items in decreasing
+	 * order of support.
+	 * @param supports the support of each item
+	 * @param itemRanks filled with the rank of each item, or -1 if it is not frequent
+	 * @return the empty tree
+	 */
+	private ArrayFPTree createTree(int[] supports, int[] itemRanks) {
+		// the frequent items, sorted by decreasing support and then by lexical order
+		long[] keys = new long[supports.length];
+		frequentItemCount = 0;
+		for(int item = 0; item < supports.length; item++){
+			itemRanks[item] = -1;
+			if(supports[item] >= relativeMinsupp && supports[item] > 0){
+				keys[frequentItemCount++] = ((long) (Integer.MAX_VALUE - supports[item]) << 32) | item;
+			}
+		}
+		Arrays.sort(keys, 0, frequentItemCount);
+		ArrayFPTree tree = new ArrayFPTree();
+		tree.reset(frequentItemCount);
+		for(int rank = 0; rank < frequentItemCount; rank++){
+			int item = (int) keys[rank];
+			itemRanks[item] = rank;
+			tree.items[rank] = item;
+		}
+		return tree;
+	}
+
+	/**
+	 * Add a transaction to the initial FP-Tree, ignoring the items that are not frequent.
+	 * @param tree the tree
+	 * @param itemRanks the rank of each item, or -1
+	 * @param items the items of the transaction, overwritten with their ranks
+	 * @param length the number of items
+	 */
+	private void addTransaction(ArrayFPTree tree, int[] itemRanks, int[] items, int length) {
+		int rankCount = 0;
+		for(int i = 0; i < length; i++){
+			int item = items[i];
+			if(item < itemRanks.length && itemRanks[item] >= 0){
+				items[rankCount++] = itemRanks[item];
+			}
+		}
+		// sort by decreasing order of support, that is by increasing rank,
+		// and remove the duplicates
+		Arrays.sort(items, 0, rankCount);
+		int distinct = 0;
+		for(int i = 0; i < rankCount; i++){
+			if(distinct == 0 || items[distinct - 1] != items[i]){
+				items[distinct++] = items[i];
+			}
+		}
+		tree.addPath(items, distinct, 1);
+	}
+
+	/**
+	 * Mine the initial FP-Tree on the fork/join pool.
+	 * @param tree the FP-Tree of the database
+	 * @return the result if no output file path was provided.
+	 * @throws IOException exception if error writing the output file
+	 */
+	private Itemsets mineTree(final ArrayFPTree tree) throws IOException {
+		memoryLogger.checkMemory();
+		freeWorkspaces = ThreadLocal.withInitial(ArrayDeque::new);
+		workspaces = new ConcurrentLinkedQueue<Workspace>();
+
+		// one task per item of the header table
+		final List<MineTask> tasks = new ArrayList<MineTask>();
+		for(int rank = tree.itemCount - 1; rank >= 0; rank--){
+			tasks.add(new MineTask(tree, rank, new int[0]));
+		}
+		ForkJoinPool pool = WorkerThreads.newForkJoinPool(threads);
+		try {
+			pool.invoke(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+			// write the itemsets left in the buffers
+			for(Workspace workspace : workspaces){
+				flush(workspace);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+			freeWorkspaces = null;
+			workspaces = null;
+			// close the output file if the result was saved to a file
+			if(writer != null){
+				writer.close();
+			}
+		}
+		
+		// record the execution end time
+		endTime= System.currentTimeMillis();
+		// check the memory usage
+		memoryLogger.checkMemory();
+		
+		// return the result (if saved to memory)
+		return patterns;
+	}
+
+	/**
+	 * Mines the conditional tree of one item of a tree. The tree is only read, so
+	 * several tasks can share it.
+	 */
+	private final class MineTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// the tree
+		private final ArrayFPTree tree;
+		// the rank of the item in the tree
+		private final int rank;
+		// the prefix "alpha" of the tree
+		private final int[] prefix;
+
+		/**
+		 * Constructor
+		 * @param tree the tree
+		 * @param rank the rank of the item in the tree
+		 * @param prefix the prefix "alpha" of the tree
+		 */
+		MineTask(ArrayFPTree tree, int rank, int[] prefix) {
+			this.tree = tree;
+			this.rank = rank;
+			this.prefix = prefix;
+		}
+
+		@Override
+		protected void compute() {
+			Workspace workspace = borrowWorkspace();
+			try {
+				// Create Beta by concatening Alpha with the current item
+				// and add it to the list of frequent patterns
+				int[] beta = workspace.prefix;
+				System.arraycopy(prefix, 0, beta, 0, prefix.length);
+				beta[prefix.length] = tree.items[rank];
+				saveItemset(workspace, beta, prefix.length + 1, tree.supports[rank]);
+
+				// Construct beta's conditional FP-Tree
+				ArrayFPTree treeBeta = workspace.getTree(0);
+				buildConditionalTree(tree, rank, treeBeta, workspace);
+				if(treeBeta.nodeCount == 1){
+					return;
+				}
+				if(treeBeta.hasMoreThanOnePath && treeBeta.nodeCount >= SPLIT_SIZE){
+					// a large tree is mined by one task per item. The tree stays
+					// in this workspace, which is not released before they finish.
+					int[] betaCopy = Arrays.copyOf(beta, prefix.length + 1);
+					List<MineTask> tasks = new ArrayList<MineTask>(treeBeta.itemCount);
+					for(int i = treeBeta.itemCount - 1; i >= 0; i--){
+						tasks.add(new MineTask(treeBeta, i, betaCopy));
+					}
+					invokeAll(tasks);
+				}else{
+					fpgrowth(treeBeta, 1, beta, prefix.length + 1, workspace);
+				}
+			} finally {
+				releaseWorkspace(workspace);
+			}
+		}
+	}
+
+	/**
+	 * This method mines pattern from a Prefix-Tree recursively
+	 * @param tree  The Prefix Tree
+	 * @param depth the level of the recursion, giving the workspace tree to use
+	 * @param prefix  The current prefix "alpha"
+	 * @param prefixLength the length of the prefix
+	 * @param workspace the workspace of the current task
+	 */
+	private void fpgrowth(ArrayFPTree tree, int depth, int[] prefix, int prefixLength, Workspace workspace) {
+		// We need to check if there is a single path in the prefix tree or not.
+		if(tree.hasMoreThanOnePath == false){
+			// That means that there is a single path, so we 
+			// add all combinations of this path, concatenated with the prefix "alpha", to the set of patterns found.
+			addAllCombinationsForPathAndPrefix(tree, tree.firstChilds[0], prefix, prefixLength, workspace);
+			return;
+		}
+		ArrayFPTree treeBeta = workspace.getTree(depth);
+		// For each frequent item in the header table list of the tree in reverse order.
+		for(int rank = tree.itemCount - 1; rank >= 0; rank--){
+			// Create Beta by concatening Alpha with the current item
+			// and add it to the list of frequent patterns
+			prefix[prefixLength] = tree.items[rank];
+			saveItemset(workspace, prefix, prefixLength + 1, tree.supports[rank]);
+			// Construct beta's conditional FP-Tree and mine it if the root has children
+			buildConditionalTree(tree, rank, treeBeta, workspace);
+			if(treeBeta.nodeCount > 1){
+				fpgrowth(treeBeta, depth + 1, prefix, prefixLength + 1, workspace);
+			}
+		}
+	}
+
+	/**
+	 * Build the conditional FP-Tree of an item of a tree, made of the prefix paths of
+	 * its nodes and keeping only the items which are frequent in these paths.
+	 * @param tree the tree
+	 * @param rank the rank of the item in the tree
+	 * @param treeBeta the tree to fill
+	 * @param workspace the workspace of the current task
+	 */
+	private void buildConditionalTree(ArrayFPTree tree, int rank, ArrayFPTree treeBeta, Workspace workspace) {
+		int[] supportsBeta = workspace.supports;
+		int[] ranksBeta = workspace.ranks;
+		int[] path = workspace.path;
+		long[] keys = workspace.keys;
+
+		// (A) Calculate the frequency of each item in the prefix paths. The ranks
+		// increase along a path, so only the ranks lower than this one are found.
+		for(int node = tree.heads[rank]; node != -1; node = tree.nodeLinks[node]){
+			int pathCount = tree.counts[node];
+			for(int parent = tree.parents[node]; parent != 0; parent = tree.parents[parent]){
+				supportsBeta[tree.ranks[parent]] += pathCount;
+			}
+		}
+		// the frequent items, sorted by decreasing support
+		int itemCount = 0;
+		for(int i = 0; i < rank; i++){
+			if(supportsBeta[i] >= relativeMinsupp){
+				keys[itemCount++] = ((long) (Integer.MAX_VALUE - supportsBeta[i]) << 32) | i;
+			}
+			ranksBeta[i] = -1;
+			supportsBeta[i] = 0;
+		}
+		Arrays.sort(keys, 0, itemCount);
+		treeBeta.reset(itemCount);
+		for(int i = 0; i < itemCount; i++){
+			int oldRank = (int) keys[i];
+			ranksBeta[oldRank] = i;
+			treeBeta.items[i] = tree.items[oldRank];
+		}
+		if(itemCount == 0){
+			return;
+		}
+
+		// (B) Add each prefix path to the conditional tree
+		for(int node = tree.heads[rank]; node != -1; node = tree.nodeLinks[node]){
+			int length = 0;
+			for(int parent = tree.parents[node]; parent != 0; parent = tree.parents[parent]){
+				int rankBeta = ranksBeta[tree.ranks[parent]];
+				if(rankBeta >= 0){
+					path[length++] = rankBeta;
+				}
+			}
+			Arrays.sort(path, 0, length);
+			treeBeta.addPath(path, length, tree.counts[node]);
+		}
+	}
+
+	/**
+	 * This method is for adding recursively all combinations of nodes in a path, concatenated with a given prefix,
+	 * to the set of patterns found.
+	 * @param tree the tree, which has a single path
+	 * @param node the first node of the rest of the path
+	 * @param prefix  the prefix
+	 * @param prefixLength the length of the prefix
+	 * @param workspace the workspace of the current task
+	 */
+	private void addAllCombinationsForPathAndPrefix(ArrayFPTree tree, int node, int[] prefix, int prefixLength, Workspace workspace) {
+		// Concatenate the node item to the current prefix
+		prefix[prefixLength] = tree.items[tree.ranks[node]];
+		// save the resulting itemset with its support
+		saveItemset(workspace, prefix, prefixLength + 1, tree.counts[node]);
+		
+		int child = tree.firstChilds[node];
+		if(child != -1) {
+			addAllCombinationsForPathAndPrefix(tree, child, prefix, prefixLength + 1, workspace);
+			addAllCombinationsForPathAndPrefix(tree, child, prefix, prefixLength, workspace);
+		}
+	}
+
+	/**
+	 * Add a frequent itemset to the buffer of a workspace, and write the buffer if it
+	 * is full. The buffer holds the length, the items in lexical order and the support
+	 * of each itemset.
+	 * @param workspace the workspace of the current task
+	 * @param itemset the items
+	 * @param length the number of items
+	 * @param support the support
+	 */
+	private void saveItemset(Workspace workspace, int[] itemset, int length, int support) {
+		int[] buffer = workspace.output;
+		int position = workspace.outputLength;
+		if(position + length + 2 > buffer.length){
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length + 2));
+			workspace.output = buffer;
+		}
+		buffer[position] = length;
+		System.arraycopy(itemset, 0, buffer, position + 1, length);
+		// We sort the itemset so that it is in lexical order.
+		Arrays.sort(buffer, position + 1, position + 1 + length);
+		buffer[position + 1 + length] = support;
+		workspace.outputLength = position + length + 2;
+		if(workspace.outputLength >= FLUSH_SIZE){
+			flush(workspace);
+		}
+	}
+
+	/**
+	 * Write the itemsets in the buffer of a workspace to the output file or
+	 * keep them into memory, and empty the buffer.
+	 * @param workspace the workspace
+	 */
+	private void flush(Workspace workspace) {
+		int[] buffer = workspace.output;
+		int end = workspace.outputLength;
+		workspace.outputLength = 0;
+		// if the result should be saved to a file
+		if(writer != null){
+			// Create a string buffer
+			StringBuilder text = new StringBuilder();
+			int count = 0;
+			for(int position = 0; position < end; position += buffer[position] + 2){
+				int length = buffer[position];
+				// write the items of the itemset
+				for(int i = 0; i < length; i++){
+					if(i != 0){
+						text.append(' ');
+					}
+					text.append(buffer[position + 1 + i]);
+				}
+				// Then, write the support
+				text.append(" #SUP: ");
+				text.append(buffer[position + 1 + length]);
+				text.append(System.lineSeparator());
+				count++;
+			}
+			synchronized (this) {
+				try {
+					writer.write(text.toString());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				itemsetCount += count;
+			}
+		}// otherwise the result is kept into memory
+		else{
+			List<Itemset> found = new ArrayList<Itemset>();
+			for(int position = 0; position < end; position += buffer[position] + 2){
+				int length = buffer[position];
+				Itemset itemsetObj = new Itemset(Arrays.copyOfRange(buffer, position + 1, position + 1 + length));
+				itemsetObj.setAbsoluteSupport(buffer[position + 1 + length]);
+				found.add(itemsetObj);
+			}
+			synchronized (this) {
+				for(Itemset itemsetObj : found){
+					patterns.addItemset(itemsetObj, itemsetObj.size());
+				}
+				itemsetCount += found.size();
+			}
+		}
+	}
+
+	/**
+	 * Take a workspace from the pool of the current thread, or create one.
+	 * @return the workspace
+	 */
+	private Workspace borrowWorkspace() {
+		Workspace workspace = freeWorkspaces.get().poll();
+		if(workspace == null){
+			workspace = new Workspace(frequentItemCount);
+			workspaces.add(workspace);
+		}
+		return workspace;
+	}
+
+	/**
+	 * Give a workspace back to the pool of the current thread.
+	 * @param workspace the workspace
+	 */
+	private void releaseWorkspace(Workspace workspace) {
+		freeWorkspaces.get().push(workspace);
+	}
+
+	/**
+	 * The memory used by a task: a conditional tree for each level of the recursion,
+	 * arrays used while building a conditional tree, and a buffer of itemsets found.
+	 */
+	private static final class Workspace {
+		// the conditional trees, by level
+		private final List<ArrayFPTree> trees = new ArrayList<ArrayFPTree>();
+		// the prefix "alpha"
+		final int[] prefix;
+		// the support of each rank in the prefix paths
+		final int[] supports;
+		// the rank in the conditional tree of each rank of the tree
+		final int[] ranks;
+		// the ranks of a path
+		final int[] path;
+		// the frequent ranks, with their support, to be sorted
+		final long[] keys;
+		// the itemsets found and not written yet
+		int[] output = new int[1024];
+		// the number of ints used in the output buffer
+		int outputLength = 0;
+
+		/**
+		 * Constructor
+		 * @param itemCount the number of frequent items
+		 */
+		Workspace(int itemCount) {
+			prefix = new int[itemCount + 1];
+			supports = new int[itemCount];
+			ranks = new int[itemCount];
+			path = new int[itemCount];
+			keys = new long[itemCount];
+		}
+
+		/**
+		 * Get the conditional tree of a level of the recursion.
+		 * @param depth the level
+		 * @return the tree
+		 */
+		ArrayFPTree getTree(int depth) {
+			while(trees.size() <= depth){
+				trees.add(new ArrayFPTree());
+			}
+			return trees.get(depth);
+		}
+	}
+
+	/**
+	 * Print statistics about the algorithm execution to System.out.
+	 */
+	public void printStats() {
+		System.out
+				.println("=============  PARALLEL FP-GROWTH - STATS =============");
+		long temps = endTime - startTimestamp;
+		System.out.println(" Transactions count from database : " + transactionCount);
+		System.out.print(" Max memory usage: " + memoryLogger.getMaxMemory() + " mb \n");
+		System.out.println(" Frequent itemsets count : " + itemsetCount); 
+		System.out.println(" Threads : " + threads); 
+		System.out.println(" Total time ~ " + temps + " ms");
+		System.out
+				.println("===================================================");
+	}
+
+	/**
+	 * Get the number of transactions in the last transaction database read.
+	 * @return the number of transactions.
+	 */
+	public int getDatabaseSize() {
+		return transactionCount;
+	}
+
+	/**
+	 * Get the number of frequent itemsets found by the last execution.
+	 * @return the number of itemsets.
+	 */
+	public long getItemsetCount() {
+		return itemsetCount;
+	}
+}
@@ -0,0 +1,182 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.fpgrowth;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * An FP-Tree stored in arrays of int rather than in FPNode objects, for
+ * the parallel FP-Growth algorithm.
+ * <br/><br/>
+ * 
+ * Items are renumbered by rank: rank 0 is the most frequent item of the tree.
+ * Transactions are inserted with their ranks in increasing order, so the ranks
+ * increase along every path from the root. Node 0 is the root. For each node, the
+ * arrays give its parent, its rank, its count, its first child, its next sibling and
+ * the next node with the same rank (the node link of the header table).
+ * <br/><br/>
+ * 
+ * A tree can be reset and reused, so that the conditional trees built while mining
+ * do not allocate new arrays.
+ *
+ * @see AlgoFPGrowth_Parallel
+ */
+public class ArrayFPTree {
+
+	// the number of nodes, including the root
+	int nodeCount;
+	// the parent of each node
+	int[] parents = new int[64];
+	// the rank of the item of each node (-1 for the root)
+	int[] ranks = new int[64];
+	// the count of each node
+	int[] counts = new int[64];
+	// the first child of each node, or -1
+	int[] firstChilds = new int[64];
+	// the next sibling of each node, or -1
+	int[] siblings = new int[64];
+	// the next node having the same rank, or -1
+	int[] nodeLinks = new int[64];
+
+	// the number of items (ranks) in the tree
+	int itemCount;
+	// the original item of each rank
+	int[] items = new int[16];
+	// the support of each rank
+	int[] supports = new int[16];
+	// the first node of each rank, or -1
+	int[] heads = new int[16];
+	// the last node of each rank, or -1
+	int[] tails = new int[16];
+	// the child of the root having each rank, or -1
+	int[] rootChilds = new int[16];
+
+	// true if a node has more than one child
+	boolean hasMoreThanOnePath;
+
+	/**
+	 * Empty the tree and prepare it for items of the given number of ranks.
+	 * @param itemCount the number of ranks
+	 */
+	void reset(int itemCount) {
+		this.itemCount = itemCount;
+		if(items.length < itemCount){
+			int length = Math.max(itemCount, items.length * 2);
+			items = new int[length];
+			supports = new int[length];
+			heads = new int[length];
+			tails = new int[length];
+			rootChilds = new int[length];
+		}
+		Arrays.fill(supports, 0, itemCount, 0);
+		Arrays.fill(heads, 0, itemCount, -1);
+		Arrays.fill(tails, 0, itemCount, -1);
+		Arrays.fill(rootChilds, 0, itemCount, -1);
+		// the root
+		nodeCount = 1;
+		parents[0] = -1;
+		ranks[0] = -1;
+		counts[0] = 0;
+		firstChilds[0] = -1;
+		siblings[0] = -1;
+		nodeLinks[0] = -1;
+		hasMoreThanOnePath = false;
+	}
+
+	/**
+	 * Add a path to the tree.
+	 * @param pathRanks the ranks of the items of the path, in increasing order
+	 * @param length the number of ranks to read from the array
+	 * @param count the count of the path
+	 */
+	void addPath(int[] pathRanks, int length, int count) {
+		int node = 0;
+		for(int i = 0; i < length; i++){
+			int rank = pathRanks[i];
+			supports[rank] += count;
+			// look if there is a child with this rank already
+			int child;
+			if(node == 0){
+				child = rootChilds[rank];
+			}else{
+				child = firstChilds[node];
+				while(child != -1 && ranks[child] != rank){
+					child = siblings[child];
+				}
+			}
+			if(child == -1){
+				// there is no node, we create a new one
+				child = newNode(node, rank, count);
+				if(node == 0){
+					rootChilds[rank] = child;
+				}
+			}else{
+				// there is a node already, we update it
+				counts[child] += count;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * Create a node and link it to its parent and to the header table.
+	 * @param parent the parent node
+	 * @param rank the rank of its item
+	 * @param count its count
+	 * @return the new node
+	 */
+	private int newNode(int parent, int rank, int count) {
+		if(nodeCount == parents.length){
+			int length = nodeCount * 2;
+			parents = Arrays.copyOf(parents, length);
+			ranks = Arrays.copyOf(ranks, length);
+			counts = Arrays.copyOf(counts, length);
+			firstChilds = Arrays.copyOf(firstChilds, length);
+			siblings = Arrays.copyOf(siblings, length);
+			nodeLinks = Arrays.copyOf(nodeLinks, length);
+		}
+		int node = nodeCount++;
+		parents[node] = parent;
+		ranks[node] = rank;
+		counts[node] = count;
+		firstChilds[node] = -1;
+		nodeLinks[node] = -1;
+		// check if more than one path
+		if(firstChilds[parent] != -1){
+			hasMoreThanOnePath = true;
+		}
+		siblings[node] = firstChilds[parent];
+		firstChilds[parent] = node;
+		// update the node links
+		if(tails[rank] == -1){
+			heads[rank] = node;
+		}else{
+			nodeLinks[tails[rank]] = node;
+		}
+		tails[rank] = node;
+		return node;
+	}
+
+	/**
+	 * Get the number of nodes, including the root.
+	 * @return the number of nodes
+	 */
+	public int size() {
+		return nodeCount;
+	}
+}
@@ -0,0 +1,1033 @@
+package syncleus.dann.learn.pattern.algorithms.sequentialpatterns.BIDE_and_prefixspan;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import syncleus.dann.learn.pattern.input.sequence_database_list_integers.Sequence;
+import syncleus.dann.learn.pattern.input.sequence_database_list_integers.SequenceDatabase;
+import syncleus.dann.learn.pattern.patterns.itemset_list_integers_without_support.Itemset;
+import syncleus.dann.learn.pattern.tools.MemoryLogger;
+import syncleus.dann.learn.pattern.tools.WorkerThreads;
+
+
+/***
+ * This is a parallel implementation of the PrefixSpan algorithm, which finds
+ * the same patterns as AlgoPrefixSpan.
+ *
+ * The sequence database is stored in a single array of ints, where each
+ * itemset is followed by -1, with the offset of each sequence in another array.
+ * A projected database is an array of (sequence, position) pairs, the position
+ * being the first item of the suffix in the array of the database. An item of the
+ * suffix belongs to a postfix if it is in the same itemset as the item before
+ * the position. No object is created for a projection.
+ *
+ * The projected database of each frequent item is mined by a task of a fork/join
+ * pool. A large projected database found by a task is mined by a new task that
+ * other threads can steal, as long as the projected databases waiting for a thread
+ * stay below a memory limit. Otherwise, it is mined by the same task.
+ *
+ * If only the closed patterns are wanted, as with AlgoBIDEPlus, all frequent patterns
+ * are found and a pattern is removed when a pattern with one more item has the same
+ * support. Without the pruning of the search space of BIDE+, no closed pattern is
+ * missed, while AlgoBIDEPlus can miss some of them.
+ *
+ * NOTE: If the patterns are saved to a file, they are written in the format of
+ * AlgoPrefixSpan, in no particular order.
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see AlgoPrefixSpan
+ * @see AlgoBIDEPlus
+ */
+
+public class AlgoPrefixSpan_Parallel{
+
+	// a projected database with at least this number of pairs may be mined by a new task
+	private static final int FORK_SIZE = 256;
+	// the number of chars in the output buffer of a task before it is written
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	// for statistics
+	long startTime;
+	long endTime;
+
+	// the number of pattern found
+	int patternCount;
+	// the number of frequent patterns found, before removing the non closed ones
+	int frequentPatternCount;
+	// the number of projected databases mined by a new task
+	private final AtomicLong forkCount = new AtomicLong();
+
+	// absolute minimum support
+	private int minsuppAbsolute;
+
+	// writer to write output file
+	BufferedWriter writer = null;
+
+	// The sequential patterns that are found
+	// (if the user want to keep them into memory)
+	private SequentialPatterns patterns = null;
+
+	// maximum pattern length in terms of item count
+	private int maximumPatternLength = Integer.MAX_VALUE;
+
+	// if true, only the closed patterns are kept
+	private boolean closedPatternsOnly = false;
+
+	// the maximum memory used by the projected databases waiting for a thread, in bytes
+	private long projectionMemoryLimit = Runtime.getRuntime().maxMemory() / 4;
+	// the memory used by the projected databases waiting for a thread, in bytes
+	private final AtomicLong projectionMemory = new AtomicLong();
+
+	// the number of threads
+	private final int threads;
+
+	// the items of the sequences, each itemset being followed by -1.
+	// The items are replaced by their rank in the array "items".
+	private int[] database;
+	// the position of each sequence in the array "database", and the end of the last one
+	private int[] sequenceStarts;
+	// the id of each sequence
+	private int[] sequenceIds;
+	// the frequent items, by rank
+	private int[] items;
+
+	// the workspaces that are not used, for each thread
+	private ThreadLocal<ArrayDeque<Workspace>> freeWorkspaces;
+	// all workspaces
+	private Queue<Workspace> workspaces;
+
+	/**
+	 * Default constructor, using one thread per processor.
+	 */
+	public AlgoPrefixSpan_Parallel(){
+		this(0);
+	}
+
+	/**
+	 * Constructor
+	 * @param threadCount the number of threads, or 0 for one thread per processor
+	 */
+	public AlgoPrefixSpan_Parallel(int threadCount){
+		threads = Math.max(1, threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Run the algorithm
+	 * @param database : a sequence database
+	 * @param minsupRelative  :  the minimum support as a percentage (e.g. 50%) as a value in [0,1]
+	 * @param outputFilePath : the path of the output file to save the result
+	 *                         or null if you want the result to be saved into memory
+	 * @return return the result, if saved into memory, otherwise null
+	 * @throws IOException  exception if error while writing the file
+	 */
+	public SequentialPatterns runAlgorithm(SequenceDatabase database, double minsupRelative, String outputFilePath) throws IOException {
+		// convert to a absolute minimum support
+		int minsup = (int) Math.ceil(minsupRelative * database.size());
+		if(minsup == 0){ // protection
+			minsup = 1;
+		}
+		return runAlgorithm(database, outputFilePath, minsup);
+	}
+
+	/**
+	 * Run the algorithm
+	 * @param database : a sequence database
+	 * @param minsup  :  the minimum support as an integer
+	 * @param outputFilePath : the path of the output file to save the result
+	 *                         or null if you want the result to be saved into memory
+	 * @return return the result, if saved into memory, otherwise null
+	 * @throws IOException  exception if error while writing the file
+	 */
+	public SequentialPatterns runAlgorithm(SequenceDatabase database, String outputFilePath, int minsup) throws IOException {
+		// initialize variables for statistics
+		patternCount = 0;
+		frequentPatternCount = 0;
+		forkCount.set(0);
+		MemoryLogger.getInstance().reset();
+		// save the minsup chosen  by the user
+		this.minsuppAbsolute = minsup;
+		// save the start time
+		startTime = System.currentTimeMillis();
+
+		// if the user want to keep the result into memory
+		if(outputFilePath == null){
+			writer = null;
+			patterns = new SequentialPatterns("FREQUENT SEQUENTIAL PATTERNS");
+		}else{ // if the user want to save the result to a file
+			patterns = null;
+			writer = new BufferedWriter(new FileWriter(outputFilePath));
+		}
+
+		try {
+			// convert the database to an array without the infrequent items
+			int[] supports = convertDatabase(database);
+			MemoryLogger.getInstance().checkMemory();
+			// mine the projected database of each frequent item
+			mine(supports);
+			// if only the closed patterns are wanted, they are saved now
+			if(closedPatternsOnly){
+				saveClosedPatterns();
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			this.database = null;
+			sequenceStarts = null;
+			sequenceIds = null;
+			freeWorkspaces = null;
+			workspaces = null;
+			// close the output file if the result was saved to a file
+			if(writer != null){
+				writer.close();
+			}
+		}
+
+		// save the end time
+		endTime = System.currentTimeMillis();
+		MemoryLogger.getInstance().checkMemory();
+		return patterns;
+	}
+
+	/**
+	 * Convert the database to an array of ints, removing the infrequent items, the empty
+	 * itemsets and the empty sequences.
+	 * @param sequenceDatabase the sequence database
+	 * @return the support of each frequent item, by rank
+	 */
+	private int[] convertDatabase(SequenceDatabase sequenceDatabase) {
+		// count the sequences containing each item
+		Map<Integer, int[]> counts = new HashMap<Integer, int[]>();
+		int sequenceIndex = 0;
+		for(Sequence sequence : sequenceDatabase.getSequences()){
+			for(List<Integer> itemset : sequence.getItemsets()){
+				for(Integer item : itemset){
+					// the count and the last sequence where the item was seen
+					int[] count = counts.get(item);
+					if(count == null){
+						count = new int[] {0, -1};
+						counts.put(item, count);
+					}
+					if(count[1] != sequenceIndex){
+						count[1] = sequenceIndex;
+						count[0]++;
+					}
+				}
+			}
+			sequenceIndex++;
+		}
+
+		// give a rank to each frequent item, by increasing item
+		List<Integer> frequentItems = new ArrayList<Integer>();
+		for(Map.Entry<Integer, int[]> entry : counts.entrySet()){
+			if(entry.getValue()[0] >= minsuppAbsolute){
+				frequentItems.add(entry.getKey());
+			}
+		}
+		Collections.sort(frequentItems);
+		items = new int[frequentItems.size()];
+		int[] supports = new int[items.length];
+		Map<Integer, Integer> ranks = new HashMap<Integer, Integer>();
+		for(int rank = 0; rank < items.length; rank++){
+			items[rank] = frequentItems.get(rank);
+			supports[rank] = counts.get(items[rank])[0];
+			ranks.put(items[rank], rank);
+		}
+
+		// write the sequences
+		int[] array = new int[1024];
+		int length = 0;
+		int[] starts = new int[sequenceDatabase.size() + 1];
+		int[] ids = new int[sequenceDatabase.size()];
+		int sequenceCount = 0;
+		for(Sequence sequence : sequenceDatabase.getSequences()){
+			int start = length;
+			for(List<Integer> itemset : sequence.getItemsets()){
+				int itemsetStart = length;
+				for(Integer item : itemset){
+					Integer rank = ranks.get(item);
+					if(rank != null){
+						if(length + 2 > array.length){
+							array = Arrays.copyOf(array, array.length * 2);
+						}
+						array[length++] = rank;
+					}
+				}
+				// the empty itemsets are removed
+				if(length != itemsetStart){
+					array[length++] = -1;
+				}
+			}
+			// the empty sequences are removed
+			if(length != start){
+				starts[sequenceCount] = start;
+				ids[sequenceCount++] = sequence.getId();
+			}
+		}
+		starts[sequenceCount] = length;
+		database = array;
+		sequenceStarts = Arrays.copyOf(starts, sequenceCount + 1);
+		sequenceIds = Arrays.copyOf(ids, sequenceCount);
+		return supports;
+	}
+
+	/**
+	 * Mine the projected database of each frequent item on the fork/join pool.
+	 * @param supports the support of each frequent item, by rank
+	 */
+	private void mine(final int[] supports) {
+		freeWorkspaces = ThreadLocal.withInitial(ArrayDeque::new);
+		workspaces = new ConcurrentLinkedQueue<Workspace>();
+		projectionMemory.set(0);
+
+		// one task per frequent item
+		final List<ItemTask> tasks = new ArrayList<ItemTask>();
+		for(int rank = 0; rank < items.length; rank++){
+			tasks.add(new ItemTask(rank, supports[rank]));
+		}
+		ForkJoinPool pool = WorkerThreads.newForkJoinPool(threads);
+		try {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+			// write the patterns left in the buffers
+			for(Workspace workspace : workspaces){
+				flush(workspace);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * The task mining the projected database of a frequent item.
+	 */
+	private final class ItemTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// the rank of the item
+		private final int rank;
+		// the support of the item
+		private final int support;
+
+		/**
+		 * Constructor
+		 * @param rank the rank of the item
+		 * @param support the support of the item
+		 */
+		ItemTask(int rank, int support) {
+			this.rank = rank;
+			this.support = support;
+		}
+
+		@Override
+		protected void compute() {
+			Workspace workspace = borrowWorkspace();
+			try {
+				// build the projected database for that item, with a pair
+				// for each occurrence of the item
+				int[] pairs = workspace.pairs;
+				int length = 0;
+				int[] sids = workspace.sids;
+				int sidCount = 0;
+				for(int sid = 0; sid < sequenceIds.length; sid++){
+					int end = sequenceStarts[sid + 1];
+					boolean found = false;
+					for(int position = sequenceStarts[sid]; position < end; position++){
+						if(database[position] == rank){
+							found = true;
+							int next = database[position + 1] == -1 ? position + 2 : position + 1;
+							if(next < end){
+								if(length + 2 > pairs.length){
+									pairs = workspace.pairs = Arrays.copyOf(pairs, pairs.length * 2);
+								}
+								pairs[length++] = sid;
+								pairs[length++] = next;
+							}
+						}
+					}
+					if(found){
+						sids[sidCount++] = sid;
+					}
+				}
+				int[] projection = Arrays.copyOf(pairs, length);
+
+				// The prefix is a frequent sequential pattern.
+				// We save it in the result.
+				int[] prefix = new int[] {rank, -1};
+				savePattern(workspace, prefix, support, sids, sidCount);
+
+				// We make a recursive call to try to find larger sequential
+				// patterns starting with this prefix
+				if(maximumPatternLength > 1){
+					List<ProjectionTask> tasks = recursion(workspace, prefix, projection, 2);
+					joinAll(tasks);
+				}
+				MemoryLogger.getInstance().checkMemory();
+			} finally {
+				releaseWorkspace(workspace);
+			}
+		}
+	}
+
+	/**
+	 * The task mining a large projected database found by another task.
+	 */
+	private final class ProjectionTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		// the prefix of the projected database
+		private final int[] prefix;
+		// the pairs of the projected database
+		private final int[] projection;
+		// the prefix length in terms of items
+		private final int k;
+
+		/**
+		 * Constructor
+		 * @param prefix the prefix of the projected database
+		 * @param projection the pairs of the projected database
+		 * @param k the prefix length in terms of items
+		 */
+		ProjectionTask(int[] prefix, int[] projection, int k) {
+			this.prefix = prefix;
+			this.projection = projection;
+			this.k = k;
+		}
+
+		@Override
+		protected void compute() {
+			// the projected database is no longer waiting for a thread
+			projectionMemory.addAndGet(-4L * projection.length);
+			Workspace workspace = borrowWorkspace();
+			List<ProjectionTask> tasks;
+			try {
+				tasks = recursion(workspace, prefix, projection, k);
+			} finally {
+				releaseWorkspace(workspace);
+			}
+			joinAll(tasks);
+		}
+	}
+
+	/**
+	 * Wait for tasks to finish.
+	 * @param tasks the tasks, or null
+	 */
+	private static void joinAll(List<ProjectionTask> tasks) {
+		if(tasks != null){
+			for(int t = tasks.size() - 1; t >= 0; t--){
+				tasks.get(t).join();
+			}
+		}
+	}
+
+	/**
+	 * Method to recursively grow a given sequential pattern.
+	 * @param workspace the workspace of the current task
+	 * @param prefix  the current sequential pattern that we want to try to grow,
+	 *                each itemset being followed by -1
+	 * @param projection the pairs of the current projected sequence database
+	 * @param k  the prefix length in terms of items
+	 * @return the tasks created, which have to be joined, or null
+	 */
+	private List<ProjectionTask> recursion(Workspace workspace, int[] prefix, int[] projection, int k) {
+		// find the items that can extend the prefix in the current projected database,
+		// in the last itemset of the prefix (a postfix) or as a new itemset.
+		int[] postfixItems = findFrequentItems(workspace, projection, true);
+		int[] newItemsetItems = findFrequentItems(workspace, projection, false);
+
+		List<ProjectionTask> tasks = null;
+		for(int pass = 0; pass < 2; pass++){
+			boolean postfix = pass == 0;
+			for(int rank : postfix ? postfixItems : newItemsetItems){
+				// create the new prefix by appending this item to the prefix
+				int[] newPrefix;
+				if(postfix){
+					// we append it to the last itemset of the prefix
+					newPrefix = Arrays.copyOf(prefix, prefix.length + 1);
+					newPrefix[prefix.length - 1] = rank;
+					newPrefix[prefix.length] = -1;
+				}else{ // else, we append it as a new itemset to the sequence
+					newPrefix = Arrays.copyOf(prefix, prefix.length + 2);
+					newPrefix[prefix.length] = rank;
+					newPrefix[prefix.length + 1] = -1;
+				}
+
+				// build the projected database with this item
+				int[] newProjection = buildProjectedDatabase(workspace, rank, projection, postfix);
+
+				// save the pattern
+				savePattern(workspace, newPrefix, workspace.sidCount, workspace.sids, workspace.sidCount);
+
+				// make a recursive call
+				if(k < maximumPatternLength && newProjection.length > 0){
+					if(newProjection.length >= 2 * FORK_SIZE && reserveProjectionMemory(newProjection)){
+						// a large projected database is mined by a new task, that another thread can steal
+						ProjectionTask task = new ProjectionTask(newPrefix, newProjection, k + 1);
+						task.fork();
+						forkCount.incrementAndGet();
+						if(tasks == null){
+							tasks = new ArrayList<ProjectionTask>();
+						}
+						tasks.add(task);
+					}else{
+						List<ProjectionTask> newTasks = recursion(workspace, newPrefix, newProjection, k + 1);
+						if(newTasks != null){
+							if(tasks == null){
+								tasks = new ArrayList<ProjectionTask>();
+							}
+							tasks.addAll(newTasks);
+						}
+					}
+				}
+			}
+		}
+		// check the current memory usage
+		MemoryLogger.getInstance().checkMemory();
+		return tasks;
+	}
+
+	/**
+	 * Reserve the memory of a projected database that will wait for a thread.
+	 * @param projection the pairs of the projected database
+	 * @return true if the memory is below the limit, false otherwise
+	 */
+	private boolean reserveProjectionMemory(int[] projection) {
+		long size = 4L * projection.length;
+		if(projectionMemory.addAndGet(size) > projectionMemoryLimit){
+			projectionMemory.addAndGet(-size);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check if the suffix starting at a given position begins with a postfix,
+	 * that is if the item before the position is in the same itemset.
+	 * @param sid the sequence
+	 * @param position the position of the suffix in the array of the database
+	 * @return true if the first itemset of the suffix is cut at left
+	 */
+	private boolean isPostfix(int sid, int position) {
+		return position > sequenceStarts[sid] && database[position - 1] != -1;
+	}
+
+	/**
+	 * Method to find the frequent items in a projected sequence database
+	 * @param workspace the workspace of the current task
+	 * @param projection the pairs of the projected database
+	 * @param postfix  if true, the items in the itemsets that are cut (postfixes) are
+	 *                 counted, otherwise the items in the other itemsets.
+	 * @return the ranks of the frequent items
+	 */
+	private int[] findFrequentItems(Workspace workspace, int[] projection, boolean postfix) {
+		int[] counts = workspace.counts;
+		int[] lastSids = workspace.lastSids;
+		int[] found = workspace.found;
+		int foundCount = 0;
+		// for each pair
+		for(int p = 0; p < projection.length; p += 2){
+			int sid = projection[p];
+			int position = projection[p + 1];
+			if(postfix){
+				// if the first itemset is cut, count its items
+				if(!isPostfix(sid, position)){
+					continue;
+				}
+				for(; database[position] != -1; position++){
+					int rank = database[position];
+					if(lastSids[rank] != sid){
+						lastSids[rank] = sid;
+						if(counts[rank]++ == 0){
+							found[foundCount++] = rank;
+						}
+					}
+				}
+			}else{
+				// the suffixes of a sequence are included in the first one,
+				// so only the items of the first one are counted
+				if(p != 0 && projection[p - 2] == sid){
+					continue;
+				}
+				if(isPostfix(sid, position)){
+					while(database[position] != -1){
+						position++;
+					}
+				}
+				int end = sequenceStarts[sid + 1];
+				for(; position < end; position++){
+					int rank = database[position];
+					if(rank != -1 && lastSids[rank] != sid){
+						lastSids[rank] = sid;
+						if(counts[rank]++ == 0){
+							found[foundCount++] = rank;
+						}
+					}
+				}
+			}
+		}
+		// keep the frequent items and reset the counters
+		int frequentCount = 0;
+		for(int i = 0; i < foundCount; i++){
+			int rank = found[i];
+			if(counts[rank] >= minsuppAbsolute){
+				found[frequentCount++] = rank;
+			}
+			counts[rank] = 0;
+			lastSids[rank] = -1;
+		}
+		return Arrays.copyOf(found, frequentCount);
+	}
+
+	/**
+	 * Create a projected database by pseudo-projection. The sequences containing the item
+	 * are stored in the "sids" array of the workspace.
+	 * @param workspace the workspace of the current task
+	 * @param rank The item to use to make the pseudo-projection
+	 * @param projection the pairs of the current projected database.
+	 * @param inPostFix This boolean indicates if the item "item" is part of a suffix or not.
+	 * @return the pairs of the projected database.
+	 */
+	private int[] buildProjectedDatabase(Workspace workspace, int rank, int[] projection, boolean inPostFix) {
+		int[] pairs = workspace.pairs;
+		int length = 0;
+		int[] sids = workspace.sids;
+		int sidCount = 0;
+		// for each pair
+		for(int p = 0; p < projection.length; p += 2){
+			int sid = projection[p];
+			int position = projection[p + 1];
+			int end;
+			if(inPostFix){
+				// search the item in the first itemset, if it is cut
+				if(!isPostfix(sid, position)){
+					continue;
+				}
+				end = position;
+				while(database[end] != -1){
+					end++;
+				}
+			}else{
+				// search the item in the itemsets of the first suffix of the sequence
+				// that are not cut
+				if(p != 0 && projection[p - 2] == sid){
+					continue;
+				}
+				if(isPostfix(sid, position)){
+					while(database[position] != -1){
+						position++;
+					}
+				}
+				end = sequenceStarts[sid + 1];
+			}
+			for(; position < end; position++){
+				if(database[position] == rank){
+					if(sidCount == 0 || sids[sidCount - 1] != sid){
+						sids[sidCount++] = sid;
+					}
+					// the suffix starts after the item, or at the next itemset
+					// if the item is the last one of its itemset
+					int next = database[position + 1] == -1 ? position + 2 : position + 1;
+					if(next < sequenceStarts[sid + 1]){
+						if(length + 2 > pairs.length){
+							pairs = workspace.pairs = Arrays.copyOf(pairs, pairs.length * 2);
+						}
+						pairs[length++] = sid;
+						pairs[length++] = next;
+					}
+				}
+			}
+		}
+		workspace.sidCount = sidCount;
+		return Arrays.copyOf(pairs, length);
+	}
+
+	/**
+	 * This method saves a sequential pattern to the output buffer of a task, or
+	 * keeps it until the end if only the closed patterns are wanted.
+	 * @param workspace the workspace of the current task
+	 * @param prefix the pattern to be saved, each itemset being followed by -1
+	 * @param support the support of the pattern
+	 * @param sids the sequences containing the pattern
+	 * @param sidCount the number of sequences containing the pattern
+	 */
+	private void savePattern(Workspace workspace, int[] prefix, int support, int[] sids, int sidCount) {
+		workspace.patternCount++;
+		if(closedPatternsOnly){
+			// the sequences are only needed if the result is kept into memory
+			workspace.candidates.add(new FoundPattern(prefix, support,
+					writer == null ? Arrays.copyOf(sids, sidCount) : null));
+		}else if(writer != null){
+			appendPattern(workspace.output, prefix, support);
+			if(workspace.output.length() >= FLUSH_SIZE){
+				flush(workspace);
+			}
+		}else{
+			workspace.patterns.add(createPattern(prefix, Arrays.copyOf(sids, sidCount)));
+			if(workspace.patterns.size() >= FLUSH_SIZE){
+				flush(workspace);
+			}
+		}
+	}
+
+	/**
+	 * Write a sequential pattern in the format of AlgoPrefixSpan.
+	 * @param r the buffer where it is written
+	 * @param prefix the pattern, each itemset being followed by -1
+	 * @param support the support of the pattern
+	 */
+	private void appendPattern(StringBuilder r, int[] prefix, int support) {
+		// for each item, or -1 at the end of each itemset
+		for(int rank : prefix){
+			r.append(rank == -1 ? -1 : items[rank]);
+			r.append(' ');
+		}
+		// add the support
+		r.append("#SUP: ");
+		r.append(support);
+		r.append(System.lineSeparator());
+	}
+
+	/**
+	 * Create the sequential pattern object for a pattern.
+	 * @param prefix the pattern, each itemset being followed by -1
+	 * @param sids the sequences containing the pattern
+	 * @return the sequential pattern
+	 */
+	private SequentialPattern createPattern(int[] prefix, int[] sids) {
+		SequentialPattern pattern = new SequentialPattern();
+		Itemset itemset = new Itemset();
+		for(int rank : prefix){
+			if(rank == -1){
+				pattern.addItemset(itemset);
+				itemset = new Itemset();
+			}else{
+				itemset.addItem(items[rank]);
+			}
+		}
+		Set<Integer> sequenceIDs = new HashSet<Integer>();
+		for(int sid : sids){
+			sequenceIDs.add(sequenceIds[sid]);
+		}
+		pattern.setSequenceIDs(sequenceIDs);
+		return pattern;
+	}
+
+	/**
+	 * Write the patterns in the buffers of a workspace to the output file or
+	 * keep them into memory, and empty the buffers.
+	 * @param workspace the workspace
+	 */
+	private void flush(Workspace workspace) {
+		synchronized (this) {
+			if(workspace.output.length() > 0){
+				try {
+					writer.write(workspace.output.toString());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				workspace.output.setLength(0);
+			}
+			for(SequentialPattern pattern : workspace.patterns){
+				patterns.addSequence(pattern, pattern.size());
+			}
+			workspace.patterns.clear();
+			frequentPatternCount += workspace.patternCount;
+			if(!closedPatternsOnly){
+				patternCount += workspace.patternCount;
+			}
+			workspace.patternCount = 0;
+		}
+	}
+
+	/**
+	 * Save the closed patterns: the frequent patterns such that no pattern with one
+	 * more item has the same support. If a pattern has a super-pattern with the same
+	 * support, it also has one with only one more item.
+	 * @throws UncheckedIOException if error while writing the output file.
+	 */
+	private void saveClosedPatterns() {
+		Map<FoundPattern, FoundPattern> all = new HashMap<FoundPattern, FoundPattern>();
+		for(Workspace workspace : workspaces){
+			for(FoundPattern pattern : workspace.candidates){
+				all.put(pattern, pattern);
+			}
+			workspace.candidates.clear();
+		}
+		MemoryLogger.getInstance().checkMemory();
+
+		// for each pattern, remove each item to find its sub-patterns with one less item
+		for(FoundPattern pattern : all.keySet()){
+			int[] prefix = pattern.prefix;
+			for(int i = 0; i < prefix.length; i++){
+				if(prefix[i] == -1){
+					continue;
+				}
+				// if the item is alone in its itemset, the itemset is removed
+				boolean alone = (i == 0 || prefix[i - 1] == -1) && prefix[i + 1] == -1;
+				int removed = alone ? 2 : 1;
+				if(prefix.length - removed == 0){
+					continue;
+				}
+				int[] subPrefix = new int[prefix.length - removed];
+				System.arraycopy(prefix, 0, subPrefix, 0, i);
+				System.arraycopy(prefix, i + removed, subPrefix, i, prefix.length - i - removed);
+				FoundPattern subPattern = all.get(new FoundPattern(subPrefix, 0, null));
+				if(subPattern != null && subPattern.support == pattern.support){
+					subPattern.closed = false;
+				}
+			}
+		}
+
+		// save the closed patterns
+		StringBuilder r = new StringBuilder();
+		for(FoundPattern pattern : all.keySet()){
+			if(!pattern.closed){
+				continue;
+			}
+			patternCount++;
+			if(writer != null){
+				appendPattern(r, pattern.prefix, pattern.support);
+				if(r.length() >= FLUSH_SIZE){
+					write(r);
+				}
+			}else{
+				SequentialPattern sequentialPattern = createPattern(pattern.prefix, pattern.sids);
+				patterns.addSequence(sequentialPattern, sequentialPattern.size());
+			}
+		}
+		if(writer != null){
+			write(r);
+		}
+	}
+
+	/**
+	 * Write the content of a buffer to the output file and empty the buffer.
+	 * @param r the buffer
+	 */
+	private void write(StringBuilder r) {
+		try {
+			writer.write(r.toString());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		r.setLength(0);
+	}
+
+	/**
+	 * Take a workspace from the pool of the current thread, or create one.
+	 * @return the workspace
+	 */
+	private Workspace borrowWorkspace() {
+		Workspace workspace = freeWorkspaces.get().poll();
+		if(workspace == null){
+			workspace = new Workspace(items.length, sequenceIds.length);
+			workspaces.add(workspace);
+		}
+		return workspace;
+	}
+
+	/**
+	 * Give a workspace back to the pool of the current thread.
+	 * @param workspace the workspace
+	 */
+	private void releaseWorkspace(Workspace workspace) {
+		freeWorkspaces.get().push(workspace);
+	}
+
+	/**
+	 * A frequent pattern, kept until the end when only the closed patterns are wanted.
+	 * Two patterns are equal if they have the same items.
+	 */
+	private static final class FoundPattern {
+		// the pattern, each itemset being followed by -1
+		final int[] prefix;
+		// the support
+		final int support;
+		// the sequences containing the pattern, or null
+		final int[] sids;
+		// the hash code of the pattern
+		private final int hashCode;
+		// false if a pattern with one more item has the same support
+		boolean closed = true;
+
+		/**
+		 * Constructor
+		 * @param prefix the pattern, each itemset being followed by -1
+		 * @param support the support
+		 * @param sids the sequences containing the pattern, or null
+		 */
+		FoundPattern(int[] prefix, int support, int[] sids) {
+			this.prefix = prefix;
+			this.support = support;
+			this.sids = sids;
+			this.hashCode = Arrays.hashCode(prefix);
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			return object instanceof FoundPattern && Arrays.equals(prefix, ((FoundPattern) object).prefix);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * The memory used by a task: the counters of items, the arrays used while building
+	 * a projected database, and the patterns found and not saved yet.
+	 */
+	private static final class Workspace {
+		// the number of sequences containing each item
+		final int[] counts;
+		// the last sequence where each item was counted
+		final int[] lastSids;
+		// the items found in a projected database
+		final int[] found;
+		// the pairs of the projected database being built
+		int[] pairs = new int[1024];
+		// the sequences containing the item used for the last projection
+		final int[] sids;
+		// the number of sequences in "sids"
+		int sidCount;
+		// the patterns found, if they are saved to a file
+		final StringBuilder output = new StringBuilder();
+		// the patterns found, if they are kept into memory
+		final List<SequentialPattern> patterns = new ArrayList<SequentialPattern>();
+		// the patterns found, if only the closed ones are wanted
+		final List<FoundPattern> candidates = new ArrayList<FoundPattern>();
+		// the number of patterns found and not counted yet
+		int patternCount;
+
+		/**
+		 * Constructor
+		 * @param itemCount the number of frequent items
+		 * @param sequenceCount the number of sequences
+		 */
+		Workspace(int itemCount, int sequenceCount) {
+			counts = new int[itemCount];
+			lastSids = new int[itemCount];
+			Arrays.fill(lastSids, -1);
+			found = new int[itemCount];
+			sids = new int[sequenceCount];
+		}
+	}
+
+	/**
+	 * Print statistics about the algorithm execution to System.out.
+	 * @param size  the size of the database
+	 */
+	public void printStatistics(int size) {
+		StringBuffer r = new StringBuffer(200);
+		r.append("=============  PREFIXSPAN PARALLEL - STATISTICS =============\n Total time ~ ");
+		r.append(endTime - startTime);
+		r.append(" ms\n");
+		r.append(closedPatternsOnly ? " Closed sequential pattern count : " : " Frequent sequences count : ");
+		r.append(patternCount);
+		r.append('\n');
+		if(closedPatternsOnly){
+			r.append(" Frequent sequences count : ");
+			r.append(frequentPatternCount);
+			r.append('\n');
+		}
+		r.append(" Threads : ");
+		r.append(threads);
+		r.append(" (");
+		r.append(forkCount.get());
+		r.append(" projected databases mined by new tasks)\n");
+		r.append(" Max memory (mb) : " );
+		r.append(MemoryLogger.getInstance().getMaxMemory());
+		r.append('\n');
+		r.append("===================================================\n");
+		// if the result was save into memory, print it
+		if(patterns !=null){
+			patterns.printFrequentPatterns(size);
+		}
+		System.out.println(r.toString());
+	}
+
+	/**
+	 * Get the number of patterns found by the last execution.
+	 * @return the number of patterns
+	 */
+	public int getPatternCount() {
+		return patternCount;
+	}
+
+	/**
+	 * Get the maximum length of patterns to be found (in terms of item count)
+	 * @return the maximumPatternLength
+	 */
+	public int getMaximumPatternLength() {
+		return maximumPatternLength;
+	}
+
+	/**
+	 * Set the maximum length of patterns to be found (in terms of item count)
+	 * @param maximumPatternLength the maximumPatternLength to set
+	 */
+	public void setMaximumPatternLength(int maximumPatternLength) {
+		this.maximumPatternLength = maximumPatternLength;
+	}
+
+	/**
+	 * Choose to keep only the closed patterns: the patterns such that no pattern
+ * containing them has the same support.
+	 * @param closedPatternsOnly true to keep only the closed patterns
+	 */
+	public void setClosedPatternsOnly(boolean closedPatternsOnly) {
+		this.closedPatternsOnly = closedPatternsOnly;
+	}
+
+	/**
+	 * Set the maximum memory used by the projected databases waiting for a thread.
+	 * When it is reached, the projected databases are mined by the task that
+	 * found them, depth-first.
+	 * @param projectionMemoryLimit a number of bytes
+	 */
+	public void setProjectionMemoryLimit(long projectionMemoryLimit) {
+		this.projectionMemoryLimit = projectionMemoryLimit;
+	}
+}
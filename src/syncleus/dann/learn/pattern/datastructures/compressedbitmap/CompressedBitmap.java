@@ -0,0 +1,691 @@
+package syncleus.dann.learn.pattern.datastructures.compressedbitmap;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class is a compressed bitmap of non negative integers, in the style of
+ * Roaring bitmaps (Chambi et al., 2016). It is used to store the tidsets and
+ * diffsets of itemsets, which are often much sparser than a BitSet of the
+ * size of the database.
+ * <br/><br/>
+ * 
+ * The integers are divided in chunks of 65536 values by their 16 high bits.
+ * Each chunk that is not empty has a container for the 16 low bits of its values:
+ * a sorted array of char if it has at most 4096 values, or a bitmap of 1024 long
+ * otherwise. So a container never takes more than 8 kb and a sparse chunk takes
+ * 2 bytes per value.
+ * <br/><br/>
+ * 
+ * A bitmap is built by adding values in increasing order with add(). It should
+ * not be modified after it has been used in an operation. The operations create
+ * new bitmaps, so the same bitmap can be read by several threads.
+ *
+ * @see <a href="http://roaringbitmap.org">Roaring bitmaps</a>
+ */
+public class CompressedBitmap {
+
+	/** the maximum number of values of an array container */
+	static final int MAX_ARRAY_SIZE = 4096;
+	/** the number of long of a bitmap container */
+	private static final int BITMAP_SIZE = 1024;
+
+	// the 16 high bits of the values of each container, in increasing order
+	private char[] keys;
+	// the values of each array container, or null for a bitmap container
+	private char[][] arrays;
+	// the bits of each bitmap container, or null for an array container
+	private long[][] bitmaps;
+	// the number of values of each container
+	private int[] cardinalities;
+	// the number of containers
+	private int size;
+	// the total number of values
+	private int cardinality;
+
+	/**
+	 * Constructor of an empty bitmap.
+	 */
+	public CompressedBitmap() {
+		this(4);
+	}
+
+	/**
+	 * Constructor
+	 * @param capacity the number of containers to allocate
+	 */
+	private CompressedBitmap(int capacity) {
+		capacity = Math.max(1, capacity);
+		keys = new char[capacity];
+		arrays = new char[capacity][];
+		bitmaps = new long[capacity][];
+		cardinalities = new int[capacity];
+	}
+
+	/**
+	 * Create a compressed bitmap with the bits set in a BitSet.
+	 * @param bitset the bitset
+	 * @return the compressed bitmap
+	 */
+	public static CompressedBitmap fromBitSet(BitSet bitset) {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (int value = bitset.nextSetBit(0); value >= 0; value = bitset.nextSetBit(value + 1)) {
+			bitmap.add(value);
+		}
+		bitmap.trim();
+		return bitmap;
+	}
+
+	/**
+	 * Add a value. The values have to be added in increasing order; adding the
+	 * last value again has no effect.
+	 * @param value the value
+	 */
+	public void add(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("negative value " + value);
+		}
+		char key = (char) (value >>> 16);
+		char low = (char) value;
+		if (size == 0 || keys[size - 1] != key) {
+			if (size > 0 && keys[size - 1] > key) {
+				throw new IllegalArgumentException("values must be added in increasing order");
+			}
+			trimContainer(size - 1);
+			ensureCapacity(size + 1);
+			keys[size] = key;
+			arrays[size] = new char[4];
+			bitmaps[size] = null;
+			cardinalities[size] = 0;
+			size++;
+		}
+		int i = size - 1;
+		if (arrays[i] != null) {
+			char[] array = arrays[i];
+			int count = cardinalities[i];
+			if (count > 0) {
+				if (array[count - 1] == low) {
+					return;
+				}
+				if (array[count - 1] > low) {
+					throw new IllegalArgumentException("values must be added in increasing order");
+				}
+			}
+			if (count == MAX_ARRAY_SIZE) {
+				// the container is too large for an array
+				bitmaps[i] = toBitmap(array, count);
+				arrays[i] = null;
+			} else {
+				if (count == array.length) {
+					array = Arrays.copyOf(array, Math.min(MAX_ARRAY_SIZE, count * 2));
+					arrays[i] = array;
+				}
+				array[count] = low;
+				cardinalities[i]++;
+				cardinality++;
+				return;
+			}
+		}
+		long[] bitmap = bitmaps[i];
+		long bit = 1L << low;
+		if ((bitmap[low >>> 6] & bit) == 0) {
+			bitmap[low >>> 6] |= bit;
+			cardinalities[i]++;
+			cardinality++;
+		}
+	}
+
+	/**
+	 * Release the memory allocated in advance by add().
+	 */
+	public void trim() {
+		trimContainer(size - 1);
+		if (keys.length > size) {
+			keys = Arrays.copyOf(keys, size);
+			arrays = Arrays.copyOf(arrays, size);
+			bitmaps = Arrays.copyOf(bitmaps, size);
+			cardinalities = Arrays.copyOf(cardinalities, size);
+		}
+	}
+
+	/**
+	 * Get the number of values.
+	 * @return the number of values
+	 */
+	public int getCardinality() {
+		return cardinality;
+	}
+
+	/**
+	 * Check if a value is in this bitmap.
+	 * @param value the value
+	 * @return true if it is in this bitmap
+	 */
+	public boolean contains(int value) {
+		if (value < 0) {
+			return false;
+		}
+		int i = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+		if (i < 0) {
+			return false;
+		}
+		char low = (char) value;
+		if (arrays[i] != null) {
+			return Arrays.binarySearch(arrays[i], 0, cardinalities[i], low) >= 0;
+		}
+		return (bitmaps[i][low >>> 6] & (1L << low)) != 0;
+	}
+
+	/**
+	 * Get the first value greater or equal to a value, like BitSet.nextSetBit().
+	 * @param from the value
+	 * @return the first value, or -1 if there is none
+	 */
+	public int nextSetBit(int from) {
+		if (from < 0) {
+			from = 0;
+		}
+		char fromKey = (char) (from >>> 16);
+		int i = Arrays.binarySearch(keys, 0, size, fromKey);
+		if (i < 0) {
+			// the next container starts after "from"
+			i = -i - 1;
+			if (i == size) {
+				return -1;
+			}
+			return (keys[i] << 16) | first(i);
+		}
+		char low = (char) from;
+		if (arrays[i] != null) {
+			char[] array = arrays[i];
+			int position = Arrays.binarySearch(array, 0, cardinalities[i], low);
+			if (position < 0) {
+				position = -position - 1;
+			}
+			if (position < cardinalities[i]) {
+				return (keys[i] << 16) | array[position];
+			}
+		} else {
+			long[] bitmap = bitmaps[i];
+			int word = low >>> 6;
+			long bits = bitmap[word] & (-1L << low);
+			while (true) {
+				if (bits != 0) {
+					return (keys[i] << 16) | (word << 6) + Long.numberOfTrailingZeros(bits);
+				}
+				if (++word == BITMAP_SIZE) {
+					break;
+				}
+				bits = bitmap[word];
+			}
+		}
+		if (i + 1 == size) {
+			return -1;
+		}
+		return (keys[i + 1] << 16) | first(i + 1);
+	}
+
+	/**
+	 * Convert this bitmap to a BitSet.
+	 * @return the BitSet
+	 */
+	public BitSet toBitSet() {
+		BitSet bitset = new BitSet(size == 0 ? 0 : ((keys[size - 1] + 1) << 16));
+		for (int i = 0; i < size; i++) {
+			int base = keys[i] << 16;
+			if (arrays[i] != null) {
+				char[] array = arrays[i];
+				for (int j = 0; j < cardinalities[i]; j++) {
+					bitset.set(base | array[j]);
+				}
+			} else {
+				long[] bitmap = bitmaps[i];
+				for (int word = 0; word < BITMAP_SIZE; word++) {
+					long bits = bitmap[word];
+					while (bits != 0) {
+						bitset.set(base | (word << 6) + Long.numberOfTrailingZeros(bits));
+						bits &= bits - 1;
+					}
+				}
+			}
+		}
+		return bitset;
+	}
+
+	/**
+	 * Get an estimation of the memory used by this bitmap, in bytes.
+	 * @return the number of bytes
+	 */
+	public long getSizeInBytes() {
+		long bytes = 16 + keys.length * 22L;
+		for (int i = 0; i < size; i++) {
+			bytes += arrays[i] != null ? 16 + arrays[i].length * 2L : 16 + BITMAP_SIZE * 8L;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Calculate the intersection of two bitmaps.
+	 * @param bitmap1 the first bitmap
+	 * @param bitmap2 the second bitmap
+	 * @return a new bitmap containing the values of both bitmaps
+	 */
+	public static CompressedBitmap and(CompressedBitmap bitmap1, CompressedBitmap bitmap2) {
+		CompressedBitmap result = new CompressedBitmap(Math.min(bitmap1.size, bitmap2.size));
+		int i = 0;
+		int j = 0;
+		while (i < bitmap1.size && j < bitmap2.size) {
+			if (bitmap1.keys[i] < bitmap2.keys[j]) {
+				i++;
+			} else if (bitmap1.keys[i] > bitmap2.keys[j]) {
+				j++;
+			} else {
+				char[] array1 = bitmap1.arrays[i];
+				char[] array2 = bitmap2.arrays[j];
+				if (array1 != null && array2 != null) {
+					char[] buffer = new char[Math.min(bitmap1.cardinalities[i], bitmap2.cardinalities[j])];
+					int count = intersect(array1, bitmap1.cardinalities[i], array2, bitmap2.cardinalities[j], buffer);
+					result.append(bitmap1.keys[i], buffer, count);
+				} else if (array1 != null) {
+					result.appendFiltered(bitmap1.keys[i], array1, bitmap1.cardinalities[i], bitmap2.bitmaps[j], true);
+				} else if (array2 != null) {
+					result.appendFiltered(bitmap1.keys[i], array2, bitmap2.cardinalities[j], bitmap1.bitmaps[i], true);
+				} else {
+					long[] words1 = bitmap1.bitmaps[i];
+					long[] words2 = bitmap2.bitmaps[j];
+					long[] words = new long[BITMAP_SIZE];
+					int count = 0;
+					for (int w = 0; w < BITMAP_SIZE; w++) {
+						words[w] = words1[w] & words2[w];
+						count += Long.bitCount(words[w]);
+					}
+					result.append(bitmap1.keys[i], words, count);
+				}
+				i++;
+				j++;
+			}
+		}
+		result.trim();
+		return result;
+	}
+
+	/**
+	 * Calculate the number of values in the intersection of two bitmaps, without
+	 * creating it.
+	 * @param bitmap1 the first bitmap
+	 * @param bitmap2 the second bitmap
+	 * @return the number of values of both bitmaps
+	 */
+	public static int andCardinality(CompressedBitmap bitmap1, CompressedBitmap bitmap2) {
+		int total = 0;
+		int i = 0;
+		int j = 0;
+		while (i < bitmap1.size && j < bitmap2.size) {
+			if (bitmap1.keys[i] < bitmap2.keys[j]) {
+				i++;
+			} else if (bitmap1.keys[i] > bitmap2.keys[j]) {
+				j++;
+			} else {
+				char[] array1 = bitmap1.arrays[i];
+				char[] array2 = bitmap2.arrays[j];
+				if (array1 != null && array2 != null) {
+					total += intersect(array1, bitmap1.cardinalities[i], array2, bitmap2.cardinalities[j], null);
+				} else if (array1 != null) {
+					total += countIn(array1, bitmap1.cardinalities[i], bitmap2.bitmaps[j]);
+				} else if (array2 != null) {
+					total += countIn(array2, bitmap2.cardinalities[j], bitmap1.bitmaps[i]);
+				} else {
+					long[] words1 = bitmap1.bitmaps[i];
+					long[] words2 = bitmap2.bitmaps[j];
+					for (int w = 0; w < BITMAP_SIZE; w++) {
+						total += Long.bitCount(words1[w] & words2[w]);
+					}
+				}
+				i++;
+				j++;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Calculate the difference of two bitmaps.
+	 * @param bitmap1 the first bitmap
+	 * @param bitmap2 the second bitmap
+	 * @return a new bitmap containing the values of the first bitmap that are not
+	 *         in the second bitmap
+	 */
+	public static CompressedBitmap andNot(CompressedBitmap bitmap1, CompressedBitmap bitmap2) {
+		CompressedBitmap result = new CompressedBitmap(bitmap1.size);
+		int j = 0;
+		for (int i = 0; i < bitmap1.size; i++) {
+			char key = bitmap1.keys[i];
+			while (j < bitmap2.size && bitmap2.keys[j] < key) {
+				j++;
+			}
+			char[] array1 = bitmap1.arrays[i];
+			if (j == bitmap2.size || bitmap2.keys[j] != key) {
+				// nothing to remove from this container
+				if (array1 != null) {
+					result.append(key, Arrays.copyOf(array1, bitmap1.cardinalities[i]), bitmap1.cardinalities[i]);
+				} else {
+					result.append(key, bitmap1.bitmaps[i].clone(), bitmap1.cardinalities[i]);
+				}
+				continue;
+			}
+			char[] array2 = bitmap2.arrays[j];
+			if (array1 != null && array2 != null) {
+				char[] buffer = new char[bitmap1.cardinalities[i]];
+				int count = subtract(array1, bitmap1.cardinalities[i], array2, bitmap2.cardinalities[j], buffer);
+				result.append(key, buffer, count);
+			} else if (array1 != null) {
+				result.appendFiltered(key, array1, bitmap1.cardinalities[i], bitmap2.bitmaps[j], false);
+			} else {
+				long[] words = bitmap1.bitmaps[i].clone();
+				int count = bitmap1.cardinalities[i];
+				if (array2 != null) {
+					for (int k = 0; k < bitmap2.cardinalities[j]; k++) {
+						char low = array2[k];
+						long bit = 1L << low;
+						if ((words[low >>> 6] & bit) != 0) {
+							words[low >>> 6] &= ~bit;
+							count--;
+						}
+					}
+				} else {
+					long[] words2 = bitmap2.bitmaps[j];
+					count = 0;
+					for (int w = 0; w < BITMAP_SIZE; w++) {
+						words[w] &= ~words2[w];
+						count += Long.bitCount(words[w]);
+					}
+				}
+				result.append(key, words, count);
+			}
+		}
+		result.trim();
+		return result;
+	}
+
+	/**
+	 * Calculate the number of values in the difference of two bitmaps, without
+	 * creating it.
+	 * @param bitmap1 the first bitmap
+	 * @param bitmap2 the second bitmap
+	 * @return the number of values of the first bitmap that are not in the second bitmap
+	 */
+	public static int andNotCardinality(CompressedBitmap bitmap1, CompressedBitmap bitmap2) {
+		return bitmap1.cardinality - andCardinality(bitmap1, bitmap2);
+	}
+
+	/**
+	 * Get the first value of a container.
+	 * @param i the container
+	 * @return the 16 low bits of its first value
+	 */
+	private int first(int i) {
+		if (arrays[i] != null) {
+			return arrays[i][0];
+		}
+		long[] bitmap = bitmaps[i];
+		int word = 0;
+		while (bitmap[word] == 0) {
+			word++;
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(bitmap[word]);
+	}
+
+	/**
+	 * Append a container created by an operation, if it is not empty. An array
+	 * container is trimmed; a bitmap container with few values is converted to an
+	 * array container.
+	 * @param key the high bits of the container
+	 * @param array the sorted values of the container
+	 * @param count the number of values
+	 */
+	private void append(char key, char[] array, int count) {
+		if (count == 0) {
+			return;
+		}
+		ensureCapacity(size + 1);
+		keys[size] = key;
+		arrays[size] = array.length == count ? array : Arrays.copyOf(array, count);
+		bitmaps[size] = null;
+		cardinalities[size] = count;
+		cardinality += count;
+		size++;
+	}
+
+	/**
+	 * Append a container created by an operation, if it is not empty.
+	 * @param key the high bits of the container
+	 * @param bitmap the bits of the container
+	 * @param count the number of values
+	 */
+	private void append(char key, long[] bitmap, int count) {
+		if (count == 0) {
+			return;
+		}
+		if (count <= MAX_ARRAY_SIZE) {
+			append(key, toArray(bitmap, count), count);
+			return;
+		}
+		ensureCapacity(size + 1);
+		keys[size] = key;
+		arrays[size] = null;
+		bitmaps[size] = bitmap;
+		cardinalities[size] = count;
+		cardinality += count;
+		size++;
+	}
+
+	/**
+	 * Append the values of an array container that are (or are not) in a bitmap container.
+	 * @param key the high bits of the container
+	 * @param array the sorted values
+	 * @param count the number of values
+	 * @param bitmap the bits of the bitmap container
+	 * @param keep true to keep the values in the bitmap, false to keep the others
+	 */
+	private void appendFiltered(char key, char[] array, int count, long[] bitmap, boolean keep) {
+		char[] buffer = new char[count];
+		int length = 0;
+		for (int k = 0; k < count; k++) {
+			char low = array[k];
+			if (((bitmap[low >>> 6] & (1L << low)) != 0) == keep) {
+				buffer[length++] = low;
+			}
+		}
+		append(key, buffer, length);
+	}
+
+	/**
+	 * Intersect two sorted arrays.
+	 * @param array1 the first array
+	 * @param length1 its length
+	 * @param array2 the second array
+	 * @param length2 its length
+	 * @param result the array receiving the common values, or null to only count them
+	 * @return the number of common values
+	 */
+	private static int intersect(char[] array1, int length1, char[] array2, int length2, char[] result) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < length1 && j < length2) {
+			char value1 = array1[i];
+			char value2 = array2[j];
+			if (value1 < value2) {
+				i++;
+			} else if (value1 > value2) {
+				j++;
+			} else {
+				if (result != null) {
+					result[count] = value1;
+				}
+				count++;
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Subtract a sorted array from another.
+	 * @param array1 the first array
+	 * @param length1 its length
+	 * @param array2 the second array
+	 * @param length2 its length
+	 * @param result the array receiving the values of the first array that are not in the second one
+	 * @return the number of values
+	 */
+	private static int subtract(char[] array1, int length1, char[] array2, int length2, char[] result) {
+		int count = 0;
+		int j = 0;
+		for (int i = 0; i < length1; i++) {
+			char value = array1[i];
+			while (j < length2 && array2[j] < value) {
+				j++;
+			}
+			if (j == length2 || array2[j] != value) {
+				result[count++] = value;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Count the values of a sorted array that are in a bitmap container.
+	 * @param array the array
+	 * @param length its length
+	 * @param bitmap the bitmap container
+	 * @return the number of values
+	 */
+	private static int countIn(char[] array, int length, long[] bitmap) {
+		int count = 0;
+		for (int k = 0; k < length; k++) {
+			char low = array[k];
+			if ((bitmap[low >>> 6] & (1L << low)) != 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Convert sorted values to a bitmap container.
+	 * @param array the values
+	 * @param count the number of values
+	 * @return the bitmap container
+	 */
+	private static long[] toBitmap(char[] array, int count) {
+		long[] bitmap = new long[BITMAP_SIZE];
+		for (int k = 0; k < count; k++) {
+			bitmap[array[k] >>> 6] |= 1L << array[k];
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Convert a bitmap container to sorted values.
+	 * @param bitmap the bitmap container
+	 * @param count the number of values
+	 * @return the values
+	 */
+	private static char[] toArray(long[] bitmap, int count) {
+		char[] array = new char[count];
+		int length = 0;
+		for (int word = 0; word < BITMAP_SIZE; word++) {
+			long bits = bitmap[word];
+			while (bits != 0) {
+				array[length++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Trim the array of an array container.
+	 * @param i the container, or -1
+	 */
+	private void trimContainer(int i) {
+		if (i >= 0 && arrays[i] != null && arrays[i].length > cardinalities[i]) {
+			arrays[i] = Arrays.copyOf(arrays[i], cardinalities[i]);
+		}
+	}
+
+	/**
+	 * Make sure that there is room for a number of containers.
+	 * @param capacity the number of containers
+	 */
+	private void ensureCapacity(int capacity) {
+		if (keys.length < capacity) {
+			int length = Math.max(capacity, keys.length * 2);
+			keys = Arrays.copyOf(keys, length);
+			arrays = Arrays.copyOf(arrays, length);
+			bitmaps = Arrays.copyOf(bitmaps, length);
+			cardinalities = Arrays.copyOf(cardinalities, length);
+		}
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof CompressedBitmap)) {
+			return false;
+		}
+		CompressedBitmap other = (CompressedBitmap) object;
+		if (cardinality != other.cardinality) {
+			return false;
+		}
+		for (int value = nextSetBit(0), otherValue = other.nextSetBit(0); value >= 0;
+				value = nextSetBit(value + 1), otherValue = other.nextSetBit(otherValue + 1)) {
+			if (value != otherValue) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hashcode = 0;
+		for (int value = nextSetBit(0); value >= 0; value = nextSetBit(value + 1)) {
+			hashcode = 31 * hashcode + value;
+		}
+		return hashcode;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder("{");
+		for (int value = nextSetBit(0); value >= 0; value = nextSetBit(value + 1)) {
+			if (buffer.length() > 1) {
+				buffer.append(", ");
+			}
+			buffer.append(value);
+		}
+		return buffer.append('}').toString();
+	}
+}
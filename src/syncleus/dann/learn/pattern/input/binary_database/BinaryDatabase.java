@@ -0,0 +1,315 @@
+package syncleus.dann.learn.pattern.input.binary_database;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A transaction database or a sequence database stored in the binary format
+ * written by {@link BinaryDatabaseWriter}, and read from a memory-mapped file.
+ * <br/><br/>
+ * 
+ * The file starts with a header giving the kind of database, the number of records,
+ * the largest item, the length of the longest record and the position of two tables
+ * stored after the records: the position of each record in the file, and the support
+ * of each item. A record is a varint giving its number of values, followed by a varint
+ * for each value. The values of a transaction are its items. The values of a sequence
+ * are its items and the -1 closing each itemset, each stored plus one, so that -1 is
+ * stored as 0. The -2 closing a sequence is not stored.
+ * <br/><br/>
+ * 
+ * Records are decoded directly from the mapped file without parsing any text. Reading
+ * does not change the state of this object, so several threads may read records at the
+ * same time.
+ *
+ * @see BinaryDatabaseWriter
+ */
+public class BinaryDatabase implements Closeable {
+
+	/** the first four bytes of a binary database ("SPMB") */
+	static final int MAGIC = 0x53504D42;
+	/** the version of the format */
+	static final byte VERSION = 1;
+	/** the kind of a transaction database */
+	static final byte TRANSACTIONS = 0;
+	/** the kind of a sequence database */
+	static final byte SEQUENCES = 1;
+	/** the size of the header: magic, version, kind, record count, max item,
+	 * max length, index position and supports position */
+	static final int HEADER_SIZE = 4 + 1 + 1 + 4 + 4 + 4 + 8 + 8;
+
+	/** the largest number of bytes mapped in a single buffer */
+	private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+	// the file, kept open until close() is called
+	private final RandomAccessFile file;
+	// true if this is a sequence database
+	private final boolean sequences;
+	// the number of records (transactions or sequences)
+	private final int recordCount;
+	// the largest item
+	private final int maxItem;
+	// the largest number of values in a record
+	private final int maxLength;
+	// the position of each record, followed by the position of the end of the records
+	private final LongBuffer index;
+	// the number of records containing each item
+	private final int[] supports;
+	// the records, mapped in chunks which never split a record
+	private final ByteBuffer[] chunks;
+	// the position in the file of the first byte of each chunk
+	private final long[] chunkStarts;
+	// the first record of each chunk
+	private final int[] chunkFirstRecords;
+
+	/**
+	 * Open a binary database.
+	 * @param path the path of a file written by a BinaryDatabaseWriter
+	 * @throws IOException exception if error while reading the file or if it is not a binary database
+	 */
+	public BinaryDatabase(String path) throws IOException {
+		file = new RandomAccessFile(path, "r");
+		try {
+			// read the header
+			if(file.length() < HEADER_SIZE || file.readInt() != MAGIC){
+				throw new IOException(path + " is not a binary database");
+			}
+			if(file.readByte() != VERSION){
+				throw new IOException(path + " has an unsupported version");
+			}
+			sequences = file.readByte() == SEQUENCES;
+			recordCount = file.readInt();
+			maxItem = file.readInt();
+			maxLength = file.readInt();
+			long indexPosition = file.readLong();
+			long supportsPosition = file.readLong();
+
+			FileChannel channel = file.getChannel();
+			// map the index
+			long indexSize = 8L * (recordCount + 1);
+			if(indexSize > Integer.MAX_VALUE){
+				throw new IOException(path + " has too many records");
+			}
+			index = channel.map(FileChannel.MapMode.READ_ONLY, indexPosition, indexSize).asLongBuffer();
+
+			// read the supports of the items
+			supports = new int[maxItem + 1];
+			channel.map(FileChannel.MapMode.READ_ONLY, supportsPosition, 4L * supports.length)
+				.asIntBuffer().get(supports);
+
+			// map the records in chunks. Each chunk holds as many whole records
+			// as fit in MAX_CHUNK_SIZE bytes.
+			List<ByteBuffer> chunkList = new ArrayList<ByteBuffer>();
+			List<Long> startList = new ArrayList<Long>();
+			List<Integer> firstList = new ArrayList<Integer>();
+			int first = 0;
+			while(first < recordCount){
+				long start = index.get(first);
+				// binary search for the last record ending in this chunk
+				int low = first + 1;
+				int high = recordCount;
+				while(low < high){
+					int middle = (low + high + 1) >>> 1;
+					if(index.get(middle) - start <= MAX_CHUNK_SIZE){
+						low = middle;
+					}else{
+						high = middle - 1;
+					}
+				}
+				long size = index.get(low) - start;
+				if(size > MAX_CHUNK_SIZE){
+					throw new IOException(path + " has a record larger than " + MAX_CHUNK_SIZE + " bytes");
+				}
+				chunkList.add(channel.map(FileChannel.MapMode.READ_ONLY, start, size));
+				startList.add(start);
+				firstList.add(first);
+				first = low;
+			}
+			chunks = chunkList.toArray(new ByteBuffer[chunkList.size()]);
+			chunkStarts = new long[chunks.length];
+			chunkFirstRecords = new int[chunks.length];
+			for(int i = 0; i < chunks.length; i++){
+				chunkStarts[i] = startList.get(i);
+				chunkFirstRecords[i] = firstList.get(i);
+			}
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Check if a file is a binary database.
+	 * @param path the path of the file
+	 * @return true if the file starts like a binary database
+	 * @throws IOException exception if error while reading the file
+	 */
+	public static boolean isBinaryDatabase(String path) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		try {
+			return file.length() >= HEADER_SIZE && file.readInt() == MAGIC;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Get the number of values in a record.
+	 * @param record the record number, starting at 0
+	 * @return the number of values
+	 */
+	public int getLength(int record) {
+		int chunkIndex = chunkOf(record);
+		ByteBuffer chunk = chunks[chunkIndex];
+		int position = (int) (index.get(record) - chunkStarts[chunkIndex]);
+		// decode the varint giving the length
+		int length = 0;
+		int shift = 0;
+		byte b;
+		do{
+			b = chunk.get(position++);
+			length |= (b & 0x7F) << shift;
+			shift += 7;
+		}while(b < 0);
+		return length;
+	}
+
+	/**
+	 * Decode a record into a buffer.
+	 * @param record the record number, starting at 0
+	 * @param buffer an array of at least getMaxLength() values
+	 * @return the number of values written in the buffer
+	 */
+	public int read(int record, int[] buffer) {
+		int chunkIndex = chunkOf(record);
+		ByteBuffer chunk = chunks[chunkIndex];
+		int position = (int) (index.get(record) - chunkStarts[chunkIndex]);
+		// decode the varint giving the length
+		int length = 0;
+		int shift = 0;
+		byte b;
+		do{
+			b = chunk.get(position++);
+			length |= (b & 0x7F) << shift;
+			shift += 7;
+		}while(b < 0);
+		// decode the values
+		int offset = sequences ? 1 : 0;
+		for(int i = 0; i < length; i++){
+			int value = 0;
+			shift = 0;
+			do{
+				b = chunk.get(position++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			}while(b < 0);
+			buffer[i] = value - offset;
+		}
+		return length;
+	}
+
+	/**
+	 * Decode a record into a new array.
+	 * @param record the record number, starting at 0
+	 * @return the values of the record
+	 */
+	public int[] get(int record) {
+		int[] values = new int[getLength(record)];
+		read(record, values);
+		return values;
+	}
+
+	/**
+	 * Find the chunk holding a record.
+	 * @param record the record number
+	 * @return the chunk number
+	 */
+	private int chunkOf(int record) {
+		if(record < 0 || record >= recordCount){
+			throw new IndexOutOfBoundsException("Record " + record + " of " + recordCount);
+		}
+		// binary search for the last chunk starting at or before the record
+		int low = 0;
+		int high = chunks.length - 1;
+		while(low < high){
+			int middle = (low + high + 1) >>> 1;
+			if(chunkFirstRecords[middle] <= record){
+				low = middle;
+			}else{
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Get the number of records (transactions or sequences).
+	 * @return the number of records
+	 */
+	public int size() {
+		return recordCount;
+	}
+
+	/**
+	 * Check if this is a sequence database.
+	 * @return true if the records are sequences, false if they are transactions
+	 */
+	public boolean isSequenceDatabase() {
+		return sequences;
+	}
+
+	/**
+	 * Get the largest item.
+	 * @return the largest item, or 0 if the database is empty
+	 */
+	public int getMaxItem() {
+		return maxItem;
+	}
+
+	/**
+	 * Get the number of values in the longest record.
+	 * @return the length of the longest record
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Get the support of each item, that is the number of records containing it.
+	 * @return an array where position i is the support of item i
+	 */
+	public int[] getItemSupports() {
+		return supports.clone();
+	}
+
+	/**
+	 * Close the file. The mapped records stay readable until they are garbage collected,
+	 * but should not be used anymore.
+	 * @throws IOException exception if error while closing the file
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+}
@@ -0,0 +1,189 @@
+package syncleus.dann.learn.pattern.input.binary_database;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Writes a transaction database or a sequence database in the binary format read by
+ * {@link BinaryDatabase}. Records are added one at a time and written immediately; the
+ * index of the records and the supports of the items are written by close().
+ *
+ * @see BinaryDatabase
+ */
+public class BinaryDatabaseWriter implements Closeable {
+
+	// the path of the file
+	private final String path;
+	// true if the records are sequences
+	private final boolean sequences;
+	// the stream writing the records
+	private final DataOutputStream output;
+	// the position where the next record will be written
+	private long position = BinaryDatabase.HEADER_SIZE;
+	// the position of each record written so far
+	private long[] offsets = new long[1024];
+	// the number of records written so far
+	private int recordCount = 0;
+	// the number of records containing each item
+	private int[] supports = new int[256];
+	// the last record (plus one) in which each item was counted
+	private int[] lastRecords = new int[256];
+	// the largest item
+	private int maxItem = 0;
+	// the largest number of values in a record
+	private int maxLength = 0;
+
+	/**
+	 * Create a binary database file.
+	 * @param path the path of the file
+	 * @param sequences true to write a sequence database, false for a transaction database
+	 * @throws IOException exception if error while creating the file
+	 */
+	public BinaryDatabaseWriter(String path, boolean sequences) throws IOException {
+		this.path = path;
+		this.sequences = sequences;
+		output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16));
+		// leave room for the header, which is written by close()
+		output.write(new byte[BinaryDatabase.HEADER_SIZE]);
+	}
+
+	/**
+	 * Add a record. The values of a transaction are its items. The values of a sequence
+	 * are its items, with -1 after each itemset; a -2 ends the sequence and the values
+	 * after it are ignored.
+	 * @param values the values
+	 * @param length the number of values to read from the array
+	 * @throws IOException exception if error while writing the file
+	 */
+	public void addRecord(int[] values, int length) throws IOException {
+		// a -2 ends a sequence
+		if(sequences){
+			for(int i = 0; i < length; i++){
+				if(values[i] == -2){
+					length = i;
+					break;
+				}
+			}
+		}
+		// check the values before writing anything
+		for(int i = 0; i < length; i++){
+			int value = values[i];
+			if(value < 0 && (sequences == false || value != -1)){
+				throw new IllegalArgumentException("Invalid value " + value + " in record " + recordCount);
+			}
+		}
+
+		// remember where the record starts
+		if(recordCount + 1 >= offsets.length){
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+		}
+		offsets[recordCount] = position;
+
+		// write the length and the values
+		writeVarint(length);
+		int offset = sequences ? 1 : 0;
+		for(int i = 0; i < length; i++){
+			int value = values[i];
+			writeVarint(value + offset);
+			// count the support of each item once per record
+			if(value >= 0){
+				if(value >= supports.length){
+					int newLength = Math.max(value + 1, supports.length * 2);
+					supports = Arrays.copyOf(supports, newLength);
+					lastRecords = Arrays.copyOf(lastRecords, newLength);
+				}
+				if(lastRecords[value] != recordCount + 1){
+					lastRecords[value] = recordCount + 1;
+					supports[value]++;
+				}
+				if(value > maxItem){
+					maxItem = value;
+				}
+			}
+		}
+		if(length > maxLength){
+			maxLength = length;
+		}
+		recordCount++;
+	}
+
+	/**
+	 * Write a value as a varint: seven bits per byte, lowest bits first, with the
+	 * high bit set on every byte but the last.
+	 * @param value a value which is not negative
+	 * @throws IOException exception if error while writing the file
+	 */
+	private void writeVarint(int value) throws IOException {
+		while((value & ~0x7F) != 0){
+			output.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+			position++;
+		}
+		output.write(value);
+		position++;
+	}
+
+	/**
+	 * Get the number of records written so far.
+	 * @return the number of records
+	 */
+	public int size() {
+		return recordCount;
+	}
+
+	/**
+	 * Write the index, the supports and the header, and close the file.
+	 * @throws IOException exception if error while writing the file
+	 */
+	public void close() throws IOException {
+		// the index: the position of each record and of the end of the records
+		long indexPosition = position;
+		offsets[recordCount] = position;
+		for(int i = 0; i <= recordCount; i++){
+			output.writeLong(offsets[i]);
+		}
+		// the supports of the items
+		long supportsPosition = indexPosition + 8L * (recordCount + 1);
+		for(int item = 0; item <= maxItem; item++){
+			output.writeInt(item < supports.length ? supports[item] : 0);
+		}
+		output.close();
+
+		// the header
+		RandomAccessFile file = new RandomAccessFile(path, "rw");
+		try {
+			file.writeInt(BinaryDatabase.MAGIC);
+			file.writeByte(BinaryDatabase.VERSION);
+			file.writeByte(sequences ? BinaryDatabase.SEQUENCES : BinaryDatabase.TRANSACTIONS);
+			file.writeInt(recordCount);
+			file.writeInt(maxItem);
+			file.writeInt(maxLength);
+			file.writeLong(indexPosition);
+			file.writeLong(supportsPosition);
+		} finally {
+			file.close();
+		}
+	}
+}
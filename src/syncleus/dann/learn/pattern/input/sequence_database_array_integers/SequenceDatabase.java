@@ -24,6 +24,8 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 
+import syncleus.dann.learn.pattern.input.binary_database.BinaryDatabase;
+
 /**
  * Implementation of a sequence database, where each sequence is implemented
  * as an array of integers and should have a unique id.
@@ -44,11 +46,22 @@ public class SequenceDatabase {
 	private final List<Sequence> sequences = new ArrayList<Sequence>();
 
 	/**
-	 * Method to load a sequence database from a text file in SPMF format.
+	 * Method to load a sequence database from a text file in SPMF format,
+	 * or from a file in the binary format of BinaryDatabase.
 	 * @param path  the input file path.
 	 * @throws IOException exception if error while reading the file.
 	 */
 	public void loadFile(String path) throws IOException {
+		// a binary database is read from the mapped file instead of being parsed
+		if(BinaryDatabase.isBinaryDatabase(path)){
+			BinaryDatabase database = new BinaryDatabase(path);
+			try {
+				load(database);
+			} finally {
+				database.close();
+			}
+			return;
+		}
 		String thisLine; // variable to read each line.
 		BufferedReader myInput = null;
 		try {
@@ -125,6 +138,41 @@ public class SequenceDatabase {
 //		tidsCount++;
 	}
 
+	/**
+	 * Method to load a sequence database in binary format.
+	 * @param database the database
+	 */
+	public void load(BinaryDatabase database) {
+		if(database.isSequenceDatabase() == false){
+			throw new IllegalArgumentException("Not a sequence database");
+		}
+		int[] buffer = new int[database.getMaxLength()];
+		// for each sequence
+		for(int i = 0; i < database.size(); i++){
+			int length = database.read(i, buffer);
+			Sequence sequence = new Sequence();
+			List<Integer> itemset = new ArrayList<Integer>();
+			for(int j = 0; j < length; j++){
+				int item = buffer[j];
+				// -1 is the end of an itemset
+				if(item == -1){
+					sequence.addItemset(itemset.toArray());
+					itemset = new ArrayList<Integer>();
+				}else{
+					// we update the maximum and minimum item for statistics
+					if(item >= maxItem){
+						maxItem = item;
+					}
+					if(item < minItem){
+						minItem = item;
+					}
+					itemset.add(item);
+				}
+			}
+			sequences.add(sequence);
+		}
+	}
+
 	/**
 	 * Method to add a sequence to this sequence database
 	 * @param sequence A sequence of type "Sequence".
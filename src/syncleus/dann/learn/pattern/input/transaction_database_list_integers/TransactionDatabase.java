@@ -26,6 +26,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import syncleus.dann.learn.pattern.input.binary_database.BinaryDatabase;
+
 /**
  * This class represents a transaction database (a.k.a. binary context), implemented
  * as a list of integers. It can read a transaction database directly from a file. 
@@ -51,10 +53,20 @@ public class TransactionDatabase {
 
 	/**
 	 * Method to load a file containing a transaction database into memory
-	 * @param path the path of the file
+	 * @param path the path of the file, in SPMF format or in the binary format of BinaryDatabase
 	 * @throws IOException exception if error reading the file
 	 */
 	public void loadFile(String path) throws IOException {
+		// a binary database is read from the mapped file instead of being parsed
+		if(BinaryDatabase.isBinaryDatabase(path)){
+			BinaryDatabase database = new BinaryDatabase(path);
+			try {
+				load(database);
+			} finally {
+				database.close();
+			}
+			return;
+		}
 		String thisLine; // variable to read each line
 		BufferedReader myInput = null; // object to read the file
 		try {
@@ -81,6 +93,28 @@ public class TransactionDatabase {
 		}
 	}
 
+	/**
+	 * Method to load a transaction database in binary format into memory
+	 * @param database the database
+	 */
+	public void load(BinaryDatabase database) {
+		if(database.isSequenceDatabase()){
+			throw new IllegalArgumentException("Not a transaction database");
+		}
+		int[] buffer = new int[database.getMaxLength()];
+		// for each transaction
+		for(int i = 0; i < database.size(); i++){
+			int length = database.read(i, buffer);
+			// create the transaction and add its items to the set of all items
+			List<Integer> itemset = new ArrayList<Integer>(length);
+			for(int j = 0; j < length; j++){
+				itemset.add(buffer[j]);
+				items.add(buffer[j]);
+			}
+			transactions.add(itemset);
+		}
+	}
+
 	/**
 	 * This method process a line from a file that is read.
 	 * @param tokens the items contained in this line
@@ -18,6 +18,7 @@ package syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_tids_bi
 
 import java.util.BitSet;
 
+import syncleus.dann.learn.pattern.datastructures.compressedbitmap.CompressedBitmap;
 import syncleus.dann.learn.pattern.patterns.AbstractOrderedItemset;
 
 /**
@@ -25,6 +26,11 @@ import syncleus.dann.learn.pattern.patterns.AbstractOrderedItemset;
  * sorted by lexical order, an item should not appear more than once, 
  * the ids of transactions/sequences containing this itemset is represented
  * as a bitset.
+* <br/><br/>
+* 
+* The tidset can also be kept as a CompressedBitmap, which takes less memory
+* when the itemset appears in few transactions. It is then converted to a
+* bitset each time getTransactionsIds() is called.
 * 
 * 
 * @see AbstractOrderedItemset
@@ -38,6 +44,8 @@ public class Itemset extends AbstractOrderedItemset{
 	
 	/** The list of transactions/sequences containing this itemset **/
 	private BitSet transactionsIds;
+	/** The same list as a compressed bitmap, if it is not kept as a bitset **/
+	private CompressedBitmap compressedTransactionsIds;
 	public int cardinality =0;  // the cardinality of the above bitset
 	
 	/**
@@ -59,6 +67,18 @@ public class Itemset extends AbstractOrderedItemset{
 		this.cardinality = support;
 	}
 	
+	/**
+	 * Constructor of an itemset with a compressed tidset
+	 * @param itemset the itemset
+	 * @param tidset the tidset of the itemset
+	 * @param support the tidset cardinality (support)
+	 */
+	public Itemset(int[] itemset, CompressedBitmap tidset, int support){
+		this.compressedTransactionsIds = tidset;
+		this.itemset = itemset;
+		this.cardinality = support;
+	}
+	
 	/**
 	 * Constructor 
 	 * @param item an item that should be added to the new itemset
@@ -107,6 +127,18 @@ public class Itemset extends AbstractOrderedItemset{
 	 */
 	public void setTIDs(BitSet listTransactionIds, int cardinality) {
 		this.transactionsIds = listTransactionIds;
+		this.compressedTransactionsIds = null;
+		this.cardinality = cardinality;
+	}
+
+	/**
+	 * Set the list of transaction/sequence ids containing this itemset as a compressed bitmap.
+	 * @param listTransactionIds the list of transaction/sequence ids.
+	 * @param cardinality the cardinality of the list.
+	 */
+	public void setTIDs(CompressedBitmap listTransactionIds, int cardinality) {
+		this.compressedTransactionsIds = listTransactionIds;
+		this.transactionsIds = null;
 		this.cardinality = cardinality;
 	}
 
@@ -122,8 +154,23 @@ public class Itemset extends AbstractOrderedItemset{
 	 * @return the list as a bitset.
 	 */
 	public BitSet getTransactionsIds() {
+		// a compressed list is converted each time, to not keep both in memory
+		if(transactionsIds == null && compressedTransactionsIds != null){
+			return compressedTransactionsIds.toBitSet();
+		}
 		return transactionsIds;
 	}
 
+	/**
+	 * Get the list of transactions/sequences containing this itemset as a compressed bitmap.
+	 * @return the list as a compressed bitmap, or null if there is no list.
+	 */
+	public CompressedBitmap getCompressedTransactionsIds() {
+		if(compressedTransactionsIds == null && transactionsIds != null){
+			return CompressedBitmap.fromBitSet(transactionsIds);
+		}
+		return compressedTransactionsIds;
+	}
+
 
 }
@@ -0,0 +1,107 @@
+package syncleus.dann.learn.pattern.tools;
+/*
+ *  Copyright (c) 2008-2012 Philippe Fournier-Viger
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class creates the worker threads of the parallel algorithms, so that a
+ * listener can be told when each of them is about to end. The listener runs in
+ * the ending thread, so it can still read the statistics of that thread, like
+ * the memory it allocated, which are lost once the thread has ended.
+ */
+public class WorkerThreads {
+
+	/**
+	 * A listener called by each worker thread just before it ends.
+	 */
+	public interface ExitListener {
+		/**
+		 * Called in a worker thread that is about to end.
+		 */
+		void threadExiting();
+	}
+
+	// the listener, or null
+	private static volatile ExitListener listener;
+
+	/**
+	 * This class only has static methods.
+	 */
+	private WorkerThreads() {
+	}
+
+	/**
+	 * Set the listener called by each worker thread just before it ends.
+	 * @param exitListener the listener, or null to remove it
+	 */
+	public static void setExitListener(ExitListener exitListener) {
+		listener = exitListener;
+	}
+
+	/**
+	 * Call the listener, if any, in the current thread.
+	 */
+	private static void exiting() {
+		ExitListener current = listener;
+		if(current != null){
+			current.threadExiting();
+		}
+	}
+
+	/**
+	 * Get a factory of daemon threads for an executor.
+	 * @param name the name of the threads
+	 * @return the factory
+	 */
+	public static ThreadFactory factory(final String name) {
+		return runnable -> {
+			Thread thread = new Thread(() -> {
+				try {
+					runnable.run();
+				} finally {
+					exiting();
+				}
+			}, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Create a fork/join pool whose threads are created by this class.
+	 * @param threads the number of threads
+	 * @return the pool
+	 */
+	public static ForkJoinPool newForkJoinPool(int threads) {
+		return new ForkJoinPool(threads, pool -> new ForkJoinWorkerThread(pool) {
+			@Override
+			protected void onTermination(Throwable exception) {
+				try {
+					exiting();
+				} finally {
+					super.onTermination(exception);
+				}
+			}
+		}, null, false);
+	}
+}
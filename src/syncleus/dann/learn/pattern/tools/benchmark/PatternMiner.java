@@ -0,0 +1,60 @@
+package syncleus.dann.learn.pattern.tools.benchmark;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+
+/**
+ * An itemset, sequential pattern or rule miner that can be run by the
+ * PatternMiningBenchmark. The miner reads a database file generated for a
+ * Workload and writes the patterns that it finds to a file, one per line.
+ * 
+ * @see PatternMiners
+ * @see PatternMiningBenchmark
+ */
+public interface PatternMiner {
+
+	/**
+	 * Get the name of this miner, as written in the benchmark results.
+	 * @return the name
+	 */
+	String getName();
+
+	/**
+	 * Get the kind of database read by this miner.
+	 * @return the kind of database
+	 */
+	Workload.Type getDatabaseType();
+
+	/**
+	 * Check if this miner uses the number of threads given to run(). A miner
+	 * that does not is only run with one thread.
+	 * @return true if the miner can use several threads
+	 */
+	boolean isParallel();
+
+	/**
+	 * Run the miner.
+	 * @param input the path of the database file
+	 * @param output the path of the file where the patterns are written, one per line
+	 * @param minsup the minimum support as a value in [0,1]
+	 * @param threadCount the number of threads
+	 * @throws IOException if error while reading or writing a file
+	 */
+	void run(String input, String output, double minsup, int threadCount) throws IOException;
+}
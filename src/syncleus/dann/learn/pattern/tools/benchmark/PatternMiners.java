@@ -0,0 +1,379 @@
+package syncleus.dann.learn.pattern.tools.benchmark;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import syncleus.dann.learn.pattern.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.apriori.AlgoApriori;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.charm.AlgoCharm_Bitset;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.charm.AlgoCharm_Parallel;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.eclat.AlgoEclat_Bitset;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.eclat.AlgoEclat_Parallel;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth_Parallel;
+import syncleus.dann.learn.pattern.algorithms.sequentialpatterns.BIDE_and_prefixspan.AlgoPrefixSpan;
+import syncleus.dann.learn.pattern.algorithms.sequentialpatterns.BIDE_and_prefixspan.AlgoPrefixSpan_Parallel;
+import syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clasp_AGP.AlgoClaSP;
+import syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clospan_AGP.AlgoCloSpan;
+import syncleus.dann.learn.pattern.algorithms.sequentialpatterns.spam.AlgoSPAM;
+import syncleus.dann.learn.pattern.input.sequence_database_list_integers.SequenceDatabase;
+import syncleus.dann.learn.pattern.input.transaction_database_list_integers.TransactionDatabase;
+import syncleus.dann.learn.pattern.patterns.itemset_array_integers_with_count.Itemsets;
+
+/**
+ * The miners of this package that can be run by the PatternMiningBenchmark.
+ * Each one is a small adapter calling the runAlgorithm() method of an algorithm,
+ * so the time to read the database file is included in the time of every miner.
+ * 
+ * @see PatternMiner
+ */
+public class PatternMiners {
+
+	/** the size of the hash table of the Charm algorithms */
+	private static final int CHARM_HASH_TABLE_SIZE = 10000;
+
+	/**
+	 * This class only has static methods.
+	 */
+	private PatternMiners() {
+	}
+
+	/**
+	 * Get the frequent and closed itemset miners.
+	 * @return the miners
+	 */
+	public static List<PatternMiner> itemsetMiners() {
+		return Arrays.asList(apriori(), fpGrowth(), fpGrowthParallel(), eclat(), eclatParallel(),
+				charm(), charmParallel());
+	}
+
+	/**
+	 * Get the sequential pattern miners.
+	 * @return the miners
+	 */
+	public static List<PatternMiner> sequentialPatternMiners() {
+		return Arrays.asList(prefixSpan(), prefixSpanParallel(), closedPrefixSpanParallel(), spam(), cloSpan(),
+				claSP());
+	}
+
+	/**
+	 * Get the association rule miners.
+	 * @param minconf the minimum confidence as a value in [0,1]
+	 * @return the miners
+	 */
+	public static List<PatternMiner> ruleMiners(double minconf) {
+		return Arrays.asList(fpGrowthRules(minconf));
+	}
+
+	/**
+	 * Get all the miners.
+	 * @param minconf the minimum confidence of the rule miners, as a value in [0,1]
+	 * @return the miners
+	 */
+	public static List<PatternMiner> allMiners(double minconf) {
+		List<PatternMiner> miners = new ArrayList<PatternMiner>();
+		miners.addAll(itemsetMiners());
+		miners.addAll(sequentialPatternMiners());
+		miners.addAll(ruleMiners(minconf));
+		return miners;
+	}
+
+	/**
+	 * A base class for the miners.
+	 */
+	private static abstract class AbstractMiner implements PatternMiner {
+		// the name
+		private final String name;
+		// the kind of database
+		private final Workload.Type type;
+		// true if the number of threads is used
+		private final boolean parallel;
+
+		/**
+		 * Constructor
+		 * @param name the name
+		 * @param type the kind of database
+		 * @param parallel true if the number of threads is used
+		 */
+		AbstractMiner(String name, Workload.Type type, boolean parallel) {
+			this.name = name;
+			this.type = type;
+			this.parallel = parallel;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public Workload.Type getDatabaseType() {
+			return type;
+		}
+
+		@Override
+		public boolean isParallel() {
+			return parallel;
+		}
+	}
+
+	/**
+	 * Load a transaction database.
+	 * @param input the file path
+	 * @return the database
+	 * @throws IOException if error while reading the file
+	 */
+	private static TransactionDatabase loadTransactions(String input) throws IOException {
+		TransactionDatabase database = new TransactionDatabase();
+		database.loadFile(input);
+		return database;
+	}
+
+	/**
+	 * Load a sequence database.
+	 * @param input the file path
+	 * @return the database
+	 * @throws IOException if error while reading the file
+	 */
+	private static SequenceDatabase loadSequences(String input) throws IOException {
+		SequenceDatabase database = new SequenceDatabase();
+		database.loadFile(input);
+		return database;
+	}
+
+	/**
+	 * Get the Apriori miner, counting supports on several threads.
+	 * @return the miner
+	 */
+	public static PatternMiner apriori() {
+		return new AbstractMiner("Apriori", Workload.Type.TRANSACTIONS, true) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoApriori(threadCount).runAlgorithm(minsup, input, output);
+			}
+		};
+	}
+
+	/**
+	 * Get the FP-Growth miner.
+	 * @return the miner
+	 */
+	public static PatternMiner fpGrowth() {
+		return new AbstractMiner("FPGrowth", Workload.Type.TRANSACTIONS, false) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoFPGrowth().runAlgorithm(input, output, minsup);
+			}
+		};
+	}
+
+	/**
+	 * Get the parallel FP-Growth miner.
+	 * @return the miner
+	 */
+	public static PatternMiner fpGrowthParallel() {
+		return new AbstractMiner("FPGrowth_Parallel", Workload.Type.TRANSACTIONS, true) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoFPGrowth_Parallel(threadCount).runAlgorithm(input, output, minsup);
+			}
+		};
+	}
+
+	/**
+	 * Get the Eclat miner using bitsets.
+	 * @return the miner
+	 */
+	public static PatternMiner eclat() {
+		return new AbstractMiner("Eclat_Bitset", Workload.Type.TRANSACTIONS, false) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoEclat_Bitset().runAlgorithm(output, loadTransactions(input), minsup, true);
+			}
+		};
+	}
+
+	/**
+	 * Get the parallel Eclat miner.
+	 * @return the miner
+	 */
+	public static PatternMiner eclatParallel() {
+		return new AbstractMiner("Eclat_Parallel", Workload.Type.TRANSACTIONS, true) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoEclat_Parallel(threadCount).runAlgorithm(output, loadTransactions(input), minsup, true);
+			}
+		};
+	}
+
+	/**
+	 * Get the Charm miner of closed itemsets, using bitsets.
+	 * @return the miner
+	 */
+	public static PatternMiner charm() {
+		return new AbstractMiner("Charm_Bitset", Workload.Type.TRANSACTIONS, false) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoCharm_Bitset().runAlgorithm(output, loadTransactions(input), minsup, true,
+						CHARM_HASH_TABLE_SIZE);
+			}
+		};
+	}
+
+	/**
+	 * Get the parallel Charm miner of closed itemsets.
+	 * @return the miner
+	 */
+	public static PatternMiner charmParallel() {
+		return new AbstractMiner("Charm_Parallel", Workload.Type.TRANSACTIONS, true) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoCharm_Parallel(threadCount).runAlgorithm(output, loadTransactions(input), minsup, true,
+						CHARM_HASH_TABLE_SIZE);
+			}
+		};
+	}
+
+	/**
+	 * Get the PrefixSpan miner.
+	 * @return the miner
+	 */
+	public static PatternMiner prefixSpan() {
+		return new AbstractMiner("PrefixSpan", Workload.Type.SEQUENCES, false) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoPrefixSpan().runAlgorithm(loadSequences(input), minsup, output);
+			}
+		};
+	}
+
+	/**
+	 * Get the parallel PrefixSpan miner.
+	 * @return the miner
+	 */
+	public static PatternMiner prefixSpanParallel() {
+		return new AbstractMiner("PrefixSpan_Parallel", Workload.Type.SEQUENCES, true) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoPrefixSpan_Parallel(threadCount).runAlgorithm(loadSequences(input), minsup, output);
+			}
+		};
+	}
+
+	/**
+	 * Get the parallel PrefixSpan miner keeping only the closed patterns.
+	 * @return the miner
+	 */
+	public static PatternMiner closedPrefixSpanParallel() {
+		return new AbstractMiner("PrefixSpan_Parallel_closed", Workload.Type.SEQUENCES, true) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				AlgoPrefixSpan_Parallel algo = new AlgoPrefixSpan_Parallel(threadCount);
+				algo.setClosedPatternsOnly(true);
+				algo.runAlgorithm(loadSequences(input), minsup, output);
+			}
+		};
+	}
+
+	/**
+	 * Get the SPAM miner.
+	 * @return the miner
+	 */
+	public static PatternMiner spam() {
+		return new AbstractMiner("SPAM", Workload.Type.SEQUENCES, false) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				new AlgoSPAM().runAlgorithm(input, output, minsup);
+			}
+		};
+	}
+
+	/**
+	 * Get the CloSpan miner of closed sequential patterns.
+	 * @return the miner
+	 */
+	public static PatternMiner cloSpan() {
+		return new AbstractMiner("CloSpan", Workload.Type.SEQUENCES, false) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clospan_AGP.items.SequenceDatabase database
+						= new syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clospan_AGP.items.SequenceDatabase();
+				database.loadFile(input, minsup);
+				AlgoCloSpan algo = new AlgoCloSpan(minsup,
+						syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clospan_AGP.items.creators.AbstractionCreator_Qualitative.getInstance(),
+						true, true);
+				try {
+					algo.runAlgorithm(database, true, false, output);
+				} finally {
+					// CloSpan keeps its items in static fields
+					syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clospan_AGP.items.RemoveStatics.clear();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Get the ClaSP miner of closed sequential patterns.
+	 * @return the miner
+	 */
+	public static PatternMiner claSP() {
+		return new AbstractMiner("ClaSP", Workload.Type.SEQUENCES, false) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator abstractionCreator
+						= syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator_Qualitative.getInstance();
+				syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clasp_AGP.dataStructures.database.SequenceDatabase database
+						= new syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clasp_AGP.dataStructures.database.SequenceDatabase(
+								abstractionCreator,
+								syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clasp_AGP.idlists.creators.IdListCreatorStandard_Map.getInstance());
+				try {
+					// the absolute minimum support, or -1 if the file could not be read
+					double support = database.loadFile(input, minsup);
+					if(support < 0){
+						throw new IOException("Cannot read the sequence database " + input);
+					}
+					new AlgoClaSP(support, abstractionCreator, true, true).runAlgorithm(database, true, false, output);
+				} finally {
+					// ClaSP keeps its items and id-lists in static fields
+					syncleus.dann.learn.pattern.algorithms.sequentialpatterns.clasp_AGP.dataStructures.RemoveStatics.clear();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Get the association rule miner finding the frequent itemsets with FP-Growth
+	 * and the rules with the algorithm of Agrawal.
+	 * @param minconf the minimum confidence as a value in [0,1]
+	 * @return the miner
+	 */
+	public static PatternMiner fpGrowthRules(final double minconf) {
+		return new AbstractMiner("FPGrowth_Parallel+AgrawalFaster94", Workload.Type.TRANSACTIONS, true) {
+			@Override
+			public void run(String input, String output, double minsup, int threadCount) throws IOException {
+				AlgoFPGrowth_Parallel fpgrowth = new AlgoFPGrowth_Parallel(threadCount);
+				Itemsets patterns = fpgrowth.runAlgorithm(input, null, minsup);
+				new AlgoAgrawalFaster94().runAlgorithm(patterns, output, fpgrowth.getDatabaseSize(), minconf);
+			}
+		};
+	}
+}
@@ -0,0 +1,443 @@
+package syncleus.dann.learn.pattern.tools.benchmark;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class runs pattern miners on synthetic workloads and reports, for each
+ * workload, miner and number of threads:
+ * <ul>
+ * <li>the number of patterns found (the lines of the output file),</li>
+ * <li>the median and minimum wall time of the runs,</li>
+ * <li>the number of patterns found by second,</li>
+ * <li>the peak heap usage and the memory allocated (see ResourceMonitor),</li>
+ * <li>the speedup over the same miner with one thread, giving a thread scaling curve.</li>
+ * </ul>
+ * The results are written as CSV, one line per workload, miner and number of threads,
+ * so that they can be compared to choose an algorithm for each shape of database.
+ * A miner that is not parallel is only run with one thread. A miner that fails
+ * is reported with the name of the exception in the "status" column.
+ * 
+ * @see PatternMiner
+ * @see Workload
+ */
+public class PatternMiningBenchmark {
+
+	/** the header of the CSV output */
+	public static final String CSV_HEADER = "workload,shape,minsup,miner,threads,status,patterns,"
+			+ "wall_ms_median,wall_ms_min,patterns_per_s,peak_heap_mb,allocated_mb,speedup";
+
+	// the workloads
+	private final List<Workload> workloads = new ArrayList<Workload>();
+	// the miners
+	private final List<PatternMiner> miners = new ArrayList<PatternMiner>();
+	// the numbers of threads
+	private int[] threadCounts = defaultThreadCounts();
+	// the number of measured runs of each configuration
+	private int repetitions = 3;
+	// the number of runs before the measured ones
+	private int warmupRuns = 1;
+	// the directory of the databases and output files
+	private File directory = new File(System.getProperty("java.io.tmpdir"));
+
+	/**
+	 * Get the default numbers of threads: 1, 2, 4... up to the number of processors.
+	 * @return the numbers of threads
+	 */
+	private static int[] defaultThreadCounts() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		List<Integer> counts = new ArrayList<Integer>();
+		for(int count = 1; count < processors; count *= 2){
+			counts.add(count);
+		}
+		counts.add(processors);
+		int[] array = new int[counts.size()];
+		for(int i = 0; i < array.length; i++){
+			array[i] = counts.get(i);
+		}
+		return array;
+	}
+
+	/**
+	 * Add a workload.
+	 * @param workload the workload
+	 */
+	public void addWorkload(Workload workload) {
+		workloads.add(workload);
+	}
+
+	/**
+	 * Add a miner. It is run on the workloads of the kind of database it reads.
+	 * @param miner the miner
+	 */
+	public void addMiner(PatternMiner miner) {
+		miners.add(miner);
+	}
+
+	/**
+	 * Add several miners.
+	 * @param miners the miners
+	 */
+	public void addMiners(List<PatternMiner> miners) {
+		this.miners.addAll(miners);
+	}
+
+	/**
+	 * Set the numbers of threads used to run the parallel miners.
+	 * @param threadCounts the numbers of threads
+	 */
+	public void setThreadCounts(int... threadCounts) {
+		this.threadCounts = threadCounts.clone();
+		Arrays.sort(this.threadCounts);
+	}
+
+	/**
+	 * Set the number of measured runs of each configuration.
+	 * @param repetitions the number of runs
+	 */
+	public void setRepetitions(int repetitions) {
+		this.repetitions = Math.max(1, repetitions);
+	}
+
+	/**
+	 * Set the number of runs of each configuration before the measured ones.
+	 * @param warmupRuns the number of runs
+	 */
+	public void setWarmupRuns(int warmupRuns) {
+		this.warmupRuns = Math.max(0, warmupRuns);
+	}
+
+	/**
+	 * Set the directory where the databases and the output files are written.
+	 * @param directory the directory
+	 */
+	public void setDirectory(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Run the benchmark.
+	 * @param csv where the results are written as CSV, with a header, or null
+	 * @return the results
+	 * @throws IOException if error while writing a database or the results
+	 * @throws InterruptedException if interrupted
+	 */
+	public List<Result> run(Writer csv) throws IOException, InterruptedException {
+		List<Result> results = new ArrayList<Result>();
+		if(csv != null){
+			csv.write(CSV_HEADER);
+			csv.write(System.lineSeparator());
+			csv.flush();
+		}
+		ResourceMonitor monitor = new ResourceMonitor();
+		for(int w = 0; w < workloads.size(); w++){
+			Workload workload = workloads.get(w);
+			File input = new File(directory, "benchmark_workload_" + w + ".txt");
+			File output = new File(directory, "benchmark_output_" + w + ".txt");
+			workload.generate(input.getPath());
+			try {
+				for(PatternMiner miner : miners){
+					if(miner.getDatabaseType() != workload.getType()){
+						continue;
+					}
+					Result single = null;
+					for(int threads : miner.isParallel() ? threadCounts : new int[] {1}){
+						Result result = measure(workload, miner, threads, input, output, monitor);
+						if(threads == 1){
+							single = result;
+						}
+						if(single != null && single.isOk() && result.isOk() && result.wallMillisMedian > 0){
+							result.speedup = single.wallMillisMedian / result.wallMillisMedian;
+						}
+						results.add(result);
+						if(csv != null){
+							csv.write(result.toCsv());
+							csv.write(System.lineSeparator());
+							csv.flush();
+						}
+					}
+				}
+			} finally {
+				input.delete();
+				output.delete();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Run a miner on a workload several times.
+	 * @param workload the workload
+	 * @param miner the miner
+	 * @param threads the number of threads
+	 * @param input the database file of the workload
+	 * @param output the output file
+	 * @param monitor the memory monitor
+	 * @return the result
+	 * @throws InterruptedException if interrupted
+	 */
+	private Result measure(Workload workload, PatternMiner miner, int threads, File input, File output,
+			ResourceMonitor monitor) throws InterruptedException {
+		Result result = new Result(workload, miner.getName(), threads);
+		double[] wallMillis = new double[repetitions];
+		long[] allocated = new long[repetitions];
+		try {
+			for(int run = 0; run < warmupRuns; run++){
+				miner.run(input.getPath(), output.getPath(), workload.getMinsup(), threads);
+			}
+			for(int run = 0; run < repetitions; run++){
+				System.gc();
+				monitor.start();
+				long start = System.nanoTime();
+				try {
+					miner.run(input.getPath(), output.getPath(), workload.getMinsup(), threads);
+				} finally {
+					wallMillis[run] = (System.nanoTime() - start) / 1e6;
+					monitor.stop();
+				}
+				allocated[run] = monitor.getAllocatedBytes();
+				result.peakHeapBytes = Math.max(result.peakHeapBytes, monitor.getPeakHeapBytes());
+			}
+			result.patterns = countLines(output);
+		} catch (IOException e) {
+			result.status = e.getClass().getSimpleName();
+			return result;
+		} catch (RuntimeException e) {
+			result.status = e.getClass().getSimpleName();
+			return result;
+		} catch (OutOfMemoryError e) {
+			result.status = e.getClass().getSimpleName();
+			return result;
+		}
+		Arrays.sort(wallMillis);
+		Arrays.sort(allocated);
+		result.wallMillisMedian = wallMillis[repetitions / 2];
+		result.wallMillisMin = wallMillis[0];
+		result.allocatedBytes = allocated[repetitions / 2];
+		return result;
+	}
+
+	/**
+	 * Count the lines of a file.
+	 * @param file the file
+	 * @return the number of lines
+	 * @throws IOException if error while reading the file
+	 */
+	private static long countLines(File file) throws IOException {
+		long lines = 0;
+		boolean empty = true;
+		int last = '\n';
+		InputStream stream = new BufferedInputStream(new FileInputStream(file));
+		try {
+			byte[] buffer = new byte[1 << 16];
+			int read;
+			while((read = stream.read(buffer)) > 0){
+				empty = false;
+				for(int i = 0; i < read; i++){
+					if(buffer[i] == '\n'){
+						lines++;
+					}
+				}
+				last = buffer[read - 1];
+			}
+		} finally {
+			stream.close();
+		}
+		// the last line may not end with a new line
+		return !empty && last != '\n' ? lines + 1 : lines;
+	}
+
+	/**
+	 * The measures of a miner on a workload with a number of threads.
+	 */
+	public static final class Result {
+		// the workload
+		private final Workload workload;
+		// the name of the miner
+		private final String miner;
+		// the number of threads
+		private final int threads;
+		// "ok", or the name of the exception thrown by the miner
+		private String status = "ok";
+		// the number of patterns found
+		private long patterns = -1;
+		// the median wall time
+		private double wallMillisMedian = -1;
+		// the minimum wall time
+		private double wallMillisMin = -1;
+		// the maximum peak heap usage
+		private long peakHeapBytes = 0;
+		// the median allocated memory
+		private long allocatedBytes = -1;
+		// the speedup over one thread
+		private double speedup = -1;
+
+		/**
+		 * Constructor
+		 * @param workload the workload
+		 * @param miner the name of the miner
+		 * @param threads the number of threads
+		 */
+		Result(Workload workload, String miner, int threads) {
+			this.workload = workload;
+			this.miner = miner;
+			this.threads = threads;
+		}
+
+		/**
+		 * Check if the miner succeeded.
+		 * @return true if no exception was thrown
+		 */
+		public boolean isOk() {
+			return "ok".equals(status);
+		}
+
+		/**
+		 * Get the workload.
+		 * @return the workload
+		 */
+		public Workload getWorkload() {
+			return workload;
+		}
+
+		/**
+		 * Get the name of the miner.
+		 * @return the name
+		 */
+		public String getMiner() {
+			return miner;
+		}
+
+		/**
+		 * Get the number of threads.
+		 * @return the number of threads
+		 */
+		public int getThreads() {
+			return threads;
+		}
+
+		/**
+		 * Get the number of patterns found.
+		 * @return the number of patterns, or -1 if the miner failed
+		 */
+		public long getPatterns() {
+			return patterns;
+		}
+
+		/**
+		 * Get the median wall time of the runs.
+		 * @return a time in ms, or -1 if the miner failed
+		 */
+		public double getWallMillisMedian() {
+			return wallMillisMedian;
+		}
+
+		/**
+		 * Get the number of patterns found by second, using the median wall time.
+		 * @return a number of patterns, or -1 if the miner failed
+		 */
+		public double getPatternsPerSecond() {
+			return isOk() && wallMillisMedian > 0 ? patterns * 1000 / wallMillisMedian : -1;
+		}
+
+		/**
+		 * Get the maximum peak heap usage of the runs.
+		 * @return a number of bytes
+		 */
+		public long getPeakHeapBytes() {
+			return peakHeapBytes;
+		}
+
+		/**
+		 * Get the median memory allocated by the runs.
+		 * @return a number of bytes, or -1 if it is not available
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * Get the speedup over the same miner with one thread.
+		 * @return the speedup, or -1 if not available
+		 */
+		public double getSpeedup() {
+			return speedup;
+		}
+
+		/**
+		 * Get this result as a line of CSV.
+		 * @return the line, without new line
+		 */
+		public String toCsv() {
+			return String.format(Locale.ROOT, "%s,%s,%s,%s,%d,%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.2f",
+					workload.getName(), workload.getShape(), workload.getMinsup(), miner, threads, status,
+					patterns, wallMillisMedian, wallMillisMin, getPatternsPerSecond(),
+					peakHeapBytes / 1024d / 1024d, allocatedBytes < 0 ? -1 : allocatedBytes / 1024d / 1024d,
+					speedup);
+		}
+	}
+
+	/**
+	 * Get the default workloads: sparse and dense transaction databases, and sequence
+	 * databases, at a small and a larger scale.
+	 * @return the workloads
+	 */
+	public static List<Workload> defaultWorkloads() {
+		return Arrays.asList(
+				Workload.transactions("sparse_10k", 10000, 1000, 20, 0.005, 1),
+				Workload.transactions("sparse_100k", 100000, 1000, 20, 0.005, 2),
+				Workload.transactions("dense_10k", 10000, 40, 20, 0.25, 3),
+				Workload.transactions("dense_50k", 50000, 40, 20, 0.25, 4),
+				Workload.sequences("sequences_5k", 5000, 100, 2, 8, 0.01, 5),
+				Workload.sequences("sequences_20k", 20000, 100, 2, 8, 0.01, 6));
+	}
+
+	/**
+	 * Run the default workloads with all the miners of PatternMiners.
+	 * @param args the path of the CSV file to write, or nothing to write on the standard output
+	 * @throws Exception if error while running the benchmark
+	 */
+	public static void main(String[] args) throws Exception {
+		PatternMiningBenchmark benchmark = new PatternMiningBenchmark();
+		for(Workload workload : defaultWorkloads()){
+			benchmark.addWorkload(workload);
+		}
+		benchmark.addMiners(PatternMiners.allMiners(0.6));
+		Writer csv = args.length > 0 ? new FileWriter(args[0]) : new OutputStreamWriter(System.out);
+		try {
+			benchmark.run(csv);
+		} finally {
+			csv.flush();
+			if(args.length > 0){
+				csv.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,198 @@
+package syncleus.dann.learn.pattern.tools.benchmark;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+import syncleus.dann.learn.pattern.tools.WorkerThreads;
+
+/**
+ * This class measures the memory used while a miner runs, more precisely than
+ * MemoryLogger, which only samples the heap when an algorithm calls it.
+ * <br/><br/>
+ * 
+ * The peak heap usage is the sum of the peak usages recorded by the JVM for each
+ * heap memory pool, so it is an upper bound if the pools did not peak at the same
+ * time. The allocated memory is the sum of the bytes allocated by every thread,
+ * read from the allocation counters of the HotSpot JVM. The counter of a thread
+ * cannot be read once it has ended, so the worker threads created by WorkerThreads
+ * report their counter just before they end. The counters of the other threads are
+ * read by a sampling thread, so if one of them ends between two samples, the bytes
+ * it allocated since the previous sample are missed. If the counters are not
+ * available, -1 is reported.
+ * 
+ * @see PatternMiningBenchmark
+ * @see WorkerThreads
+ */
+class ResourceMonitor {
+
+	// the time between two samples of the allocation counters, in ms
+	private static final long SAMPLE_INTERVAL = 10;
+
+	// the allocation counters, or null if they are not available
+	private final com.sun.management.ThreadMXBean threadBean;
+	// the bytes allocated by each thread when the monitor was started
+	private final Map<Long, Long> startAllocations = new HashMap<Long, Long>();
+	// the last bytes allocated seen for each thread
+	private final Map<Long, Long> lastAllocations = new HashMap<Long, Long>();
+	// the sampling thread
+	private Thread sampler;
+	// set to stop the sampling thread
+	private volatile boolean stopped;
+
+	/**
+	 * Constructor
+	 */
+	ResourceMonitor() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()){
+			threadBean = (com.sun.management.ThreadMXBean) bean;
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+		}else{
+			threadBean = null;
+		}
+	}
+
+	/**
+	 * Reset the peak usage of the heap and start counting the allocations.
+	 */
+	void start() {
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if(pool.getType() == MemoryType.HEAP && pool.isValid()){
+				pool.resetPeakUsage();
+			}
+		}
+		startAllocations.clear();
+		lastAllocations.clear();
+		if(threadBean == null){
+			return;
+		}
+		sample(startAllocations);
+		WorkerThreads.setExitListener(new WorkerThreads.ExitListener() {
+			@Override
+			public void threadExiting() {
+				Thread thread = Thread.currentThread();
+				long bytes = threadBean.getThreadAllocatedBytes(thread.getId());
+				synchronized (lastAllocations) {
+					record(lastAllocations, thread.getId(), bytes);
+				}
+			}
+		});
+		stopped = false;
+		sampler = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while(!stopped){
+					synchronized (lastAllocations) {
+						sample(lastAllocations);
+					}
+					try {
+						Thread.sleep(SAMPLE_INTERVAL);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}, "benchmark allocation sampler");
+		sampler.setDaemon(true);
+		sampler.start();
+	}
+
+	/**
+	 * Read the allocation counter of each live thread, except the sampling thread.
+	 * @param allocations the map where the counters are stored, by thread id
+	 */
+	private void sample(Map<Long, Long> allocations) {
+		long[] ids = threadBean.getAllThreadIds();
+		long[] bytes = threadBean.getThreadAllocatedBytes(ids);
+		long self = sampler == null ? -1 : sampler.getId();
+		for(int i = 0; i < ids.length; i++){
+			if(ids[i] != self){
+				record(allocations, ids[i], bytes[i]);
+			}
+		}
+	}
+
+	/**
+	 * Store the allocation counter of a thread, unless a larger value was seen,
+	 * since a thread may be sampled after it reported its last value.
+	 * @param allocations the map where the counters are stored, by thread id
+	 * @param id the id of the thread
+	 * @param bytes the value of the counter, or -1 if it could not be read
+	 */
+	private static void record(Map<Long, Long> allocations, long id, long bytes) {
+		Long previous = allocations.get(id);
+		if(bytes >= 0 && (previous == null || previous < bytes)){
+			allocations.put(id, bytes);
+		}
+	}
+
+	/**
+	 * Stop counting the allocations.
+	 * @throws InterruptedException if interrupted while waiting for the sampling thread
+	 */
+	void stop() throws InterruptedException {
+		if(sampler != null){
+			stopped = true;
+			sampler.interrupt();
+			sampler.join();
+			sampler = null;
+			// the threads still running are read here, the others have reported
+			synchronized (lastAllocations) {
+				sample(lastAllocations);
+			}
+			WorkerThreads.setExitListener(null);
+		}
+	}
+
+	/**
+	 * Get the peak heap usage since the monitor was started.
+	 * @return a number of bytes
+	 */
+	long getPeakHeapBytes() {
+		long peak = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if(pool.getType() == MemoryType.HEAP && pool.isValid()){
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	/**
+	 * Get the bytes allocated by all threads between start() and stop().
+	 * @return a number of bytes, or -1 if the allocation counters are not available
+	 */
+	long getAllocatedBytes() {
+		if(threadBean == null){
+			return -1;
+		}
+		long allocated = 0;
+		for(Map.Entry<Long, Long> entry : lastAllocations.entrySet()){
+			Long start = startAllocations.get(entry.getKey());
+			allocated += entry.getValue() - (start == null ? 0 : start);
+		}
+		return allocated;
+	}
+}
@@ -0,0 +1,182 @@
+package syncleus.dann.learn.pattern.tools.benchmark;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+
+import syncleus.dann.learn.pattern.tools.dataset_generator.SequenceDatabaseGenerator;
+import syncleus.dann.learn.pattern.tools.dataset_generator.TransactionDatabaseGenerator;
+
+/**
+ * A synthetic database and the minimum support used to mine it. The database
+ * is generated by TransactionDatabaseGenerator or SequenceDatabaseGenerator with a
+ * fixed seed, so that every run of a benchmark mines the same data.
+ * 
+ * @see PatternMiningBenchmark
+ */
+public class Workload {
+
+	/**
+	 * The kinds of databases.
+	 */
+	public enum Type {
+		/** a transaction database, for itemset and rule miners */
+		TRANSACTIONS,
+		/** a sequence database, for sequential pattern miners */
+		SEQUENCES
+	}
+
+	// the name of this workload
+	private final String name;
+	// the kind of database
+	private final Type type;
+	// the number of transactions or sequences
+	private final int size;
+	// the maximum number of distinct items
+	private final int distinctItems;
+	// the maximum number of items by transaction, or the number of items by itemset
+	private final int itemCount;
+	// the number of itemsets by sequence
+	private final int itemsetCount;
+	// the minimum support as a value in [0,1]
+	private final double minsup;
+	// the seed of the random number generator
+	private final long seed;
+
+	/**
+	 * Constructor
+	 * @param name the name of this workload
+	 * @param type the kind of database
+	 * @param size the number of transactions or sequences
+	 * @param distinctItems the maximum number of distinct items
+	 * @param itemCount the maximum number of items by transaction, or the number of items by itemset
+	 * @param itemsetCount the number of itemsets by sequence
+	 * @param minsup the minimum support as a value in [0,1]
+	 * @param seed the seed of the random number generator
+	 */
+	private Workload(String name, Type type, int size, int distinctItems, int itemCount,
+			int itemsetCount, double minsup, long seed) {
+		this.name = name;
+		this.type = type;
+		this.size = size;
+		this.distinctItems = distinctItems;
+		this.itemCount = itemCount;
+		this.itemsetCount = itemsetCount;
+		this.minsup = minsup;
+		this.seed = seed;
+	}
+
+	/**
+	 * Create a workload of transactions.
+	 * @param name the name of the workload
+	 * @param transactionCount the number of transactions
+	 * @param distinctItems the maximum number of distinct items
+	 * @param maxItemCountPerTransaction the maximum number of items by transaction
+	 * @param minsup the minimum support as a value in [0,1]
+	 * @param seed the seed of the random number generator
+	 * @return the workload
+	 */
+	public static Workload transactions(String name, int transactionCount, int distinctItems,
+			int maxItemCountPerTransaction, double minsup, long seed) {
+		return new Workload(name, Type.TRANSACTIONS, transactionCount, distinctItems,
+				maxItemCountPerTransaction, 0, minsup, seed);
+	}
+
+	/**
+	 * Create a workload of sequences.
+	 * @param name the name of the workload
+	 * @param sequenceCount the number of sequences
+	 * @param distinctItems the maximum number of distinct items
+	 * @param itemCountByItemset the number of items by itemset
+	 * @param itemsetCountBySequence the number of itemsets by sequence
+	 * @param minsup the minimum support as a value in [0,1]
+	 * @param seed the seed of the random number generator
+	 * @return the workload
+	 */
+	public static Workload sequences(String name, int sequenceCount, int distinctItems,
+			int itemCountByItemset, int itemsetCountBySequence, double minsup, long seed) {
+		return new Workload(name, Type.SEQUENCES, sequenceCount, distinctItems,
+				itemCountByItemset, itemsetCountBySequence, minsup, seed);
+	}
+
+	/**
+	 * Write the database of this workload to a file.
+	 * @param output the file path
+	 * @throws IOException if error while writing the file
+	 */
+	public void generate(String output) throws IOException {
+		if(type == Type.TRANSACTIONS){
+			new TransactionDatabaseGenerator(seed).generateDatabase(size, distinctItems, itemCount, output);
+		}else{
+			new SequenceDatabaseGenerator(seed).generateDatabase(size, distinctItems, itemCount,
+					itemsetCount, output, false);
+		}
+	}
+
+	/**
+	 * Get the name of this workload.
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the kind of database.
+	 * @return the kind of database
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Get the number of transactions or sequences.
+	 * @return the size of the database
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Get the maximum number of distinct items.
+	 * @return the number of items
+	 */
+	public int getDistinctItems() {
+		return distinctItems;
+	}
+
+	/**
+	 * Get the minimum support used to mine this workload.
+	 * @return the minimum support as a value in [0,1]
+	 */
+	public double getMinsup() {
+		return minsup;
+	}
+
+	/**
+	 * Get a description of the shape of the database.
+	 * @return a description, without commas
+	 */
+	public String getShape() {
+		if(type == Type.TRANSACTIONS){
+			return size + " transactions; " + distinctItems + " items; up to " + itemCount + " items by transaction";
+		}
+		return size + " sequences; " + distinctItems + " items; " + itemsetCount + " itemsets of "
+				+ itemCount + " items by sequence";
+	}
+}
@@ -0,0 +1,196 @@
+package syncleus.dann.learn.pattern.tools.dataset_converter;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import syncleus.dann.learn.pattern.input.binary_database.BinaryDatabase;
+import syncleus.dann.learn.pattern.input.binary_database.BinaryDatabaseWriter;
+
+/**
+ * This class is for converting transaction databases and sequence databases
+ * in SPMF format to the binary format read by {@link BinaryDatabase}, and back.
+ * <br/><br/>
+ * 
+ * The text is parsed byte by byte, without creating a String for each line or token.
+ * Lines starting with #, % or @ are skipped, as are the timestamps (tokens starting with
+ * "<") of sequence databases.
+ * 
+ * @see BinaryDatabase
+ * @see BinaryDatabaseWriter
+ */
+public class BinaryDatabaseConverter {
+
+	/**
+	 * This method converts a transaction database in SPMF format to the binary format.
+	 * @param input the path of the input file in SPMF format
+	 * @param output the path of the binary file to be written
+	 * @return the number of transactions converted
+	 * @throws IOException an exception is thrown if there is an error reading/writing files
+	 */
+	public int convertTransactionDatabase(String input, String output) throws IOException {
+		return convert(input, output, false);
+	}
+
+	/**
+	 * This method converts a sequence database in SPMF format to the binary format.
+	 * @param input the path of the input file in SPMF format
+	 * @param output the path of the binary file to be written
+	 * @return the number of sequences converted
+	 * @throws IOException an exception is thrown if there is an error reading/writing files
+	 */
+	public int convertSequenceDatabase(String input, String output) throws IOException {
+		return convert(input, output, true);
+	}
+
+	/**
+	 * This method converts a database in binary format back to the SPMF format.
+	 * @param input the path of the binary file
+	 * @param output the path of the file to be written in SPMF format
+	 * @throws IOException an exception is thrown if there is an error reading/writing files
+	 */
+	public void convertToText(String input, String output) throws IOException {
+		BinaryDatabase database = new BinaryDatabase(input);
+		BufferedWriter writer = new BufferedWriter(new FileWriter(output));
+		try {
+			int[] values = new int[database.getMaxLength()];
+			// for each record
+			for(int record = 0; record < database.size(); record++){
+				int length = database.read(record, values);
+				StringBuilder line = new StringBuilder();
+				for(int i = 0; i < length; i++){
+					if(i > 0){
+						line.append(' ');
+					}
+					line.append(values[i]);
+				}
+				// a sequence ends with -2
+				if(database.isSequenceDatabase()){
+					line.append(length > 0 ? " -2" : "-2");
+				}
+				writer.write(line.toString());
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+			database.close();
+		}
+	}
+
+	/**
+	 * This method parses a file in SPMF format and writes each line as a record.
+	 * @param input the path of the input file in SPMF format
+	 * @param output the path of the binary file to be written
+	 * @param sequences true if the input is a sequence database
+	 * @return the number of records written
+	 * @throws IOException an exception is thrown if there is an error reading/writing files
+	 */
+	private int convert(String input, String output, boolean sequences) throws IOException {
+		BinaryDatabaseWriter writer = new BinaryDatabaseWriter(output, sequences);
+		InputStream stream = new FileInputStream(input);
+		try {
+			byte[] buffer = new byte[1 << 16];
+			// the values of the current line
+			int[] values = new int[64];
+			int length = 0;
+			// the number being parsed
+			int value = 0;
+			boolean inNumber = false;
+			boolean negative = false;
+			// state of the current line
+			boolean lineStart = true;
+			boolean skipLine = false;
+			boolean skipToken = false;
+
+			int read;
+			while((read = stream.read(buffer)) > 0){
+				for(int i = 0; i < read; i++){
+					byte c = buffer[i];
+					if(c == '\n' || c == '\r' || c == ' ' || c == '\t'){
+						// the end of a token
+						if(inNumber){
+							if(length == values.length){
+								values = Arrays.copyOf(values, length * 2);
+							}
+							values[length++] = negative ? -value : value;
+							inNumber = false;
+						}
+						skipToken = false;
+						// the end of a line
+						if(c == '\n' || c == '\r'){
+							if(length > 0){
+								writer.addRecord(values, length);
+							}
+							length = 0;
+							lineStart = true;
+							skipLine = false;
+						}
+						continue;
+					}
+					if(skipLine || skipToken){
+						continue;
+					}
+					if(lineStart){
+						lineStart = false;
+						// if the line is a comment, or a kind of metadata
+						if(c == '#' || c == '%' || c == '@'){
+							skipLine = true;
+							continue;
+						}
+					}
+					if(c >= '0' && c <= '9'){
+						if(inNumber == false){
+							inNumber = true;
+							negative = false;
+							value = 0;
+						}
+						value = value * 10 + (c - '0');
+					}else if(c == '-' && inNumber == false){
+						inNumber = true;
+						negative = true;
+						value = 0;
+					}else if(c == '<' && inNumber == false){
+						// a timestamp, which the algorithms do not use
+						skipToken = true;
+					}else{
+						throw new IOException("Unexpected character '" + (char) c + "' in " + input);
+					}
+				}
+			}
+			// the last line may not end with a line break
+			if(inNumber){
+				if(length == values.length){
+					values = Arrays.copyOf(values, length * 2);
+				}
+				values[length++] = negative ? -value : value;
+			}
+			if(length > 0){
+				writer.addRecord(values, length);
+			}
+		} finally {
+			stream.close();
+			writer.close();
+		}
+		return writer.size();
+	}
+}
@@ -35,7 +35,22 @@ import java.util.Random;
 public class SequenceDatabaseGenerator {
 
 	// a random number generator
-	private static Random random = new Random(System.currentTimeMillis());
+	private final Random random;
+
+	/**
+	 * Default constructor, seeding the random number generator with the current time.
+	 */
+	public SequenceDatabaseGenerator() {
+		this(System.currentTimeMillis());
+	}
+
+	/**
+	 * Constructor, so that the same database can be generated again.
+	 * @param seed the seed of the random number generator
+	 */
+	public SequenceDatabaseGenerator(long seed) {
+		random = new Random(seed);
+	}
 
 	/**
 	 * This method randomly generates a sequence database according to parameters provided.
@@ -35,7 +35,22 @@ import java.util.Random;
 public class TransactionDatabaseGenerator {
 
 	// the random number generator
-	private static Random random = new Random(System.currentTimeMillis());
+	private final Random random;
+
+	/**
+	 * Default constructor, seeding the random number generator with the current time.
+	 */
+	public TransactionDatabaseGenerator() {
+		this(System.currentTimeMillis());
+	}
+
+	/**
+	 * Constructor, so that the same database can be generated again.
+	 * @param seed the seed of the random number generator
+	 */
+	public TransactionDatabaseGenerator(long seed) {
+		random = new Random(seed);
+	}
 
 	/**
 	 * This method randomly generates a transaction database according to parameters provided.
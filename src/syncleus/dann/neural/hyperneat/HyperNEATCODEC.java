@@ -26,20 +26,36 @@ package syncleus.dann.neural.hyperneat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 import syncleus.dann.Learning;
-import syncleus.dann.data.MutableData;
-import syncleus.dann.data.vector.VectorData;
 import syncleus.dann.evolve.GeneticError;
 import syncleus.dann.evolve.codec.GeneticCODEC;
 import syncleus.dann.evolve.genome.Genome;
+import syncleus.dann.neural.hyperneat.substrate.PackedSubstrate;
+import syncleus.dann.neural.hyperneat.substrate.Substrate;
+import syncleus.dann.neural.neat.NEATCODEC;
+import syncleus.dann.neural.neat.NEATLink;
+import syncleus.dann.neural.neat.NEATNetwork;
+import syncleus.dann.neural.neat.NEATPopulation;
 import syncleus.dann.neural.util.activation.ActivationSteepenedSigmoid;
 import syncleus.dann.neural.util.activation.EncogActivationFunction;
 
 public class HyperNEATCODEC implements GeneticCODEC {
 
+    /**
+     * The smallest number of substrate links worth a thread of their own.
+     */
+    private static final int BATCH_SIZE = 256;
+
     private double minWeight = 0.2;
     private double maxWeight = 5.0;
 
+    /**
+     * The number of threads used to query the CPPN. Zero means use one thread
+     * per processor.
+     */
+    private int threadCount = 0;
+
     /**
      * {@inheritDoc}
      */
@@ -52,11 +68,7 @@ public class HyperNEATCODEC implements GeneticCODEC {
 
     public Learning decode(final NEATPopulation pop, final Substrate substrate,
                            final Genome genome) {
-        // obtain the CPPN
-        final NEATCODEC neatCodec = new NEATCODEC();
-        final NEATNetwork cppn = (NEATNetwork) neatCodec.decode(genome);
-
-        final List<NEATLink> linkList = new ArrayList<>();
+        final PackedSubstrate packed = substrate.getPacked();
 
         final EncogActivationFunction[] afs = new EncogActivationFunction[substrate
                 .getNodeCount()];
@@ -67,47 +79,54 @@ public class HyperNEATCODEC implements GeneticCODEC {
             afs[i] = af;
         }
 
-        final double c = this.maxWeight / (1.0 - this.minWeight);
-        final MutableData input = new VectorData(cppn.getInputCount());
-
-        substrate.getLinks().stream().forEach((link) -> {
-            final SubstrateNode source = link.getSource();
-            final SubstrateNode target = link.getTarget();
-            int index = 0;
-            for (final double d : source.getLocation()) {
-                input.setData(index++, d);
-            }
-            for (final double d : target.getLocation()) {
-                input.setData(index++, d);
-            }
-            final MutableData output = cppn.compute(input);
-            double weight = output.getData(0);
-            if (Math.abs(weight) > this.minWeight) {
-                weight = (Math.abs(weight) - this.minWeight) * c
-                        * Math.signum(weight);
-                linkList.add(new NEATLink(source.getId(), target.getId(),
-                        weight));
-            }
+        // query the CPPN for every link, split into one block per thread.
+        // The CPPN is not thread safe, so each block decodes its own copy.
+        // Every query clears the activation state of the CPPN first, even
+        // for a recurrent CPPN, so the weights do not depend on the order of
+        // the queries or on how they are split between the copies.
+        final int linkCount = packed.getLinkCount();
+        final double[] weights = new double[linkCount];
+        int threads = this.threadCount == 0 ? Runtime.getRuntime()
+                .availableProcessors() : this.threadCount;
+        threads = Math.max(1, Math.min(threads,
+                (linkCount + BATCH_SIZE - 1) / BATCH_SIZE));
+        final int blockSize = (linkCount + threads - 1) / threads;
+
+        IntStream blocks = IntStream.range(0, threads);
+        if (threads > 1) {
+            blocks = blocks.parallel();
+        }
+        blocks.forEach((block) -> {
+            final NEATNetwork cppn = decodeCPPN(genome);
+            queryLinks(cppn, packed, block * blockSize,
+                    Math.min(linkCount, (block + 1) * blockSize), weights);
         });
 
-        // now create biased links
-        input.clear();
-        final int d = substrate.getDimensions();
-        final List<SubstrateNode> biasedNodes = substrate.getBiasedNodes();
-        biasedNodes.stream().map((target) -> {
-            for (int i = 0; i < d; i++) {
-                input.setData(d + i, target.getLocation()[i]);
+        final List<NEATLink> linkList = new ArrayList<>();
+        final int[] sources = packed.getLinkSources();
+        final int[] targets = packed.getLinkTargets();
+        for (int i = 0; i < linkCount; i++) {
+            final double weight = scaleWeight(weights[i]);
+            if (weight != 0) {
+                linkList.add(new NEATLink(sources[i], targets[i], weight));
             }
-            return target;
-        }).forEach((target) -> {
-            final MutableData output = cppn.compute(input);
-            double biasWeight = output.getData(1);
-            if (Math.abs(biasWeight) > this.minWeight) {
-                biasWeight = (Math.abs(biasWeight) - this.minWeight) * c
-                        * Math.signum(biasWeight);
-                linkList.add(new NEATLink(0, target.getId(), biasWeight));
+        }
+
+        // now create biased links, the source location is left at zero
+        final NEATNetwork cppn = decodeCPPN(genome);
+        final int d = packed.getDimensions();
+        final double[] biasedCoordinates = packed.getBiasedCoordinates();
+        final int[] biasedIds = packed.getBiasedIds();
+        final double[] input = new double[cppn.getInputCount()];
+        final double[] output = new double[cppn.getOutputCount()];
+        for (int i = 0; i < biasedIds.length; i++) {
+            System.arraycopy(biasedCoordinates, i * d, input, d, d);
+            cppn.compute(input, output);
+            final double biasWeight = scaleWeight(output[1]);
+            if (biasWeight != 0) {
+                linkList.add(new NEATLink(0, biasedIds[i], biasWeight));
             }
-        });
+        }
 
         // check for invalid neural network
         if (linkList.isEmpty()) {
@@ -124,6 +143,57 @@ public class HyperNEATCODEC implements GeneticCODEC {
 
     }
 
+    /**
+     * Obtain the CPPN from a genome.
+     *
+     * @param genome The genome.
+     * @return The CPPN.
+     */
+    private static NEATNetwork decodeCPPN(final Genome genome) {
+        final NEATCODEC neatCodec = new NEATCODEC();
+        return (NEATNetwork) neatCodec.geneDecode(genome);
+    }
+
+    /**
+     * Query the CPPN for the raw weight of a range of substrate links.
+     *
+     * @param cppn    The CPPN, used only by the calling thread.
+     * @param packed  The packed substrate.
+     * @param from    The first link.
+     * @param to      One past the last link.
+     * @param weights The raw weights are stored here, by link.
+     */
+    private static void queryLinks(final NEATNetwork cppn,
+                                   final PackedSubstrate packed, final int from, final int to,
+                                   final double[] weights) {
+        final int inputSize = packed.getLinkInputSize();
+        final double[] coordinates = packed.getLinkCoordinates();
+        final double[] input = new double[cppn.getInputCount()];
+        final double[] output = new double[cppn.getOutputCount()];
+
+        for (int i = from; i < to; i++) {
+            System.arraycopy(coordinates, i * inputSize, input, 0, inputSize);
+            cppn.compute(input, output);
+            weights[i] = output[0];
+        }
+    }
+
+    /**
+     * Scale a weight produced by the CPPN. Weights no larger than the minimum
+     * weight mean there is no link.
+     *
+     * @param weight The CPPN output.
+     * @return The link weight, or zero for no link.
+     */
+    private double scaleWeight(final double weight) {
+        if (Math.abs(weight) > this.minWeight) {
+            final double c = this.maxWeight / (1.0 - this.minWeight);
+            return (Math.abs(weight) - this.minWeight) * c
+                    * Math.signum(weight);
+        }
+        return 0;
+    }
+
     @Override
     public Genome geneEncode(final Learning phenotype) {
         throw new GeneticError(
@@ -144,6 +214,21 @@ public class HyperNEATCODEC implements GeneticCODEC {
         return this.minWeight;
     }
 
+    /**
+     * @return the threadCount
+     */
+    public int getThreadCount() {
+        return this.threadCount;
+    }
+
+    /**
+     * @param threadCount the threadCount to set, zero for one thread per
+     *                    processor
+     */
+    public void setThreadCount(final int threadCount) {
+        this.threadCount = threadCount;
+    }
+
     /**
      * @param maxWeight the maxWeight to set
      */
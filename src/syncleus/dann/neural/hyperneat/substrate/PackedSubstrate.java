@@ -0,0 +1,224 @@
+/*
+ * Encog(tm) Core v3.2 - Java Version
+ * http://www.heatonresearch.com/encog/
+ * https://github.com/encog/encog-java-core
+
+ * Copyright 2008-2013 Heaton Research, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * For more information on Heaton Research copyrights, licenses
+ * and trademarks visit:
+ * http://www.heatonresearch.com/copyright
+ */
+package syncleus.dann.neural.hyperneat.substrate;
+
+import java.util.List;
+
+/**
+ * The coordinates of a substrate, packed into flat arrays. Decoding a HyperNEAT
+ * genome queries the CPPN once for every link and every biased node of the
+ * substrate, so the coordinates are gathered once per substrate rather than
+ * once per decode.
+ * <p/>
+ * The coordinates of link i are at
+ * [i * getLinkInputSize(), (i + 1) * getLinkInputSize()), the source location
+ * followed by the target location. This is exactly the input to the CPPN for
+ * that link.
+ */
+public class PackedSubstrate {
+
+    /**
+     * The dimensions of the substrate.
+     */
+    private final int dimensions;
+
+    /**
+     * The source and target coordinates of each link.
+     */
+    private final double[] linkCoordinates;
+
+    /**
+     * The source neuron id of each link.
+     */
+    private final int[] linkSources;
+
+    /**
+     * The target neuron id of each link.
+     */
+    private final int[] linkTargets;
+
+    /**
+     * The coordinates of each biased node.
+     */
+    private final double[] biasedCoordinates;
+
+    /**
+     * The neuron id of each biased node.
+     */
+    private final int[] biasedIds;
+
+    /**
+     * Pack a substrate.
+     *
+     * @param substrate The substrate to pack.
+     */
+    public PackedSubstrate(final Substrate substrate) {
+        this.dimensions = substrate.getDimensions();
+
+        final List<SubstrateLink> links = substrate.getLinks();
+        this.linkCoordinates = new double[links.size() * 2 * this.dimensions];
+        this.linkSources = new int[links.size()];
+        this.linkTargets = new int[links.size()];
+        int index = 0;
+        for (int i = 0; i < links.size(); i++) {
+            final SubstrateLink link = links.get(i);
+            this.linkSources[i] = link.getSource().getId();
+            this.linkTargets[i] = link.getTarget().getId();
+            for (final double d : link.getSource().getLocation()) {
+                this.linkCoordinates[index++] = d;
+            }
+            for (final double d : link.getTarget().getLocation()) {
+                this.linkCoordinates[index++] = d;
+            }
+        }
+
+        final List<SubstrateNode> biasedNodes = substrate.getBiasedNodes();
+        this.biasedCoordinates = new double[biasedNodes.size()
+                * this.dimensions];
+        this.biasedIds = new int[biasedNodes.size()];
+        index = 0;
+        for (int i = 0; i < biasedNodes.size(); i++) {
+            final SubstrateNode node = biasedNodes.get(i);
+            this.biasedIds[i] = node.getId();
+            for (final double d : node.getLocation()) {
+                this.biasedCoordinates[index++] = d;
+            }
+        }
+    }
+
+    /**
+     * Determine if this packing still matches a substrate. Node locations are
+     * changed in place through {@link SubstrateNode#getLocation()}, so the
+     * coordinates are compared with the live locations.
+     *
+     * @param substrate The substrate this was packed from.
+     * @return True if the links, biased nodes and their locations are
+     * unchanged.
+     */
+    public boolean isCurrent(final Substrate substrate) {
+        final List<SubstrateLink> links = substrate.getLinks();
+        if (links.size() != this.linkSources.length) {
+            return false;
+        }
+        int index = 0;
+        for (int i = 0; i < links.size(); i++) {
+            final SubstrateLink link = links.get(i);
+            if (link.getSource().getId() != this.linkSources[i]
+                    || link.getTarget().getId() != this.linkTargets[i]) {
+                return false;
+            }
+            for (final double d : link.getSource().getLocation()) {
+                if (Double.compare(this.linkCoordinates[index++], d) != 0) {
+                    return false;
+                }
+            }
+            for (final double d : link.getTarget().getLocation()) {
+                if (Double.compare(this.linkCoordinates[index++], d) != 0) {
+                    return false;
+                }
+            }
+        }
+
+        final List<SubstrateNode> biasedNodes = substrate.getBiasedNodes();
+        if (biasedNodes.size() != this.biasedIds.length) {
+            return false;
+        }
+        index = 0;
+        for (int i = 0; i < biasedNodes.size(); i++) {
+            final SubstrateNode node = biasedNodes.get(i);
+            if (node.getId() != this.biasedIds[i]) {
+                return false;
+            }
+            for (final double d : node.getLocation()) {
+                if (Double.compare(this.biasedCoordinates[index++], d) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The dimensions of the substrate.
+     */
+    public int getDimensions() {
+        return this.dimensions;
+    }
+
+    /**
+     * @return The number of coordinates per link, the CPPN input size.
+     */
+    public int getLinkInputSize() {
+        return 2 * this.dimensions;
+    }
+
+    /**
+     * @return The number of links.
+     */
+    public int getLinkCount() {
+        return this.linkSources.length;
+    }
+
+    /**
+     * @return The source and target coordinates of each link.
+     */
+    public double[] getLinkCoordinates() {
+        return this.linkCoordinates;
+    }
+
+    /**
+     * @return The source neuron id of each link.
+     */
+    public int[] getLinkSources() {
+        return this.linkSources;
+    }
+
+    /**
+     * @return The target neuron id of each link.
+     */
+    public int[] getLinkTargets() {
+        return this.linkTargets;
+    }
+
+    /**
+     * @return The number of biased nodes.
+     */
+    public int getBiasedCount() {
+        return this.biasedIds.length;
+    }
+
+    /**
+     * @return The coordinates of each biased node.
+     */
+    public double[] getBiasedCoordinates() {
+        return this.biasedCoordinates;
+    }
+
+    /**
+     * @return The neuron id of each biased node.
+     */
+    public int[] getBiasedIds() {
+        return this.biasedIds;
+    }
+}
@@ -93,6 +93,12 @@ public class Substrate implements Serializable {
      */
     private int activationCycles = 1;
 
+    /**
+     * The packed coordinates, built on demand and discarded whenever the
+     * substrate or the location of one of its nodes changes.
+     */
+    private transient PackedSubstrate packed;
+
     /**
      * Construct a substrate with the specified number of dimensions in the
      * input/output layers.
@@ -138,6 +144,7 @@ public class Substrate implements Serializable {
     }
 
     public SubstrateNode createNode() {
+        this.packed = null;
         final SubstrateNode result = new SubstrateNode(
                 this.currentNeuronNumber++, this.dimensions);
         return result;
@@ -163,10 +170,25 @@ public class Substrate implements Serializable {
 
     public void createLink(final SubstrateNode inputNode,
                            final SubstrateNode outputNode) {
+        this.packed = null;
         final SubstrateLink link = new SubstrateLink(inputNode, outputNode);
         this.links.add(link);
     }
 
+    /**
+     * @return The coordinates of the links and biased nodes, packed into
+     * arrays. This is cached until a node or link is created, or a node
+     * is moved.
+     */
+    public PackedSubstrate getPacked() {
+        PackedSubstrate result = this.packed;
+        if (result == null || !result.isCurrent(this)) {
+            result = new PackedSubstrate(this);
+            this.packed = result;
+        }
+        return result;
+    }
+
     /**
      * @return the links
      */
@@ -126,6 +126,36 @@ public class NEATNetwork implements RegressionLearning, ErrorLearning, Serializa
      */
     private double relaxationThreshold;
 
+    /**
+     * For each neuron, the index of its first incoming link in
+     * {@link #linkSource} and {@link #linkWeight}. The incoming links of
+     * neuron i are at [linkStart[i], linkStart[i+1]). Built from the links, so
+     * not serialized.
+     */
+    private transient int[] linkStart;
+
+    /**
+     * The source neuron of each link, sorted by target neuron.
+     */
+    private transient int[] linkSource;
+
+    /**
+     * The weight of each link, parallel to {@link #linkSource}.
+     */
+    private transient double[] linkWeight;
+
+    /**
+     * The non-input neurons in topological order, or null if the network has
+     * recurrent links.
+     */
+    private transient int[] evaluationOrder;
+
+    /**
+     * The number of activation cycles needed before the output of a
+     * feedforward network stops changing, the length of its longest path.
+     */
+    private transient int depth;
+
     /**
      * Construct a NEAT network. The links that are passed in also define the
      * neurons.
@@ -155,6 +185,95 @@ public class NEATNetwork implements RegressionLearning, ErrorLearning, Serializa
 
         // bias
         this.postActivation[0] = 1.0;
+
+        compile();
+    }
+
+    /**
+     * Pack the links into arrays, grouped by target neuron, and determine if
+     * the network is feedforward. Links into the bias or input neurons are
+     * dropped, they never affect the output. The links of each target keep
+     * their original order, so sums are accumulated exactly as before.
+     */
+    private void compile() {
+        final int neuronCount = this.activationFunctions.length;
+
+        final int[] start = new int[neuronCount + 1];
+        int usedLinks = 0;
+        for (final NEATLink link : this.links) {
+            if (link.getToNeuron() >= this.outputIndex) {
+                start[link.getToNeuron() + 1]++;
+                usedLinks++;
+            }
+        }
+        for (int i = 0; i < neuronCount; i++) {
+            start[i + 1] += start[i];
+        }
+
+        final int[] source = new int[usedLinks];
+        final double[] weight = new double[usedLinks];
+        final int[] fill = new int[neuronCount];
+        for (final NEATLink link : this.links) {
+            final int to = link.getToNeuron();
+            if (to >= this.outputIndex) {
+                final int index = start[to] + fill[to]++;
+                source[index] = link.getFromNeuron();
+                weight[index] = link.getWeight();
+            }
+        }
+
+        // topological sort of the non-input neurons (Kahn), only links
+        // between non-input neurons constrain the order
+        final int[] pending = new int[neuronCount];
+        final int[] outStart = new int[neuronCount + 1];
+        for (int i = 0; i < usedLinks; i++) {
+            if (source[i] >= this.outputIndex) {
+                outStart[source[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < neuronCount; i++) {
+            outStart[i + 1] += outStart[i];
+        }
+        final int[] outTarget = new int[outStart[neuronCount]];
+        final int[] outFill = new int[neuronCount];
+        for (int to = this.outputIndex; to < neuronCount; to++) {
+            for (int i = start[to]; i < start[to + 1]; i++) {
+                final int from = source[i];
+                if (from >= this.outputIndex) {
+                    outTarget[outStart[from] + outFill[from]++] = to;
+                    pending[to]++;
+                }
+            }
+        }
+
+        final int[] order = new int[neuronCount - this.outputIndex];
+        final int[] level = new int[neuronCount];
+        int head = 0;
+        int tail = 0;
+        for (int i = this.outputIndex; i < neuronCount; i++) {
+            if (pending[i] == 0) {
+                order[tail++] = i;
+                level[i] = 1;
+            }
+        }
+        int longest = 0;
+        while (head < tail) {
+            final int from = order[head++];
+            longest = Math.max(longest, level[from]);
+            for (int i = outStart[from]; i < outStart[from + 1]; i++) {
+                final int to = outTarget[i];
+                level[to] = Math.max(level[to], level[from] + 1);
+                if (--pending[to] == 0) {
+                    order[tail++] = to;
+                }
+            }
+        }
+
+        this.linkStart = start;
+        this.linkSource = source;
+        this.linkWeight = weight;
+        this.evaluationOrder = tail == order.length ? order : null;
+        this.depth = longest;
     }
 
     /**
@@ -177,6 +296,25 @@ public class NEATNetwork implements RegressionLearning, ErrorLearning, Serializa
     @Override
     public MutableData compute(final MutableData input) {
         final MutableData result = new VectorData(this.outputCount);
+        compute(input.getData(), result.getData());
+        return result;
+    }
+
+    /**
+     * Compute the output for the given input. A feedforward network is
+     * evaluated in a single pass, in topological order, when the activation
+     * cycles are enough for every signal to reach the output. This gives the
+     * same result as cycling through the network. Otherwise the network is
+     * cycled activationCycles times. The activations are cleared first, so
+     * the output never depends on the inputs computed before.
+     *
+     * @param input  The input.
+     * @param output Output will be placed here.
+     */
+    public void compute(final double[] input, final double[] output) {
+        if (this.linkStart == null) {
+            compile();
+        }
 
         // clear from previous
         EngineArray.fill(this.preActivation, 0.0);
@@ -184,19 +322,34 @@ public class NEATNetwork implements RegressionLearning, ErrorLearning, Serializa
         this.postActivation[0] = 1.0;
 
         // copy input
-        EngineArray.arrayCopy(input.getData(), 0, this.postActivation, 1,
+        EngineArray.arrayCopy(input, 0, this.postActivation, 1,
                 this.inputCount);
 
-        // iterate through the network activationCycles times
-        for (int i = 0; i < this.activationCycles; ++i) {
-            internalCompute();
+        if (isFeedforward() && this.activationCycles >= this.depth) {
+            internalComputeFeedforward();
+        } else {
+            // iterate through the network activationCycles times
+            for (int i = 0; i < this.activationCycles; ++i) {
+                internalCompute();
+            }
         }
 
         // copy output
-        EngineArray.arrayCopy(this.postActivation, this.outputIndex,
-                result.getData(), 0, this.outputCount);
+        EngineArray.arrayCopy(this.postActivation, this.outputIndex, output,
+                0, this.outputCount);
+    }
 
-        return result;
+    /**
+     * Compute the output for many inputs. The working arrays are reused, so
+     * nothing is allocated per input.
+     *
+     * @param input  The inputs, one per row.
+     * @param output The outputs will be placed here, one per row.
+     */
+    public void compute(final double[][] input, final double[][] output) {
+        for (int i = 0; i < input.length; i++) {
+            compute(input[i], output[i]);
+        }
     }
 
     /**
@@ -266,22 +419,53 @@ public class NEATNetwork implements RegressionLearning, ErrorLearning, Serializa
     }
 
     /**
-     * Perform one activation cycle.
+     * Perform one activation cycle. All neurons are fed from the output of the
+     * previous cycle.
      */
     private void internalCompute() {
-        for (int j = 0; j < this.links.length; j++) {
-            this.preActivation[this.links[j].getToNeuron()] += this.postActivation[this.links[j]
-                    .getFromNeuron()] * this.links[j].getWeight();
+        final int neuronCount = this.preActivation.length;
+        for (int j = this.outputIndex; j < neuronCount; j++) {
+            double sum = 0;
+            for (int i = this.linkStart[j]; i < this.linkStart[j + 1]; i++) {
+                sum += this.postActivation[this.linkSource[i]]
+                        * this.linkWeight[i];
+            }
+            this.preActivation[j] = sum;
         }
 
-        for (int j = this.outputIndex; j < this.preActivation.length; j++) {
+        for (int j = this.outputIndex; j < neuronCount; j++) {
             this.postActivation[j] = this.preActivation[j];
-            this.activationFunctions[j].activationFunction(this.postActivation,
-                    j, 1);
+            this.activationFunctions[j].activate(this.postActivation, j, 1);
             this.preActivation[j] = 0.0F;
         }
     }
 
+    /**
+     * Evaluate a feedforward network in one pass. Each neuron is computed
+     * after all of the neurons that feed it.
+     */
+    private void internalComputeFeedforward() {
+        for (final int j : this.evaluationOrder) {
+            double sum = 0;
+            for (int i = this.linkStart[j]; i < this.linkStart[j + 1]; i++) {
+                sum += this.postActivation[this.linkSource[i]]
+                        * this.linkWeight[i];
+            }
+            this.postActivation[j] = sum;
+            this.activationFunctions[j].activate(this.postActivation, j, 1);
+        }
+    }
+
+    /**
+     * @return True, if the network has no recurrent links.
+     */
+    public boolean isFeedforward() {
+        if (this.linkStart == null) {
+            compile();
+        }
+        return this.evaluationOrder != null;
+    }
+
     /**
      * @return True, if the network has relaxed and values no longer changing.
      * Used when activationCycles is set to zero for auto.
@@ -23,8 +23,11 @@
  */
 package syncleus.dann.neural.neat.training.species;
 
+import java.util.List;
 import syncleus.dann.evolve.genome.Genome;
 import syncleus.dann.evolve.species.ThresholdSpeciation;
+import syncleus.dann.neural.neat.training.NEATGenome;
+import syncleus.dann.neural.neat.training.NEATLinkGene;
 
 /**
  * The original NEAT Speciation Strategy. This is currently the only speciation
@@ -77,76 +80,160 @@ public class OriginalNEATSpeciation extends ThresholdSpeciation {
      */
     private double constMatched = 0.4;
 
+    /**
+     * The innovation numbers and weights of a genome's links, copied into
+     * arrays so that a genome can be compared against many species leaders
+     * without walking its link chromosome each time.
+     */
+    private static final class LinkFeatures {
+        /**
+         * The innovation numbers, in chromosome order.
+         */
+        private final long[] innovations;
+
+        /**
+         * The link weights, parallel to the innovation numbers.
+         */
+        private final double[] weights;
+
+        /**
+         * Construct the features of a genome.
+         *
+         * @param genome The genome.
+         */
+        LinkFeatures(final NEATGenome genome) {
+            final List<NEATLinkGene> links = genome.getLinksChromosome();
+            this.innovations = new long[links.size()];
+            this.weights = new double[links.size()];
+            for (int i = 0; i < this.innovations.length; i++) {
+                final NEATLinkGene link = links.get(i);
+                this.innovations[i] = link.getInnovationId();
+                this.weights[i] = link.getWeight();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public double getCompatibilityScore(final Genome gen1, final Genome gen2) {
         double numDisjoint = 0;
-        double numExcess = 0;
         double numMatched = 0;
         double weightDifference = 0;
 
-        final NEATGenome genome1 = (NEATGenome) gen1;
-        final NEATGenome genome2 = (NEATGenome) gen2;
+        final List<NEATLinkGene> genome1 = ((NEATGenome) gen1)
+                .getLinksChromosome();
+        final List<NEATLinkGene> genome2 = ((NEATGenome) gen2)
+                .getLinksChromosome();
 
-        final int genome1Size = genome1.getLinksChromosome().size();
-        final int genome2Size = genome2.getLinksChromosome().size();
-        final int n = 1;// Math.max(genome1Size, genome2Size);
+        final int genome1Size = genome1.size();
+        final int genome2Size = genome2.size();
 
         int g1 = 0;
         int g2 = 0;
 
-        while ((g1 < genome1Size) || (g2 < genome2Size)) {
+        while ((g1 < genome1Size) && (g2 < genome2Size)) {
+            final NEATLinkGene link1 = genome1.get(g1);
+            final NEATLinkGene link2 = genome2.get(g2);
+            final long id1 = link1.getInnovationId();
+            final long id2 = link2.getInnovationId();
 
-            if (g1 == genome1Size) {
+            if (id1 == id2) {
+                weightDifference += Math.abs(link1.getWeight()
+                        - link2.getWeight());
+                g1++;
                 g2++;
-                numExcess++;
-                continue;
-            }
-
-            if (g2 == genome2Size) {
+                numMatched++;
+            } else if (id1 < id2) {
+                numDisjoint++;
                 g1++;
-                numExcess++;
-                continue;
+            } else {
+                numDisjoint++;
+                g2++;
             }
+        }
+
+        final double numExcess = (genome1Size - g1) + (genome2Size - g2);
+        return score(numExcess, numDisjoint, numMatched, weightDifference);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object extractCompatibilityFeatures(final Genome genome) {
+        return new LinkFeatures((NEATGenome) genome);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected double compareCompatibilityFeatures(final Object features1,
+                                                  final Object features2) {
+        double numDisjoint = 0;
+        double numExcess = 0;
+        double numMatched = 0;
+        double weightDifference = 0;
+
+        final LinkFeatures genome1 = (LinkFeatures) features1;
+        final LinkFeatures genome2 = (LinkFeatures) features2;
+
+        final int genome1Size = genome1.innovations.length;
+        final int genome2Size = genome2.innovations.length;
+
+        int g1 = 0;
+        int g2 = 0;
+
+        while ((g1 < genome1Size) && (g2 < genome2Size)) {
 
             // get innovation numbers for each gene at this point
-            final long id1 = genome1.getLinksChromosome().get(g1)
-                    .getInnovationId();
-            final long id2 = genome2.getLinksChromosome().get(g2)
-                    .getInnovationId();
+            final long id1 = genome1.innovations[g1];
+            final long id2 = genome2.innovations[g2];
 
             // innovation numbers are identical so increase the matched score
             if (id1 == id2) {
 
                 // get the weight difference between these two genes
-                weightDifference += Math.abs(genome1.getLinksChromosome()
-                        .get(g1).getWeight()
-                        - genome2.getLinksChromosome().get(g2).getWeight());
+                weightDifference += Math.abs(genome1.weights[g1]
+                        - genome2.weights[g2]);
                 g1++;
                 g2++;
                 numMatched++;
-            }
-
-            // innovation numbers are different so increment the disjoint score
-            if (id1 < id2) {
+            } else if (id1 < id2) {
+                // innovation numbers are different so increment the disjoint
+                // score
                 numDisjoint++;
                 g1++;
-            }
-
-            if (id1 > id2) {
-                ++numDisjoint;
-                ++g2;
+            } else {
+                numDisjoint++;
+                g2++;
             }
 
         }
 
-        final double score = ((this.constExcess * numExcess) / n)
+        // whatever is left over in either genome is excess
+        numExcess += (genome1Size - g1) + (genome2Size - g2);
+
+        return score(numExcess, numDisjoint, numMatched, weightDifference);
+    }
+
+    /**
+     * Combine the gene counts of two genomes into a compatibility score.
+     *
+     * @param numExcess        The number of excess genes.
+     * @param numDisjoint      The number of disjoint genes.
+     * @param numMatched       The number of matched genes.
+     * @param weightDifference The total weight difference of matched genes.
+     * @return The compatability level.
+     */
+    private double score(final double numExcess, final double numDisjoint,
+                         final double numMatched, final double weightDifference) {
+        final int n = 1;// Math.max(genome1Size, genome2Size);
+        return ((this.constExcess * numExcess) / n)
                 + ((this.constDisjoint * numDisjoint) / n)
                 + (this.constMatched * (weightDifference / numMatched));
-
-        return score;
     }
 
     /**
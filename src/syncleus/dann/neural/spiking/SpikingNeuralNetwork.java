@@ -198,10 +198,6 @@ public class SpikingNeuralNetwork {
         // Update Time
         updateTime();
 
-
-        // Notify network listeners
-        this.fireNetworkChanged();
-
         if (getGroupList() != null) {
             for (Group group : getGroupList()) {
                 group.update();
@@ -210,6 +206,9 @@ public class SpikingNeuralNetwork {
         
         // Clear input nodes
         clearInputs();
+
+        // Notify network listeners, once the update is complete
+        this.fireNetworkChanged();
     }
 
 
@@ -1357,6 +1356,16 @@ public class SpikingNeuralNetwork {
         neuronListeners.add(listener);
     }
 
+    /**
+     * Remove a neuron listener.
+     *
+     * @param neuronListener
+     *            the observer to remove
+     */
+    public void removeNeuronListener(final NeuronListener neuronListener) {
+        neuronListeners.remove(neuronListener);
+    }
+
     /**
      * Register a synapse listener.
      *
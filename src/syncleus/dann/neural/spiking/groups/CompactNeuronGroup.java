@@ -0,0 +1,322 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.groups;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import syncleus.dann.neural.spiking.SpikingNeuralNetwork;
+import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule.InputType;
+import syncleus.dann.neural.spiking.neuron_update_rules.interfaces.ArrayUpdateRule;
+
+/**
+ * A group of neurons which share one update rule and keep their state in
+ * primitive arrays rather than in {@link syncleus.dann.neural.spiking.SpikingNeuron}
+ * objects. Incoming connections are {@link CompactSynapseGroup}s. This is
+ * meant for large networks, where the object graph is too slow and too big.
+ * <p>
+ * Updating is buffered: {@link #computeBuffers()} computes the next
+ * activations from the current ones, and {@link #commitBuffers()} makes them
+ * current. {@link #computeBuffers()} is itself made of
+ * {@link #gatherInputs()}, which reads the spikes of the source groups, and
+ * {@link #computeActivations()}, which overwrites this group's spikes, so a
+ * parallel update can run all gathers before any compute.
+ */
+public class CompactNeuronGroup extends Group {
+
+    /** Number of neurons. */
+    private final int size;
+
+    /** Activation (membrane potential for spiking rules) of each neuron. */
+    private final double[] activations;
+
+    /** Next activation of each neuron. */
+    private final double[] buffers;
+
+    /** External input of each neuron, cleared after every update. */
+    private final double[] inputValues;
+
+    /** Summed input of each neuron for the current update. */
+    private final double[] inputs;
+
+    /**
+     * Extra state variable of each neuron used by some rules, for example the
+     * Izhikevich recovery variable.
+     */
+    private final double[] auxiliary;
+
+    /** Threshold of each neuron, set by the update rule. */
+    private final double[] thresholds;
+
+    /** Time of the last spike of each neuron. */
+    private final double[] lastSpikeTimes;
+
+    /** Whether each neuron spiked in the last update. */
+    private final boolean[] spiked;
+
+    /** Synapse groups onto this group. */
+    private final List<CompactSynapseGroup> incoming =
+        new ArrayList<CompactSynapseGroup>();
+
+    /** Update rule shared by all neurons. */
+    private ArrayUpdateRule updateRule;
+
+    /** Source of the rule's noise, or null to use the shared source. */
+    private Random randomSource;
+
+    /**
+     * Create a group of neurons.
+     *
+     * @param net parent network
+     * @param size number of neurons
+     * @param updateRule the update rule for all of the neurons
+     */
+    public CompactNeuronGroup(final SpikingNeuralNetwork net, final int size,
+        final ArrayUpdateRule updateRule) {
+        super(net);
+        this.size = size;
+        activations = new double[size];
+        buffers = new double[size];
+        inputValues = new double[size];
+        inputs = new double[size];
+        auxiliary = new double[size];
+        thresholds = new double[size];
+        lastSpikeTimes = new double[size];
+        spiked = new boolean[size];
+        setUpdateRule(updateRule);
+    }
+
+    /**
+     * Sum the inputs of every neuron and compute the next activations into
+     * the buffers. The activations of this group, and of the groups that feed
+     * it, are not changed, but the spikes of this group are: to update several
+     * groups at once, call {@link #gatherInputs()} on all of them first.
+     */
+    public void computeBuffers() {
+        gatherInputs();
+        computeActivations();
+    }
+
+    /**
+     * Sum the external and synaptic inputs of every neuron. Only the inputs
+     * of this group are written.
+     */
+    public void gatherInputs() {
+        System.arraycopy(inputValues, 0, inputs, 0, size);
+        final InputType inputType = updateRule.getInputType();
+        for (CompactSynapseGroup group : incoming) {
+            group.accumulateInputs(inputs, inputType);
+        }
+    }
+
+    /**
+     * Compute the next activations into the buffers from the inputs summed by
+     * {@link #gatherInputs()}.
+     */
+    public void computeActivations() {
+        updateRule.update(this, 0, size);
+    }
+
+    /**
+     * Make the buffered activations current and clear the external inputs.
+     */
+    public void commitBuffers() {
+        System.arraycopy(buffers, 0, activations, 0, size);
+        Arrays.fill(inputValues, 0);
+    }
+
+    @Override
+    public void update() {
+        computeBuffers();
+        commitBuffers();
+    }
+
+    @Override
+    public void delete() {
+        if (isMarkedForDeletion()) {
+            return;
+        } else {
+            setMarkedForDeletion(true);
+        }
+        for (CompactSynapseGroup group : new ArrayList<CompactSynapseGroup>(
+            incoming)) {
+            group.delete();
+        }
+        getParentNetwork().removeGroup(this);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getUpdateMethodDesecription() {
+        return "Update compact neurons (buffered)";
+    }
+
+    @Override
+    public String toString() {
+        return "Compact Neuron Group [" + getClass().getSimpleName()
+            + "]. Contains " + size + " neuron(s).";
+    }
+
+    /**
+     * Add a synapse group onto this group.
+     *
+     * @param group the incoming group
+     */
+    void addIncoming(final CompactSynapseGroup group) {
+        incoming.add(group);
+    }
+
+    /**
+     * Remove a synapse group onto this group.
+     *
+     * @param group the incoming group
+     */
+    void removeIncoming(final CompactSynapseGroup group) {
+        incoming.remove(group);
+    }
+
+    /**
+     * @return the synapse groups onto this group
+     */
+    public List<CompactSynapseGroup> getIncoming() {
+        return Collections.unmodifiableList(incoming);
+    }
+
+    /**
+     * @return the update rule
+     */
+    public ArrayUpdateRule getUpdateRule() {
+        return updateRule;
+    }
+
+    /**
+     * Set the update rule and let it initialize the neurons.
+     *
+     * @param updateRule the rule to set
+     */
+    public void setUpdateRule(final ArrayUpdateRule updateRule) {
+        this.updateRule = updateRule;
+        updateRule.init(this);
+    }
+
+    /**
+     * @return the source of the rule's noise, or null if the shared source is
+     *         used
+     */
+    public Random getRandomSource() {
+        return randomSource;
+    }
+
+    /**
+     * Set the source the update rule draws its noise from. Give each group its
+     * own seeded source to make noisy updates reproducible.
+     *
+     * @param randomSource the source, or null to use the shared one
+     */
+    public void setRandomSource(final Random randomSource) {
+        this.randomSource = randomSource;
+    }
+
+    /**
+     * Set the external inputs, which are added to the synaptic inputs on the
+     * next update only.
+     *
+     * @param values the inputs, one per neuron
+     */
+    public void setInputValues(final double[] values) {
+        System.arraycopy(values, 0, inputValues, 0, size);
+    }
+
+    /**
+     * Set the activations.
+     *
+     * @param values the activations, one per neuron
+     */
+    public void setActivations(final double[] values) {
+        System.arraycopy(values, 0, activations, 0, size);
+    }
+
+    /**
+     * @return the activations, not a copy
+     */
+    public double[] getActivations() {
+        return activations;
+    }
+
+    /**
+     * @return the buffered next activations, not a copy
+     */
+    public double[] getBuffers() {
+        return buffers;
+    }
+
+    /**
+     * @return the external inputs, not a copy
+     */
+    public double[] getInputValues() {
+        return inputValues;
+    }
+
+    /**
+     * @return the summed inputs of the current update, not a copy
+     */
+    public double[] getInputs() {
+        return inputs;
+    }
+
+    /**
+     * @return the extra state variable used by some rules, not a copy
+     */
+    public double[] getAuxiliary() {
+        return auxiliary;
+    }
+
+    /**
+     * @return the thresholds, not a copy
+     */
+    public double[] getThresholds() {
+        return thresholds;
+    }
+
+    /**
+     * @return the last spike times, not a copy
+     */
+    public double[] getLastSpikeTimes() {
+        return lastSpikeTimes;
+    }
+
+    /**
+     * @return whether each neuron spiked in the last update, not a copy
+     */
+    public boolean[] getSpiked() {
+        return spiked;
+    }
+
+}
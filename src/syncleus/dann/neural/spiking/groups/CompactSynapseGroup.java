@@ -0,0 +1,414 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.groups;
+
+import java.util.Arrays;
+
+import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule.InputType;
+import syncleus.dann.neural.spiking.synapse_update_rules.ArraySynapseUpdateRule;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.ArraySpikeResponder;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.EventSpikeResponder;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.JumpAndDecay;
+
+/**
+ * Synapses between two {@link CompactNeuronGroup}s, stored as a compressed
+ * sparse row matrix with one row per target neuron. The synapses onto target
+ * neuron t are [getRowStart()[t], getRowStart()[t + 1]), and for each of them
+ * the source neuron, strength and post synaptic response are kept in parallel
+ * arrays.
+ * <p>
+ * Synaptic input can be delivered step by step, updating every synapse on
+ * every time step, or event-driven (see {@link EventDrivenSynapses}), which
+ * touches only the synapses a spike travels along and honours the synaptic
+ * delays.
+ */
+public class CompactSynapseGroup extends Group {
+
+    /** Source neuron group. */
+    private final CompactNeuronGroup sourceNeuronGroup;
+
+    /** Target neuron group. */
+    private final CompactNeuronGroup targetNeuronGroup;
+
+    /** Index of the first synapse onto each target neuron. */
+    private final int[] rowStart;
+
+    /** Source neuron of each synapse. */
+    private final int[] sourceIndices;
+
+    /** Strength of each synapse. */
+    private final double[] strengths;
+
+    /** Post synaptic response of each synapse. */
+    private final double[] psr;
+
+    /** Delay of each synapse in time steps, used by event-driven delivery. */
+    private final int[] delays;
+
+    /** Event-driven delivery state, null when updating step by step. */
+    private EventDrivenSynapses events;
+
+    /** Per-synapse state of the spike responder. */
+    private double[][] responderState;
+
+    /** The learning rule, or null for static synapses. */
+    private ArraySynapseUpdateRule learningRule;
+
+    /** Computes the post synaptic responses for synaptic input. */
+    private ArraySpikeResponder spikeResponder;
+
+    /** Upper limit of synapse strengths. */
+    private double upperBound = 10;
+
+    /** Lower limit of synapse strengths. */
+    private double lowerBound = -10;
+
+    /** Whether learning is turned off. */
+    private boolean frozen;
+
+    /**
+     * Connect two groups. The synapses are given as parallel arrays and may be
+     * in any order; synapses onto the same target keep their relative order.
+     *
+     * @param source source neuron group
+     * @param target target neuron group
+     * @param sources the source neuron of each synapse
+     * @param targets the target neuron of each synapse
+     * @param initialStrengths the strength of each synapse
+     */
+    public CompactSynapseGroup(final CompactNeuronGroup source,
+        final CompactNeuronGroup target, final int[] sources,
+        final int[] targets, final double[] initialStrengths) {
+        super(source.getParentNetwork());
+        if (sources.length != targets.length
+            || sources.length != initialStrengths.length) {
+            throw new IllegalArgumentException(
+                "Sources, targets and strengths differ in length");
+        }
+        sourceNeuronGroup = source;
+        targetNeuronGroup = target;
+
+        final int rows = target.size();
+        rowStart = new int[rows + 1];
+        for (int t : targets) {
+            rowStart[t + 1]++;
+        }
+        for (int i = 0; i < rows; i++) {
+            rowStart[i + 1] += rowStart[i];
+        }
+        sourceIndices = new int[sources.length];
+        strengths = new double[sources.length];
+        psr = new double[sources.length];
+        delays = new int[sources.length];
+        final int[] fill = new int[rows];
+        for (int i = 0; i < sources.length; i++) {
+            final int index = rowStart[targets[i]] + fill[targets[i]]++;
+            sourceIndices[index] = sources[i];
+            strengths[index] = initialStrengths[i];
+        }
+
+        setSpikeResponder(new JumpAndDecay());
+        target.addIncoming(this);
+    }
+
+    /**
+     * Add the input of every synapse to the input of its target neuron.
+     * Weighted input is strength times source activation; synaptic input is
+     * the spike responder's post synaptic response, which is updated here,
+     * or delivered by events if the group is event-driven.
+     *
+     * @param inputs the summed inputs of the target group
+     * @param inputType how the target neurons sum their inputs
+     */
+    public void accumulateInputs(final double[] inputs,
+        final InputType inputType) {
+        final int rows = rowStart.length - 1;
+        if (inputType == InputType.SYNAPTIC && events != null) {
+            events.deliver(inputs);
+        } else if (inputType == InputType.SYNAPTIC) {
+            spikeResponder.update(this, 0, rows);
+            for (int t = 0; t < rows; t++) {
+                double sum = 0;
+                for (int k = rowStart[t]; k < rowStart[t + 1]; k++) {
+                    sum += psr[k];
+                }
+                inputs[t] += sum;
+            }
+        } else {
+            final double[] source = sourceNeuronGroup.getActivations();
+            for (int t = 0; t < rows; t++) {
+                double sum = 0;
+                for (int k = rowStart[t]; k < rowStart[t + 1]; k++) {
+                    sum += strengths[k] * source[sourceIndices[k]];
+                }
+                inputs[t] += sum;
+            }
+        }
+    }
+
+    /**
+     * Update the synapse strengths using the learning rule.
+     */
+    @Override
+    public void update() {
+        if (!frozen && learningRule != null) {
+            learningRule.update(this, 0, rowStart.length - 1);
+        }
+    }
+
+    @Override
+    public void delete() {
+        if (isMarkedForDeletion()) {
+            return;
+        } else {
+            setMarkedForDeletion(true);
+        }
+        getParentNetwork().removeGroup(this);
+        targetNeuronGroup.removeIncoming(this);
+    }
+
+    @Override
+    public int size() {
+        return sourceIndices.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return sourceIndices.length == 0;
+    }
+
+    @Override
+    public String getUpdateMethodDesecription() {
+        return "Update compact synapses";
+    }
+
+    @Override
+    public String toString() {
+        return "Compact Synapse Group [" + getClass().getSimpleName()
+            + "]. Contains " + size() + " synapse(s).";
+    }
+
+    /**
+     * Clip a strength to the bounds of this group.
+     *
+     * @param value the strength to clip
+     * @return the clipped strength
+     */
+    public double clip(final double value) {
+        return Math.max(lowerBound, Math.min(upperBound, value));
+    }
+
+    /**
+     * @return the source neuron group
+     */
+    public CompactNeuronGroup getSourceNeuronGroup() {
+        return sourceNeuronGroup;
+    }
+
+    /**
+     * @return the target neuron group
+     */
+    public CompactNeuronGroup getTargetNeuronGroup() {
+        return targetNeuronGroup;
+    }
+
+    /**
+     * @return the index of the first synapse onto each target neuron, plus the
+     *         synapse count at the end; not a copy
+     */
+    public int[] getRowStart() {
+        return rowStart;
+    }
+
+    /**
+     * @return the source neuron of each synapse, not a copy
+     */
+    public int[] getSourceIndices() {
+        return sourceIndices;
+    }
+
+    /**
+     * @return the strength of each synapse, not a copy
+     */
+    public double[] getStrengths() {
+        return strengths;
+    }
+
+    /**
+     * While event-driven, the post synaptic responses are brought up to date
+     * lazily and may lag behind the current step.
+     *
+     * @return the post synaptic response of each synapse, not a copy
+     */
+    public double[] getPsr() {
+        return psr;
+    }
+
+    /**
+     * @return the delay in time steps of each synapse, in the same order as
+     *         the other arrays; not a copy
+     */
+    public int[] getDelays() {
+        return delays;
+    }
+
+    /**
+     * Give every synapse the same delay. Delays apply to event-driven delivery
+     * only, and are read when a spike is sent, so spikes already in transit
+     * keep their arrival time.
+     *
+     * @param delay the delay in time steps
+     */
+    public void setDelay(final int delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Negative delay: " + delay);
+        }
+        Arrays.fill(delays, delay);
+    }
+
+    /**
+     * @return true if synaptic input is delivered by events
+     */
+    public boolean isEventDriven() {
+        return events != null;
+    }
+
+    /**
+     * Switch between event-driven and step by step delivery of synaptic input.
+     * The current post synaptic responses carry over in both directions;
+     * spikes in transit are dropped when leaving event-driven delivery.
+     *
+     * @param eventDriven true for event-driven delivery, which needs an
+     *            {@link EventSpikeResponder}
+     */
+    public void setEventDriven(final boolean eventDriven) {
+        if (eventDriven == isEventDriven()) {
+            return;
+        }
+        if (eventDriven) {
+            if (!(spikeResponder instanceof EventSpikeResponder)) {
+                throw new IllegalStateException(spikeResponder.getClass()
+                    .getSimpleName() + " does not support event-driven"
+                    + " delivery");
+            }
+            events = new EventDrivenSynapses(this,
+                (EventSpikeResponder) spikeResponder);
+        } else {
+            events.finish();
+            events = null;
+        }
+    }
+
+    /**
+     * @return the event-driven delivery state, null when updating step by step
+     */
+    public EventDrivenSynapses getEvents() {
+        return events;
+    }
+
+    /**
+     * Return one of the per-synapse state arrays of the spike responder.
+     *
+     * @param index which array, less than the responder's state count
+     * @return the state array, not a copy
+     */
+    public double[] getResponderState(final int index) {
+        return responderState[index];
+    }
+
+    /**
+     * @return the learning rule, null if the synapses are static
+     */
+    public ArraySynapseUpdateRule getLearningRule() {
+        return learningRule;
+    }
+
+    /**
+     * @param learningRule the learning rule to set, null for static synapses
+     */
+    public void setLearningRule(final ArraySynapseUpdateRule learningRule) {
+        this.learningRule = learningRule;
+    }
+
+    /**
+     * @return the spike responder
+     */
+    public ArraySpikeResponder getSpikeResponder() {
+        return spikeResponder;
+    }
+
+    /**
+     * Set the spike responder. Its state starts at zero for every synapse. An
+     * event-driven group stays event-driven, with spikes in transit dropped.
+     *
+     * @param spikeResponder the responder to set
+     */
+    public void setSpikeResponder(final ArraySpikeResponder spikeResponder) {
+        final boolean eventDriven = isEventDriven();
+        if (eventDriven) {
+            setEventDriven(false);
+        }
+        this.spikeResponder = spikeResponder;
+        responderState = new double[spikeResponder.getStateCount()][psr.length];
+        setEventDriven(eventDriven);
+    }
+
+    /**
+     * @return the upper bound of the strengths
+     */
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @param upperBound the upper bound to set
+     */
+    public void setUpperBound(final double upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    /**
+     * @return the lower bound of the strengths
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @param lowerBound the lower bound to set
+     */
+    public void setLowerBound(final double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * @return true if learning is turned off
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @param frozen true to turn learning off
+     */
+    public void setFrozen(final boolean frozen) {
+        this.frozen = frozen;
+    }
+
+}
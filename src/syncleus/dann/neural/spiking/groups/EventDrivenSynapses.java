@@ -0,0 +1,288 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.groups;
+
+import java.util.Arrays;
+
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.EventSpikeResponder;
+import syncleus.dann.neural.spiking.util.SpikeWheel;
+
+/**
+ * Event-driven delivery of spikes through a {@link CompactSynapseGroup}.
+ * Instead of updating the response of every synapse on every time step, a
+ * spike is scheduled on a {@link SpikeWheel} for each outgoing synapse of the
+ * neuron that fired, and is handed to the spike responder only when its
+ * synaptic delay has elapsed. Between events the responder decays the
+ * response of each target neuron analytically, so the cost of a time step
+ * depends on the number of spikes rather than the number of synapses.
+ * <p>
+ * Steps are counted from zero, the step at which the group was switched to
+ * event-driven delivery; the first call to {@link #deliver(double[])} is step
+ * one.
+ */
+public class EventDrivenSynapses {
+
+    /** The synapses whose spikes are delivered. */
+    private final CompactSynapseGroup group;
+
+    /** The responder that turns spikes into post synaptic responses. */
+    private final EventSpikeResponder responder;
+
+    /** Index into outSynapses of the first synapse out of each source. */
+    private final int[] outStart;
+
+    /** Synapses grouped by source neuron. */
+    private final int[] outSynapses;
+
+    /** Target neuron of each synapse. */
+    private final int[] synapseTargets;
+
+    /** Per-synapse step, whose meaning depends on the responder. */
+    private final long[] synapseSteps;
+
+    /** Summed post synaptic response of each target neuron. */
+    private final double[] targetResponses;
+
+    /** Step at which each target response was last brought up to date. */
+    private final long[] targetSteps;
+
+    /** Synapses the responder has to step explicitly. */
+    private int[] activeSynapses;
+
+    /** Number of active synapses. */
+    private int activeCount;
+
+    /** Whether each synapse is in the active list. */
+    private final boolean[] active;
+
+    /** Pending spike arrivals and responder timers. */
+    private final SpikeWheel wheel;
+
+    /** The current step. */
+    private long step;
+
+    /**
+     * Prepare event-driven delivery for a group. The current post synaptic
+     * responses of the group are taken as the starting state.
+     *
+     * @param group the synapses
+     * @param responder the spike responder of the group
+     */
+    EventDrivenSynapses(final CompactSynapseGroup group,
+        final EventSpikeResponder responder) {
+        this.group = group;
+        this.responder = responder;
+        final int[] rowStart = group.getRowStart();
+        final int[] sources = group.getSourceIndices();
+        final int synapses = sources.length;
+        final int rows = rowStart.length - 1;
+
+        synapseTargets = new int[synapses];
+        for (int t = 0; t < rows; t++) {
+            for (int k = rowStart[t]; k < rowStart[t + 1]; k++) {
+                synapseTargets[k] = t;
+            }
+        }
+        final int sourceCount = group.getSourceNeuronGroup().size();
+        outStart = new int[sourceCount + 1];
+        for (int s : sources) {
+            outStart[s + 1]++;
+        }
+        for (int i = 0; i < sourceCount; i++) {
+            outStart[i + 1] += outStart[i];
+        }
+        outSynapses = new int[synapses];
+        final int[] fill = new int[sourceCount];
+        for (int k = 0; k < synapses; k++) {
+            outSynapses[outStart[sources[k]] + fill[sources[k]]++] = k;
+        }
+
+        int maxDelay = 0;
+        for (int delay : group.getDelays()) {
+            maxDelay = Math.max(maxDelay, delay);
+        }
+        wheel = new SpikeWheel(maxDelay);
+        synapseSteps = new long[synapses];
+        targetSteps = new long[rows];
+        targetResponses = new double[rows];
+        final double[] psr = group.getPsr();
+        for (int k = 0; k < synapses; k++) {
+            targetResponses[synapseTargets[k]] += psr[k];
+        }
+        activeSynapses = new int[16];
+        active = new boolean[synapses];
+        responder.start(this);
+    }
+
+    /**
+     * Advance one time step: deliver the spikes that are due, schedule the
+     * spikes fired by the source group on the previous step, and add the
+     * summed response of each target neuron to its input.
+     *
+     * @param inputs the summed inputs of the target group
+     */
+    public void deliver(final double[] inputs) {
+        step++;
+        final int due = wheel.advance();
+        final int[] events = wheel.getDue();
+        for (int i = 0; i < due; i++) {
+            final int event = events[i];
+            if (event >= 0) {
+                responder.spikeArrived(this, event);
+            } else {
+                responder.timerExpired(this, ~event);
+            }
+        }
+
+        final boolean[] spiked = group.getSourceNeuronGroup().getSpiked();
+        final int[] delays = group.getDelays();
+        for (int s = 0; s < spiked.length; s++) {
+            if (!spiked[s]) {
+                continue;
+            }
+            for (int i = outStart[s]; i < outStart[s + 1]; i++) {
+                final int k = outSynapses[i];
+                if (delays[k] == 0) {
+                    responder.spikeArrived(this, k);
+                } else {
+                    wheel.schedule(k, delays[k]);
+                }
+            }
+        }
+
+        responder.advance(this);
+        for (int t = 0; t < targetResponses.length; t++) {
+            inputs[t] += responder.getInput(this, t);
+        }
+    }
+
+    /**
+     * Hand the responder state back to the group so that the synapses can be
+     * updated step by step again. Spikes still in transit are dropped.
+     */
+    void finish() {
+        responder.finish(this);
+        wheel.clear();
+    }
+
+    /**
+     * Call {@link EventSpikeResponder#timerExpired} for a synapse after the
+     * given number of steps.
+     *
+     * @param synapse the synapse
+     * @param steps steps from now, at least 1
+     */
+    public void scheduleTimer(final int synapse, final int steps) {
+        wheel.schedule(~synapse, steps);
+    }
+
+    /**
+     * Add a synapse to the active list, if it is not there already.
+     *
+     * @param synapse the synapse
+     */
+    public void activate(final int synapse) {
+        if (active[synapse]) {
+            return;
+        }
+        if (activeCount == activeSynapses.length) {
+            activeSynapses = Arrays.copyOf(activeSynapses,
+                activeCount * 2);
+        }
+        active[synapse] = true;
+        activeSynapses[activeCount++] = synapse;
+    }
+
+    /**
+     * Remove the synapse at a position of the active list. The last active
+     * synapse takes its place, so lists should be walked backwards when
+     * removing.
+     *
+     * @param position the position in the active list
+     */
+    public void removeActive(final int position) {
+        active[activeSynapses[position]] = false;
+        activeSynapses[position] = activeSynapses[--activeCount];
+    }
+
+    /**
+     * @return the synapse group
+     */
+    public CompactSynapseGroup getGroup() {
+        return group;
+    }
+
+    /**
+     * @return the current step
+     */
+    public long getStep() {
+        return step;
+    }
+
+    /**
+     * @return the target neuron of each synapse, not a copy
+     */
+    public int[] getSynapseTargets() {
+        return synapseTargets;
+    }
+
+    /**
+     * @return the per-synapse steps kept for the responder, not a copy
+     */
+    public long[] getSynapseSteps() {
+        return synapseSteps;
+    }
+
+    /**
+     * @return the summed response of each target neuron, not a copy
+     */
+    public double[] getTargetResponses() {
+        return targetResponses;
+    }
+
+    /**
+     * @return the step at which each target response was last updated, not a
+     *         copy
+     */
+    public long[] getTargetSteps() {
+        return targetSteps;
+    }
+
+    /**
+     * @return the active synapses, valid up to {@link #getActiveCount()}; not
+     *         a copy
+     */
+    public int[] getActiveSynapses() {
+        return activeSynapses;
+    }
+
+    /**
+     * @return the number of active synapses
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return true if no spike is in transit and no timer is pending
+     */
+    public boolean isIdle() {
+        return wheel.isEmpty();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.listeners;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import syncleus.dann.neural.spiking.SpikingNeuron;
+import syncleus.dann.neural.spiking.SpikingSynapse;
+
+/**
+ * The changes to a network over one or more updates, as delivered by a
+ * {@link NetworkEventBus}. Each changed neuron and synapse appears once, however
+ * often it changed. The sets are left empty if the subscriber did not ask for
+ * them.
+ */
+public final class NetworkDelta {
+
+    /** Number of the first update covered, counting from 1. */
+    private long firstUpdate;
+
+    /** Number of the last update covered. */
+    private long lastUpdate;
+
+    /** Neurons which changed. */
+    private final Set<SpikingNeuron> neurons = Collections
+        .newSetFromMap(new IdentityHashMap<SpikingNeuron, Boolean>());
+
+    /** Synapses which changed. */
+    private final Set<SpikingSynapse> synapses = Collections
+        .newSetFromMap(new IdentityHashMap<SpikingSynapse, Boolean>());
+
+    /** Whether neurons or synapses were added, removed or retyped. */
+    private boolean structureChanged;
+
+    /**
+     * Create an empty delta starting at the given update.
+     *
+     * @param firstUpdate number of the first update covered
+     */
+    NetworkDelta(final long firstUpdate) {
+        this.firstUpdate = firstUpdate;
+        this.lastUpdate = firstUpdate - 1;
+    }
+
+    /**
+     * Add the changes of a later delta to this one.
+     *
+     * @param later the later delta
+     * @param withNeurons whether to copy the changed neurons
+     * @param withSynapses whether to copy the changed synapses
+     */
+    void merge(final NetworkDelta later, final boolean withNeurons,
+        final boolean withSynapses) {
+        if (isEmpty()) {
+            firstUpdate = later.firstUpdate;
+        }
+        lastUpdate = later.lastUpdate;
+        if (withNeurons) {
+            neurons.addAll(later.neurons);
+        }
+        if (withSynapses) {
+            synapses.addAll(later.synapses);
+        }
+        structureChanged |= later.structureChanged;
+    }
+
+    /**
+     * Record a neuron change.
+     *
+     * @param neuron the changed neuron
+     */
+    void addNeuron(final SpikingNeuron neuron) {
+        neurons.add(neuron);
+    }
+
+    /**
+     * Record a synapse change.
+     *
+     * @param synapse the changed synapse
+     */
+    void addSynapse(final SpikingSynapse synapse) {
+        synapses.add(synapse);
+    }
+
+    /**
+     * Record a structural change.
+     */
+    void markStructureChanged() {
+        structureChanged = true;
+    }
+
+    /**
+     * Close the current update.
+     */
+    void endUpdate() {
+        lastUpdate++;
+    }
+
+    /**
+     * @return whether this delta covers no update
+     */
+    boolean isEmpty() {
+        return lastUpdate < firstUpdate;
+    }
+
+    /**
+     * @return number of the first update covered, counting from 1
+     */
+    public long getFirstUpdate() {
+        return firstUpdate;
+    }
+
+    /**
+     * @return number of the last update covered
+     */
+    public long getLastUpdate() {
+        return lastUpdate;
+    }
+
+    /**
+     * @return number of updates covered
+     */
+    public long getUpdateCount() {
+        return lastUpdate - firstUpdate + 1;
+    }
+
+    /**
+     * @return the neurons which changed, compared by identity
+     */
+    public Set<SpikingNeuron> getNeurons() {
+        return Collections.unmodifiableSet(neurons);
+    }
+
+    /**
+     * @return the synapses which changed, compared by identity
+     */
+    public Set<SpikingSynapse> getSynapses() {
+        return Collections.unmodifiableSet(synapses);
+    }
+
+    /**
+     * @return whether neurons or synapses were added, removed or retyped
+     */
+    public boolean isStructureChanged() {
+        return structureChanged;
+    }
+
+    @Override
+    public String toString() {
+        return "Network delta [updates " + firstUpdate + "-" + lastUpdate
+            + "]. " + neurons.size() + " neuron(s), " + synapses.size()
+            + " synapse(s) changed.";
+    }
+
+}
@@ -0,0 +1,497 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.listeners;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import syncleus.dann.neural.spiking.SpikingNeuralNetwork;
+import syncleus.dann.neural.spiking.SpikingNeuron;
+import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule;
+import syncleus.dann.neural.spiking.SpikingSynapse;
+import syncleus.dann.neural.spiking.SynapseUpdateRule;
+
+/**
+ * Collects the network, neuron and synapse events of a network and hands them
+ * to subscribers in batches, on a separate dispatch thread.
+ * <p>
+ * While the network updates, events only mark the changed neurons and
+ * synapses in a staged {@link NetworkDelta}. Each network changed event closes
+ * the staged delta and offers it to a bounded ring buffer. If the ring is
+ * full the offer is refused and the next update is merged into the same
+ * delta, so the update loop never waits for the subscribers; a slow
+ * subscriber just receives larger deltas. The dispatch thread merges deltas
+ * for each subscriber, keeping only what it asked for, and notifies it once
+ * every few updates.
+ */
+public class NetworkEventBus implements NetworkListener, NeuronListener,
+    SynapseListener {
+
+    /** Default number of deltas the ring buffer holds. */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /** Logs the failures of subscribers. */
+    private static final Logger LOGGER = LogManager
+        .getLogger(NetworkEventBus.class);
+
+    /** What a subscriber is told about. */
+    public enum Granularity {
+
+        /** Only which updates happened and whether the structure changed. */
+        NETWORK(false, false),
+
+        /** The changed neurons. */
+        NEURONS(true, false),
+
+        /** The changed synapses. */
+        SYNAPSES(false, true),
+
+        /** The changed neurons and synapses. */
+        ALL(true, true);
+
+        /** Whether changed neurons are reported. */
+        private final boolean neurons;
+
+        /** Whether changed synapses are reported. */
+        private final boolean synapses;
+
+        /**
+         * @param neurons whether changed neurons are reported
+         * @param synapses whether changed synapses are reported
+         */
+        Granularity(final boolean neurons, final boolean synapses) {
+            this.neurons = neurons;
+            this.synapses = synapses;
+        }
+    }
+
+    /** The network observed. */
+    private final SpikingNeuralNetwork network;
+
+    /** Deltas, and markers, waiting for the dispatch thread. */
+    private final Ring ring;
+
+    /** Guards the staged delta. */
+    private final Object stageLock = new Object();
+
+    /** Changes of the current update. */
+    private NetworkDelta staged = new NetworkDelta(1);
+
+    /** Number of updates merged because the ring was full. */
+    private long coalesced;
+
+    /** Number of notifications a subscriber failed on. */
+    private final AtomicLong failures = new AtomicLong();
+
+    /** Current subscribers. */
+    private final List<Subscription> subscriptions =
+        new CopyOnWriteArrayList<Subscription>();
+
+    /** Thread notifying the subscribers. */
+    private final Thread dispatcher;
+
+    /**
+     * Observe a network with a ring of {@link #DEFAULT_CAPACITY} deltas.
+     *
+     * @param network the network to observe
+     */
+    public NetworkEventBus(final SpikingNeuralNetwork network) {
+        this(network, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Observe a network.
+     *
+     * @param network the network to observe
+     * @param capacity number of deltas the ring buffer holds
+     */
+    public NetworkEventBus(final SpikingNeuralNetwork network,
+        final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.network = network;
+        this.ring = new Ring(capacity);
+        dispatcher = new Thread(this::dispatch, "NetworkEventBus");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        network.addNetworkListener(this);
+        network.addNeuronListener(this);
+        network.addSynapseListener(this);
+    }
+
+    /**
+     * Subscribe a listener.
+     *
+     * @param listener the listener
+     * @param granularity what the listener is told about
+     * @param interval notify the listener once every this many updates
+     */
+    public void subscribe(final NetworkDeltaListener listener,
+        final Granularity granularity, final int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        subscriptions.add(new Subscription(listener, granularity, interval));
+    }
+
+    /**
+     * Unsubscribe a listener. It may still be notified once if the dispatch
+     * thread is notifying it.
+     *
+     * @param listener the listener
+     */
+    public void unsubscribe(final NetworkDeltaListener listener) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.listener == listener) {
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    /**
+     * Notify every subscriber of all completed updates it has not been told
+     * about yet, whatever its interval, and wait until it has been notified.
+     * Network updates on other threads wait meanwhile.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        post(false).await();
+    }
+
+    /**
+     * Flush, stop observing the network and stop the dispatch thread.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void close() throws InterruptedException {
+        network.removeNetworkListener(this);
+        network.removeNeuronListener(this);
+        network.removeSynapseListener(this);
+        post(true).await();
+        dispatcher.join();
+    }
+
+    /**
+     * Publish the staged delta, if it covers an update, followed by a marker.
+     * Waits for room in the ring.
+     *
+     * @param stop whether the dispatch thread should stop at the marker
+     * @return a latch released when the marker has been handled
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    private CountDownLatch post(final boolean stop)
+        throws InterruptedException {
+        final Marker marker = new Marker(stop);
+        synchronized (stageLock) {
+            if (!staged.isEmpty()) {
+                final NetworkDelta next = new NetworkDelta(
+                    staged.getLastUpdate() + 1);
+                ring.put(staged);
+                staged = next;
+            }
+            ring.put(marker);
+        }
+        return marker.done;
+    }
+
+    /**
+     * @return number of updates merged into the previous delta because the
+     *         ring was full
+     */
+    public long getCoalescedCount() {
+        synchronized (stageLock) {
+            return coalesced;
+        }
+    }
+
+    /**
+     * @return number of notifications on which a subscriber threw an
+     *         exception, which was logged
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Body of the dispatch thread.
+     */
+    private void dispatch() {
+        try {
+            while (true) {
+                final Object entry = ring.take();
+                if (entry instanceof NetworkDelta) {
+                    final NetworkDelta delta = (NetworkDelta) entry;
+                    for (Subscription subscription : subscriptions) {
+                        subscription.pending.merge(delta,
+                            subscription.granularity.neurons,
+                            subscription.granularity.synapses);
+                        if (subscription.pending.getUpdateCount()
+                            >= subscription.interval) {
+                            subscription.deliver(failures);
+                        }
+                    }
+                } else {
+                    final Marker marker = (Marker) entry;
+                    for (Subscription subscription : subscriptions) {
+                        if (!subscription.pending.isEmpty()) {
+                            subscription.deliver(failures);
+                        }
+                    }
+                    marker.done.countDown();
+                    if (marker.stop) {
+                        return;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void networkChanged() {
+        synchronized (stageLock) {
+            staged.endUpdate();
+            final NetworkDelta next = new NetworkDelta(
+                staged.getLastUpdate() + 1);
+            if (ring.offer(staged)) {
+                staged = next;
+            } else {
+                coalesced++;
+            }
+        }
+    }
+
+    @Override
+    public void neuronChanged(final NetworkEvent<SpikingNeuron> networkEvent) {
+        synchronized (stageLock) {
+            staged.addNeuron(networkEvent.getObject());
+        }
+    }
+
+    @Override
+    public void neuronTypeChanged(
+        final NetworkEvent<SpikingNeuronUpdateRule> networkEvent) {
+        synchronized (stageLock) {
+            staged.markStructureChanged();
+        }
+    }
+
+    @Override
+    public void labelChanged(final NetworkEvent<SpikingNeuron> networkEvent) {
+        neuronChanged(networkEvent);
+    }
+
+    @Override
+    public void neuronAdded(final NetworkEvent<SpikingNeuron> networkEvent) {
+        synchronized (stageLock) {
+            staged.addNeuron(networkEvent.getObject());
+            staged.markStructureChanged();
+        }
+    }
+
+    @Override
+    public void neuronMoved(final NetworkEvent<SpikingNeuron> networkEvent) {
+        neuronChanged(networkEvent);
+    }
+
+    @Override
+    public void neuronRemoved(final NetworkEvent<SpikingNeuron> networkEvent) {
+        synchronized (stageLock) {
+            staged.markStructureChanged();
+        }
+    }
+
+    @Override
+    public void synapseRemoved(
+        final NetworkEvent<SpikingSynapse> networkEvent) {
+        synchronized (stageLock) {
+            staged.markStructureChanged();
+        }
+    }
+
+    @Override
+    public void synapseAdded(final NetworkEvent<SpikingSynapse> networkEvent) {
+        synchronized (stageLock) {
+            staged.addSynapse(networkEvent.getObject());
+            staged.markStructureChanged();
+        }
+    }
+
+    @Override
+    public void synapseChanged(
+        final NetworkEvent<SpikingSynapse> networkEvent) {
+        synchronized (stageLock) {
+            staged.addSynapse(networkEvent.getObject());
+        }
+    }
+
+    @Override
+    public void synapseTypeChanged(
+        final NetworkEvent<SynapseUpdateRule> networkEvent) {
+        synchronized (stageLock) {
+            staged.markStructureChanged();
+        }
+    }
+
+    /**
+     * A subscriber and the changes it has not been told about. The pending
+     * delta is only used by the dispatch thread.
+     */
+    private static final class Subscription {
+
+        /** The subscriber. */
+        private final NetworkDeltaListener listener;
+
+        /** What the subscriber is told about. */
+        private final Granularity granularity;
+
+        /** Number of updates between notifications. */
+        private final int interval;
+
+        /** Changes not yet delivered. */
+        private NetworkDelta pending = new NetworkDelta(1);
+
+        /**
+         * @param listener the subscriber
+         * @param granularity what the subscriber is told about
+         * @param interval number of updates between notifications
+         */
+        Subscription(final NetworkDeltaListener listener,
+            final Granularity granularity, final int interval) {
+            this.listener = listener;
+            this.granularity = granularity;
+            this.interval = interval;
+        }
+
+        /**
+         * Hand the pending changes to the subscriber and start a new delta.
+         * A failing subscriber does not stop the others: its exception is
+         * logged and counted.
+         *
+         * @param failures count of the failed notifications
+         */
+        void deliver(final AtomicLong failures) {
+            final NetworkDelta delta = pending;
+            pending = new NetworkDelta(delta.getLastUpdate() + 1);
+            try {
+                listener.networkUpdated(delta);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                LOGGER.error("Subscriber " + listener
+                    + " failed on the updates " + delta.getFirstUpdate()
+                    + " to " + delta.getLastUpdate(), e);
+            }
+        }
+    }
+
+    /**
+     * Tells the dispatch thread to notify every subscriber of its pending
+     * changes.
+     */
+    private static final class Marker {
+
+        /** Released once the marker has been handled. */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /** Whether the dispatch thread stops after this marker. */
+        private final boolean stop;
+
+        /**
+         * @param stop whether the dispatch thread stops after this marker
+         */
+        Marker(final boolean stop) {
+            this.stop = stop;
+        }
+    }
+
+    /**
+     * Bounded first-in first-out ring of entries. Offering never waits.
+     */
+    private static final class Ring {
+
+        /** The entries, starting at head. */
+        private final Object[] slots;
+
+        /** Index of the oldest entry. */
+        private int head;
+
+        /** Number of entries. */
+        private int size;
+
+        /**
+         * @param capacity maximum number of entries
+         */
+        Ring(final int capacity) {
+            slots = new Object[capacity];
+        }
+
+        /**
+         * Add an entry if there is room.
+         *
+         * @param entry the entry
+         * @return false if the ring is full
+         */
+        synchronized boolean offer(final Object entry) {
+            if (size == slots.length) {
+                return false;
+            }
+            slots[(head + size) % slots.length] = entry;
+            size++;
+            notifyAll();
+            return true;
+        }
+
+        /**
+         * Add an entry, waiting for room.
+         *
+         * @param entry the entry
+         * @throws InterruptedException if interrupted while waiting
+         */
+        synchronized void put(final Object entry) throws InterruptedException {
+            while (!offer(entry)) {
+                wait();
+            }
+        }
+
+        /**
+         * Remove the oldest entry, waiting for one.
+         *
+         * @return the entry
+         * @throws InterruptedException if interrupted while waiting
+         */
+        synchronized Object take() throws InterruptedException {
+            while (size == 0) {
+                wait();
+            }
+            final Object entry = slots[head];
+            slots[head] = null;
+            head = (head + 1) % slots.length;
+            size--;
+            notifyAll();
+            return entry;
+        }
+    }
+
+}
@@ -19,7 +19,11 @@
 package syncleus.dann.neural.spiking.neuron_update_rules;
 
 import syncleus.dann.neural.spiking.SpikingNeuron;
+import java.util.Arrays;
+import java.util.Random;
 import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+import syncleus.dann.neural.spiking.neuron_update_rules.interfaces.ArrayUpdateRule;
 import syncleus.dann.neural.spiking.neuron_update_rules.interfaces.NoisyUpdateRule;
 import syncleus.dann.neural.spiking.util.Randomizer;
 
@@ -32,7 +36,7 @@ import syncleus.dann.neural.spiking.util.Randomizer;
  * TODO: Add custom tooltip
  */
 public class IntegrateAndFireRule extends SpikingNeuronUpdateRule implements
-    NoisyUpdateRule {
+    NoisyUpdateRule, ArrayUpdateRule {
 
     /** Resistance. */
     private double resistance = 1;
@@ -120,6 +124,52 @@ public class IntegrateAndFireRule extends SpikingNeuronUpdateRule implements
         neuron.setBuffer(memPotential);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(CompactNeuronGroup group) {
+        Arrays.fill(group.getThresholds(), threshold);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(CompactNeuronGroup group, int start, int end) {
+        double timeStep = group.getParentNetwork().getTimeStep();
+        double time = group.getParentNetwork().getTime();
+        double[] potentials = group.getActivations();
+        double[] input = group.getInputs();
+        double[] thresholds = group.getThresholds();
+        double[] buffers = group.getBuffers();
+        boolean[] spiked = group.getSpiked();
+        double[] lastSpikeTimes = group.getLastSpikeTimes();
+        Random random = group.getRandomSource();
+
+        for (int i = start; i < end; i++) {
+            double iSyn = input[i];
+            if (addNoise) {
+                iSyn += noiseGenerator.getRandom(random);
+            }
+
+            double memPotential = potentials[i];
+            memPotential += timeStep
+                * (-(memPotential - restingPotential) + resistance
+                    * (iSyn + backgroundCurrent)) / timeConstant;
+
+            if (memPotential >= thresholds[i]) {
+                spiked[i] = true;
+                lastSpikeTimes[i] = time;
+                memPotential = resetPotential;
+            } else {
+                spiked[i] = false;
+            }
+
+            buffers[i] = memPotential;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -19,7 +19,11 @@
 package syncleus.dann.neural.spiking.neuron_update_rules;
 
 import syncleus.dann.neural.spiking.SpikingNeuron;
+import java.util.Arrays;
+import java.util.Random;
 import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+import syncleus.dann.neural.spiking.neuron_update_rules.interfaces.ArrayUpdateRule;
 import syncleus.dann.neural.spiking.neuron_update_rules.interfaces.NoisyUpdateRule;
 import syncleus.dann.neural.spiking.util.Randomizer;
 
@@ -30,7 +34,7 @@ import syncleus.dann.neural.spiking.util.Randomizer;
  * faster/cooler. Just a thought.
  */
 public class IzhikevichRule extends SpikingNeuronUpdateRule implements
-    NoisyUpdateRule {
+    NoisyUpdateRule, ArrayUpdateRule {
 
     /** Recovery. */
     private double recovery;
@@ -102,6 +106,56 @@ public class IzhikevichRule extends SpikingNeuronUpdateRule implements
         neuron.setBuffer(val);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(CompactNeuronGroup group) {
+        Arrays.fill(group.getThresholds(), threshold);
+    }
+
+    /**
+     * {@inheritDoc} The recovery variable of each neuron is kept in the
+     * group's auxiliary array.
+     */
+    @Override
+    public void update(CompactNeuronGroup group, int start, int end) {
+        double timeStep = group.getParentNetwork().getTimeStep();
+        double time = group.getParentNetwork().getTime();
+        double[] v = group.getActivations();
+        double[] u = group.getAuxiliary();
+        double[] input = group.getInputs();
+        double[] thresholds = group.getThresholds();
+        double[] buffers = group.getBuffers();
+        boolean[] spiked = group.getSpiked();
+        double[] lastSpikeTimes = group.getLastSpikeTimes();
+        Random random = group.getRandomSource();
+
+        for (int i = start; i < end; i++) {
+            double inputs = input[i];
+            if (addNoise) {
+                inputs += noiseGenerator.getRandom(random);
+            }
+
+            u[i] += (timeStep * (a * ((b * v[i]) - u[i])));
+
+            double val = v[i]
+                + (timeStep * (((.04 * (v[i] * v[i])) + (5 * v[i]) + 140)
+                    - u[i] + inputs));
+
+            if (val >= thresholds[i]) {
+                val = c;
+                u[i] += d;
+                spiked[i] = true;
+                lastSpikeTimes[i] = time;
+            } else {
+                spiked[i] = false;
+            }
+
+            buffers[i] = val;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
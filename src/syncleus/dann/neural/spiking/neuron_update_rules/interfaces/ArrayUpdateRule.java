@@ -0,0 +1,58 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.neuron_update_rules.interfaces;
+
+import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule.InputType;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+
+/**
+ * An interface which should be implemented by any neuron update rule that can
+ * update a whole {@link CompactNeuronGroup} at once, working directly on the
+ * group's state arrays.
+ */
+public interface ArrayUpdateRule {
+
+    /**
+     * Set up the per-neuron state of a group that uses this rule, for example
+     * its thresholds.
+     *
+     * @param group the group to initialize
+     */
+    void init(CompactNeuronGroup group);
+
+    /**
+     * Update neurons start (inclusive) to end (exclusive) of a group. The
+     * summed inputs of the group are already set. Next activations are
+     * written to the group's buffers; the activations themselves must not be
+     * changed.
+     *
+     * @param group the group to update
+     * @param start the first neuron to update
+     * @param end one past the last neuron to update
+     */
+    void update(CompactNeuronGroup group, int start, int end);
+
+    /**
+     * Return how the neurons sum their inputs.
+     *
+     * @return the input type
+     */
+    InputType getInputType();
+
+}
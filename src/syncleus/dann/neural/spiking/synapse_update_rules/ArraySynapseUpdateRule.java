@@ -0,0 +1,39 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.synapse_update_rules;
+
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+
+/**
+ * A synapse update rule that can update a whole {@link CompactSynapseGroup} at
+ * once, working directly on the group's strength array.
+ */
+public interface ArraySynapseUpdateRule {
+
+    /**
+     * Apply the update rule to the synapses onto target neurons start
+     * (inclusive) to end (exclusive) of a group.
+     *
+     * @param group the synapse group
+     * @param start the first target neuron
+     * @param end one past the last target neuron
+     */
+    void update(CompactSynapseGroup group, int start, int end);
+
+}
@@ -20,11 +20,13 @@ package syncleus.dann.neural.spiking.synapse_update_rules;
 
 import syncleus.dann.neural.spiking.SpikingSynapse;
 import syncleus.dann.neural.spiking.SynapseUpdateRule;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
 
 /**
  * <b>Hebbian</b> implements a standard Hebbian learning rule.
  */
-public class HebbianRule extends SynapseUpdateRule {
+public class HebbianRule extends SynapseUpdateRule implements
+    ArraySynapseUpdateRule {
 
     /** Default learning rate. */
     public static final double DEFAULT_LEARNING_RATE = .1;
@@ -57,6 +59,22 @@ public class HebbianRule extends SynapseUpdateRule {
         synapse.setStrength(strength);
     }
 
+    @Override
+    public void update(CompactSynapseGroup group, int start, int end) {
+        double[] input = group.getSourceNeuronGroup().getActivations();
+        double[] output = group.getTargetNeuronGroup().getActivations();
+        int[] rowStart = group.getRowStart();
+        int[] sources = group.getSourceIndices();
+        double[] strengths = group.getStrengths();
+        for (int t = start; t < end; t++) {
+            double rate = learningRate * output[t];
+            for (int k = rowStart[t]; k < rowStart[t + 1]; k++) {
+                strengths[k] = group.clip(strengths[k]
+                    + (rate * input[sources[k]]));
+            }
+        }
+    }
+
     /**
      * @return Returns the momentum.
      */
@@ -20,12 +20,14 @@ package syncleus.dann.neural.spiking.synapse_update_rules;
 
 import syncleus.dann.neural.spiking.SpikingSynapse;
 import syncleus.dann.neural.spiking.SynapseUpdateRule;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
 
 /**
  * <b>OjaSynapse</b> is a synapse which asymptotically normalizes the sum of
  * squares of the weights attaching to a neuron to a user-defined value.
  */
-public class OjaRule extends SynapseUpdateRule {
+public class OjaRule extends SynapseUpdateRule implements
+    ArraySynapseUpdateRule {
 
     /** Learning rate. */
     public static final double DEFAULT_LEARNING_RATE = .1;
@@ -67,6 +69,24 @@ public class OjaRule extends SynapseUpdateRule {
         synapse.setStrength(synapse.clip(strength));
     }
 
+    @Override
+    public void update(CompactSynapseGroup group, int start, int end) {
+        double[] input = group.getSourceNeuronGroup().getActivations();
+        double[] output = group.getTargetNeuronGroup().getActivations();
+        int[] rowStart = group.getRowStart();
+        int[] sources = group.getSourceIndices();
+        double[] strengths = group.getStrengths();
+        for (int t = start; t < end; t++) {
+            double out = output[t];
+            for (int k = rowStart[t]; k < rowStart[t + 1]; k++) {
+                double strength = strengths[k]
+                        + (learningRate * ((input[sources[k]] * out)
+                        - ((out * out * strengths[k]) / normalizationFactor)));
+                strengths[k] = group.clip(strength);
+            }
+        }
+    }
+
     /**
      * @return Returns the momentum.
      */
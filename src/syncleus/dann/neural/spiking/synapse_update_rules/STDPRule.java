@@ -21,6 +21,8 @@ package syncleus.dann.neural.spiking.synapse_update_rules;
 import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule;
 import syncleus.dann.neural.spiking.SpikingSynapse;
 import syncleus.dann.neural.spiking.SynapseUpdateRule;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
 
 /**
  * <b>STDPSynapse</b> models spike time dependent plasticity.
@@ -32,7 +34,8 @@ import syncleus.dann.neural.spiking.SynapseUpdateRule;
  * Spiking Neurons. Also drew on the Scholarpedia article.
  *
  */
-public class STDPRule extends SynapseUpdateRule {
+public class STDPRule extends SynapseUpdateRule implements
+    ArraySynapseUpdateRule {
 
     /** Default tau plus. */
     private static final double TAU_PLUS_DEFAULT = 30;
@@ -124,6 +127,36 @@ public class STDPRule extends SynapseUpdateRule {
 
     }
 
+    @Override
+    public void update(CompactSynapseGroup group, int start, int end) {
+        CompactNeuronGroup source = group.getSourceNeuronGroup();
+        CompactNeuronGroup target = group.getTargetNeuronGroup();
+        boolean[] srcSpiked = source.getSpiked();
+        double[] srcLastSpike = source.getLastSpikeTimes();
+        boolean[] tarSpiked = target.getSpiked();
+        double[] tarLastSpike = target.getLastSpikeTimes();
+        double time = group.getParentNetwork().getTime();
+        int[] rowStart = group.getRowStart();
+        int[] sources = group.getSourceIndices();
+        double[] strengths = group.getStrengths();
+
+        for (int t = start; t < end; t++) {
+            for (int k = rowStart[t]; k < rowStart[t + 1]; k++) {
+                int s = sources[k];
+                if (tarSpiked[t]) {
+                    double delta_t = time - srcLastSpike[s];
+                    strengths[k] = group.clip(strengths[k] + W_plus
+                            * Math.exp(-delta_t / tau_plus) * learningRate);
+                }
+                if (srcSpiked[s]) {
+                    double delta_t = tarLastSpike[t] - time;
+                    strengths[k] = group.clip(strengths[k] - W_minus
+                            * Math.exp(delta_t / tau_minus) * learningRate);
+                }
+            }
+        }
+    }
+
     /**
      * @return the tau_plus
      */
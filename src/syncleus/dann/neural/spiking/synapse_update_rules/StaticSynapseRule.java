@@ -20,11 +20,13 @@ package syncleus.dann.neural.spiking.synapse_update_rules;
 
 import syncleus.dann.neural.spiking.SpikingSynapse;
 import syncleus.dann.neural.spiking.SynapseUpdateRule;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
 
 /**
  * <b>ClampedSynapse</b>.
  */
-public class StaticSynapseRule extends SynapseUpdateRule {
+public class StaticSynapseRule extends SynapseUpdateRule implements
+    ArraySynapseUpdateRule {
 
     /** Clipped. */
     public boolean clipped = false;
@@ -47,6 +49,10 @@ public class StaticSynapseRule extends SynapseUpdateRule {
         // }
     }
 
+    @Override
+    public void update(CompactSynapseGroup group, int start, int end) {
+    }
+
     @Override
     public String getDescription() {
         return "Static";
@@ -0,0 +1,48 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders;
+
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+
+/**
+ * A spike responder that can update the post synaptic responses of a whole
+ * {@link CompactSynapseGroup} at once.
+ */
+public interface ArraySpikeResponder {
+
+    /**
+     * Return the number of values this responder keeps for each synapse, in
+     * addition to the post synaptic response. For example a step responder
+     * keeps a timer.
+     *
+     * @return the number of per-synapse state arrays needed
+     */
+    int getStateCount();
+
+    /**
+     * Update the post synaptic responses of the synapses onto target neurons
+     * start (inclusive) to end (exclusive) of a group.
+     *
+     * @param group the synapse group
+     * @param start the first target neuron
+     * @param end one past the last target neuron
+     */
+    void update(CompactSynapseGroup group, int start, int end);
+
+}
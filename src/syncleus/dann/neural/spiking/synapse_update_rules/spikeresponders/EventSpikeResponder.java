@@ -0,0 +1,79 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders;
+
+import syncleus.dann.neural.spiking.groups.EventDrivenSynapses;
+
+/**
+ * A spike responder that supports event-driven delivery. It is told only when
+ * a spike reaches a synapse, and is asked once per step for the summed
+ * response of each target neuron, which it keeps up to date analytically
+ * between events.
+ */
+public interface EventSpikeResponder extends ArraySpikeResponder {
+
+    /**
+     * Take over the current post synaptic responses of the group.
+     *
+     * @param events the event state of the group
+     */
+    void start(EventDrivenSynapses events);
+
+    /**
+     * A spike has reached a synapse at the current step.
+     *
+     * @param events the event state of the group
+     * @param synapse the synapse
+     */
+    void spikeArrived(EventDrivenSynapses events, int synapse);
+
+    /**
+     * A timer set with {@link EventDrivenSynapses#scheduleTimer} has run out.
+     *
+     * @param events the event state of the group
+     * @param synapse the synapse the timer was set for
+     */
+    default void timerExpired(final EventDrivenSynapses events,
+            final int synapse) {
+    }
+
+    /**
+     * Step the synapses in the active list, if the responder uses one.
+     *
+     * @param events the event state of the group
+     */
+    default void advance(final EventDrivenSynapses events) {
+    }
+
+    /**
+     * @param events the event state of the group
+     * @param target a target neuron
+     * @return the summed post synaptic response of the target at the current
+     *         step
+     */
+    double getInput(EventDrivenSynapses events, int target);
+
+    /**
+     * Write the state back to the post synaptic responses and responder state
+     * of the group, so that it can be updated step by step again.
+     *
+     * @param events the event state of the group
+     */
+    void finish(EventDrivenSynapses events);
+}
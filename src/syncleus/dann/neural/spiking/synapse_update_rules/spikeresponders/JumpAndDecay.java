@@ -20,11 +20,17 @@ package syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders;
 
 import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule;
 import syncleus.dann.neural.spiking.SpikingSynapse;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+import syncleus.dann.neural.spiking.groups.EventDrivenSynapses;
 
 /**
- * <b>JumpAndDecay</b>.
+ * <b>JumpAndDecay</b>. Under event-driven delivery the response of each
+ * synapse, and the summed response of each target, is decayed in closed form
+ * from the step it was last touched, which gives the same values as decaying
+ * it step by step.
  */
-public class JumpAndDecay extends SpikeResponder {
+public class JumpAndDecay extends SpikeResponder implements
+        EventSpikeResponder {
 
     /** Jump height value. */
     private double jumpHeight = 1;
@@ -62,6 +68,105 @@ public class JumpAndDecay extends SpikeResponder {
         s.setPsr(value);
     }
 
+    /**
+     * {@inheritDoc} The response of each synapse is its only state, and it is
+     * kept in the post synaptic responses of the group.
+     */
+    @Override
+    public int getStateCount() {
+        return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(final CompactSynapseGroup group, final int start,
+            final int end) {
+        final boolean[] spiked = group.getSourceNeuronGroup().getSpiked();
+        final double timeStep = group.getParentNetwork().getTimeStep();
+        final int[] rowStart = group.getRowStart();
+        final int[] sources = group.getSourceIndices();
+        final double[] strengths = group.getStrengths();
+        final double[] psr = group.getPsr();
+        for (int k = rowStart[start]; k < rowStart[end]; k++) {
+            if (spiked[sources[k]]) {
+                psr[k] = jumpHeight * strengths[k];
+            } else {
+                psr[k] += timeStep * (baseLine - psr[k]) / timeConstant;
+            }
+        }
+    }
+
+    @Override
+    public void start(final EventDrivenSynapses events) {
+    }
+
+    @Override
+    public void spikeArrived(final EventDrivenSynapses events,
+            final int synapse) {
+        final CompactSynapseGroup group = events.getGroup();
+        final double[] psr = group.getPsr();
+        final long[] synapseSteps = events.getSynapseSteps();
+        final int target = events.getSynapseTargets()[synapse];
+        final double current = decay(group, psr[synapse], synapseSteps[synapse],
+                events.getStep(), 1);
+        final double jump = jumpHeight * group.getStrengths()[synapse];
+        events.getTargetResponses()[target] = getInput(events, target) + jump
+                - current;
+        psr[synapse] = jump;
+        synapseSteps[synapse] = events.getStep();
+    }
+
+    @Override
+    public double getInput(final EventDrivenSynapses events,
+            final int target) {
+        final long[] targetSteps = events.getTargetSteps();
+        final double[] responses = events.getTargetResponses();
+        final long step = events.getStep();
+        if (targetSteps[target] != step) {
+            final int[] rowStart = events.getGroup().getRowStart();
+            responses[target] = decay(events.getGroup(), responses[target],
+                    targetSteps[target], step,
+                    rowStart[target + 1] - rowStart[target]);
+            targetSteps[target] = step;
+        }
+        return responses[target];
+    }
+
+    @Override
+    public void finish(final EventDrivenSynapses events) {
+        final CompactSynapseGroup group = events.getGroup();
+        final double[] psr = group.getPsr();
+        final long[] synapseSteps = events.getSynapseSteps();
+        for (int k = 0; k < psr.length; k++) {
+            psr[k] = decay(group, psr[k], synapseSteps[k], events.getStep(), 1);
+        }
+    }
+
+    /**
+     * Decay the summed response of some synapses towards their summed base
+     * line. Each step multiplies the distance to the base line by
+     * 1 - timeStep / timeConstant, so any number of steps is one power.
+     *
+     * @param group the synapse group
+     * @param value the summed response at step from
+     * @param from the step the value belongs to
+     * @param to the step to decay to
+     * @param synapses the number of synapses summed
+     * @return the summed response at step to
+     */
+    private double decay(final CompactSynapseGroup group, final double value,
+            final long from, final long to, final int synapses) {
+        if (from == to) {
+            return value;
+        }
+        final double factor = 1 - group.getParentNetwork().getTimeStep()
+                / timeConstant;
+        final double base = baseLine * synapses;
+        return base + (value - base) * Math.pow(factor, to - from);
+    }
+
     /**
      * {@inheritDoc}
      */
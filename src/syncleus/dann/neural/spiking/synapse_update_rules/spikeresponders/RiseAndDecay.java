@@ -20,11 +20,20 @@ package syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders;
 
 import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule;
 import syncleus.dann.neural.spiking.SpikingSynapse;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+import syncleus.dann.neural.spiking.groups.EventDrivenSynapses;
 
 /**
- * <b>RiseAndDecay</b>.
+ * <b>RiseAndDecay</b>. The recovery and the response feed into each other, so
+ * under event-driven delivery a synapse is stepped only from the spike that
+ * reaches it until both have decayed below {@link #EVENT_TOLERANCE}, after
+ * which it is set to rest and skipped.
  */
-public class RiseAndDecay extends SpikeResponder {
+public class RiseAndDecay extends SpikeResponder implements
+        EventSpikeResponder {
+
+    /** Level below which an event-driven synapse is considered at rest. */
+    public static final double EVENT_TOLERANCE = 1e-9;
 
     /** Maximum response value. */
     private double maximumResponse = 1;
@@ -64,6 +73,106 @@ public class RiseAndDecay extends SpikeResponder {
 
     }
 
+    /**
+     * {@inheritDoc} Each synapse keeps its recovery and its unscaled response.
+     */
+    @Override
+    public int getStateCount() {
+        return 2;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(final CompactSynapseGroup group, final int start,
+            final int end) {
+        final boolean[] spiked = group.getSourceNeuronGroup().getSpiked();
+        final double rate = group.getParentNetwork().getTimeStep()
+                / timeConstant;
+        final int[] rowStart = group.getRowStart();
+        final int[] sources = group.getSourceIndices();
+        final double[] strengths = group.getStrengths();
+        final double[] psr = group.getPsr();
+        final double[] recoveries = group.getResponderState(0);
+        final double[] values = group.getResponderState(1);
+        for (int k = rowStart[start]; k < rowStart[end]; k++) {
+            if (spiked[sources[k]]) {
+                recoveries[k] = 1;
+            }
+            recoveries[k] += rate * -recoveries[k];
+            values[k] += rate * ((Math.E * maximumResponse * recoveries[k]
+                    * (1 - values[k])) - values[k]);
+            psr[k] = values[k] * strengths[k];
+        }
+    }
+
+    @Override
+    public void start(final EventDrivenSynapses events) {
+        final double[] recoveries = events.getGroup().getResponderState(0);
+        final double[] values = events.getGroup().getResponderState(1);
+        for (int k = 0; k < values.length; k++) {
+            if (recoveries[k] != 0 || values[k] != 0) {
+                events.activate(k);
+            }
+        }
+    }
+
+    @Override
+    public void spikeArrived(final EventDrivenSynapses events,
+            final int synapse) {
+        events.getGroup().getResponderState(0)[synapse] = 1;
+        events.activate(synapse);
+    }
+
+    /**
+     * {@inheritDoc} Each active synapse takes one step, and is removed once it
+     * has come to rest.
+     */
+    @Override
+    public void advance(final EventDrivenSynapses events) {
+        final CompactSynapseGroup group = events.getGroup();
+        final double rate = group.getParentNetwork().getTimeStep()
+                / timeConstant;
+        final double[] strengths = group.getStrengths();
+        final double[] psr = group.getPsr();
+        final double[] recoveries = group.getResponderState(0);
+        final double[] values = group.getResponderState(1);
+        final int[] targets = events.getSynapseTargets();
+        final double[] responses = events.getTargetResponses();
+        final int[] active = events.getActiveSynapses();
+        for (int i = events.getActiveCount() - 1; i >= 0; i--) {
+            final int k = active[i];
+            recoveries[k] += rate * -recoveries[k];
+            values[k] += rate * ((Math.E * maximumResponse * recoveries[k]
+                    * (1 - values[k])) - values[k]);
+            double value = values[k] * strengths[k];
+            if (Math.abs(recoveries[k]) < EVENT_TOLERANCE
+                    && Math.abs(values[k]) < EVENT_TOLERANCE) {
+                recoveries[k] = 0;
+                values[k] = 0;
+                value = 0;
+                events.removeActive(i);
+            }
+            responses[targets[k]] += value - psr[k];
+            psr[k] = value;
+        }
+    }
+
+    @Override
+    public double getInput(final EventDrivenSynapses events,
+            final int target) {
+        return events.getTargetResponses()[target];
+    }
+
+    /**
+     * {@inheritDoc} The group state is kept current while event-driven, so
+     * there is nothing to write back.
+     */
+    @Override
+    public void finish(final EventDrivenSynapses events) {
+    }
+
     /**
      * {@inheritDoc}
      */
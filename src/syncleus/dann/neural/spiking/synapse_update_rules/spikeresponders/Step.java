@@ -20,11 +20,13 @@ package syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders;
 
 import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule;
 import syncleus.dann.neural.spiking.SpikingSynapse;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+import syncleus.dann.neural.spiking.groups.EventDrivenSynapses;
 
 /**
  * <b>Step</b>.
  */
-public class Step extends SpikeResponder {
+public class Step extends SpikeResponder implements EventSpikeResponder {
 
     /** Timer. */
     private double timer;
@@ -62,6 +64,108 @@ public class Step extends SpikeResponder {
 
     }
 
+    /**
+     * {@inheritDoc} The timer of each synapse is its only state.
+     */
+    @Override
+    public int getStateCount() {
+        return 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(final CompactSynapseGroup group, final int start,
+            final int end) {
+        final boolean[] spiked = group.getSourceNeuronGroup().getSpiked();
+        final double timeStep = group.getParentNetwork().getTimeStep();
+        final int[] rowStart = group.getRowStart();
+        final int[] sources = group.getSourceIndices();
+        final double[] strengths = group.getStrengths();
+        final double[] psr = group.getPsr();
+        final double[] timers = group.getResponderState(0);
+        for (int k = rowStart[start]; k < rowStart[end]; k++) {
+            if (spiked[sources[k]]) {
+                timers[k] = responseDuration;
+            } else {
+                timers[k] = Math.max(0, timers[k] - timeStep);
+            }
+            psr[k] = timers[k] > 0 ? responseHeight * strengths[k] : 0;
+        }
+    }
+
+    /**
+     * {@inheritDoc} Synapses whose timer is still running get an expiry
+     * event.
+     */
+    @Override
+    public void start(final EventDrivenSynapses events) {
+        final CompactSynapseGroup group = events.getGroup();
+        final double timeStep = group.getParentNetwork().getTimeStep();
+        final double[] timers = group.getResponderState(0);
+        final long[] expiries = events.getSynapseSteps();
+        for (int k = 0; k < timers.length; k++) {
+            if (timers[k] > 0) {
+                final int steps = (int) Math.ceil(timers[k] / timeStep);
+                expiries[k] = steps;
+                events.scheduleTimer(k, steps);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} The response is switched on, or renewed, for the number of
+     * steps covered by the response duration, and an expiry event is
+     * scheduled. The response keeps the strength the synapse had when the
+     * spike arrived.
+     */
+    @Override
+    public void spikeArrived(final EventDrivenSynapses events,
+            final int synapse) {
+        final CompactSynapseGroup group = events.getGroup();
+        final double[] psr = group.getPsr();
+        final int steps = Math.max(1, (int) Math.ceil(responseDuration
+                / group.getParentNetwork().getTimeStep()));
+        final double value = responseHeight * group.getStrengths()[synapse];
+        events.getTargetResponses()[events.getSynapseTargets()[synapse]] +=
+                value - psr[synapse];
+        psr[synapse] = value;
+        events.getSynapseSteps()[synapse] = events.getStep() + steps;
+        events.scheduleTimer(synapse, steps);
+    }
+
+    /**
+     * {@inheritDoc} Expiry events made stale by a later spike are ignored.
+     */
+    @Override
+    public void timerExpired(final EventDrivenSynapses events,
+            final int synapse) {
+        if (events.getSynapseSteps()[synapse] == events.getStep()) {
+            final double[] psr = events.getGroup().getPsr();
+            events.getTargetResponses()[events.getSynapseTargets()[synapse]] -=
+                    psr[synapse];
+            psr[synapse] = 0;
+        }
+    }
+
+    @Override
+    public double getInput(final EventDrivenSynapses events,
+            final int target) {
+        return events.getTargetResponses()[target];
+    }
+
+    @Override
+    public void finish(final EventDrivenSynapses events) {
+        final CompactSynapseGroup group = events.getGroup();
+        final double timeStep = group.getParentNetwork().getTimeStep();
+        final double[] timers = group.getResponderState(0);
+        final long[] expiries = events.getSynapseSteps();
+        for (int k = 0; k < timers.length; k++) {
+            timers[k] = Math.max(0, expiries[k] - events.getStep()) * timeStep;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
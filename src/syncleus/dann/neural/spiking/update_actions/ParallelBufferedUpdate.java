@@ -0,0 +1,211 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.update_actions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import syncleus.dann.neural.spiking.NetworkUpdateAction;
+import syncleus.dann.neural.spiking.SpikingNeuralNetwork;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+import syncleus.dann.neural.spiking.groups.Group;
+
+/**
+ * Buffered update of the network's groups on a pool of worker threads. Each
+ * phase runs one task per group and waits for all of them before the next
+ * phase starts:
+ * <ol>
+ * <li>every {@link CompactNeuronGroup} sums its inputs, reading the spikes
+ * and activations of its source groups;</li>
+ * <li>every compact neuron group computes its buffers, overwriting its own
+ * spikes;</li>
+ * <li>every compact neuron group commits its buffers;</li>
+ * <li>every {@link CompactSynapseGroup} applies its learning rule.</li>
+ * </ol>
+ * Other groups share neuron state through their synapses, so they are
+ * updated by a single task in list order during the second phase.
+ * <p>
+ * The result does not depend on the order of the groups or on the number of
+ * threads. Each compact neuron group is given its own noise source, seeded
+ * from this action's seed the first time the group is seen, so a run is
+ * reproducible given the seed and the order in which groups were added.
+ */
+public class ParallelBufferedUpdate implements NetworkUpdateAction {
+
+    /** Reference to network to update. */
+    private final SpikingNeuralNetwork network;
+
+    /** Seeds the noise sources of new groups. */
+    private final Random seeds;
+
+    /** Groups which have been given a noise source. */
+    private final Set<CompactNeuronGroup> seeded = Collections
+        .newSetFromMap(new WeakHashMap<CompactNeuronGroup, Boolean>());
+
+    /** Number of worker threads. */
+    private final int threads;
+
+    /** Worker pool, or null if there is one thread. */
+    private final ExecutorService executor;
+
+    /**
+     * Create an update with one thread per processor.
+     *
+     * @param network the network to update
+     * @param seed seed of the noise sources
+     */
+    public ParallelBufferedUpdate(final SpikingNeuralNetwork network,
+        final long seed) {
+        this(network, seed, 0);
+    }
+
+    /**
+     * Create an update.
+     *
+     * @param network the network to update
+     * @param seed seed of the noise sources
+     * @param threadCount number of threads, or 0 for one per processor
+     */
+    public ParallelBufferedUpdate(final SpikingNeuralNetwork network,
+        final long seed, final int threadCount) {
+        this.network = network;
+        this.seeds = new Random(seed);
+        this.threads = Math.max(1, threadCount > 0 ? threadCount : Runtime
+            .getRuntime().availableProcessors());
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                final Thread thread = new Thread(runnable,
+                    "ParallelBufferedUpdate");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            executor = null;
+        }
+    }
+
+    @Override
+    public void invoke() {
+        final List<CompactNeuronGroup> neuronGroups =
+            new ArrayList<CompactNeuronGroup>();
+        final List<CompactSynapseGroup> synapseGroups =
+            new ArrayList<CompactSynapseGroup>();
+        final List<Group> otherGroups = new ArrayList<Group>();
+        for (Group group : network.getGroupList()) {
+            if (group instanceof CompactNeuronGroup) {
+                final CompactNeuronGroup neuronGroup =
+                    (CompactNeuronGroup) group;
+                if (seeded.add(neuronGroup)) {
+                    neuronGroup.setRandomSource(new Random(seeds.nextLong()));
+                }
+                neuronGroups.add(neuronGroup);
+            } else if (group instanceof CompactSynapseGroup) {
+                synapseGroups.add((CompactSynapseGroup) group);
+            } else {
+                otherGroups.add(group);
+            }
+        }
+
+        final List<Runnable> gather = new ArrayList<Runnable>();
+        final List<Runnable> compute = new ArrayList<Runnable>();
+        final List<Runnable> commit = new ArrayList<Runnable>();
+        for (CompactNeuronGroup group : neuronGroups) {
+            gather.add(group::gatherInputs);
+            compute.add(group::computeActivations);
+            commit.add(group::commitBuffers);
+        }
+        if (!otherGroups.isEmpty()) {
+            compute.add(() -> {
+                for (Group group : otherGroups) {
+                    group.update();
+                }
+            });
+        }
+        final List<Runnable> learn = new ArrayList<Runnable>();
+        for (CompactSynapseGroup group : synapseGroups) {
+            learn.add(group::update);
+        }
+
+        runAll(gather);
+        runAll(compute);
+        runAll(commit);
+        runAll(learn);
+    }
+
+    /**
+     * Run the tasks of one phase and wait for all of them to finish.
+     *
+     * @param tasks the tasks
+     */
+    private void runAll(final List<Runnable> tasks) {
+        if (executor == null || tasks.size() < 2) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        final List<Callable<Void>> calls =
+            new ArrayList<Callable<Void>>(tasks.size());
+        for (Runnable task : tasks) {
+            calls.add(Executors.callable(task, (Void) null));
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(calls)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Update interrupted", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * @return the number of worker threads
+     */
+    public int getThreadCount() {
+        return threads;
+    }
+
+    /**
+     * Stop the worker threads. The action must not be invoked afterwards.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+}
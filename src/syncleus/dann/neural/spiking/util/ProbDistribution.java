@@ -18,6 +18,8 @@
  */
 package syncleus.dann.neural.spiking.util;
 
+import java.util.Random;
+
 //import umontreal.iro.lecuyer.probdist.Distribution;
 //import umontreal.iro.lecuyer.probdist.GammaDist;
 //import umontreal.iro.lecuyer.probdist.LognormalDist;
@@ -48,6 +50,11 @@ public enum ProbDistribution {
             return Math.random() * (ceil - floor) + floor;
         }
 
+        @Override
+        public double nextRand(Random random, double floor, double ceil) {
+            return random.nextDouble() * (ceil - floor) + floor;
+        }
+
         /**
          * @param floor
          *            the lowest value of the interval
@@ -463,6 +470,21 @@ public enum ProbDistribution {
 
     public abstract int nextRandInt(int var1, int var2);
 
+    /**
+     * Draw a number from the given source rather than the shared one, so a
+     * caller that seeds the source gets reproducible draws. Distributions
+     * which cannot draw from a source fall back to
+     * {@link #nextRand(double, double)}.
+     *
+     * @param random the source to draw from
+     * @param var1 the first parameter
+     * @param var2 the second parameter
+     * @return the next random number
+     */
+    public double nextRand(Random random, double var1, double var2) {
+        return nextRand(var1, var2);
+    }
+
     //public abstract RealDistribution getBestFit(double[] observations, int numObs);
 
     //public abstract double[] getBestFitParams(double[] observations, int numObs);
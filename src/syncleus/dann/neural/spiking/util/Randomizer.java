@@ -18,6 +18,8 @@
  */
 package syncleus.dann.neural.spiking.util;
 
+import java.util.Random;
+
 
 /**
  * @author Zach Tosi
@@ -113,6 +115,23 @@ public class Randomizer {
         }
     }
 
+    /**
+     * Returns a random number drawn from the given source.
+     *
+     * @param random the source to draw from, or null to use the shared one
+     * @return the next random number
+     */
+    public double getRandom(final Random random) {
+        if (random == null) {
+            return getRandom();
+        }
+        if (clipping) {
+            return clip(pdf.nextRand(random, param1, param2));
+        } else {
+            return pdf.nextRand(random, param1, param2);
+        }
+    }
+
     /**
      * Clip <code>val</code> to upper and lower bounds.
      *
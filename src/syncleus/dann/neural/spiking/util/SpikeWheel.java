@@ -0,0 +1,143 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package syncleus.dann.neural.spiking.util;
+
+import java.util.Arrays;
+
+/**
+ * A timing wheel of integer events, one bucket per time step. An event
+ * scheduled with delay d is returned by {@link #advance()} d steps later. The
+ * wheel grows when an event is scheduled further ahead than it can hold, so
+ * delays need not be known in advance.
+ */
+public class SpikeWheel {
+
+    /** Events of each bucket. */
+    private int[][] buckets;
+
+    /** Number of events in each bucket. */
+    private int[] counts;
+
+    /** Bucket of the current time step. */
+    private int current;
+
+    /** Events handed out by the last call to advance. */
+    private int[] due = new int[0];
+
+    /**
+     * Create a wheel able to hold delays up to the given maximum without
+     * growing.
+     *
+     * @param maxDelay the largest expected delay in time steps
+     */
+    public SpikeWheel(final int maxDelay) {
+        final int size = Math.max(2, maxDelay + 1);
+        buckets = new int[size][4];
+        counts = new int[size];
+    }
+
+    /**
+     * Schedule an event.
+     *
+     * @param event the event
+     * @param delay the number of time steps until it is due, at least 1
+     */
+    public void schedule(final int event, final int delay) {
+        if (delay < 1) {
+            throw new IllegalArgumentException("Delay must be at least 1");
+        }
+        if (delay >= buckets.length) {
+            grow(delay + 1);
+        }
+        final int b = (current + delay) % buckets.length;
+        if (counts[b] == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], counts[b] * 2);
+        }
+        buckets[b][counts[b]++] = event;
+    }
+
+    /**
+     * Move to the next time step and take the events due then, in the order
+     * they were scheduled. The returned array is reused by the next call.
+     *
+     * @return the number of due events, which are at the start of
+     *         {@link #getDue()}
+     */
+    public int advance() {
+        current = (current + 1) % buckets.length;
+        final int count = counts[current];
+        if (due.length < count) {
+            due = new int[buckets[current].length];
+        }
+        System.arraycopy(buckets[current], 0, due, 0, count);
+        counts[current] = 0;
+        return count;
+    }
+
+    /**
+     * @return the events taken by the last call to {@link #advance()}, not a
+     *         copy
+     */
+    public int[] getDue() {
+        return due;
+    }
+
+    /**
+     * @return true if no event is scheduled
+     */
+    public boolean isEmpty() {
+        for (int count : counts) {
+            if (count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remove every scheduled event.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Enlarge the wheel, keeping each pending event the same number of steps
+     * from now.
+     *
+     * @param size the new minimum number of buckets
+     */
+    private void grow(final int size) {
+        final int newSize = Math.max(size, buckets.length * 2);
+        final int[][] newBuckets = new int[newSize][];
+        final int[] newCounts = new int[newSize];
+        for (int i = 0; i < newSize; i++) {
+            if (i < buckets.length) {
+                final int old = (current + i) % buckets.length;
+                newBuckets[i] = buckets[old];
+                newCounts[i] = counts[old];
+            } else {
+                newBuckets[i] = new int[4];
+            }
+        }
+        buckets = newBuckets;
+        counts = newCounts;
+        current = 0;
+    }
+}
@@ -1,7 +1,13 @@
 package syncleus.dann.search.adversarial;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import syncleus.dann.search.framework.Metrics;
 
@@ -9,7 +15,25 @@ import syncleus.dann.search.framework.Metrics;
  * Implements an iterative deepening Minimax search with alpha-beta pruning and
  * action ordering. Maximal computation time is specified in seconds. The
  * algorithm is implemented as template method and can be configured and tuned
- * by subclassing.
+ * by subclassing.<br>
+ * <br>
+ * The following improvements are off by default and can be turned on:
+ * <ul>
+ * <li>a {@link TranspositionTable}, keyed by {@link #getStateKey(Object)},
+ * which keeps the values and best actions found across depths and decisions,
+ * so that transpositions are not searched again and the best action of the
+ * previous iteration is tried first;</li>
+ * <li>history and killer move ordering: the actions which caused cutoffs in
+ * the tree (history, weighted by the square of the remaining depth) are tried
+ * first, the two last actions which caused a cutoff at the same depth
+ * (killers) breaking ties. The statistics are kept from one iteration to the
+ * next and decayed between decisions;</li>
+ * <li>a Lazy SMP parallel search: helper threads run the same iterative
+ * deepening search from the root, with depths and root action orders of their
+ * own, and fill the shared transposition table which the main thread uses.
+ * The game and the primitive operations must then allow calls from several
+ * threads.</li>
+ * </ul>
  * 
  * @author Ruediger Lunde
  * 
@@ -27,12 +51,24 @@ public class IterativeDeepeningAlphaBetaSearch<STATE, ACTION, PLAYER>
 	protected double utilMax;
 	protected double utilMin;
 	protected int currDepthLimit;
-	private boolean maxDepthReached;
 	private long maxTime;
 	private boolean logEnabled;
+	private int maxDepthLimit = Integer.MAX_VALUE;
 
 	private int expandedNodes;
 	private int maxDepth;
+	private int helperExpandedNodes;
+	private int transpositionHits;
+
+	private TranspositionTable transpositionTable = null;
+	private boolean moveOrderingEnabled = false;
+	private int threadCount = 1;
+	// the state of the search of each thread
+	private final ThreadLocal<SearchContext> contexts = new ThreadLocal<SearchContext>();
+	// the history of the main thread at max and min nodes, kept from one
+	// decision to the next
+	private final Map<ACTION, Long> maxHistory = new HashMap<ACTION, Long>();
+	private final Map<ACTION, Long> minHistory = new HashMap<ACTION, Long>();
 
 	/** Creates a new search object for a given game. */
 	public static <STATE, ACTION, PLAYER> IterativeDeepeningAlphaBetaSearch<STATE, ACTION, PLAYER> createFor(
@@ -54,30 +90,130 @@ public class IterativeDeepeningAlphaBetaSearch<STATE, ACTION, PLAYER>
 		logEnabled = b;
 	}
 
+	/**
+	 * Sets the largest depth limit of iterative deepening.
+	 */
+	public void setMaxDepthLimit(int maxDepthLimit) {
+		this.maxDepthLimit = maxDepthLimit;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return transpositionTable;
+	}
+
+	/**
+	 * Sets the transposition table used by the search, or null for none. The
+	 * table is kept from one decision to the next.
+	 */
+	public void setTranspositionTable(TranspositionTable transpositionTable) {
+		this.transpositionTable = transpositionTable;
+	}
+
+	/**
+	 * Turns killer and history move ordering on or off.
+	 */
+	public void setMoveOrderingEnabled(boolean moveOrderingEnabled) {
+		this.moveOrderingEnabled = moveOrderingEnabled;
+	}
+
+	/**
+	 * Sets the number of threads searching each decision. With more than one
+	 * thread, the helper threads only help through the transposition table, so
+	 * a table should be set.
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
 	/**
 	 * Template method controlling the search.
 	 */
 	@Override
 	public ACTION makeDecision(STATE state) {
-		List<ACTION> results = null;
-		double resultValue = Double.NEGATIVE_INFINITY;
 		PLAYER player = game.getPlayer(state);
-		StringBuffer logText = null;
 		expandedNodes = 0;
 		maxDepth = 0;
+		helperExpandedNodes = 0;
+		transpositionHits = 0;
 		currDepthLimit = 0;
+		if (null != transpositionTable) {
+			transpositionTable.newGeneration();
+		}
+		// the history of the previous decisions counts half as much
+		for (Map.Entry<ACTION, Long> entry : maxHistory.entrySet()) {
+			entry.setValue(entry.getValue() / 2);
+		}
+		for (Map.Entry<ACTION, Long> entry : minHistory.entrySet()) {
+			entry.setValue(entry.getValue() / 2);
+		}
+		SearchContext context = new SearchContext(maxHistory, minHistory);
+		contexts.set(context);
+		List<Helper> helpers = new ArrayList<Helper>();
+		ExecutorService executor = null;
+		if (threadCount > 1) {
+			executor = Executors.newFixedThreadPool(threadCount - 1);
+			for (int i = 1; i < threadCount; i++) {
+				Helper helper = new Helper(state, player, i);
+				helpers.add(helper);
+				executor.execute(helper);
+			}
+		}
+		try {
+			return makeDecision(state, player, context);
+		} finally {
+			for (Helper helper : helpers) {
+				helper.context.stopped = true;
+			}
+			if (null != executor) {
+				// the helpers check whether they are stopped at each node, so
+				// that they do not write in the table during the next decision
+				executor.shutdown();
+				try {
+					executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MINUTES);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			for (Helper helper : helpers) {
+				helperExpandedNodes += helper.context.expandedNodes;
+			}
+			expandedNodes = context.expandedNodes;
+			maxDepth = context.maxDepth;
+			transpositionHits = context.transpositionHits;
+			contexts.remove();
+		}
+	}
+
+	private ACTION makeDecision(STATE state, PLAYER player,
+			SearchContext context) {
+		List<ACTION> results = null;
+		double resultValue = Double.NEGATIVE_INFINITY;
+		StringBuffer logText = null;
 		long startTime = System.currentTimeMillis();
 		boolean exit = false;
 		do {
 			incrementDepthLimit();
-			maxDepthReached = false;
+			context.depthLimit = currDepthLimit;
+			context.maxDepthReached = false;
 			List<ACTION> newResults = new ArrayList<ACTION>();
 			double newResultValue = Double.NEGATIVE_INFINITY;
 			double secondBestValue = Double.NEGATIVE_INFINITY;
 			if (logEnabled)
 				logText = new StringBuffer("depth " + currDepthLimit + ": ");
-			for (ACTION action : orderActions(state, game.getActions(state),
-					player, 0)) {
+			List<ACTION> actions = orderActions(state, game.getActions(state),
+					player, 0);
+			if (results != null
+					&& (moveOrderingEnabled || null != transpositionTable)) {
+				// the best actions of the previous iteration first
+				List<ACTION> ordered = new ArrayList<ACTION>(results);
+				for (ACTION action : actions) {
+					if (!results.contains(action)) {
+						ordered.add(action);
+					}
+				}
+				actions = ordered;
+			}
+			for (ACTION action : actions) {
 				if (results != null
 						&& System.currentTimeMillis() > startTime + maxTime) {
 					exit = true;
@@ -107,47 +243,33 @@ public class IterativeDeepeningAlphaBetaSearch<STATE, ACTION, PLAYER>
 			if (!exit && results.size() == 1
 					&& this.isSignificantlyBetter(resultValue, secondBestValue))
 				break;
-		} while (!exit && maxDepthReached && !hasSafeWinner(resultValue));
+		} while (!exit && context.maxDepthReached
+				&& !hasSafeWinner(resultValue)
+				&& currDepthLimit < maxDepthLimit);
 		return results.get(0);
 	}
 
 	public double maxValue(STATE state, PLAYER player, double alpha,
 			double beta, int depth) { // returns an utility value
-		expandedNodes++;
-		maxDepth = Math.max(maxDepth, depth);
-		if (game.isTerminal(state) || depth >= currDepthLimit) {
+		SearchContext context = context();
+		context.expandedNodes++;
+		context.maxDepth = Math.max(context.maxDepth, depth);
+		if (game.isTerminal(state) || depth >= context.depthLimit) {
 			return eval(state, player);
 		} else {
-			double value = Double.NEGATIVE_INFINITY;
-			for (ACTION action : orderActions(state, game.getActions(state),
-					player, depth)) {
-				value = Math.max(value, minValue(game.getResult(state, action), //
-						player, alpha, beta, depth + 1));
-				if (value >= beta)
-					return value;
-				alpha = Math.max(alpha, value);
-			}
-			return value;
+			return expand(state, player, alpha, beta, depth, true, context);
 		}
 	}
 
 	public double minValue(STATE state, PLAYER player, double alpha,
 			double beta, int depth) { // returns an utility
-		expandedNodes++;
-		maxDepth = Math.max(maxDepth, depth);
-		if (game.isTerminal(state) || depth >= currDepthLimit) {
+		SearchContext context = context();
+		context.expandedNodes++;
+		context.maxDepth = Math.max(context.maxDepth, depth);
+		if (game.isTerminal(state) || depth >= context.depthLimit) {
 			return eval(state, player);
 		} else {
-			double value = Double.POSITIVE_INFINITY;
-			for (ACTION action : orderActions(state, game.getActions(state),
-					player, depth)) {
-				value = Math.min(value, maxValue(game.getResult(state, action), //
-						player, alpha, beta, depth + 1));
-				if (value <= alpha)
-					return value;
-				beta = Math.min(beta, value);
-			}
-			return value;
+			return expand(state, player, alpha, beta, depth, false, context);
 		}
 	}
 
@@ -157,6 +279,12 @@ public class IterativeDeepeningAlphaBetaSearch<STATE, ACTION, PLAYER>
 		Metrics result = new Metrics();
 		result.set("expandedNodes", expandedNodes);
 		result.set("maxDepth", maxDepth);
+		if (threadCount > 1) {
+			result.set("helperExpandedNodes", helperExpandedNodes);
+		}
+		if (null != transpositionTable) {
+			result.set("transpositionHits", transpositionHits);
+		}
 		return result;
 	}
 
@@ -198,7 +326,7 @@ public class IterativeDeepeningAlphaBetaSearch<STATE, ACTION, PLAYER>
 		if (game.isTerminal(state)) {
 			return game.getUtility(state, player);
 		} else {
-			maxDepthReached = true;
+			context().maxDepthReached = true;
 			return (utilMin + utilMax) / 2;
 		}
 	}
@@ -211,4 +339,299 @@ public class IterativeDeepeningAlphaBetaSearch<STATE, ACTION, PLAYER>
 			PLAYER player, int depth) {
 		return actions;
 	}
+
+	/**
+	 * Primitive operation returning the key of a state in the transposition
+	 * table. Equal states must have the same key, and different states should
+	 * have different keys, since the table cannot tell them apart. This
+	 * implementation spreads the hash code of the state, which is only safe if
+	 * hash codes rarely collide; games with a transposition table should
+	 * provide a Zobrist key (see {@link TranspositionTable#zobrist(int)}).
+	 */
+	protected long getStateKey(STATE state) {
+		long h = state.hashCode() * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the context of the search of the current thread. When the
+	 * methods of the search are called outside of a decision, a context with
+	 * the current depth limit is created.
+	 */
+	private SearchContext context() {
+		SearchContext context = contexts.get();
+		if (null == context) {
+			context = new SearchContext(maxHistory, minHistory);
+			context.depthLimit = currDepthLimit;
+			contexts.set(context);
+		}
+		return context;
+	}
+
+	/**
+	 * Searches the actions of a non-terminal state above the depth limit,
+	 * probing and filling the transposition table and updating the killer and
+	 * history statistics.
+	 */
+	private double expand(STATE state, PLAYER player, double alpha,
+			double beta, int depth, boolean max, SearchContext context) {
+		List<ACTION> actions = game.getActions(state);
+		int remaining = context.depthLimit - depth;
+		double alphaOrig = alpha;
+		double betaOrig = beta;
+		long key = 0;
+		ACTION tableAction = null;
+		if (null != transpositionTable) {
+			key = getStateKey(state) ^ context.getPlayerKey(player);
+			TranspositionTable.Entry entry = context.entry;
+			if (transpositionTable.probe(key, entry)) {
+				if (entry.getDepth() >= remaining) {
+					context.transpositionHits++;
+					if (entry.getDepth() != TranspositionTable.RESOLVED) {
+						context.maxDepthReached = true;
+					}
+					double value = entry.getValue();
+					if (entry.getBound() == TranspositionTable.EXACT) {
+						return value;
+					} else if (entry.getBound() == TranspositionTable.LOWER_BOUND) {
+						alpha = Math.max(alpha, value);
+					} else {
+						beta = Math.min(beta, value);
+					}
+					if (alpha >= beta) {
+						return value;
+					}
+				}
+				if (entry.getAction() < actions.size()) {
+					tableAction = actions.get(entry.getAction());
+				}
+			}
+		}
+		List<ACTION> ordered = orderActions(state, actions, player, depth);
+		// an action left out by orderActions is not searched, even if the
+		// table proposes it
+		if (null != tableAction && !ordered.contains(tableAction)) {
+			tableAction = null;
+		}
+		if (moveOrderingEnabled || null != tableAction) {
+			ordered = orderByStatistics(ordered, tableAction, depth, max,
+					context);
+		}
+
+		// tells whether this subtree depends on the depth limit
+		boolean depthReachedBefore = context.maxDepthReached;
+		context.maxDepthReached = false;
+		double value = max ? Double.NEGATIVE_INFINITY
+				: Double.POSITIVE_INFINITY;
+		ACTION best = null;
+		for (ACTION action : ordered) {
+			if (context.stopped) {
+				return value;
+			}
+			STATE result = game.getResult(state, action);
+			if (max) {
+				double v = minValue(result, player, alpha, beta, depth + 1);
+				if (v > value || null == best) {
+					value = v;
+					best = action;
+				}
+				if (value >= beta) {
+					recordCutoff(action, depth, remaining, true, context);
+					break;
+				}
+				alpha = Math.max(alpha, value);
+			} else {
+				double v = maxValue(result, player, alpha, beta, depth + 1);
+				if (v < value || null == best) {
+					value = v;
+					best = action;
+				}
+				if (value <= alpha) {
+					recordCutoff(action, depth, remaining, false, context);
+					break;
+				}
+				beta = Math.min(beta, value);
+			}
+		}
+		boolean depthReached = context.maxDepthReached;
+		context.maxDepthReached = depthReachedBefore || depthReached;
+
+		if (null != transpositionTable && !context.stopped) {
+			int bound = value <= alphaOrig ? TranspositionTable.UPPER_BOUND
+					: value >= betaOrig ? TranspositionTable.LOWER_BOUND
+							: TranspositionTable.EXACT;
+			int index = actions.indexOf(best);
+			transpositionTable.store(key, value,
+					depthReached ? remaining : TranspositionTable.RESOLVED,
+					bound, index < 0 ? TranspositionTable.NO_ACTION : index);
+		}
+		return value;
+	}
+
+	/**
+	 * Puts the action of the transposition table first, then the other actions
+	 * by decreasing history score, the killers of the depth coming first among
+	 * equals, and then the given order.
+	 */
+	private List<ACTION> orderByStatistics(List<ACTION> actions,
+			ACTION tableAction, int depth, boolean max, SearchContext context) {
+		List<ACTION> result = new ArrayList<ACTION>(actions.size());
+		if (null != tableAction) {
+			result.add(tableAction);
+		}
+		if (!moveOrderingEnabled) {
+			for (ACTION action : actions) {
+				if (!action.equals(tableAction)) {
+					result.add(action);
+				}
+			}
+			return result;
+		}
+		List<ACTION> killers = context.getKillers(depth);
+		Map<ACTION, Long> history = context.getHistory(max);
+		int first = result.size();
+		long[] scores = new long[first + actions.size()];
+		for (ACTION action : actions) {
+			if (!action.equals(tableAction)) {
+				// the history score, times 4 to make room for the killer rank
+				Long s = history.get(action);
+				int rank = killers.indexOf(action);
+				long score = (null == s ? 0 : s << 2)
+						+ (rank < 0 ? 0 : 2 - rank);
+				// insertion sort, stable and fast for a few actions
+				int i = result.size();
+				result.add(action);
+				while (i > first && scores[i - 1] < score) {
+					result.set(i, result.get(i - 1));
+					scores[i] = scores[i - 1];
+					i--;
+				}
+				result.set(i, action);
+				scores[i] = score;
+			}
+		}
+		return result;
+	}
+
+	private void recordCutoff(ACTION action, int depth, int remaining,
+			boolean max, SearchContext context) {
+		if (!moveOrderingEnabled) {
+			return;
+		}
+		List<ACTION> killers = context.getKillers(depth);
+		if (killers.isEmpty() || !killers.get(0).equals(action)) {
+			killers.remove(action);
+			killers.add(0, action);
+			if (killers.size() > 2) {
+				killers.remove(2);
+			}
+		}
+		Map<ACTION, Long> history = context.getHistory(max);
+		Long score = history.get(action);
+		history.put(action, (null == score ? 0 : score) + (long) remaining
+				* remaining);
+	}
+
+	/**
+	 * The state of the search of one thread.
+	 */
+	private class SearchContext {
+		private PLAYER player;
+		private long playerKey;
+		private final Map<ACTION, Long> maxHistory;
+		private final Map<ACTION, Long> minHistory;
+		private final List<List<ACTION>> killers = new ArrayList<List<ACTION>>();
+		private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+		private int depthLimit;
+		private boolean maxDepthReached;
+		private int expandedNodes;
+		private int maxDepth;
+		private int transpositionHits;
+		// set when a helper has to stop, never for the main thread
+		private volatile boolean stopped = false;
+
+		SearchContext(Map<ACTION, Long> maxHistory,
+				Map<ACTION, Long> minHistory) {
+			this.maxHistory = maxHistory;
+			this.minHistory = minHistory;
+		}
+
+		Map<ACTION, Long> getHistory(boolean max) {
+			return max ? maxHistory : minHistory;
+		}
+
+		// the values of the table are for the player of the root state, so
+		// each player has keys of its own
+		long getPlayerKey(PLAYER player) {
+			if (!player.equals(this.player)) {
+				PLAYER[] players = game.getPlayers();
+				for (int i = 0; i < players.length; i++) {
+					if (players[i].equals(player)) {
+						playerKey = TranspositionTable.zobrist(-1 - i);
+					}
+				}
+				this.player = player;
+			}
+			return playerKey;
+		}
+
+		List<ACTION> getKillers(int depth) {
+			while (killers.size() <= depth) {
+				killers.add(new ArrayList<ACTION>(3));
+			}
+			return killers.get(depth);
+		}
+	}
+
+	/**
+	 * A helper thread of the Lazy SMP search.
+	 */
+	private class Helper implements Runnable {
+		private final STATE state;
+		private final PLAYER player;
+		private final int number;
+		private final SearchContext context;
+
+		Helper(STATE state, PLAYER player, int number) {
+			this.state = state;
+			this.player = player;
+			this.number = number;
+			this.context = new SearchContext(new HashMap<ACTION, Long>(),
+					new HashMap<ACTION, Long>());
+		}
+
+		public void run() {
+			contexts.set(context);
+			try {
+				search();
+			} finally {
+				contexts.remove();
+			}
+		}
+
+		private void search() {
+			// half of the helpers search one ply deeper than the others
+			context.depthLimit = number % 2;
+			List<ACTION> actions = new ArrayList<ACTION>(game.getActions(state));
+			// each helper starts with a different root action
+			Collections.rotate(actions, -number);
+			do {
+				context.depthLimit++;
+				context.maxDepthReached = false;
+				for (ACTION action : actions) {
+					if (context.stopped) {
+						return;
+					}
+					minValue(game.getResult(state, action), player,
+							Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+							1);
+				}
+			} while (context.maxDepthReached && !context.stopped
+					&& context.depthLimit < maxDepthLimit);
+		}
+	}
 }
@@ -0,0 +1,271 @@
+package syncleus.dann.search.adversarial;
+
+import java.util.Arrays;
+
+/**
+ * A transposition table for game tree search: a fixed-size hash table keeping,
+ * for positions identified by a 64-bit key (typically a Zobrist key, see
+ * {@link #zobrist(int)}), the value found by a search, the remaining depth it
+ * was searched to, whether the value is exact or a lower or upper bound, and
+ * the best action found.<br>
+ * <br>
+ * The table is divided in buckets of two entries, or of one entry with
+ * {@link ReplacementPolicy#ALWAYS_REPLACE}, and a {@link ReplacementPolicy}
+ * decides which entry of a bucket a new result goes to. Entries written
+ * during a previous search (see {@link #newGeneration()}) can always be
+ * replaced.<br>
+ * <br>
+ * The table can be shared by several threads without locks: each entry is
+ * stored as three words, the first one being the key xor-ed with the two
+ * others, so that an entry torn by concurrent writes is seen as a miss.
+ */
+public class TranspositionTable {
+
+	/**
+	 * The policies deciding which entry of a bucket receives a new result.
+	 */
+	public enum ReplacementPolicy {
+		/** A single entry by bucket, always replaced. */
+		ALWAYS_REPLACE,
+		/**
+		 * The entry of the same position, or else the shallower of the two
+		 * entries, replaced only if the new result is at least as deep.
+		 */
+		DEPTH_PREFERRED,
+		/**
+		 * The first entry is replaced by deeper results, the second one by all
+		 * the results that do not go to the first.
+		 */
+		TWO_TIER
+	}
+
+	/** The value is exact. */
+	public static final int EXACT = 0;
+	/** The value is a lower bound: the search failed high. */
+	public static final int LOWER_BOUND = 1;
+	/** The value is an upper bound: the search failed low. */
+	public static final int UPPER_BOUND = 2;
+
+	/**
+	 * The depth of values that do not depend on the depth limit, because no
+	 * state was evaluated at the depth limit below them. Greater depths are
+	 * stored as RESOLVED - 1.
+	 */
+	public static final int RESOLVED = 255;
+
+	/** The action index of entries without a best action. */
+	public static final int NO_ACTION = 0xFFFF;
+
+	// three words by entry, one or two entries by bucket
+	private final long[] words;
+	private final int bucketMask;
+	private final int entriesByBucket;
+	private final ReplacementPolicy policy;
+	private volatile int generation = 0;
+
+	/**
+	 * Creates a table.
+	 *
+	 * @param capacity
+	 *            the number of entries, rounded down to a power of two.
+	 * @param policy
+	 *            the replacement policy.
+	 */
+	public TranspositionTable(int capacity, ReplacementPolicy policy) {
+		this.entriesByBucket = policy == ReplacementPolicy.ALWAYS_REPLACE ? 1
+				: 2;
+		int buckets = Integer.highestOneBit(Math.max(entriesByBucket,
+				capacity) / entriesByBucket);
+		this.words = new long[buckets * entriesByBucket * 3];
+		this.bucketMask = buckets - 1;
+		this.policy = policy;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 */
+	public int getCapacity() {
+		return words.length / 3;
+	}
+
+	public ReplacementPolicy getReplacementPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Marks the entries written so far as old, so that they are replaced
+	 * first. Called at the beginning of each search.
+	 */
+	public void newGeneration() {
+		generation = (generation + 1) & 0xFF;
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		Arrays.fill(words, 0L);
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param key
+	 *            the key of the position.
+	 * @param entry
+	 *            receives the result stored for the position.
+	 * @return true if a result was found.
+	 */
+	public boolean probe(long key, Entry entry) {
+		int bucket = (int) mix(key) & bucketMask;
+		for (int slot = 0; slot < entriesByBucket; slot++) {
+			int i = (bucket * entriesByBucket + slot) * 3;
+			long check = words[i];
+			long value = words[i + 1];
+			long data = words[i + 2];
+			if ((check ^ value ^ data) == key && data != 0) {
+				entry.value = Double.longBitsToDouble(value);
+				entry.depth = (int) (data & 0xFF);
+				entry.bound = (int) ((data >>> 8) & 3);
+				entry.action = (int) ((data >>> 10) & 0xFFFF);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stores the result of a search.
+	 *
+	 * @param key
+	 *            the key of the position.
+	 * @param value
+	 *            the value found.
+	 * @param depth
+	 *            the remaining depth searched, or {@link #RESOLVED}.
+	 * @param bound
+	 *            {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+	 * @param action
+	 *            the index of the best action, or {@link #NO_ACTION}.
+	 */
+	public void store(long key, double value, int depth, int bound, int action) {
+		int bucket = (int) mix(key) & bucketMask;
+		int gen = generation;
+		int slot;
+		if (policy == ReplacementPolicy.ALWAYS_REPLACE) {
+			slot = 0;
+		} else {
+			int first = bucket * 2 * 3;
+			int second = first + 3;
+			if (policy == ReplacementPolicy.TWO_TIER) {
+				slot = canReplace(first, depth, gen) ? 0 : 1;
+			} else {
+				// the entry of the same position, or else the older or
+				// shallower entry
+				if (isSameKey(first, key)) {
+					slot = 0;
+				} else if (isSameKey(second, key)) {
+					slot = 1;
+				} else {
+					slot = isWorse(second, first, gen) ? 1 : 0;
+				}
+				if (!canReplace(first + slot * 3, depth, gen)) {
+					return;
+				}
+			}
+		}
+		// a depth-limited value must never pass for a resolved one
+		int storedDepth = depth == RESOLVED ? RESOLVED : Math.min(depth,
+				RESOLVED - 1);
+		long data = storedDepth | ((long) bound << 8)
+				| ((long) (action & 0xFFFF) << 10) | ((long) gen << 26)
+				| (1L << 34);
+		long valueBits = Double.doubleToRawLongBits(value);
+		int i = (bucket * entriesByBucket + slot) * 3;
+		words[i] = key ^ valueBits ^ data;
+		words[i + 1] = valueBits;
+		words[i + 2] = data;
+	}
+
+	/**
+	 * Returns the Zobrist key of a feature of a position, such as a piece on a
+	 * square: a pseudo-random 64-bit number, always the same for the same
+	 * feature. The key of a position is the xor of the keys of its features,
+	 * so that it can be updated incrementally when a move is made.
+	 *
+	 * @param feature
+	 *            the number of the feature.
+	 * @return the key of the feature.
+	 */
+	public static long zobrist(int feature) {
+		return mix(0x9E3779B97F4A7C15L * (feature + 1L));
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	// the finalizer of SplitMix64
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private boolean isSameKey(int i, long key) {
+		return (words[i] ^ words[i + 1] ^ words[i + 2]) == key;
+	}
+
+	private boolean canReplace(int i, int depth, int gen) {
+		long data = words[i + 2];
+		return data == 0 || ((data >>> 26) & 0xFF) != gen
+				|| (data & 0xFF) <= depth;
+	}
+
+	// true if the entry at i is older, or shallower, than the entry at j
+	private boolean isWorse(int i, int j, int gen) {
+		boolean oldI = words[i + 2] == 0
+				|| ((words[i + 2] >>> 26) & 0xFF) != gen;
+		boolean oldJ = words[j + 2] == 0
+				|| ((words[j + 2] >>> 26) & 0xFF) != gen;
+		if (oldI != oldJ) {
+			return oldI;
+		}
+		return (words[i + 2] & 0xFF) < (words[j + 2] & 0xFF);
+	}
+
+	/**
+	 * A result read from the table.
+	 */
+	public static final class Entry {
+		private double value;
+		private int depth;
+		private int bound;
+		private int action;
+
+		public double getValue() {
+			return value;
+		}
+
+		/**
+		 * Returns the remaining depth searched, or {@link #RESOLVED}.
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Returns {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+		 */
+		public int getBound() {
+			return bound;
+		}
+
+		/**
+		 * Returns the index of the best action, or {@link #NO_ACTION}.
+		 */
+		public int getAction() {
+			return action;
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package syncleus.dann.search.framework;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,6 +31,14 @@ import syncleus.dann.util.datastruct.Queue;
  * </pre>
  * 
  * Figure 3.7 An informal description of the general graph-search algorithm.
+ * <br>
+ * <br>
+ * By default the explored set and the frontier are keyed by the state objects,
+ * and every node holds on to its ancestors. When a {@link StateTable} is set,
+ * states are kept as codes in the table instead: the explored set is a bit set
+ * of state ids, the frontier is a primitive map from ids to nodes, and the
+ * nodes added to the frontier find their parent in the table, so that the
+ * explored part of the search tree is no longer kept as objects.
  * 
  * @author Ravi Mohan
  * @author Ciaran O'Reilly
@@ -39,6 +49,10 @@ public class GraphSearch extends QueueSearch {
 	private Map<Object, Node> frontierState = new HashMap<Object, Node>();
 	private Comparator<Node> replaceFrontierNodeAtStateCostFunction = null;
 	private List<Node> addToFrontier = new ArrayList<Node>();
+	// the states seen, when set
+	private StateTable stateTable = null;
+	private BitSet exploredIds = new BitSet();
+	private NodeMap frontierIds = new NodeMap();
 
 	public Comparator<Node> getReplaceFrontierNodeAtStateCostFunction() {
 		return replaceFrontierNodeAtStateCostFunction;
@@ -49,6 +63,31 @@ public class GraphSearch extends QueueSearch {
 		this.replaceFrontierNodeAtStateCostFunction = replaceFrontierNodeAtStateCostFunction;
 	}
 
+	public StateTable getStateTable() {
+		return stateTable;
+	}
+
+	/**
+	 * Sets the table keeping the states seen by the search, or null to keep
+	 * the state objects. The table is cleared by each search.
+	 * 
+	 * @param stateTable
+	 *            the table of the states, or null.
+	 */
+	public void setStateTable(StateTable stateTable) {
+		this.stateTable = stateTable;
+	}
+
+	/**
+	 * Keeps the states seen by the search as codes, in a table on the heap.
+	 * 
+	 * @param codec
+	 *            the codec of the states of the problems searched.
+	 */
+	public void setStateCodec(StateCodec codec) {
+		setStateTable(new StateTable(codec));
+	}
+
 	// Need to override search() method so that I can re-initialize
 	// the explored set should multiple calls to search be made.
 	@Override
@@ -56,13 +95,22 @@ public class GraphSearch extends QueueSearch {
 		// initialize the explored set to be empty
 		explored.clear();
 		frontierState.clear();
+		exploredIds.clear();
+		frontierIds.clear();
+		if (null != stateTable) {
+			stateTable.clear();
+		}
 		return super.search(problem, frontier);
 	}
 
 	@Override
 	public Node popNodeFromFrontier() {
 		Node toRemove = super.popNodeFromFrontier();
-		frontierState.remove(toRemove.getState());
+		if (null != stateTable) {
+			frontierIds.remove(stateTable.getId(toRemove));
+		} else {
+			frontierState.remove(toRemove.getState());
+		}
 		return toRemove;
 	}
 
@@ -70,7 +118,11 @@ public class GraphSearch extends QueueSearch {
 	public boolean removeNodeFromFrontier(Node toRemove) {
 		boolean removed = super.removeNodeFromFrontier(toRemove);
 		if (removed) {
-			frontierState.remove(toRemove.getState());
+			if (null != stateTable) {
+				frontierIds.remove(stateTable.getId(toRemove));
+			} else {
+				frontierState.remove(toRemove.getState());
+			}
 		}
 		return removed;
 	}
@@ -79,6 +131,10 @@ public class GraphSearch extends QueueSearch {
 	public List<Node> getResultingNodesToAddToFrontier(Node nodeToExpand,
 			Problem problem) {
 
+		if (null != stateTable) {
+			return getResultingNodesToAddToFrontierByCode(nodeToExpand,
+					problem);
+		}
 		addToFrontier.clear();
 		// add the node to the explored set
 		explored.add(nodeToExpand.getState());
@@ -114,4 +170,131 @@ public class GraphSearch extends QueueSearch {
 
 		return addToFrontier;
 	}
+	//
+	// PRIVATE METHODS
+	//
+	private List<Node> getResultingNodesToAddToFrontierByCode(
+			Node nodeToExpand, Problem problem) {
+
+		addToFrontier.clear();
+		// the root node was not added by this search, it is the only node
+		// whose state may not be in the table yet
+		int id = stateTable.getId(nodeToExpand);
+		if (id < 0) {
+			id = stateTable.add(nodeToExpand.getState());
+		}
+		// add the node to the explored set
+		exploredIds.set(id);
+		// expand the chosen node, adding the resulting nodes to the frontier
+		for (Node cfn : expandNode(nodeToExpand, problem)) {
+			int childId = stateTable.add(cfn.getState());
+			Node frontierNode = frontierIds.get(childId);
+			boolean yesAddToFrontier = false;
+			if (null == frontierNode) {
+				if (!exploredIds.get(childId)) {
+					// child.STATE is not in frontier and not yet explored
+					yesAddToFrontier = true;
+				}
+			} else if (null != replaceFrontierNodeAtStateCostFunction
+					&& replaceFrontierNodeAtStateCostFunction.compare(cfn,
+							frontierNode) < 0) {
+				// child.STATE is in frontier with higher cost
+				// replace that frontier node with child
+				yesAddToFrontier = true;
+				removeNodeFromFrontier(frontierNode);
+				addToFrontier.remove(frontierNode);
+			}
+
+			if (yesAddToFrontier) {
+				// the child is added as a node of the table, so that it
+				// does not hold on to the expanded node
+				stateTable.setParent(childId, id, cfn.getAction(),
+						cfn.getPathCost());
+				Node child = stateTable.getNode(childId, cfn.getState());
+				addToFrontier.add(child);
+				frontierIds.put(childId, child);
+			}
+		}
+
+		return addToFrontier;
+	}
+
+	/**
+	 * An open-addressing map from state ids to the nodes of the frontier.
+	 */
+	private static class NodeMap {
+		private int[] keys = new int[16];
+		private Node[] values = new Node[16];
+		private int size = 0;
+
+		Node get(int key) {
+			int mask = keys.length - 1;
+			for (int slot = mix(key) & mask; null != values[slot]; slot = (slot + 1)
+					& mask) {
+				if (keys[slot] == key) {
+					return values[slot];
+				}
+			}
+			return null;
+		}
+
+		void put(int key, Node value) {
+			int mask = keys.length - 1;
+			int slot = mix(key) & mask;
+			while (null != values[slot] && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			if (null == values[slot]) {
+				size++;
+			}
+			keys[slot] = key;
+			values[slot] = value;
+			if (size > (keys.length >>> 1) + (keys.length >>> 2)) {
+				int[] oldKeys = keys;
+				Node[] oldValues = values;
+				keys = new int[oldKeys.length << 1];
+				values = new Node[oldKeys.length << 1];
+				size = 0;
+				for (int i = 0; i < oldKeys.length; i++) {
+					if (null != oldValues[i]) {
+						put(oldKeys[i], oldValues[i]);
+					}
+				}
+			}
+		}
+
+		void remove(int key) {
+			int mask = keys.length - 1;
+			int slot = mix(key) & mask;
+			while (null != values[slot] && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			if (null == values[slot]) {
+				return;
+			}
+			size--;
+			// shift back the following entries of the cluster
+			int free = slot;
+			for (slot = (slot + 1) & mask; null != values[slot]; slot = (slot + 1)
+					& mask) {
+				int home = mix(keys[slot]) & mask;
+				if (((slot - home) & mask) >= ((slot - free) & mask)) {
+					keys[free] = keys[slot];
+					values[free] = values[slot];
+					free = slot;
+				}
+			}
+			values[free] = null;
+		}
+
+		void clear() {
+			Arrays.fill(values, null);
+			size = 0;
+		}
+
+		private static int mix(int key) {
+			int h = key * 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
 }
\ No newline at end of file
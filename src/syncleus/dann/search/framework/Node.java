@@ -78,6 +78,25 @@ public class Node {
 		this.pathCost = parent.pathCost + stepCost;
 	}
 
+	/**
+	 * Constructs a node with the specified state, action and path cost, for
+	 * subclasses that look up the parent node when asked for it (see
+	 * {@link #getParent()}) instead of holding it.
+	 * 
+	 * @param state
+	 *            the state in the state space to which the node corresponds.
+	 * @param action
+	 *            the action that was applied to the parent to generate the
+	 *            node.
+	 * @param pathCost
+	 *            the cost of the path from the initial state to the node.
+	 */
+	protected Node(Object state, Action action, double pathCost) {
+		this(state);
+		this.action = action;
+		this.pathCost = pathCost;
+	}
+
 	/**
 	 * Returns the state in the state space to which the node corresponds.
 	 * 
@@ -122,7 +141,7 @@ public class Node {
 	 * @return <code>true</code> if the node has no parent.
 	 */
 	public boolean isRootNode() {
-		return parent == null;
+		return getParent() == null;
 	}
 
 	/**
@@ -133,18 +152,17 @@ public class Node {
 	public List<Node> getPathFromRoot() {
 		List<Node> path = new ArrayList<Node>();
 		Node current = this;
-		while (!current.isRootNode()) {
+		// the root node is added last
+		while (null != current) {
 			path.add(0, current);
 			current = current.getParent();
 		}
-		// ensure the root node is added
-		path.add(0, current);
 		return path;
 	}
 
 	@Override
 	public String toString() {
-		return "[parent=" + parent + ", action=" + action + ", state="
+		return "[parent=" + getParent() + ", action=" + action + ", state="
 				+ getState() + ", pathCost=" + pathCost + "]";
 	}
 }
\ No newline at end of file
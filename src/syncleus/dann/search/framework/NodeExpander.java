@@ -56,6 +56,27 @@ public class NodeExpander {
 	 *         specified problem.
 	 */
 	public List<Node> expandNode(Node node, Problem problem) {
+		List<Node> childNodes = createChildNodes(node, problem);
+		metrics.set(METRIC_NODES_EXPANDED,
+				metrics.getInt(METRIC_NODES_EXPANDED) + 1);
+
+		return childNodes;
+	}
+
+	/**
+	 * Returns the children obtained from expanding the specified node in the
+	 * specified problem, without updating the metrics. It can be called by
+	 * several threads at once if the functions of the problem can.
+	 * 
+	 * @param node
+	 *            the node to expand
+	 * @param problem
+	 *            the problem the specified node is within.
+	 * 
+	 * @return the children obtained from expanding the specified node in the
+	 *         specified problem.
+	 */
+	protected List<Node> createChildNodes(Node node, Problem problem) {
 		List<Node> childNodes = new ArrayList<Node>();
 
 		ActionsFunction actionsFunction = problem.getActionsFunction();
@@ -70,9 +91,6 @@ public class NodeExpander {
 					successorState);
 			childNodes.add(new Node(successorState, node, action, stepCost));
 		}
-		metrics.set(METRIC_NODES_EXPANDED,
-				metrics.getInt(METRIC_NODES_EXPANDED) + 1);
-
 		return childNodes;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package syncleus.dann.search.framework;
+
+/**
+ * Packs the states of a problem into a fixed number of <code>long</code> words,
+ * so that the states already seen by a search can be kept as primitive codes
+ * instead of state objects (see {@link StateTable}). Two states must have the
+ * same code if and only if they are equal, and decoding a code must give back
+ * a state equal to the one that was encoded.
+ */
+public interface StateCodec {
+
+	/**
+	 * Returns the number of <code>long</code> words of the code of a state.
+	 * 
+	 * @return the number of words of a code, at least 1.
+	 */
+	int getWordCount();
+
+	/**
+	 * Writes the code of a state.
+	 * 
+	 * @param state
+	 *            the state to encode.
+	 * @param code
+	 *            the array receiving the code.
+	 * @param offset
+	 *            the index of the first word of the code in the array.
+	 */
+	void encode(Object state, long[] code, int offset);
+
+	/**
+	 * Returns the state of a code.
+	 * 
+	 * @param code
+	 *            the array holding the code.
+	 * @param offset
+	 *            the index of the first word of the code in the array.
+	 * @return a new state equal to the state that was encoded.
+	 */
+	Object decode(long[] code, int offset);
+}
@@ -0,0 +1,434 @@
+package syncleus.dann.search.framework;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import syncleus.dann.plan.agent.Action;
+
+/**
+ * A hash-consed table of the states reached by a search, keyed by the codes of
+ * a {@link StateCodec}. Each distinct state is stored once and gets an id, the
+ * ids being given in increasing order from 0. Along with its code, the table
+ * keeps for each state the id of its parent state, the action that led to it
+ * and its path cost, so that the search tree can be rebuilt from the table
+ * (see {@link #getNode(int)}) and the nodes of a search do not have to hold
+ * on to their ancestors.<br>
+ * <br>
+ * The table is an open-addressing hash table of ids with linear probing, over
+ * records of <code>long</code> words kept in pages. The pages are arrays on
+ * the heap or, when the table is created with a file, regions of that file
+ * mapped in memory, so that only the hash table of ids (about 6 bytes by state)
+ * stays on the heap. Actions are interned: actions that are equal share one
+ * index in the records.<br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public class StateTable {
+
+	// the number of words of a page, a page holding whole records
+	private static final int PAGE_WORDS = 1 << 20;
+
+	// the largest capacity of the hash table
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private final StateCodec codec;
+	// the number of words of a code
+	private final int codeWords;
+	// the number of words of a record: the code, parent and action, path cost
+	private final int recordWords;
+	// the number of records of a page
+	private final int recordsByPage;
+	// the pages of records
+	private LongBuffer[] pages = new LongBuffer[8];
+	private int pageCount = 0;
+	// the file of the pages, or null if they are on the heap
+	private final File file;
+	private final RandomAccessFile randomAccessFile;
+	private final FileChannel channel;
+	// the hash table: the id of a state plus one, or 0 if the slot is free
+	private int[] slots;
+	private int mask;
+	private int size = 0;
+	// the interned actions
+	private final List<Action> actions = new ArrayList<Action>();
+	private final Map<Action, Integer> actionIndexes = new HashMap<Action, Integer>();
+	// a code being looked up
+	private final long[] code;
+
+	/**
+	 * Constructs a table keeping its records on the heap.
+	 *
+	 * @param codec
+	 *            the codec of the states.
+	 */
+	public StateTable(StateCodec codec) {
+		this.codec = codec;
+		this.codeWords = codec.getWordCount();
+		this.recordWords = codeWords + 2;
+		this.recordsByPage = Math.max(1, PAGE_WORDS / recordWords);
+		this.code = new long[codeWords];
+		this.file = null;
+		this.randomAccessFile = null;
+		this.channel = null;
+		allocateSlots(1 << 10);
+	}
+
+	/**
+	 * Constructs a table keeping its records in a file mapped in memory. The
+	 * content of the file is replaced, and the file is deleted when the table
+	 * is closed.
+	 *
+	 * @param codec
+	 *            the codec of the states.
+	 * @param file
+	 *            the file of the records.
+	 * @throws IOException
+	 *             if the file cannot be opened.
+	 */
+	public StateTable(StateCodec codec, File file) throws IOException {
+		this.codec = codec;
+		this.codeWords = codec.getWordCount();
+		this.recordWords = codeWords + 2;
+		this.recordsByPage = Math.max(1, PAGE_WORDS / recordWords);
+		this.code = new long[codeWords];
+		this.file = file;
+		this.randomAccessFile = new RandomAccessFile(file, "rw");
+		this.randomAccessFile.setLength(0);
+		this.channel = randomAccessFile.getChannel();
+		allocateSlots(1 << 10);
+	}
+
+	/**
+	 * Returns the codec of the states.
+	 *
+	 * @return the codec of the states.
+	 */
+	public StateCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Returns the number of states in the table.
+	 *
+	 * @return the number of states in the table.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the id of a state.
+	 *
+	 * @param state
+	 *            a state.
+	 * @return the id of the state, or -1 if it is not in the table.
+	 */
+	public int getId(Object state) {
+		codec.encode(state, code, 0);
+		int slot = findSlot(hash(code));
+		return slots[slot] - 1;
+	}
+
+	/**
+	 * Adds a state to the table if it is not already there. A new state has no
+	 * parent, no action and a path cost of 0. Since the ids are given in
+	 * increasing order, a state is new if its id is the size of the table
+	 * before the call.
+	 *
+	 * @param state
+	 *            a state.
+	 * @return the id of the state.
+	 */
+	public int add(Object state) {
+		codec.encode(state, code, 0);
+		int hash = hash(code);
+		int slot = findSlot(hash);
+		if (slots[slot] != 0) {
+			return slots[slot] - 1;
+		}
+		if (size >= MAXIMUM_CAPACITY - 1) {
+			throw new IllegalStateException("Too many states: " + size);
+		}
+		int id = size++;
+		LongBuffer page = page(id);
+		int position = (id % recordsByPage) * recordWords;
+		for (int i = 0; i < codeWords; i++) {
+			page.put(position + i, code[i]);
+		}
+		page.put(position + codeWords, -1L);
+		page.put(position + codeWords + 1, Double.doubleToRawLongBits(0.0));
+		slots[slot] = id + 1;
+		if (size > (slots.length >>> 1) + (slots.length >>> 2)
+				&& slots.length < MAXIMUM_CAPACITY) {
+			allocateSlots(slots.length << 1);
+			for (int i = 0; i < size; i++) {
+				readCode(i, code);
+				slots[findSlot(hash(code))] = i + 1;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the state of an id.
+	 *
+	 * @param id
+	 *            the id of a state.
+	 * @return a new state decoded from the table.
+	 */
+	public Object getState(int id) {
+		checkId(id);
+		long[] stateCode = new long[codeWords];
+		readCode(id, stateCode);
+		return codec.decode(stateCode, 0);
+	}
+
+	/**
+	 * Sets how a state was reached.
+	 *
+	 * @param id
+	 *            the id of the state.
+	 * @param parentId
+	 *            the id of the parent state, or -1 if the state is a root.
+	 * @param action
+	 *            the action that was applied to the parent, or null.
+	 * @param pathCost
+	 *            the cost of the path from the root to the state.
+	 */
+	public void setParent(int id, int parentId, Action action, double pathCost) {
+		checkId(id);
+		int actionIndex = -1;
+		if (null != action) {
+			Integer index = actionIndexes.get(action);
+			if (null == index) {
+				index = actions.size();
+				actions.add(action);
+				actionIndexes.put(action, index);
+			}
+			actionIndex = index;
+		}
+		LongBuffer page = pages[id / recordsByPage];
+		int position = (id % recordsByPage) * recordWords + codeWords;
+		page.put(position, ((long) parentId << 32) | (actionIndex & 0xFFFFFFFFL));
+		page.put(position + 1, Double.doubleToRawLongBits(pathCost));
+	}
+
+	/**
+	 * Returns the id of the parent of a state.
+	 *
+	 * @param id
+	 *            the id of the state.
+	 * @return the id of the parent state, or -1 if the state is a root.
+	 */
+	public int getParentId(int id) {
+		checkId(id);
+		return (int) (pages[id / recordsByPage].get((id % recordsByPage)
+				* recordWords + codeWords) >> 32);
+	}
+
+	/**
+	 * Returns the action that led to a state.
+	 *
+	 * @param id
+	 *            the id of the state.
+	 * @return the action that was applied to the parent, or null.
+	 */
+	public Action getAction(int id) {
+		checkId(id);
+		int index = (int) pages[id / recordsByPage].get((id % recordsByPage)
+				* recordWords + codeWords);
+		return index < 0 ? null : actions.get(index);
+	}
+
+	/**
+	 * Returns the path cost of a state.
+	 *
+	 * @param id
+	 *            the id of the state.
+	 * @return the cost of the path from the root to the state.
+	 */
+	public double getPathCost(int id) {
+		checkId(id);
+		return Double.longBitsToDouble(pages[id / recordsByPage]
+				.get((id % recordsByPage) * recordWords + codeWords + 1));
+	}
+
+	/**
+	 * Returns a node of a state, decoding the state from the table.
+	 *
+	 * @param id
+	 *            the id of the state.
+	 * @return a node whose parent is looked up in the table when asked for.
+	 */
+	public Node getNode(int id) {
+		return getNode(id, getState(id));
+	}
+
+	/**
+	 * Returns a node of a state.
+	 *
+	 * @param id
+	 *            the id of the state.
+	 * @param state
+	 *            the state, which must be equal to the state of the id.
+	 * @return a node whose parent is looked up in the table when asked for.
+	 */
+	public Node getNode(int id, Object state) {
+		return new TableNode(this, id, state);
+	}
+
+	/**
+	 * Returns the id of the state of a node returned by this table.
+	 *
+	 * @param node
+	 *            a node.
+	 * @return the id of the state of the node, or -1 if the node was not
+	 *         returned by this table.
+	 */
+	public int getId(Node node) {
+		if (node instanceof TableNode && ((TableNode) node).table == this) {
+			return ((TableNode) node).id;
+		}
+		return -1;
+	}
+
+	/**
+	 * Removes all the states. The pages are kept to be reused.
+	 */
+	public void clear() {
+		Arrays.fill(slots, 0);
+		size = 0;
+	}
+
+	/**
+	 * Releases the pages and deletes the file of the records, if any. The
+	 * table must not be used afterwards.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be closed.
+	 */
+	public void close() throws IOException {
+		pages = new LongBuffer[0];
+		pageCount = 0;
+		slots = new int[0];
+		size = 0;
+		if (null != channel) {
+			// a mapped region is released when it is garbage collected, so
+			// the file may only be deleted at exit on some platforms
+			randomAccessFile.close();
+			if (!file.delete()) {
+				file.deleteOnExit();
+			}
+		}
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	private void allocateSlots(int capacity) {
+		slots = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	private int hash(long[] stateCode) {
+		long h = 0x9E3779B97F4A7C15L;
+		for (int i = 0; i < codeWords; i++) {
+			h ^= stateCode[i];
+			h *= 0xBF58476D1CE4E5B9L;
+			h ^= h >>> 31;
+		}
+		return (int) (h ^ (h >>> 32));
+	}
+
+	// returns the slot of the code, or the free slot where it would be added
+	private int findSlot(int hash) {
+		int slot = hash & mask;
+		while (true) {
+			int entry = slots[slot];
+			if (entry == 0 || sameCode(entry - 1, code)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private boolean sameCode(int id, long[] stateCode) {
+		LongBuffer page = pages[id / recordsByPage];
+		int position = (id % recordsByPage) * recordWords;
+		for (int i = 0; i < codeWords; i++) {
+			if (page.get(position + i) != stateCode[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void readCode(int id, long[] stateCode) {
+		LongBuffer page = pages[id / recordsByPage];
+		int position = (id % recordsByPage) * recordWords;
+		for (int i = 0; i < codeWords; i++) {
+			stateCode[i] = page.get(position + i);
+		}
+	}
+
+	// returns the page of a new id, allocating it if needed
+	private LongBuffer page(int id) {
+		int index = id / recordsByPage;
+		if (index == pageCount) {
+			if (pageCount == pages.length) {
+				pages = Arrays.copyOf(pages, pageCount << 1);
+			}
+			int words = recordsByPage * recordWords;
+			if (null == channel) {
+				pages[pageCount] = LongBuffer.wrap(new long[words]);
+			} else {
+				try {
+					pages[pageCount] = channel.map(FileChannel.MapMode.READ_WRITE,
+							(long) pageCount * words * 8, (long) words * 8)
+							.asLongBuffer();
+				} catch (IOException e) {
+					throw new IllegalStateException("Cannot map the records of "
+							+ file, e);
+				}
+			}
+			pageCount++;
+		}
+		return pages[index];
+	}
+
+	private void checkId(int id) {
+		if (id < 0 || id >= size) {
+			throw new IndexOutOfBoundsException("No state of id " + id);
+		}
+	}
+
+	/**
+	 * A node backed by the table: its parent is rebuilt from the table when
+	 * asked for, instead of being held by the node.
+	 */
+	private static class TableNode extends Node {
+		private final StateTable table;
+		private final int id;
+
+		TableNode(StateTable table, int id, Object state) {
+			super(state, table.getAction(id), table.getPathCost(id));
+			this.table = table;
+			this.id = id;
+		}
+
+		@Override
+		public Node getParent() {
+			int parentId = table.getParentId(id);
+			return parentId < 0 ? null : table.getNode(parentId);
+		}
+	}
+}
@@ -0,0 +1,308 @@
+package syncleus.dann.search.informed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import syncleus.dann.plan.agent.Action;
+import syncleus.dann.search.framework.HeuristicFunction;
+import syncleus.dann.search.framework.Metrics;
+import syncleus.dann.search.framework.Node;
+import syncleus.dann.search.framework.NodeExpander;
+import syncleus.dann.search.framework.Problem;
+import syncleus.dann.search.framework.QueueSearch;
+import syncleus.dann.search.framework.Search;
+import syncleus.dann.search.framework.SearchUtils;
+import syncleus.dann.util.CancelableThread;
+
+/**
+ * Hash-distributed A* (HDA*, Kishimoto, Fukunaga and Botea, 2009). Each state
+ * is owned by one worker thread, chosen by the hash of the state. A worker
+ * keeps the open list and the best path cost found so far of the states it
+ * owns, and sends the children it generates to the workers owning them, so
+ * that duplicates are detected by their owner without locks.<br>
+ * <br>
+ * A goal node taken from an open list becomes the incumbent solution if it is
+ * cheaper than the current one, but does not stop the search: the workers go
+ * on while some open list holds a node with f(n) = g(n) + h(n) lower than the
+ * cost of the incumbent. The search ends when all the workers are idle and no
+ * node is on its way to a worker, so with an admissible heuristic the solution
+ * returned is optimal. States are reopened when reached by a cheaper path, so
+ * the heuristic does not need to be consistent. With the default constructor
+ * h(n) = 0, which gives a parallel uniform-cost search.<br>
+ * <br>
+ * The actions, result, step cost, goal test and heuristic functions are called
+ * by several threads at once, and must allow it. The metrics are those of
+ * {@link QueueSearch}: the queue size is the number of nodes left in the open
+ * lists, and the maximum queue size is the sum of the largest sizes of the
+ * open lists of the workers.
+ */
+public class HDAStarSearch extends NodeExpander implements Search {
+
+	// the number of workers
+	private final int threadCount;
+	private final HeuristicFunction hf;
+
+	/**
+	 * Constructs a parallel uniform-cost search, using one thread by
+	 * processor.
+	 */
+	public HDAStarSearch() {
+		this(new HeuristicFunction() {
+			public double h(Object state) {
+				return 0;
+			}
+		});
+	}
+
+	/**
+	 * Constructs a search using one thread by processor.
+	 *
+	 * @param hf
+	 *            an admissible heuristic function.
+	 */
+	public HDAStarSearch(HeuristicFunction hf) {
+		this(hf, 0);
+	}
+
+	/**
+	 * Constructs a search using the specified number of threads.
+	 *
+	 * @param hf
+	 *            an admissible heuristic function.
+	 * @param threadCount
+	 *            the number of threads, or 0 for one thread by processor.
+	 */
+	public HDAStarSearch(HeuristicFunction hf, int threadCount) {
+		this.hf = hf;
+		this.threadCount = Math.max(1, threadCount > 0 ? threadCount : Runtime
+				.getRuntime().availableProcessors());
+	}
+
+	public List<Action> search(Problem p) throws Exception {
+		clearInstrumentation();
+		Run run = new Run(p);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (Worker worker : run.workers) {
+				futures.add(executor.submit(worker));
+			}
+			for (Future<?> future : futures) {
+				while (true) {
+					try {
+						future.get(10, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException e) {
+						if (CancelableThread.currIsCanceled()) {
+							run.done = true;
+						}
+					}
+				}
+			}
+		} finally {
+			run.done = true;
+			executor.shutdown();
+		}
+		Throwable failure = run.failure.get();
+		if (failure instanceof Exception) {
+			throw (Exception) failure;
+		} else if (null != failure) {
+			throw (Error) failure;
+		}
+
+		int expanded = 0, queueSize = 0, maxQueueSize = 0;
+		for (Worker worker : run.workers) {
+			expanded += worker.expanded;
+			queueSize += worker.open.size();
+			maxQueueSize += worker.maxOpenSize;
+		}
+		metrics.set(METRIC_NODES_EXPANDED, expanded);
+		metrics.set(QueueSearch.METRIC_QUEUE_SIZE, queueSize);
+		metrics.set(QueueSearch.METRIC_MAX_QUEUE_SIZE, maxQueueSize);
+		Node solution = run.incumbent;
+		if (null == solution) {
+			return Collections.emptyList();
+		}
+		metrics.set(QueueSearch.METRIC_PATH_COST, solution.getPathCost());
+		return SearchUtils.actionsFromNodes(solution.getPathFromRoot());
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void clearInstrumentation() {
+		super.clearInstrumentation();
+		metrics.set(QueueSearch.METRIC_QUEUE_SIZE, 0);
+		metrics.set(QueueSearch.METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(QueueSearch.METRIC_PATH_COST, 0);
+	}
+
+	/**
+	 * The state shared by the workers of one search.
+	 */
+	private class Run {
+		private final Problem problem;
+		private final Worker[] workers;
+		// the number of active workers plus the number of nodes sent but not
+		// yet received: the search is over when it reaches 0
+		private final AtomicLong pending;
+		private volatile boolean done = false;
+		private volatile Node incumbent = null;
+		private volatile double incumbentCost = Double.POSITIVE_INFINITY;
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		Run(Problem problem) {
+			this.problem = problem;
+			workers = new Worker[threadCount];
+			for (int i = 0; i < threadCount; i++) {
+				workers[i] = new Worker(this);
+			}
+			// all the workers start active, and the root is on its way
+			pending = new AtomicLong(threadCount + 1);
+			Node root = new Node(problem.getInitialState());
+			workers[owner(root.getState())].inbox.add(root);
+		}
+
+		int owner(Object state) {
+			int h = state.hashCode() * 0x9E3779B9;
+			return ((h ^ (h >>> 16)) & 0x7FFFFFFF) % workers.length;
+		}
+
+		synchronized void offerSolution(Node node) {
+			if (node.getPathCost() < incumbentCost) {
+				incumbent = node;
+				incumbentCost = node.getPathCost();
+			}
+		}
+
+		void release() {
+			if (pending.decrementAndGet() == 0) {
+				done = true;
+			}
+		}
+	}
+
+	/**
+	 * A node of an open list.
+	 */
+	private static class Entry implements Comparable<Entry> {
+		private final Node node;
+		private final double f;
+		private final long order;
+
+		Entry(Node node, double f, long order) {
+			this.node = node;
+			this.f = f;
+			this.order = order;
+		}
+
+		public int compareTo(Entry other) {
+			int c = Double.compare(f, other.f);
+			return c != 0 ? c : Long.compare(order, other.order);
+		}
+	}
+
+	/**
+	 * A worker, owning the states of one hash shard.
+	 */
+	private class Worker implements Runnable {
+		private final Run run;
+		private final LinkedBlockingQueue<Node> inbox = new LinkedBlockingQueue<Node>();
+		private final PriorityQueue<Entry> open = new PriorityQueue<Entry>();
+		// the cheapest path cost to each state owned
+		private final Map<Object, Double> bestCost = new HashMap<Object, Double>();
+		private long order = 0;
+		private int expanded = 0;
+		private int maxOpenSize = 0;
+
+		Worker(Run run) {
+			this.run = run;
+		}
+
+		public void run() {
+			try {
+				search();
+			} catch (Throwable t) {
+				run.failure.compareAndSet(null, t);
+				run.done = true;
+			}
+		}
+
+		private void search() throws InterruptedException {
+			while (!run.done) {
+				Node received;
+				while (null != (received = inbox.poll())) {
+					receive(received);
+					run.release();
+				}
+				Entry entry = open.peek();
+				if (null == entry || entry.f >= run.incumbentCost) {
+					// idle until a node arrives or the search is over
+					run.release();
+					while (null == (received = inbox.poll(1,
+							TimeUnit.MILLISECONDS))) {
+						if (run.done) {
+							return;
+						}
+					}
+					run.pending.incrementAndGet();
+					receive(received);
+					run.release();
+					continue;
+				}
+				open.poll();
+				Node node = entry.node;
+				if (node.getPathCost() > bestCost.get(node.getState())) {
+					// a cheaper path to the state was found since
+					continue;
+				}
+				if (SearchUtils.isGoalState(run.problem, node)) {
+					run.offerSolution(node);
+					continue;
+				}
+				expanded++;
+				for (Node child : createChildNodes(node, run.problem)) {
+					int owner = run.owner(child.getState());
+					if (run.workers[owner] == this) {
+						receive(child);
+					} else {
+						run.pending.incrementAndGet();
+						run.workers[owner].inbox.add(child);
+					}
+				}
+			}
+		}
+
+		// adds a node to the open list, unless its state was reached by a path
+		// at least as cheap or it cannot improve on the incumbent
+		private void receive(Node node) {
+			Object state = node.getState();
+			double g = node.getPathCost();
+			Double best = bestCost.get(state);
+			if (null != best && best <= g) {
+				return;
+			}
+			double f = g + hf.h(state);
+			if (f >= run.incumbentCost) {
+				return;
+			}
+			bestCost.put(state, g);
+			open.add(new Entry(node, f, order++));
+			maxOpenSize = Math.max(maxOpenSize, open.size());
+		}
+	}
+}
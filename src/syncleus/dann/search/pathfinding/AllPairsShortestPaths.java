@@ -0,0 +1,412 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.search.pathfinding;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+
+/**
+ * Shortest path distances and first steps between every pair of nodes of an
+ * int indexed graph. Both are kept in flat row major matrices: entry
+ * {@code from * nodeCount + to} holds the distance, or the first arc of a
+ * shortest path, from one node to the other. The matrices take twelve bytes
+ * per pair, so a graph of 20,000 nodes needs about 4.8 GB.
+ * <p>
+ * Two algorithms are available. Floyd-Warshall relaxes the matrix in square
+ * tiles: in each round the diagonal tile is relaxed first, then the tiles in
+ * its row and column in parallel, then all other tiles in parallel, so every
+ * tile is worked on by a single thread while it is hot in cache. Johnson's
+ * algorithm reweights the arcs with Bellman-Ford potentials, when there are
+ * negative arcs at all, and runs Dijkstra from every source in parallel; it
+ * is much faster on sparse graphs. Each task writes only its own tiles or
+ * rows, so the result does not depend on the thread count.
+ */
+public class AllPairsShortestPaths {
+    /**
+     * The algorithm used to fill the matrices.
+     */
+    public enum Strategy {
+        /**
+         * Floyd-Warshall for dense graphs, Johnson for sparse ones.
+         */
+        AUTOMATIC,
+        /**
+         * Tiled parallel Floyd-Warshall.
+         */
+        FLOYD_WARSHALL,
+        /**
+         * Johnson's reweighting followed by parallel Dijkstra.
+         */
+        JOHNSON
+    }
+
+    private static final int TILE_SIZE = 64;
+    /**
+     * Rough cost of one heap operation relative to one Floyd-Warshall
+     * relaxation, used to choose an algorithm.
+     */
+    private static final double DIJKSTRA_COST_FACTOR = 4.0;
+
+    private final int nodeCount;
+    private final int threads;
+    private final int[] arcTargets;
+    private final double[] distances;
+    private final int[] firstArcs;
+    private final Strategy strategy;
+
+    /**
+     * Computes all shortest paths of a compressed graph. Arc weights are the
+     * step weights of {@link AstarPathFinder}: edge weight plus the weight of
+     * the node stepped onto.
+     *
+     * @param graph the graph
+     * @param strategy the algorithm to use
+     * @param threadCount the number of threads, 0 for one per processor
+     */
+    public AllPairsShortestPaths(final CompressedBidirectedGraph<?, ?> graph,
+                                 final Strategy strategy, final int threadCount) {
+        this(graph.getOutOffsets(), graph.getOutTargets(), stepWeights(graph),
+                strategy, threadCount);
+    }
+
+    /**
+     * Computes all shortest paths of a graph given as arrays. The arcs out of
+     * node i are those from {@code offsets[i]} up to {@code offsets[i + 1]}.
+     * Arcs of infinite weight are ignored.
+     *
+     * @param offsets the first arc of each node, plus the arc count at the end
+     * @param targets the node each arc leads to
+     * @param weights the weight of each arc
+     * @param strategy the algorithm to use
+     * @param threadCount the number of threads, 0 for one per processor
+     * @throws NegativeWeightCycleException if a cycle has negative weight
+     */
+    public AllPairsShortestPaths(final int[] offsets, final int[] targets,
+                                 final double[] weights, final Strategy strategy,
+                                 final int threadCount) {
+        if ((offsets == null) || (offsets.length == 0))
+            throw new IllegalArgumentException("offsets can not be empty");
+        if ((targets == null) || (weights == null)
+                || (targets.length != weights.length))
+            throw new IllegalArgumentException(
+                    "targets and weights must have the same length");
+        if (strategy == null)
+            throw new IllegalArgumentException("strategy can not be null");
+        this.nodeCount = offsets.length - 1;
+        if ((long) this.nodeCount * this.nodeCount > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException(
+                    "too many nodes for an all pairs matrix");
+        this.threads = Math.max(1, threadCount > 0 ? threadCount : Runtime
+                .getRuntime().availableProcessors());
+        this.arcTargets = targets;
+        this.distances = new double[this.nodeCount * this.nodeCount];
+        this.firstArcs = new int[this.nodeCount * this.nodeCount];
+        this.strategy = (strategy == Strategy.AUTOMATIC ? choose(
+                this.nodeCount, targets.length) : strategy);
+
+        if (this.strategy == Strategy.FLOYD_WARSHALL)
+            this.floydWarshall(offsets, targets, weights);
+        else
+            this.johnson(offsets, targets, weights);
+    }
+
+    private static double[] stepWeights(
+            final CompressedBidirectedGraph<?, ?> graph) {
+        final int[] targets = graph.getOutTargets();
+        final double[] edgeWeights = graph.getOutWeights();
+        final double[] weights = new double[targets.length];
+        for (int arc = 0; arc < targets.length; arc++)
+            weights[arc] = edgeWeights[arc]
+                    + graph.getNodeWeight(targets[arc]);
+        return weights;
+    }
+
+    private static Strategy choose(final int nodeCount, final int arcCount) {
+        final double log = Math.log(Math.max(2, nodeCount)) / Math.log(2.0);
+        final double dijkstra = DIJKSTRA_COST_FACTOR * nodeCount
+                * (double) (arcCount + nodeCount) * log;
+        final double floydWarshall = (double) nodeCount * nodeCount
+                * nodeCount;
+        return (dijkstra < floydWarshall ? Strategy.JOHNSON
+                : Strategy.FLOYD_WARSHALL);
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * @return the algorithm that was used, never AUTOMATIC
+     */
+    public Strategy getStrategy() {
+        return this.strategy;
+    }
+
+    /**
+     * @param from a node id
+     * @param to a node id
+     * @return the weight of the shortest path, infinite if there is none
+     */
+    public double getDistance(final int from, final int to) {
+        return this.distances[from * this.nodeCount + to];
+    }
+
+    /**
+     * The distance matrix itself, in row major order; it must not be
+     * modified.
+     *
+     * @return the distance matrix
+     */
+    public double[] getDistances() {
+        return this.distances;
+    }
+
+    /**
+     * @param from a node id
+     * @param to a node id
+     * @return the first arc of a shortest path, or -1 if there is no path or
+     * the nodes are the same
+     */
+    public int getFirstArc(final int from, final int to) {
+        return this.firstArcs[from * this.nodeCount + to];
+    }
+
+    /**
+     * @param from a node id
+     * @param to a node id
+     * @return the node after from on a shortest path, or -1 if there is no
+     * path or the nodes are the same
+     */
+    public int getNextNode(final int from, final int to) {
+        final int arc = this.getFirstArc(from, to);
+        return (arc < 0 ? -1 : this.arcTargets[arc]);
+    }
+
+    /**
+     * @param from a node id
+     * @param to a different node id
+     * @return the arcs of a shortest path in order, or null if to can not be
+     * reached from from
+     */
+    public int[] getPathArcs(final int from, final int to) {
+        if ((from == to) || (this.getFirstArc(from, to) < 0))
+            return null;
+        int[] arcs = new int[8];
+        int length = 0;
+        int node = from;
+        while (node != to) {
+            final int arc = this.getFirstArc(node, to);
+            if (length == arcs.length)
+                arcs = Arrays.copyOf(arcs, length * 2);
+            arcs[length++] = arc;
+            node = this.arcTargets[arc];
+        }
+        return Arrays.copyOf(arcs, length);
+    }
+
+    private void initialize(final int[] offsets, final int[] targets,
+                            final double[] weights) {
+        Arrays.fill(this.distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(this.firstArcs, -1);
+        for (int from = 0; from < this.nodeCount; from++) {
+            this.distances[from * this.nodeCount + from] = 0.0;
+            for (int arc = offsets[from]; arc < offsets[from + 1]; arc++) {
+                final int to = targets[arc];
+                final int cell = from * this.nodeCount + to;
+                if ((to != from) && (weights[arc] < this.distances[cell])) {
+                    this.distances[cell] = weights[arc];
+                    this.firstArcs[cell] = arc;
+                } else if ((to == from) && (weights[arc] < 0.0))
+                    throw new NegativeWeightCycleException(
+                            "graph contains a negative self loop");
+            }
+        }
+    }
+
+    private void floydWarshall(final int[] offsets, final int[] targets,
+                               final double[] weights) {
+        this.initialize(offsets, targets, weights);
+        final int tiles = (this.nodeCount + TILE_SIZE - 1) / TILE_SIZE;
+        for (int pivot = 0; pivot < tiles; pivot++) {
+            final int k = pivot;
+            this.relaxTile(k, k, k);
+            // the pivot row and column, 2 * (tiles - 1) tiles
+            this.forEachRange(2 * (tiles - 1), (start, end) -> {
+                for (int index = start; index < end; index++) {
+                    final int other = (index % (tiles - 1) < k ? index
+                            % (tiles - 1) : index % (tiles - 1) + 1);
+                    if (index < tiles - 1)
+                        this.relaxTile(k, other, k);
+                    else
+                        this.relaxTile(other, k, k);
+                }
+            });
+            // every other tile, one tile row at a time
+            this.forEachRange(tiles, (start, end) -> {
+                for (int row = start; row < end; row++)
+                    if (row != k)
+                        for (int column = 0; column < tiles; column++)
+                            if (column != k)
+                                this.relaxTile(row, column, k);
+            });
+        }
+        for (int node = 0; node < this.nodeCount; node++)
+            if (this.distances[node * this.nodeCount + node] < 0.0)
+                throw new NegativeWeightCycleException(
+                        "graph contains a negative weight cycle");
+    }
+
+    /**
+     * Relaxes the tile at the given row and column through every node of the
+     * pivot tile.
+     */
+    private void relaxTile(final int row, final int column, final int pivot) {
+        final int n = this.nodeCount;
+        final int rowEnd = Math.min(n, (row + 1) * TILE_SIZE);
+        final int columnStart = column * TILE_SIZE;
+        final int columnEnd = Math.min(n, columnStart + TILE_SIZE);
+        final int pivotEnd = Math.min(n, (pivot + 1) * TILE_SIZE);
+        final double[] distance = this.distances;
+        final int[] first = this.firstArcs;
+        for (int k = pivot * TILE_SIZE; k < pivotEnd; k++) {
+            final int kRow = k * n;
+            for (int i = row * TILE_SIZE; i < rowEnd; i++) {
+                final int iRow = i * n;
+                final double throughK = distance[iRow + k];
+                if (throughK == Double.POSITIVE_INFINITY)
+                    continue;
+                final int firstToK = first[iRow + k];
+                for (int j = columnStart; j < columnEnd; j++) {
+                    final double candidate = throughK + distance[kRow + j];
+                    if (candidate < distance[iRow + j]) {
+                        distance[iRow + j] = candidate;
+                        first[iRow + j] = firstToK;
+                    }
+                }
+            }
+        }
+    }
+
+    private void johnson(final int[] offsets, final int[] targets,
+                         final double[] weights) {
+        final double[] potentials = potentials(this.nodeCount, offsets,
+                targets, weights);
+        final double[] reduced = new double[weights.length];
+        for (int from = 0; from < this.nodeCount; from++)
+            for (int arc = offsets[from]; arc < offsets[from + 1]; arc++) {
+                if ((targets[arc] == from) && (weights[arc] < 0.0))
+                    throw new NegativeWeightCycleException(
+                            "graph contains a negative self loop");
+                // potentials make reduced weights non negative, rounding aside
+                reduced[arc] = Math.max(0.0, weights[arc] + potentials[from]
+                        - potentials[targets[arc]]);
+            }
+
+        Arrays.fill(this.firstArcs, -1);
+        this.forEachRange(this.nodeCount, (start, end) -> {
+            final double[] distance = new double[this.nodeCount];
+            final int[] first = new int[this.nodeCount];
+            final IndexedHeap open = new IndexedHeap(this.nodeCount);
+            for (int source = start; source < end; source++) {
+                Arrays.fill(distance, Double.POSITIVE_INFINITY);
+                Arrays.fill(first, -1);
+                distance[source] = 0.0;
+                open.add(source, 0.0);
+                while (!open.isEmpty()) {
+                    final int node = open.poll();
+                    final double nodeDistance = distance[node];
+                    for (int arc = offsets[node]; arc < offsets[node + 1]; arc++) {
+                        final double candidate = nodeDistance + reduced[arc];
+                        final int target = targets[arc];
+                        if (candidate < distance[target]) {
+                            distance[target] = candidate;
+                            first[target] = (node == source ? arc
+                                    : first[node]);
+                            open.addOrDecrease(target, candidate);
+                        }
+                    }
+                }
+                final int row = source * this.nodeCount;
+                for (int node = 0; node < this.nodeCount; node++) {
+                    this.distances[row + node] = (Double
+                            .isInfinite(distance[node]) ? Double.POSITIVE_INFINITY
+                            : distance[node] - potentials[source]
+                            + potentials[node]);
+                    this.firstArcs[row + node] = first[node];
+                }
+                this.distances[row + source] = 0.0;
+                this.firstArcs[row + source] = -1;
+            }
+        });
+    }
+
+    /**
+     * Bellman-Ford from a virtual source joined to every node by a zero
+     * weight arc. Graphs without negative arcs need no potentials at all.
+     */
+    private static double[] potentials(final int nodeCount,
+                                       final int[] offsets, final int[] targets, final double[] weights) {
+        final double[] potentials = new double[nodeCount];
+        boolean negative = false;
+        for (final double weight : weights)
+            if (weight < 0.0)
+                negative = true;
+        if (!negative)
+            return potentials;
+
+        for (int pass = 0; pass <= nodeCount; pass++) {
+            boolean changed = false;
+            for (int from = 0; from < nodeCount; from++)
+                for (int arc = offsets[from]; arc < offsets[from + 1]; arc++) {
+                    final double candidate = potentials[from] + weights[arc];
+                    if (candidate < potentials[targets[arc]]) {
+                        potentials[targets[arc]] = candidate;
+                        changed = true;
+                    }
+                }
+            if (!changed)
+                return potentials;
+        }
+        throw new NegativeWeightCycleException(
+                "graph contains a negative weight cycle");
+    }
+
+    /**
+     * Work on a contiguous range of indexes.
+     */
+    private interface RangeTask {
+        void run(int start, int end);
+    }
+
+    /**
+     * Splits count indexes into one contiguous range per thread and runs the
+     * ranges in parallel.
+     */
+    private void forEachRange(final int count, final RangeTask task) {
+        final int blocks = Math.max(1, Math.min(this.threads, count));
+        final IntStream stream = IntStream.range(0, blocks);
+        (blocks > 1 ? stream.parallel() : stream).forEach(block -> task.run(
+                (int) ((long) count * block / blocks),
+                (int) ((long) count * (block + 1) / blocks)));
+    }
+}
@@ -19,104 +19,55 @@
 package syncleus.dann.search.pathfinding;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Set;
 import syncleus.dann.graph.Edge;
 import syncleus.dann.graph.Graph;
 import syncleus.dann.graph.Weighted;
 import syncleus.dann.graph.path.PathFinder;
 
+/**
+ * A* search over any Graph. Nodes are numbered as they are discovered and the
+ * search state is kept in primitive arrays indexed by that number, with the
+ * open set in an {@link IndexedHeap} so that a shorter path to an open node is
+ * a decrease-key rather than a linear removal. For repeated queries on large
+ * graphs see {@link CompressedPathFinder}.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
 public class AstarPathFinder<N, E extends Edge<N>> implements PathFinder<N, E> {
-    private final class PathedStep implements Comparable<PathedStep> {
-        private final N node;
-        private final N goalNode;
-        private PathedStep parent;
-        private E parentEdge;
-        private double cachedPathWeight;
-
-        public PathedStep(final N node, final N goalNode) {
-            if (node == null)
-                throw new IllegalArgumentException("node can not be null");
-            if (goalNode == null)
-                throw new IllegalArgumentException("goalNode can not be null");
-
-            this.goalNode = goalNode;
-            this.node = node;
-        }
-
-        private boolean updateParent(final PathedStep newParent,
-                                     final E newParentEdge) {
-            double newWeight = (newParentEdge instanceof Weighted ? ((Weighted) newParentEdge)
-                    .getWeight() : 0.0);
-            if (this.node instanceof Weighted)
-                newWeight += ((Weighted) this.node).getWeight();
-            else
-                newWeight += 1.0;
-            if ((this.parent == null)
-                    || (newParent.cachedPathWeight + newWeight < this.cachedPathWeight)) {
-                this.parent = newParent;
-                this.parentEdge = newParentEdge;
-                this.cachedPathWeight = newParent.cachedPathWeight + newWeight;
-                return true;
-            } else
-                return false;
-        }
-
-        public N getNode() {
-            return this.node;
-        }
-
-        public PathedStep getParent() {
-            return this.parent;
-        }
-
-        public double getHeuristicCostToGoal() {
-            return heuristicPathCost.getHeuristicPathCost(this.node,
-                    this.goalNode);
-        }
-
-        public double getHeuristicOverallCost() {
-            return this.cachedPathWeight + this.getHeuristicCostToGoal();
-        }
-
-        @Override
-        public boolean equals(final Object compareToObj) {
-            if (compareToObj == null)
-                return false;
-
-            if (!(compareToObj.getClass().isInstance(this)))
-                return false;
-
-            final PathedStep compareTo = (PathedStep) compareToObj;
-            return ((this.node.equals(compareTo)) || (this.node
-                    .equals(compareTo.node)));
-        }
-
-        @Override
-        public int hashCode() {
-            return this.node.hashCode();
-        }
-
-        @Override
-        public int compareTo(final PathedStep compareWith) {
-            // the natural ordering is inverse cause the smallest path weight is
-            // the best weight.
-            if (this.getHeuristicOverallCost() < compareWith
-                    .getHeuristicOverallCost())
-                return -1;
-            else if (this.getHeuristicOverallCost() > compareWith
-                    .getHeuristicOverallCost())
-                return 1;
-            else
-                return 0;
-        }
-
-        public E getParentEdge() {
-            return this.parentEdge;
+    /**
+     * The nodes reached by one search, numbered in discovery order, with the
+     * best known path to each.
+     */
+    private static final class SearchState<N> {
+        private final Map<N, Integer> ids = new HashMap<>();
+        private final List<N> nodes = new ArrayList<>();
+        private double[] pathWeights = new double[64];
+        private int[] parents = new int[64];
+        private Object[] parentEdges = new Object[64];
+        private boolean[] closed = new boolean[64];
+
+        private int intern(final N node) {
+            final Integer id = this.ids.get(node);
+            if (id != null)
+                return id;
+            final int newId = this.nodes.size();
+            if (newId == this.parents.length) {
+                final int capacity = newId * 2;
+                this.pathWeights = Arrays.copyOf(this.pathWeights, capacity);
+                this.parents = Arrays.copyOf(this.parents, capacity);
+                this.parentEdges = Arrays.copyOf(this.parentEdges, capacity);
+                this.closed = Arrays.copyOf(this.closed, capacity);
+            }
+            this.ids.put(node, newId);
+            this.nodes.add(node);
+            this.parents[newId] = -1;
+            return newId;
         }
     }
 
@@ -151,54 +102,64 @@ public class AstarPathFinder<N, E extends Edge<N>> implements PathFinder<N, E> {
         if (begin.equals(end))
             throw new IllegalArgumentException("begin can not be equal to end");
 
-        // initalize candidate nodes queue containing potential edges as a
-        // solution
-        final Map<N, PathedStep> nodeStepMapping = new HashMap<>();
-        final PriorityQueue<PathedStep> candidateSteps = new PriorityQueue<>();
-        final PathedStep beginStep = new PathedStep(begin, end);
-        nodeStepMapping.put(begin, beginStep);
-        candidateSteps.add(beginStep);
-
-        // all nodes that have been closed can no longer be traversed
-        final Set<PathedStep> closedSteps = new HashSet<>();
-
-        // lets iterate through each step from the begining
-        while (!candidateSteps.isEmpty()) {
-            final PathedStep currentStep = candidateSteps.poll();
-            if (currentStep.getNode().equals(end))
-                return pathedStepToWalk(currentStep);
-
-            // for(final E edge :
-            // this.graph.getTraversableEdges(currentStep.node)) {
-            this.graph.streamTraversableEdges(currentStep.node)
-                    .forEach(
-                            edge -> edge.getNodes().stream().filter((neighborNode) -> !(neighborNode.equals(currentStep.node))).map((neighborNode) -> {
-                                final PathedStep neighborStep;
-                                if (nodeStepMapping
-                                        .containsKey(neighborNode))
-                                    neighborStep = nodeStepMapping
-                                            .get(neighborNode);
-                                else {
-                                    neighborStep = new PathedStep(
-                                            neighborNode, end);
-                                    nodeStepMapping.put(neighborNode,
-                                            neighborStep);
-                                }
-                                if (!neighborNode.equals(begin))
-                                    neighborStep.updateParent(currentStep,
-                                            edge);
-                                return neighborStep;
-                            }).filter((neighborStep) -> (!closedSteps.contains(neighborStep))).map((neighborStep) -> {
-                                candidateSteps.remove(neighborStep);
-                                return neighborStep;
-                            }).forEach(candidateSteps::add));
-
-            closedSteps.add(currentStep);
+        final SearchState<N> state = new SearchState<>();
+        final IndexedHeap candidates = new IndexedHeap(64);
+        final int beginId = state.intern(begin);
+        candidates.add(beginId, this.heuristicPathCost.getHeuristicPathCost(
+                begin, end));
+
+        while (!candidates.isEmpty()) {
+            final int current = candidates.poll();
+            final N currentNode = state.nodes.get(current);
+            if (currentNode.equals(end))
+                return this.pathToWalk(state, current);
+            state.closed[current] = true;
+
+            for (final E edge : this.graph.getTraversableEdges(currentNode)) {
+                for (final N neighborNode : edge.getNodes()) {
+                    if (neighborNode.equals(currentNode))
+                        continue;
+                    final int neighbor = state.intern(neighborNode);
+                    if ((neighbor == beginId) || state.closed[neighbor])
+                        continue;
+
+                    final double pathWeight = state.pathWeights[current]
+                            + stepWeight(edge, neighborNode);
+                    if ((state.parents[neighbor] < 0)
+                            || (pathWeight < state.pathWeights[neighbor])) {
+                        state.parents[neighbor] = current;
+                        state.parentEdges[neighbor] = edge;
+                        state.pathWeights[neighbor] = pathWeight;
+                        candidates.addOrDecrease(neighbor, pathWeight
+                                + this.heuristicPathCost.getHeuristicPathCost(
+                                neighborNode, end));
+                    }
+                }
+            }
         }
 
         return null;
     }
 
+    /**
+     * The cost of stepping along an edge onto a node: the weight of the edge if
+     * it is weighted, plus the weight of the node if it is weighted or 1
+     * otherwise.
+     *
+     * @param edge the edge
+     * @param node the node stepped onto
+     * @return the cost of the step
+     */
+    static double stepWeight(final Object edge, final Object node) {
+        double weight = (edge instanceof Weighted ? ((Weighted) edge)
+                .getWeight() : 0.0);
+        if (node instanceof Weighted)
+            weight += ((Weighted) node).getWeight();
+        else
+            weight += 1.0;
+        return weight;
+    }
+
     @Override
     public boolean isReachable(final N begin, final N end) {
         return (this.getBestPath(begin, end) != null);
@@ -209,16 +170,12 @@ public class AstarPathFinder<N, E extends Edge<N>> implements PathFinder<N, E> {
         return (this.getBestPath(begin, end) != null);
     }
 
-    private List<E> pathedStepToWalk(final PathedStep endPathedStep) {
+    @SuppressWarnings("unchecked")
+    private List<E> pathToWalk(final SearchState<N> state, final int endId) {
         final List<E> edges = new ArrayList<>();
-
-        PathedStep currentStep = endPathedStep;
-        while (currentStep != null) {
-            if (currentStep.getParentEdge() != null)
-                edges.add(0, currentStep.getParentEdge());
-            currentStep = currentStep.getParent();
-        }
-
+        for (int current = endId; state.parents[current] >= 0; current = state.parents[current])
+            edges.add((E) state.parentEdges[current]);
+        Collections.reverse(edges);
         return edges;
     }
 }
@@ -0,0 +1,441 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.search.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import syncleus.dann.graph.BidirectedEdge;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+import syncleus.dann.graph.path.PathFinder;
+
+/**
+ * A* and Dijkstra search over a {@link CompressedBidirectedGraph}. All search
+ * state lives in primitive arrays indexed by node id, the open set is an
+ * {@link IndexedHeap} with decrease-key, and the arrays are allocated once and
+ * reused by every query: a query counter marks which entries belong to the
+ * current search, so starting a query costs nothing however large the graph.
+ * Because of that scratch state an instance must not be queried from several
+ * threads at once; give each thread its own finder over the shared graph.
+ * <p>
+ * Step weights are those of {@link AstarPathFinder}: the weight of the edge
+ * plus the weight of the node stepped onto. Steps of infinite weight are not
+ * traversable.
+ * <p>
+ * In bidirectional mode a forward search from the beginning and a backward
+ * search from the end run until they meet. With a consistent heuristic both
+ * searches are guided by the average of the forward and backward heuristics,
+ * otherwise bidirectional search is plain Dijkstra. The backward search
+ * assumes the heuristic is symmetric.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
+public class CompressedPathFinder<N, E extends BidirectedEdge<N>> implements
+        PathFinder<N, E> {
+    /**
+     * The search state of one direction.
+     */
+    private static final class Frontier {
+        private final double[] distances;
+        private final double[] potentials;
+        private final int[] parents;
+        private final int[] arcs;
+        private final int[] reached;
+        private final int[] settled;
+        private final IndexedHeap open;
+
+        private Frontier(final int nodeCount) {
+            this.distances = new double[nodeCount];
+            this.potentials = new double[nodeCount];
+            this.parents = new int[nodeCount];
+            this.arcs = new int[nodeCount];
+            this.reached = new int[nodeCount];
+            this.settled = new int[nodeCount];
+            this.open = new IndexedHeap(nodeCount);
+        }
+
+        private void reset() {
+            Arrays.fill(this.reached, 0);
+            Arrays.fill(this.settled, 0);
+        }
+    }
+
+    private final CompressedBidirectedGraph<N, E> graph;
+    private final HeuristicPathCost<N> heuristicPathCost;
+    private boolean bidirectional;
+    private Frontier forward;
+    private Frontier backward;
+    private int query;
+    private int queryBegin;
+    private int queryEnd;
+
+    /**
+     * Creates a Dijkstra path finder.
+     *
+     * @param graph the graph to search
+     */
+    public CompressedPathFinder(final CompressedBidirectedGraph<N, E> graph) {
+        this(graph, new DijkstraPathFinder.ZeroHeuristicPathCost<>());
+    }
+
+    /**
+     * Creates an A* path finder.
+     *
+     * @param graph the graph to search
+     * @param heuristicPathCost an admissible heuristic
+     */
+    public CompressedPathFinder(final CompressedBidirectedGraph<N, E> graph,
+                                final HeuristicPathCost<N> heuristicPathCost) {
+        if (graph == null)
+            throw new IllegalArgumentException("graph can not be null");
+        if (heuristicPathCost == null)
+            throw new IllegalArgumentException(
+                    "heuristicPathCost can not be null");
+        if (!heuristicPathCost.isOptimistic())
+            throw new IllegalArgumentException(
+                    "heuristicPathCost must be admissible");
+        this.graph = graph;
+        this.heuristicPathCost = heuristicPathCost;
+    }
+
+    public boolean isBidirectional() {
+        return this.bidirectional;
+    }
+
+    public void setBidirectional(final boolean bidirectional) {
+        this.bidirectional = bidirectional;
+    }
+
+    @Override
+    public List<E> getBestPath(final N begin, final N end) {
+        final int[] edgeIds = this.getBestPathEdgeIds(this.requireId(begin),
+                this.requireId(end));
+        if (edgeIds == null)
+            return null;
+        final List<E> path = new ArrayList<>(edgeIds.length);
+        for (final int edge : edgeIds)
+            path.add(this.graph.getEdge(edge));
+        return path;
+    }
+
+    @Override
+    public boolean isReachable(final N begin, final N end) {
+        return !Double.isInfinite(this.getPathWeight(this.requireId(begin),
+                this.requireId(end)));
+    }
+
+    @Override
+    public boolean isConnected(final N begin, final N end) {
+        return this.isReachable(begin, end);
+    }
+
+    /**
+     * Finds the best path between two nodes.
+     *
+     * @param begin the id of the first node
+     * @param end the id of the last node
+     * @return the ids of the edges along the path, or null if end can not be
+     * reached
+     */
+    public int[] getBestPathEdgeIds(final int begin, final int end) {
+        final int meeting = this.search(begin, end);
+        if (meeting < 0)
+            return null;
+        final int[] forwardEdges = this.forwardEdgeIds(meeting);
+        if (!this.bidirectional)
+            return forwardEdges;
+        final int[] edgeIds = Arrays.copyOf(forwardEdges, forwardEdges.length
+                + this.backwardLength(meeting, end));
+        int index = forwardEdges.length;
+        for (int node = meeting; node != end; node = this.backward.parents[node])
+            edgeIds[index++] = this.graph.getInEdgeIds()[this.backward.arcs[node]];
+        return edgeIds;
+    }
+
+    /**
+     * @param begin the id of the first node
+     * @param end the id of the last node
+     * @return the weight of the best path, or positive infinity if end can not
+     * be reached
+     */
+    public double getPathWeight(final int begin, final int end) {
+        final int meeting = this.search(begin, end);
+        if (meeting < 0)
+            return Double.POSITIVE_INFINITY;
+        return this.forward.distances[meeting]
+                + (this.bidirectional ? this.backward.distances[meeting] : 0.0);
+    }
+
+    /**
+     * Finds the best paths from one node to several others with a single
+     * Dijkstra search, which stops once every end has been settled. The
+     * heuristic is not used, as it depends on the end.
+     *
+     * @param begin the first node of every path
+     * @param ends the last nodes
+     * @return the best path to each end, null for ends that can not be reached
+     */
+    public Map<N, List<E>> getBestPaths(final N begin, final Collection<N> ends) {
+        final int beginId = this.requireId(begin);
+        final int[] endIds = new int[ends.size()];
+        int index = 0;
+        for (final N end : ends)
+            endIds[index++] = this.requireId(end);
+        final boolean[] wanted = new boolean[this.graph.getNodeCount()];
+        int remaining = 0;
+        for (final int end : endIds) {
+            if ((end != beginId) && !wanted[end]) {
+                wanted[end] = true;
+                remaining++;
+            }
+        }
+
+        final Frontier front = this.start(beginId, -1, false);
+
+        while (!front.open.isEmpty() && (remaining > 0)) {
+            final int node = this.expandForward(front);
+            if (wanted[node]) {
+                wanted[node] = false;
+                remaining--;
+            }
+        }
+
+        final Map<N, List<E>> paths = new LinkedHashMap<>();
+        for (final int end : endIds) {
+            final N endNode = this.graph.getNode(end);
+            if (end == beginId)
+                paths.put(endNode, Collections.<E>emptyList());
+            else if (front.settled[end] != this.query)
+                paths.put(endNode, null);
+            else {
+                final List<E> path = new ArrayList<>();
+                for (final int edge : this.forwardEdgeIds(end))
+                    path.add(this.graph.getEdge(edge));
+                paths.put(endNode, path);
+            }
+        }
+        return paths;
+    }
+
+    private int requireId(final N node) {
+        if (node == null)
+            throw new IllegalArgumentException("node can not be null");
+        final int id = this.graph.getId(node);
+        if (id < 0)
+            throw new IllegalArgumentException("node is not in the graph");
+        return id;
+    }
+
+    /**
+     * Begins a new query, reusing the scratch arrays.
+     */
+    private Frontier start(final int begin, final int end,
+                           final boolean useBackward) {
+        final int nodeCount = this.graph.getNodeCount();
+        if (this.forward == null)
+            this.forward = new Frontier(nodeCount);
+        if (useBackward && (this.backward == null))
+            this.backward = new Frontier(nodeCount);
+        if (this.query == Integer.MAX_VALUE) {
+            this.forward.reset();
+            if (this.backward != null)
+                this.backward.reset();
+            this.query = 0;
+        }
+        this.query++;
+        this.queryBegin = begin;
+        this.queryEnd = end;
+        this.forward.open.clear();
+        this.reach(this.forward, begin, -1, -1, 0.0, true);
+        if (useBackward) {
+            this.backward.open.clear();
+            this.reach(this.backward, end, -1, -1, 0.0, false);
+        }
+        return this.forward;
+    }
+
+    /**
+     * @return the node where the path was found: end for one directional
+     * search or the meeting node for bidirectional search; -1 if there is no
+     * path
+     */
+    private int search(final int begin, final int end) {
+        if (begin == end)
+            throw new IllegalArgumentException("begin can not be equal to end");
+        if (this.bidirectional)
+            return this.searchBidirectional(begin, end);
+
+        final Frontier front = this.start(begin, end, false);
+        while (!front.open.isEmpty()) {
+            if (this.expandForward(front) == end)
+                return end;
+        }
+        return -1;
+    }
+
+    private int searchBidirectional(final int begin, final int end) {
+        final Frontier front = this.start(begin, end, true);
+        final Frontier back = this.backward;
+        final int[] inOffsets = this.graph.getInOffsets();
+        final int[] inSources = this.graph.getInSources();
+        final int[] inEdgeIds = this.graph.getInEdgeIds();
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+
+        while (!front.open.isEmpty() && !back.open.isEmpty()) {
+            if (front.open.peekKey() + back.open.peekKey() >= best)
+                break;
+            if (front.open.size() <= back.open.size()) {
+                final int node = this.expandForward(front);
+                final int[] outOffsets = this.graph.getOutOffsets();
+                final int[] outTargets = this.graph.getOutTargets();
+                for (int arc = outOffsets[node]; arc < outOffsets[node + 1]; arc++) {
+                    final int target = outTargets[arc];
+                    if ((back.reached[target] == this.query)
+                            && (front.reached[target] == this.query)) {
+                        final double weight = front.distances[target]
+                                + back.distances[target];
+                        if (weight < best) {
+                            best = weight;
+                            meeting = target;
+                        }
+                    }
+                }
+            } else {
+                final int node = back.open.poll();
+                back.settled[node] = this.query;
+                for (int arc = inOffsets[node]; arc < inOffsets[node + 1]; arc++) {
+                    final int source = inSources[arc];
+                    if (back.settled[source] == this.query)
+                        continue;
+                    final double distance = back.distances[node]
+                            + this.graph.getEdgeWeight(inEdgeIds[arc])
+                            + this.graph.getNodeWeight(node);
+                    if (Double.isInfinite(distance))
+                        continue;
+                    this.reach(back, source, node, arc, distance, false);
+                    if (front.reached[source] == this.query) {
+                        final double weight = front.distances[source]
+                                + back.distances[source];
+                        if (weight < best) {
+                            best = weight;
+                            meeting = source;
+                        }
+                    }
+                }
+            }
+        }
+        return meeting;
+    }
+
+    /**
+     * Settles the open node with the smallest key and relaxes the arcs out of
+     * it, unless it is the end of the query.
+     *
+     * @return the settled node
+     */
+    private int expandForward(final Frontier front) {
+        final int node = front.open.poll();
+        front.settled[node] = this.query;
+        if (node == this.queryEnd)
+            return node;
+        final int[] outOffsets = this.graph.getOutOffsets();
+        final int[] outTargets = this.graph.getOutTargets();
+        final double[] outWeights = this.graph.getOutWeights();
+        for (int arc = outOffsets[node]; arc < outOffsets[node + 1]; arc++) {
+            final int target = outTargets[arc];
+            if (front.settled[target] == this.query)
+                continue;
+            final double distance = front.distances[node] + outWeights[arc]
+                    + this.graph.getNodeWeight(target);
+            if (Double.isInfinite(distance))
+                continue;
+            this.reach(front, target, node, arc, distance, true);
+        }
+        return node;
+    }
+
+    /**
+     * Records a path of the given distance to a node if it is the first or
+     * the shortest found so far, and adds the node to the open set or lowers
+     * its key.
+     */
+    private void reach(final Frontier front, final int node, final int parent,
+                       final int arc, final double distance,
+                       final boolean isForward) {
+        if (front.reached[node] == this.query) {
+            if (distance >= front.distances[node])
+                return;
+        } else {
+            front.reached[node] = this.query;
+            front.potentials[node] = this.potential(node, isForward);
+        }
+        front.distances[node] = distance;
+        front.parents[node] = parent;
+        front.arcs[node] = arc;
+        front.open.addOrDecrease(node, distance + front.potentials[node]);
+    }
+
+    /**
+     * The heuristic part of a node's key. One directional search uses the
+     * heuristic to the end; bidirectional search uses half the difference of
+     * the heuristics to the end and from the beginning, negated for the
+     * backward search, when the heuristic is consistent.
+     */
+    private double potential(final int node, final boolean isForward) {
+        if (this.queryEnd < 0)
+            return 0.0;
+        final int begin = this.queryBegin;
+        final int end = this.queryEnd;
+        final N current = this.graph.getNode(node);
+        if (!this.bidirectional)
+            return this.heuristicPathCost.getHeuristicPathCost(current,
+                    this.graph.getNode(end));
+        if (!this.heuristicPathCost.isConsistent())
+            return 0.0;
+        final double toEnd = this.heuristicPathCost.getHeuristicPathCost(
+                current, this.graph.getNode(end));
+        final double fromBegin = this.heuristicPathCost.getHeuristicPathCost(
+                this.graph.getNode(begin), current);
+        final double potential = (toEnd - fromBegin) / 2.0;
+        return (isForward ? potential : -potential);
+    }
+
+    private int[] forwardEdgeIds(final int last) {
+        int length = 0;
+        for (int node = last; this.forward.parents[node] >= 0; node = this.forward.parents[node])
+            length++;
+        final int[] edgeIds = new int[length];
+        for (int node = last; this.forward.parents[node] >= 0; node = this.forward.parents[node])
+            edgeIds[--length] = this.graph.getOutEdgeIds()[this.forward.arcs[node]];
+        return edgeIds;
+    }
+
+    private int backwardLength(final int meeting, final int end) {
+        int length = 0;
+        for (int node = meeting; node != end; node = this.backward.parents[node])
+            length++;
+        return length;
+    }
+}
@@ -0,0 +1,643 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.search.pathfinding;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+
+/**
+ * A contraction hierarchy of a {@link CompressedBidirectedGraph}: the nodes
+ * ranked by importance, plus shortcut arcs that let a bidirectional search
+ * climb only towards more important nodes. It is built once, in parallel,
+ * and answers queries through {@link ContractionHierarchyPathFinder}. The
+ * hierarchy holds nothing but arrays, so it can be serialized and loaded
+ * again for the same graph instead of being rebuilt.
+ * <p>
+ * Nodes are contracted in rounds. Each round picks the nodes whose priority
+ * (shortcuts added minus arcs removed, plus contracted neighbours) is lower
+ * than that of all their neighbours; these are independent, so their witness
+ * searches run in parallel and the shortcuts are then added in node order,
+ * which makes the result independent of the thread count.
+ * <p>
+ * Arc weights are the step weights of {@link AstarPathFinder}: edge weight
+ * plus the weight of the node stepped onto. Infinite steps are left out and
+ * negative steps are not allowed.
+ */
+public class ContractionHierarchy implements Serializable {
+    private static final long serialVersionUID = 4719235537290114125L;
+
+    /**
+     * Witness searches give up after settling this many nodes, which can only
+     * add unneeded shortcuts.
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final int[] ranks;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddles;
+    private final int[] upEdges;
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final double[] downWeights;
+    private final int[] downMiddles;
+    private final int[] downEdges;
+    private final int shortcutCount;
+
+    /**
+     * Builds the hierarchy of a graph using every available processor.
+     *
+     * @param graph the graph
+     */
+    public ContractionHierarchy(final CompressedBidirectedGraph<?, ?> graph) {
+        this(graph, 0);
+    }
+
+    /**
+     * Builds the hierarchy of a graph.
+     *
+     * @param graph the graph
+     * @param threadCount the number of threads, 0 for one per processor
+     */
+    public ContractionHierarchy(final CompressedBidirectedGraph<?, ?> graph,
+                                final int threadCount) {
+        if (graph == null)
+            throw new IllegalArgumentException("graph can not be null");
+        final Builder builder = new Builder(graph, threadCount);
+        builder.contractAll();
+
+        final int nodeCount = graph.getNodeCount();
+        this.ranks = builder.ranks;
+        this.upOffsets = new int[nodeCount + 1];
+        this.downOffsets = new int[nodeCount + 1];
+        int shortcuts = 0;
+        for (int u = 0; u < nodeCount; u++) {
+            for (int i = 0; i < builder.outSizes[u]; i++) {
+                final int w = builder.outTargets[u][i];
+                if (this.ranks[w] > this.ranks[u])
+                    this.upOffsets[u + 1]++;
+                else
+                    this.downOffsets[w + 1]++;
+                if (builder.outMiddles[u][i] >= 0)
+                    shortcuts++;
+            }
+        }
+        this.shortcutCount = shortcuts;
+        for (int node = 0; node < nodeCount; node++) {
+            this.upOffsets[node + 1] += this.upOffsets[node];
+            this.downOffsets[node + 1] += this.downOffsets[node];
+        }
+        this.upTargets = new int[this.upOffsets[nodeCount]];
+        this.upWeights = new double[this.upTargets.length];
+        this.upMiddles = new int[this.upTargets.length];
+        this.upEdges = new int[this.upTargets.length];
+        this.downSources = new int[this.downOffsets[nodeCount]];
+        this.downWeights = new double[this.downSources.length];
+        this.downMiddles = new int[this.downSources.length];
+        this.downEdges = new int[this.downSources.length];
+        final int[] upFill = Arrays.copyOf(this.upOffsets, nodeCount);
+        final int[] downFill = Arrays.copyOf(this.downOffsets, nodeCount);
+        for (int u = 0; u < nodeCount; u++) {
+            for (int i = 0; i < builder.outSizes[u]; i++) {
+                final int w = builder.outTargets[u][i];
+                if (this.ranks[w] > this.ranks[u]) {
+                    final int arc = upFill[u]++;
+                    this.upTargets[arc] = w;
+                    this.upWeights[arc] = builder.outWeights[u][i];
+                    this.upMiddles[arc] = builder.outMiddles[u][i];
+                    this.upEdges[arc] = builder.outEdges[u][i];
+                } else {
+                    final int arc = downFill[w]++;
+                    this.downSources[arc] = u;
+                    this.downWeights[arc] = builder.outWeights[u][i];
+                    this.downMiddles[arc] = builder.outMiddles[u][i];
+                    this.downEdges[arc] = builder.outEdges[u][i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of nodes of the graph the hierarchy was built for
+     */
+    public int getNodeCount() {
+        return this.ranks.length;
+    }
+
+    /**
+     * @param node a node id
+     * @return the position of the node in the contraction order
+     */
+    public int getRank(final int node) {
+        return this.ranks[node];
+    }
+
+    /**
+     * @return the number of shortcut arcs added
+     */
+    public int getShortcutCount() {
+        return this.shortcutCount;
+    }
+
+    int[] getUpOffsets() {
+        return this.upOffsets;
+    }
+
+    int[] getUpTargets() {
+        return this.upTargets;
+    }
+
+    double[] getUpWeights() {
+        return this.upWeights;
+    }
+
+    int[] getDownOffsets() {
+        return this.downOffsets;
+    }
+
+    int[] getDownSources() {
+        return this.downSources;
+    }
+
+    double[] getDownWeights() {
+        return this.downWeights;
+    }
+
+    /**
+     * Graph edge ids collected while expanding shortcuts.
+     */
+    static final class EdgeIdBuffer {
+        private int[] ids = new int[16];
+        private int size;
+
+        private void add(final int id) {
+            if (this.size == this.ids.length)
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            this.ids[this.size++] = id;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.ids, this.size);
+        }
+    }
+
+    /**
+     * Expands an up arc into the ids of the graph edges it stands for, in
+     * path order.
+     *
+     * @param from the node the arc leaves
+     * @param arc the index of the arc in the up arrays
+     * @param edgeIds receives the edge ids
+     */
+    void unpackUp(final int from, final int arc, final EdgeIdBuffer edgeIds) {
+        this.unpack(from, this.upTargets[arc], this.upMiddles[arc],
+                this.upEdges[arc], edgeIds);
+    }
+
+    /**
+     * Expands a down arc, which leads into the node it is stored at.
+     *
+     * @param to the node the arc enters
+     * @param arc the index of the arc in the down arrays
+     * @param edgeIds receives the edge ids
+     */
+    void unpackDown(final int to, final int arc, final EdgeIdBuffer edgeIds) {
+        this.unpack(this.downSources[arc], to, this.downMiddles[arc],
+                this.downEdges[arc], edgeIds);
+    }
+
+    /**
+     * Shortcuts are expanded with an explicit stack, as long paths would
+     * otherwise nest deeply.
+     */
+    private void unpack(final int from, final int to, final int middle,
+                        final int edge, final EdgeIdBuffer edgeIds) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = from;
+        stack[top++] = to;
+        stack[top++] = middle;
+        stack[top++] = edge;
+        while (top > 0) {
+            final int arcEdge = stack[--top];
+            final int arcMiddle = stack[--top];
+            final int arcTo = stack[--top];
+            final int arcFrom = stack[--top];
+            if (arcMiddle < 0) {
+                edgeIds.add(arcEdge);
+                continue;
+            }
+            if (top + 8 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            // the middle node ranks below both ends: the second half is one of
+            // its up arcs, the first half one of its down arcs
+            final int second = this.findUp(arcMiddle, arcTo);
+            stack[top++] = arcMiddle;
+            stack[top++] = arcTo;
+            stack[top++] = this.upMiddles[second];
+            stack[top++] = this.upEdges[second];
+            final int first = this.findDown(arcMiddle, arcFrom);
+            stack[top++] = arcFrom;
+            stack[top++] = arcMiddle;
+            stack[top++] = this.downMiddles[first];
+            stack[top++] = this.downEdges[first];
+        }
+    }
+
+    private int findUp(final int node, final int target) {
+        for (int arc = this.upOffsets[node]; arc < this.upOffsets[node + 1]; arc++)
+            if (this.upTargets[arc] == target)
+                return arc;
+        throw new IllegalStateException("shortcut half is missing");
+    }
+
+    private int findDown(final int node, final int source) {
+        for (int arc = this.downOffsets[node]; arc < this.downOffsets[node + 1]; arc++)
+            if (this.downSources[arc] == source)
+                return arc;
+        throw new IllegalStateException("shortcut half is missing");
+    }
+
+    /**
+     * The graph while it is being contracted. Each node keeps growable lists
+     * of its out and in arcs, with at most one arc per ordered pair of nodes;
+     * arcs to contracted nodes stay in the lists, frozen, for unpacking.
+     */
+    private static final class Builder {
+        private final int nodeCount;
+        private final int threads;
+        private final int[][] outTargets;
+        private final double[][] outWeights;
+        private final int[][] outMiddles;
+        private final int[][] outEdges;
+        private final int[] outSizes;
+        private final int[][] inSources;
+        private final double[][] inWeights;
+        private final int[] inSizes;
+        private final boolean[] contracted;
+        private final boolean[] inRound;
+        private final int[] ranks;
+        private final int[] deletedNeighbors;
+        private final int[] priorities;
+        private final Witness[] witnesses;
+
+        private Builder(final CompressedBidirectedGraph<?, ?> graph,
+                        final int threadCount) {
+            this.nodeCount = graph.getNodeCount();
+            this.threads = Math.max(1, Math.min(this.nodeCount,
+                    threadCount > 0 ? threadCount : Runtime.getRuntime()
+                            .availableProcessors()));
+            this.outTargets = new int[this.nodeCount][];
+            this.outWeights = new double[this.nodeCount][];
+            this.outMiddles = new int[this.nodeCount][];
+            this.outEdges = new int[this.nodeCount][];
+            this.outSizes = new int[this.nodeCount];
+            this.inSources = new int[this.nodeCount][];
+            this.inWeights = new double[this.nodeCount][];
+            this.inSizes = new int[this.nodeCount];
+            for (int node = 0; node < this.nodeCount; node++) {
+                final int outDegree = Math.max(1, graph.getOutDegree(node));
+                this.outTargets[node] = new int[outDegree];
+                this.outWeights[node] = new double[outDegree];
+                this.outMiddles[node] = new int[outDegree];
+                this.outEdges[node] = new int[outDegree];
+                final int inDegree = Math.max(1, graph.getInDegree(node));
+                this.inSources[node] = new int[inDegree];
+                this.inWeights[node] = new double[inDegree];
+            }
+            this.contracted = new boolean[this.nodeCount];
+            this.inRound = new boolean[this.nodeCount];
+            this.ranks = new int[this.nodeCount];
+            this.deletedNeighbors = new int[this.nodeCount];
+            this.priorities = new int[this.nodeCount];
+            this.witnesses = new Witness[this.threads];
+
+            final int[] offsets = graph.getOutOffsets();
+            final int[] targets = graph.getOutTargets();
+            final int[] edgeIds = graph.getOutEdgeIds();
+            final double[] weights = graph.getOutWeights();
+            for (int u = 0; u < this.nodeCount; u++) {
+                for (int arc = offsets[u]; arc < offsets[u + 1]; arc++) {
+                    final int w = targets[arc];
+                    final double weight = weights[arc] + graph.getNodeWeight(w);
+                    if ((u == w) || Double.isInfinite(weight))
+                        continue;
+                    if (weight < 0.0)
+                        throw new IllegalArgumentException(
+                                "contraction hierarchies need non-negative step weights");
+                    this.addArc(u, w, weight, -1, edgeIds[arc]);
+                }
+            }
+        }
+
+        private void contractAll() {
+            int[] remaining = IntStream.range(0, this.nodeCount).toArray();
+            this.prioritize(remaining);
+            int nextRank = 0;
+            final int[] dirty = new int[this.nodeCount];
+            while (remaining.length > 0) {
+                final int[] selected = this.selectIndependent(remaining);
+                for (final int node : selected)
+                    this.inRound[node] = true;
+                final Shortcuts[] shortcuts = new Shortcuts[selected.length];
+                this.forEachBlock(selected.length, (witness, index) ->
+                        shortcuts[index] = this.findShortcuts(selected[index],
+                                witness));
+
+                int dirtyCount = 0;
+                for (int index = 0; index < selected.length; index++) {
+                    final int node = selected[index];
+                    this.ranks[node] = nextRank++;
+                    this.contracted[node] = true;
+                    this.inRound[node] = false;
+                    final Shortcuts added = shortcuts[index];
+                    for (int s = 0; s < added.size; s++)
+                        this.addArc(added.sources[s], added.targets[s],
+                                added.weights[s], node, -1);
+                    dirtyCount = this.markNeighbors(node, dirty, dirtyCount);
+                }
+                final int[] touched = Arrays.copyOf(dirty, dirtyCount);
+                for (final int node : touched)
+                    this.inRound[node] = false;
+                this.prioritize(touched);
+                remaining = Arrays.stream(remaining).filter(
+                        node -> !this.contracted[node]).toArray();
+            }
+        }
+
+        /**
+         * Adds the uncontracted neighbours of a node to the dirty list, once
+         * each, counting the contraction against them. The inRound flags are
+         * borrowed to avoid duplicates and cleared by the caller.
+         */
+        private int markNeighbors(final int node, final int[] dirty,
+                                  final int count) {
+            int dirtyCount = count;
+            for (int pass = 0; pass < 2; pass++) {
+                final int size = (pass == 0 ? this.outSizes[node]
+                        : this.inSizes[node]);
+                for (int i = 0; i < size; i++) {
+                    final int neighbor = (pass == 0 ? this.outTargets[node][i]
+                            : this.inSources[node][i]);
+                    if (this.contracted[neighbor] || this.inRound[neighbor])
+                        continue;
+                    this.inRound[neighbor] = true;
+                    this.deletedNeighbors[neighbor]++;
+                    dirty[dirtyCount++] = neighbor;
+                }
+            }
+            return dirtyCount;
+        }
+
+        private void prioritize(final int[] nodes) {
+            this.forEachBlock(nodes.length, (witness, index) -> {
+                final int node = nodes[index];
+                final Shortcuts shortcuts = this.findShortcuts(node, witness);
+                int removed = 0;
+                for (int i = 0; i < this.outSizes[node]; i++)
+                    if (!this.contracted[this.outTargets[node][i]])
+                        removed++;
+                for (int i = 0; i < this.inSizes[node]; i++)
+                    if (!this.contracted[this.inSources[node][i]])
+                        removed++;
+                this.priorities[node] = shortcuts.size - removed
+                        + this.deletedNeighbors[node];
+            });
+        }
+
+        /**
+         * @return the remaining nodes that come before each of their remaining
+         * neighbours when ordered by priority then id
+         */
+        private int[] selectIndependent(final int[] remaining) {
+            final boolean[] chosen = new boolean[remaining.length];
+            this.forEachBlock(remaining.length, (witness, index) -> {
+                final int node = remaining[index];
+                chosen[index] = this.isLocalMinimum(node);
+            });
+            int count = 0;
+            for (final boolean isChosen : chosen)
+                if (isChosen)
+                    count++;
+            final int[] selected = new int[count];
+            count = 0;
+            for (int index = 0; index < remaining.length; index++)
+                if (chosen[index])
+                    selected[count++] = remaining[index];
+            return selected;
+        }
+
+        private boolean isLocalMinimum(final int node) {
+            for (int i = 0; i < this.outSizes[node]; i++)
+                if (this.precedes(this.outTargets[node][i], node))
+                    return false;
+            for (int i = 0; i < this.inSizes[node]; i++)
+                if (this.precedes(this.inSources[node][i], node))
+                    return false;
+            return true;
+        }
+
+        private boolean precedes(final int other, final int node) {
+            if (this.contracted[other] || (other == node))
+                return false;
+            return (this.priorities[other] < this.priorities[node])
+                    || ((this.priorities[other] == this.priorities[node]) && (other < node));
+        }
+
+        /**
+         * The shortcuts needed to contract a node: one for each pair of
+         * neighbours u, w whose path through the node is shorter than any
+         * witness path avoiding it and the other nodes of the round.
+         */
+        private Shortcuts findShortcuts(final int node, final Witness witness) {
+            final Shortcuts shortcuts = new Shortcuts();
+            for (int i = 0; i < this.inSizes[node]; i++) {
+                final int u = this.inSources[node][i];
+                if (this.isGone(u, node))
+                    continue;
+                final double toNode = this.inWeights[node][i];
+                double limit = -1.0;
+                for (int j = 0; j < this.outSizes[node]; j++) {
+                    final int w = this.outTargets[node][j];
+                    if ((w != u) && !this.isGone(w, node))
+                        limit = Math.max(limit, toNode
+                                + this.outWeights[node][j]);
+                }
+                if (limit < 0.0)
+                    continue;
+                witness.search(u, node, limit);
+                for (int j = 0; j < this.outSizes[node]; j++) {
+                    final int w = this.outTargets[node][j];
+                    if ((w == u) || this.isGone(w, node))
+                        continue;
+                    final double through = toNode + this.outWeights[node][j];
+                    if (witness.distance(w) > through)
+                        shortcuts.add(u, w, through);
+                }
+            }
+            return shortcuts;
+        }
+
+        private boolean isGone(final int neighbor, final int node) {
+            return this.contracted[neighbor] || (neighbor == node)
+                    || (this.inRound[neighbor] && this.inRound[node]);
+        }
+
+        private void addArc(final int u, final int w, final double weight,
+                            final int middle, final int edge) {
+            for (int i = 0; i < this.outSizes[u]; i++) {
+                if (this.outTargets[u][i] == w) {
+                    if (weight < this.outWeights[u][i]) {
+                        this.outWeights[u][i] = weight;
+                        this.outMiddles[u][i] = middle;
+                        this.outEdges[u][i] = edge;
+                        for (int j = 0; j < this.inSizes[w]; j++)
+                            if (this.inSources[w][j] == u)
+                                this.inWeights[w][j] = weight;
+                    }
+                    return;
+                }
+            }
+            if (this.outSizes[u] == this.outTargets[u].length) {
+                final int capacity = this.outSizes[u] * 2;
+                this.outTargets[u] = Arrays.copyOf(this.outTargets[u], capacity);
+                this.outWeights[u] = Arrays.copyOf(this.outWeights[u], capacity);
+                this.outMiddles[u] = Arrays.copyOf(this.outMiddles[u], capacity);
+                this.outEdges[u] = Arrays.copyOf(this.outEdges[u], capacity);
+            }
+            final int out = this.outSizes[u]++;
+            this.outTargets[u][out] = w;
+            this.outWeights[u][out] = weight;
+            this.outMiddles[u][out] = middle;
+            this.outEdges[u][out] = edge;
+            if (this.inSizes[w] == this.inSources[w].length) {
+                final int capacity = this.inSizes[w] * 2;
+                this.inSources[w] = Arrays.copyOf(this.inSources[w], capacity);
+                this.inWeights[w] = Arrays.copyOf(this.inWeights[w], capacity);
+            }
+            final int in = this.inSizes[w]++;
+            this.inSources[w][in] = u;
+            this.inWeights[w][in] = weight;
+        }
+
+        /**
+         * Runs a task for each index in [0, count), split into one contiguous
+         * block per thread; each block has its own witness search.
+         */
+        private void forEachBlock(final int count, final BlockTask task) {
+            final int blocks = Math.max(1, Math.min(this.threads, count));
+            final IntStream stream = IntStream.range(0, blocks);
+            (blocks > 1 ? stream.parallel() : stream).forEach(block -> {
+                if (this.witnesses[block] == null)
+                    this.witnesses[block] = new Witness(this);
+                final int start = (int) ((long) count * block / blocks);
+                final int end = (int) ((long) count * (block + 1) / blocks);
+                for (int index = start; index < end; index++)
+                    task.run(this.witnesses[block], index);
+            });
+        }
+    }
+
+    private interface BlockTask {
+        void run(Witness witness, int index);
+    }
+
+    /**
+     * Shortcuts found for one node.
+     */
+    private static final class Shortcuts {
+        private int[] sources = new int[4];
+        private int[] targets = new int[4];
+        private double[] weights = new double[4];
+        private int size;
+
+        private void add(final int source, final int target,
+                         final double weight) {
+            if (this.size == this.sources.length) {
+                this.sources = Arrays.copyOf(this.sources, this.size * 2);
+                this.targets = Arrays.copyOf(this.targets, this.size * 2);
+                this.weights = Arrays.copyOf(this.weights, this.size * 2);
+            }
+            this.sources[this.size] = source;
+            this.targets[this.size] = target;
+            this.weights[this.size++] = weight;
+        }
+    }
+
+    /**
+     * A bounded Dijkstra search over the uncontracted graph, with stamped
+     * scratch arrays so it can be rerun cheaply.
+     */
+    private static final class Witness {
+        private final Builder builder;
+        private final double[] distances;
+        private final int[] stamps;
+        private final IndexedHeap open;
+        private int search;
+
+        private Witness(final Builder builder) {
+            this.builder = builder;
+            this.distances = new double[builder.nodeCount];
+            this.stamps = new int[builder.nodeCount];
+            this.open = new IndexedHeap(builder.nodeCount);
+        }
+
+        private void search(final int source, final int avoid,
+                            final double limit) {
+            if (this.search == Integer.MAX_VALUE) {
+                Arrays.fill(this.stamps, 0);
+                this.search = 0;
+            }
+            this.search++;
+            this.open.clear();
+            this.distances[source] = 0.0;
+            this.stamps[source] = this.search;
+            this.open.add(source, 0.0);
+            int settled = 0;
+            while (!this.open.isEmpty() && (settled < WITNESS_SETTLE_LIMIT)) {
+                if (this.open.peekKey() > limit)
+                    break;
+                final int node = this.open.poll();
+                settled++;
+                for (int i = 0; i < this.builder.outSizes[node]; i++) {
+                    final int next = this.builder.outTargets[node][i];
+                    if ((next == avoid) || this.builder.contracted[next]
+                            || this.builder.inRound[next])
+                        continue;
+                    final double distance = this.distances[node]
+                            + this.builder.outWeights[node][i];
+                    if ((this.stamps[next] != this.search)
+                            || (distance < this.distances[next])) {
+                        this.stamps[next] = this.search;
+                        this.distances[next] = distance;
+                        this.open.addOrDecrease(next, distance);
+                    }
+                }
+            }
+        }
+
+        private double distance(final int node) {
+            return (this.stamps[node] == this.search ? this.distances[node]
+                    : Double.POSITIVE_INFINITY);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.search.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import syncleus.dann.graph.BidirectedEdge;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+import syncleus.dann.graph.path.PathFinder;
+
+/**
+ * Answers point to point queries on a static graph from a precomputed
+ * {@link ContractionHierarchy}. A query is a bidirectional Dijkstra search in
+ * which both directions only climb to higher ranked nodes, so it settles a
+ * tiny part of the graph; shortcuts on the best path are then expanded back
+ * into graph edges. Each thread gets its own reusable search state, so one
+ * finder can serve concurrent queries.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
+public class ContractionHierarchyPathFinder<N, E extends BidirectedEdge<N>>
+        implements PathFinder<N, E> {
+    /**
+     * Search state of one thread, reused between queries.
+     */
+    private static final class Query {
+        private final double[] forwardDistances;
+        private final double[] backwardDistances;
+        private final int[] forwardArcs;
+        private final int[] backwardArcs;
+        private final int[] forwardParents;
+        private final int[] backwardParents;
+        private final int[] forwardReached;
+        private final int[] backwardReached;
+        private final IndexedHeap forwardOpen;
+        private final IndexedHeap backwardOpen;
+        private int stamp;
+
+        private Query(final int nodeCount) {
+            this.forwardDistances = new double[nodeCount];
+            this.backwardDistances = new double[nodeCount];
+            this.forwardArcs = new int[nodeCount];
+            this.backwardArcs = new int[nodeCount];
+            this.forwardParents = new int[nodeCount];
+            this.backwardParents = new int[nodeCount];
+            this.forwardReached = new int[nodeCount];
+            this.backwardReached = new int[nodeCount];
+            this.forwardOpen = new IndexedHeap(nodeCount);
+            this.backwardOpen = new IndexedHeap(nodeCount);
+        }
+    }
+
+    private final CompressedBidirectedGraph<N, E> graph;
+    private final ContractionHierarchy hierarchy;
+    private final ThreadLocal<Query> queries;
+
+    /**
+     * Builds the hierarchy of a graph, in parallel, and creates a finder for
+     * it.
+     *
+     * @param graph the graph
+     */
+    public ContractionHierarchyPathFinder(
+            final CompressedBidirectedGraph<N, E> graph) {
+        this(graph, new ContractionHierarchy(graph));
+    }
+
+    /**
+     * Creates a finder from a hierarchy built earlier, for example one that
+     * was serialized, for the same graph.
+     *
+     * @param graph the graph
+     * @param hierarchy the hierarchy of the graph
+     */
+    public ContractionHierarchyPathFinder(
+            final CompressedBidirectedGraph<N, E> graph,
+            final ContractionHierarchy hierarchy) {
+        if (graph == null)
+            throw new IllegalArgumentException("graph can not be null");
+        if (hierarchy == null)
+            throw new IllegalArgumentException("hierarchy can not be null");
+        if (hierarchy.getNodeCount() != graph.getNodeCount())
+            throw new IllegalArgumentException(
+                    "hierarchy was built for a different graph");
+        this.graph = graph;
+        this.hierarchy = hierarchy;
+        this.queries = ThreadLocal.withInitial(() -> new Query(graph
+                .getNodeCount()));
+    }
+
+    public ContractionHierarchy getHierarchy() {
+        return this.hierarchy;
+    }
+
+    @Override
+    public List<E> getBestPath(final N begin, final N end) {
+        final int[] edgeIds = this.getBestPathEdgeIds(this.requireId(begin),
+                this.requireId(end));
+        if (edgeIds == null)
+            return null;
+        final List<E> path = new ArrayList<>(edgeIds.length);
+        for (final int edge : edgeIds)
+            path.add(this.graph.getEdge(edge));
+        return path;
+    }
+
+    @Override
+    public boolean isReachable(final N begin, final N end) {
+        return !Double.isInfinite(this.getPathWeight(this.requireId(begin),
+                this.requireId(end)));
+    }
+
+    @Override
+    public boolean isConnected(final N begin, final N end) {
+        return this.isReachable(begin, end);
+    }
+
+    /**
+     * @param begin the id of the first node
+     * @param end the id of the last node
+     * @return the weight of the best path, or positive infinity if end can not
+     * be reached
+     */
+    public double getPathWeight(final int begin, final int end) {
+        final Query query = this.queries.get();
+        final int meeting = this.search(query, begin, end);
+        if (meeting < 0)
+            return Double.POSITIVE_INFINITY;
+        return query.forwardDistances[meeting]
+                + query.backwardDistances[meeting];
+    }
+
+    /**
+     * @param begin the id of the first node
+     * @param end the id of the last node
+     * @return the ids of the graph edges along the best path, or null if end
+     * can not be reached
+     */
+    public int[] getBestPathEdgeIds(final int begin, final int end) {
+        final Query query = this.queries.get();
+        final int meeting = this.search(query, begin, end);
+        if (meeting < 0)
+            return null;
+
+        int arcCount = 0;
+        for (int node = meeting; query.forwardParents[node] >= 0; node = query.forwardParents[node])
+            arcCount++;
+        final int[] upNodes = new int[arcCount];
+        final int[] upArcs = new int[arcCount];
+        for (int node = meeting; query.forwardParents[node] >= 0; node = query.forwardParents[node]) {
+            arcCount--;
+            upNodes[arcCount] = query.forwardParents[node];
+            upArcs[arcCount] = query.forwardArcs[node];
+        }
+        final ContractionHierarchy.EdgeIdBuffer edgeIds = new ContractionHierarchy.EdgeIdBuffer();
+        for (int i = 0; i < upArcs.length; i++)
+            this.hierarchy.unpackUp(upNodes[i], upArcs[i], edgeIds);
+        for (int node = meeting; query.backwardParents[node] >= 0; node = query.backwardParents[node])
+            this.hierarchy.unpackDown(query.backwardParents[node],
+                    query.backwardArcs[node], edgeIds);
+        return edgeIds.toArray();
+    }
+
+    private int requireId(final N node) {
+        if (node == null)
+            throw new IllegalArgumentException("node can not be null");
+        final int id = this.graph.getId(node);
+        if (id < 0)
+            throw new IllegalArgumentException("node is not in the graph");
+        return id;
+    }
+
+    /**
+     * @return the node where the two searches meet on the best path, or -1
+     */
+    private int search(final Query query, final int begin, final int end) {
+        if (begin == end)
+            throw new IllegalArgumentException("begin can not be equal to end");
+        if (query.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(query.forwardReached, 0);
+            Arrays.fill(query.backwardReached, 0);
+            query.stamp = 0;
+        }
+        final int stamp = ++query.stamp;
+        final IndexedHeap forward = query.forwardOpen;
+        final IndexedHeap backward = query.backwardOpen;
+        forward.clear();
+        backward.clear();
+        reach(query.forwardDistances, query.forwardParents, query.forwardArcs,
+                query.forwardReached, forward, stamp, begin, -1, -1, 0.0);
+        reach(query.backwardDistances, query.backwardParents,
+                query.backwardArcs, query.backwardReached, backward, stamp, end,
+                -1, -1, 0.0);
+
+        final int[] upOffsets = this.hierarchy.getUpOffsets();
+        final int[] upTargets = this.hierarchy.getUpTargets();
+        final double[] upWeights = this.hierarchy.getUpWeights();
+        final int[] downOffsets = this.hierarchy.getDownOffsets();
+        final int[] downSources = this.hierarchy.getDownSources();
+        final double[] downWeights = this.hierarchy.getDownWeights();
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        while (true) {
+            if (!forward.isEmpty() && (forward.peekKey() >= best))
+                forward.clear();
+            if (!backward.isEmpty() && (backward.peekKey() >= best))
+                backward.clear();
+            if (forward.isEmpty() && backward.isEmpty())
+                break;
+
+            final boolean isForward = !forward.isEmpty()
+                    && (backward.isEmpty() || (forward.peekKey() <= backward
+                    .peekKey()));
+            if (isForward) {
+                final int node = forward.poll();
+                final double distance = query.forwardDistances[node];
+                if ((query.backwardReached[node] == stamp)
+                        && (distance + query.backwardDistances[node] < best)) {
+                    best = distance + query.backwardDistances[node];
+                    meeting = node;
+                }
+                for (int arc = upOffsets[node]; arc < upOffsets[node + 1]; arc++)
+                    reach(query.forwardDistances, query.forwardParents,
+                            query.forwardArcs, query.forwardReached, forward,
+                            stamp, upTargets[arc], node, arc, distance
+                                    + upWeights[arc]);
+            } else {
+                final int node = backward.poll();
+                final double distance = query.backwardDistances[node];
+                if ((query.forwardReached[node] == stamp)
+                        && (distance + query.forwardDistances[node] < best)) {
+                    best = distance + query.forwardDistances[node];
+                    meeting = node;
+                }
+                for (int arc = downOffsets[node]; arc < downOffsets[node + 1]; arc++)
+                    reach(query.backwardDistances, query.backwardParents,
+                            query.backwardArcs, query.backwardReached, backward,
+                            stamp, downSources[arc], node, arc, distance
+                                    + downWeights[arc]);
+            }
+        }
+        return meeting;
+    }
+
+    private static void reach(final double[] distances, final int[] parents,
+                              final int[] arcs, final int[] reached, final IndexedHeap open,
+                              final int stamp, final int node, final int parent, final int arc,
+                              final double distance) {
+        if ((reached[node] == stamp) && (distance >= distances[node]))
+            return;
+        if ((reached[node] == stamp) && !open.contains(node))
+            return;
+        reached[node] = stamp;
+        distances[node] = distance;
+        parents[node] = parent;
+        arcs[node] = arc;
+        open.addOrDecrease(node, distance);
+    }
+}
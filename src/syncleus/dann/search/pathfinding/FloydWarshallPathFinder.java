@@ -19,6 +19,7 @@
 package syncleus.dann.search.pathfinding;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,114 +29,122 @@ import syncleus.dann.graph.Weighted;
 import syncleus.dann.graph.WeightedEdge;
 import syncleus.dann.graph.path.PathFinder;
 
+/**
+ * Answers path queries from an {@link AllPairsShortestPaths} computed once
+ * when the finder is created. The step weight is the weight of the edge, 1
+ * for unweighted edges, plus the weight of the node stepped onto when it is
+ * weighted.
+ *
+ * @param <N> The node type
+ * @param <E> The edge type
+ */
 public class FloydWarshallPathFinder<N, E extends Edge<N>> implements
         PathFinder<N, E> {
-    private final Graph<N, E> graph;
-    private final Map<N, Map<N, Double>> walkWeight;
-    private final Map<N, Map<N, N>> nextNode;
+    private final Map<N, Integer> ids;
+    private final Object[] arcEdges;
+    private final AllPairsShortestPaths paths;
 
     public FloydWarshallPathFinder(final Graph<N, E> graph) {
-        this.graph = graph;
+        this(graph, AllPairsShortestPaths.Strategy.FLOYD_WARSHALL, 0);
+    }
+
+    /**
+     * @param graph the graph to search
+     * @param strategy the all pairs algorithm to use
+     * @param threadCount the number of threads, 0 for one per processor
+     */
+    public FloydWarshallPathFinder(final Graph<N, E> graph,
+                                   final AllPairsShortestPaths.Strategy strategy, final int threadCount) {
+        if (graph == null)
+            throw new IllegalArgumentException("graph can not be null");
+
+        final List<N> nodes = new ArrayList<>(graph.getNodes());
+        this.ids = new HashMap<>(nodes.size() * 2);
+        for (int id = 0; id < nodes.size(); id++)
+            this.ids.put(nodes.get(id), id);
 
-        // initialize
-        this.walkWeight = new HashMap<>(this.graph.getNodes()
-                .size());
-        this.nextNode = new HashMap<>(this.graph.getNodes().size());
-        this.graph.getNodes().stream().forEach((nodeX) -> {
-            final Map<N, Double> weightMapX = new HashMap<>(this.graph
-                    .getNodes().size());
-            this.walkWeight.put(nodeX, weightMapX);
-            final Map<N, N> nodeMapX = new HashMap<>(this.graph.getNodes()
-                    .size());
-            this.nextNode.put(nodeX, nodeMapX);
-            this.graph.getNodes().stream().map((nodeY) -> {
-                double initialWeight = Double.POSITIVE_INFINITY;
-                if (nodeX.equals(nodeY)) {
-                    initialWeight = 0.0;
-                } else if (this.graph.getTraversableNodes(nodeX).contains(nodeY)) {
-                    E connectedEdge = null;
-                    for (final E edge : this.graph.getTraversableEdges(nodeX))
-                        if (edge.getNodes().contains(nodeY))
-                            connectedEdge = edge;
-                    assert connectedEdge != null;
-                    initialWeight = (connectedEdge instanceof WeightedEdge ? ((Weighted) connectedEdge).getWeight() : 1.0);
-                    if (nodeY instanceof Weighted)
-                        initialWeight += ((Weighted) nodeY).getWeight();
+        final int[] offsets = new int[nodes.size() + 1];
+        int[] targets = new int[nodes.size()];
+        double[] weights = new double[nodes.size()];
+        Object[] edges = new Object[nodes.size()];
+        int arcCount = 0;
+        for (int from = 0; from < nodes.size(); from++) {
+            final N fromNode = nodes.get(from);
+            for (final E edge : graph.getTraversableEdges(fromNode)) {
+                final double edgeWeight = (edge instanceof WeightedEdge ? ((Weighted) edge)
+                        .getWeight() : 1.0);
+                for (final N toNode : edge.getTraversableNodes(fromNode)) {
+                    final Integer to = this.ids.get(toNode);
+                    if (to == null)
+                        continue;
+                    if (arcCount == targets.length) {
+                        final int capacity = Math.max(4, arcCount * 2);
+                        targets = Arrays.copyOf(targets, capacity);
+                        weights = Arrays.copyOf(weights, capacity);
+                        edges = Arrays.copyOf(edges, capacity);
+                    }
+                    targets[arcCount] = to;
+                    weights[arcCount] = edgeWeight
+                            + (toNode instanceof Weighted ? ((Weighted) toNode)
+                            .getWeight() : 0.0);
+                    edges[arcCount] = edge;
+                    arcCount++;
                 }
-                weightMapX.put(nodeY, initialWeight);
-                return nodeY;
-            }).forEach((nodeY) -> nodeMapX.put(nodeY, null));
-        });
+            }
+            offsets[from + 1] = arcCount;
+        }
+        this.arcEdges = Arrays.copyOf(edges, arcCount);
+        this.paths = new AllPairsShortestPaths(offsets, Arrays.copyOf(
+                targets, arcCount), Arrays.copyOf(weights, arcCount),
+                strategy, threadCount);
+    }
+
+    /**
+     * @return the distances and first steps between every pair of nodes
+     */
+    public AllPairsShortestPaths getAllPairs() {
+        return this.paths;
+    }
 
-        this.calculatePaths();
+    /**
+     * @param node a node of the graph
+     * @return the id of the node in the all pairs matrices, or -1 if it is
+     * not in the graph
+     */
+    public int getId(final N node) {
+        final Integer id = this.ids.get(node);
+        return (id == null ? -1 : id);
     }
 
-    private void calculatePaths() {
-        this.graph.getNodes().stream().forEach((nodeK) -> this.graph.getNodes().stream().forEach((nodeX) -> this.graph.getNodes().stream().filter((nodeY) -> (!Double.isInfinite(this.walkWeight.get(nodeX)
-                .get(nodeK))
-                && !Double.isInfinite(this.walkWeight.get(nodeK)
-                .get(nodeY))
-                && this.walkWeight.get(nodeX).get(nodeK)
-                + this.walkWeight.get(nodeK).get(nodeY) < this.walkWeight
-                .get(nodeX).get(nodeY))).map((nodeY) -> {
-            final double newWeight = this.walkWeight.get(nodeX)
-                    .get(nodeK)
-                    + this.walkWeight.get(nodeK).get(nodeY);
-            this.walkWeight.get(nodeX).put(nodeY, newWeight);
-            return nodeY;
-        }).forEach((nodeY) -> this.nextNode.get(nodeX).put(nodeY, nodeK))));
+    /**
+     * @param begin the node to start from
+     * @param end the node to reach
+     * @return the weight of the best path, infinite if there is none
+     */
+    public double getPathWeight(final N begin, final N end) {
+        final int from = this.getId(begin);
+        final int to = this.getId(end);
+        if ((from < 0) || (to < 0))
+            return Double.POSITIVE_INFINITY;
+        return this.paths.getDistance(from, to);
     }
 
+    @SuppressWarnings("unchecked")
     @Override
     public List<E> getBestPath(final N begin, final N end) {
-        final List<N> nodePath = getIntermediatePath(begin, end);
-        if (nodePath.size() < 2)
+        final int from = this.getId(begin);
+        final int to = this.getId(end);
+        if ((from < 0) || (to < 0))
             return null;
-        final List<E> edgePath = new ArrayList<>(nodePath.size() - 1);
-        for (int nodeIndex = 0; nodeIndex < nodePath.size() - 1; nodeIndex++) {
-            final N fromNode = nodePath.get(nodeIndex);
-            final N toNode = nodePath.get(nodeIndex + 1);
-            E stepEdge = null;
-            double stepEdgeWeight = Double.MAX_VALUE;
-            for (final E edge : this.graph.getTraversableEdges(fromNode)) {
-                if (edge.getNodes().contains(toNode)) {
-                    if (stepEdge == null)
-                        stepEdge = edge;
-                    else if (edge instanceof WeightedEdge) {
-                        if (((Weighted) edge).getWeight() < stepEdgeWeight) {
-                            stepEdge = edge;
-                            stepEdgeWeight = ((Weighted) edge).getWeight();
-                        }
-                    } else
-                        stepEdge = edge;
-                }
-            }
-
-            assert stepEdge != null;
-            edgePath.add(stepEdge);
-
-            if (stepEdge instanceof WeightedEdge)
-                ((Weighted) stepEdge).getWeight();
-            if (toNode instanceof Weighted)
-                ((Weighted) toNode).getWeight();
-        }
-
+        final int[] arcs = this.paths.getPathArcs(from, to);
+        if (arcs == null)
+            return null;
+        final List<E> edgePath = new ArrayList<>(arcs.length);
+        for (final int arc : arcs)
+            edgePath.add((E) this.arcEdges[arc]);
         return edgePath;
     }
 
-    private List<N> getIntermediatePath(final N begin, final N end) {
-        if (this.nextNode.get(begin).get(end) == null)
-            return new ArrayList<>();
-
-        final List<N> nodePath = new ArrayList<>();
-        nodePath.addAll(getIntermediatePath(begin, this.nextNode.get(begin)
-                .get(end)));
-        nodePath.add(this.nextNode.get(begin).get(end));
-        nodePath.addAll(getIntermediatePath(this.nextNode.get(begin).get(end),
-                end));
-        return nodePath;
-    }
-
     @Override
     public boolean isReachable(final N begin, final N end) {
         return (this.getBestPath(begin, end) != null);
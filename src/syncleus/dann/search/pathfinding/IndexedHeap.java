@@ -0,0 +1,214 @@
+/******************************************************************************
+ *                                                                             *
+ *  Copyright: (c) Syncleus, Inc.                                              *
+ *                                                                             *
+ *  You may redistribute and modify this source code under the terms and       *
+ *  conditions of the Open Source Community License - Type C version 1.0       *
+ *  or any later version as published by Syncleus, Inc. at www.syncleus.com.   *
+ *  There should be a copy of the license included with this file. If a copy   *
+ *  of the license is not included you are granted no right to distribute or   *
+ *  otherwise use this file except through a legal and valid license. You      *
+ *  should also contact Syncleus, Inc. at the information below if you cannot  *
+ *  find a license:                                                            *
+ *                                                                             *
+ *  Syncleus, Inc.                                                             *
+ *  2604 South 12th Street                                                     *
+ *  Philadelphia, PA 19148                                                     *
+ *                                                                             *
+ ******************************************************************************/
+package syncleus.dann.search.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * A d-ary min heap of int items with double keys, indexed by item so that an
+ * item's key can be looked up in constant time and decreased in O(log n).
+ * Items are small non-negative ints, such as node ids; the index grows to fit
+ * the largest item added.
+ */
+public class IndexedHeap {
+    private final int arity;
+    private int[] items;
+    private double[] keys;
+    private int[] positions;
+    private int size;
+
+    /**
+     * Creates a 4-ary heap.
+     *
+     * @param capacity the expected largest item plus one
+     */
+    public IndexedHeap(final int capacity) {
+        this(capacity, 4);
+    }
+
+    /**
+     * Creates a heap.
+     *
+     * @param capacity the expected largest item plus one
+     * @param arity the number of children of each heap entry, at least 2
+     */
+    public IndexedHeap(final int capacity, final int arity) {
+        if (arity < 2)
+            throw new IllegalArgumentException("arity must be at least 2");
+        this.arity = arity;
+        final int initial = Math.max(1, capacity);
+        this.items = new int[initial];
+        this.keys = new double[initial];
+        this.positions = new int[initial];
+        Arrays.fill(this.positions, -1);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean contains(final int item) {
+        return (item < this.positions.length) && (this.positions[item] >= 0);
+    }
+
+    /**
+     * @param item an item in the heap
+     * @return the key of the item
+     */
+    public double getKey(final int item) {
+        return this.keys[this.positions[item]];
+    }
+
+    /**
+     * Adds an item that is not in the heap.
+     *
+     * @param item the item
+     * @param key its key
+     */
+    public void add(final int item, final double key) {
+        if (this.contains(item))
+            throw new IllegalArgumentException("item " + item
+                    + " is already in the heap");
+        if (item >= this.positions.length) {
+            final int oldLength = this.positions.length;
+            this.positions = Arrays.copyOf(this.positions, Math.max(item + 1,
+                    oldLength * 2));
+            Arrays.fill(this.positions, oldLength, this.positions.length, -1);
+        }
+        if (this.size == this.items.length) {
+            this.items = Arrays.copyOf(this.items, this.size * 2);
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+        }
+        this.siftUp(this.size++, item, key);
+    }
+
+    /**
+     * Lowers the key of an item in the heap.
+     *
+     * @param item the item
+     * @param key the new key, no greater than the current one
+     */
+    public void decreaseKey(final int item, final double key) {
+        final int position = this.positions[item];
+        if (key > this.keys[position])
+            throw new IllegalArgumentException("key can not be increased");
+        this.siftUp(position, item, key);
+    }
+
+    /**
+     * Adds an item, or lowers its key if it is already in the heap with a
+     * higher key.
+     *
+     * @param item the item
+     * @param key the key
+     * @return true if the item was added or its key lowered
+     */
+    public boolean addOrDecrease(final int item, final double key) {
+        if (!this.contains(item)) {
+            this.add(item, key);
+            return true;
+        }
+        if (key < this.keys[this.positions[item]]) {
+            this.decreaseKey(item, key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the item with the smallest key
+     */
+    public int peek() {
+        if (this.size == 0)
+            throw new IllegalStateException("heap is empty");
+        return this.items[0];
+    }
+
+    /**
+     * @return the smallest key
+     */
+    public double peekKey() {
+        if (this.size == 0)
+            throw new IllegalStateException("heap is empty");
+        return this.keys[0];
+    }
+
+    /**
+     * Removes the item with the smallest key.
+     *
+     * @return the item
+     */
+    public int poll() {
+        final int top = this.peek();
+        this.positions[top] = -1;
+        this.size--;
+        if (this.size > 0)
+            this.siftDown(0, this.items[this.size], this.keys[this.size]);
+        return top;
+    }
+
+    /**
+     * Removes every item, in time proportional to the number of items in the
+     * heap rather than its capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++)
+            this.positions[this.items[i]] = -1;
+        this.size = 0;
+    }
+
+    private void siftUp(int position, final int item, final double key) {
+        while (position > 0) {
+            final int parent = (position - 1) / this.arity;
+            if (this.keys[parent] <= key)
+                break;
+            this.place(position, this.items[parent], this.keys[parent]);
+            position = parent;
+        }
+        this.place(position, item, key);
+    }
+
+    private void siftDown(int position, final int item, final double key) {
+        while (true) {
+            final int first = position * this.arity + 1;
+            if (first >= this.size)
+                break;
+            final int last = Math.min(first + this.arity, this.size);
+            int best = first;
+            for (int child = first + 1; child < last; child++)
+                if (this.keys[child] < this.keys[best])
+                    best = child;
+            if (this.keys[best] >= key)
+                break;
+            this.place(position, this.items[best], this.keys[best]);
+            position = best;
+        }
+        this.place(position, item, key);
+    }
+
+    private void place(final int position, final int item, final double key) {
+        this.items[position] = item;
+        this.keys[position] = key;
+        this.positions[item] = position;
+    }
+}
@@ -0,0 +1,313 @@
+package syncleus.dann.search.uninformed;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import syncleus.dann.plan.agent.Action;
+import syncleus.dann.search.framework.Metrics;
+import syncleus.dann.search.framework.Node;
+import syncleus.dann.search.framework.NodeExpander;
+import syncleus.dann.search.framework.Problem;
+import syncleus.dann.search.framework.QueueSearch;
+import syncleus.dann.search.framework.Search;
+import syncleus.dann.search.framework.SearchUtils;
+import syncleus.dann.search.framework.StateCodec;
+import syncleus.dann.search.framework.StateTable;
+import syncleus.dann.util.CancelableThread;
+
+/**
+ * A level-synchronous parallel version of breadth-first graph search (see
+ * {@link BreadthFirstSearch}). The frontier is expanded one level at a time:
+ * <ol>
+ * <li>the nodes of the level are split in chunks, which are expanded by
+ * several threads, each child going to the shard of its state hash;</li>
+ * <li>each shard of the explored set is then updated by one thread, which
+ * keeps the children whose state was not seen before, and applies the goal
+ * test to them;</li>
+ * <li>the children kept, in the order they were generated, form the next
+ * level.</li>
+ * </ol>
+ * A child is kept if it is the first child of its state in generation order,
+ * so the solution found is the one of breadth-first search with a
+ * {@link syncleus.dann.search.framework.GraphSearch}. Since a whole level is
+ * expanded before its children are tested, the number of nodes expanded can be
+ * larger. The actions, result, step cost and goal test functions of the problem
+ * are called by several threads at once, and must allow it.<br>
+ * <br>
+ * The metrics are those of {@link QueueSearch}, the queue size being the size
+ * of the level being expanded.
+ */
+public class ParallelBreadthFirstSearch extends NodeExpander implements Search {
+
+	// the number of threads
+	private final int threadCount;
+	// the codec of the states kept in the explored set, or null
+	private StateCodec stateCodec = null;
+
+	/**
+	 * Constructs a search using one thread by processor.
+	 */
+	public ParallelBreadthFirstSearch() {
+		this(0);
+	}
+
+	/**
+	 * Constructs a search using the specified number of threads.
+	 *
+	 * @param threadCount
+	 *            the number of threads, or 0 for one thread by processor.
+	 */
+	public ParallelBreadthFirstSearch(int threadCount) {
+		this.threadCount = Math.max(1, threadCount > 0 ? threadCount : Runtime
+				.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Keeps the states of the explored set as codes (see {@link StateTable}),
+	 * or as objects if null.
+	 *
+	 * @param stateCodec
+	 *            the codec of the states, or null.
+	 */
+	public void setStateCodec(StateCodec stateCodec) {
+		this.stateCodec = stateCodec;
+	}
+
+	public List<Action> search(Problem p) throws Exception {
+		clearInstrumentation();
+		Node root = new Node(p.getInitialState());
+		if (SearchUtils.isGoalState(p, root)) {
+			return SearchUtils.actionsFromNodes(root.getPathFromRoot());
+		}
+		int shardCount = threadCount == 1 ? 1 : threadCount * 4;
+		List<ExploredShard> explored = new ArrayList<ExploredShard>();
+		for (int i = 0; i < shardCount; i++) {
+			explored.add(new ExploredShard(stateCodec));
+		}
+		explored.get(shard(root.getState(), shardCount)).add(root.getState());
+
+		List<Node> level = Collections.singletonList(root);
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			while (!level.isEmpty() && !CancelableThread.currIsCanceled()) {
+				setQueueSize(level.size());
+				// expand the level, chunk by chunk
+				int chunkCount = Math.min(level.size(), threadCount * 4);
+				List<Chunk> chunks = new ArrayList<Chunk>();
+				for (int c = 0; c < chunkCount; c++) {
+					chunks.add(new Chunk(level, level.size() * c / chunkCount,
+							level.size() * (c + 1) / chunkCount, shardCount));
+				}
+				List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+				for (final Chunk chunk : chunks) {
+					tasks.add(new Callable<Object>() {
+						public Object call() {
+							chunk.expand(p);
+							return null;
+						}
+					});
+				}
+				invokeAll(pool, tasks);
+				metrics.set(METRIC_NODES_EXPANDED, getNodesExpanded()
+						+ level.size());
+
+				// update the explored set, shard by shard
+				final long[] goals = new long[shardCount];
+				tasks.clear();
+				for (int s = 0; s < shardCount; s++) {
+					final int shard = s;
+					tasks.add(new Callable<Object>() {
+						public Object call() {
+							goals[shard] = explored.get(shard).update(chunks,
+									shard, p);
+							return null;
+						}
+					});
+				}
+				invokeAll(pool, tasks);
+
+				// the first goal in generation order is the solution
+				long goal = Long.MAX_VALUE;
+				for (long g : goals) {
+					goal = Math.min(goal, g);
+				}
+				if (goal != Long.MAX_VALUE) {
+					Node node = chunks.get((int) (goal >>> 32)).children
+							.get((int) goal);
+					setPathCost(node.getPathCost());
+					return SearchUtils.actionsFromNodes(node.getPathFromRoot());
+				}
+
+				// the next level
+				List<Node> next = new ArrayList<Node>();
+				for (Chunk chunk : chunks) {
+					for (int i = 0; i < chunk.children.size(); i++) {
+						if (chunk.kept[i]) {
+							next.add(chunk.children.get(i));
+						}
+					}
+				}
+				level = next;
+			}
+		} finally {
+			pool.shutdown();
+			for (ExploredShard shard : explored) {
+				shard.close();
+			}
+		}
+		setQueueSize(level.size());
+		return Collections.emptyList();
+	}
+
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public void clearInstrumentation() {
+		super.clearInstrumentation();
+		metrics.set(QueueSearch.METRIC_QUEUE_SIZE, 0);
+		metrics.set(QueueSearch.METRIC_MAX_QUEUE_SIZE, 0);
+		metrics.set(QueueSearch.METRIC_PATH_COST, 0);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+	private void setQueueSize(int queueSize) {
+		metrics.set(QueueSearch.METRIC_QUEUE_SIZE, queueSize);
+		if (queueSize > metrics.getInt(QueueSearch.METRIC_MAX_QUEUE_SIZE)) {
+			metrics.set(QueueSearch.METRIC_MAX_QUEUE_SIZE, queueSize);
+		}
+	}
+
+	private void setPathCost(double pathCost) {
+		metrics.set(QueueSearch.METRIC_PATH_COST, pathCost);
+	}
+
+	private static int shard(Object state, int shardCount) {
+		int h = state.hashCode() * 0x9E3779B9;
+		return ((h ^ (h >>> 16)) & 0x7FFFFFFF) % shardCount;
+	}
+
+	private static void invokeAll(ForkJoinPool pool,
+			List<Callable<Object>> tasks) throws Exception {
+		for (Future<Object> future : pool.invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * A range of the nodes of a level and their children.
+	 */
+	private class Chunk {
+		private final List<Node> level;
+		private final int from;
+		private final int to;
+		// the children, in generation order
+		private final List<Node> children = new ArrayList<Node>();
+		// the indexes of the children of each shard, in generation order
+		private final IntList[] shards;
+		// the children kept in the next level
+		private boolean[] kept;
+
+		Chunk(List<Node> level, int from, int to, int shardCount) {
+			this.level = level;
+			this.from = from;
+			this.to = to;
+			this.shards = new IntList[shardCount];
+			for (int s = 0; s < shardCount; s++) {
+				shards[s] = new IntList();
+			}
+		}
+
+		void expand(Problem p) {
+			for (int i = from; i < to; i++) {
+				for (Node child : createChildNodes(level.get(i), p)) {
+					shards[shard(child.getState(), shards.length)]
+							.add(children.size());
+					children.add(child);
+				}
+			}
+			kept = new boolean[children.size()];
+		}
+	}
+
+	/**
+	 * The states of a shard of the explored set.
+	 */
+	private static class ExploredShard {
+		private final Set<Object> states;
+		private final StateTable table;
+
+		ExploredShard(StateCodec codec) {
+			this.states = null == codec ? new HashSet<Object>() : null;
+			this.table = null == codec ? null : new StateTable(codec);
+		}
+
+		boolean add(Object state) {
+			if (null == table) {
+				return states.add(state);
+			}
+			int size = table.size();
+			return table.add(state) == size;
+		}
+
+		// keeps the children of the shard that were not explored, and returns
+		// the position of the first goal among them, or Long.MAX_VALUE
+		long update(List<Chunk> chunks, int shard, Problem p) {
+			for (int c = 0; c < chunks.size(); c++) {
+				Chunk chunk = chunks.get(c);
+				IntList indexes = chunk.shards[shard];
+				for (int i = 0; i < indexes.size; i++) {
+					int index = indexes.values[i];
+					Node child = chunk.children.get(index);
+					if (add(child.getState())) {
+						chunk.kept[index] = true;
+						if (SearchUtils.isGoalState(p, child)) {
+							return ((long) c << 32) | index;
+						}
+					}
+				}
+			}
+			return Long.MAX_VALUE;
+		}
+
+		void close() throws IOException {
+			if (null != table) {
+				table.close();
+			}
+		}
+	}
+
+	/**
+	 * A growable list of ints.
+	 */
+	private static class IntList {
+		private int[] values = new int[8];
+		private int size = 0;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size << 1);
+			}
+			values[size++] = value;
+		}
+	}
+}
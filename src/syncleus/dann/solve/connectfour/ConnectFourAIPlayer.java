@@ -5,10 +5,14 @@ import java.util.Collections;
 import java.util.List;
 import syncleus.dann.search.adversarial.Game;
 import syncleus.dann.search.adversarial.IterativeDeepeningAlphaBetaSearch;
+import syncleus.dann.search.adversarial.TranspositionTable;
 
 /**
  * Implements an iterative deepening Minimax search with alpha-beta pruning and
- * a special action ordering optimized for the Connect Four game.
+ * a special action ordering optimized for the Connect Four game. A
+ * transposition table keyed by the Zobrist keys of the states is used. History
+ * and killer move ordering is left off: on Connect Four, it saves fewer nodes
+ * than it costs.
  * 
  * @author Ruediger Lunde
  */
@@ -18,6 +22,13 @@ public class ConnectFourAIPlayer extends
 	public ConnectFourAIPlayer(Game<ConnectFourState, Integer, String> game,
 			int time) {
 		super(game, 0.0, 1.0, time);
+		setTranspositionTable(new TranspositionTable(1 << 18,
+				TranspositionTable.ReplacementPolicy.TWO_TIER));
+	}
+
+	@Override
+	protected long getStateKey(ConnectFourState state) {
+		return state.getZobristKey();
 	}
 
 	@Override
@@ -1,5 +1,7 @@
 package syncleus.dann.solve.connectfour;
 
+import syncleus.dann.search.adversarial.TranspositionTable;
+
 /**
  * A state of the Connect Four game is characterized by a board containing a
  * grid of spaces for disks, the next player to move, and some utility
@@ -26,6 +28,8 @@ public class ConnectFourState implements Cloneable {
 	private double utility;
 	public int winPositions1;
 	public int winPositions2;
+	/** The Zobrist key of the disks on the board. */
+	private long zobristKey;
 
 	public ConnectFourState(int rows, int cols) {
 		utility = -1;
@@ -57,6 +61,14 @@ public class ConnectFourState implements Cloneable {
 		return moveCount;
 	}
 
+	/**
+	 * Returns a key of the disks on the board, updated with each disk dropped
+	 * (see {@link TranspositionTable#zobrist(int)}).
+	 */
+	public long getZobristKey() {
+		return zobristKey;
+	}
+
 	public void dropDisk(int col) {
 		int playerNum = getPlayerToMove();
 		int row = getFreeRow(col);
@@ -75,6 +87,8 @@ public class ConnectFourState implements Cloneable {
 					utility = 0.0;
 			}
 			board[row * cols + col] = (byte) playerNum;
+			zobristKey ^= TranspositionTable.zobrist((row * cols + col) * 2
+					+ playerNum - 1);
 			if (utility == -1)
 				analyzeWinPositions(row, col);
 		}
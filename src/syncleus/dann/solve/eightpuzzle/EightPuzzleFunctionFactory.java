@@ -6,6 +6,7 @@ import java.util.Set;
 import syncleus.dann.plan.agent.Action;
 import syncleus.dann.search.framework.ActionsFunction;
 import syncleus.dann.search.framework.ResultFunction;
+import syncleus.dann.search.framework.StateCodec;
 
 /**
  * @author Ravi Mohan
@@ -14,6 +15,7 @@ import syncleus.dann.search.framework.ResultFunction;
 public class EightPuzzleFunctionFactory {
 	private static ActionsFunction _actionsFunction = null;
 	private static ResultFunction _resultFunction = null;
+	private static StateCodec _stateCodec = null;
 
 	public static ActionsFunction getActionsFunction() {
 		if (null == _actionsFunction) {
@@ -29,6 +31,16 @@ public class EightPuzzleFunctionFactory {
 		return _resultFunction;
 	}
 
+	/**
+	 * Returns a codec packing a board into a single long, four bits by tile.
+	 */
+	public static StateCodec getStateCodec() {
+		if (null == _stateCodec) {
+			_stateCodec = new EPStateCodec();
+		}
+		return _stateCodec;
+	}
+
 	private static class EPActionsFunction implements ActionsFunction {
 		public Set<Action> actions(Object state) {
 			EightPuzzleBoard board = (EightPuzzleBoard) state;
@@ -83,4 +95,27 @@ public class EightPuzzleFunctionFactory {
 			return s;
 		}
 	}
+
+	private static class EPStateCodec implements StateCodec {
+		public int getWordCount() {
+			return 1;
+		}
+
+		public void encode(Object state, long[] code, int offset) {
+			int[] tiles = ((EightPuzzleBoard) state).getState();
+			long packed = 0;
+			for (int i = 0; i < tiles.length; i++) {
+				packed |= (long) tiles[i] << (4 * i);
+			}
+			code[offset] = packed;
+		}
+
+		public Object decode(long[] code, int offset) {
+			int[] tiles = new int[9];
+			for (int i = 0; i < tiles.length; i++) {
+				tiles[i] = (int) (code[offset] >>> (4 * i)) & 0xF;
+			}
+			return new EightPuzzleBoard(tiles);
+		}
+	}
 }
\ No newline at end of file
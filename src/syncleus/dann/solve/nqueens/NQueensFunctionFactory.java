@@ -4,9 +4,10 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 import syncleus.dann.plan.agent.Action;
-import aima.search.framework.ActionsFunction;
-import aima.search.framework.ResultFunction;
-import aima.util.datastructure.XYLocation;
+import syncleus.dann.search.framework.ActionsFunction;
+import syncleus.dann.search.framework.ResultFunction;
+import syncleus.dann.search.framework.StateCodec;
+import syncleus.dann.util.datastruct.XYLocation;
 
 /**
  * Provides useful functions for two versions of the n-queens problem. The
@@ -53,6 +54,14 @@ public class NQueensFunctionFactory {
 		return _resultFunction;
 	}
 
+	/**
+	 * Returns a codec packing a board of the specified size into
+	 * <code>size * size</code> bits, one by square.
+	 */
+	public static StateCodec getStateCodec(int size) {
+		return new NQStateCodec(size);
+	}
+
 	/**
 	 * Assumes that queens are placed column by column, starting with an empty
 	 * board, and provides queen placing actions for all non-attacked positions
@@ -122,4 +131,45 @@ public class NQueensFunctionFactory {
 			return s;
 		}
 	}
+
+	/** Packs the squares of a board, column by column, one bit by square. */
+	private static class NQStateCodec implements StateCodec {
+		private final int size;
+
+		NQStateCodec(int size) {
+			this.size = size;
+		}
+
+		public int getWordCount() {
+			return (size * size + 63) / 64;
+		}
+
+		public void encode(Object state, long[] code, int offset) {
+			NQueensBoard board = (NQueensBoard) state;
+			for (int i = 0; i < getWordCount(); i++) {
+				code[offset + i] = 0L;
+			}
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					if (board.squares[x][y] == 1) {
+						int bit = x * size + y;
+						code[offset + (bit >>> 6)] |= 1L << bit;
+					}
+				}
+			}
+		}
+
+		public Object decode(long[] code, int offset) {
+			NQueensBoard board = new NQueensBoard(size);
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					int bit = x * size + y;
+					if ((code[offset + (bit >>> 6)] & (1L << bit)) != 0) {
+						board.squares[x][y] = 1;
+					}
+				}
+			}
+			return board;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package aima.test.core.unit.environment.connectfour;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import syncleus.dann.solve.connectfour.ConnectFourAIPlayer;
+import syncleus.dann.solve.connectfour.ConnectFourGame;
+import syncleus.dann.solve.connectfour.ConnectFourState;
+
+public class ConnectFourTest {
+
+	private ConnectFourGame game;
+	private ConnectFourState state;
+
+	@Before
+	public void setUp() {
+		game = new ConnectFourGame();
+		state = game.getInitialState();
+	}
+
+	@Test
+	public void testZobristKey() {
+		Assert.assertEquals(0L, state.getZobristKey());
+		// the same position, reached in two orders
+		ConnectFourState s1 = drop(state, 3, 2, 4, 5);
+		ConnectFourState s2 = drop(state, 4, 5, 3, 2);
+		Assert.assertEquals(s1, s2);
+		Assert.assertEquals(s1.getZobristKey(), s2.getZobristKey());
+		// the same disks, of other players
+		ConnectFourState s3 = drop(state, 2, 3, 5, 4);
+		Assert.assertFalse(s1.equals(s3));
+		Assert.assertFalse(s1.getZobristKey() == s3.getZobristKey());
+		Assert.assertFalse(s1.getZobristKey() == state.getZobristKey());
+	}
+
+	@Test
+	public void testTakesWin() {
+		// red has three disks in the bottom row
+		ConnectFourState s = drop(state, 1, 1, 2, 2, 3, 3);
+		ConnectFourAIPlayer player = new ConnectFourAIPlayer(game, 10);
+		player.setMaxDepthLimit(8);
+		int action = player.makeDecision(s);
+		Assert.assertTrue(action == 0 || action == 4);
+	}
+
+	@Test
+	public void testBlocksWin() {
+		// yellow has to block the column of red
+		ConnectFourState s = drop(state, 0, 6, 0, 6, 0);
+		ConnectFourAIPlayer player = new ConnectFourAIPlayer(game, 10);
+		player.setMaxDepthLimit(6);
+		Assert.assertEquals(Integer.valueOf(0), player.makeDecision(s));
+		player.setThreadCount(2);
+		Assert.assertEquals(Integer.valueOf(0), player.makeDecision(s));
+	}
+
+	@Test
+	public void testTranspositionTable() {
+		ConnectFourAIPlayer plain = new ConnectFourAIPlayer(game, 10);
+		plain.setTranspositionTable(null);
+		plain.setMoveOrderingEnabled(false);
+		plain.setMaxDepthLimit(7);
+		ConnectFourAIPlayer player = new ConnectFourAIPlayer(game, 10);
+		player.setMaxDepthLimit(7);
+
+		ConnectFourState s = drop(state, 3, 3, 2);
+		Assert.assertEquals(plain.makeDecision(s), player.makeDecision(s));
+		int plainNodes = plain.getMetrics().getInt("expandedNodes");
+		int nodes = player.getMetrics().getInt("expandedNodes");
+		Assert.assertTrue(nodes < plainNodes);
+		Assert.assertTrue(player.getMetrics().getInt("transpositionHits") > 0);
+		Assert.assertEquals(7, player.getMetrics().getInt("maxDepth"));
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+	private ConnectFourState drop(ConnectFourState s, int... cols) {
+		ConnectFourState result = s.clone();
+		for (int col : cols) {
+			result.dropDisk(col);
+		}
+		return result;
+	}
+}
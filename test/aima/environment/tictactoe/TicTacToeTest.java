@@ -1,5 +1,7 @@
 package aima.test.core.unit.environment.tictactoe;
 
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,6 +11,7 @@ import syncleus.dann.solve.tictactoe.TicTacToeState;
 import syncleus.dann.search.adversarial.AlphaBetaSearch;
 import syncleus.dann.search.adversarial.IterativeDeepeningAlphaBetaSearch;
 import syncleus.dann.search.adversarial.MinimaxSearch;
+import syncleus.dann.search.adversarial.TranspositionTable;
 import syncleus.dann.util.datastruct.XYLocation;
 
 /**
@@ -165,4 +168,83 @@ public class TicTacToeTest {
 		int expandedNodes = search.getMetrics().getInt("expandedNodes");
 		Assert.assertEquals(76035, expandedNodes);
 	}
+
+	@Test
+	public void testIterativeDeepeningAlphaBetaDecisionWithTranspositionTable() {
+		AlphaBetaSearch<TicTacToeState, XYLocation, String> alphaBeta = AlphaBetaSearch
+				.createFor(game);
+		IterativeDeepeningAlphaBetaSearch<TicTacToeState, XYLocation, String> search = IterativeDeepeningAlphaBetaSearch
+				.createFor(game, 0.0, 1.0, 100);
+		// a small table, shared by all the decisions
+		search.setTranspositionTable(new TranspositionTable(1 << 10,
+				TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED));
+		search.setMoveOrderingEnabled(true);
+		search.makeDecision(state);
+		Assert.assertTrue(search.getMetrics().getInt("expandedNodes") < 76035);
+		for (int threadCount = 1; threadCount <= 2; threadCount++) {
+			search.setThreadCount(threadCount);
+			// the decisions of all the states after two moves are optimal
+			for (XYLocation a1 : game.getActions(state)) {
+				TicTacToeState s1 = game.getResult(state, a1);
+				for (XYLocation a2 : game.getActions(s1)) {
+					TicTacToeState s2 = game.getResult(s1, a2);
+					String player = game.getPlayer(s2);
+					double best = Double.NEGATIVE_INFINITY;
+					for (XYLocation a3 : game.getActions(s2)) {
+						best = Math.max(best, alphaBeta.minValue(
+								game.getResult(s2, a3), player,
+								Double.NEGATIVE_INFINITY,
+								Double.POSITIVE_INFINITY));
+					}
+					XYLocation action = search.makeDecision(s2);
+					Assert.assertEquals(best, alphaBeta.minValue(
+							game.getResult(s2, action), player,
+							Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY),
+							epsilon);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTableActionLeftOutByOrderActions() {
+		// the actions searched by the second decision are checked
+		final boolean[] second = new boolean[1];
+		final boolean[] leftOutSearched = new boolean[1];
+		final TicTacToeGame checkedGame = new TicTacToeGame() {
+			@Override
+			public TicTacToeState getResult(TicTacToeState state,
+					XYLocation action) {
+				if (second[0] && action.equals(getActions(state).get(0))
+						&& getActions(state).size() > 1) {
+					leftOutSearched[0] = true;
+				}
+				return super.getResult(state, action);
+			}
+		};
+		IterativeDeepeningAlphaBetaSearch<TicTacToeState, XYLocation, String> search = new IterativeDeepeningAlphaBetaSearch<TicTacToeState, XYLocation, String>(
+				checkedGame, 0.0, 1.0, 100) {
+			// the second decision leaves out the first action of each state
+			@Override
+			public List<XYLocation> orderActions(TicTacToeState state,
+					List<XYLocation> actions, String player, int depth) {
+				if (second[0] && actions.size() > 1) {
+					return actions.subList(1, actions.size());
+				}
+				return actions;
+			}
+		};
+		search.setTranspositionTable(new TranspositionTable(1 << 16,
+				TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED));
+		search.setMoveOrderingEnabled(true);
+		TicTacToeState s = checkedGame.getResult(state, new XYLocation(1, 1));
+		// depth-limited entries, whose actions are proposed by deeper searches
+		search.setMaxDepthLimit(2);
+		search.makeDecision(s);
+		search.setMaxDepthLimit(Integer.MAX_VALUE);
+		second[0] = true;
+		Assert.assertFalse(new XYLocation(0, 0).equals(search.makeDecision(s)));
+		Assert.assertTrue(search.getMetrics().getInt("transpositionHits") > 0);
+		Assert.assertFalse(leftOutSearched[0]);
+	}
 }
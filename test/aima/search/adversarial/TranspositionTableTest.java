@@ -0,0 +1,124 @@
+package aima.test.core.unit.search.adversarial;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.search.adversarial.TranspositionTable;
+import syncleus.dann.search.adversarial.TranspositionTable.ReplacementPolicy;
+
+public class TranspositionTableTest {
+
+	@Test
+	public void testStoreAndProbe() {
+		TranspositionTable table = new TranspositionTable(1000,
+				ReplacementPolicy.TWO_TIER);
+		Assert.assertEquals(512, table.getCapacity());
+		TranspositionTable.Entry entry = new TranspositionTable.Entry();
+		Assert.assertFalse(table.probe(42L, entry));
+
+		table.store(42L, 0.75, 3, TranspositionTable.LOWER_BOUND, 5);
+		Assert.assertTrue(table.probe(42L, entry));
+		Assert.assertEquals(0.75, entry.getValue(), 0.0);
+		Assert.assertEquals(3, entry.getDepth());
+		Assert.assertEquals(TranspositionTable.LOWER_BOUND, entry.getBound());
+		Assert.assertEquals(5, entry.getAction());
+		Assert.assertFalse(table.probe(43L, entry));
+
+		table.store(0L, -1.0, TranspositionTable.RESOLVED,
+				TranspositionTable.EXACT, TranspositionTable.NO_ACTION);
+		Assert.assertTrue(table.probe(0L, entry));
+		Assert.assertEquals(TranspositionTable.RESOLVED, entry.getDepth());
+		Assert.assertEquals(TranspositionTable.NO_ACTION, entry.getAction());
+
+		table.clear();
+		Assert.assertFalse(table.probe(42L, entry));
+		Assert.assertFalse(table.probe(0L, entry));
+	}
+
+	@Test
+	public void testAlwaysReplace() {
+		Assert.assertEquals(512, new TranspositionTable(1000,
+				ReplacementPolicy.ALWAYS_REPLACE).getCapacity());
+		// a single bucket of one entry: all the keys collide
+		TranspositionTable table = new TranspositionTable(1,
+				ReplacementPolicy.ALWAYS_REPLACE);
+		Assert.assertEquals(1, table.getCapacity());
+		TranspositionTable.Entry entry = new TranspositionTable.Entry();
+		table.store(1L, 0.5, 5, TranspositionTable.EXACT, 0);
+		table.store(2L, 0.5, 1, TranspositionTable.EXACT, 0);
+		Assert.assertFalse(table.probe(1L, entry));
+		Assert.assertTrue(table.probe(2L, entry));
+	}
+
+	@Test
+	public void testDepthPreferred() {
+		TranspositionTable table = new TranspositionTable(2,
+				ReplacementPolicy.DEPTH_PREFERRED);
+		TranspositionTable.Entry entry = new TranspositionTable.Entry();
+		table.store(1L, 0.5, 5, TranspositionTable.EXACT, 0);
+		table.store(2L, 0.5, 3, TranspositionTable.EXACT, 0);
+		// shallower than both entries
+		table.store(3L, 0.5, 1, TranspositionTable.EXACT, 0);
+		Assert.assertTrue(table.probe(1L, entry));
+		Assert.assertTrue(table.probe(2L, entry));
+		Assert.assertFalse(table.probe(3L, entry));
+		// the entry of the same position is updated
+		table.store(2L, 0.25, 4, TranspositionTable.EXACT, 0);
+		Assert.assertTrue(table.probe(2L, entry));
+		Assert.assertEquals(0.25, entry.getValue(), 0.0);
+		Assert.assertTrue(table.probe(1L, entry));
+
+		// the entries of a previous search are replaced first
+		table.newGeneration();
+		table.store(3L, 0.5, 1, TranspositionTable.EXACT, 0);
+		Assert.assertTrue(table.probe(3L, entry));
+		Assert.assertTrue(table.probe(1L, entry));
+		Assert.assertFalse(table.probe(2L, entry));
+	}
+
+	@Test
+	public void testTwoTier() {
+		TranspositionTable table = new TranspositionTable(2,
+				ReplacementPolicy.TWO_TIER);
+		TranspositionTable.Entry entry = new TranspositionTable.Entry();
+		table.store(1L, 0.5, 5, TranspositionTable.EXACT, 0);
+		table.store(2L, 0.5, 3, TranspositionTable.EXACT, 0);
+		table.store(3L, 0.5, 1, TranspositionTable.EXACT, 0);
+		// the deep entry stays, the other one is always replaced
+		Assert.assertTrue(table.probe(1L, entry));
+		Assert.assertFalse(table.probe(2L, entry));
+		Assert.assertTrue(table.probe(3L, entry));
+		table.store(4L, 0.5, 7, TranspositionTable.EXACT, 0);
+		Assert.assertFalse(table.probe(1L, entry));
+		Assert.assertTrue(table.probe(3L, entry));
+		Assert.assertTrue(table.probe(4L, entry));
+	}
+
+	@Test
+	public void testDeepResultNotResolved() {
+		TranspositionTable table = new TranspositionTable(16,
+				ReplacementPolicy.TWO_TIER);
+		TranspositionTable.Entry entry = new TranspositionTable.Entry();
+		table.store(1L, 0.5, 300, TranspositionTable.EXACT, 0);
+		Assert.assertTrue(table.probe(1L, entry));
+		Assert.assertEquals(TranspositionTable.RESOLVED - 1, entry.getDepth());
+		table.store(2L, 0.5, TranspositionTable.RESOLVED,
+				TranspositionTable.EXACT, 0);
+		Assert.assertTrue(table.probe(2L, entry));
+		Assert.assertEquals(TranspositionTable.RESOLVED, entry.getDepth());
+	}
+
+	@Test
+	public void testZobrist() {
+		Set<Long> keys = new HashSet<Long>();
+		for (int feature = -10; feature < 1000; feature++) {
+			Assert.assertEquals(TranspositionTable.zobrist(feature),
+					TranspositionTable.zobrist(feature));
+			keys.add(TranspositionTable.zobrist(feature));
+		}
+		Assert.assertEquals(1010, keys.size());
+	}
+}
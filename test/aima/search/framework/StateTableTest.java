@@ -0,0 +1,173 @@
+package aima.test.core.unit.search.framework;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.plan.agent.Action;
+import syncleus.dann.search.framework.GraphSearch;
+import syncleus.dann.search.framework.Node;
+import syncleus.dann.search.framework.Problem;
+import syncleus.dann.search.framework.Search;
+import syncleus.dann.search.framework.SearchAgent;
+import syncleus.dann.search.framework.StateCodec;
+import syncleus.dann.search.framework.StateTable;
+import syncleus.dann.search.informed.AStarSearch;
+import syncleus.dann.search.uninformed.BreadthFirstSearch;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleBoard;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleFunctionFactory;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleGoalTest;
+import syncleus.dann.solve.eightpuzzle.ManhattanHeuristicFunction;
+import syncleus.dann.solve.nqueens.NQueensBoard;
+import syncleus.dann.solve.nqueens.NQueensFunctionFactory;
+import syncleus.dann.solve.nqueens.NQueensGoalTest;
+import syncleus.dann.util.datastruct.XYLocation;
+
+public class StateTableTest {
+
+	@Test
+	public void testEightPuzzleCodec() {
+		StateCodec codec = EightPuzzleFunctionFactory.getStateCodec();
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0,
+				4, 6, 2, 3, 5 });
+		long[] code = new long[codec.getWordCount()];
+		codec.encode(board, code, 0);
+		Assert.assertEquals(board, codec.decode(code, 0));
+	}
+
+	@Test
+	public void testNQueensCodec() {
+		StateCodec codec = NQueensFunctionFactory.getStateCodec(9);
+		Assert.assertEquals(2, codec.getWordCount());
+		NQueensBoard board = new NQueensBoard(9);
+		board.addQueenAt(new XYLocation(0, 3));
+		board.addQueenAt(new XYLocation(8, 8));
+		long[] code = new long[codec.getWordCount()];
+		codec.encode(board, code, 0);
+		NQueensBoard decoded = (NQueensBoard) codec.decode(code, 0);
+		Assert.assertEquals(board.getQueenPositions(),
+				decoded.getQueenPositions());
+	}
+
+	@Test
+	public void testAddAndGetId() {
+		StateTable table = new StateTable(
+				NQueensFunctionFactory.getStateCodec(4));
+		// enough states for the table to grow several times
+		for (int i = 0; i < 5000; i++) {
+			Assert.assertEquals(i, table.add(board(i)));
+		}
+		Assert.assertEquals(5000, table.size());
+		for (int i = 0; i < 5000; i++) {
+			Assert.assertEquals(i, table.add(board(i)));
+			Assert.assertEquals(i, table.getId(board(i)));
+		}
+		Assert.assertEquals(5000, table.size());
+		Assert.assertEquals(-1, table.getId(board(1 << 15)));
+		Assert.assertEquals(board(1234).getQueenPositions(),
+				((NQueensBoard) table.getState(1234)).getQueenPositions());
+
+		table.clear();
+		Assert.assertEquals(0, table.size());
+		Assert.assertEquals(-1, table.getId(board(0)));
+	}
+
+	@Test
+	public void testNodesFromTable() {
+		StateTable table = new StateTable(
+				EightPuzzleFunctionFactory.getStateCodec());
+		EightPuzzleBoard root = new EightPuzzleBoard();
+		EightPuzzleBoard left = new EightPuzzleBoard(root);
+		left.moveGapLeft();
+		int rootId = table.add(root);
+		int leftId = table.add(left);
+		table.setParent(leftId, rootId, EightPuzzleBoard.LEFT, 1.0);
+
+		Node node = table.getNode(leftId);
+		Assert.assertEquals(left, node.getState());
+		Assert.assertEquals(EightPuzzleBoard.LEFT, node.getAction());
+		Assert.assertEquals(1.0, node.getPathCost(), 0.0);
+		Assert.assertFalse(node.isRootNode());
+		Assert.assertEquals(root, node.getParent().getState());
+		Assert.assertTrue(node.getParent().isRootNode());
+		Assert.assertEquals(2, node.getPathFromRoot().size());
+		Assert.assertEquals(leftId, table.getId(node));
+	}
+
+	@Test
+	public void testMappedTable() throws Exception {
+		File file = File.createTempFile("states", ".bin");
+		StateTable table = new StateTable(
+				NQueensFunctionFactory.getStateCodec(4), file);
+		for (int i = 0; i < 5000; i++) {
+			Assert.assertEquals(i, table.add(board(i)));
+			table.setParent(i, i - 1, null, i);
+		}
+		for (int i = 0; i < 5000; i++) {
+			Assert.assertEquals(i, table.getId(board(i)));
+			Assert.assertEquals(i - 1, table.getParentId(i));
+			Assert.assertEquals(i, table.getPathCost(i), 0.0);
+		}
+		table.close();
+		file.delete();
+	}
+
+	@Test
+	public void testAStarSearchWithStateCodec() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0,
+				4, 6, 2, 3, 5 });
+		Problem problem = new Problem(board,
+				EightPuzzleFunctionFactory.getActionsFunction(),
+				EightPuzzleFunctionFactory.getResultFunction(),
+				new EightPuzzleGoalTest());
+		GraphSearch graphSearch = new GraphSearch();
+		graphSearch.setStateCodec(EightPuzzleFunctionFactory.getStateCodec());
+		Search search = new AStarSearch(graphSearch,
+				new ManhattanHeuristicFunction());
+		SearchAgent agent = new SearchAgent(problem, search);
+		// the same figures as without a codec
+		Assert.assertEquals(23, agent.getActions().size());
+		Assert.assertEquals("926",
+				agent.getInstrumentation().getProperty("nodesExpanded"));
+		Assert.assertEquals("534",
+				agent.getInstrumentation().getProperty("queueSize"));
+		Assert.assertEquals("535",
+				agent.getInstrumentation().getProperty("maxQueueSize"));
+	}
+
+	@Test
+	public void testBreadthFirstSearchWithStateCodec() throws Exception {
+		Problem problem = new Problem(new NQueensBoard(8),
+				NQueensFunctionFactory.getIActionsFunction(),
+				NQueensFunctionFactory.getResultFunction(),
+				new NQueensGoalTest());
+		SearchAgent plain = new SearchAgent(problem, new BreadthFirstSearch(
+				new GraphSearch()));
+		GraphSearch graphSearch = new GraphSearch();
+		graphSearch.setStateCodec(NQueensFunctionFactory.getStateCodec(8));
+		SearchAgent coded = new SearchAgent(problem, new BreadthFirstSearch(
+				graphSearch));
+		List<Action> actions = coded.getActions();
+		Assert.assertEquals(8, actions.size());
+		Assert.assertEquals(plain.getActions(), actions);
+		Assert.assertEquals(
+				plain.getInstrumentation().getProperty("nodesExpanded"),
+				coded.getInstrumentation().getProperty("nodesExpanded"));
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+	// a 4x4 board with the queens given by the bits of i
+	private NQueensBoard board(int i) {
+		NQueensBoard board = new NQueensBoard(4);
+		for (int bit = 0; bit < 16; bit++) {
+			if ((i & (1 << bit)) != 0) {
+				board.addQueenAt(new XYLocation(bit / 4, bit % 4));
+			}
+		}
+		return board;
+	}
+}
@@ -0,0 +1,118 @@
+package aima.test.core.unit.search.informed;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.search.framework.DefaultGoalTest;
+import syncleus.dann.search.framework.GraphSearch;
+import syncleus.dann.search.framework.Problem;
+import syncleus.dann.search.framework.QueueSearch;
+import syncleus.dann.search.framework.Search;
+import syncleus.dann.search.framework.SearchAgent;
+import syncleus.dann.search.informed.AStarSearch;
+import syncleus.dann.search.informed.HDAStarSearch;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleBoard;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleFunctionFactory;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleGoalTest;
+import syncleus.dann.solve.eightpuzzle.ManhattanHeuristicFunction;
+import syncleus.dann.solve.map.ExtendableMap;
+import syncleus.dann.solve.map.Map;
+import syncleus.dann.solve.map.MapFunctionFactory;
+import syncleus.dann.solve.map.MapStepCostFunction;
+import syncleus.dann.solve.map.SimplifiedRoadMapOfPartOfRomania;
+import syncleus.dann.solve.map.StraightLineDistanceHeuristicFunction;
+
+public class HDAStarSearchTest {
+
+	@Test
+	public void testEightPuzzle() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0,
+				4, 6, 2, 3, 5 });
+		Problem problem = new Problem(board,
+				EightPuzzleFunctionFactory.getActionsFunction(),
+				EightPuzzleFunctionFactory.getResultFunction(),
+				new EightPuzzleGoalTest());
+		for (int threads = 1; threads <= 4; threads++) {
+			Search search = new HDAStarSearch(new ManhattanHeuristicFunction(),
+					threads);
+			SearchAgent agent = new SearchAgent(problem, search);
+			Assert.assertEquals(23, agent.getActions().size());
+			Assert.assertEquals("23.0",
+					search.getMetrics().get(QueueSearch.METRIC_PATH_COST));
+		}
+	}
+
+	@Test
+	public void testAIMA3eFigure3_24() throws Exception {
+		Map romaniaMap = new SimplifiedRoadMapOfPartOfRomania();
+		Problem problem = new Problem(SimplifiedRoadMapOfPartOfRomania.ARAD,
+				MapFunctionFactory.getActionsFunction(romaniaMap),
+				MapFunctionFactory.getResultFunction(), new DefaultGoalTest(
+						SimplifiedRoadMapOfPartOfRomania.BUCHAREST),
+				new MapStepCostFunction(romaniaMap));
+
+		Search search = new HDAStarSearch(
+				new StraightLineDistanceHeuristicFunction(
+						SimplifiedRoadMapOfPartOfRomania.BUCHAREST, romaniaMap),
+				3);
+		SearchAgent agent = new SearchAgent(problem, search);
+		Assert.assertEquals(
+				"[Action[name==moveTo, location==Sibiu], Action[name==moveTo, location==RimnicuVilcea], Action[name==moveTo, location==Pitesti], Action[name==moveTo, location==Bucharest]]",
+				agent.getActions().toString());
+		Assert.assertEquals("418.0",
+				search.getMetrics().get(QueueSearch.METRIC_PATH_COST));
+	}
+
+	@Test
+	public void testUniformCostFindsCheapestPath() throws Exception {
+		ExtendableMap map = new ExtendableMap();
+		map.addBidirectionalLink("start", "b", 2.5);
+		map.addBidirectionalLink("start", "c", 1.0);
+		map.addBidirectionalLink("b", "d", 2.0);
+		map.addBidirectionalLink("c", "d", 4.0);
+		map.addBidirectionalLink("c", "e", 1.0);
+		map.addBidirectionalLink("d", "goal", 1.0);
+		map.addBidirectionalLink("e", "goal", 5.0);
+		Problem problem = new Problem("start",
+				MapFunctionFactory.getActionsFunction(map),
+				MapFunctionFactory.getResultFunction(), new DefaultGoalTest(
+						"goal"), new MapStepCostFunction(map));
+
+		Search search = new HDAStarSearch();
+		SearchAgent agent = new SearchAgent(problem, search);
+		Assert.assertEquals(
+				"[Action[name==moveTo, location==b], Action[name==moveTo, location==d], Action[name==moveTo, location==goal]]",
+				agent.getActions().toString());
+		Assert.assertEquals("5.5",
+				search.getMetrics().get(QueueSearch.METRIC_PATH_COST));
+	}
+
+	@Test
+	public void testUnsuccessfulSearch() throws Exception {
+		ExtendableMap map = new ExtendableMap();
+		map.addBidirectionalLink("start", "b", 1.0);
+		map.addBidirectionalLink("goal", "c", 1.0);
+		Problem problem = new Problem("start",
+				MapFunctionFactory.getActionsFunction(map),
+				MapFunctionFactory.getResultFunction(), new DefaultGoalTest(
+						"goal"), new MapStepCostFunction(map));
+		SearchAgent agent = new SearchAgent(problem, new HDAStarSearch());
+		Assert.assertEquals(0, agent.getActions().size());
+	}
+
+	@Test
+	public void testSameCostAsAStarSearch() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 8, 6, 7, 2,
+				5, 4, 3, 0, 1 });
+		Problem problem = new Problem(board,
+				EightPuzzleFunctionFactory.getActionsFunction(),
+				EightPuzzleFunctionFactory.getResultFunction(),
+				new EightPuzzleGoalTest());
+		SearchAgent expected = new SearchAgent(problem, new AStarSearch(
+				new GraphSearch(), new ManhattanHeuristicFunction()));
+		SearchAgent agent = new SearchAgent(problem, new HDAStarSearch(
+				new ManhattanHeuristicFunction(), 4));
+		Assert.assertEquals(expected.getActions().size(), agent.getActions()
+				.size());
+	}
+}
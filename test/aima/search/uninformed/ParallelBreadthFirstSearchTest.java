@@ -0,0 +1,71 @@
+package aima.test.core.unit.search.uninformed;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.plan.agent.Action;
+import syncleus.dann.search.framework.GraphSearch;
+import syncleus.dann.search.framework.Problem;
+import syncleus.dann.search.framework.SearchAgent;
+import syncleus.dann.search.uninformed.BreadthFirstSearch;
+import syncleus.dann.search.uninformed.ParallelBreadthFirstSearch;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleBoard;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleFunctionFactory;
+import syncleus.dann.solve.eightpuzzle.EightPuzzleGoalTest;
+import syncleus.dann.solve.nqueens.NQueensBoard;
+import syncleus.dann.solve.nqueens.NQueensFunctionFactory;
+import syncleus.dann.solve.nqueens.NQueensGoalTest;
+
+public class ParallelBreadthFirstSearchTest {
+
+	@Test
+	public void testSameSolutionAsBreadthFirstSearch() throws Exception {
+		Problem problem = new Problem(new NQueensBoard(8),
+				NQueensFunctionFactory.getIActionsFunction(),
+				NQueensFunctionFactory.getResultFunction(),
+				new NQueensGoalTest());
+		List<Action> expected = new SearchAgent(problem,
+				new BreadthFirstSearch(new GraphSearch())).getActions();
+		for (int threads = 1; threads <= 4; threads++) {
+			SearchAgent agent = new SearchAgent(problem,
+					new ParallelBreadthFirstSearch(threads));
+			Assert.assertEquals(expected, agent.getActions());
+			Assert.assertEquals("8.0",
+					agent.getInstrumentation().getProperty("pathCost"));
+		}
+	}
+
+	@Test
+	public void testEightPuzzle() throws Exception {
+		EightPuzzleBoard board = new EightPuzzleBoard(new int[] { 7, 1, 8, 0,
+				4, 6, 2, 3, 5 });
+		Problem problem = new Problem(board,
+				EightPuzzleFunctionFactory.getActionsFunction(),
+				EightPuzzleFunctionFactory.getResultFunction(),
+				new EightPuzzleGoalTest());
+		List<Action> expected = new SearchAgent(problem,
+				new BreadthFirstSearch(new GraphSearch())).getActions();
+		ParallelBreadthFirstSearch search = new ParallelBreadthFirstSearch(3);
+		search.setStateCodec(EightPuzzleFunctionFactory.getStateCodec());
+		SearchAgent agent = new SearchAgent(problem, search);
+		Assert.assertEquals(23, agent.getActions().size());
+		Assert.assertEquals(expected, agent.getActions());
+	}
+
+	@Test
+	public void testUnsuccessfulSearch() throws Exception {
+		Problem problem = new Problem(new NQueensBoard(3),
+				NQueensFunctionFactory.getIActionsFunction(),
+				NQueensFunctionFactory.getResultFunction(),
+				new NQueensGoalTest());
+		SearchAgent agent = new SearchAgent(problem,
+				new ParallelBreadthFirstSearch(2));
+		Assert.assertEquals(0, agent.getActions().size());
+		Assert.assertEquals("6",
+				agent.getInstrumentation().getProperty("nodesExpanded"));
+		Assert.assertEquals("0",
+				agent.getInstrumentation().getProperty("queueSize"));
+	}
+}
@@ -0,0 +1,144 @@
+package syncleus.dann.evolve.species;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.Learning;
+import syncleus.dann.evolve.genome.DoubleArrayGenome;
+import syncleus.dann.evolve.genome.Genome;
+import syncleus.dann.evolve.population.BasicPopulation;
+import syncleus.dann.evolve.train.basic.TrainEA;
+import syncleus.dann.learn.ScoreLearning;
+
+public class TestThresholdSpeciation {
+
+    private static final int GENOME_COUNT = 300;
+    private static final int SEED_SPECIES = 5;
+
+    /**
+     * Genomes are points in the unit square, compared by distance.
+     */
+    private static class DistanceSpeciation extends ThresholdSpeciation {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public double getCompatibilityScore(final Genome genome1,
+                                            final Genome genome2) {
+            final double[] a = ((DoubleArrayGenome) genome1).getData();
+            final double[] b = ((DoubleArrayGenome) genome2).getData();
+            return Math.hypot(a[0] - b[0], a[1] - b[1]);
+        }
+    }
+
+    private static final ScoreLearning SCORE = new ScoreLearning() {
+        @Override
+        public Double apply(final Learning method) {
+            return 0.0;
+        }
+
+        @Override
+        public boolean shouldMinimize() {
+            return true;
+        }
+
+        @Override
+        public boolean requireSingleThreaded() {
+            return false;
+        }
+    };
+
+    /**
+     * Create the genomes, with random locations and scores, and the seed
+     * species. The better genomes replace the leaders as they are assigned.
+     */
+    private static List<Genome> createGenomes(final BasicPopulation pop) {
+        final Random rnd = new Random(42);
+        final List<Genome> genomes = new ArrayList<>();
+        for (int i = 0; i < GENOME_COUNT; i++) {
+            final DoubleArrayGenome genome = new DoubleArrayGenome(2);
+            genome.getData()[0] = rnd.nextDouble();
+            genome.getData()[1] = rnd.nextDouble();
+            genome.setScore(rnd.nextDouble());
+            genome.setAdjustedScore(genome.getScore());
+            genome.setPopulation(pop);
+            genomes.add(genome);
+        }
+        for (int i = 0; i < SEED_SPECIES; i++) {
+            final Species species = new BasicSpecies(pop, genomes.get(i));
+            genomes.get(i).setSpecies(species);
+            pop.getSpecies().add(species);
+        }
+        return genomes;
+    }
+
+    private static DistanceSpeciation createSpeciation(
+            final BasicPopulation pop, final int threads) {
+        final DistanceSpeciation speciation = new DistanceSpeciation();
+        speciation.setMaxNumberOfSpecies(0);
+        speciation.setCompatibilityThreshold(0.3);
+        speciation.setThreadCount(threads);
+        speciation.init(new TrainEA(pop, SCORE));
+        return speciation;
+    }
+
+    /**
+     * @return The index of the species of each genome.
+     */
+    private static List<Integer> speciesIndexes(final BasicPopulation pop,
+                                                final List<Genome> genomes) {
+        final List<Integer> result = new ArrayList<>();
+        for (final Genome genome : genomes) {
+            int index = -1;
+            for (int i = 0; i < pop.getSpecies().size(); i++) {
+                if (pop.getSpecies().get(i).getMembers().contains(genome)) {
+                    index = i;
+                }
+            }
+            result.add(index);
+        }
+        return result;
+    }
+
+    private static List<Integer> speciate(final int threads) {
+        final BasicPopulation pop = new BasicPopulation(GENOME_COUNT, null);
+        final List<Genome> genomes = createGenomes(pop);
+        createSpeciation(pop, threads).performSpeciation(genomes);
+        return speciesIndexes(pop, genomes);
+    }
+
+    /**
+     * Compare each genome in turn with the current leader of every species.
+     */
+    private static List<Integer> speciateSerially() {
+        final BasicPopulation pop = new BasicPopulation(GENOME_COUNT, null);
+        final List<Genome> genomes = createGenomes(pop);
+        final DistanceSpeciation speciation = createSpeciation(pop, 1);
+        for (final Genome genome : genomes.subList(SEED_SPECIES, GENOME_COUNT)) {
+            Species found = null;
+            for (final Species species : pop.getSpecies()) {
+                if (speciation.getCompatibilityScore(genome,
+                        species.getLeader()) <= speciation
+                        .getCompatibilityThreshold()) {
+                    found = species;
+                    break;
+                }
+            }
+            if (found != null) {
+                speciation.addSpeciesMember(found, genome);
+                genome.setSpecies(found);
+            } else {
+                pop.getSpecies().add(new BasicSpecies(pop, genome));
+            }
+        }
+        return speciesIndexes(pop, genomes);
+    }
+
+    @Test
+    public void testMatchesSerialSpeciation() {
+        final List<Integer> expected = speciateSerially();
+        Assert.assertEquals(expected, speciate(1));
+        Assert.assertEquals(expected, speciate(4));
+    }
+}
@@ -0,0 +1,101 @@
+package syncleus.dann.graph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCompressedGraph {
+    private static MutableDirectedAdjacencyGraph<String, ImmutableWeightedDirectedEdge<String>> directedGraph() {
+        final MutableDirectedAdjacencyGraph<String, ImmutableWeightedDirectedEdge<String>> graph = new MutableDirectedAdjacencyGraph<>();
+        for (final String node : new String[]{"a", "b", "c", "d"})
+            graph.add(node);
+        graph.add(new ImmutableWeightedDirectedEdge<>("a", "b", 1.5));
+        graph.add(new ImmutableWeightedDirectedEdge<>("a", "c", 2.5));
+        graph.add(new ImmutableWeightedDirectedEdge<>("b", "c", 3.5));
+        graph.add(new ImmutableWeightedDirectedEdge<>("c", "a", 4.5));
+        return graph;
+    }
+
+    @Test
+    public void testDirectedCopy() {
+        final MutableDirectedAdjacencyGraph<String, ImmutableWeightedDirectedEdge<String>> original = directedGraph();
+        final CompressedDirectedGraph<String, ImmutableWeightedDirectedEdge<String>> graph = new CompressedDirectedGraph<>(
+                original);
+
+        Assert.assertEquals(4, graph.getNodeCount());
+        Assert.assertEquals(4, graph.getEdgeCount());
+        Assert.assertEquals(4, graph.getArcCount());
+        Assert.assertEquals(original.getNodes(), new HashSet<>(graph.getNodes()));
+        Assert.assertEquals(original.getEdges(), new HashSet<>(graph.getEdges()));
+
+        for (final String node : original.getNodes()) {
+            Assert.assertEquals(new HashSet<>(original.getTraversableNodes(node)),
+                    new HashSet<>(graph.getTraversableNodes(node)));
+            Assert.assertEquals(original.getTraversableEdges(node),
+                    graph.getTraversableEdges(node));
+            final Set<ImmutableWeightedDirectedEdge<String>> inEdges = new HashSet<>();
+            for (final ImmutableWeightedDirectedEdge<String> edge : original.getEdges())
+                if (edge.getDestinationNode().equals(node))
+                    inEdges.add(edge);
+            Assert.assertEquals(inEdges, graph.getInEdges(node));
+            Assert.assertEquals(original.getAdjacentEdges(node),
+                    graph.getAdjacentEdges(node));
+        }
+
+        final int a = graph.getId("a");
+        final int[] offsets = graph.getOutOffsets();
+        double outWeight = 0;
+        for (int arc = offsets[a]; arc < offsets[a + 1]; arc++)
+            outWeight += graph.getOutWeights()[arc];
+        Assert.assertEquals(4.0, outWeight, 0.0);
+        Assert.assertEquals(2, graph.getOutDegree(a));
+        Assert.assertEquals(1, graph.getInDegree(a));
+        Assert.assertEquals(0, graph.getOutDegree(graph.getId("d")));
+        Assert.assertEquals(-1, graph.getId("e"));
+    }
+
+    @Test
+    public void testUndirectedArcs() {
+        final MutableAdjacencyGraph<String, ImmutableWeightedUndirectedEdge<String>> original = new MutableAdjacencyGraph<>();
+        for (final String node : new String[]{"a", "b", "c"})
+            original.add(node);
+        original.add(new ImmutableWeightedUndirectedEdge<>("a", "b", 1.0));
+        original.add(new ImmutableWeightedUndirectedEdge<>("b", "c", 2.0));
+        final CompressedBidirectedGraph<String, ImmutableWeightedUndirectedEdge<String>> graph = new CompressedBidirectedGraph<>(
+                original);
+
+        Assert.assertEquals(2, graph.getEdgeCount());
+        Assert.assertEquals(4, graph.getArcCount());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "c")),
+                new HashSet<>(graph.getTraversableNodes("b")));
+        Assert.assertEquals(2, graph.getInEdges("b").size());
+    }
+
+    @Test
+    public void testArraysAndClone() {
+        final List<String> nodes = Arrays.asList("a", "b", "c");
+        final CompressedDirectedGraph<String, ImmutableWeightedDirectedEdge<String>> graph = new CompressedDirectedGraph<>(
+                nodes, new int[]{0, 1, 2}, new int[]{1, 2, 0}, new double[]{1,
+                2, 3}, ImmutableWeightedDirectedEdge::new);
+
+        Assert.assertEquals(Arrays.asList("b"), graph.getTraversableNodes("a"));
+        final ImmutableWeightedDirectedEdge<String> edge = graph.getEdge(1);
+        Assert.assertSame(edge, graph.getEdge(1));
+        Assert.assertEquals(3.0, graph.getEdgeWeight(2), 0.0);
+        Assert.assertTrue(graph.getEdges().contains(edge));
+
+        final CompressedDirectedGraph<String, ImmutableWeightedDirectedEdge<String>> removed = graph
+                .cloneRemove("b");
+        Assert.assertEquals(2, removed.getNodeCount());
+        Assert.assertEquals(1, removed.getEdgeCount());
+        Assert.assertEquals(Arrays.asList("a"), removed.getTraversableNodes("c"));
+
+        final CompressedDirectedGraph<String, ImmutableWeightedDirectedEdge<String>> added = removed
+                .cloneAdd(new ImmutableWeightedDirectedEdge<>("a", "c", 5.0));
+        Assert.assertEquals(2, added.getEdgeCount());
+        Assert.assertEquals(1, added.getInDegree(added.getId("c")));
+    }
+}
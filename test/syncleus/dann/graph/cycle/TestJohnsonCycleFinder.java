@@ -0,0 +1,203 @@
+package syncleus.dann.graph.cycle;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.graph.Cycle;
+import syncleus.dann.graph.DirectedEdge;
+import syncleus.dann.graph.Edge;
+import syncleus.dann.graph.Graph;
+import syncleus.dann.graph.ImmutableAdjacencyGraph;
+import syncleus.dann.graph.ImmutableDirectedAdjacencyGraph;
+import syncleus.dann.graph.ImmutableDirectedEdge;
+import syncleus.dann.graph.ImmutableUndirectedEdge;
+
+public class TestJohnsonCycleFinder {
+    private static Graph<Integer, DirectedEdge<Integer>> randomDigraph(
+            final Random random, final int nodeCount, final int edgeCount) {
+        final Set<Integer> nodes = new HashSet<>();
+        for (int node = 0; node < nodeCount; node++)
+            nodes.add(node);
+        final Set<DirectedEdge<Integer>> edges = new HashSet<>();
+        for (int edge = 0; edge < edgeCount; edge++)
+            edges.add(new ImmutableDirectedEdge<>(random.nextInt(nodeCount),
+                    random.nextInt(nodeCount)));
+        return new ImmutableDirectedAdjacencyGraph<>(nodes, edges);
+    }
+
+    /**
+     * Counts the elementary cycles of a directed graph by extending every
+     * path from each start node through higher numbered nodes only.
+     */
+    private static int bruteForceCount(
+            final Graph<Integer, DirectedEdge<Integer>> graph, final int start,
+            final int node, final Set<Integer> path, final int[] lengths,
+            final int length) {
+        int count = 0;
+        for (final DirectedEdge<Integer> edge : graph.getTraversableEdges(node)) {
+            if (edge.getSourceNode() != node)
+                continue;
+            final int next = edge.getDestinationNode();
+            if (next == start) {
+                count++;
+                lengths[length + 1]++;
+            } else if ((next > start) && path.add(next)) {
+                count += bruteForceCount(graph, start, next, path, lengths,
+                        length + 1);
+                path.remove(next);
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        final Random random = new Random(11);
+        for (int trial = 0; trial < 10; trial++) {
+            final int nodeCount = 12;
+            final Graph<Integer, DirectedEdge<Integer>> graph = randomDigraph(
+                    random, nodeCount, 30);
+            int expected = 0;
+            final int[] lengths = new int[nodeCount + 2];
+            for (int start = 0; start < nodeCount; start++) {
+                final Set<Integer> path = new HashSet<>();
+                path.add(start);
+                expected += bruteForceCount(graph, start, start, path,
+                        lengths, 0);
+            }
+            Assert.assertEquals(expected, new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>(
+                    1).cycleCount(graph));
+            Assert.assertEquals(expected, new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>(
+                    4).cycleCount(graph));
+            Assert.assertEquals(expected, new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>(
+                    4).findCycles(graph).size());
+
+            // bounded lengths
+            final JohnsonCycleFinder<Integer, DirectedEdge<Integer>> finder = new JohnsonCycleFinder<>(
+                    3);
+            final long bounded = finder.findCycles(graph, 2, 4, cycle -> {
+                Assert.assertTrue(cycle.getLength() >= 2);
+                Assert.assertTrue(cycle.getLength() <= 4);
+                return true;
+            });
+            Assert.assertEquals(lengths[2] + lengths[3] + lengths[4], bounded);
+
+            int girth = 0;
+            int circumference = 0;
+            for (int length = 1; length < lengths.length; length++)
+                if (lengths[length] > 0) {
+                    if (girth == 0)
+                        girth = length;
+                    circumference = length;
+                }
+            Assert.assertEquals(girth, finder.girth(graph));
+            Assert.assertEquals(circumference, finder.circumference(graph));
+            Assert.assertEquals(expected > 0, finder.hasCycle(graph));
+        }
+    }
+
+    @Test
+    public void testEarlyTermination() {
+        final Graph<Integer, DirectedEdge<Integer>> graph = randomDigraph(
+                new Random(3), 30, 120);
+        final AtomicInteger seen = new AtomicInteger();
+        final long reported = new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>(
+                4).findCycles(graph, cycle -> seen.incrementAndGet() < 5);
+        Assert.assertEquals(5, seen.get());
+        Assert.assertEquals(5, reported);
+    }
+
+    @Test
+    public void testUndirected() {
+        // a square with one diagonal has three cycles
+        final Set<Integer> nodes = new HashSet<>();
+        for (int node = 0; node < 5; node++)
+            nodes.add(node);
+        final Set<Edge<Integer>> edges = new HashSet<>();
+        final int[] ends = {0, 1, 1, 2, 2, 3, 3, 0, 0, 2, 3, 4};
+        for (int index = 0; index < ends.length; index += 2)
+            edges.add(new ImmutableUndirectedEdge<>(ends[index],
+                    ends[index + 1]));
+        final Graph<Integer, Edge<Integer>> graph = new ImmutableAdjacencyGraph<>(
+                nodes, edges);
+        final JohnsonCycleFinder<Integer, Edge<Integer>> finder = new JohnsonCycleFinder<>(
+                2);
+        Assert.assertEquals(3, finder.cycleCount(graph));
+        Assert.assertEquals(new ExhaustiveDepthFirstSearchCycleFinder<Integer, Edge<Integer>>()
+                .findCycles(graph), finder.findCycles(graph));
+        Assert.assertEquals(3, finder.girth(graph));
+        Assert.assertEquals(4, finder.circumference(graph));
+        Assert.assertFalse(finder.isUnicyclic(graph));
+
+        // a doubled edge is a cycle of length two
+        edges.add(new ImmutableUndirectedEdge<>(3, 4));
+        Assert.assertEquals(4, finder.cycleCount(new ImmutableAdjacencyGraph<>(
+                nodes, edges)));
+    }
+
+    @Test
+    public void testLongCycle() {
+        // one cycle through every node, far deeper than the Java stack allows
+        final int nodeCount = 100000;
+        final Set<Integer> nodes = new HashSet<>();
+        final Set<DirectedEdge<Integer>> edges = new HashSet<>();
+        for (int node = 0; node < nodeCount; node++) {
+            nodes.add(node);
+            edges.add(new ImmutableDirectedEdge<>(node, (node + 1) % nodeCount));
+        }
+        final Graph<Integer, DirectedEdge<Integer>> graph = new ImmutableDirectedAdjacencyGraph<>(
+                nodes, edges);
+        final List<Cycle<Integer, DirectedEdge<Integer>>> cycles = new ArrayList<>();
+        new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>().findCycles(
+                graph, cycles::add);
+        Assert.assertEquals(1, cycles.size());
+        Assert.assertEquals(nodeCount, cycles.get(0).getLength());
+        Assert.assertTrue(new ColoredDepthFirstSearchDetector().hasCycle(graph));
+    }
+
+    @Test
+    public void testComponentsSearchedInParallel() {
+        // eight disjoint cycles, each a strongly connected component
+        final Set<Integer> nodes = new HashSet<>();
+        final Set<DirectedEdge<Integer>> edges = new HashSet<>();
+        for (int component = 0; component < 8; component++)
+            for (int node = 0; node < 5; node++) {
+                nodes.add(component * 5 + node);
+                edges.add(new ImmutableDirectedEdge<>(component * 5 + node,
+                        component * 5 + (node + 1) % 5));
+            }
+        final Graph<Integer, DirectedEdge<Integer>> graph = new ImmutableDirectedAdjacencyGraph<>(
+                nodes, edges);
+        final Set<Thread> threads = new HashSet<>();
+        new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>(4).findCycles(
+                graph, cycle -> {
+                    threads.add(Thread.currentThread());
+                    try {
+                        // long enough for idle workers to take the others
+                        Thread.sleep(50);
+                    } catch (final InterruptedException caught) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return true;
+                });
+        Assert.assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        final Random random = new Random(23);
+        for (int trial = 0; trial < 5; trial++) {
+            final Graph<Integer, DirectedEdge<Integer>> graph = randomDigraph(
+                    random, 40, 70);
+            final Set<Cycle<Integer, DirectedEdge<Integer>>> sequential = new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>(
+                    1).findCycles(graph);
+            Assert.assertEquals(sequential, new JohnsonCycleFinder<Integer, DirectedEdge<Integer>>(
+                    4).findCycles(graph));
+        }
+    }
+}
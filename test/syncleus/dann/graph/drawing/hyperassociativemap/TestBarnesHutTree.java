@@ -0,0 +1,86 @@
+package syncleus.dann.graph.drawing.hyperassociativemap;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBarnesHutTree {
+    private static final int DIMENSIONS = 3;
+    private static final int POINTS = 2000;
+
+    private static double[] randomPoints(final Random random) {
+        final double[] points = new double[POINTS * DIMENSIONS];
+        for (int index = 0; index < points.length; index++)
+            points[index] = random.nextGaussian() * 10.0;
+        return points;
+    }
+
+    @Test
+    public void testExactMatchesPairwise() {
+        final double[] points = randomPoints(new Random(4));
+        final BarnesHutTree tree = new BarnesHutTree(points, POINTS,
+                DIMENSIONS, 2.0);
+        final int[] stack = new int[tree.getCellCount()];
+        for (int point = 0; point < POINTS; point += 97) {
+            final double[] treeForce = new double[DIMENSIONS];
+            tree.addRepulsion(point, 0.0, 1.0, 0.4, treeForce, stack);
+            final double[] pairForce = new double[DIMENSIONS];
+            for (int other = 0; other < POINTS; other++)
+                if (other != point)
+                    tree.addRepulsion(point, other, 1, 1.0, 0.4, pairForce);
+            Assert.assertArrayEquals(pairForce, treeForce, 1e-9);
+        }
+    }
+
+    @Test
+    public void testApproximation() {
+        final double[] points = randomPoints(new Random(9));
+        final BarnesHutTree tree = new BarnesHutTree(points, POINTS,
+                DIMENSIONS, 2.0);
+        final int[] stack = new int[tree.getCellCount()];
+        for (int point = 0; point < POINTS; point += 97) {
+            final double[] exact = new double[DIMENSIONS];
+            tree.addRepulsion(point, 0.0, 1.0, 1.0, exact, stack);
+            final double[] approximate = new double[DIMENSIONS];
+            tree.addRepulsion(point, 0.5, 1.0, 1.0, approximate, stack);
+            double error = 0.0;
+            double magnitude = 0.0;
+            for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+                error += Math.pow(exact[dimension] - approximate[dimension], 2);
+                magnitude += exact[dimension] * exact[dimension];
+            }
+            Assert.assertTrue("approximation too coarse",
+                    Math.sqrt(error) < 0.05 * Math.sqrt(magnitude));
+        }
+    }
+
+    @Test
+    public void testAlignOnExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 20,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        try {
+            final LayeredHyperassociativeMap testMap = new LayeredHyperassociativeMap(
+                    10, executor);
+            for (int alignCount = 0; alignCount < 10; alignCount++)
+                testMap.align();
+
+            final double[] packed = testMap.getPackedCoordinates();
+            Assert.assertEquals(testMap.getGraph().getNodes().size()
+                    * testMap.getDimensions(), packed.length);
+            for (final SimpleNode node : testMap.getGraph().getNodes()) {
+                final int index = testMap.getNodeIndex(node);
+                for (int dimension = 1; dimension <= testMap.getDimensions(); dimension++)
+                    Assert.assertEquals(packed[index * testMap.getDimensions()
+                                    + dimension - 1],
+                            testMap.getCoordinates().get(node).get(dimension),
+                            0.0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
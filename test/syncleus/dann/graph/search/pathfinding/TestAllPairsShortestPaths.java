@@ -0,0 +1,150 @@
+package syncleus.dann.graph.search.pathfinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.graph.CompressedDirectedGraph;
+import syncleus.dann.graph.ImmutableWeightedDirectedEdge;
+import syncleus.dann.search.pathfinding.AllPairsShortestPaths;
+import syncleus.dann.search.pathfinding.AllPairsShortestPaths.Strategy;
+import syncleus.dann.search.pathfinding.CompressedPathFinder;
+import syncleus.dann.search.pathfinding.NegativeWeightCycleException;
+
+public class TestAllPairsShortestPaths {
+    private static int[][] randomArcs(final Random random, final int nodeCount,
+                                      final int arcCount, final boolean forwardOnly) {
+        final int[] offsets = new int[nodeCount + 1];
+        final int[] targets = new int[arcCount];
+        for (int arc = 0; arc < arcCount; arc++)
+            offsets[random.nextInt(forwardOnly ? nodeCount - 1 : nodeCount) + 1]++;
+        for (int node = 0; node < nodeCount; node++)
+            offsets[node + 1] += offsets[node];
+        for (int node = 0; node < nodeCount; node++)
+            for (int arc = offsets[node]; arc < offsets[node + 1]; arc++)
+                targets[arc] = (forwardOnly ? node + 1
+                        + random.nextInt(nodeCount - node - 1) : random
+                        .nextInt(nodeCount));
+        return new int[][]{offsets, targets};
+    }
+
+    private static void assertSamePaths(final AllPairsShortestPaths expected,
+                                        final AllPairsShortestPaths actual, final int[] targets,
+                                        final double[] weights) {
+        final int nodeCount = expected.getNodeCount();
+        for (int from = 0; from < nodeCount; from++)
+            for (int to = 0; to < nodeCount; to++) {
+                final double distance = expected.getDistance(from, to);
+                Assert.assertEquals(distance, actual.getDistance(from, to),
+                        1e-9);
+                if ((from == to) || Double.isInfinite(distance))
+                    continue;
+                double walked = 0.0;
+                int node = from;
+                for (final int arc : actual.getPathArcs(from, to)) {
+                    walked += weights[arc];
+                    node = targets[arc];
+                }
+                Assert.assertEquals(to, node);
+                Assert.assertEquals(distance, walked, 1e-9);
+            }
+    }
+
+    @Test
+    public void testFloydWarshallMatchesJohnson() {
+        final Random random = new Random(3);
+        final int[][] arcs = randomArcs(random, 150, 600, false);
+        final double[] weights = new double[arcs[1].length];
+        for (int arc = 0; arc < weights.length; arc++)
+            weights[arc] = random.nextInt(10);
+        weights[0] = Double.POSITIVE_INFINITY;
+
+        final AllPairsShortestPaths floydWarshall = new AllPairsShortestPaths(
+                arcs[0], arcs[1], weights, Strategy.FLOYD_WARSHALL, 4);
+        final AllPairsShortestPaths johnson = new AllPairsShortestPaths(
+                arcs[0], arcs[1], weights, Strategy.JOHNSON, 4);
+        Assert.assertEquals(Strategy.FLOYD_WARSHALL, floydWarshall.getStrategy());
+        assertSamePaths(floydWarshall, johnson, arcs[1], weights);
+        assertSamePaths(johnson, floydWarshall, arcs[1], weights);
+    }
+
+    @Test
+    public void testNegativeArcs() {
+        final Random random = new Random(8);
+        final int[][] arcs = randomArcs(random, 100, 400, true);
+        final double[] weights = new double[arcs[1].length];
+        for (int arc = 0; arc < weights.length; arc++)
+            weights[arc] = random.nextInt(10) - 6;
+
+        final AllPairsShortestPaths floydWarshall = new AllPairsShortestPaths(
+                arcs[0], arcs[1], weights, Strategy.FLOYD_WARSHALL, 2);
+        final AllPairsShortestPaths johnson = new AllPairsShortestPaths(
+                arcs[0], arcs[1], weights, Strategy.JOHNSON, 2);
+        assertSamePaths(floydWarshall, johnson, arcs[1], weights);
+    }
+
+    @Test
+    public void testThreadCountDoesNotMatter() {
+        final Random random = new Random(21);
+        final int[][] arcs = randomArcs(random, 200, 500, false);
+        final double[] weights = new double[arcs[1].length];
+        for (int arc = 0; arc < weights.length; arc++)
+            weights[arc] = random.nextInt(3);
+        for (final Strategy strategy : new Strategy[]{Strategy.FLOYD_WARSHALL,
+                Strategy.JOHNSON}) {
+            final AllPairsShortestPaths serial = new AllPairsShortestPaths(
+                    arcs[0], arcs[1], weights, strategy, 1);
+            final AllPairsShortestPaths parallel = new AllPairsShortestPaths(
+                    arcs[0], arcs[1], weights, strategy, 8);
+            for (int from = 0; from < 200; from++)
+                for (int to = 0; to < 200; to++)
+                    Assert.assertEquals(serial.getFirstArc(from, to),
+                            parallel.getFirstArc(from, to));
+        }
+    }
+
+    @Test
+    public void testCompressedGraph() {
+        final Random random = new Random(13);
+        final List<Integer> nodes = new ArrayList<>();
+        for (int node = 0; node < 120; node++)
+            nodes.add(node);
+        final int[] sources = new int[500];
+        final int[] destinations = new int[500];
+        final double[] weights = new double[500];
+        for (int edge = 0; edge < 500; edge++) {
+            sources[edge] = random.nextInt(120);
+            destinations[edge] = random.nextInt(120);
+            weights[edge] = random.nextInt(20);
+        }
+        final CompressedDirectedGraph<Integer, ImmutableWeightedDirectedEdge<Integer>> graph = new CompressedDirectedGraph<>(
+                nodes, sources, destinations, weights,
+                ImmutableWeightedDirectedEdge::new);
+        final CompressedPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> reference = new CompressedPathFinder<>(
+                graph);
+        final AllPairsShortestPaths paths = new AllPairsShortestPaths(graph,
+                Strategy.AUTOMATIC, 0);
+        for (int from = 0; from < 120; from++)
+            for (int to = 0; to < 120; to++)
+                if (from != to)
+                    Assert.assertEquals(reference.getPathWeight(from, to),
+                            paths.getDistance(from, to), 1e-9);
+    }
+
+    @Test
+    public void testNegativeCycle() {
+        final int[] offsets = {0, 1, 2, 3};
+        final int[] targets = {1, 2, 0};
+        final double[] weights = {1.0, -3.0, 1.0};
+        for (final Strategy strategy : new Strategy[]{Strategy.FLOYD_WARSHALL,
+                Strategy.JOHNSON}) {
+            try {
+                new AllPairsShortestPaths(offsets, targets, weights, strategy, 1);
+                Assert.fail("negative cycle not detected");
+            } catch (final NegativeWeightCycleException caught) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package syncleus.dann.graph.search.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.graph.BidirectedEdge;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+import syncleus.dann.graph.CompressedDirectedGraph;
+import syncleus.dann.graph.ImmutableWeightedDirectedEdge;
+import syncleus.dann.math.geometry.GraphGrid2D;
+import syncleus.dann.math.geometry.GraphGrid2D.GridNode;
+import syncleus.dann.search.pathfinding.AstarPathFinder;
+import syncleus.dann.search.pathfinding.CompressedPathFinder;
+import syncleus.dann.search.pathfinding.DijkstraPathFinder;
+import syncleus.dann.search.pathfinding.HeuristicPathCost;
+import syncleus.dann.search.pathfinding.IndexedHeap;
+
+public class TestCompressedPathFinder {
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final double[][] GRID = {
+            {1.0, 1.0, 1000.0, 1.0, 1.0, 1.0, 1.0, 1.0},
+            {1.0, 1.0, 1.0, 1.0, 10.0, 10.0, 1.0, 1.0},
+            {INF, INF, INF, INF, INF, 1.0, 1.0, 1.0},
+            {11.0, 1.0, 1.0, 1.0, 1.0, 10.0, 2.0, 1.0},
+            {1.0, 10.0, INF, 1.0, INF, INF, INF, INF},
+            {1.0, INF, INF, INF, INF, 1.0, 1.0, 1.0},
+            {1.0, INF, 1.0, 1.0, 1.0, 1.0, INF, 1.0},
+            {1.0, 1.0, 1.0, INF, INF, 4.0, 1.0, 1.0}};
+
+    private static class DistanceHeuristic implements
+            HeuristicPathCost<GridNode> {
+        @Override
+        public double getHeuristicPathCost(final GridNode begin,
+                                           final GridNode end) {
+            return begin.calculateRelativeTo(end).getDistance();
+        }
+
+        @Override
+        public boolean isOptimistic() {
+            return true;
+        }
+
+        @Override
+        public boolean isConsistent() {
+            return true;
+        }
+    }
+
+    private static double gridPathWeight(final GridNode start,
+                                         final List<BidirectedEdge<GridNode>> path) {
+        double weight = 0.0;
+        GridNode last = start;
+        for (final BidirectedEdge<GridNode> edge : path) {
+            last = edge.getOtherNode(last);
+            weight += last.getWeight();
+        }
+        return weight;
+    }
+
+    @Test
+    public void testGridMatchesAstar() {
+        final GraphGrid2D grid = new GraphGrid2D(GRID);
+        final CompressedBidirectedGraph<GridNode, BidirectedEdge<GridNode>> graph = new CompressedBidirectedGraph<>(
+                grid);
+        final AstarPathFinder<GridNode, BidirectedEdge<GridNode>> reference = new AstarPathFinder<>(
+                grid, new DistanceHeuristic());
+        final CompressedPathFinder<GridNode, BidirectedEdge<GridNode>> astar = new CompressedPathFinder<>(
+                graph, new DistanceHeuristic());
+        final CompressedPathFinder<GridNode, BidirectedEdge<GridNode>> dijkstra = new CompressedPathFinder<>(
+                graph);
+
+        final GridNode start = grid.getNode(1, 0);
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                final GridNode end = grid.getNode(x, y);
+                if (end.equals(start) || Double.isInfinite(end.getWeight()))
+                    continue;
+                final double expected = gridPathWeight(start,
+                        reference.getBestPath(start, end));
+                for (final CompressedPathFinder<GridNode, BidirectedEdge<GridNode>> finder : Arrays
+                        .asList(astar, dijkstra)) {
+                    for (final boolean bidirectional : new boolean[]{false, true}) {
+                        finder.setBidirectional(bidirectional);
+                        final List<BidirectedEdge<GridNode>> path = finder
+                                .getBestPath(start, end);
+                        Assert.assertNotNull(path);
+                        Assert.assertEquals(expected, gridPathWeight(start,
+                                path), 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandomGraphQueries() {
+        final Random random = new Random(7);
+        final int nodeCount = 300;
+        final int edgeCount = 1200;
+        final List<Integer> nodes = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++)
+            nodes.add(node);
+        final int[] sources = new int[edgeCount];
+        final int[] destinations = new int[edgeCount];
+        final double[] weights = new double[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            sources[edge] = random.nextInt(nodeCount);
+            destinations[edge] = random.nextInt(nodeCount);
+            weights[edge] = random.nextDouble() * 10.0;
+        }
+        final CompressedDirectedGraph<Integer, ImmutableWeightedDirectedEdge<Integer>> graph = new CompressedDirectedGraph<>(
+                nodes, sources, destinations, weights,
+                ImmutableWeightedDirectedEdge::new);
+        final DijkstraPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> reference = new DijkstraPathFinder<>(
+                graph);
+        final CompressedPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> forward = new CompressedPathFinder<>(
+                graph);
+        final CompressedPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> bidirectional = new CompressedPathFinder<>(
+                graph);
+        bidirectional.setBidirectional(true);
+
+        final List<Integer> ends = nodes.subList(1, 40);
+        final Map<Integer, List<ImmutableWeightedDirectedEdge<Integer>>> oneToMany = forward
+                .getBestPaths(0, ends);
+        for (final Integer end : ends) {
+            final List<ImmutableWeightedDirectedEdge<Integer>> expected = reference
+                    .getBestPath(0, end);
+            if (expected == null)
+                Assert.assertNull(oneToMany.get(end));
+            else
+                Assert.assertEquals(weigh(expected), weigh(oneToMany.get(end)),
+                        1e-9);
+        }
+
+        for (int query = 0; query < 200; query++) {
+            final int begin = random.nextInt(nodeCount);
+            int end = random.nextInt(nodeCount);
+            if (end == begin)
+                end = (end + 1) % nodeCount;
+            final List<ImmutableWeightedDirectedEdge<Integer>> expected = reference
+                    .getBestPath(begin, end);
+            for (final CompressedPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> finder : Arrays
+                    .asList(forward, bidirectional)) {
+                final List<ImmutableWeightedDirectedEdge<Integer>> path = finder
+                        .getBestPath(begin, end);
+                if (expected == null) {
+                    Assert.assertNull(path);
+                    continue;
+                }
+                Assert.assertEquals(weigh(expected), weigh(path), 1e-9);
+                Assert.assertEquals(weigh(expected), finder.getPathWeight(begin,
+                        end), 1e-9);
+                Integer last = begin;
+                for (final ImmutableWeightedDirectedEdge<Integer> edge : path) {
+                    Assert.assertEquals(last, edge.getSourceNode());
+                    last = edge.getDestinationNode();
+                }
+                Assert.assertEquals(Integer.valueOf(end), last);
+            }
+        }
+    }
+
+    private static double weigh(
+            final List<ImmutableWeightedDirectedEdge<Integer>> path) {
+        double weight = 0.0;
+        for (final ImmutableWeightedDirectedEdge<Integer> edge : path)
+            weight += edge.getWeight() + 1.0;
+        return weight;
+    }
+
+    @Test
+    public void testIndexedHeap() {
+        final Random random = new Random(3);
+        final IndexedHeap heap = new IndexedHeap(4, 3);
+        final double[] keys = new double[500];
+        for (int item = 0; item < keys.length; item++) {
+            keys[item] = random.nextDouble();
+            heap.add(item, keys[item]);
+        }
+        for (int item = 0; item < keys.length; item += 2) {
+            keys[item] /= 2.0;
+            Assert.assertTrue(heap.addOrDecrease(item, keys[item]));
+        }
+        Assert.assertFalse(heap.addOrDecrease(1, keys[1] + 1.0));
+        final double[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        for (final double key : sorted) {
+            Assert.assertEquals(key, heap.peekKey(), 0.0);
+            Assert.assertEquals(key, keys[heap.poll()], 0.0);
+        }
+        Assert.assertTrue(heap.isEmpty());
+    }
+}
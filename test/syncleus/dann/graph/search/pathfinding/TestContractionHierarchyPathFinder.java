@@ -0,0 +1,133 @@
+package syncleus.dann.graph.search.pathfinding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.graph.BidirectedEdge;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+import syncleus.dann.graph.CompressedDirectedGraph;
+import syncleus.dann.graph.ImmutableWeightedDirectedEdge;
+import syncleus.dann.math.geometry.GraphGrid2D;
+import syncleus.dann.math.geometry.GraphGrid2D.GridNode;
+import syncleus.dann.search.pathfinding.CompressedPathFinder;
+import syncleus.dann.search.pathfinding.ContractionHierarchy;
+import syncleus.dann.search.pathfinding.ContractionHierarchyPathFinder;
+
+public class TestContractionHierarchyPathFinder {
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final double[][] GRID = {
+            {1.0, 1.0, 1000.0, 1.0, 1.0, 1.0, 1.0, 1.0},
+            {1.0, 1.0, 1.0, 1.0, 10.0, 10.0, 1.0, 1.0},
+            {INF, INF, INF, INF, INF, 1.0, 1.0, 1.0},
+            {11.0, 1.0, 1.0, 1.0, 1.0, 10.0, 2.0, 1.0},
+            {1.0, 10.0, INF, 1.0, INF, INF, INF, INF},
+            {1.0, INF, INF, INF, INF, 1.0, 1.0, 1.0},
+            {1.0, INF, 1.0, 1.0, 1.0, 1.0, INF, 1.0},
+            {1.0, 1.0, 1.0, INF, INF, 4.0, 1.0, 1.0}};
+
+    private static CompressedDirectedGraph<Integer, ImmutableWeightedDirectedEdge<Integer>> randomGraph(
+            final Random random, final int nodeCount, final int edgeCount) {
+        final List<Integer> nodes = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++)
+            nodes.add(node);
+        final int[] sources = new int[edgeCount];
+        final int[] destinations = new int[edgeCount];
+        final double[] weights = new double[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            sources[edge] = random.nextInt(nodeCount);
+            destinations[edge] = random.nextInt(nodeCount);
+            weights[edge] = random.nextInt(20);
+        }
+        return new CompressedDirectedGraph<>(nodes, sources, destinations,
+                weights, ImmutableWeightedDirectedEdge::new);
+    }
+
+    @Test
+    public void testRandomGraphMatchesDijkstra() {
+        final Random random = new Random(11);
+        final CompressedDirectedGraph<Integer, ImmutableWeightedDirectedEdge<Integer>> graph = randomGraph(
+                random, 400, 1600);
+        final CompressedPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> reference = new CompressedPathFinder<>(
+                graph);
+        final ContractionHierarchyPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> finder = new ContractionHierarchyPathFinder<>(
+                graph, new ContractionHierarchy(graph, 4));
+
+        for (int query = 0; query < 500; query++) {
+            final int begin = random.nextInt(400);
+            int end = random.nextInt(400);
+            if (end == begin)
+                end = (end + 1) % 400;
+            final double expected = reference.getPathWeight(begin, end);
+            Assert.assertEquals(expected, finder.getPathWeight(begin, end),
+                    1e-9);
+            final List<ImmutableWeightedDirectedEdge<Integer>> path = finder
+                    .getBestPath(begin, end);
+            if (Double.isInfinite(expected)) {
+                Assert.assertNull(path);
+                continue;
+            }
+            double weight = 0.0;
+            Integer last = begin;
+            for (final ImmutableWeightedDirectedEdge<Integer> edge : path) {
+                Assert.assertEquals(last, edge.getSourceNode());
+                last = edge.getDestinationNode();
+                weight += edge.getWeight() + 1.0;
+            }
+            Assert.assertEquals(Integer.valueOf(end), last);
+            Assert.assertEquals(expected, weight, 1e-9);
+        }
+    }
+
+    @Test
+    public void testGridMatchesDijkstra() {
+        final GraphGrid2D grid = new GraphGrid2D(GRID);
+        final CompressedBidirectedGraph<GridNode, BidirectedEdge<GridNode>> graph = new CompressedBidirectedGraph<>(
+                grid);
+        final CompressedPathFinder<GridNode, BidirectedEdge<GridNode>> reference = new CompressedPathFinder<>(
+                graph);
+        final ContractionHierarchyPathFinder<GridNode, BidirectedEdge<GridNode>> finder = new ContractionHierarchyPathFinder<>(
+                graph);
+        for (int begin = 0; begin < graph.getNodeCount(); begin++)
+            for (int end = 0; end < graph.getNodeCount(); end++)
+                if (begin != end)
+                    Assert.assertEquals(reference.getPathWeight(begin, end),
+                            finder.getPathWeight(begin, end), 1e-9);
+    }
+
+    @Test
+    public void testDeterministicAndSerializable() throws IOException,
+            ClassNotFoundException {
+        final CompressedDirectedGraph<Integer, ImmutableWeightedDirectedEdge<Integer>> graph = randomGraph(
+                new Random(5), 300, 1000);
+        final ContractionHierarchy serial = new ContractionHierarchy(graph, 1);
+        final ContractionHierarchy parallel = new ContractionHierarchy(graph, 4);
+        Assert.assertEquals(serial.getShortcutCount(),
+                parallel.getShortcutCount());
+        for (int node = 0; node < graph.getNodeCount(); node++)
+            Assert.assertEquals(serial.getRank(node), parallel.getRank(node));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(parallel);
+        }
+        final ContractionHierarchy loaded;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (ContractionHierarchy) in.readObject();
+        }
+        final ContractionHierarchyPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> original = new ContractionHierarchyPathFinder<>(
+                graph, parallel);
+        final ContractionHierarchyPathFinder<Integer, ImmutableWeightedDirectedEdge<Integer>> restored = new ContractionHierarchyPathFinder<>(
+                graph, loaded);
+        for (int end = 1; end < graph.getNodeCount(); end++)
+            Assert.assertEquals(original.getPathWeight(0, end),
+                    restored.getPathWeight(0, end), 0.0);
+    }
+}
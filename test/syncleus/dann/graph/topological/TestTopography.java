@@ -0,0 +1,184 @@
+package syncleus.dann.graph.topological;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.graph.Edge;
+import syncleus.dann.graph.Graph;
+import syncleus.dann.graph.ImmutableAdjacencyGraph;
+import syncleus.dann.graph.ImmutableDirectedEdge;
+import syncleus.dann.graph.ImmutableUndirectedEdge;
+
+public class TestTopography {
+    private static Set<Integer> nodes(final int count) {
+        final Set<Integer> nodes = new HashSet<>();
+        for (int node = 0; node < count; node++)
+            nodes.add(node);
+        return nodes;
+    }
+
+    private static Graph<Integer, Edge<Integer>> undirected(final int nodeCount,
+                                                            final int... ends) {
+        final Set<Edge<Integer>> edges = new HashSet<>();
+        for (int index = 0; index < ends.length; index += 2)
+            edges.add(new ImmutableUndirectedEdge<>(ends[index],
+                    ends[index + 1]));
+        return new ImmutableAdjacencyGraph<>(nodes(nodeCount), edges);
+    }
+
+    /**
+     * Counts weak components without the index, by removing the given nodes
+     * and edges and searching what is left.
+     */
+    private static int countComponents(final Graph<Integer, Edge<Integer>> graph,
+                                       final Integer removedNode, final Edge<Integer> removedEdge) {
+        final Set<Integer> seen = new HashSet<>();
+        int count = 0;
+        for (final Integer start : graph.getNodes()) {
+            if (start.equals(removedNode) || !seen.add(start))
+                continue;
+            count++;
+            final List<Integer> stack = new ArrayList<>();
+            stack.add(start);
+            while (!stack.isEmpty()) {
+                final Integer node = stack.remove(stack.size() - 1);
+                for (final Edge<Integer> edge : graph.getAdjacentEdges(node)) {
+                    if (edge == removedEdge)
+                        continue;
+                    for (final Integer other : edge.getNodes())
+                        if (!other.equals(removedNode) && seen.add(other))
+                            stack.add(other);
+                }
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testBridgedTriangles() {
+        // triangles 0-1-2 and 3-4-5 joined by the bridge 2-3, with 6 hanging
+        // off 5 and 7 on its own
+        final Graph<Integer, Edge<Integer>> graph = undirected(8, 0, 1, 1, 2,
+                2, 0, 2, 3, 3, 4, 4, 5, 5, 3, 5, 6);
+
+        Assert.assertFalse(Topography.isWeaklyConnected(graph));
+        Assert.assertTrue(Topography.isWeaklyConnected(graph, 0, 6));
+        Assert.assertFalse(Topography.isWeaklyConnected(graph, 0, 7));
+        Assert.assertEquals(2, Topography.getMaximallyConnectedComponents(graph)
+                .size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(2, 3, 5)),
+                Topography.getArticulationPoints(graph));
+        Assert.assertEquals(2, Topography.getBridges(graph).size());
+        Assert.assertEquals(4, Topography.getBiconnectedComponents(graph)
+                .size());
+
+        Assert.assertTrue(Topography.isCut(graph, 2));
+        Assert.assertFalse(Topography.isCut(graph, 0));
+        Assert.assertTrue(Topography.isCut(graph, 2, 0, 4));
+        Assert.assertFalse(Topography.isCut(graph, 1, 0, 4));
+        Assert.assertFalse(Topography.isCut(graph, Collections.singleton(7),
+                Collections.<Edge<Integer>>emptySet()));
+
+        Assert.assertEquals(2, Topography.getEdgeConnectivity(graph, 0, 1));
+        Assert.assertEquals(1, Topography.getEdgeConnectivity(graph, 0, 4));
+        Assert.assertEquals(1, Topography.getNodeConnectivity(graph, 0, 4));
+        Assert.assertEquals(0, Topography.getEdgeConnectivity(graph, 0, 7));
+        Assert.assertEquals(0, Topography.getNodeConnectivity(graph));
+    }
+
+    @Test
+    public void testGlobalConnectivity() {
+        // the complete graph on five nodes
+        final List<Integer> ends = new ArrayList<>();
+        for (int left = 0; left < 5; left++)
+            for (int right = left + 1; right < 5; right++) {
+                ends.add(left);
+                ends.add(right);
+            }
+        final int[] completeEnds = new int[ends.size()];
+        for (int index = 0; index < completeEnds.length; index++)
+            completeEnds[index] = ends.get(index);
+        final Graph<Integer, Edge<Integer>> complete = undirected(5,
+                completeEnds);
+        Assert.assertEquals(4, Topography.getNodeConnectivity(complete));
+        Assert.assertEquals(4, Topography.getEdgeConnectivity(complete));
+        Assert.assertEquals(4, Topography.getNodeConnectivity(complete, 0, 1));
+
+        // two squares sharing node 0: 2-edge-connected, 1-node-connected
+        final Graph<Integer, Edge<Integer>> bowtie = undirected(7, 0, 1, 1, 2,
+                2, 3, 3, 0, 0, 4, 4, 5, 5, 6, 6, 0);
+        Assert.assertEquals(1, Topography.getNodeConnectivity(bowtie));
+        Assert.assertEquals(2, Topography.getEdgeConnectivity(bowtie));
+        Assert.assertEquals(2, Topography.getNodeConnectivity(bowtie, 1, 3));
+        Assert.assertEquals(2, Topography.getEdgeConnectivity(bowtie, 1, 5));
+        Assert.assertTrue(Topography.isCut(bowtie, 0));
+    }
+
+    @Test
+    public void testStrongComponents() {
+        final Set<Edge<Integer>> edges = new HashSet<>();
+        // cycle 0-1-2, cycle 3-4, 2 leads to 3, 5 is a sink
+        final int[] arcs = {0, 1, 1, 2, 2, 0, 2, 3, 3, 4, 4, 3, 4, 5};
+        for (int index = 0; index < arcs.length; index += 2)
+            edges.add(new ImmutableDirectedEdge<>(arcs[index], arcs[index + 1]));
+        final Graph<Integer, Edge<Integer>> graph = new ImmutableAdjacencyGraph<>(
+                nodes(6), edges);
+
+        Assert.assertFalse(Topography.isStronglyConnected(graph));
+        Assert.assertTrue(Topography.isWeaklyConnected(graph));
+        Assert.assertTrue(Topography.isStronglyConnected(graph, 0, 5));
+        Assert.assertFalse(Topography.isStronglyConnected(graph, 5, 0));
+        Assert.assertTrue(Topography.isStronglyConnected(graph, 4, 3));
+
+        final List<Set<Integer>> components = Topography
+                .getStronglyConnectedComponents(graph);
+        Assert.assertEquals(3, components.size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(0, 1, 2)),
+                components.get(0));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(3, 4)),
+                components.get(1));
+        Assert.assertEquals(Collections.singleton(5), components.get(2));
+        Assert.assertEquals(1, Topography.getEdgeConnectivity(graph, 0, 4));
+        Assert.assertEquals(0, Topography.getEdgeConnectivity(graph, 4, 0));
+    }
+
+    @Test
+    public void testCutsMatchRemoval() {
+        final Random random = new Random(5);
+        for (int trial = 0; trial < 20; trial++) {
+            final int nodeCount = 30;
+            final int[] ends = new int[2 * 40];
+            for (int index = 0; index < ends.length; index++)
+                ends[index] = random.nextInt(nodeCount);
+            final Graph<Integer, Edge<Integer>> graph = undirected(nodeCount,
+                    ends);
+            final int components = countComponents(graph, null, null);
+            Assert.assertEquals(components, TopologyIndex.of(graph)
+                    .getWeakComponentCount());
+            Assert.assertSame(TopologyIndex.of(graph), TopologyIndex.of(graph));
+
+            final Set<Integer> articulationPoints = Topography
+                    .getArticulationPoints(graph);
+            for (final Integer node : graph.getNodes()) {
+                // an isolated node leaves the count down by one when removed
+                final int isolated = graph.getAdjacentEdges(node).isEmpty() ? 1
+                        : 0;
+                final boolean cut = countComponents(graph, node, null)
+                        + isolated > components;
+                Assert.assertEquals(cut, articulationPoints.contains(node));
+                Assert.assertEquals(cut, Topography.isCut(graph, node));
+            }
+            final Set<Edge<Integer>> bridges = Topography.getBridges(graph);
+            for (final Edge<Integer> edge : graph.getEdges()) {
+                final boolean cut = countComponents(graph, null, edge) > components;
+                Assert.assertEquals(cut, bridges.contains(edge));
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package syncleus.dann.graph.tree.mst;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.graph.BidirectedEdge;
+import syncleus.dann.graph.CompressedBidirectedGraph;
+import syncleus.dann.graph.Graph;
+import syncleus.dann.graph.ImmutableAdjacencyGraph;
+import syncleus.dann.graph.ImmutableWeightedUndirectedEdge;
+import syncleus.dann.graph.Weighted;
+
+public class TestBoruvkaMinimumSpanningTreeFinder {
+    private static CompressedBidirectedGraph<Integer, ImmutableWeightedUndirectedEdge<Integer>> randomGraph(
+            final Random random, final int nodeCount, final int edgeCount) {
+        final List<Integer> nodes = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++)
+            nodes.add(node);
+        final int[] lefts = new int[edgeCount];
+        final int[] rights = new int[edgeCount];
+        final double[] weights = new double[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            lefts[edge] = random.nextInt(nodeCount);
+            rights[edge] = random.nextInt(nodeCount);
+            weights[edge] = random.nextInt(50);
+        }
+        return new CompressedBidirectedGraph<>(nodes, lefts, rights, weights,
+                false, ImmutableWeightedUndirectedEdge::new);
+    }
+
+    private static double totalWeight(final Set<? extends Weighted> edges) {
+        double total = 0.0;
+        for (final Weighted edge : edges)
+            total += edge.getWeight();
+        return total;
+    }
+
+    private static int countComponents(final Graph<Integer, ?> graph,
+                                       final Set<? extends BidirectedEdge<Integer>> edges) {
+        final DisjointSets components = new DisjointSets(graph.getNodes()
+                .size());
+        for (final BidirectedEdge<Integer> edge : edges)
+            Assert.assertTrue("forest has a cycle", components.union(
+                    edge.getLeftNode(), edge.getRightNode()));
+        return components.getSetCount();
+    }
+
+    @Test
+    public void testMatchesKruskal() {
+        final Random random = new Random(17);
+        // sparse enough to leave a few nodes disconnected
+        final CompressedBidirectedGraph<Integer, ImmutableWeightedUndirectedEdge<Integer>> graph = randomGraph(
+                random, 500, 900);
+        final Set<ImmutableWeightedUndirectedEdge<Integer>> kruskal = new KruskalMinimumSpanningTreeFinder<Integer, ImmutableWeightedUndirectedEdge<Integer>>()
+                .findMinimumSpanningTree(graph);
+        final Set<ImmutableWeightedUndirectedEdge<Integer>> boruvka = new BoruvkaMinimumSpanningTreeFinder<Integer, ImmutableWeightedUndirectedEdge<Integer>>(
+                4).findMinimumSpanningTree(graph);
+
+        Assert.assertEquals(kruskal.size(), boruvka.size());
+        Assert.assertEquals(totalWeight(kruskal), totalWeight(boruvka), 1e-9);
+        Assert.assertEquals(countComponents(graph, kruskal), countComponents(
+                graph, boruvka));
+        Assert.assertTrue(countComponents(graph, boruvka) > 1);
+    }
+
+    @Test
+    public void testGenericGraph() {
+        final Random random = new Random(2);
+        final CompressedBidirectedGraph<Integer, ImmutableWeightedUndirectedEdge<Integer>> compressed = randomGraph(
+                random, 200, 2000);
+        final Graph<Integer, ImmutableWeightedUndirectedEdge<Integer>> graph = new ImmutableAdjacencyGraph<>(
+                new HashSet<>(compressed.getNodes()), new HashSet<>(
+                compressed.getEdges()));
+        final Set<ImmutableWeightedUndirectedEdge<Integer>> boruvka = new BoruvkaMinimumSpanningTreeFinder<Integer, ImmutableWeightedUndirectedEdge<Integer>>()
+                .findMinimumSpanningTree(graph);
+        final Set<ImmutableWeightedUndirectedEdge<Integer>> kruskal = new KruskalMinimumSpanningTreeFinder<Integer, ImmutableWeightedUndirectedEdge<Integer>>()
+                .findMinimumSpanningTree(graph);
+        Assert.assertEquals(199, boruvka.size());
+        Assert.assertEquals(1, countComponents(graph, boruvka));
+        Assert.assertEquals(totalWeight(kruskal), totalWeight(boruvka), 1e-9);
+    }
+
+    @Test
+    public void testThreadCountDoesNotMatter() {
+        final Random random = new Random(5);
+        final int[] lefts = new int[20000];
+        final int[] rights = new int[20000];
+        final double[] weights = new double[20000];
+        for (int edge = 0; edge < lefts.length; edge++) {
+            lefts[edge] = random.nextInt(3000);
+            rights[edge] = random.nextInt(3000);
+            weights[edge] = random.nextInt(4);
+        }
+        final int[] serial = new BoruvkaMinimumSpanningTreeFinder<Integer, BidirectedEdge<Integer>>(
+                1).findMinimumSpanningForest(3000, lefts, rights, weights,
+                lefts.length);
+        final int[] parallel = new BoruvkaMinimumSpanningTreeFinder<Integer, BidirectedEdge<Integer>>(
+                8).findMinimumSpanningForest(3000, lefts, rights, weights,
+                lefts.length);
+        Assert.assertArrayEquals(serial, parallel);
+    }
+}
@@ -0,0 +1,166 @@
+package syncleus.dann.learn.pattern;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import syncleus.dann.learn.pattern.patterns.AbstractOrderedItemset;
+
+/**
+ * Helpers shared by the tests of the pattern miners: generated databases, and
+ * itemsets in a form that does not depend on the order they were found in.
+ */
+public final class PatternTestUtil {
+
+	private PatternTestUtil() {
+	}
+
+	/**
+	 * Generate transactions of distinct, sorted items, where the small items
+	 * are the most frequent.
+	 * @param count the number of transactions
+	 * @param itemCount the items are 1 to itemCount
+	 * @param maxSize the largest number of items in a transaction
+	 * @param seed the random seed
+	 * @return the transactions
+	 */
+	public static List<int[]> generateTransactions(int count, int itemCount, int maxSize, long seed) {
+		Random random = new Random(seed);
+		List<int[]> transactions = new ArrayList<int[]>();
+		for (int i = 0; i < count; i++) {
+			int size = 1 + random.nextInt(maxSize);
+			boolean[] present = new boolean[itemCount + 1];
+			int distinct = 0;
+			while (distinct < Math.min(size, itemCount)) {
+				int item = 1 + Math.min(random.nextInt(itemCount), random.nextInt(itemCount));
+				if (!present[item]) {
+					present[item] = true;
+					distinct++;
+				}
+			}
+			int[] transaction = new int[distinct];
+			int j = 0;
+			for (int item = 1; item <= itemCount; item++) {
+				if (present[item]) {
+					transaction[j++] = item;
+				}
+			}
+			transactions.add(transaction);
+		}
+		return transactions;
+	}
+
+	/**
+	 * Generate sequences of itemsets of distinct, sorted items.
+	 * @param count the number of sequences
+	 * @param itemCount the items are 1 to itemCount
+	 * @param maxItemsets the largest number of itemsets in a sequence
+	 * @param maxSize the largest number of items in an itemset
+	 * @param seed the random seed
+	 * @return the sequences, as lists of itemsets
+	 */
+	public static List<List<int[]>> generateSequences(int count, int itemCount, int maxItemsets,
+			int maxSize, long seed) {
+		Random random = new Random(seed);
+		List<List<int[]>> sequences = new ArrayList<List<int[]>>();
+		for (int i = 0; i < count; i++) {
+			int itemsetCount = 1 + random.nextInt(maxItemsets);
+			List<int[]> sequence = new ArrayList<int[]>(generateTransactions(itemsetCount,
+					itemCount, maxSize, random.nextLong()));
+			sequences.add(sequence);
+		}
+		return sequences;
+	}
+
+	/**
+	 * Write transactions to a temporary file in SPMF format.
+	 * @param transactions the transactions
+	 * @return the file, deleted when the virtual machine exits
+	 * @throws IOException if the file cannot be written
+	 */
+	public static File writeTransactions(List<int[]> transactions) throws IOException {
+		File file = createTempFile();
+		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+		try {
+			for (int[] transaction : transactions) {
+				for (int i = 0; i < transaction.length; i++) {
+					if (i > 0) {
+						writer.write(' ');
+					}
+					writer.write(Integer.toString(transaction[i]));
+				}
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Write sequences to a temporary file in SPMF format.
+	 * @param sequences the sequences
+	 * @return the file, deleted when the virtual machine exits
+	 * @throws IOException if the file cannot be written
+	 */
+	public static File writeSequences(List<List<int[]>> sequences) throws IOException {
+		File file = createTempFile();
+		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+		try {
+			for (List<int[]> sequence : sequences) {
+				for (int[] itemset : sequence) {
+					for (int item : itemset) {
+						writer.write(item + " ");
+					}
+					writer.write("-1 ");
+				}
+				writer.write("-2");
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Create an empty temporary file.
+	 * @return the file, deleted when the virtual machine exits
+	 * @throws IOException if the file cannot be created
+	 */
+	public static File createTempFile() throws IOException {
+		File file = File.createTempFile("spmf", ".txt");
+		file.deleteOnExit();
+		return file;
+	}
+
+	/**
+	 * Get the support of each itemset, keyed by its sorted items.
+	 * @param levels the itemsets, by size
+	 * @return the supports of the itemsets
+	 */
+	public static Map<String, Integer> toSupports(List<? extends List<? extends AbstractOrderedItemset>> levels) {
+		Map<String, Integer> result = new TreeMap<String, Integer>();
+		for (List<? extends AbstractOrderedItemset> level : levels) {
+			for (AbstractOrderedItemset itemset : level) {
+				int[] items = new int[itemset.size()];
+				for (int i = 0; i < items.length; i++) {
+					items[i] = itemset.get(i);
+				}
+				Arrays.sort(items);
+				Integer previous = result.put(Arrays.toString(items), itemset.getAbsoluteSupport());
+				if (previous != null) {
+					throw new AssertionError("Itemset found twice: " + Arrays.toString(items));
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,197 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.apriori;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.learn.pattern.PatternTestUtil;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.apriori_close.AlgoAprioriClose;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.apriori_inverse.AlgoAprioriInverse;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.apriori_rare.AlgoAprioriRare;
+
+public class TestAprioriSupportCounter {
+
+	/** the thread counts to compare */
+	private static final int[] THREADS = { 1, 2, 4 };
+
+	/**
+	 * The support of every itemset of a database of at most 15 items, found by
+	 * checking each itemset, as a bit set of items, against each transaction.
+	 */
+	private static class BruteForce {
+		private final int itemCount;
+		private final int[] supports;
+		private final boolean[] present;
+
+		BruteForce(List<int[]> transactions, int itemCount) {
+			this.itemCount = itemCount;
+			supports = new int[1 << itemCount];
+			present = new boolean[itemCount + 1];
+			List<Integer> masks = new ArrayList<Integer>();
+			for (int[] transaction : transactions) {
+				int mask = 0;
+				for (int item : transaction) {
+					mask |= 1 << (item - 1);
+					present[item] = true;
+				}
+				masks.add(mask);
+			}
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				for (int mask : masks) {
+					if ((mask & itemset) == itemset) {
+						supports[itemset]++;
+					}
+				}
+			}
+		}
+
+		private boolean allPresent(int itemset) {
+			for (int item = 1; item <= itemCount; item++) {
+				if ((itemset & (1 << (item - 1))) != 0 && !present[item]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private String key(int itemset) {
+			List<Integer> items = new ArrayList<Integer>();
+			for (int item = 1; item <= itemCount; item++) {
+				if ((itemset & (1 << (item - 1))) != 0) {
+					items.add(item);
+				}
+			}
+			return items.toString();
+		}
+
+		Map<String, Integer> frequent(int minsup) {
+			Map<String, Integer> result = new TreeMap<String, Integer>();
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				if (supports[itemset] >= minsup) {
+					result.put(key(itemset), supports[itemset]);
+				}
+			}
+			return result;
+		}
+
+		Map<String, Integer> closed(int minsup) {
+			Map<String, Integer> result = new TreeMap<String, Integer>();
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				if (supports[itemset] < minsup) {
+					continue;
+				}
+				boolean closed = true;
+				for (int item = 0; item < itemCount && closed; item++) {
+					int superset = itemset | (1 << item);
+					closed = superset == itemset || supports[superset] != supports[itemset];
+				}
+				if (closed) {
+					result.put(key(itemset), supports[itemset]);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * The rare itemsets whose subsets are all frequent. The single items
+		 * must appear in the database, but larger itemsets may have no support.
+		 */
+		Map<String, Integer> minimalRare(int minsup) {
+			Map<String, Integer> result = new TreeMap<String, Integer>();
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				if (supports[itemset] >= minsup || !allPresent(itemset)) {
+					continue;
+				}
+				boolean minimal = true;
+				for (int item = 0; item < itemCount && minimal; item++) {
+					int subset = itemset & ~(1 << item);
+					minimal = subset == itemset || subset == 0 || supports[subset] >= minsup;
+				}
+				if (minimal && (Integer.bitCount(itemset) > 1 || supports[itemset] > 0)) {
+					result.put(key(itemset), supports[itemset]);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * The itemsets reaching minsup whose items all have a support of at
+		 * most maxsup.
+		 */
+		Map<String, Integer> perfectlyRare(int minsup, int maxsup) {
+			Map<String, Integer> result = new TreeMap<String, Integer>();
+			for (int itemset = 1; itemset < supports.length; itemset++) {
+				if (supports[itemset] < minsup) {
+					continue;
+				}
+				boolean rare = true;
+				for (int item = 0; item < itemCount && rare; item++) {
+					int single = 1 << item;
+					rare = (itemset & single) == 0 || supports[single] <= maxsup;
+				}
+				if (rare) {
+					result.put(key(itemset), supports[itemset]);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The results on the example database of the SPMF documentation, found before
+	 * the miners counted supports with AprioriSupportCounter.
+	 */
+	@Test
+	public void testExampleDatabase() throws IOException {
+		List<int[]> transactions = Arrays.asList(new int[] { 1, 3, 4 }, new int[] { 2, 3, 5 },
+				new int[] { 1, 2, 3, 5 }, new int[] { 2, 5 }, new int[] { 1, 2, 3, 5 });
+		String input = PatternTestUtil.writeTransactions(transactions).getPath();
+		for (int threads : THREADS) {
+			Assert.assertEquals("{[1, 2, 3, 5]=2, [1, 2, 3]=2, [1, 2, 5]=2, [1, 2]=2, [1, 3, 5]=2, "
+					+ "[1, 3]=3, [1, 5]=2, [1]=3, [2, 3, 5]=3, [2, 3]=3, [2, 5]=4, [2]=4, [3, 5]=3, "
+					+ "[3]=4, [5]=4}", PatternTestUtil.toSupports(new AlgoApriori(threads)
+					.runAlgorithm(0.4, input, null).getLevels()).toString());
+			Assert.assertEquals("{[1, 2, 3, 5]=2, [1, 3]=3, [2, 3, 5]=3, [2, 5]=4, [3]=4}",
+					PatternTestUtil.toSupports(new AlgoAprioriClose(threads)
+					.runAlgorithm(0.4, input, null).getLevels()).toString());
+			Assert.assertEquals("{[1, 2]=2, [1, 5]=2, [4]=1}", PatternTestUtil.toSupports(
+					new AlgoAprioriRare(threads).runAlgorithm(0.6, input, null).getLevels()).toString());
+			Assert.assertEquals("{[1, 4]=1, [1]=3, [4]=1}", PatternTestUtil.toSupports(
+					new AlgoAprioriInverse(threads).runAlgorithm(0.1, 0.6, input, null).getLevels())
+					.toString());
+		}
+	}
+
+	@Test
+	public void testGeneratedDatabases() throws IOException {
+		for (int seed = 0; seed < 6; seed++) {
+			int itemCount = 8 + seed;
+			List<int[]> transactions = PatternTestUtil.generateTransactions(100 + 40 * seed,
+					itemCount, 7, seed);
+			String input = PatternTestUtil.writeTransactions(transactions).getPath();
+			BruteForce expected = new BruteForce(transactions, itemCount);
+			double minsup = 0.03 + 0.04 * seed;
+			double maxsup = minsup + 0.25;
+			int minsupRelative = (int) Math.ceil(minsup * transactions.size());
+			int maxsupRelative = (int) Math.ceil(maxsup * transactions.size());
+
+			for (int threads : THREADS) {
+				Assert.assertEquals(expected.frequent(minsupRelative), PatternTestUtil.toSupports(
+						new AlgoApriori(threads).runAlgorithm(minsup, input, null).getLevels()));
+				Assert.assertEquals(expected.closed(minsupRelative), PatternTestUtil.toSupports(
+						new AlgoAprioriClose(threads).runAlgorithm(minsup, input, null).getLevels()));
+				Assert.assertEquals(expected.minimalRare(minsupRelative), PatternTestUtil.toSupports(
+						new AlgoAprioriRare(threads).runAlgorithm(minsup, input, null).getLevels()));
+				Assert.assertEquals(expected.perfectlyRare(minsupRelative, maxsupRelative),
+						PatternTestUtil.toSupports(new AlgoAprioriInverse(threads)
+						.runAlgorithm(minsup, maxsup, input, null).getLevels()));
+			}
+		}
+	}
+}
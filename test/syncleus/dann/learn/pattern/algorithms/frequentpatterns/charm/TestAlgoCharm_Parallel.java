@@ -0,0 +1,49 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.charm;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.learn.pattern.PatternTestUtil;
+import syncleus.dann.learn.pattern.input.transaction_database_list_integers.TransactionDatabase;
+
+public class TestAlgoCharm_Parallel {
+
+	private static TransactionDatabase load(List<int[]> transactions) throws IOException {
+		TransactionDatabase database = new TransactionDatabase();
+		database.loadFile(PatternTestUtil.writeTransactions(transactions).getPath());
+		return database;
+	}
+
+	private static void assertSameItemsets(TransactionDatabase database, double minsup) throws IOException {
+		for (boolean triangularMatrix : new boolean[] { true, false }) {
+			Map<String, Integer> expected = PatternTestUtil.toSupports(new AlgoCharm_Bitset()
+					.runAlgorithm(null, database, minsup, triangularMatrix, 10000).getLevels());
+			Assert.assertTrue(expected.size() > 10);
+			for (int threads : new int[] { 1, 2, 4 }) {
+				Map<String, Integer> supports = PatternTestUtil.toSupports(new AlgoCharm_Parallel(threads)
+						.runAlgorithm(null, database, minsup, triangularMatrix, 10000).getLevels());
+				Assert.assertEquals(expected, supports);
+			}
+		}
+	}
+
+	@Test
+	public void testSameItemsetsAsCharm() throws IOException {
+		TransactionDatabase database = load(PatternTestUtil.generateTransactions(1000, 30, 10, 8));
+		for (double minsup : new double[] { 0.1, 0.03, 0.01 }) {
+			assertSameItemsets(database, minsup);
+		}
+	}
+
+	@Test
+	public void testLargeDatabase() throws IOException {
+		// more than 65536 transactions, so the tidsets have several containers,
+		// some of them sparse and some of them dense
+		TransactionDatabase database = load(PatternTestUtil.generateTransactions(150000, 15, 8, 9));
+		assertSameItemsets(database, 0.02);
+	}
+}
@@ -0,0 +1,272 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.estDec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAlgo_estDec_Stream {
+
+	/**
+	 * Generate sorted transactions of distinct items.
+	 */
+	private static List<int[]> generate(int count, int itemCount, int size, long seed) {
+		Random random = new Random(seed);
+		List<int[]> transactions = new ArrayList<int[]>();
+		for (int i = 0; i < count; i++) {
+			Set<Integer> items = new HashSet<Integer>();
+			// the small items are more frequent
+			while (items.size() < size) {
+				items.add(Math.min(random.nextInt(itemCount), random.nextInt(itemCount)) + 1);
+			}
+			int[] transaction = new int[size];
+			int j = 0;
+			for (int item : items) {
+				transaction[j++] = item;
+			}
+			Arrays.sort(transaction);
+			transactions.add(transaction);
+		}
+		return transactions;
+	}
+
+	/**
+	 * Run a stream on some transactions and return the last summary.
+	 */
+	private static Algo_estDec_Stream.Summary run(Algo_estDec_Stream stream, List<int[]> transactions)
+			throws InterruptedException {
+		stream.start();
+		for (int[] transaction : transactions) {
+			stream.addTransaction(transaction);
+		}
+		return stream.close();
+	}
+
+	private static Map<List<Integer>, Double> toMap(Algo_estDec_Stream.Summary summary) {
+		Map<List<Integer>, Double> result = new HashMap<List<Integer>, Double>();
+		for (int i = 0; i < summary.size(); i++) {
+			List<Integer> itemset = new ArrayList<Integer>();
+			for (int item : summary.getItemset(i)) {
+				itemset.add(item);
+			}
+			result.put(itemset, summary.getSupport(i));
+		}
+		return result;
+	}
+
+	@Test
+	public void testUnboundedMatchesEstDec() throws Exception {
+		List<int[]> transactions = generate(2500, 12, 4, 1);
+		Algo_estDec algo = new Algo_estDec(5);
+		for (int[] transaction : transactions) {
+			algo.processTransaction(transaction);
+		}
+		Hashtable<List<Integer>, Double> expected = algo.performMining_saveResultToMemory();
+		Assert.assertTrue(expected.size() > 12);
+
+		Algo_estDec_Stream stream = new Algo_estDec_Stream(5, Integer.MAX_VALUE, 100);
+		Algo_estDec_Stream.Summary summary = run(stream, transactions);
+		Assert.assertEquals(transactions.size(), summary.getTransactionCount());
+		Assert.assertEquals(new HashMap<List<Integer>, Double>(expected), toMap(summary));
+		for (int i = 1; i < summary.size(); i++) {
+			Assert.assertTrue(summary.getSupport(i - 1) >= summary.getSupport(i));
+		}
+	}
+
+	@Test
+	public void testNodeBudget() throws Exception {
+		List<int[]> transactions = generate(2000, 40, 8, 2);
+		Algo_estDec_Stream unbounded = new Algo_estDec_Stream(1, Integer.MAX_VALUE, 100);
+		Assert.assertTrue(run(unbounded, transactions).getNodeCount() > 60);
+
+		final int budget = 60;
+		Algo_estDec_Stream stream = new Algo_estDec_Stream(1, budget, 100);
+		stream.setPublishInterval(50);
+		stream.start();
+		for (int[] transaction : transactions) {
+			stream.addTransaction(transaction);
+			Assert.assertTrue(stream.getSummary().getNodeCount() <= budget);
+		}
+		Algo_estDec_Stream.Summary summary = stream.close();
+		Assert.assertTrue(summary.getNodeCount() <= budget);
+		Assert.assertTrue(summary.getNodeCount() > 0);
+		// the threshold was raised to fit the budget
+		Assert.assertTrue(summary.getMinsig() > 0.1 * 0.01);
+	}
+
+	@Test
+	public void testSummaryDuringIngestion() throws Exception {
+		LinkedBlockingQueue<int[]> queue = new LinkedBlockingQueue<int[]>();
+		List<int[]> transactions = generate(400, 10, 3, 3);
+		Algo_estDec_Stream stream = new Algo_estDec_Stream(10, Integer.MAX_VALUE, queue);
+		stream.setPublishInterval(25);
+		Assert.assertEquals(0, stream.getSummary().size());
+
+		queue.addAll(transactions.subList(0, 200));
+		stream.start();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (stream.getSummary().getTransactionCount() < 200) {
+			Assert.assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(5);
+		}
+		Algo_estDec_Stream.Summary first = stream.getSummary();
+		Assert.assertEquals(200, first.getTransactionCount());
+		Assert.assertTrue(first.size() > 0);
+		int[] top = first.getItemset(0);
+		top[0] = -1;
+		Assert.assertTrue(first.getItemset(0)[0] != -1);
+
+		// the summary can be read while the next transactions are processed
+		int last = 200;
+		for (int[] transaction : transactions.subList(200, 400)) {
+			stream.addTransaction(transaction);
+			int count = stream.getSummary().getTransactionCount();
+			Assert.assertTrue(count >= last);
+			last = count;
+		}
+		Algo_estDec_Stream.Summary summary = stream.close();
+		Assert.assertEquals(400, summary.getTransactionCount());
+		// a published summary does not change
+		Assert.assertEquals(200, first.getTransactionCount());
+	}
+
+	@Test
+	public void testClosedItemsetsOnly() throws Exception {
+		List<int[]> transactions = new ArrayList<int[]>();
+		for (int i = 0; i < 10; i++) {
+			transactions.add(new int[] { 1 });
+		}
+		for (int i = 0; i < 10; i++) {
+			transactions.add(new int[] { 1, 2 });
+		}
+		Map<List<Integer>, Double> all = toMap(run(new Algo_estDec_Stream(10, 100, 10), transactions));
+		Assert.assertEquals(new HashSet<List<Integer>>(Arrays.asList(Arrays.asList(1),
+				Arrays.asList(2), Arrays.asList(1, 2))), all.keySet());
+
+		Algo_estDec_Stream stream = new Algo_estDec_Stream(10, 100, 10);
+		stream.setClosedItemsetsOnly(true);
+		Map<List<Integer>, Double> closed = toMap(run(stream, transactions));
+		// {2} has the support of {1, 2}
+		Assert.assertEquals(new HashSet<List<Integer>>(Arrays.asList(Arrays.asList(1),
+				Arrays.asList(1, 2))), closed.keySet());
+		Assert.assertEquals(all.get(Arrays.asList(1, 2)), closed.get(Arrays.asList(1, 2)));
+	}
+
+	@Test
+	public void testTransactionNotModified() throws Exception {
+		int[] transaction = { 5, 3, 1 };
+		Algo_estDec_Stream stream = new Algo_estDec_Stream(10, 100, 10);
+		stream.start();
+		stream.addTransaction(transaction);
+		stream.close();
+		Assert.assertArrayEquals(new int[] { 5, 3, 1 }, transaction);
+	}
+
+	@Test
+	public void testRejectsNoMinimumSupport() {
+		try {
+			new Algo_estDec_Stream(0, 100, 10);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected, the budget could not be kept
+		}
+	}
+
+	@Test
+	public void testRejectsBeforeStart() throws Exception {
+		Algo_estDec_Stream stream = new Algo_estDec_Stream(10, 100, 1);
+		try {
+			stream.addTransaction(new int[] { 1 });
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected, nothing would take the transaction from the queue
+		}
+		try {
+			stream.offerTransaction(new int[] { 1 });
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testProducerReleasedWhenThreadDies() throws Exception {
+		// the ingestion thread dies on its first poll, with a full queue
+		ArrayBlockingQueue<int[]> queue = new ArrayBlockingQueue<int[]>(1) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public int[] poll(long timeout, TimeUnit unit) {
+				throw new AssertionError("ingestion stopped");
+			}
+		};
+		queue.add(new int[] { 1 });
+		Algo_estDec_Stream stream = new Algo_estDec_Stream(10, 100, queue);
+		stream.start();
+		long start = System.currentTimeMillis();
+		try {
+			for (int i = 0; i < 3; i++) {
+				stream.addTransaction(new int[] { 2 });
+			}
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getCause() instanceof AssertionError);
+		}
+		Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+		Assert.assertTrue(queue.isEmpty());
+		try {
+			stream.close();
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected, the failure is reported
+		}
+	}
+
+	@Test
+	public void testCloseWhileAdding() throws Exception {
+		// every transaction is either processed or rejected by its producer
+		for (int run = 0; run < 20; run++) {
+			final Algo_estDec_Stream stream = new Algo_estDec_Stream(10, 1000, 4);
+			stream.setPublishInterval(1);
+			stream.start();
+			final AtomicInteger added = new AtomicInteger();
+			Thread[] producers = new Thread[3];
+			for (int p = 0; p < producers.length; p++) {
+				producers[p] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							while (true) {
+								stream.addTransaction(new int[] { 1, 2 });
+								added.incrementAndGet();
+							}
+						} catch (IllegalStateException e) {
+							// the service is closed
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				});
+				producers[p].start();
+			}
+			Thread.sleep(run % 5);
+			Algo_estDec_Stream.Summary summary = stream.close();
+			for (Thread producer : producers) {
+				producer.join();
+			}
+			Assert.assertEquals(added.get(), summary.getTransactionCount());
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package syncleus.dann.learn.pattern.algorithms.frequentpatterns.fpgrowth;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.learn.pattern.PatternTestUtil;
+
+public class TestAlgoFPGrowth_Parallel {
+
+	/**
+	 * Read an output file, with the items of each itemset sorted.
+	 */
+	private static Set<String> readItemsets(File file) throws IOException {
+		Set<String> itemsets = new HashSet<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(" #SUP: ");
+				String[] tokens = parts[0].trim().split(" ");
+				int[] items = new int[tokens.length];
+				for (int i = 0; i < items.length; i++) {
+					items[i] = Integer.parseInt(tokens[i]);
+				}
+				Arrays.sort(items);
+				Assert.assertTrue(itemsets.add(Arrays.toString(items) + " " + parts[1].trim()));
+			}
+		} finally {
+			reader.close();
+		}
+		return itemsets;
+	}
+
+	@Test
+	public void testSameItemsetsAsFPGrowth() throws IOException {
+		List<int[]> transactions = PatternTestUtil.generateTransactions(1000, 30, 10, 4);
+		String input = PatternTestUtil.writeTransactions(transactions).getPath();
+		for (double minsup : new double[] { 0.1, 0.03, 0.01 }) {
+			Map<String, Integer> expected = PatternTestUtil.toSupports(new AlgoFPGrowth()
+					.runAlgorithm(input, null, minsup).getLevels());
+			Assert.assertTrue(expected.size() > 10);
+			for (int threads : new int[] { 1, 2, 4 }) {
+				AlgoFPGrowth_Parallel algo = new AlgoFPGrowth_Parallel(threads);
+				Map<String, Integer> supports = PatternTestUtil.toSupports(algo
+						.runAlgorithm(input, null, minsup).getLevels());
+				Assert.assertEquals(expected, supports);
+				Assert.assertEquals(expected.size(), algo.getItemsetCount());
+			}
+		}
+	}
+
+	@Test
+	public void testSameOutputFileAsFPGrowth() throws IOException {
+		// a dense database, whose conditional trees are split between tasks
+		List<int[]> transactions = PatternTestUtil.generateTransactions(5000, 40, 25, 5);
+		String input = PatternTestUtil.writeTransactions(transactions).getPath();
+		File expected = PatternTestUtil.createTempFile();
+		new AlgoFPGrowth().runAlgorithm(input, expected.getPath(), 0.04);
+		Set<String> itemsets = readItemsets(expected);
+		Assert.assertTrue(itemsets.size() > 1000);
+		for (int threads : new int[] { 1, 4 }) {
+			File output = PatternTestUtil.createTempFile();
+			new AlgoFPGrowth_Parallel(threads).runAlgorithm(input, output.getPath(), 0.04);
+			Assert.assertEquals(itemsets, readItemsets(output));
+		}
+	}
+}
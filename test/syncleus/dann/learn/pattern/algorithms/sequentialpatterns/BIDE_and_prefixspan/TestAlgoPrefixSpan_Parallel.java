@@ -0,0 +1,223 @@
+package syncleus.dann.learn.pattern.algorithms.sequentialpatterns.BIDE_and_prefixspan;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.learn.pattern.PatternTestUtil;
+import syncleus.dann.learn.pattern.input.sequence_database_list_integers.SequenceDatabase;
+import syncleus.dann.learn.pattern.patterns.itemset_list_integers_without_support.Itemset;
+
+public class TestAlgoPrefixSpan_Parallel {
+
+	/** the thread counts to compare */
+	private static final int[] THREADS = { 1, 2, 4 };
+
+	private static SequenceDatabase load(List<List<int[]>> sequences) throws IOException {
+		SequenceDatabase database = new SequenceDatabase();
+		database.loadFile(PatternTestUtil.writeSequences(sequences).getPath());
+		return database;
+	}
+
+	/**
+	 * Generate sequences where some fixed motifs are inserted between random
+	 * itemsets, so that many patterns are not closed.
+	 */
+	private static List<List<int[]>> generateWithMotifs(int count, int itemCount, long seed) {
+		int[][][] motifs = { { { 1, 2 }, { 3 }, { 4, 5 } }, { { 6 }, { 2, 7 }, { 6 }, { 1 } },
+				{ { 3, 8 }, { 9 } } };
+		Random random = new Random(seed);
+		List<List<int[]>> sequences = PatternTestUtil.generateSequences(count, itemCount, 5, 3, seed);
+		for (List<int[]> sequence : sequences) {
+			for (int[][] motif : motifs) {
+				if (random.nextInt(3) == 0) {
+					continue;
+				}
+				int position = 0;
+				for (int[] itemset : motif) {
+					position += random.nextInt(sequence.size() - position + 1);
+					sequence.add(position++, itemset);
+				}
+			}
+		}
+		return sequences;
+	}
+
+	/**
+	 * Get the support and the sequences of each pattern, keyed by its itemsets.
+	 */
+	private static Map<String, String> toMap(SequentialPatterns patterns) {
+		Map<String, String> result = new TreeMap<String, String>();
+		for (List<SequentialPattern> level : patterns.getLevels()) {
+			for (SequentialPattern pattern : level) {
+				String sequences = pattern.getAbsoluteSupport() + " "
+						+ new TreeSet<Integer>(pattern.getSequenceIDs());
+				String previous = result.put(pattern.itemsetsToString().trim(), sequences);
+				if (previous != null) {
+					throw new AssertionError("Pattern found twice: " + pattern.itemsetsToString());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Read an output file in the format of AlgoPrefixSpan.
+	 */
+	private static Set<String> readPatterns(File file) throws IOException {
+		Set<String> patterns = new HashSet<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Assert.assertTrue(patterns.add(line.trim()));
+			}
+		} finally {
+			reader.close();
+		}
+		return patterns;
+	}
+
+	/**
+	 * Check if the itemsets of a pattern are included, in order, in the
+	 * itemsets of another pattern. The earliest matching itemset is always
+	 * the best choice.
+	 */
+	private static boolean isSubPattern(List<Itemset> pattern, List<Itemset> superPattern) {
+		int j = 0;
+		for (Itemset itemset : pattern) {
+			while (j < superPattern.size() && !superPattern.get(j).getItems().containsAll(itemset.getItems())) {
+				j++;
+			}
+			if (j == superPattern.size()) {
+				return false;
+			}
+			j++;
+		}
+		return true;
+	}
+
+	/**
+	 * Find the closed patterns among all the frequent patterns: the patterns
+	 * such that no other pattern containing them has the same support.
+	 */
+	private static Map<String, String> closedPatterns(SequentialPatterns frequent) {
+		Map<Integer, List<SequentialPattern>> bySupport = new TreeMap<Integer, List<SequentialPattern>>();
+		for (List<SequentialPattern> level : frequent.getLevels()) {
+			for (SequentialPattern pattern : level) {
+				List<SequentialPattern> patterns = bySupport.get(pattern.getAbsoluteSupport());
+				if (patterns == null) {
+					patterns = new ArrayList<SequentialPattern>();
+					bySupport.put(pattern.getAbsoluteSupport(), patterns);
+				}
+				patterns.add(pattern);
+			}
+		}
+		SequentialPatterns closed = new SequentialPatterns("CLOSED");
+		for (List<SequentialPattern> patterns : bySupport.values()) {
+			search: for (SequentialPattern pattern : patterns) {
+				for (SequentialPattern other : patterns) {
+					if (other.getItemOccurencesTotalCount() > pattern.getItemOccurencesTotalCount()
+							&& isSubPattern(pattern.getItemsets(), other.getItemsets())) {
+						continue search;
+					}
+				}
+				closed.addSequence(pattern, pattern.size());
+			}
+		}
+		return toMap(closed);
+	}
+
+	@Test
+	public void testSamePatternsAsPrefixSpan() throws IOException {
+		for (int seed = 0; seed < 4; seed++) {
+			SequenceDatabase database = load(PatternTestUtil.generateSequences(300, 12 + 4 * seed,
+					8, 3, seed));
+			for (double minsup : new double[] { 0.15, 0.05 }) {
+				Map<String, String> expected = toMap(new AlgoPrefixSpan().runAlgorithm(database, minsup, null));
+				Assert.assertTrue(expected.size() > 20);
+				for (int threads : THREADS) {
+					AlgoPrefixSpan_Parallel algo = new AlgoPrefixSpan_Parallel(threads);
+					Assert.assertEquals(expected, toMap(algo.runAlgorithm(database, minsup, null)));
+					Assert.assertEquals(expected.size(), algo.getPatternCount());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMaximumPatternLength() throws IOException {
+		SequenceDatabase database = load(PatternTestUtil.generateSequences(300, 15, 8, 3, 10));
+		for (int length = 1; length <= 3; length++) {
+			AlgoPrefixSpan prefixSpan = new AlgoPrefixSpan();
+			prefixSpan.setMaximumPatternLength(length);
+			Map<String, String> expected = toMap(prefixSpan.runAlgorithm(database, 0.05, null));
+			for (int threads : THREADS) {
+				AlgoPrefixSpan_Parallel algo = new AlgoPrefixSpan_Parallel(threads);
+				algo.setMaximumPatternLength(length);
+				Assert.assertEquals(expected, toMap(algo.runAlgorithm(database, 0.05, null)));
+			}
+		}
+	}
+
+	@Test
+	public void testSmallProjectionMemoryLimit() throws IOException {
+		// the projected databases are then mined by the task that found them
+		SequenceDatabase database = load(PatternTestUtil.generateSequences(2000, 20, 10, 4, 11));
+		Map<String, String> expected = toMap(new AlgoPrefixSpan().runAlgorithm(database, 0.05, null));
+		for (long limit : new long[] { 0, 100000 }) {
+			AlgoPrefixSpan_Parallel algo = new AlgoPrefixSpan_Parallel(4);
+			algo.setProjectionMemoryLimit(limit);
+			Assert.assertEquals(expected, toMap(algo.runAlgorithm(database, 0.05, null)));
+		}
+	}
+
+	@Test
+	public void testSameOutputFileAsPrefixSpan() throws IOException {
+		SequenceDatabase database = load(PatternTestUtil.generateSequences(1000, 20, 10, 4, 12));
+		File expected = PatternTestUtil.createTempFile();
+		new AlgoPrefixSpan().runAlgorithm(database, 0.05, expected.getPath());
+		Set<String> patterns = readPatterns(expected);
+		Assert.assertTrue(patterns.size() > 100);
+		for (int threads : THREADS) {
+			File output = PatternTestUtil.createTempFile();
+			new AlgoPrefixSpan_Parallel(threads).runAlgorithm(database, 0.05, output.getPath());
+			Assert.assertEquals(patterns, readPatterns(output));
+		}
+	}
+
+	@Test
+	public void testClosedPatterns() throws IOException {
+		for (int seed = 0; seed < 4; seed++) {
+			SequenceDatabase database = load(generateWithMotifs(200, 10 + 3 * seed, 20 + seed));
+			for (double minsup : new double[] { 0.3, 0.15 }) {
+				SequentialPatterns frequent = new AlgoPrefixSpan().runAlgorithm(database, minsup, null);
+				Map<String, String> expected = closedPatterns(frequent);
+				Assert.assertTrue(expected.size() > 10);
+				Assert.assertTrue(expected.size() < toMap(frequent).size());
+				for (int threads : THREADS) {
+					AlgoPrefixSpan_Parallel algo = new AlgoPrefixSpan_Parallel(threads);
+					algo.setClosedPatternsOnly(true);
+					Assert.assertEquals(expected, toMap(algo.runAlgorithm(database, minsup, null)));
+					Assert.assertEquals(expected.size(), algo.getPatternCount());
+
+					File output = PatternTestUtil.createTempFile();
+					algo.runAlgorithm(database, minsup, output.getPath());
+					Assert.assertEquals(expected.size(), readPatterns(output).size());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package syncleus.dann.learn.pattern.datastructures.compressedbitmap;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCompressedBitmap {
+
+	/** the densities of the generated bitmaps, from sparse to dense */
+	private static final double[] DENSITIES = { 0.0001, 0.01, 0.06, 0.3, 0.9 };
+
+	/**
+	 * Generate a BitSet of values below a limit, each set with a probability.
+	 */
+	private static BitSet generate(Random random, int limit, double density) {
+		BitSet bitset = new BitSet(limit);
+		for (int value = 0; value < limit; value++) {
+			if (random.nextDouble() < density) {
+				bitset.set(value);
+			}
+		}
+		return bitset;
+	}
+
+	/**
+	 * Generate a BitSet whose chunks of 65536 values have different densities,
+	 * so that a bitmap has both array and bitmap containers.
+	 */
+	private static BitSet generateMixed(Random random, int chunks) {
+		BitSet bitset = new BitSet();
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			double density = DENSITIES[random.nextInt(DENSITIES.length)];
+			if (random.nextInt(4) == 0) {
+				// an empty chunk
+				continue;
+			}
+			for (int low = 0; low < 65536; low++) {
+				if (random.nextDouble() < density) {
+					bitset.set((chunk << 16) | low);
+				}
+			}
+		}
+		return bitset;
+	}
+
+	private static void assertSame(BitSet expected, CompressedBitmap bitmap) {
+		Assert.assertEquals(expected.cardinality(), bitmap.getCardinality());
+		Assert.assertEquals(expected, bitmap.toBitSet());
+		int value = bitmap.nextSetBit(0);
+		for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+			Assert.assertEquals(i, value);
+			value = bitmap.nextSetBit(value + 1);
+		}
+		Assert.assertEquals(-1, value);
+	}
+
+	private static void assertOperations(BitSet bitset1, BitSet bitset2) {
+		CompressedBitmap bitmap1 = CompressedBitmap.fromBitSet(bitset1);
+		CompressedBitmap bitmap2 = CompressedBitmap.fromBitSet(bitset2);
+
+		BitSet and = (BitSet) bitset1.clone();
+		and.and(bitset2);
+		assertSame(and, CompressedBitmap.and(bitmap1, bitmap2));
+		Assert.assertEquals(and.cardinality(), CompressedBitmap.andCardinality(bitmap1, bitmap2));
+
+		BitSet andNot = (BitSet) bitset1.clone();
+		andNot.andNot(bitset2);
+		assertSame(andNot, CompressedBitmap.andNot(bitmap1, bitmap2));
+		Assert.assertEquals(andNot.cardinality(), CompressedBitmap.andNotCardinality(bitmap1, bitmap2));
+
+		// the results are valid operands too
+		BitSet both = (BitSet) and.clone();
+		both.and(andNot);
+		assertSame(both, CompressedBitmap.and(CompressedBitmap.and(bitmap1, bitmap2),
+				CompressedBitmap.andNot(bitmap1, bitmap2)));
+	}
+
+	@Test
+	public void testAdd() {
+		Random random = new Random(1);
+		for (double density : DENSITIES) {
+			BitSet expected = generate(random, 300000, density);
+			CompressedBitmap bitmap = new CompressedBitmap();
+			for (int value = expected.nextSetBit(0); value >= 0; value = expected.nextSetBit(value + 1)) {
+				bitmap.add(value);
+				// adding the last value again has no effect
+				bitmap.add(value);
+			}
+			assertSame(expected, bitmap);
+			bitmap.trim();
+			assertSame(expected, bitmap);
+			assertSame(expected, CompressedBitmap.fromBitSet(expected));
+		}
+		assertSame(new BitSet(), new CompressedBitmap());
+	}
+
+	@Test
+	public void testAddOutOfOrder() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		bitmap.add(70000);
+		try {
+			bitmap.add(5);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			bitmap.add(-1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testContains() {
+		Random random = new Random(2);
+		for (double density : DENSITIES) {
+			BitSet expected = generate(random, 200000, density);
+			CompressedBitmap bitmap = CompressedBitmap.fromBitSet(expected);
+			for (int value = 0; value < 210000; value++) {
+				Assert.assertEquals(expected.get(value), bitmap.contains(value));
+			}
+			Assert.assertFalse(bitmap.contains(-1));
+		}
+	}
+
+	@Test
+	public void testNextSetBit() {
+		BitSet expected = new BitSet();
+		expected.set(3);
+		expected.set(65535);
+		expected.set(3 << 16);
+		expected.set(Integer.MAX_VALUE - 7);
+		CompressedBitmap bitmap = CompressedBitmap.fromBitSet(expected);
+		for (int from : new int[] { -5, 0, 3, 4, 65535, 65536, 3 << 16, (3 << 16) + 1,
+				Integer.MAX_VALUE - 8, Integer.MAX_VALUE - 7, Integer.MAX_VALUE - 6 }) {
+			Assert.assertEquals(expected.nextSetBit(Math.max(0, from)), bitmap.nextSetBit(from));
+		}
+		Assert.assertEquals(-1, new CompressedBitmap().nextSetBit(0));
+	}
+
+	@Test
+	public void testContainerThreshold() {
+		// a chunk with as many values as an array container can hold, then one more
+		for (int count = CompressedBitmap.MAX_ARRAY_SIZE - 1; count <= CompressedBitmap.MAX_ARRAY_SIZE + 1; count++) {
+			BitSet bitset1 = new BitSet();
+			BitSet bitset2 = new BitSet();
+			for (int i = 0; i < count; i++) {
+				bitset1.set(65536 + i * 15);
+				bitset2.set(65536 + i * 10);
+			}
+			assertSame(bitset1, CompressedBitmap.fromBitSet(bitset1));
+			assertOperations(bitset1, bitset2);
+			assertOperations(bitset2, bitset1);
+		}
+	}
+
+	@Test
+	public void testSparseAndDense() {
+		Random random = new Random(3);
+		for (double density1 : DENSITIES) {
+			for (double density2 : DENSITIES) {
+				BitSet bitset1 = generate(random, 200000, density1);
+				BitSet bitset2 = generate(random, 150000 + random.nextInt(100000), density2);
+				assertOperations(bitset1, bitset2);
+				assertOperations(bitset1, bitset1);
+				assertOperations(bitset1, new BitSet());
+				assertOperations(new BitSet(), bitset1);
+			}
+		}
+	}
+
+	@Test
+	public void testMixedContainers() {
+		Random random = new Random(4);
+		for (int i = 0; i < 20; i++) {
+			assertOperations(generateMixed(random, 6), generateMixed(random, 6));
+		}
+	}
+
+	@Test
+	public void testEquals() {
+		Random random = new Random(5);
+		BitSet bitset = generateMixed(random, 4);
+		CompressedBitmap bitmap1 = CompressedBitmap.fromBitSet(bitset);
+		CompressedBitmap bitmap2 = new CompressedBitmap();
+		for (int value = bitset.nextSetBit(0); value >= 0; value = bitset.nextSetBit(value + 1)) {
+			bitmap2.add(value);
+		}
+		Assert.assertEquals(bitmap1, bitmap2);
+		Assert.assertEquals(bitmap1.hashCode(), bitmap2.hashCode());
+		// the same values, computed by an operation
+		Assert.assertEquals(bitmap1, CompressedBitmap.and(bitmap1, bitmap1));
+
+		bitmap2.add(bitset.length() + 1);
+		Assert.assertFalse(bitmap1.equals(bitmap2));
+		Assert.assertEquals(new CompressedBitmap(), CompressedBitmap.andNot(bitmap1, bitmap1));
+
+		CompressedBitmap bitmap3 = new CompressedBitmap();
+		bitmap3.add(1);
+		bitmap3.add(70000);
+		Assert.assertEquals("{1, 70000}", bitmap3.toString());
+	}
+}
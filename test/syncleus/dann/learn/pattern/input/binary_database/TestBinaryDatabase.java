@@ -0,0 +1,196 @@
+package syncleus.dann.learn.pattern.input.binary_database;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import syncleus.dann.learn.pattern.PatternTestUtil;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.apriori.AlgoApriori;
+import syncleus.dann.learn.pattern.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+import syncleus.dann.learn.pattern.input.sequence_database_array_integers.SequenceDatabase;
+import syncleus.dann.learn.pattern.input.transaction_database_list_integers.TransactionDatabase;
+import syncleus.dann.learn.pattern.tools.dataset_converter.BinaryDatabaseConverter;
+
+public class TestBinaryDatabase {
+
+	private static List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+
+	private static File convertTransactions(File text) throws IOException {
+		File binary = PatternTestUtil.createTempFile();
+		new BinaryDatabaseConverter().convertTransactionDatabase(text.getPath(), binary.getPath());
+		return binary;
+	}
+
+	@Test
+	public void testWriterRoundTrip() throws IOException {
+		// values needing one to four bytes
+		int[][] records = { { 1, 2, 3 }, {}, { 127, 128, 16383, 16384 }, { 5, 3000000 },
+				{ 0, 5, 5 } };
+		File file = PatternTestUtil.createTempFile();
+		BinaryDatabaseWriter writer = new BinaryDatabaseWriter(file.getPath(), false);
+		for (int[] record : records) {
+			writer.addRecord(record, record.length);
+		}
+		writer.close();
+		Assert.assertEquals(records.length, writer.size());
+
+		Assert.assertTrue(BinaryDatabase.isBinaryDatabase(file.getPath()));
+		BinaryDatabase database = new BinaryDatabase(file.getPath());
+		try {
+			Assert.assertEquals(records.length, database.size());
+			Assert.assertFalse(database.isSequenceDatabase());
+			Assert.assertEquals(3000000, database.getMaxItem());
+			Assert.assertEquals(4, database.getMaxLength());
+			int[] buffer = new int[database.getMaxLength()];
+			for (int i = 0; i < records.length; i++) {
+				Assert.assertArrayEquals(records[i], database.get(i));
+				Assert.assertEquals(records[i].length, database.getLength(i));
+				Assert.assertEquals(records[i].length, database.read(i, buffer));
+			}
+		} finally {
+			database.close();
+		}
+	}
+
+	@Test
+	public void testRejectsNegativeItems() throws IOException {
+		File file = PatternTestUtil.createTempFile();
+		BinaryDatabaseWriter writer = new BinaryDatabaseWriter(file.getPath(), false);
+		try {
+			writer.addRecord(new int[] { 1, -1 }, 2);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected, only sequences have separators
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test
+	public void testTransactionRoundTrip() throws IOException {
+		List<int[]> transactions = PatternTestUtil.generateTransactions(500, 300, 12, 1);
+		File text = PatternTestUtil.writeTransactions(transactions);
+		File binary = convertTransactions(text);
+		Assert.assertFalse(BinaryDatabase.isBinaryDatabase(text.getPath()));
+
+		BinaryDatabase database = new BinaryDatabase(binary.getPath());
+		try {
+			Assert.assertEquals(transactions.size(), database.size());
+			int[] supports = new int[301];
+			for (int i = 0; i < transactions.size(); i++) {
+				Assert.assertArrayEquals(transactions.get(i), database.get(i));
+				for (int item : transactions.get(i)) {
+					supports[item]++;
+				}
+			}
+			int[] stored = database.getItemSupports();
+			for (int item = 0; item < supports.length; item++) {
+				Assert.assertEquals(supports[item], item < stored.length ? stored[item] : 0);
+			}
+		} finally {
+			database.close();
+		}
+
+		File back = PatternTestUtil.createTempFile();
+		new BinaryDatabaseConverter().convertToText(binary.getPath(), back.getPath());
+		Assert.assertEquals(readLines(text), readLines(back));
+	}
+
+	@Test
+	public void testConverterSkipsMetadata() throws IOException {
+		File text = PatternTestUtil.createTempFile();
+		BufferedWriter writer = new BufferedWriter(new FileWriter(text));
+		writer.write("@CONVERTED_FROM_TEXT\n# a comment\n1 2 3\r\n\n%metadata 4\n4  5\t6\n7");
+		writer.close();
+		BinaryDatabase database = new BinaryDatabase(convertTransactions(text).getPath());
+		try {
+			Assert.assertEquals(3, database.size());
+			Assert.assertArrayEquals(new int[] { 1, 2, 3 }, database.get(0));
+			Assert.assertArrayEquals(new int[] { 4, 5, 6 }, database.get(1));
+			Assert.assertArrayEquals(new int[] { 7 }, database.get(2));
+		} finally {
+			database.close();
+		}
+	}
+
+	@Test
+	public void testSequenceRoundTrip() throws IOException {
+		List<List<int[]>> sequences = PatternTestUtil.generateSequences(200, 50, 6, 4, 2);
+		File text = PatternTestUtil.writeSequences(sequences);
+		File binary = PatternTestUtil.createTempFile();
+		Assert.assertEquals(sequences.size(), new BinaryDatabaseConverter()
+				.convertSequenceDatabase(text.getPath(), binary.getPath()));
+
+		BinaryDatabase database = new BinaryDatabase(binary.getPath());
+		try {
+			Assert.assertTrue(database.isSequenceDatabase());
+			for (int i = 0; i < sequences.size(); i++) {
+				List<Integer> expected = new ArrayList<Integer>();
+				for (int[] itemset : sequences.get(i)) {
+					for (int item : itemset) {
+						expected.add(item);
+					}
+					expected.add(-1);
+				}
+				List<Integer> values = new ArrayList<Integer>();
+				for (int value : database.get(i)) {
+					values.add(value);
+				}
+				Assert.assertEquals(expected, values);
+			}
+		} finally {
+			database.close();
+		}
+
+		SequenceDatabase fromText = new SequenceDatabase();
+		fromText.loadFile(text.getPath());
+		SequenceDatabase fromBinary = new SequenceDatabase();
+		fromBinary.loadFile(binary.getPath());
+		Assert.assertEquals(fromText.toString(), fromBinary.toString());
+	}
+
+	@Test
+	public void testMinersGiveSameItemsets() throws IOException {
+		List<int[]> transactions = PatternTestUtil.generateTransactions(400, 20, 8, 3);
+		File text = PatternTestUtil.writeTransactions(transactions);
+		File binary = convertTransactions(text);
+
+		Map<String, Integer> expected = PatternTestUtil.toSupports(new AlgoFPGrowth()
+				.runAlgorithm(text.getPath(), null, 0.1).getLevels());
+		Assert.assertTrue(expected.size() > 20);
+		Assert.assertEquals(expected, PatternTestUtil.toSupports(new AlgoFPGrowth()
+				.runAlgorithm(binary.getPath(), null, 0.1).getLevels()));
+
+		expected = PatternTestUtil.toSupports(new AlgoApriori()
+				.runAlgorithm(0.1, text.getPath(), null).getLevels());
+		Assert.assertEquals(expected, PatternTestUtil.toSupports(new AlgoApriori()
+				.runAlgorithm(0.1, binary.getPath(), null).getLevels()));
+
+		TransactionDatabase fromText = new TransactionDatabase();
+		fromText.loadFile(text.getPath());
+		TransactionDatabase fromBinary = new TransactionDatabase();
+		fromBinary.loadFile(binary.getPath());
+		Assert.assertEquals(fromText.getTransactions(), fromBinary.getTransactions());
+	}
+}
@@ -0,0 +1,89 @@
+package syncleus.dann.neural.hyperneat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.neural.hyperneat.substrate.Substrate;
+import syncleus.dann.neural.hyperneat.substrate.SubstrateFactory;
+import syncleus.dann.neural.neat.NEATLink;
+import syncleus.dann.neural.neat.NEATNetwork;
+import syncleus.dann.neural.neat.NEATNeuronType;
+import syncleus.dann.neural.neat.NEATPopulation;
+import syncleus.dann.neural.neat.training.NEATGenome;
+import syncleus.dann.neural.neat.training.NEATLinkGene;
+import syncleus.dann.neural.neat.training.NEATNeuronGene;
+import syncleus.dann.neural.util.activation.ActivationBipolarSteepenedSigmoid;
+import syncleus.dann.neural.util.activation.ActivationGaussian;
+import syncleus.dann.neural.util.activation.ActivationLinear;
+
+public class TestHyperNEATCODEC {
+
+    /**
+     * A CPPN with a hidden neuron that feeds itself and is fed by the weight
+     * output, so its outputs depend on the activation cycles run so far.
+     */
+    private static NEATGenome createRecurrentGenome(final NEATPopulation pop) {
+        final List<NEATNeuronGene> neurons = new ArrayList<>();
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Bias,
+                new ActivationLinear(), 0, 0));
+        for (int i = 1; i <= 6; i++) {
+            neurons.add(new NEATNeuronGene(NEATNeuronType.Input,
+                    new ActivationLinear(), i, i));
+        }
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Output,
+                new ActivationBipolarSteepenedSigmoid(), 7, 7));
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Output,
+                new ActivationBipolarSteepenedSigmoid(), 8, 8));
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Hidden,
+                new ActivationGaussian(), 9, 9));
+
+        final double[][] links = {{1, 9, 0.9}, {2, 9, -0.4}, {3, 9, 0.7},
+                {4, 9, -1.1}, {5, 9, 0.3}, {6, 9, 0.8}, {0, 9, 0.2},
+                {9, 9, 0.6}, {7, 9, -0.9}, {9, 7, 1.7}, {2, 7, 0.5},
+                {5, 7, -0.6}, {9, 8, -1.3}, {4, 8, 0.4}, {8, 8, 0.5}};
+        final List<NEATLinkGene> linkGenes = new ArrayList<>();
+        for (int i = 0; i < links.length; i++) {
+            linkGenes.add(new NEATLinkGene((long) links[i][0],
+                    (long) links[i][1], true, 10 + i, links[i][2]));
+        }
+
+        final NEATGenome genome = new NEATGenome(neurons, linkGenes, 6, 2);
+        genome.setPopulation(pop);
+        return genome;
+    }
+
+    private static NEATNetwork decode(final Substrate substrate,
+                                      final NEATPopulation pop, final NEATGenome genome,
+                                      final int threads) {
+        final HyperNEATCODEC codec = new HyperNEATCODEC();
+        codec.setThreadCount(threads);
+        return (NEATNetwork) codec.decode(pop, substrate, genome);
+    }
+
+    @Test
+    public void testRecurrentCPPNIndependentOfThreads() {
+        final Substrate substrate = SubstrateFactory.factorSandwichSubstrate(
+                6, 6);
+        final NEATPopulation pop = new NEATPopulation(substrate, 10);
+        final NEATGenome genome = createRecurrentGenome(pop);
+
+        final NEATNetwork single = decode(substrate, pop, genome, 1);
+        Assert.assertNotNull(single);
+        final NEATLink[] expected = single.getLinks();
+        Assert.assertTrue(expected.length > 0);
+        for (int threads = 2; threads <= 5; threads++) {
+            final NEATLink[] links = decode(substrate, pop, genome, threads)
+                    .getLinks();
+            Assert.assertEquals(expected.length, links.length);
+            for (int i = 0; i < links.length; i++) {
+                Assert.assertEquals(expected[i].getFromNeuron(),
+                        links[i].getFromNeuron());
+                Assert.assertEquals(expected[i].getToNeuron(),
+                        links[i].getToNeuron());
+                Assert.assertEquals(expected[i].getWeight(),
+                        links[i].getWeight(), 0.0);
+            }
+        }
+    }
+}
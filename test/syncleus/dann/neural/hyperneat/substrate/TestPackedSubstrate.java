@@ -0,0 +1,25 @@
+package syncleus.dann.neural.hyperneat.substrate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPackedSubstrate {
+
+    @Test
+    public void testPackedFollowsNodeLocations() {
+        final Substrate substrate = SubstrateFactory.factorSandwichSubstrate(
+                2, 2);
+        final PackedSubstrate packed = substrate.getPacked();
+        Assert.assertSame(packed, substrate.getPacked());
+        Assert.assertEquals(-1.0, packed.getLinkCoordinates()[0], 0.0);
+
+        substrate.getInputNodes().get(0).getLocation()[0] = -0.5;
+        final PackedSubstrate moved = substrate.getPacked();
+        Assert.assertNotSame(packed, moved);
+        Assert.assertEquals(-0.5, moved.getLinkCoordinates()[0], 0.0);
+
+        substrate.getOutputNodes().get(0).getLocation()[2] = 0.25;
+        Assert.assertEquals(0.25, substrate.getPacked()
+                .getBiasedCoordinates()[2], 0.0);
+    }
+}
@@ -0,0 +1,158 @@
+package syncleus.dann.neural.neat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import syncleus.dann.data.vector.VectorData;
+import syncleus.dann.neural.neat.training.NEATGenome;
+import syncleus.dann.neural.neat.training.NEATLinkGene;
+import syncleus.dann.neural.neat.training.NEATNeuronGene;
+import syncleus.dann.neural.util.activation.ActivationLinear;
+import syncleus.dann.neural.util.activation.ActivationSteepenedSigmoid;
+import syncleus.dann.neural.util.activation.ActivationTANH;
+
+public class TestNEATNetwork {
+
+    private static final double[][] INPUTS = {{0, 0, 0}, {1, 0, 0},
+            {0.5, -0.25, 1}, {-1, 2, 0.3}, {0.1, 0.2, -0.7}};
+
+    /**
+     * A genome with 3 inputs, 2 outputs and 2 hidden neurons.
+     *
+     * @param links the links, as {from, to, weight}
+     */
+    private static NEATGenome createGenome(final NEATPopulation pop,
+                                           final double[][] links) {
+        final List<NEATNeuronGene> neurons = new ArrayList<>();
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Bias,
+                new ActivationLinear(), 0, 0));
+        for (int i = 1; i <= 3; i++) {
+            neurons.add(new NEATNeuronGene(NEATNeuronType.Input,
+                    new ActivationLinear(), i, i));
+        }
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Output,
+                new ActivationSteepenedSigmoid(), 4, 4));
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Output,
+                new ActivationSteepenedSigmoid(), 5, 5));
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Hidden,
+                new ActivationTANH(), 6, 6));
+        neurons.add(new NEATNeuronGene(NEATNeuronType.Hidden,
+                new ActivationTANH(), 7, 7));
+
+        final List<NEATLinkGene> linkGenes = new ArrayList<>();
+        for (int i = 0; i < links.length; i++) {
+            linkGenes.add(new NEATLinkGene((long) links[i][0],
+                    (long) links[i][1], true, 10 + i, links[i][2]));
+        }
+
+        final NEATGenome genome = new NEATGenome(neurons, linkGenes, 3, 2);
+        genome.setPopulation(pop);
+        return genome;
+    }
+
+    /**
+     * Inputs feed neuron 6, which feeds neuron 7, which feeds the outputs, so
+     * the longest path has 3 links.
+     */
+    private static NEATGenome createFeedforwardGenome(final NEATPopulation pop) {
+        return createGenome(pop, new double[][]{{1, 6, 0.9}, {2, 6, -0.4},
+                {3, 6, 0.7}, {0, 6, 0.2}, {6, 7, 1.3}, {1, 7, -0.8},
+                {0, 7, -0.1}, {7, 4, 1.7}, {2, 4, 0.5}, {6, 4, -0.6},
+                {7, 5, -1.3}, {3, 5, 0.4}, {0, 5, 0.3}});
+    }
+
+    /**
+     * Neuron 7 feeds itself and output 5 feeds neuron 6 back. A link into an
+     * input neuron is also included, it never affects the output.
+     */
+    private static NEATGenome createRecurrentGenome(final NEATPopulation pop) {
+        return createGenome(pop, new double[][]{{1, 6, 0.9}, {2, 6, -0.4},
+                {3, 6, 0.7}, {5, 6, 1.1}, {6, 7, 1.3}, {7, 7, 0.6},
+                {0, 7, -0.1}, {7, 4, 1.7}, {2, 4, 0.5}, {6, 4, -0.6},
+                {7, 5, -1.3}, {4, 5, 0.8}, {0, 5, 0.3}, {6, 2, 0.9}});
+    }
+
+    /**
+     * The evaluation of NEATNetwork before its links were compiled: every
+     * activation cycle adds the contribution of each link, in the order of
+     * the links, then activates every non-input neuron.
+     */
+    private static double[] linkListCompute(final NEATNetwork network,
+                                            final double[] input) {
+        final int neuronCount = network.getEncogActivationFunctions().length;
+        final double[] preActivation = new double[neuronCount];
+        final double[] postActivation = new double[neuronCount];
+        postActivation[0] = 1.0;
+        System.arraycopy(input, 0, postActivation, 1, network.getInputCount());
+
+        final NEATLink[] links = network.getLinks();
+        for (int cycle = 0; cycle < network.getActivationCycles(); cycle++) {
+            for (final NEATLink link : links) {
+                preActivation[link.getToNeuron()] += postActivation[link
+                        .getFromNeuron()] * link.getWeight();
+            }
+            for (int j = network.getOutputIndex(); j < neuronCount; j++) {
+                postActivation[j] = preActivation[j];
+                network.getEncogActivationFunctions()[j].activate(
+                        postActivation, j, 1);
+                preActivation[j] = 0.0;
+            }
+        }
+
+        final double[] output = new double[network.getOutputCount()];
+        System.arraycopy(postActivation, network.getOutputIndex(), output, 0,
+                output.length);
+        return output;
+    }
+
+    private static NEATNetwork decode(final NEATPopulation pop,
+                                      final NEATGenome genome, final int cycles) {
+        pop.setActivationCycles(cycles);
+        return (NEATNetwork) new NEATCODEC().geneDecode(genome);
+    }
+
+    private static void assertSameAsLinkList(final NEATNetwork network) {
+        final double[][] batch = new double[INPUTS.length][network
+                .getOutputCount()];
+        network.compute(INPUTS, batch);
+        for (int i = 0; i < INPUTS.length; i++) {
+            final double[] expected = linkListCompute(network, INPUTS[i]);
+            Assert.assertArrayEquals(expected, network.compute(
+                    new VectorData(INPUTS[i])).getData(), 0.0);
+            final double[] output = new double[expected.length];
+            network.compute(INPUTS[i], output);
+            Assert.assertArrayEquals(expected, output, 0.0);
+            Assert.assertArrayEquals(expected, batch[i], 0.0);
+        }
+    }
+
+    @Test
+    public void testFeedforwardGenome() {
+        final NEATPopulation pop = new NEATPopulation(3, 2, 10);
+        final NEATGenome genome = createFeedforwardGenome(pop);
+        // fewer cycles than the depth are still cycled, more are one pass
+        for (int cycles = 1; cycles <= 5; cycles++) {
+            final NEATNetwork network = decode(pop, genome, cycles);
+            Assert.assertTrue(network.isFeedforward());
+            assertSameAsLinkList(network);
+        }
+    }
+
+    @Test
+    public void testRecurrentGenome() {
+        final NEATPopulation pop = new NEATPopulation(3, 2, 10);
+        final NEATGenome genome = createRecurrentGenome(pop);
+        for (int cycles = 1; cycles <= 6; cycles++) {
+            final NEATNetwork network = decode(pop, genome, cycles);
+            Assert.assertFalse(network.isFeedforward());
+            assertSameAsLinkList(network);
+        }
+        // the recurrent links change the output of later cycles
+        final double[] three = decode(pop, genome, 3).compute(
+                new VectorData(INPUTS[2])).getData();
+        final double[] six = decode(pop, genome, 6).compute(
+                new VectorData(INPUTS[2])).getData();
+        Assert.assertFalse(three[1] == six[1]);
+    }
+}
@@ -0,0 +1,55 @@
+package syncleus.dann.neural.spiking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+import syncleus.dann.neural.spiking.neuron_update_rules.IntegrateAndFireRule;
+import syncleus.dann.neural.spiking.neuron_update_rules.IzhikevichRule;
+
+public class TestCompactGroups {
+
+    @Test
+    public void testIzhikevichMatchesNeuron() {
+        SpikingNeuralNetwork net = new SpikingNeuralNetwork();
+        SpikingNeuron neuron = new SpikingNeuron(net, new IzhikevichRule());
+        CompactNeuronGroup group = new CompactNeuronGroup(net, 1,
+            new IzhikevichRule());
+
+        boolean spiked = false;
+        for (int i = 0; i < 500; i++) {
+            neuron.setInputValue(10);
+            neuron.update();
+            neuron.setActivation(neuron.getBuffer());
+
+            group.setInputValues(new double[] { 10 });
+            group.update();
+
+            assertEquals(neuron.getActivation(), group.getActivations()[0],
+                1e-12);
+            assertEquals(((SpikingNeuronUpdateRule) neuron.getUpdateRule())
+                .hasSpiked(), group.getSpiked()[0]);
+            spiked |= group.getSpiked()[0];
+        }
+        assertTrue(spiked);
+    }
+
+    @Test
+    public void testWeightedInputs() {
+        SpikingNeuralNetwork net = new SpikingNeuralNetwork();
+        IntegrateAndFireRule rule = new IntegrateAndFireRule();
+        rule.setInputType(SpikingNeuronUpdateRule.InputType.WEIGHTED);
+        CompactNeuronGroup source = new CompactNeuronGroup(net, 3, rule);
+        CompactNeuronGroup target = new CompactNeuronGroup(net, 2, rule);
+        new CompactSynapseGroup(source, target, new int[] { 2, 0, 1, 0 },
+            new int[] { 1, 0, 1, 1 }, new double[] { 1, 2, 3, 4 });
+
+        source.setActivations(new double[] { 1, 10, 100 });
+        target.setInputValues(new double[] { 0.5, 0 });
+        target.computeBuffers();
+
+        assertEquals(2.5, target.getInputs()[0], 1e-12);
+        assertEquals(100 + 30 + 4, target.getInputs()[1], 1e-12);
+    }
+}
@@ -0,0 +1,117 @@
+package syncleus.dann.neural.spiking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.Test;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+import syncleus.dann.neural.spiking.neuron_update_rules.IntegrateAndFireRule;
+import syncleus.dann.neural.spiking.neuron_update_rules.IzhikevichRule;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.ArraySpikeResponder;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.JumpAndDecay;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.RiseAndDecay;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.Step;
+
+public class TestEventDrivenSynapses {
+
+    private static final int SOURCES = 20;
+    private static final int TARGETS = 8;
+    private static final int STEPS = 600;
+
+    @Test
+    public void testJumpAndDecayMatchesStepping() {
+        JumpAndDecay responder = new JumpAndDecay();
+        responder.setBaseLine(0.1);
+        assertMatches(responder, 1e-9);
+    }
+
+    @Test
+    public void testStepMatchesStepping() {
+        Step responder = new Step();
+        responder.setResponseDuration(2.5);
+        assertMatches(responder, 1e-9);
+    }
+
+    @Test
+    public void testRiseAndDecayMatchesStepping() {
+        assertMatches(new RiseAndDecay(), 1e-6);
+    }
+
+    @Test
+    public void testDelayShiftsResponse() {
+        final int delay = 7;
+        double[][] dense = run(new JumpAndDecay(), false, 0);
+        double[][] delayed = run(new JumpAndDecay(), true, delay);
+        boolean nonZero = false;
+        for (int i = 0; i < delay; i++) {
+            for (double input : delayed[i]) {
+                assertEquals(0, input, 0);
+            }
+        }
+        for (int i = delay; i < STEPS; i++) {
+            for (int t = 0; t < TARGETS; t++) {
+                assertEquals(dense[i - delay][t], delayed[i][t], 1e-9);
+                nonZero |= delayed[i][t] != 0;
+            }
+        }
+        assertTrue(nonZero);
+    }
+
+    private void assertMatches(final ArraySpikeResponder responder,
+        final double tolerance) {
+        double[][] dense = run(responder, false, 0);
+        double[][] events = run(responder, true, 0);
+        boolean nonZero = false;
+        for (int i = 0; i < STEPS; i++) {
+            for (int t = 0; t < TARGETS; t++) {
+                assertEquals(dense[i][t], events[i][t], tolerance);
+                nonZero |= dense[i][t] != 0;
+            }
+        }
+        assertTrue(nonZero);
+    }
+
+    /**
+     * Drive randomly connected Izhikevich neurons and record the synaptic
+     * input of the targets at each step.
+     */
+    private double[][] run(final ArraySpikeResponder responder,
+        final boolean eventDriven, final int delay) {
+        SpikingNeuralNetwork net = new SpikingNeuralNetwork();
+        CompactNeuronGroup source = new CompactNeuronGroup(net, SOURCES,
+            new IzhikevichRule());
+        IntegrateAndFireRule rule = new IntegrateAndFireRule();
+        rule.setInputType(SpikingNeuronUpdateRule.InputType.SYNAPTIC);
+        CompactNeuronGroup target = new CompactNeuronGroup(net, TARGETS, rule);
+
+        Random random = new Random(42);
+        int count = SOURCES * TARGETS / 2;
+        int[] sources = new int[count];
+        int[] targets = new int[count];
+        double[] strengths = new double[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = random.nextInt(SOURCES);
+            targets[i] = random.nextInt(TARGETS);
+            strengths[i] = random.nextDouble() * 2 - 0.5;
+        }
+        CompactSynapseGroup synapses = new CompactSynapseGroup(source, target,
+            sources, targets, strengths);
+        synapses.setSpikeResponder(responder);
+        synapses.setDelay(delay);
+        synapses.setEventDriven(eventDriven);
+
+        double[] drive = new double[SOURCES];
+        for (int i = 0; i < SOURCES; i++) {
+            drive[i] = 4 + random.nextDouble() * 12;
+        }
+        double[][] inputs = new double[STEPS][];
+        for (int i = 0; i < STEPS; i++) {
+            source.setInputValues(drive.clone());
+            source.update();
+            target.update();
+            inputs[i] = target.getInputs().clone();
+        }
+        return inputs;
+    }
+}
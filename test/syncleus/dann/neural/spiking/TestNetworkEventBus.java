@@ -0,0 +1,104 @@
+package syncleus.dann.neural.spiking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import syncleus.dann.neural.spiking.listeners.NetworkDelta;
+import syncleus.dann.neural.spiking.listeners.NetworkEventBus;
+import syncleus.dann.neural.spiking.listeners.NetworkEventBus.Granularity;
+import syncleus.dann.neural.spiking.neuron_update_rules.LinearRule;
+
+public class TestNetworkEventBus {
+
+    @Test
+    public void testCoalescesChangesPerInterval() throws Exception {
+        SpikingNeuralNetwork net = new SpikingNeuralNetwork();
+        SpikingNeuron a = new SpikingNeuron(net, new LinearRule());
+        SpikingNeuron b = new SpikingNeuron(net, new LinearRule());
+        NetworkEventBus bus = new NetworkEventBus(net);
+        List<NetworkDelta> all = Collections
+            .synchronizedList(new ArrayList<NetworkDelta>());
+        List<NetworkDelta> coarse = Collections
+            .synchronizedList(new ArrayList<NetworkDelta>());
+        bus.subscribe(all::add, Granularity.ALL, 3);
+        bus.subscribe(coarse::add, Granularity.NETWORK, 1);
+
+        for (int i = 0; i < 7; i++) {
+            net.fireNeuronChanged(a);
+            net.fireNeuronChanged(a);
+            if (i == 4) {
+                net.fireNeuronChanged(b);
+            }
+            net.fireNetworkChanged();
+        }
+        bus.flush();
+
+        assertEquals(3, all.size());
+        assertEquals(1, all.get(0).getFirstUpdate());
+        assertEquals(3, all.get(0).getLastUpdate());
+        assertEquals(1, all.get(0).getNeurons().size());
+        assertEquals(2, all.get(1).getNeurons().size());
+        assertEquals(7, all.get(2).getFirstUpdate());
+        assertEquals(1, all.get(2).getUpdateCount());
+        assertEquals(7, coarse.size());
+        for (NetworkDelta delta : coarse) {
+            assertTrue(delta.getNeurons().isEmpty());
+        }
+        bus.close();
+    }
+
+    @Test
+    public void testSlowListenerDoesNotBlockUpdates() throws Exception {
+        SpikingNeuralNetwork net = new SpikingNeuralNetwork();
+        SpikingNeuron neuron = new SpikingNeuron(net, new LinearRule());
+        NetworkEventBus bus = new NetworkEventBus(net, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        long[] updates = new long[1];
+        bus.subscribe(delta -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            updates[0] += delta.getUpdateCount();
+            assertTrue(delta.getNeurons().contains(neuron));
+        }, Granularity.NEURONS, 1);
+
+        for (int i = 0; i < 1000; i++) {
+            net.fireNeuronChanged(neuron);
+            net.fireNetworkChanged();
+        }
+        assertTrue(bus.getCoalescedCount() > 0);
+
+        release.countDown();
+        bus.close();
+        assertEquals(1000, updates[0]);
+    }
+
+    @Test
+    public void testFailingListenerIsCounted() throws Exception {
+        SpikingNeuralNetwork net = new SpikingNeuralNetwork();
+        SpikingNeuron neuron = new SpikingNeuron(net, new LinearRule());
+        NetworkEventBus bus = new NetworkEventBus(net);
+        List<NetworkDelta> received = Collections
+            .synchronizedList(new ArrayList<NetworkDelta>());
+        bus.subscribe(delta -> {
+            throw new IllegalStateException("failing subscriber");
+        }, Granularity.NETWORK, 1);
+        bus.subscribe(received::add, Granularity.NEURONS, 1);
+
+        for (int i = 0; i < 3; i++) {
+            net.fireNeuronChanged(neuron);
+            net.fireNetworkChanged();
+        }
+        bus.flush();
+
+        assertEquals(3, bus.getFailureCount());
+        assertEquals(3, received.size());
+        bus.close();
+    }
+}
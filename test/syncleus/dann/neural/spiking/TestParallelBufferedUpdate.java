@@ -0,0 +1,242 @@
+package syncleus.dann.neural.spiking;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.Test;
+import syncleus.dann.neural.spiking.SpikingNeuronUpdateRule.InputType;
+import syncleus.dann.neural.spiking.groups.CompactNeuronGroup;
+import syncleus.dann.neural.spiking.groups.CompactSynapseGroup;
+import syncleus.dann.neural.spiking.neuron_update_rules.IntegrateAndFireRule;
+import syncleus.dann.neural.spiking.neuron_update_rules.IzhikevichRule;
+import syncleus.dann.neural.spiking.synapse_update_rules.STDPRule;
+import syncleus.dann.neural.spiking.synapse_update_rules.spikeresponders.RiseAndDecay;
+import syncleus.dann.neural.spiking.update_actions.ParallelBufferedUpdate;
+
+public class TestParallelBufferedUpdate {
+
+    private static final int GROUPS = 12;
+
+    private static final int SIZE = 40;
+
+    private static CompactNeuronGroup[] build(final SpikingNeuralNetwork net,
+        final boolean noise) {
+        final Random random = new Random(7);
+        final IzhikevichRule rule = new IzhikevichRule();
+        rule.setAddNoise(noise);
+        final CompactNeuronGroup[] groups = new CompactNeuronGroup[GROUPS];
+        for (int g = 0; g < GROUPS; g++) {
+            groups[g] = new CompactNeuronGroup(net, SIZE, rule);
+        }
+        for (int g = 0; g < GROUPS; g++) {
+            final int count = SIZE * 4;
+            final int[] sources = new int[count];
+            final int[] targets = new int[count];
+            final double[] strengths = new double[count];
+            for (int i = 0; i < count; i++) {
+                sources[i] = random.nextInt(SIZE);
+                targets[i] = random.nextInt(SIZE);
+                strengths[i] = random.nextDouble() * 10;
+            }
+            final CompactSynapseGroup synapses = new CompactSynapseGroup(
+                groups[g], groups[(g + 1) % GROUPS], sources, targets,
+                strengths);
+            if (g % 2 == 0) {
+                synapses.setLearningRule(new STDPRule());
+            }
+        }
+        return groups;
+    }
+
+    private static CompactNeuronGroup[] buildSynaptic(
+        final SpikingNeuralNetwork net) {
+        final Random random = new Random(11);
+        final IntegrateAndFireRule rule = new IntegrateAndFireRule();
+        rule.setInputType(InputType.SYNAPTIC);
+        final CompactNeuronGroup[] groups = new CompactNeuronGroup[GROUPS];
+        for (int g = 0; g < GROUPS; g++) {
+            groups[g] = new CompactNeuronGroup(net, SIZE, rule);
+            // start between the reset potential and the threshold
+            final double[] potentials = new double[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                potentials[i] = 13.5 + random.nextDouble() * 1.5;
+            }
+            groups[g].setActivations(potentials);
+        }
+        // each group feeds the next one and one further away, so most groups
+        // read the spikes of a group that comes after them in the list
+        for (int g = 0; g < GROUPS; g++) {
+            for (int target : new int[] {(g + 1) % GROUPS,
+                (g + 5) % GROUPS }) {
+                final int count = SIZE * 3;
+                final int[] sources = new int[count];
+                final int[] targets = new int[count];
+                final double[] strengths = new double[count];
+                for (int i = 0; i < count; i++) {
+                    sources[i] = random.nextInt(SIZE);
+                    targets[i] = random.nextInt(SIZE);
+                    strengths[i] = random.nextDouble() * 4;
+                }
+                final CompactSynapseGroup synapses = new CompactSynapseGroup(
+                    groups[target], groups[g], sources, targets, strengths);
+                if (g % 3 == 1) {
+                    synapses.setSpikeResponder(new RiseAndDecay());
+                } else if (g % 3 == 2) {
+                    synapses.setEventDriven(true);
+                }
+                if (g % 2 == 0) {
+                    synapses.setLearningRule(new STDPRule());
+                }
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * The serial buffered update: all groups sum their inputs before any
+     * group computes, since computing overwrites the spikes that the groups
+     * fed by it read.
+     */
+    private static void serialUpdate(final CompactNeuronGroup[] groups) {
+        for (CompactNeuronGroup group : groups) {
+            group.gatherInputs();
+        }
+        for (CompactNeuronGroup group : groups) {
+            group.computeActivations();
+        }
+        for (CompactNeuronGroup group : groups) {
+            group.commitBuffers();
+        }
+        for (CompactNeuronGroup group : groups) {
+            for (CompactSynapseGroup synapses : group.getIncoming()) {
+                synapses.update();
+            }
+        }
+    }
+
+    private static double[] drive(final int step, final int g) {
+        final double[] inputs = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            inputs[i] = ((step + g + i) % 5 == 0) ? 12 : 2;
+        }
+        return inputs;
+    }
+
+    private static CompactNeuronGroup[] run(final int threads,
+        final int steps) {
+        final SpikingNeuralNetwork net = new SpikingNeuralNetwork();
+        final CompactNeuronGroup[] groups = build(net, true);
+        final ParallelBufferedUpdate update = new ParallelBufferedUpdate(net,
+            42, threads);
+        try {
+            for (int step = 0; step < steps; step++) {
+                for (int g = 0; g < GROUPS; g++) {
+                    groups[g].setInputValues(drive(step, g));
+                }
+                update.invoke();
+            }
+        } finally {
+            update.shutdown();
+        }
+        return groups;
+    }
+
+    @Test
+    public void testSameResultForAnyThreadCount() {
+        final CompactNeuronGroup[] serial = run(1, 200);
+        final CompactNeuronGroup[] parallel = run(4, 200);
+        boolean spiked = false;
+        for (int g = 0; g < GROUPS; g++) {
+            assertArrayEquals(serial[g].getActivations(),
+                parallel[g].getActivations(), 0);
+            assertArrayEquals(serial[g].getAuxiliary(),
+                parallel[g].getAuxiliary(), 0);
+            assertArrayEquals(serial[g].getLastSpikeTimes(),
+                parallel[g].getLastSpikeTimes(), 0);
+            assertArrayEquals(serial[g].getIncoming().get(0).getStrengths(),
+                parallel[g].getIncoming().get(0).getStrengths(), 0);
+            for (boolean s : serial[g].getSpiked()) {
+                spiked |= s;
+            }
+        }
+        assertTrue(spiked);
+    }
+
+    @Test
+    public void testMatchesSerialBufferedUpdate() {
+        final SpikingNeuralNetwork expectedNet = new SpikingNeuralNetwork();
+        final CompactNeuronGroup[] expected = build(expectedNet, false);
+        final SpikingNeuralNetwork actualNet = new SpikingNeuralNetwork();
+        final CompactNeuronGroup[] actual = build(actualNet, false);
+        final ParallelBufferedUpdate update = new ParallelBufferedUpdate(
+            actualNet, 1, 3);
+        try {
+            for (int step = 0; step < 100; step++) {
+                for (int g = 0; g < GROUPS; g++) {
+                    expected[g].setInputValues(drive(step, g));
+                    actual[g].setInputValues(drive(step, g));
+                }
+                serialUpdate(expected);
+                update.invoke();
+
+                for (int g = 0; g < GROUPS; g++) {
+                    assertArrayEquals(expected[g].getActivations(),
+                        actual[g].getActivations(), 0);
+                    assertArrayEquals(expected[g].getIncoming().get(0)
+                        .getStrengths(), actual[g].getIncoming().get(0)
+                        .getStrengths(), 0);
+                }
+            }
+        } finally {
+            update.shutdown();
+        }
+    }
+
+    @Test
+    public void testSynapticRuleMatchesSerialBufferedUpdate() {
+        final SpikingNeuralNetwork expectedNet = new SpikingNeuralNetwork();
+        final CompactNeuronGroup[] expected = buildSynaptic(expectedNet);
+        final SpikingNeuralNetwork actualNet = new SpikingNeuralNetwork();
+        final CompactNeuronGroup[] actual = buildSynaptic(actualNet);
+        final ParallelBufferedUpdate update = new ParallelBufferedUpdate(
+            actualNet, 1, 4);
+        int spikes = 0;
+        try {
+            for (int step = 0; step < 150; step++) {
+                for (int g = 0; g < GROUPS; g++) {
+                    expected[g].setInputValues(drive(step, g));
+                    actual[g].setInputValues(drive(step, g));
+                }
+                serialUpdate(expected);
+                update.invoke();
+                expectedNet.updateTime();
+                actualNet.updateTime();
+
+                for (int g = 0; g < GROUPS; g++) {
+                    assertArrayEquals(expected[g].getActivations(),
+                        actual[g].getActivations(), 0);
+                    for (int i = 0; i < SIZE; i++) {
+                        assertTrue(expected[g].getSpiked()[i] == actual[g]
+                            .getSpiked()[i]);
+                        if (expected[g].getSpiked()[i]) {
+                            spikes++;
+                        }
+                    }
+                    for (int k = 0; k < 2; k++) {
+                        final CompactSynapseGroup expectedSynapses =
+                            expected[g].getIncoming().get(k);
+                        final CompactSynapseGroup actualSynapses = actual[g]
+                            .getIncoming().get(k);
+                        assertArrayEquals(expectedSynapses.getPsr(),
+                            actualSynapses.getPsr(), 0);
+                        assertArrayEquals(expectedSynapses.getStrengths(),
+                            actualSynapses.getStrengths(), 0);
+                    }
+                }
+            }
+        } finally {
+            update.shutdown();
+        }
+        assertTrue(spikes > GROUPS * SIZE);
+    }
+}